@@ -20,6 +20,7 @@ package org.apache.stratos.autoscaler.applications.topic;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.broker.publish.EventOutboxPool;
 import org.apache.stratos.messaging.broker.publish.EventPublisher;
 import org.apache.stratos.messaging.broker.publish.EventPublisherPool;
 import org.apache.stratos.messaging.domain.application.Application;
@@ -40,20 +41,22 @@ public class ApplicationsEventPublisher {
     private static final Log log = LogFactory.getLog(ApplicationsEventPublisher.class);
 
     public static void sendCompleteApplicationsEvent(Applications completeApplications) {
-        publishEvent(new CompleteApplicationsEvent(completeApplications));
+        // A complete applications event waiting in the outbox is superseded by this one
+        publishEvent(new CompleteApplicationsEvent(completeApplications), "complete-applications");
     }
 
     public static void sendApplicationCreatedEvent(Application application) {
-        publishEvent(new ApplicationCreatedEvent(application));
+        publishEvent(new ApplicationCreatedEvent(application), application.getUniqueIdentifier());
     }
 
     public static void sendApplicationDeletedEvent(String appId, Set<ClusterDataHolder> clusterData) {
-        publishEvent(new ApplicationDeletedEvent(appId, clusterData));
+        publishEvent(new ApplicationDeletedEvent(appId, clusterData), appId);
     }
 
     public static void sendApplicationInstanceCreatedEvent(String appId,
                                                            ApplicationInstance applicationInstance) {
-        publishEvent(new ApplicationInstanceCreatedEvent(appId, applicationInstance));
+        publishEvent(new ApplicationInstanceCreatedEvent(appId, applicationInstance),
+                appId + ":" + applicationInstance.getInstanceId());
     }
 
     public static void sendGroupInstanceCreatedEvent(String appId, String groupId,
@@ -64,7 +67,7 @@ public class ApplicationsEventPublisher {
         }
         GroupInstanceCreatedEvent groupCreatedEvent =
                 new GroupInstanceCreatedEvent(appId, groupId, groupInstance);
-        publishEvent(groupCreatedEvent);
+        publishEvent(groupCreatedEvent, appId + ":" + groupId + ":" + groupInstance.getInstanceId());
     }
 
     public static void sendGroupInstanceActivatedEvent(String appId, String groupId,
@@ -75,7 +78,7 @@ public class ApplicationsEventPublisher {
         }
         GroupInstanceActivatedEvent groupActivatedEvent =
                 new GroupInstanceActivatedEvent(appId, groupId, instanceId);
-        publishEvent(groupActivatedEvent);
+        publishEvent(groupActivatedEvent, appId + ":" + groupId + ":" + instanceId);
     }
 
     public static void sendGroupInstanceInactivateEvent(String appId, String groupId,
@@ -86,7 +89,7 @@ public class ApplicationsEventPublisher {
         }
         GroupInstanceInactivatedEvent groupInactivateEvent =
                 new GroupInstanceInactivatedEvent(appId, groupId, instanceId);
-        publishEvent(groupInactivateEvent);
+        publishEvent(groupInactivateEvent, appId + ":" + groupId + ":" + instanceId);
     }
 
     public static void sendGroupInstanceTerminatingEvent(String appId, String groupId,
@@ -97,7 +100,7 @@ public class ApplicationsEventPublisher {
         }
         GroupInstanceTerminatingEvent groupInTerminatingEvent =
                 new GroupInstanceTerminatingEvent(appId, groupId, instanceId);
-        publishEvent(groupInTerminatingEvent);
+        publishEvent(groupInTerminatingEvent, appId + ":" + groupId + ":" + instanceId);
     }
 
     public static void sendGroupInstanceTerminatedEvent(String appId, String groupId,
@@ -109,7 +112,7 @@ public class ApplicationsEventPublisher {
         }
         GroupInstanceTerminatedEvent groupInTerminatedEvent =
                 new GroupInstanceTerminatedEvent(appId, groupId, instanceId);
-        publishEvent(groupInTerminatedEvent);
+        publishEvent(groupInTerminatedEvent, appId + ":" + groupId + ":" + instanceId);
     }
 
     public static void sendApplicationInstanceActivatedEvent(String appId, String instanceId) {
@@ -120,7 +123,7 @@ public class ApplicationsEventPublisher {
         ApplicationInstanceActivatedEvent applicationActivatedEvent =
                 new ApplicationInstanceActivatedEvent(appId, instanceId);
 
-        publishEvent(applicationActivatedEvent);
+        publishEvent(applicationActivatedEvent, appId + ":" + instanceId);
     }
 
     public static void sendApplicationInstanceInactivatedEvent(String appId, String instanceId) {
@@ -130,7 +133,7 @@ public class ApplicationsEventPublisher {
         }
         ApplicationInstanceInactivatedEvent applicationInactivatedEvent =
                 new ApplicationInstanceInactivatedEvent(appId, instanceId);
-        publishEvent(applicationInactivatedEvent);
+        publishEvent(applicationInactivatedEvent, appId + ":" + instanceId);
 
     }
 
@@ -141,7 +144,7 @@ public class ApplicationsEventPublisher {
         }
         ApplicationInstanceTerminatingEvent applicationTerminatingEvent =
                 new ApplicationInstanceTerminatingEvent(appId, instanceId);
-        publishEvent(applicationTerminatingEvent);
+        publishEvent(applicationTerminatingEvent, appId + ":" + instanceId);
     }
 
     public static void sendApplicationInstanceTerminatedEvent(String appId, String instanceId) {
@@ -151,12 +154,25 @@ public class ApplicationsEventPublisher {
         }
         ApplicationInstanceTerminatedEvent applicationTerminatedEvent =
                 new ApplicationInstanceTerminatedEvent(appId, instanceId);
-        publishEvent(applicationTerminatedEvent);
+        publishEvent(applicationTerminatedEvent, appId + ":" + instanceId);
     }
 
     public static void publishEvent(Event event) {
+        publishEvent(event, null);
+    }
+
+    /**
+     * @param event         event to be published
+     * @param coalescingKey key of the application, group or instance the event describes, superseding
+     *                      a pending event of the same type and key in the event outbox
+     */
+    private static void publishEvent(Event event, String coalescingKey) {
         //publishing events to application status topic
         String applicationTopic = MessagingUtil.getMessageTopicName(event);
+        if (EventOutboxPool.isEnabled()) {
+            EventOutboxPool.getOutbox(applicationTopic).publish(applicationTopic, event, coalescingKey);
+            return;
+        }
         EventPublisher eventPublisher = EventPublisherPool.getPublisher(applicationTopic);
         eventPublisher.publish(event);
     }
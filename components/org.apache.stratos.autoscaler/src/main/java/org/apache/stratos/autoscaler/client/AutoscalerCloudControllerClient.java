@@ -85,12 +85,13 @@ public class AutoscalerCloudControllerClient {
                                                     String clusterId, String clusterInstanceId,
                                                     String networkPartitionId, boolean isPrimary,
                                                     int minMemberCount, String autoscalingReason,
-                                                    long scalingTime) throws SpawningException {
+                                                    long scalingTime, String scalingTraceId)
+            throws SpawningException {
         try {
             if (log.isInfoEnabled()) {
                 log.info(String.format("Trying to spawn an instance via cloud controller: " +
-                                "[cluster] %s [partition] %s [network-partition-id] %s",
-                        clusterId, partition.getUuid(), networkPartitionId));
+                                "[cluster] %s [partition] %s [network-partition-id] %s [scaling-trace-id] %s",
+                        clusterId, partition.getUuid(), networkPartitionId, scalingTraceId));
             }
 
             XMLConfiguration conf = ConfUtil.getInstance(null).getConfiguration();
@@ -109,7 +110,7 @@ public class AutoscalerCloudControllerClient {
 
             Properties memberContextProps = new Properties();
             Property isPrimaryProp = new Property();
-            isPrimaryProp.setName("PRIMARY");
+            isPrimaryProp.setName(AutoscalerConstants.PRIMARY_MEMBER_PROPERTY);
             isPrimaryProp.setValue(String.valueOf(isPrimary));
 
             Property minCountProp = new Property();
@@ -128,6 +129,13 @@ public class AutoscalerCloudControllerClient {
             memberContextProps.addProperty(minCountProp);
             memberContextProps.addProperty(autoscalingReasonProp);
             memberContextProps.addProperty(scalingTimeProp);
+
+            if (scalingTraceId != null) {
+                Property scalingTraceIdProp = new Property();
+                scalingTraceIdProp.setName(StratosConstants.SCALING_TRACE_ID);
+                scalingTraceIdProp.setValue(scalingTraceId);
+                memberContextProps.addProperty(scalingTraceIdProp);
+            }
             instanceContext.setProperties(AutoscalerUtil.toStubProperties(memberContextProps));
 
             long startTime = System.currentTimeMillis();
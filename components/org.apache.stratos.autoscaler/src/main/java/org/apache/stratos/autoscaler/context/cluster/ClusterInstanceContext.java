@@ -22,16 +22,17 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.autoscaler.context.InstanceContext;
 import org.apache.stratos.autoscaler.context.partition.ClusterLevelPartitionContext;
+import org.apache.stratos.autoscaler.forecast.ClusterInstanceForecaster;
+import org.apache.stratos.autoscaler.forecast.ForecastMetric;
 import org.apache.stratos.autoscaler.pojo.policy.autoscale.LoadAverage;
 import org.apache.stratos.autoscaler.pojo.policy.autoscale.MemoryConsumption;
 import org.apache.stratos.autoscaler.pojo.policy.autoscale.RequestsInFlight;
-import org.apache.stratos.autoscaler.rule.AutoscalerRuleEvaluator;
-import org.apache.stratos.common.constants.StratosConstants;
 import org.apache.stratos.messaging.domain.topology.Member;
 import org.drools.runtime.StatefulKnowledgeSession;
 import org.drools.runtime.rule.FactHandle;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +46,8 @@ public class ClusterInstanceContext extends InstanceContext {
     private final String partitionAlgorithm;
     // Map<PartitionId, Partition Context>
     protected Map<String, ClusterLevelPartitionContext> partitionCtxts;
+    // partition contexts copied on change, read by the primary member queries without locking
+    private volatile ClusterLevelPartitionContext[] partitionCtxtArray = new ClusterLevelPartitionContext[0];
     //boolean values to keep whether the requests in flight parameters are reset or not
     private boolean rifReset, averageRifReset, gradientRifReset, secondDerivativeRifRest;
     //boolean values to keep whether the memory consumption parameters are reset or not
@@ -73,17 +76,19 @@ public class ClusterInstanceContext extends InstanceContext {
 
     private boolean hasScalingDependants;
     private boolean groupScalingEnabledSubtree;
+    // drools sessions are created by the drools scaling decision engine on first evaluation
     private StatefulKnowledgeSession minCheckKnowledgeSession;
     private StatefulKnowledgeSession maxCheckKnowledgeSession;
     private StatefulKnowledgeSession obsoleteCheckKnowledgeSession;
     private StatefulKnowledgeSession scaleCheckKnowledgeSession;
     private StatefulKnowledgeSession dependentScaleCheckKnowledgeSession;
-    private AutoscalerRuleEvaluator autoscalerRuleEvaluator;
     private FactHandle minCheckFactHandle;
     private FactHandle maxCheckFactHandle;
     private FactHandle obsoleteCheckFactHandle;
     private FactHandle scaleCheckFactHandle;
     private FactHandle dependentScaleCheckFactHandle;
+    // forecaster is set only when the autoscale policy selects a predictor
+    private volatile ClusterInstanceForecaster forecaster;
 
     public ClusterInstanceContext(String clusterInstanceId, String partitionAlgo,
                                   int min, int max, String networkPartitionId, String clusterId,
@@ -103,19 +108,6 @@ public class ClusterInstanceContext extends InstanceContext {
         requiredInstanceCountBasedOnDependencies = minInstanceCount;
         this.hasScalingDependants = hasScalingDependants;
         this.groupScalingEnabledSubtree = groupScalingEnabledSubtree;
-
-        autoscalerRuleEvaluator = AutoscalerRuleEvaluator.getInstance();
-
-        this.obsoleteCheckKnowledgeSession = autoscalerRuleEvaluator.getStatefulSession(
-                StratosConstants.OBSOLETE_CHECK_DROOL_FILE);
-        this.scaleCheckKnowledgeSession = autoscalerRuleEvaluator.getStatefulSession(
-                StratosConstants.SCALE_CHECK_DROOL_FILE);
-        this.minCheckKnowledgeSession = autoscalerRuleEvaluator.getStatefulSession(
-                StratosConstants.MIN_CHECK_DROOL_FILE);
-        this.maxCheckKnowledgeSession = autoscalerRuleEvaluator.getStatefulSession(
-                StratosConstants.MAX_CHECK_DROOL_FILE);
-        this.dependentScaleCheckKnowledgeSession = autoscalerRuleEvaluator.getStatefulSession(
-                StratosConstants.DEPENDENT_SCALE_CHECK_DROOL_FILE);
     }
 
     public List<ClusterLevelPartitionContext> getPartitionCtxts() {
@@ -124,6 +116,7 @@ public class ClusterInstanceContext extends InstanceContext {
 
     public void setPartitionCtxt(Map<String, ClusterLevelPartitionContext> partitionCtxt) {
         this.partitionCtxts = partitionCtxt;
+        updatePartitionCtxtArray();
     }
 
 //    public ClusterLevelPartitionContext getNetworkPartitionCtxt(String PartitionId) {
@@ -140,12 +133,45 @@ public class ClusterInstanceContext extends InstanceContext {
 
     public void addPartitionCtxt(ClusterLevelPartitionContext ctxt) {
         this.partitionCtxts.put(ctxt.getPartitionId(), ctxt);
+        updatePartitionCtxtArray();
     }
 
     public void removePartitionCtxt(String partitionId) {
         if (partitionCtxts.containsKey(partitionId)) {
             partitionCtxts.remove(partitionId);
+            updatePartitionCtxtArray();
+        }
+    }
+
+    private synchronized void updatePartitionCtxtArray() {
+        partitionCtxtArray = partitionCtxts.values().toArray(new ClusterLevelPartitionContext[partitionCtxts.size()]);
+    }
+
+    /**
+     * Returns a snapshot of the ids of the primary members in pending or active state in all
+     * partitions. The snapshot is taken once per evaluation and is not updated as members
+     * change state.
+     */
+    public List<String> getPrimaryMembers() {
+        List<String> primaryMembers = null;
+        for (ClusterLevelPartitionContext partitionContext : partitionCtxtArray) {
+            List<String> partitionPrimaryMembers = partitionContext.getPrimaryMembers();
+            if (!partitionPrimaryMembers.isEmpty()) {
+                if (primaryMembers == null) {
+                    primaryMembers = new ArrayList<String>(partitionPrimaryMembers.size());
+                }
+                primaryMembers.addAll(partitionPrimaryMembers);
+            }
+        }
+        return (primaryMembers != null) ? primaryMembers : Collections.<String>emptyList();
+    }
+
+    public int getPrimaryMemberCount() {
+        int primaryMemberCount = 0;
+        for (ClusterLevelPartitionContext partitionContext : partitionCtxtArray) {
+            primaryMemberCount += partitionContext.getPrimaryMemberCount();
         }
+        return primaryMemberCount;
     }
 
     public ClusterLevelPartitionContext getPartitionCtxt(String id) {
@@ -244,6 +270,7 @@ public class ClusterInstanceContext extends InstanceContext {
 
     public void setAverageRequestsInFlight(float averageRequestsInFlight) {
         requestsInFlight.setAverage(averageRequestsInFlight);
+        addObservation(ForecastMetric.REQUESTS_IN_FLIGHT, averageRequestsInFlight);
         averageRifReset = true;
         if (secondDerivativeRifRest && gradientRifReset) {
             rifReset = true;
@@ -304,6 +331,7 @@ public class ClusterInstanceContext extends InstanceContext {
 
     public void setAverageMemoryConsumption(float averageMemoryConsumption) {
         memoryConsumption.setAverage(averageMemoryConsumption);
+        addObservation(ForecastMetric.MEMORY_CONSUMPTION, averageMemoryConsumption);
         averageMemoryConsumptionReset = true;
         if (secondDerivativeMemoryConsumptionRest && gradientMemoryConsumptionReset) {
             memoryConsumptionReset = true;
@@ -364,6 +392,7 @@ public class ClusterInstanceContext extends InstanceContext {
 
     public void setAverageLoadAverage(float averageLoadAverage) {
         loadAverage.setAverage(averageLoadAverage);
+        addObservation(ForecastMetric.LOAD_AVERAGE, averageLoadAverage);
         averageLoadAverageReset = true;
         if (secondDerivativeLoadAverageRest && gradientLoadAverageReset) {
             loadAverageReset = true;
@@ -516,6 +545,10 @@ public class ClusterInstanceContext extends InstanceContext {
         return maxCheckKnowledgeSession;
     }
 
+    public void setMaxCheckKnowledgeSession(StatefulKnowledgeSession maxCheckKnowledgeSession) {
+        this.maxCheckKnowledgeSession = maxCheckKnowledgeSession;
+    }
+
     public StatefulKnowledgeSession getObsoleteCheckKnowledgeSession() {
         return obsoleteCheckKnowledgeSession;
     }
@@ -581,4 +614,19 @@ public class ClusterInstanceContext extends InstanceContext {
     public void setDependentScaleCheckFactHandle(FactHandle dependentScaleCheckFactHandle) {
         this.dependentScaleCheckFactHandle = dependentScaleCheckFactHandle;
     }
+
+    private void addObservation(ForecastMetric metric, float value) {
+        ClusterInstanceForecaster forecaster = this.forecaster;
+        if (forecaster != null) {
+            forecaster.addObservation(metric, System.currentTimeMillis(), value);
+        }
+    }
+
+    public ClusterInstanceForecaster getForecaster() {
+        return forecaster;
+    }
+
+    public void setForecaster(ClusterInstanceForecaster forecaster) {
+        this.forecaster = forecaster;
+    }
 }
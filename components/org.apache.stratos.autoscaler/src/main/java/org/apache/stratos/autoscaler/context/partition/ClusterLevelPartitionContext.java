@@ -24,21 +24,20 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.autoscaler.client.AutoscalerCloudControllerClient;
 import org.apache.stratos.autoscaler.context.member.MemberStatsContext;
+import org.apache.stratos.autoscaler.context.partition.MemberRegistry.MemberState;
 import org.apache.stratos.autoscaler.util.ConfUtil;
 import org.apache.stratos.cloud.controller.stub.domain.MemberContext;
 import org.apache.stratos.common.client.CloudControllerServiceClient;
 import org.apache.stratos.common.constants.StratosConstants;
 import org.apache.stratos.common.partition.PartitionRef;
-import org.apache.stratos.messaging.domain.instance.ClusterInstance;
-import org.apache.stratos.messaging.domain.topology.Cluster;
-import org.apache.stratos.messaging.domain.topology.ClusterStatus;
-import org.apache.stratos.messaging.domain.topology.Service;
-import org.apache.stratos.messaging.message.receiver.topology.TopologyManager;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
 
 /**
  * This is an object that inserted to the rules engine.
@@ -60,7 +59,7 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
     private long pendingMemberExpiryTime = 900000;
     //
     private boolean spinTerminateParallel;
-    // pending members
+    // pending members, view of the member registry
     private List<MemberContext> pendingMembers;
 
     // 1 day as default
@@ -72,12 +71,15 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
     // members to be terminated
     private Map<String, MemberContext> obsoletedMembers;
 
-    // active members
+    // active members, view of the member registry
     private List<MemberContext> activeMembers;
 
     // termination pending members, member is added to this when Autoscaler send grace fully shut down event
     private List<MemberContext> terminationPendingMembers;
 
+    // pending, active and termination pending members indexed by member id, the member lists are
+    // serialized in place of the registry
+    private transient MemberRegistry memberRegistry;
 
     //member id: time that member is moved to termination pending status
     private Map<String, Long> terminationPendingStartedTime;
@@ -85,24 +87,22 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
     //Keep statistics come from CEP
     private Map<String, MemberStatsContext> memberStatsContexts;
 
+    // expiries of pending, termination pending and obsolete members, key: expiry type and member id
+    private transient ConcurrentMap<String, MemberExpiry> memberExpiries;
+    private boolean memberExpiryEnabled;
+    // schedules member expiries, member times are read from its clock
+    private transient MemberExpiryScheduler memberExpiryScheduler;
+
     // for the use of tests
     public ClusterLevelPartitionContext(long memberExpiryTime) {
         super(memberExpiryTime);
-        this.activeMembers = new ArrayList<MemberContext>();
-        this.terminationPendingMembers = new ArrayList<MemberContext>();
-        this.pendingMembers = new ArrayList<MemberContext>();
+        initMemberRegistry();
     }
 
     public ClusterLevelPartitionContext(PartitionRef partition, String networkPartitionId, String deploymentPolicyId) {
 
         super(partition, networkPartitionId, deploymentPolicyId);
-        this.pendingMembers = new ArrayList<MemberContext>();
-        this.activeMembers = new ArrayList<MemberContext>();
-        this.terminationPendingMembers = new ArrayList<MemberContext>();
-        this.obsoletedMembers = new ConcurrentHashMap<String, MemberContext>();
-        memberStatsContexts = new ConcurrentHashMap<String, MemberStatsContext>();
-
-        terminationPendingStartedTime = new HashMap<String, Long>();
+        initMemberExpiry(MemberExpiryScheduler.getInstance());
         // check if a different value has been set for expiryTime
         XMLConfiguration conf = ConfUtil.getInstance(null).getConfiguration();
         pendingMemberExpiryTime = conf.getLong(StratosConstants.PENDING_MEMBER_EXPIRY_TIMEOUT, 900000);
@@ -114,37 +114,75 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
             log.debug("Member obsoleted expiry time is set to: " + obsoltedMemberExpiryTime);
             log.debug("Member pending termination expiry time is set to: " + terminationPendingMemberExpiryTime);
         }
+    }
 
-        Thread th = new Thread(new PendingMemberWatcher(this));
-        th.start();
-        Thread th2 = new Thread(new ObsoletedMemberWatcher(this));
-        th2.start();
-        Thread th3 = new Thread(new TerminationPendingMemberWatcher(this));
-        th3.start();
+    /**
+     * Create a partition context with the given member expiry times rather than the ones of the
+     * autoscaler configuration. Member expiries are scheduled by the given scheduler, which also
+     * provides the clock, hence partition contexts can be run in virtual time.
+     */
+    public ClusterLevelPartitionContext(PartitionRef partition, String networkPartitionId, String deploymentPolicyId,
+                                        MemberExpiryScheduler memberExpiryScheduler, long pendingMemberExpiryTime,
+                                        long obsoletedMemberExpiryTime, long terminationPendingMemberExpiryTime) {
+
+        super(partition, networkPartitionId, deploymentPolicyId);
+        initMemberExpiry(memberExpiryScheduler);
+        this.pendingMemberExpiryTime = pendingMemberExpiryTime;
+        this.obsoltedMemberExpiryTime = obsoletedMemberExpiryTime;
+        this.terminationPendingMemberExpiryTime = terminationPendingMemberExpiryTime;
     }
 
-    public void terminateAllRemainingInstances() {
+    private void initMemberExpiry(MemberExpiryScheduler memberExpiryScheduler) {
+        initMemberRegistry();
+        this.obsoletedMembers = new ConcurrentHashMap<String, MemberContext>();
+        memberStatsContexts = new ConcurrentHashMap<String, MemberStatsContext>();
+        terminationPendingStartedTime = new HashMap<String, Long>();
+        memberExpiries = new ConcurrentHashMap<String, MemberExpiry>();
+        this.memberExpiryScheduler = memberExpiryScheduler;
+        memberExpiryEnabled = true;
+    }
 
-        // Forcefully deleting remaining active members
-        for (Iterator<MemberContext> iterator = activeMembers.iterator(); iterator.hasNext(); ) {
-            MemberContext member = iterator.next();
-            iterator.remove();
-            terminateForcefully(member.getMemberId());
+    private MemberExpiryScheduler getMemberExpiryScheduler() {
+        if (memberExpiryScheduler == null) {
+            // Not kept on serialization
+            memberExpiryScheduler = MemberExpiryScheduler.getInstance();
         }
+        return memberExpiryScheduler;
+    }
 
-        // Forcefully deleting remaining pending members
-        for (Iterator<MemberContext> iterator = pendingMembers.iterator(); iterator.hasNext(); ) {
-            MemberContext member = iterator.next();
-            iterator.remove();
-            terminateForcefully(member.getMemberId());
-        }
+    private long currentTimeMillis() {
+        return (memberExpiryScheduler != null) ? memberExpiryScheduler.currentTimeMillis() : System.currentTimeMillis();
+    }
 
-        /// Forcefully deleting remaining termination pending members
-        for (Iterator<MemberContext> iterator = terminationPendingMembers.iterator(); iterator.hasNext(); ) {
-            MemberContext member = iterator.next();
-            // Remove the current element from the iterator and the list.
-            iterator.remove();
-            terminateForcefully(member.getMemberId());
+    private void initMemberRegistry() {
+        memberRegistry = new MemberRegistry();
+        pendingMembers = memberRegistry.getMembers(MemberState.Pending);
+        activeMembers = memberRegistry.getMembers(MemberState.Active);
+        terminationPendingMembers = memberRegistry.getMembers(MemberState.TerminationPending);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        List<MemberContext> pendingMemberList = pendingMembers;
+        List<MemberContext> activeMemberList = activeMembers;
+        List<MemberContext> terminationPendingMemberList = terminationPendingMembers;
+        initMemberRegistry();
+        memberRegistry.setMembers(MemberState.Pending, pendingMemberList);
+        memberRegistry.setMembers(MemberState.Active, activeMemberList);
+        memberRegistry.setMembers(MemberState.TerminationPending, terminationPendingMemberList);
+    }
+
+    public void terminateAllRemainingInstances() {
+
+        // Forcefully deleting remaining active, pending and termination pending members
+        for (MemberState state : MemberState.values()) {
+            List<MemberContext> members = memberRegistry.getMembers(state);
+            while (!members.isEmpty()) {
+                MemberContext member = memberRegistry.removeMember(members.get(members.size() - 1).getMemberId());
+                if (member != null) {
+                    terminateForcefully(member.getMemberId());
+                }
+            }
         }
 
 
@@ -157,6 +195,7 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
     }
 
     private void terminateForcefully(String memberId) {
+        cancelMemberExpiries(memberId);
         try {
             if (log.isDebugEnabled()) {
                 log.debug(String.format("Forcefully terminating member [member-id] %s", memberId));
@@ -176,7 +215,8 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
     }
 
     public void setPendingMembers(List<MemberContext> pendingMembers) {
-        this.pendingMembers = pendingMembers;
+        memberRegistry.setMembers(MemberState.Pending, pendingMembers);
+        schedulePendingMemberExpiries();
     }
 
     public int getActiveMemberCount() {
@@ -192,104 +232,73 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
     }
 
     public void addPendingMember(MemberContext ctxt) {
-        this.pendingMembers.add(ctxt);
+        memberRegistry.addMember(MemberState.Pending, ctxt);
+        schedulePendingMemberExpiry(ctxt);
     }
 
     public void addTerminationPendingMember(MemberContext ctxt) {
-        this.terminationPendingMembers.add(ctxt);
+        memberRegistry.addMember(MemberState.TerminationPending, ctxt);
+        if (!terminationPendingStartedTime.containsKey(ctxt.getMemberId())) {
+            terminationPendingStartedTime.put(ctxt.getMemberId(), currentTimeMillis());
+        }
+        scheduleTerminationPendingMemberExpiry(ctxt);
     }
 
     public boolean removePendingMember(String id) {
-        if (id == null) {
+        if (memberRegistry.removeMember(MemberState.Pending, id) == null) {
             return false;
         }
-        synchronized (pendingMembers) {
-            for (Iterator<MemberContext> iterator = pendingMembers.iterator(); iterator.hasNext(); ) {
-                MemberContext pendingMember = iterator.next();
-                if (id.equals(pendingMember.getMemberId())) {
-                    iterator.remove();
-                    return true;
-                }
-
-            }
-        }
-        return false;
+        cancelMemberExpiry(MemberExpiryType.Pending, id);
+        return true;
     }
 
     public void movePendingMemberToActiveMembers(String memberId) {
-        if (memberId == null) {
+        if (memberRegistry.moveMember(memberId, MemberState.Pending, MemberState.Active) == null) {
             return;
         }
-        synchronized (pendingMembers) {
-            Iterator<MemberContext> iterator = pendingMembers.listIterator();
-            while (iterator.hasNext()) {
-                MemberContext pendingMember = iterator.next();
-                if (pendingMember == null) {
-                    iterator.remove();
-                    continue;
-                }
-                if (memberId.equals(pendingMember.getMemberId())) {
-                    // member is activated
-                    // remove from pending list
-                    iterator.remove();
-                    // add to the activated list
-                    this.activeMembers.add(pendingMember);
-                    pendingMembersFailureCount = 0;
-                    if (log.isDebugEnabled()) {
-                        log.debug(String.format("Pending member is removed and added to the " +
-                                "activated member list. [Member Id] %s", memberId));
-                    }
-                    break;
-                }
-            }
+        // member is activated
+        cancelMemberExpiry(MemberExpiryType.Pending, memberId);
+        pendingMembersFailureCount = 0;
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Pending member is removed and added to the " +
+                    "activated member list. [Member Id] %s", memberId));
         }
     }
 
+    /**
+     * Returns a snapshot of the ids of the primary members in pending or active state.
+     */
+    public List<String> getPrimaryMembers() {
+        return memberRegistry.getPrimaryMembers();
+    }
+
+    public int getPrimaryMemberCount() {
+        return memberRegistry.getPrimaryMemberCount();
+    }
+
+    public boolean isPrimaryMember(String memberId) {
+        return memberRegistry.isPrimaryMember(memberId);
+    }
+
     public boolean activeMemberAvailable(String memberId) {
-        for (MemberContext activeMember : activeMembers) {
-            if (memberId.equals(activeMember.getMemberId())) {
-                return true;
-            }
-        }
-        return false;
+        return memberRegistry.containsMember(MemberState.Active, memberId);
     }
 
     public boolean pendingMemberAvailable(String memberId) {
-
-        for (MemberContext pendingMember : pendingMembers) {
-            if (memberId.equals(pendingMember.getMemberId())) {
-                return true;
-            }
-        }
-        return false;
+        return memberRegistry.containsMember(MemberState.Pending, memberId);
     }
 
     public void moveActiveMemberToTerminationPendingMembers(String memberId) {
-        if (memberId == null) {
+        MemberContext activeMember = memberRegistry.moveMember(memberId, MemberState.Active,
+                MemberState.TerminationPending);
+        if (activeMember == null) {
             return;
         }
-        synchronized (activeMembers) {
-            Iterator<MemberContext> iterator = activeMembers.listIterator();
-            while (iterator.hasNext()) {
-                MemberContext activeMember = iterator.next();
-                if (activeMember == null) {
-                    iterator.remove();
-                    continue;
-                }
-                if (memberId.equals(activeMember.getMemberId())) {
-                    // member is activated
-                    // remove from pending list
-                    iterator.remove();
-                    // add to the activated list
-                    this.terminationPendingMembers.add(activeMember);
-                    terminationPendingStartedTime.put(memberId, System.currentTimeMillis());
-                    if (log.isDebugEnabled()) {
-                        log.debug(String.format("Active member is removed and added to the " +
-                                "termination pending member list. [Member Id] %s", memberId));
-                    }
-                    break;
-                }
-            }
+        terminationPendingStartedTime.put(memberId, currentTimeMillis());
+        scheduleTerminationPendingMemberExpiry(activeMember);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Active member is removed and added to the " +
+                    "termination pending member list. [Member Id] %s", memberId));
         }
     }
 
@@ -299,98 +308,41 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
      * @param memberId The member ID of the member to search
      */
     public void moveMemberToObsoleteList(String memberId) {
-        if (memberId == null) {
-            return;
-        }
-
-        // check active member list
-        Iterator<MemberContext> activeMemberIterator = activeMembers.listIterator();
-        MemberContext removedMember = this.removeMemberFrom(activeMemberIterator, memberId);
-        if (removedMember != null) {
-            this.addObsoleteMember(removedMember);
-            removedMember.setObsoleteInitTime(System.currentTimeMillis());
-            if (log.isDebugEnabled()) {
-                log.debug(String.format("Active member is removed and added to the " +
-                        "obsolete member list. [Member Id] %s", memberId));
-            }
-
+        MemberState state = memberRegistry.getMemberState(memberId);
+        if (state == null) {
             return;
         }
-
-        // check pending member list
-        Iterator<MemberContext> pendingMemberIterator = pendingMembers.listIterator();
-        removedMember = this.removeMemberFrom(pendingMemberIterator, memberId);
-        if (removedMember != null) {
-            this.addObsoleteMember(removedMember);
-            removedMember.setObsoleteInitTime(System.currentTimeMillis());
-            if (log.isDebugEnabled()) {
-                log.debug(String.format("Pending member is removed and added to the " +
-                        "obsolete member list. [Member Id] %s", memberId));
-            }
-
+        MemberContext removedMember = memberRegistry.removeMember(state, memberId);
+        if (removedMember == null) {
             return;
         }
-
-        // check termination pending member list
-        Iterator<MemberContext> terminationPendingMembersIterator = terminationPendingMembers.listIterator();
-        removedMember = this.removeMemberFrom(terminationPendingMembersIterator, memberId);
-        if (removedMember != null) {
-            this.addObsoleteMember(removedMember);
-            removedMember.setObsoleteInitTime(System.currentTimeMillis());
-            if (log.isDebugEnabled()) {
-                log.debug(String.format("Termination Pending member is removed and added to the " +
-                        "obsolete member list. [Member Id] %s", memberId));
-            }
+        if (state == MemberState.Pending) {
+            cancelMemberExpiry(MemberExpiryType.Pending, memberId);
+        } else if (state == MemberState.TerminationPending) {
+            cancelMemberExpiry(MemberExpiryType.TerminationPending, memberId);
         }
-    }
-
-    /**
-     * Removes the {@link org.apache.stratos.cloud.controller.stub.domain.MemberContext} object mapping
-     * to the specified member id from the specified MemberContext collection
-     *
-     * @param iterator The {@link java.util.Iterator} for the collection containing {@link org.apache.stratos.cloud.controller.stub.domain.MemberContext}
-     *                 objects
-     * @param memberId Member Id {@link String} for the {@link org.apache.stratos.cloud.controller.stub.domain.MemberContext}
-     *                 to be removed
-     * @return {@link org.apache.stratos.cloud.controller.stub.domain.MemberContext} object if
-     * object found and removed, null if otherwise.
-     */
-    private MemberContext removeMemberFrom(Iterator<MemberContext> iterator, String memberId) {
-        while (iterator.hasNext()) {
-            MemberContext activeMember = iterator.next();
-            if (activeMember == null) {
-                iterator.remove();
-                continue;
-            }
-            if (memberId.equals(activeMember.getMemberId())) {
-                iterator.remove();
-                return activeMember;
-            }
+        this.addObsoleteMember(removedMember);
+        removedMember.setObsoleteInitTime(currentTimeMillis());
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("%s member is removed and added to the obsolete member list. " +
+                    "[Member Id] %s", state, memberId));
         }
-
-        return null;
     }
 
     public void addActiveMember(MemberContext ctxt) {
-        this.activeMembers.add(ctxt);
+        memberRegistry.addMember(MemberState.Active, ctxt);
     }
 
     public void removeActiveMember(MemberContext ctxt) {
-        this.activeMembers.remove(ctxt);
+        memberRegistry.removeMember(MemberState.Active, ctxt.getMemberId());
     }
 
     public boolean removeTerminationPendingMember(String memberId) {
-        boolean terminationPendingMemberAvailable = false;
-        synchronized (terminationPendingMembers) {
-            for (MemberContext memberContext : terminationPendingMembers) {
-                if (memberContext.getMemberId().equals(memberId)) {
-                    terminationPendingMemberAvailable = true;
-                    terminationPendingMembers.remove(memberContext);
-                    break;
-                }
-            }
+        if (memberRegistry.removeMember(MemberState.TerminationPending, memberId) == null) {
+            return false;
         }
-        return terminationPendingMemberAvailable;
+        cancelMemberExpiry(MemberExpiryType.TerminationPending, memberId);
+        return true;
     }
 
     public long getObsoltedMemberExpiryTime() {
@@ -399,16 +351,19 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
 
     public void setObsoltedMemberExpiryTime(long obsoltedMemberExpiryTime) {
         this.obsoltedMemberExpiryTime = obsoltedMemberExpiryTime;
+        scheduleObsoleteMemberExpiries();
     }
 
     public void addObsoleteMember(MemberContext ctxt) {
         this.obsoletedMembers.put(ctxt.getMemberId(), ctxt);
+        scheduleObsoleteMemberExpiry(ctxt);
     }
 
     public boolean removeObsoleteMember(String memberId) {
         if (this.obsoletedMembers.remove(memberId) == null) {
             return false;
         }
+        cancelMemberExpiry(MemberExpiryType.Obsolete, memberId);
         return true;
     }
 
@@ -418,6 +373,7 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
 
     public void setPendingMemberExpiryTime(long pendingMemberExpiryTime) {
         this.pendingMemberExpiryTime = pendingMemberExpiryTime;
+        schedulePendingMemberExpiries();
     }
 
     public Map<String, MemberContext> getObsoletedMembers() {
@@ -426,6 +382,7 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
 
     public void setObsoletedMembers(Map<String, MemberContext> obsoletedMembers) {
         this.obsoletedMembers = obsoletedMembers;
+        scheduleObsoleteMemberExpiries();
     }
 
     @Override
@@ -478,7 +435,8 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
     }
 
     public void setTerminationPendingMembers(List<MemberContext> terminationPendingMembers) {
-        this.terminationPendingMembers = terminationPendingMembers;
+        memberRegistry.setMembers(MemberState.TerminationPending, terminationPendingMembers);
+        scheduleTerminationPendingMemberExpiries();
     }
 
     public int getTotalMemberCount() {
@@ -505,34 +463,15 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
     }
 
     public void setActiveMembers(List<MemberContext> activeMembers) {
-        this.activeMembers = activeMembers;
+        memberRegistry.setMembers(MemberState.Active, activeMembers);
     }
 
     public boolean removeActiveMemberById(String memberId) {
-        boolean removeActiveMember = false;
-        synchronized (activeMembers) {
-            Iterator<MemberContext> iterator = activeMembers.listIterator();
-            while (iterator.hasNext()) {
-                MemberContext memberContext = iterator.next();
-                if (memberId.equals(memberContext.getMemberId())) {
-                    iterator.remove();
-                    removeActiveMember = true;
-
-                    break;
-                }
-            }
-        }
-        return removeActiveMember;
+        return memberRegistry.removeMember(MemberState.Active, memberId) != null;
     }
 
     public boolean activeMemberExist(String memberId) {
-
-        for (MemberContext memberContext : activeMembers) {
-            if (memberId.equals(memberContext.getMemberId())) {
-                return true;
-            }
-        }
-        return false;
+        return memberRegistry.containsMember(MemberState.Active, memberId);
     }
 
     public int getAllMemberForTerminationCount() {
@@ -546,17 +485,12 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
     // Map<String, MemberStatsContext> getMemberStatsContexts().keySet()
     public Set<String> getAllMemberForTermination() {
 
-        List<MemberContext> merged = new ArrayList<MemberContext>();
-
-
-        merged.addAll(activeMembers);
-        merged.addAll(pendingMembers);
-        merged.addAll(terminationPendingMembers);
-
-        Set<String> results = new HashSet<String>(merged.size());
-
-        for (MemberContext ctx : merged) {
-            results.add(ctx.getMemberId());
+        Set<String> results = new HashSet<String>();
+        for (MemberState state : MemberState.values()) {
+            List<MemberContext> members = memberRegistry.getMembers(state);
+            for (int i = 0; i < members.size(); i++) {
+                results.add(members.get(i).getMemberId());
+            }
         }
 
 
@@ -564,9 +498,6 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
             log.debug("PartitionContext:getAllMemberForTermination:size:" + results.size());
         }
 
-        //MemberContext x = new MemberContext();
-        //x.getMemberId()
-
         return results;
     }
 
@@ -576,261 +507,290 @@ public class ClusterLevelPartitionContext extends PartitionContext implements Se
         if (memberId == null) {
             return;
         }
-        Iterator<MemberContext> iterator = terminationPendingMembers.listIterator();
-        while (iterator.hasNext()) {
-            MemberContext terminationPendingMember = iterator.next();
-            if (terminationPendingMember == null) {
-                iterator.remove();
-                continue;
-            }
-            if (memberId.equals(terminationPendingMember.getMemberId())) {
-
-                log.info("Found termination pending member and trying to move [member] " + memberId + " to obsolete list");
-                // member is pending termination
-                // remove from pending termination list
-                iterator.remove();
+        MemberContext terminationPendingMember = memberRegistry.removeMember(MemberState.TerminationPending,
+                memberId);
+        if (terminationPendingMember == null) {
+            return;
+        }
 
-                // add to the obsolete list
-                this.obsoletedMembers.put(memberId, terminationPendingMember);
+        log.info("Found termination pending member and trying to move [member] " + memberId + " to obsolete list");
+        cancelMemberExpiry(MemberExpiryType.TerminationPending, memberId);
 
+        // add to the obsolete list
+        addObsoleteMember(terminationPendingMember);
 
-                if (log.isDebugEnabled()) {
-                    log.debug(String.format("Termination pending member is removed and added to the " +
-                            "obsolete member list. [Member Id] %s", memberId));
-                }
-                break;
-            }
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Termination pending member is removed and added to the " +
+                    "obsolete member list. [Member Id] %s", memberId));
         }
     }
 
     public MemberContext getPendingTerminationMember(String memberId) {
-        for (MemberContext memberContext : terminationPendingMembers) {
-            if (memberId.equals(memberContext.getMemberId())) {
-                return memberContext;
-            }
-        }
-        return null;
+        return memberRegistry.getMember(MemberState.TerminationPending, memberId);
     }
 
     public MemberContext getObsoleteMember(String memberId) {
-        for (MemberContext memberContext : obsoletedMembers.values()) {
-            if (memberId.equals(memberContext.getMemberId())) {
-                return memberContext;
-            }
-        }
-        return null;
+        return (memberId == null) ? null : obsoletedMembers.get(memberId);
     }
 
     public long getTerminationPendingMemberExpiryTime() {
         return terminationPendingMemberExpiryTime;
     }
 
+    public void setTerminationPendingMemberExpiryTime(long terminationPendingMemberExpiryTime) {
+        this.terminationPendingMemberExpiryTime = terminationPendingMemberExpiryTime;
+        scheduleTerminationPendingMemberExpiries();
+    }
+
     public void movePendingMemberToObsoleteMembers(String memberId) {
         if (memberId == null) {
             return;
         }
-        Iterator<MemberContext> iterator = pendingMembers.listIterator();
-        while (iterator.hasNext()) {
-            MemberContext pendingMember = iterator.next();
-            if (pendingMember == null) {
-                iterator.remove();
-                continue;
-            }
-            if (memberId.equals(pendingMember.getMemberId())) {
-
-                // remove from pending list
-                iterator.remove();
-                // add to the obsolete list
-                this.obsoletedMembers.put(memberId, pendingMember);
-                if (log.isDebugEnabled()) {
-                    log.debug(String.format("Pending member is removed and added to the " +
-                            "obsolete member list. [Member Id] %s", memberId));
-                }
-                break;
-            }
+        MemberContext pendingMember = memberRegistry.removeMember(MemberState.Pending, memberId);
+        if (pendingMember == null) {
+            return;
         }
+        cancelMemberExpiry(MemberExpiryType.Pending, memberId);
+        // add to the obsolete list
+        addObsoleteMember(pendingMember);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Pending member is removed and added to the " +
+                    "obsolete member list. [Member Id] %s", memberId));
+        }
+    }
 
+    private void schedulePendingMemberExpiries() {
+        if (!memberExpiryEnabled) {
+            return;
+        }
+        for (int i = 0; i < pendingMembers.size(); i++) {
+            schedulePendingMemberExpiry(pendingMembers.get(i));
+        }
     }
 
-    private class PendingMemberWatcher implements Runnable {
-        private final Log log = LogFactory.getLog(PendingMemberWatcher.class);
-        private ClusterLevelPartitionContext ctxt;
+    private void scheduleTerminationPendingMemberExpiries() {
+        if (!memberExpiryEnabled) {
+            return;
+        }
+        for (int i = 0; i < terminationPendingMembers.size(); i++) {
+            scheduleTerminationPendingMemberExpiry(terminationPendingMembers.get(i));
+        }
+    }
 
-        public PendingMemberWatcher(ClusterLevelPartitionContext ctxt) {
-            this.ctxt = ctxt;
+    private void scheduleObsoleteMemberExpiries() {
+        if (!memberExpiryEnabled) {
+            return;
+        }
+        for (MemberContext obsoleteMember : obsoletedMembers.values()) {
+            scheduleObsoleteMemberExpiry(obsoleteMember);
         }
+    }
 
-        @Override
-        public void run() {
+    private void schedulePendingMemberExpiry(MemberContext pendingMember) {
+        scheduleMemberExpiry(MemberExpiryType.Pending, pendingMember.getMemberId(),
+                pendingMember.getInitTime() + pendingMemberExpiryTime);
+    }
 
-            while (true) {
-
-                long expiryTime = ctxt.getPendingMemberExpiryTime();
-                List<MemberContext> pendingMembers = ctxt.getPendingMembers();
-
-                synchronized (pendingMembers) {
-                    Iterator<MemberContext> iterator = pendingMembers.listIterator();
-                    while (iterator.hasNext()) {
-                        MemberContext pendingMember = iterator.next();
-                        String clusterInstanceId = pendingMember.getClusterInstanceId();
-                        String clusterId = pendingMember.getClusterId();
-                        String serviceName = pendingMember.getCartridgeType();
-                        Service service = TopologyManager.getTopology().
-                                getService(serviceName);
-
-                        ClusterStatus status = ClusterStatus.Terminated;
-                        if (service != null) {
-                            Cluster cluster = service.getCluster(clusterId);
-                            if (cluster != null) {
-                                ClusterInstance instance = cluster.
-                                        getInstanceContexts(clusterInstanceId);
-                                if (instance != null) {
-                                    status = instance.getStatus();
-                                }
-                            }
-                        }
-
-                        if (pendingMember == null) {
-                            continue;
-                        }
-
-                        long pendingTime = System.currentTimeMillis() - pendingMember.getInitTime();
-                        if (pendingTime >= expiryTime || status.equals(ClusterStatus.Terminating)) {
-
-                            log.info(String.format("Pending state of member expired, member will be moved to obsolete list. " +
-                                            "[pending member] %s [expiry time] %s [cluster] %s " + "[cluster instance] %s",
-                                    pendingMember.getMemberId(), expiryTime, pendingMember.getClusterId(),
-                                    pendingMember.getClusterInstanceId()));
-                            iterator.remove();
-                            // member should be terminated
-                            ctxt.addObsoleteMember(pendingMember);
-                            pendingMembersFailureCount++;
-                            if (pendingMembersFailureCount > PENDING_MEMBER_FAILURE_THRESHOLD) {
-                                setPendingMemberExpiryTime(expiryTime * 2);//Doubles the expiry time after the threshold
-                                // of failure exceeded
-                                //TODO Implement an alerting system: STRATOS-369
-                            }
-                        }
-                    }
-                }
+    private void scheduleObsoleteMemberExpiry(MemberContext obsoleteMember) {
+        scheduleMemberExpiry(MemberExpiryType.Obsolete, obsoleteMember.getMemberId(),
+                obsoleteMember.getInitTime() + obsoltedMemberExpiryTime);
+    }
 
-                try {
-                    // TODO find a constant
-                    Thread.sleep(15000);
-                } catch (InterruptedException ignore) {
-                }
-            }
+    private void scheduleTerminationPendingMemberExpiry(MemberContext terminationPendingMember) {
+        String memberId = terminationPendingMember.getMemberId();
+        Long startedTime = terminationPendingStartedTime.get(memberId);
+        scheduleMemberExpiry(MemberExpiryType.TerminationPending, memberId,
+                ((startedTime != null) ? startedTime : currentTimeMillis()) + terminationPendingMemberExpiryTime);
+    }
+
+    private void scheduleMemberExpiry(MemberExpiryType type, String memberId, long expiryTime) {
+        if (!memberExpiryEnabled || (memberId == null)) {
+            return;
+        }
+        if (memberExpiries == null) {
+            memberExpiries = new ConcurrentHashMap<String, MemberExpiry>();
+        }
+        // Register the expiry before scheduling it, an expiry which is already due is executed immediately
+        MemberExpiry memberExpiry = new MemberExpiry(type, memberId);
+        MemberExpiry previousMemberExpiry = memberExpiries.put(memberExpiry.getKey(), memberExpiry);
+        if (previousMemberExpiry != null) {
+            previousMemberExpiry.cancel();
+        }
+        memberExpiry.setFuture(getMemberExpiryScheduler().schedule(memberExpiry, expiryTime));
+    }
+
+    private void cancelMemberExpiry(MemberExpiryType type, String memberId) {
+        if ((memberExpiries == null) || (memberId == null)) {
+            return;
+        }
+        MemberExpiry memberExpiry = memberExpiries.remove(getMemberExpiryKey(type, memberId));
+        if (memberExpiry != null) {
+            memberExpiry.cancel();
         }
+    }
 
+    private void cancelMemberExpiries(String memberId) {
+        for (MemberExpiryType type : MemberExpiryType.values()) {
+            cancelMemberExpiry(type, memberId);
+        }
     }
 
-    private class ObsoletedMemberWatcher implements Runnable {
-        private final Log log = LogFactory.getLog(ObsoletedMemberWatcher.class);
-        private ClusterLevelPartitionContext ctxt;
+    /**
+     * Returns the number of member expiries scheduled for this partition.
+     */
+    public int getScheduledMemberExpiryCount() {
+        return (memberExpiries == null) ? 0 : memberExpiries.size();
+    }
 
-        public ObsoletedMemberWatcher(ClusterLevelPartitionContext ctxt) {
-            this.ctxt = ctxt;
+    private void pendingMemberExpired(String memberId) {
+        MemberContext pendingMember = memberRegistry.getMember(MemberState.Pending, memberId);
+        if (pendingMember == null) {
+            return;
         }
 
-        @Override
-        public void run() {
-            while (true) {
-
-                long obsoletedMemberExpiryTime = ctxt.getObsoltedMemberExpiryTime();
-                Map<String, MemberContext> obsoletedMembers = ctxt.getObsoletedMembers();
-
-                Iterator<Entry<String, MemberContext>> iterator = obsoletedMembers.entrySet().iterator();
-                while (iterator.hasNext()) {
-                    Map.Entry<String, MemberContext> pairs = iterator.next();
-                    MemberContext obsoleteMember = pairs.getValue();
-                    if (obsoleteMember == null) {
-                        continue;
-                    }
-                    long obsoleteTime = System.currentTimeMillis() - obsoleteMember.getInitTime();
-                    if (obsoleteTime >= obsoletedMemberExpiryTime) {
-
-                        String obsoleteMemberId = obsoleteMember.getMemberId();
-                        log.info(String.format("Obsolete state of member is expired, member will be disposed and will " +
-                                        "not be tracked anymore [obsolete member] %s [expiry time] %s [cluster] %s " +
-                                        "[cluster instance] %s",
-                                obsoleteMemberId, obsoletedMemberExpiryTime, obsoleteMember.getClusterId(),
-                                obsoleteMember.getClusterInstanceId()));
-
-                        //notifying CC, about the removal of obsolete member
-                        try {
-                            AutoscalerCloudControllerClient.getInstance().terminateInstanceForcefully(
-                                    obsoleteMember.getMemberId());
-                        } catch (Exception e) {
-                            log.error(String.format("Termination of obsolete member %s is failed, but all the contexts" +
-                                    "will be removed", obsoleteMember.getMemberId()));
-
-                        }
-
-                        iterator.remove();
-                        if (ctxt.getMemberStatsContexts().containsKey(obsoleteMemberId)) {
-                            ctxt.getMemberStatsContexts().remove(obsoleteMemberId);
-                        }
-                        log.info(String.format("Obsolete member is removed from autoscaler and cloud controller " +
-                                        "[obsolete member] %s [cluster] %s " +
-                                        "[cluster instance] %s",
-                                obsoleteMemberId, obsoleteMember.getClusterId(),
-                                obsoleteMember.getClusterInstanceId()));
-
-
-                    }
-                }
-                try {
-                    // TODO find a constant
-                    Thread.sleep(15000);
-                } catch (InterruptedException ignore) {
-                }
-            }
+        long expiryTime = getPendingMemberExpiryTime();
+        if (currentTimeMillis() - pendingMember.getInitTime() < expiryTime) {
+            // Expiry time has been increased after the expiry was scheduled
+            schedulePendingMemberExpiry(pendingMember);
+            return;
+        }
+
+        if (memberRegistry.removeMember(MemberState.Pending, memberId) == null) {
+            // Member has been activated or removed meanwhile
+            return;
+        }
+        log.info(String.format("Pending state of member expired, member will be moved to obsolete list. " +
+                        "[pending member] %s [expiry time] %s [cluster] %s " + "[cluster instance] %s",
+                pendingMember.getMemberId(), expiryTime, pendingMember.getClusterId(),
+                pendingMember.getClusterInstanceId()));
+        // member should be terminated
+        addObsoleteMember(pendingMember);
+        pendingMembersFailureCount++;
+        if (pendingMembersFailureCount > PENDING_MEMBER_FAILURE_THRESHOLD) {
+            setPendingMemberExpiryTime(expiryTime * 2);//Doubles the expiry time after the threshold
+            // of failure exceeded
+            //TODO Implement an alerting system: STRATOS-369
+        }
+    }
+
+    private void obsoleteMemberExpired(String memberId) {
+        MemberContext obsoleteMember = obsoletedMembers.get(memberId);
+        if (obsoleteMember == null) {
+            return;
+        }
+
+        long obsoletedMemberExpiryTime = getObsoltedMemberExpiryTime();
+        if (currentTimeMillis() - obsoleteMember.getInitTime() < obsoletedMemberExpiryTime) {
+            scheduleObsoleteMemberExpiry(obsoleteMember);
+            return;
+        }
+
+        log.info(String.format("Obsolete state of member is expired, member will be disposed and will " +
+                        "not be tracked anymore [obsolete member] %s [expiry time] %s [cluster] %s " +
+                        "[cluster instance] %s",
+                memberId, obsoletedMemberExpiryTime, obsoleteMember.getClusterId(),
+                obsoleteMember.getClusterInstanceId()));
+
+        //notifying CC, about the removal of obsolete member
+        try {
+            AutoscalerCloudControllerClient.getInstance().terminateInstanceForcefully(memberId);
+        } catch (Exception e) {
+            log.error(String.format("Termination of obsolete member %s is failed, but all the contexts" +
+                    "will be removed", memberId));
         }
+
+        obsoletedMembers.remove(memberId);
+        memberStatsContexts.remove(memberId);
+        log.info(String.format("Obsolete member is removed from autoscaler and cloud controller " +
+                        "[obsolete member] %s [cluster] %s " +
+                        "[cluster instance] %s",
+                memberId, obsoleteMember.getClusterId(),
+                obsoleteMember.getClusterInstanceId()));
+    }
+
+    private void terminationPendingMemberExpired(String memberId) {
+        MemberContext terminationPendingMember = getPendingTerminationMember(memberId);
+        if (terminationPendingMember == null) {
+            return;
+        }
+
+        Long startedTime = terminationPendingStartedTime.get(memberId);
+        if ((startedTime != null) &&
+                (currentTimeMillis() - startedTime < terminationPendingMemberExpiryTime)) {
+            scheduleTerminationPendingMemberExpiry(terminationPendingMember);
+            return;
+        }
+
+        if (memberRegistry.removeMember(MemberState.TerminationPending, memberId) == null) {
+            return;
+        }
+        log.info(String.format("Termination pending state of member is expired, member will be moved to " +
+                        "obsolete list [termination pending member] %s [expiry time] %s [cluster] %s " +
+                        "[cluster instance] %s",
+                memberId, terminationPendingMemberExpiryTime,
+                terminationPendingMember.getClusterId(), terminationPendingMember.getClusterInstanceId()));
+        terminationPendingStartedTime.remove(memberId);
+        addObsoleteMember(terminationPendingMember);
+    }
+
+    private static String getMemberExpiryKey(MemberExpiryType type, String memberId) {
+        return type + ":" + memberId;
+    }
+
+    private enum MemberExpiryType {
+        Pending, TerminationPending, Obsolete
     }
 
     /**
-     * This thread is responsible for moving member to obsolete list if pending termination timeout happens
+     * Expiry of a member in one of the member lists, executed by the member expiry scheduler. The
+     * member state is validated on expiry since members could be moved between lists directly.
      */
-    private class TerminationPendingMemberWatcher implements Runnable {
-        private final Log log = LogFactory.getLog(TerminationPendingMemberWatcher.class);
-        private ClusterLevelPartitionContext ctxt;
+    private class MemberExpiry implements Runnable {
+
+        private final MemberExpiryType type;
+        private final String memberId;
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean cancelled;
 
-        public TerminationPendingMemberWatcher(ClusterLevelPartitionContext ctxt) {
-            this.ctxt = ctxt;
+        MemberExpiry(MemberExpiryType type, String memberId) {
+            this.type = type;
+            this.memberId = memberId;
+        }
+
+        String getKey() {
+            return getMemberExpiryKey(type, memberId);
+        }
+
+        void setFuture(ScheduledFuture<?> future) {
+            this.future = future;
+            if (cancelled) {
+                future.cancel(false);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> future = this.future;
+            if (future != null) {
+                future.cancel(false);
+            }
         }
 
         @Override
         public void run() {
-
-            while (true) {
-                long terminationPendingMemberExpiryTime = ctxt.getTerminationPendingMemberExpiryTime();
-
-                Iterator<MemberContext> iterator = ctxt.getTerminationPendingMembers().listIterator();
-                while (iterator.hasNext()) {
-
-                    MemberContext terminationPendingMember = iterator.next();
-
-                    if (terminationPendingMember == null) {
-                        continue;
-                    }
-                    long terminationPendingTime = System.currentTimeMillis()
-                            - ctxt.getTerminationPendingStartedTimeOfMember(terminationPendingMember.getMemberId());
-                    if (terminationPendingTime >= terminationPendingMemberExpiryTime) {
-
-                        log.info(String.format("Termination pending state of member is expired, member will be moved to " +
-                                        "obsolete list [termination pending member] %s [expiry time] %s [cluster] %s " +
-                                        "[cluster instance] %s",
-                                terminationPendingMember.getMemberId(), terminationPendingMemberExpiryTime,
-                                terminationPendingMember.getClusterId(), terminationPendingMember.getClusterInstanceId()));
-                        iterator.remove();
-                        obsoletedMembers.put(terminationPendingMember.getMemberId(), terminationPendingMember);
-                    }
-                }
-                try {
-                    // TODO find a constant
-                    Thread.sleep(15000);
-                } catch (InterruptedException ignore) {
-                }
+            if (cancelled || !memberExpiries.remove(getKey(), this)) {
+                return;
+            }
+            switch (type) {
+                case Pending:
+                    pendingMemberExpired(memberId);
+                    break;
+                case TerminationPending:
+                    terminationPendingMemberExpired(memberId);
+                    break;
+                case Obsolete:
+                    obsoleteMemberExpired(memberId);
+                    break;
             }
         }
     }
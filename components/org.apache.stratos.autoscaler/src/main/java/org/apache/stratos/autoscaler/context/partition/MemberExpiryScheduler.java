@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.context.partition;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.util.AutoscalerConstants;
+import org.apache.stratos.autoscaler.util.Clock;
+import org.apache.stratos.common.threading.StratosThreadPool;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared deadline queue for member expiries of all cluster level partition contexts. Partition
+ * contexts schedule an expiry when a member is added to the pending, termination pending or
+ * obsolete member list and cancel it when the member leaves that list, hence a small fixed
+ * thread pool serves all partitions and expiry handlers are executed when members expire. Expiry
+ * times are relative to the clock of the scheduler, which partition contexts also use to record
+ * member times.
+ */
+public class MemberExpiryScheduler {
+
+    private static final Log log = LogFactory.getLog(MemberExpiryScheduler.class);
+
+    private static volatile MemberExpiryScheduler instance;
+
+    private final ScheduledExecutorService scheduler;
+    private final Clock clock;
+
+    public MemberExpiryScheduler(ScheduledExecutorService scheduler, Clock clock) {
+        this.scheduler = scheduler;
+        this.clock = clock;
+        if (scheduler instanceof ScheduledThreadPoolExecutor) {
+            // Members usually leave a list long before they expire, remove cancelled expiries
+            // from the queue rather than keeping them until their deadline
+            ((ScheduledThreadPoolExecutor) scheduler).setRemoveOnCancelPolicy(true);
+        }
+    }
+
+    public static MemberExpiryScheduler getInstance() {
+        if (instance == null) {
+            synchronized (MemberExpiryScheduler.class) {
+                if (instance == null) {
+                    instance = new MemberExpiryScheduler(StratosThreadPool.getScheduledExecutorService(
+                            AutoscalerConstants.MEMBER_EXPIRY_SCHEDULER_ID,
+                            AutoscalerConstants.MEMBER_EXPIRY_SCHEDULER_THREAD_POOL_SIZE), Clock.SYSTEM);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the current time of the scheduler clock in milliseconds since epoch.
+     */
+    public long currentTimeMillis() {
+        return clock.currentTimeMillis();
+    }
+
+    /**
+     * Schedule an expiry handler to be executed at the given time.
+     *
+     * @param expiryHandler handler to be executed
+     * @param expiryTime    expiry time in milliseconds since epoch, handler is executed immediately
+     *                      if the time has already passed
+     * @return future to cancel the expiry
+     */
+    public ScheduledFuture<?> schedule(final Runnable expiryHandler, long expiryTime) {
+        long delay = Math.max(0, expiryTime - clock.currentTimeMillis());
+        return scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    expiryHandler.run();
+                } catch (Exception e) {
+                    log.error("Could not execute member expiry handler", e);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the number of scheduled expiries, -1 if not known.
+     */
+    public int getScheduledExpiryCount() {
+        if (scheduler instanceof ScheduledThreadPoolExecutor) {
+            return ((ScheduledThreadPoolExecutor) scheduler).getQueue().size();
+        }
+        return -1;
+    }
+}
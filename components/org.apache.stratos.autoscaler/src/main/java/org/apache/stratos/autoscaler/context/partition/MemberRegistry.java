@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.context.partition;
+
+import org.apache.stratos.autoscaler.util.AutoscalerConstants;
+import org.apache.stratos.cloud.controller.stub.Property;
+import org.apache.stratos.cloud.controller.stub.domain.MemberContext;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Members of a cluster level partition indexed by member id. A member is in a single state at a
+ * time, members of each state are kept in an array backed list and the index records the state
+ * and position of each member. Hence lookups and state transitions do not scan the member lists,
+ * a member leaving a list is replaced by the last member of that list. Primary members in pending
+ * or active state are tracked the same way as members join and leave those states.
+ */
+public class MemberRegistry {
+
+    public enum MemberState {
+        Pending, Active, TerminationPending
+    }
+
+    private final Map<String, Entry> index;
+    private final MemberList[] memberLists;
+    private final PrimaryMemberList primaryMembers;
+
+    public MemberRegistry() {
+        index = new HashMap<String, Entry>();
+        memberLists = new MemberList[MemberState.values().length];
+        for (MemberState state : MemberState.values()) {
+            memberLists[state.ordinal()] = new MemberList();
+        }
+        primaryMembers = new PrimaryMemberList();
+    }
+
+    /**
+     * Returns whether the member is started as a primary member, by the PRIMARY member property.
+     */
+    public static boolean isPrimaryMember(MemberContext member) {
+        if ((member.getProperties() == null) || (member.getProperties().getProperties() == null)) {
+            return false;
+        }
+        for (Property property : member.getProperties().getProperties()) {
+            if ((property != null) && AutoscalerConstants.PRIMARY_MEMBER_PROPERTY.equals(property.getName())) {
+                return Boolean.parseBoolean(property.getValue());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a read only view of the members in the given state. The view is backed by the
+     * registry and supports random access, iterators fail fast if the registry is modified.
+     */
+    public List<MemberContext> getMembers(MemberState state) {
+        return memberLists[state.ordinal()];
+    }
+
+    /**
+     * Returns a snapshot of the ids of the primary members in pending or active state.
+     */
+    public synchronized List<String> getPrimaryMembers() {
+        return primaryMembers.isEmpty() ? Collections.<String>emptyList() : new ArrayList<String>(primaryMembers);
+    }
+
+    public synchronized int getPrimaryMemberCount() {
+        return primaryMembers.size();
+    }
+
+    /**
+     * Returns whether the member is a primary member in pending or active state.
+     */
+    public synchronized boolean isPrimaryMember(String memberId) {
+        Entry entry = (memberId == null) ? null : index.get(memberId);
+        return (entry != null) && (entry.primaryPosition >= 0);
+    }
+
+    /**
+     * Add a member in the given state, a member with the same id is removed from its current state.
+     */
+    public synchronized void addMember(MemberState state, MemberContext member) {
+        String memberId = member.getMemberId();
+        Entry entry = index.get(memberId);
+        if (entry != null) {
+            memberLists[entry.state.ordinal()].removeEntry(entry);
+        } else {
+            entry = new Entry();
+            index.put(memberId, entry);
+        }
+        entry.member = member;
+        entry.state = state;
+        entry.primary = isPrimaryMember(member);
+        memberLists[state.ordinal()].addEntry(entry);
+        primaryMembers.updateEntry(entry);
+    }
+
+    /**
+     * Remove a member if it is in the given state.
+     *
+     * @return removed member, null if the member is not in the given state
+     */
+    public synchronized MemberContext removeMember(MemberState state, String memberId) {
+        Entry entry = getEntry(state, memberId);
+        if (entry == null) {
+            return null;
+        }
+        memberLists[state.ordinal()].removeEntry(entry);
+        index.remove(memberId);
+        primaryMembers.removeEntry(entry);
+        return entry.member;
+    }
+
+    /**
+     * Remove a member in any state.
+     *
+     * @return removed member, null if the member is not found
+     */
+    public synchronized MemberContext removeMember(String memberId) {
+        Entry entry = (memberId == null) ? null : index.remove(memberId);
+        if (entry == null) {
+            return null;
+        }
+        memberLists[entry.state.ordinal()].removeEntry(entry);
+        primaryMembers.removeEntry(entry);
+        return entry.member;
+    }
+
+    /**
+     * Move a member from one state to another.
+     *
+     * @return moved member, null if the member is not in the source state
+     */
+    public synchronized MemberContext moveMember(String memberId, MemberState fromState, MemberState toState) {
+        Entry entry = getEntry(fromState, memberId);
+        if (entry == null) {
+            return null;
+        }
+        if (fromState != toState) {
+            memberLists[fromState.ordinal()].removeEntry(entry);
+            entry.state = toState;
+            memberLists[toState.ordinal()].addEntry(entry);
+            primaryMembers.updateEntry(entry);
+        }
+        return entry.member;
+    }
+
+    /**
+     * Returns the member if it is in the given state, null otherwise.
+     */
+    public synchronized MemberContext getMember(MemberState state, String memberId) {
+        Entry entry = getEntry(state, memberId);
+        return (entry == null) ? null : entry.member;
+    }
+
+    /**
+     * Returns the state of the member, null if the member is not found.
+     */
+    public synchronized MemberState getMemberState(String memberId) {
+        Entry entry = (memberId == null) ? null : index.get(memberId);
+        return (entry == null) ? null : entry.state;
+    }
+
+    public boolean containsMember(MemberState state, String memberId) {
+        return getMember(state, memberId) != null;
+    }
+
+    /**
+     * Replace the members of the given state.
+     */
+    public synchronized void setMembers(MemberState state, Collection<MemberContext> members) {
+        // Copy first, the given members could be the view of the same state
+        List<MemberContext> newMembers = (members == null) ? Collections.<MemberContext>emptyList() :
+                new ArrayList<MemberContext>(members);
+        MemberList memberList = memberLists[state.ordinal()];
+        for (int i = memberList.size - 1; i >= 0; i--) {
+            Entry entry = memberList.entries[i];
+            memberList.removeEntry(entry);
+            index.remove(entry.member.getMemberId());
+            primaryMembers.removeEntry(entry);
+        }
+        for (MemberContext member : newMembers) {
+            if (member != null) {
+                addMember(state, member);
+            }
+        }
+    }
+
+    public int getMemberCount(MemberState state) {
+        return memberLists[state.ordinal()].size();
+    }
+
+    public synchronized int getMemberCount() {
+        return index.size();
+    }
+
+    private Entry getEntry(MemberState state, String memberId) {
+        Entry entry = (memberId == null) ? null : index.get(memberId);
+        return ((entry == null) || (entry.state != state)) ? null : entry;
+    }
+
+    private static class Entry {
+        private MemberContext member;
+        private MemberState state;
+        private int position;
+        private boolean primary;
+        private int primaryPosition = -1;
+    }
+
+    /**
+     * Array backed list of the members in a state. The list is serialized as an array list to keep
+     * the serialized form of the partition context unchanged.
+     */
+    private class MemberList extends AbstractList<MemberContext> implements RandomAccess, Serializable {
+
+        private static final long serialVersionUID = 2431742915390735581L;
+
+        private Entry[] entries = new Entry[4];
+        private int size;
+
+        @Override
+        public MemberContext get(int i) {
+            synchronized (MemberRegistry.this) {
+                if (i < 0 || i >= size) {
+                    throw new IndexOutOfBoundsException(String.format("[index] %d [size] %d", i, size));
+                }
+                return entries[i].member;
+            }
+        }
+
+        @Override
+        public int size() {
+            synchronized (MemberRegistry.this) {
+                return size;
+            }
+        }
+
+        private void addEntry(Entry entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entry.position = size;
+            entries[size++] = entry;
+            modCount++;
+        }
+
+        private void removeEntry(Entry entry) {
+            int last = --size;
+            if (entry.position != last) {
+                Entry lastEntry = entries[last];
+                entries[entry.position] = lastEntry;
+                lastEntry.position = entry.position;
+            }
+            entries[last] = null;
+            modCount++;
+        }
+
+        private Object writeReplace() {
+            synchronized (MemberRegistry.this) {
+                return new ArrayList<MemberContext>(this);
+            }
+        }
+    }
+
+    /**
+     * Array backed list of the ids of the primary members in pending or active state.
+     */
+    private class PrimaryMemberList extends AbstractList<String> implements RandomAccess {
+
+        private Entry[] entries = new Entry[4];
+        private int size;
+
+        @Override
+        public String get(int i) {
+            synchronized (MemberRegistry.this) {
+                if (i < 0 || i >= size) {
+                    throw new IndexOutOfBoundsException(String.format("[index] %d [size] %d", i, size));
+                }
+                return entries[i].member.getMemberId();
+            }
+        }
+
+        @Override
+        public int size() {
+            synchronized (MemberRegistry.this) {
+                return size;
+            }
+        }
+
+        @Override
+        public boolean contains(Object memberId) {
+            return (memberId instanceof String) && isPrimaryMember((String) memberId);
+        }
+
+        private void updateEntry(Entry entry) {
+            boolean tracked = entry.primary &&
+                    ((entry.state == MemberState.Pending) || (entry.state == MemberState.Active));
+            if (tracked && (entry.primaryPosition < 0)) {
+                if (size == entries.length) {
+                    entries = Arrays.copyOf(entries, size * 2);
+                }
+                entry.primaryPosition = size;
+                entries[size++] = entry;
+                modCount++;
+            } else if (!tracked) {
+                removeEntry(entry);
+            }
+        }
+
+        private void removeEntry(Entry entry) {
+            if (entry.primaryPosition < 0) {
+                return;
+            }
+            int last = --size;
+            if (entry.primaryPosition != last) {
+                Entry lastEntry = entries[last];
+                entries[entry.primaryPosition] = lastEntry;
+                lastEntry.primaryPosition = entry.primaryPosition;
+            }
+            entries[last] = null;
+            entry.primaryPosition = -1;
+            modCount++;
+        }
+    }
+}
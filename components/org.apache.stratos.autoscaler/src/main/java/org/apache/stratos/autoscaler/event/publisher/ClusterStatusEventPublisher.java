@@ -20,6 +20,7 @@ package org.apache.stratos.autoscaler.event.publisher;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.broker.publish.EventOutboxPool;
 import org.apache.stratos.messaging.broker.publish.EventPublisher;
 import org.apache.stratos.messaging.broker.publish.EventPublisherPool;
 import org.apache.stratos.messaging.domain.instance.ClusterInstance;
@@ -70,7 +71,7 @@ public class ClusterStatusEventPublisher {
                         ClusterStatusClusterResetEvent clusterCreatedEvent =
                                 new ClusterStatusClusterResetEvent(appId, serviceName, clusterId, instanceId);
 
-                        publishEvent(clusterCreatedEvent);
+                        publishEvent(clusterCreatedEvent, clusterId + ":" + instanceId);
                     } else {
                         if (log.isDebugEnabled()) {
                             log.warn("Cluster is already created, [cluster] " + clusterId);
@@ -101,7 +102,7 @@ public class ClusterStatusEventPublisher {
                         new ClusterStatusClusterInstanceCreatedEvent(alias, serviceName,
                                 clusterId, instanceId);
 
-                publishEvent(clusterInstanceCreatedEvent);
+                publishEvent(clusterInstanceCreatedEvent, clusterId + ":" + instanceId);
             } else {
                 log.warn("Created is not in the possible state list of [cluster] " + clusterId);
             }
@@ -126,7 +127,7 @@ public class ClusterStatusEventPublisher {
                                 new ClusterStatusClusterActivatedEvent(appId, serviceName,
                                         clusterId, instanceId);
 
-                        publishEvent(clusterActivatedEvent);
+                        publishEvent(clusterActivatedEvent, clusterId + ":" + instanceId);
                     } else {
                         if (log.isDebugEnabled()) {
                             log.warn("Cluster is already active [cluster] " + clusterId);
@@ -154,7 +155,7 @@ public class ClusterStatusEventPublisher {
                         ClusterStatusClusterInactivateEvent clusterInactivateEvent =
                                 new ClusterStatusClusterInactivateEvent(appId, serviceName, clusterId, instanceId);
 
-                        publishEvent(clusterInactivateEvent);
+                        publishEvent(clusterInactivateEvent, clusterId + ":" + instanceId);
                     } else {
                         if (log.isDebugEnabled()) {
                             log.warn("Cluster is already inactive [cluster] " + clusterId);
@@ -187,7 +188,7 @@ public class ClusterStatusEventPublisher {
                             ClusterStatusClusterTerminatingEvent appStatusClusterTerminatingEvent =
                                     new ClusterStatusClusterTerminatingEvent(appId, serviceName, clusterId, instanceId);
 
-                            publishEvent(appStatusClusterTerminatingEvent);
+                            publishEvent(appStatusClusterTerminatingEvent, clusterId + ":" + instanceId);
                         } else {
                             if (log.isDebugEnabled()) {
                                 log.warn("Cluster is already terminating, [cluster] " + clusterId);
@@ -221,7 +222,7 @@ public class ClusterStatusEventPublisher {
                     ClusterStatusClusterTerminatedEvent appStatusClusterTerminatedEvent =
                             new ClusterStatusClusterTerminatedEvent(appId, serviceName, clusterId, instanceId);
 
-                    publishEvent(appStatusClusterTerminatedEvent);
+                    publishEvent(appStatusClusterTerminatedEvent, clusterId + ":" + instanceId);
                 } else {
                     log.warn("Cluster is already terminated, [cluster] " + clusterId);
                 }
@@ -235,8 +236,21 @@ public class ClusterStatusEventPublisher {
 
 
     public static void publishEvent(Event event) {
+        publishEvent(event, null);
+    }
+
+    /**
+     * @param event         event to be published
+     * @param coalescingKey key of the cluster instance the event describes, superseding a pending
+     *                      event of the same type and cluster instance in the event outbox
+     */
+    private static void publishEvent(Event event, String coalescingKey) {
         //publishing events to application status topic
         String topic = MessagingUtil.getMessageTopicName(event);
+        if (EventOutboxPool.isEnabled()) {
+            EventOutboxPool.getOutbox(topic).publish(topic, event, coalescingKey);
+            return;
+        }
         EventPublisher eventPublisher = EventPublisherPool.getPublisher(topic);
         eventPublisher.publish(event);
     }
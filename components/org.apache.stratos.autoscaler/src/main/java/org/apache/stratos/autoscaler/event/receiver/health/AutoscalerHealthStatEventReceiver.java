@@ -23,6 +23,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.autoscaler.context.AutoscalerContext;
 import org.apache.stratos.autoscaler.monitor.cluster.ClusterMonitor;
+import org.apache.stratos.autoscaler.tracing.ScalingTracer;
 import org.apache.stratos.messaging.domain.topology.Cluster;
 import org.apache.stratos.messaging.domain.topology.Member;
 import org.apache.stratos.messaging.domain.topology.Service;
@@ -79,6 +80,8 @@ public class AutoscalerHealthStatEventReceiver {
                     }
                     return;
                 }
+                ScalingTracer.getInstance().statisticReceived(clusterId,
+                        averageLoadAverageEvent.getClusterInstanceId());
                 monitor.handleAverageLoadAverageEvent(averageLoadAverageEvent);
             }
 
@@ -99,6 +102,8 @@ public class AutoscalerHealthStatEventReceiver {
                     }
                     return;
                 }
+                ScalingTracer.getInstance().statisticReceived(clusterId,
+                        averageMemoryConsumptionEvent.getClusterInstanceId());
                 monitor.handleAverageMemoryConsumptionEvent(averageMemoryConsumptionEvent);
             }
         });
@@ -118,6 +123,8 @@ public class AutoscalerHealthStatEventReceiver {
                     }
                     return;
                 }
+                ScalingTracer.getInstance().statisticReceived(clusterId,
+                        averageRequestsInFlightEvent.getClusterInstanceId());
                 monitor.handleAverageRequestsInFlightEvent(averageRequestsInFlightEvent);
             }
         });
@@ -159,6 +166,8 @@ public class AutoscalerHealthStatEventReceiver {
                     }
                     return;
                 }
+                ScalingTracer.getInstance().statisticReceived(clusterId,
+                        gradientOfLoadAverageEvent.getClusterInstanceId());
                 monitor.handleGradientOfLoadAverageEvent(gradientOfLoadAverageEvent);
             }
         });
@@ -178,6 +187,8 @@ public class AutoscalerHealthStatEventReceiver {
                     }
                     return;
                 }
+                ScalingTracer.getInstance().statisticReceived(clusterId,
+                        gradientOfMemoryConsumptionEvent.getClusterInstanceId());
                 monitor.handleGradientOfMemoryConsumptionEvent(gradientOfMemoryConsumptionEvent);
             }
         });
@@ -197,6 +208,8 @@ public class AutoscalerHealthStatEventReceiver {
                     }
                     return;
                 }
+                ScalingTracer.getInstance().statisticReceived(clusterId,
+                        gradientOfRequestsInFlightEvent.getClusterInstanceId());
                 monitor.handleGradientOfRequestsInFlightEvent(gradientOfRequestsInFlightEvent);
             }
         });
@@ -421,6 +434,8 @@ public class AutoscalerHealthStatEventReceiver {
                     }
                     return;
                 }
+                ScalingTracer.getInstance().statisticReceived(clusterId,
+                        secondDerivativeOfLoadAverageEvent.getClusterInstanceId());
                 monitor.handleSecondDerivativeOfLoadAverageEvent(secondDerivativeOfLoadAverageEvent);
             }
         });
@@ -440,6 +455,8 @@ public class AutoscalerHealthStatEventReceiver {
                     }
                     return;
                 }
+                ScalingTracer.getInstance().statisticReceived(clusterId,
+                        secondDerivativeOfMemoryConsumptionEvent.getClusterInstanceId());
                 monitor.handleSecondDerivativeOfMemoryConsumptionEvent(secondDerivativeOfMemoryConsumptionEvent);
             }
         });
@@ -460,6 +477,8 @@ public class AutoscalerHealthStatEventReceiver {
                     }
                     return;
                 }
+                ScalingTracer.getInstance().statisticReceived(clusterId,
+                        secondDerivativeOfRequestsInFlightEvent.getClusterInstanceId());
                 monitor.handleSecondDerivativeOfRequestsInFlightEvent(secondDerivativeOfRequestsInFlightEvent);
             }
         });
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.forecast;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a recorded metric trace through a predictor and reports the forecast error and the
+ * scaling actions a threshold based policy would have taken on the predicted values.
+ */
+public class Backtester {
+
+    private final float threshold;
+    private final int minInstances;
+    private final int maxInstances;
+    private final long horizon;
+    private final int bufferSize;
+
+    /**
+     * @param threshold    value of the metric a single instance can handle
+     * @param minInstances minimum instance count of the cluster
+     * @param maxInstances maximum instance count of the cluster
+     * @param horizon      prediction horizon in milliseconds
+     * @param bufferSize   number of recent observations kept for the predictor
+     */
+    public Backtester(float threshold, int minInstances, int maxInstances, long horizon, int bufferSize) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold should be greater than zero: [threshold] " + threshold);
+        }
+        if (minInstances > maxInstances) {
+            throw new IllegalArgumentException(String.format("Minimum instance count is greater than the " +
+                    "maximum: [min] %d [max] %d", minInstances, maxInstances));
+        }
+        this.threshold = threshold;
+        this.minInstances = minInstances;
+        this.maxInstances = maxInstances;
+        this.horizon = horizon;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Replay the trace through the predictor. Observations are fed in order, after each one the
+     * value at the horizon is predicted and compared with the first observation at or after that
+     * time.
+     *
+     * @param name      name of the predictor used in the result
+     * @param predictor predictor to be evaluated
+     * @param times     observation times in milliseconds, in ascending order
+     * @param values    observed values
+     * @return backtest result
+     */
+    public BacktestResult backtest(String name, Predictor predictor, long[] times, double[] values) {
+        if (times.length != values.length) {
+            throw new IllegalArgumentException(String.format("Trace lengths do not match: [times] %d [values] %d",
+                    times.length, values.length));
+        }
+        ObservationBuffer observations = new ObservationBuffer(bufferSize);
+        BacktestResult result = new BacktestResult(name);
+        double absoluteErrorSum = 0;
+        double squaredErrorSum = 0;
+        int instances = minInstances;
+        int actualIndex = 0;
+
+        for (int i = 0; i < times.length; i++) {
+            observations.add(times[i], values[i]);
+            predictor.update(observations);
+            long targetTime = times[i] + horizon;
+            double predicted = predictor.predict(observations, targetTime);
+            if (Double.isNaN(predicted)) {
+                // Rule falls back to the latest average until a prediction is available
+                predicted = values[i];
+            }
+
+            int requiredInstances = getRequiredInstances(predicted);
+            if (requiredInstances > instances) {
+                result.scaleUpCount++;
+            } else if (requiredInstances < instances) {
+                result.scaleDownCount++;
+            }
+            instances = requiredInstances;
+
+            actualIndex = Math.max(actualIndex, i);
+            while (actualIndex < times.length && times[actualIndex] < targetTime) {
+                actualIndex++;
+            }
+            if (actualIndex < times.length) {
+                double error = predicted - values[actualIndex];
+                absoluteErrorSum += Math.abs(error);
+                squaredErrorSum += error * error;
+                result.forecastCount++;
+            }
+        }
+        if (result.forecastCount > 0) {
+            result.meanAbsoluteError = absoluteErrorSum / result.forecastCount;
+            result.rootMeanSquaredError = Math.sqrt(squaredErrorSum / result.forecastCount);
+        }
+        return result;
+    }
+
+    private int getRequiredInstances(double predicted) {
+        int required = (int) Math.ceil(predicted / threshold);
+        return Math.max(minInstances, Math.min(maxInstances, required));
+    }
+
+    /**
+     * Read a trace of comma separated time and value pairs, one per line. Blank lines and lines
+     * starting with # are skipped.
+     *
+     * @param reader reader of the trace
+     * @return recorded trace
+     */
+    public static Trace readTrace(Reader reader) throws IOException {
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        List<Long> times = new ArrayList<Long>();
+        List<Double> values = new ArrayList<Double>();
+        String line;
+        int lineNumber = 0;
+        while ((line = bufferedReader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (StringUtils.isEmpty(line) || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split(",");
+            if (columns.length != 2) {
+                throw new IOException(String.format("Invalid trace line: [line-number] %d [line] %s",
+                        lineNumber, line));
+            }
+            try {
+                times.add(Long.parseLong(columns[0].trim()));
+                values.add(Double.parseDouble(columns[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IOException(String.format("Invalid trace line: [line-number] %d [line] %s",
+                        lineNumber, line), e);
+            }
+        }
+        long[] timeArray = new long[times.size()];
+        double[] valueArray = new double[values.size()];
+        for (int i = 0; i < timeArray.length; i++) {
+            timeArray[i] = times.get(i);
+            valueArray[i] = values.get(i);
+        }
+        return new Trace(timeArray, valueArray);
+    }
+
+    /**
+     * Recorded metric trace.
+     */
+    public static class Trace {
+
+        private final long[] times;
+        private final double[] values;
+
+        public Trace(long[] times, double[] values) {
+            this.times = times;
+            this.values = values;
+        }
+
+        public long[] getTimes() {
+            return times;
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+    }
+
+    /**
+     * Forecast error and scaling actions of a single backtest.
+     */
+    public static class BacktestResult {
+
+        private final String name;
+        private int forecastCount;
+        private double meanAbsoluteError;
+        private double rootMeanSquaredError;
+        private int scaleUpCount;
+        private int scaleDownCount;
+
+        BacktestResult(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getForecastCount() {
+            return forecastCount;
+        }
+
+        public double getMeanAbsoluteError() {
+            return meanAbsoluteError;
+        }
+
+        public double getRootMeanSquaredError() {
+            return rootMeanSquaredError;
+        }
+
+        public int getScaleUpCount() {
+            return scaleUpCount;
+        }
+
+        public int getScaleDownCount() {
+            return scaleDownCount;
+        }
+
+        public int getScalingActionCount() {
+            return scaleUpCount + scaleDownCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[predictor] %s [forecasts] %d [mae] %.3f [rmse] %.3f [scale-ups] %d " +
+                    "[scale-downs] %d", name, forecastCount, meanAbsoluteError, rootMeanSquaredError,
+                    scaleUpCount, scaleDownCount);
+        }
+    }
+}
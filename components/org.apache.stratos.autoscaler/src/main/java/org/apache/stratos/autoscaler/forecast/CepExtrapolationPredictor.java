@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.forecast;
+
+/**
+ * Extrapolation done with the average, gradient and second derivative published by CEP, the
+ * gradient and second derivative are derived from the last three observations. Not used for
+ * scaling, where the values published by CEP are used directly, but as the baseline when
+ * backtesting predictors.
+ */
+public class CepExtrapolationPredictor implements Predictor {
+
+    private static final double MINUTE = 60000d;
+
+    @Override
+    public void update(ObservationBuffer observations) {
+    }
+
+    @Override
+    public double predict(ObservationBuffer observations, long time) {
+        int count = observations.size();
+        if (count < 3) {
+            return Double.NaN;
+        }
+        long time0 = observations.getTime(count - 3);
+        long time1 = observations.getTime(count - 2);
+        long time2 = observations.getTime(count - 1);
+        if (time1 == time0 || time2 == time1) {
+            return Double.NaN;
+        }
+        double gradient1 = (observations.getValue(count - 2) - observations.getValue(count - 3)) /
+                ((time1 - time0) / MINUTE);
+        double gradient2 = (observations.getValue(count - 1) - observations.getValue(count - 2)) /
+                ((time2 - time1) / MINUTE);
+        double secondDerivative = (gradient2 - gradient1) / ((time2 - time1) / MINUTE);
+        double interval = (time - time2) / MINUTE;
+        // Same as RuleTasksDelegator.getPredictedValueForNextMinute()
+        return observations.getValue(count - 1) + gradient2 * interval +
+                0.5 * secondDerivative * interval * interval;
+    }
+}
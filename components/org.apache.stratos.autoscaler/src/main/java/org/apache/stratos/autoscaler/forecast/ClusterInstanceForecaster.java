@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.forecast;
+
+/**
+ * Recent observations and predictors of the forecasted metrics of a cluster instance.
+ * Observations are added by statistics event receivers and predictions are made by scaling
+ * decision engines, hence each metric is guarded separately.
+ */
+public class ClusterInstanceForecaster {
+
+    private final String predictorName;
+    private final ObservationBuffer[] observationBuffers;
+    private final Predictor[] predictors;
+
+    /**
+     * @param predictorName name of the predictor used for all metrics
+     * @param bufferSize    number of recent observations kept per metric
+     */
+    public ClusterInstanceForecaster(String predictorName, int bufferSize) {
+        this.predictorName = predictorName;
+        ForecastMetric[] metrics = ForecastMetric.values();
+        observationBuffers = new ObservationBuffer[metrics.length];
+        predictors = new Predictor[metrics.length];
+        for (ForecastMetric metric : metrics) {
+            Predictor predictor = PredictorFactory.createPredictor(predictorName);
+            if (predictor == null) {
+                throw new IllegalArgumentException("Predictor could not be identified: " + predictorName);
+            }
+            observationBuffers[metric.ordinal()] = new ObservationBuffer(bufferSize);
+            predictors[metric.ordinal()] = predictor;
+        }
+    }
+
+    public void addObservation(ForecastMetric metric, long time, double value) {
+        ObservationBuffer observations = observationBuffers[metric.ordinal()];
+        synchronized (observations) {
+            if (!observations.isEmpty() && time < observations.getLatestTime()) {
+                // Observations are expected in time order
+                time = observations.getLatestTime();
+            }
+            observations.add(time, value);
+            predictors[metric.ordinal()].update(observations);
+        }
+    }
+
+    /**
+     * Predict the value of a metric at the given time.
+     *
+     * @return predicted value, {@link Double#NaN} if there are not enough observations
+     */
+    public double predict(ForecastMetric metric, long time) {
+        ObservationBuffer observations = observationBuffers[metric.ordinal()];
+        synchronized (observations) {
+            return predictors[metric.ordinal()].predict(observations, time);
+        }
+    }
+
+    public int getObservationCount(ForecastMetric metric) {
+        ObservationBuffer observations = observationBuffers[metric.ordinal()];
+        synchronized (observations) {
+            return observations.size();
+        }
+    }
+
+    public String getPredictorName() {
+        return predictorName;
+    }
+}
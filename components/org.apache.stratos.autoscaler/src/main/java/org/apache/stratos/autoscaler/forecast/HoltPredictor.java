@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.forecast;
+
+/**
+ * Holt double exponential smoothing, a smoothed level and trend are updated with each
+ * observation. Observations may arrive at irregular intervals, the trend is kept per second.
+ */
+public class HoltPredictor implements Predictor {
+
+    public static final double DEFAULT_LEVEL_SMOOTHING = 0.5;
+    public static final double DEFAULT_TREND_SMOOTHING = 0.3;
+
+    private final double levelSmoothing;
+    private final double trendSmoothing;
+    private double level;
+    private double trend;
+    private long lastTime;
+    private int updateCount;
+
+    public HoltPredictor() {
+        this(DEFAULT_LEVEL_SMOOTHING, DEFAULT_TREND_SMOOTHING);
+    }
+
+    /**
+     * @param levelSmoothing smoothing factor of the level, between 0 and 1
+     * @param trendSmoothing smoothing factor of the trend, between 0 and 1
+     */
+    public HoltPredictor(double levelSmoothing, double trendSmoothing) {
+        if (levelSmoothing <= 0 || levelSmoothing > 1 || trendSmoothing <= 0 || trendSmoothing > 1) {
+            throw new IllegalArgumentException(String.format("Smoothing factors should be in (0, 1]: " +
+                    "[level] %s [trend] %s", levelSmoothing, trendSmoothing));
+        }
+        this.levelSmoothing = levelSmoothing;
+        this.trendSmoothing = trendSmoothing;
+    }
+
+    @Override
+    public void update(ObservationBuffer observations) {
+        long time = observations.getLatestTime();
+        double value = observations.getLatestValue();
+        if (updateCount == 0) {
+            level = value;
+            trend = 0;
+        } else {
+            double interval = (time - lastTime) / 1000d;
+            if (interval <= 0) {
+                // Observation of the same time, only the level is updated
+                level = levelSmoothing * value + (1 - levelSmoothing) * level;
+                return;
+            }
+            double previousLevel = level;
+            level = levelSmoothing * value + (1 - levelSmoothing) * (level + trend * interval);
+            double observedTrend = (level - previousLevel) / interval;
+            trend = (updateCount == 1) ? observedTrend :
+                    trendSmoothing * observedTrend + (1 - trendSmoothing) * trend;
+        }
+        lastTime = time;
+        updateCount++;
+    }
+
+    @Override
+    public double predict(ObservationBuffer observations, long time) {
+        if (updateCount < 2) {
+            return Double.NaN;
+        }
+        return level + trend * ((time - lastTime) / 1000d);
+    }
+}
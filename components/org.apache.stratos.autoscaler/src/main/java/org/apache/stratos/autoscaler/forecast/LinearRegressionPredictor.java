@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.forecast;
+
+/**
+ * Predicts by fitting a least squares line to all buffered observations, hence a spike moves the
+ * prediction by a fraction of its size while a steady ramp is followed.
+ */
+public class LinearRegressionPredictor implements Predictor {
+
+    private static final int MIN_OBSERVATIONS = 3;
+
+    @Override
+    public void update(ObservationBuffer observations) {
+    }
+
+    @Override
+    public double predict(ObservationBuffer observations, long time) {
+        int count = observations.size();
+        if (count < MIN_OBSERVATIONS) {
+            return Double.NaN;
+        }
+        // Times are taken relative to the latest observation, in seconds, to keep sums small
+        long latestTime = observations.getLatestTime();
+        double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+        for (int i = 0; i < count; i++) {
+            double x = (observations.getTime(i) - latestTime) / 1000d;
+            double y = observations.getValue(i);
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumXY += x * y;
+        }
+        double denominator = count * sumXX - sumX * sumX;
+        if (denominator == 0) {
+            // All observations at the same time
+            return sumY / count;
+        }
+        double slope = (count * sumXY - sumX * sumY) / denominator;
+        double intercept = (sumY - slope * sumX) / count;
+        return intercept + slope * ((time - latestTime) / 1000d);
+    }
+}
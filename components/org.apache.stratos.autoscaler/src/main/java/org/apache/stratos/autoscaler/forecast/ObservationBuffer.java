@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.forecast;
+
+/**
+ * Bounded ring buffer of observations of a metric kept in primitive arrays. Once full, adding an
+ * observation overwrites the oldest one. Observations are indexed from the oldest (0) to the
+ * latest (size - 1). Not thread safe.
+ */
+public class ObservationBuffer {
+
+    private final long[] times;
+    private final double[] values;
+    private int start;
+    private int size;
+
+    public ObservationBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Observation buffer capacity should be at least 1: " + capacity);
+        }
+        times = new long[capacity];
+        values = new double[capacity];
+    }
+
+    public void add(long time, double value) {
+        int index;
+        if (size < times.length) {
+            index = (start + size) % times.length;
+            size++;
+        } else {
+            index = start;
+            start = (start + 1) % times.length;
+        }
+        times[index] = time;
+        values[index] = value;
+    }
+
+    public long getTime(int index) {
+        return times[toArrayIndex(index)];
+    }
+
+    public double getValue(int index) {
+        return values[toArrayIndex(index)];
+    }
+
+    public long getLatestTime() {
+        return getTime(size - 1);
+    }
+
+    public double getLatestValue() {
+        return getValue(size - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return times.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        start = 0;
+        size = 0;
+    }
+
+    private int toArrayIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("[index] %d [size] %d", index, size));
+        }
+        return (start + index) % times.length;
+    }
+}
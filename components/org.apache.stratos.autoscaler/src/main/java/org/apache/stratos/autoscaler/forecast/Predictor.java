@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.forecast;
+
+/**
+ * Predicts future values of a metric from its recent observations. A predictor instance serves a
+ * single metric of a single cluster instance and may keep state across observations.
+ */
+public interface Predictor {
+
+    /**
+     * Update the predictor with the latest observation, called after the observation is added
+     * to the buffer.
+     *
+     * @param observations recent observations of the metric
+     */
+    void update(ObservationBuffer observations);
+
+    /**
+     * Predict the value of the metric at the given time.
+     *
+     * @param observations recent observations of the metric
+     * @param time         time to predict the value at, in milliseconds since epoch
+     * @return predicted value, {@link Double#NaN} if there are not enough observations
+     */
+    double predict(ObservationBuffer observations, long time);
+}
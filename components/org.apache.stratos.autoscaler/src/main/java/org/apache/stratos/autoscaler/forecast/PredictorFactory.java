@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.forecast;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.util.AutoscalerConstants;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates predictors by the names used in autoscale policies.
+ */
+public class PredictorFactory {
+
+    private static final Log log = LogFactory.getLog(PredictorFactory.class);
+
+    private static final Set<String> unknownPredictorNames =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Returns whether a predictor is available by the given name, an unknown name is logged once.
+     */
+    public static boolean isPredictorDefined(String predictorName) {
+        if (StringUtils.isBlank(predictorName)) {
+            return false;
+        }
+        if (AutoscalerConstants.PREDICTOR_LINEAR_REGRESSION.equals(predictorName)
+                || AutoscalerConstants.PREDICTOR_HOLT.equals(predictorName)
+                || AutoscalerConstants.PREDICTOR_SEASONAL.equals(predictorName)) {
+            return true;
+        }
+        if (unknownPredictorNames.add(predictorName)) {
+            log.error(String.format("Predictor could not be identified, statistics published by CEP will be " +
+                    "used for predictions: [predictor] %s", predictorName));
+        }
+        return false;
+    }
+
+    /**
+     * Create a predictor for a single metric of a cluster instance.
+     *
+     * @param predictorName name of the predictor
+     * @return predictor, null if the name is not known
+     */
+    public static Predictor createPredictor(String predictorName) {
+        if (AutoscalerConstants.PREDICTOR_LINEAR_REGRESSION.equals(predictorName)) {
+            return new LinearRegressionPredictor();
+        } else if (AutoscalerConstants.PREDICTOR_HOLT.equals(predictorName)) {
+            return new HoltPredictor();
+        } else if (AutoscalerConstants.PREDICTOR_SEASONAL.equals(predictorName)) {
+            return new SeasonalProfilePredictor();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.forecast;
+
+/**
+ * Predicts using a daily profile of the metric. The day is divided into slots, the mean of the
+ * observations of a slot is blended into the profile value of that time of day when the slot
+ * ends. The prediction is the profile value at the predicted time shifted by the current
+ * deviation from the profile. Until the slots are profiled, Holt smoothing is used.
+ */
+public class SeasonalProfilePredictor implements Predictor {
+
+    public static final long DAY = 24 * 60 * 60 * 1000L;
+    public static final int DEFAULT_SLOT_COUNT = 96;
+    public static final double DEFAULT_PROFILE_SMOOTHING = 0.3;
+
+    private final long slotLength;
+    private final double profileSmoothing;
+    private final double[] profile;
+    private final boolean[] profiled;
+    private final HoltPredictor shortTermPredictor;
+    private long currentSlot = -1;
+    private double currentSlotSum;
+    private int currentSlotCount;
+
+    public SeasonalProfilePredictor() {
+        this(DEFAULT_SLOT_COUNT, DEFAULT_PROFILE_SMOOTHING);
+    }
+
+    /**
+     * @param slotCount        number of slots a day is divided into
+     * @param profileSmoothing weight of the latest day in the profile, between 0 and 1
+     */
+    public SeasonalProfilePredictor(int slotCount, double profileSmoothing) {
+        if (slotCount < 1 || DAY % slotCount != 0) {
+            throw new IllegalArgumentException("Slot count should divide a day in to whole milliseconds: "
+                    + slotCount);
+        }
+        if (profileSmoothing <= 0 || profileSmoothing > 1) {
+            throw new IllegalArgumentException("Profile smoothing should be in (0, 1]: " + profileSmoothing);
+        }
+        this.slotLength = DAY / slotCount;
+        this.profileSmoothing = profileSmoothing;
+        this.profile = new double[slotCount];
+        this.profiled = new boolean[slotCount];
+        this.shortTermPredictor = new HoltPredictor();
+    }
+
+    @Override
+    public void update(ObservationBuffer observations) {
+        shortTermPredictor.update(observations);
+        long slot = observations.getLatestTime() / slotLength;
+        if (slot != currentSlot) {
+            completeCurrentSlot();
+            currentSlot = slot;
+        }
+        currentSlotSum += observations.getLatestValue();
+        currentSlotCount++;
+    }
+
+    @Override
+    public double predict(ObservationBuffer observations, long time) {
+        double shortTermPrediction = shortTermPredictor.predict(observations, time);
+        if (observations.isEmpty()) {
+            return shortTermPrediction;
+        }
+        int latestSlotOfDay = getSlotOfDay(observations.getLatestTime());
+        int predictedSlotOfDay = getSlotOfDay(time);
+        if (!profiled[latestSlotOfDay] || !profiled[predictedSlotOfDay]) {
+            return shortTermPrediction;
+        }
+        // Current level is taken from the smoothed short term prediction rather than the latest
+        // observation to avoid carrying a spike into the prediction
+        double level = shortTermPredictor.predict(observations, observations.getLatestTime());
+        if (Double.isNaN(level)) {
+            level = observations.getLatestValue();
+        }
+        double deviation = level - profile[latestSlotOfDay];
+        return profile[predictedSlotOfDay] + deviation;
+    }
+
+    /**
+     * Returns whether the profile has a value for the time of day of the given time.
+     */
+    public boolean isProfiled(long time) {
+        return profiled[getSlotOfDay(time)];
+    }
+
+    private void completeCurrentSlot() {
+        if (currentSlotCount == 0) {
+            return;
+        }
+        int slotOfDay = (int) (currentSlot % profile.length);
+        double mean = currentSlotSum / currentSlotCount;
+        if (profiled[slotOfDay]) {
+            profile[slotOfDay] = profileSmoothing * mean + (1 - profileSmoothing) * profile[slotOfDay];
+        } else {
+            profile[slotOfDay] = mean;
+            profiled[slotOfDay] = true;
+        }
+        currentSlotSum = 0;
+        currentSlotCount = 0;
+    }
+
+    private int getSlotOfDay(long time) {
+        return (int) ((time / slotLength) % profile.length);
+    }
+}
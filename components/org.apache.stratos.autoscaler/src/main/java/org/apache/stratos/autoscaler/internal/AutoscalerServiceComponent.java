@@ -32,6 +32,7 @@ import org.apache.stratos.autoscaler.exception.AutoScalingPolicyAlreadyExistExce
 import org.apache.stratos.autoscaler.exception.application.InvalidApplicationPolicyException;
 import org.apache.stratos.autoscaler.exception.policy.InvalidDeploymentPolicyException;
 import org.apache.stratos.autoscaler.exception.policy.InvalidPolicyException;
+import org.apache.stratos.autoscaler.monitor.MonitorScheduler;
 import org.apache.stratos.autoscaler.pojo.policy.PolicyManager;
 import org.apache.stratos.autoscaler.pojo.policy.autoscale.AutoscalePolicy;
 import org.apache.stratos.autoscaler.pojo.policy.deployment.ApplicationPolicy;
@@ -271,6 +272,9 @@ public class AutoscalerServiceComponent {
         // Shutdown application monitor executor service
         shutdownExecutorService(AutoscalerConstants.MONITOR_THREAD_POOL_ID);
 
+        // Shutdown monitor tick worker pool
+        MonitorScheduler.shutdown();
+
         // Shutdown cluster monitor scheduler executor service
         shutdownScheduledExecutorService(AutoscalerConstants.CLUSTER_MONITOR_SCHEDULER_ID);
     }
@@ -0,0 +1,406 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.monitor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.util.AutoscalerConstants;
+import org.apache.stratos.common.threading.StratosThreadPool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared tick scheduler for periodic monitors. A small timer pool only keeps the tick deadlines
+ * and hands each due tick over to a bounded worker pool, hence no thread is held between ticks
+ * and the number of monitors is not limited by the number of scheduler threads. The worker pool
+ * rejects ticks when it is full rather than blocking the timer, rejected ticks are counted as
+ * skipped. The periodic phase of each monitor is offset by a random jitter so that monitors
+ * started together do not tick in lockstep. Monitors record the lag between the intended tick
+ * and the start of their evaluation, and the duration of the evaluation.
+ */
+public class MonitorScheduler {
+
+    private static final Log log = LogFactory.getLog(MonitorScheduler.class);
+
+    private static volatile MonitorScheduler instance;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workerPool;
+    private final float jitter;
+    private final Random random;
+    private final ConcurrentHashMap<String, MonitorSchedule> schedules;
+
+    MonitorScheduler(ScheduledExecutorService timer, ExecutorService workerPool, float jitter) {
+        this.timer = timer;
+        this.workerPool = workerPool;
+        this.jitter = Math.max(0f, Math.min(1f, jitter));
+        this.random = new Random();
+        this.schedules = new ConcurrentHashMap<String, MonitorSchedule>();
+        if (timer instanceof ScheduledThreadPoolExecutor) {
+            ((ScheduledThreadPoolExecutor) timer).setRemoveOnCancelPolicy(true);
+        }
+    }
+
+    public static MonitorScheduler getInstance() {
+        if (instance == null) {
+            synchronized (MonitorScheduler.class) {
+                if (instance == null) {
+                    ScheduledExecutorService timer = StratosThreadPool.getScheduledExecutorService(
+                            AutoscalerConstants.CLUSTER_MONITOR_SCHEDULER_ID,
+                            AutoscalerConstants.CLUSTER_MONITOR_SCHEDULER_THREAD_POOL_SIZE);
+                    int workerPoolSize = Integer.getInteger(
+                            AutoscalerConstants.MONITOR_TICK_THREAD_POOL_SIZE, 20);
+                    ExecutorService workerPool = createWorkerPool(workerPoolSize);
+                    float jitter = Float.parseFloat(System.getProperty(
+                            AutoscalerConstants.MONITOR_TICK_JITTER, "0.1"));
+                    instance = new MonitorScheduler(timer, workerPool, jitter);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Create the tick worker pool. The pool has a fixed number of threads and a queue of the
+     * same size, ticks are rejected when both are full.
+     *
+     * @param poolSize number of worker threads
+     * @return worker pool
+     */
+    static ThreadPoolExecutor createWorkerPool(int poolSize) {
+        ThreadPoolExecutor workerPool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(poolSize), new ThreadPoolExecutor.AbortPolicy());
+        log.info(String.format("Thread pool created: [type] Executor Service [id] %s [size] %d",
+                AutoscalerConstants.MONITOR_TICK_THREAD_POOL_ID, poolSize));
+        return workerPool;
+    }
+
+    /**
+     * Cancel all monitor schedules and shut down the tick worker pool if the scheduler has been
+     * created. The timer is shut down with the cluster monitor scheduler thread pool.
+     */
+    public static void shutdown() {
+        MonitorScheduler scheduler;
+        synchronized (MonitorScheduler.class) {
+            scheduler = instance;
+            instance = null;
+        }
+        if (scheduler != null) {
+            for (MonitorSchedule schedule : scheduler.getMonitorSchedules()) {
+                schedule.cancel();
+            }
+            scheduler.workerPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedule a monitor task. The first tick is executed immediately, following ticks are
+     * executed at a fixed rate with a random phase offset of up to the configured jitter
+     * fraction of the interval. A tick is skipped if the previous tick of the same monitor is
+     * still running or if the worker pool is full, and ticks missed by more than one interval
+     * are not caught up.
+     *
+     * @param monitorId      id of the monitor, used for logging and reporting
+     * @param task           task to be executed on each tick
+     * @param intervalMillis monitoring interval in milliseconds
+     * @return schedule of the monitor to read tick statistics and to cancel it
+     */
+    public MonitorSchedule schedule(String monitorId, Runnable task, long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Monitor interval should be positive: [monitor] "
+                    + monitorId + " [interval] " + intervalMillis);
+        }
+        long phaseOffset;
+        synchronized (random) {
+            phaseOffset = (long) (random.nextFloat() * jitter * intervalMillis);
+        }
+        MonitorSchedule schedule = new MonitorSchedule(monitorId, task, intervalMillis, phaseOffset);
+        MonitorSchedule previous = schedules.put(monitorId, schedule);
+        if (previous != null) {
+            previous.cancel();
+        }
+        schedule.scheduleTick(System.currentTimeMillis());
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Monitor scheduled: [monitor] %s [interval] %d [phase-offset] %d",
+                    monitorId, intervalMillis, phaseOffset));
+        }
+        return schedule;
+    }
+
+    /**
+     * Returns the schedules of all active monitors.
+     */
+    public Collection<MonitorSchedule> getMonitorSchedules() {
+        return new ArrayList<MonitorSchedule>(schedules.values());
+    }
+
+    /**
+     * Returns the schedules of monitors of which the last evaluation lag exceeded the given value.
+     */
+    public List<MonitorSchedule> getLaggingMonitorSchedules(long lagMillis) {
+        List<MonitorSchedule> lagging = new ArrayList<MonitorSchedule>();
+        for (MonitorSchedule schedule : schedules.values()) {
+            if (schedule.getLastLagMillis() > lagMillis) {
+                lagging.add(schedule);
+            }
+        }
+        return lagging;
+    }
+
+    /**
+     * Periodic schedule of a single monitor.
+     */
+    public class MonitorSchedule implements Runnable {
+
+        private final String monitorId;
+        private final Runnable task;
+        private final long intervalMillis;
+        private final long phaseOffsetMillis;
+        private final AtomicBoolean running;
+        private final AtomicLong tickCount;
+        private final AtomicLong missedTickCount;
+        private final AtomicLong overrunCount;
+        private final AtomicLong rejectedTickCount;
+        private final AtomicLong evaluationCount;
+        private final AtomicLong totalLagMillis;
+        private final AtomicLong totalEvaluationMillis;
+        private volatile long nextTickTime;
+        private volatile long lastTickTime;
+        private volatile long lastLagMillis;
+        private volatile long maxLagMillis;
+        private volatile long maxEvaluationMillis;
+        private volatile boolean phaseApplied;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> future;
+
+        private MonitorSchedule(String monitorId, Runnable task, long intervalMillis, long phaseOffsetMillis) {
+            this.monitorId = monitorId;
+            this.task = task;
+            this.intervalMillis = intervalMillis;
+            this.phaseOffsetMillis = phaseOffsetMillis;
+            this.running = new AtomicBoolean(false);
+            this.tickCount = new AtomicLong();
+            this.missedTickCount = new AtomicLong();
+            this.overrunCount = new AtomicLong();
+            this.rejectedTickCount = new AtomicLong();
+            this.evaluationCount = new AtomicLong();
+            this.totalLagMillis = new AtomicLong();
+            this.totalEvaluationMillis = new AtomicLong();
+        }
+
+        private void scheduleTick(long tickTime) {
+            if (cancelled) {
+                return;
+            }
+            nextTickTime = tickTime;
+            future = timer.schedule(this, Math.max(0, tickTime - System.currentTimeMillis()),
+                    TimeUnit.MILLISECONDS);
+            if (cancelled) {
+                future.cancel(false);
+            }
+        }
+
+        /**
+         * Executed by the timer when the tick is due, hands the tick over to the worker pool
+         * and schedules the next tick.
+         */
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            final long intendedTime = nextTickTime;
+            long followingTickTime = intendedTime + intervalMillis;
+            if (!phaseApplied) {
+                // The first tick is executed immediately, the jitter is applied to the period
+                followingTickTime += phaseOffsetMillis;
+                phaseApplied = true;
+            }
+            long now = System.currentTimeMillis();
+            if (now >= followingTickTime) {
+                // Do not catch up ticks missed by more than one interval
+                long missed = (now - followingTickTime) / intervalMillis + 1;
+                missedTickCount.addAndGet(missed);
+                followingTickTime += missed * intervalMillis;
+                log.warn(String.format("Monitor missed ticks: [monitor] %s [missed-ticks] %d [interval] %d",
+                        monitorId, missed, intervalMillis));
+            }
+            lastTickTime = intendedTime;
+
+            if (running.compareAndSet(false, true)) {
+                try {
+                    workerPool.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            executeTick(intendedTime);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    running.set(false);
+                    rejectedTickCount.incrementAndGet();
+                    log.warn(String.format("Monitor tick worker pool is full, tick skipped: [monitor] %s",
+                            monitorId));
+                }
+            } else {
+                overrunCount.incrementAndGet();
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Previous monitor tick is still running, tick skipped: " +
+                            "[monitor] %s", monitorId));
+                }
+            }
+            scheduleTick(followingTickTime);
+        }
+
+        private void executeTick(long intendedTime) {
+            try {
+                if (cancelled) {
+                    return;
+                }
+                tickCount.incrementAndGet();
+                task.run();
+            } catch (Exception e) {
+                log.error(String.format("Monitor tick failed: [monitor] %s", monitorId), e);
+            } finally {
+                running.set(false);
+            }
+        }
+
+        /**
+         * Record an evaluation of a tick. Monitors which hand the evaluation over to another
+         * thread pool record it once the evaluation is completed.
+         *
+         * @param tickTime  intended time of the tick, see {@link #getLastTickTime()}
+         * @param startTime start time of the evaluation
+         * @param endTime   end time of the evaluation
+         */
+        public void recordEvaluation(long tickTime, long startTime, long endTime) {
+            long lag = Math.max(0, startTime - tickTime);
+            long duration = Math.max(0, endTime - startTime);
+            lastLagMillis = lag;
+            if (lag > maxLagMillis) {
+                maxLagMillis = lag;
+            }
+            if (duration > maxEvaluationMillis) {
+                maxEvaluationMillis = duration;
+            }
+            totalLagMillis.addAndGet(lag);
+            totalEvaluationMillis.addAndGet(duration);
+            evaluationCount.incrementAndGet();
+            if (lag > intervalMillis / 10) {
+                log.warn(String.format("Monitor evaluation is lagging: [monitor] %s [lag] %d ms [interval] %d ms",
+                        monitorId, lag, intervalMillis));
+            }
+        }
+
+        /**
+         * Cancel the schedule, a tick already running is not interrupted.
+         */
+        public void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> current = future;
+            if (current != null) {
+                current.cancel(false);
+            }
+            schedules.remove(monitorId, this);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public String getMonitorId() {
+            return monitorId;
+        }
+
+        public long getIntervalMillis() {
+            return intervalMillis;
+        }
+
+        public long getPhaseOffsetMillis() {
+            return phaseOffsetMillis;
+        }
+
+        /**
+         * Returns the intended time of the last tick in milliseconds since epoch.
+         */
+        public long getLastTickTime() {
+            return lastTickTime;
+        }
+
+        public long getLastLagMillis() {
+            return lastLagMillis;
+        }
+
+        public long getMaxLagMillis() {
+            return maxLagMillis;
+        }
+
+        public long getAverageLagMillis() {
+            long evaluations = evaluationCount.get();
+            return (evaluations == 0) ? 0 : totalLagMillis.get() / evaluations;
+        }
+
+        public long getMaxEvaluationMillis() {
+            return maxEvaluationMillis;
+        }
+
+        public long getAverageEvaluationMillis() {
+            long evaluations = evaluationCount.get();
+            return (evaluations == 0) ? 0 : totalEvaluationMillis.get() / evaluations;
+        }
+
+        public long getEvaluationCount() {
+            return evaluationCount.get();
+        }
+
+        public long getTickCount() {
+            return tickCount.get();
+        }
+
+        public long getMissedTickCount() {
+            return missedTickCount.get();
+        }
+
+        public long getOverrunCount() {
+            return overrunCount.get();
+        }
+
+        /**
+         * Returns the number of ticks skipped since the worker pool was full.
+         */
+        public long getRejectedTickCount() {
+            return rejectedTickCount.get();
+        }
+    }
+}
@@ -35,22 +35,29 @@ import org.apache.stratos.autoscaler.event.publisher.InstanceNotificationPublish
 import org.apache.stratos.autoscaler.exception.InvalidArgumentException;
 import org.apache.stratos.autoscaler.exception.partition.PartitionValidationException;
 import org.apache.stratos.autoscaler.exception.policy.PolicyValidationException;
+import org.apache.stratos.autoscaler.forecast.ClusterInstanceForecaster;
+import org.apache.stratos.autoscaler.forecast.PredictorFactory;
 import org.apache.stratos.autoscaler.monitor.Monitor;
+import org.apache.stratos.autoscaler.monitor.MonitorScheduler;
 import org.apache.stratos.autoscaler.monitor.events.MonitorStatusEvent;
 import org.apache.stratos.autoscaler.monitor.events.ScalingEvent;
 import org.apache.stratos.autoscaler.monitor.events.ScalingUpBeyondMaxEvent;
 import org.apache.stratos.autoscaler.monitor.events.builder.MonitorStatusEventBuilder;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.AutoscalePolicy;
 import org.apache.stratos.autoscaler.rule.RuleTasksDelegator;
+import org.apache.stratos.autoscaler.rule.ScalingDecisionEngine;
+import org.apache.stratos.autoscaler.rule.ScalingDecisionEngineFactory;
+import org.apache.stratos.autoscaler.rule.ScalingDecisionParameters;
 import org.apache.stratos.autoscaler.status.processor.cluster.ClusterStatusActiveProcessor;
 import org.apache.stratos.autoscaler.status.processor.cluster.ClusterStatusInactiveProcessor;
 import org.apache.stratos.autoscaler.status.processor.cluster.ClusterStatusTerminatedProcessor;
+import org.apache.stratos.autoscaler.tracing.ScalingTrace;
+import org.apache.stratos.autoscaler.tracing.ScalingTracer;
 import org.apache.stratos.autoscaler.util.AutoscalerConstants;
-import org.apache.stratos.autoscaler.util.AutoscalerObjectConverter;
 import org.apache.stratos.autoscaler.util.ConfUtil;
 import org.apache.stratos.autoscaler.util.ServiceReferenceHolder;
 import org.apache.stratos.cloud.controller.stub.domain.MemberContext;
 import org.apache.stratos.common.Properties;
-import org.apache.stratos.common.Property;
 import org.apache.stratos.common.client.CloudControllerServiceClient;
 import org.apache.stratos.common.constants.StratosConstants;
 import org.apache.stratos.common.threading.StratosThreadPool;
@@ -69,8 +76,6 @@ import org.apache.stratos.messaging.event.topology.MemberMaintenanceModeEvent;
 import org.apache.stratos.messaging.event.topology.MemberReadyToShutdownEvent;
 import org.apache.stratos.messaging.event.topology.MemberTerminatedEvent;
 import org.apache.stratos.messaging.message.receiver.topology.TopologyManager;
-import org.drools.runtime.StatefulKnowledgeSession;
-import org.drools.runtime.rule.FactHandle;
 
 import java.rmi.RemoteException;
 import java.util.*;
@@ -84,15 +89,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class ClusterMonitor extends Monitor {
 
-    private final ScheduledExecutorService scheduler;
     private final ExecutorService executorService;
 
     protected boolean hasFaultyMember = false;
     protected ClusterContext clusterContext;
     protected String serviceType;
     protected String clusterId;
-    // future to cancel it when destroying monitors
-    private ScheduledFuture<?> schedulerFuture;
+    // schedule to cancel it when destroying monitors
+    private MonitorScheduler.MonitorSchedule monitorSchedule;
     protected String serviceUuid;
     private AtomicBoolean monitoringStarted;
 
@@ -110,7 +114,6 @@ public class ClusterMonitor extends Monitor {
     public ClusterMonitor(Cluster cluster, boolean hasScalingDependents, boolean groupScalingEnabledSubtree,
                           String deploymentPolicyId) {
 
-        scheduler = StratosThreadPool.getScheduledExecutorService(AutoscalerConstants.CLUSTER_MONITOR_SCHEDULER_ID, 50);
         int threadPoolSize = Integer.getInteger(AutoscalerConstants.MONITOR_THREAD_POOL_SIZE, 100);
         executorService = StratosThreadPool.getExecutorService(
                 AutoscalerConstants.MONITOR_THREAD_POOL_ID, threadPoolSize);
@@ -130,8 +133,8 @@ public class ClusterMonitor extends Monitor {
     }
 
     public void startScheduler() {
-        schedulerFuture = scheduler.scheduleAtFixedRate(this, 0,
-                getMonitorIntervalMilliseconds(), TimeUnit.MILLISECONDS);
+        monitorSchedule = MonitorScheduler.getInstance().schedule(clusterId, this,
+                getMonitorIntervalMilliseconds());
     }
 
     @Override
@@ -198,6 +201,13 @@ public class ClusterMonitor extends Monitor {
         }
     }
 
+    /**
+     * Returns the tick schedule of the monitor, null if monitoring has not been started.
+     */
+    public MonitorScheduler.MonitorSchedule getMonitorSchedule() {
+        return monitorSchedule;
+    }
+
     public int getMonitorIntervalMilliseconds() {
         return monitoringIntervalMilliseconds;
     }
@@ -305,29 +315,6 @@ public class ClusterMonitor extends Monitor {
         } catch (Exception e) {
             log.error("Cluster monitor: Monitor failed." + this.toString(), e);
         }
-        try {
-            Thread.sleep(getMonitorIntervalMilliseconds());
-        } catch (InterruptedException ignore) {
-        }
-    }
-
-    private boolean isPrimaryMember(MemberContext memberContext) {
-        Properties props = AutoscalerObjectConverter.convertCCPropertiesToProperties(memberContext.getProperties());
-        if (log.isDebugEnabled()) {
-            log.debug(" Properties [" + props + "] ");
-        }
-        if (props != null && props.getProperties() != null) {
-            for (Property prop : props.getProperties()) {
-                if (prop.getName().equals("PRIMARY")) {
-                    if (Boolean.parseBoolean(prop.getValue())) {
-                        log.debug("Adding member id [" + memberContext.getMemberId() + "] " +
-                                "member instance id [" + memberContext.getInstanceId() + "] as a primary member");
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
     }
 
     public synchronized void monitor() {
@@ -355,61 +342,32 @@ public class ClusterMonitor extends Monitor {
                                     log.debug(String.format("Cluster monitor is running: [application-id] %s [cluster-id]: " +
                                             "%s", getAppId(), getClusterId()));
                                 }
-                                // store primary members in the cluster instance context
-                                List<String> primaryMemberListInClusterInstance = new ArrayList<String>();
-
-                                for (ClusterLevelPartitionContext partitionContext :
-                                        instanceContext.getPartitionCtxts()) {
-
-                                    // get active primary members in this cluster instance context
-                                    for (MemberContext memberContext : partitionContext.getActiveMembers()) {
-                                        if (isPrimaryMember(memberContext)) {
-                                            primaryMemberListInClusterInstance.add(memberContext.getMemberId());
-                                        }
-                                    }
+                                // snapshot of the active and pending primary members for this evaluation
+                                List<String> primaryMemberListInClusterInstance = instanceContext.getPrimaryMembers();
 
-                                    // get pending primary members in this cluster instance context
-                                    for (MemberContext memberContext : partitionContext.getPendingMembers()) {
-                                        if (isPrimaryMember(memberContext)) {
-                                            primaryMemberListInClusterInstance.add(memberContext.getMemberId());
-                                        }
-                                    }
-                                }
+                                updateForecaster(instanceContext);
 
-                                instanceContext.getMinCheckKnowledgeSession().setGlobal("primaryMemberCount",
-                                        primaryMemberListInClusterInstance.size());
-                                instanceContext.getMinCheckKnowledgeSession().setGlobal("clusterId", getClusterId());
-                                instanceContext.getMinCheckKnowledgeSession().setGlobal("isPrimary", hasPrimary);
                                 //FIXME when parent chosen the partition
                                 String paritionAlgo = instanceContext.getPartitionAlgorithm();
-
-                                instanceContext.getMinCheckKnowledgeSession().setGlobal("algorithmName",
-                                        paritionAlgo);
+                                ScalingDecisionEngine scalingDecisionEngine = getScalingDecisionEngine();
+                                ScalingDecisionParameters parameters = new ScalingDecisionParameters(
+                                        new RuleTasksDelegator(), getClusterId());
+                                parameters.setApplicationId(getAppId());
+                                parameters.setPrimary(hasPrimary);
+                                parameters.setPrimaryMembers(primaryMemberListInClusterInstance);
+                                parameters.setAlgorithmName(paritionAlgo);
 
                                 if (log.isDebugEnabled()) {
                                     log.debug(String.format("Running minimum check for cluster instance %s ",
                                             instanceContext.getId() + " for the cluster: " + clusterId));
                                 }
+                                scalingDecisionEngine.evaluateMinCheck(instanceContext, parameters);
 
-                                instanceContext.setMinCheckFactHandle(evaluate(instanceContext.
-                                                getMinCheckKnowledgeSession(),
-                                        instanceContext.getMinCheckFactHandle(), instanceContext));
-
-
-                                instanceContext.getMaxCheckKnowledgeSession().setGlobal("primaryMemberCount",
-                                        primaryMemberListInClusterInstance.size());
-                                instanceContext.getMaxCheckKnowledgeSession().setGlobal("clusterId", getClusterId());
-                                instanceContext.getMaxCheckKnowledgeSession().setGlobal("isPrimary", hasPrimary);
-                                instanceContext.getMaxCheckKnowledgeSession().setGlobal("primaryMembers",
-                                        primaryMemberListInClusterInstance);
                                 if (log.isDebugEnabled()) {
                                     log.debug(String.format("Running max check for cluster instance %s ",
                                             instanceContext.getId() + " for the cluster: " + clusterId));
                                 }
-
-                                instanceContext.setMaxCheckFactHandle(evaluate(instanceContext.
-                                                getMaxCheckKnowledgeSession(),
-                                        instanceContext.getMaxCheckFactHandle(), instanceContext));
+                                scalingDecisionEngine.evaluateMaxCheck(instanceContext, parameters);
 
 
                                 //checking the status of the cluster
@@ -430,19 +388,11 @@ public class ClusterMonitor extends Monitor {
 
                                     ClusterContext clusterContext = ClusterMonitor.this.clusterContext;
 
-                                    instanceContext.getScaleCheckKnowledgeSession().setGlobal("applicationId", getAppId());
-                                    instanceContext.getScaleCheckKnowledgeSession().setGlobal("clusterId", getClusterId());
-                                    instanceContext.getScaleCheckKnowledgeSession().setGlobal("rifReset", rifReset);
-                                    instanceContext.getScaleCheckKnowledgeSession().setGlobal("mcReset", memoryConsumptionReset);
-                                    instanceContext.getScaleCheckKnowledgeSession().setGlobal("laReset", loadAverageReset);
-                                    instanceContext.getScaleCheckKnowledgeSession().setGlobal("isPrimary", hasPrimary);
-                                    instanceContext.getScaleCheckKnowledgeSession().setGlobal("algorithmName", paritionAlgo);
-                                    instanceContext.getScaleCheckKnowledgeSession().setGlobal("autoscalePolicy",
-                                            clusterContext.getAutoscalePolicy());
-                                    instanceContext.getScaleCheckKnowledgeSession().setGlobal("arspiReset",
-                                            averageRequestServedPerInstanceReset);
-                                    instanceContext.getScaleCheckKnowledgeSession().setGlobal("primaryMembers",
-                                            primaryMemberListInClusterInstance);
+                                    parameters.setRifReset(rifReset);
+                                    parameters.setMcReset(memoryConsumptionReset);
+                                    parameters.setLaReset(loadAverageReset);
+                                    parameters.setArspiReset(averageRequestServedPerInstanceReset);
+                                    parameters.setAutoscalePolicy(clusterContext.getAutoscalePolicy());
 
                                     if (log.isDebugEnabled()) {
                                         log.debug(String.format("Running scale check for [cluster instance context] %s ",
@@ -450,9 +400,15 @@ public class ClusterMonitor extends Monitor {
                                         log.debug(" Primary members : " + primaryMemberListInClusterInstance);
                                     }
 
-                                    instanceContext.setScaleCheckFactHandle(evaluate(
-                                            instanceContext.getScaleCheckKnowledgeSession()
-                                            , instanceContext.getScaleCheckFactHandle(), instanceContext));
+                                    // the scaling trace was opened by the first statistic of this cycle
+                                    ScalingTrace scalingTrace = ScalingTracer.getInstance().startEvaluation(
+                                            clusterId, instanceContext.getId());
+                                    parameters.getDelegator().setScalingTrace(scalingTrace);
+                                    try {
+                                        scalingDecisionEngine.evaluateScaleCheck(instanceContext, parameters);
+                                    } finally {
+                                        ScalingTracer.getInstance().endEvaluation(scalingTrace);
+                                    }
 
                                     instanceContext.setRifReset(false);
                                     instanceContext.setMemoryConsumptionReset(false);
@@ -465,17 +421,17 @@ public class ClusterMonitor extends Monitor {
 
                             }
                         };
-                        executorService.execute(monitoringRunnable);
+                        executeEvaluation(monitoringRunnable);
                     }
 
                     for (final ClusterLevelPartitionContext partitionContext : instanceContext.getPartitionCtxts()) {
                         Runnable monitoringRunnable = new Runnable() {
                             @Override
                             public void run() {
-                                instanceContext.getObsoleteCheckKnowledgeSession().setGlobal("clusterId", clusterId);
-                                instanceContext.setObsoleteCheckFactHandle(evaluate(
-                                        instanceContext.getObsoleteCheckKnowledgeSession(),
-                                        instanceContext.getObsoleteCheckFactHandle(), partitionContext));
+                                ScalingDecisionParameters parameters = new ScalingDecisionParameters(
+                                        new RuleTasksDelegator(), clusterId);
+                                getScalingDecisionEngine().evaluateObsoleteCheck(instanceContext, partitionContext,
+                                        parameters);
 
                                 if (partitionContext.isObsoletePartition()
                                         && partitionContext.getTerminationPendingMembers().size() == 0
@@ -485,7 +441,7 @@ public class ClusterMonitor extends Monitor {
                                 }
                             }
                         };
-                        executorService.execute(monitoringRunnable);
+                        executeEvaluation(monitoringRunnable);
                     }
                 }
             }
@@ -494,18 +450,60 @@ public class ClusterMonitor extends Monitor {
         }
     }
 
-    private FactHandle evaluate(StatefulKnowledgeSession ksession, FactHandle handle, Object obj) {
-        if (handle == null) {
-            ksession.setGlobal("delegator", new RuleTasksDelegator());
-            handle = ksession.insert(obj);
-        } else {
-            ksession.update(handle, obj);
+    /**
+     * Execute a rule evaluation of the current tick on the monitor thread pool, the lag from the
+     * tick to the start of the evaluation and its duration are recorded in the monitor schedule.
+     */
+    private void executeEvaluation(final Runnable evaluation) {
+        final MonitorScheduler.MonitorSchedule schedule = monitorSchedule;
+        if (schedule == null) {
+            executorService.execute(evaluation);
+            return;
         }
-        ksession.fireAllRules();
-        if (log.isDebugEnabled()) {
-            log.debug(String.format("Rule executed for: %s ", obj));
+        final long tickTime = schedule.getLastTickTime();
+        executorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                long startTime = System.currentTimeMillis();
+                try {
+                    evaluation.run();
+                } finally {
+                    schedule.recordEvaluation(tickTime, startTime, System.currentTimeMillis());
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the scaling decision engine selected by the autoscale policy of the cluster.
+     */
+    private ScalingDecisionEngine getScalingDecisionEngine() {
+        return ScalingDecisionEngineFactory.getScalingDecisionEngine(clusterContext.getAutoscalePolicy());
+    }
+
+    /**
+     * Keep the forecaster of the cluster instance in line with the predictor selected by the
+     * autoscale policy, observations are recorded only while a predictor is selected.
+     */
+    private void updateForecaster(ClusterInstanceContext instanceContext) {
+        AutoscalePolicy autoscalePolicy = clusterContext.getAutoscalePolicy();
+        String predictorName = (autoscalePolicy != null) ? autoscalePolicy.getPredictor() : null;
+        ClusterInstanceForecaster forecaster = instanceContext.getForecaster();
+        if (!PredictorFactory.isPredictorDefined(predictorName)) {
+            if (forecaster != null) {
+                instanceContext.setForecaster(null);
+            }
+            return;
+        }
+        if ((forecaster == null) || !predictorName.equals(forecaster.getPredictorName())) {
+            instanceContext.setForecaster(new ClusterInstanceForecaster(predictorName,
+                    Integer.getInteger(AutoscalerConstants.FORECAST_OBSERVATION_BUFFER_SIZE,
+                            AutoscalerConstants.DEFAULT_FORECAST_OBSERVATION_BUFFER_SIZE)));
+            if (log.isInfoEnabled()) {
+                log.info(String.format("Forecasting statistics of cluster instance: [cluster] %s " +
+                        "[cluster-instance] %s [predictor] %s", clusterId, instanceContext.getId(), predictorName));
+            }
         }
-        return handle;
     }
 
     private void readConfigurations() {
@@ -522,7 +520,10 @@ public class ClusterMonitor extends Monitor {
     @Override
     public void destroy() {
         //shutting down the scheduler
-        schedulerFuture.cancel(true);
+        if (monitorSchedule != null) {
+            monitorSchedule.cancel();
+        }
+        ScalingTracer.getInstance().removeCluster(getClusterId());
 
         if (log.isDebugEnabled()) {
             log.debug("ClusterMonitor task has been stopped " + this.toString());
@@ -585,26 +586,8 @@ public class ClusterMonitor extends Monitor {
                 getClusterInstanceContext(scalingEvent.getNetworkPartitionId(), instanceId);
 
 
-        // store primary members in the cluster instance context
-        List<String> primaryMemberListInClusterInstance = new ArrayList<String>();
-
-        for (ClusterLevelPartitionContext partitionContext : clusterInstanceContext.getPartitionCtxts()) {
-
-            // get active primary members in this cluster instance context
-            for (MemberContext memberContext : partitionContext.getActiveMembers()) {
-                if (isPrimaryMember(memberContext)) {
-                    primaryMemberListInClusterInstance.add(memberContext.getMemberId());
-                }
-            }
-
-            // get pending primary members in this cluster instance context
-            for (MemberContext memberContext : partitionContext.getPendingMembers()) {
-                if (isPrimaryMember(memberContext)) {
-                    primaryMemberListInClusterInstance.add(memberContext.getMemberId());
-                }
-            }
-        }
-
+        // snapshot of the active and pending primary members for this evaluation
+        List<String> primaryMemberListInClusterInstance = clusterInstanceContext.getPrimaryMembers();
 
         //TODO get min instance count from instance context
         float requiredInstanceCount = clusterInstanceContext.getMinInstanceCount() * scalingFactorBasedOnDependencies;
@@ -612,15 +595,13 @@ public class ClusterMonitor extends Monitor {
                 vmClusterContext.getAutoscalePolicy().getInstanceRoundingFactor());
         clusterInstanceContext.setRequiredInstanceCountBasedOnDependencies(roundedRequiredInstanceCount);
 
-        clusterInstanceContext.getDependentScaleCheckKnowledgeSession().setGlobal("clusterId", getClusterId());
-        clusterInstanceContext.getDependentScaleCheckKnowledgeSession().setGlobal("roundedRequiredInstanceCount", roundedRequiredInstanceCount);
-        clusterInstanceContext.getDependentScaleCheckKnowledgeSession().setGlobal("algorithmName", clusterInstanceContext.getPartitionAlgorithm());
-        clusterInstanceContext.getDependentScaleCheckKnowledgeSession().setGlobal("isPrimary", hasPrimary);
-        clusterInstanceContext.getDependentScaleCheckKnowledgeSession().setGlobal("primaryMembers", primaryMemberListInClusterInstance);
-        clusterInstanceContext.setDependentScaleCheckFactHandle(evaluate(
-                clusterInstanceContext.getDependentScaleCheckKnowledgeSession()
-                , clusterInstanceContext.getDependentScaleCheckFactHandle(), clusterInstanceContext));
-
+        ScalingDecisionParameters parameters = new ScalingDecisionParameters(new RuleTasksDelegator(),
+                getClusterId());
+        parameters.setRoundedRequiredInstanceCount(roundedRequiredInstanceCount);
+        parameters.setAlgorithmName(clusterInstanceContext.getPartitionAlgorithm());
+        parameters.setPrimary(hasPrimary);
+        parameters.setPrimaryMembers(primaryMemberListInClusterInstance);
+        getScalingDecisionEngine().evaluateDependentScaleCheck(clusterInstanceContext, parameters);
     }
 
     public void sendClusterScalingEvent(String networkPartitionId, String instanceId, float factor) {
@@ -1120,6 +1101,7 @@ public class ClusterMonitor extends Monitor {
                     + "[member] %s", memberId));
         }
         clusterLevelPartitionContext.movePendingMemberToActiveMembers(memberId);
+        ScalingTracer.getInstance().memberActivated(memberId);
         ServiceReferenceHolder.getInstance().getClusterStatusProcessorChain().process(
                 ClusterStatusActiveProcessor.class.getName(), clusterId, clusterInstanceId);
     }
@@ -1203,6 +1185,7 @@ public class ClusterMonitor extends Monitor {
                 networkPartitionId, clusterInstanceId);
         ClusterLevelPartitionContext clusterMonitorPartitionContext =
                 clusterLevelNetworkPartitionContext.getPartitionCtxt(partitionId);
+        ScalingTracer.getInstance().memberTerminated(memberId);
 
         if (clusterMonitorPartitionContext.removeTerminationPendingMember(memberId)) {
             if (log.isDebugEnabled()) {
@@ -40,7 +40,6 @@ import org.apache.stratos.autoscaler.monitor.events.builder.MonitorStatusEventBu
 import org.apache.stratos.autoscaler.pojo.policy.PolicyManager;
 import org.apache.stratos.autoscaler.pojo.policy.deployment.ApplicationPolicy;
 import org.apache.stratos.autoscaler.util.AutoscalerConstants;
-import org.apache.stratos.autoscaler.util.ServiceReferenceHolder;
 import org.apache.stratos.common.constants.StratosConstants;
 import org.apache.stratos.common.threading.StratosThreadPool;
 import org.apache.stratos.messaging.domain.application.Application;
@@ -345,8 +344,7 @@ public class ApplicationMonitor extends ParentComponentMonitor {
                     if (instance != null) {
                         if (isTerminating() || instance.getStatus() == ApplicationStatus.Terminating ||
                                 instance.getStatus() == ApplicationStatus.Terminated) {
-                            ServiceReferenceHolder.getInstance().getGroupStatusProcessorChain().process(id,
-                                    appId, instanceId);
+                            statusProcessor.requestProcessing(instanceId);
                         } else {
                             Monitor monitor = getMonitor(childId);
                             boolean active = false;
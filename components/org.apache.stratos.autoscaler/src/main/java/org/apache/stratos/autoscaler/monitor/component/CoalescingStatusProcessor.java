@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.monitor.component;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.util.AutoscalerConstants;
+import org.apache.stratos.common.threading.StratosThreadPool;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces status processing requests of the instances of a parent monitor. Child status events
+ * arriving within the processing window request the status of the same parent instance to be
+ * processed, the instances are processed once at the end of the window. Processing of a monitor
+ * is never run concurrently, instances are processed in the order they were first requested
+ * within a window and requests made while processing are processed in the next window. A window
+ * of zero processes each request immediately in the calling thread, as do requests which cannot
+ * wait for the window, such as when a child becomes inactive or is terminated.
+ */
+public class CoalescingStatusProcessor {
+
+    private static final Log log = LogFactory.getLog(CoalescingStatusProcessor.class);
+
+    private static volatile ScheduledExecutorService sharedScheduler;
+
+    private final String monitorId;
+    private final InstanceStatusProcessor processor;
+    private final ScheduledExecutorService scheduler;
+    private final long windowMillis;
+    private final Set<String> pendingInstanceIds;
+    private final AtomicLong requestCount;
+    private final AtomicLong processedCount;
+    private final Object processingLock = new Object();
+    private boolean scheduled;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /**
+     * Status processing of a parent instance.
+     */
+    public interface InstanceStatusProcessor {
+
+        void process(String instanceId);
+    }
+
+    public CoalescingStatusProcessor(String monitorId, InstanceStatusProcessor processor) {
+        this(monitorId, processor, getSharedScheduler(), Long.getLong(AutoscalerConstants.STATUS_PROCESSING_WINDOW,
+                AutoscalerConstants.DEFAULT_STATUS_PROCESSING_WINDOW));
+    }
+
+    CoalescingStatusProcessor(String monitorId, InstanceStatusProcessor processor,
+                              ScheduledExecutorService scheduler, long windowMillis) {
+        this.monitorId = monitorId;
+        this.processor = processor;
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+        this.pendingInstanceIds = new LinkedHashSet<String>();
+        this.requestCount = new AtomicLong();
+        this.processedCount = new AtomicLong();
+    }
+
+    private static ScheduledExecutorService getSharedScheduler() {
+        if (sharedScheduler == null) {
+            synchronized (CoalescingStatusProcessor.class) {
+                if (sharedScheduler == null) {
+                    sharedScheduler = StratosThreadPool.getScheduledExecutorService(
+                            AutoscalerConstants.STATUS_PROCESSING_SCHEDULER_ID,
+                            AutoscalerConstants.STATUS_PROCESSING_SCHEDULER_THREAD_POOL_SIZE);
+                }
+            }
+        }
+        return sharedScheduler;
+    }
+
+    /**
+     * Request the status of a parent instance to be processed at the end of the current window.
+     *
+     * @param instanceId id of the parent instance
+     */
+    public void requestProcessing(String instanceId) {
+        requestCount.incrementAndGet();
+        if (windowMillis <= 0) {
+            process(instanceId);
+            return;
+        }
+        synchronized (this) {
+            pendingInstanceIds.add(instanceId);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        scheduler.schedule(flushTask, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Process the status of a parent instance immediately in the calling thread, a pending request
+     * of the instance is fulfilled by this processing.
+     *
+     * @param instanceId id of the parent instance
+     */
+    public void processImmediately(String instanceId) {
+        requestCount.incrementAndGet();
+        synchronized (this) {
+            pendingInstanceIds.remove(instanceId);
+        }
+        process(instanceId);
+    }
+
+    private void flush() {
+        List<String> instanceIds;
+        synchronized (this) {
+            instanceIds = new ArrayList<String>(pendingInstanceIds);
+            pendingInstanceIds.clear();
+        }
+        if (log.isDebugEnabled() && !instanceIds.isEmpty()) {
+            log.debug(String.format("Processing coalesced status requests: [monitor] %s [instances] %s " +
+                    "[requests] %d [processed] %d", monitorId, instanceIds, requestCount.get(),
+                    processedCount.get()));
+        }
+        for (String instanceId : instanceIds) {
+            process(instanceId);
+        }
+        synchronized (this) {
+            if (pendingInstanceIds.isEmpty()) {
+                scheduled = false;
+                return;
+            }
+        }
+        // Requests made while processing
+        scheduler.schedule(flushTask, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void process(String instanceId) {
+        synchronized (processingLock) {
+            try {
+                processor.process(instanceId);
+            } catch (Exception e) {
+                log.error(String.format("Could not process status: [monitor] %s [instance] %s", monitorId,
+                        instanceId), e);
+            } finally {
+                processedCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of processing requests made.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the number of times an instance status was processed.
+     */
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+}
@@ -39,7 +39,6 @@ import org.apache.stratos.autoscaler.pojo.policy.PolicyManager;
 import org.apache.stratos.autoscaler.pojo.policy.deployment.DeploymentPolicy;
 import org.apache.stratos.autoscaler.util.AutoscalerConstants;
 import org.apache.stratos.autoscaler.util.AutoscalerUtil;
-import org.apache.stratos.autoscaler.util.ServiceReferenceHolder;
 import org.apache.stratos.common.partition.NetworkPartitionRef;
 import org.apache.stratos.common.partition.PartitionRef;
 import org.apache.stratos.common.threading.StratosThreadPool;
@@ -520,8 +519,7 @@ public class GroupMonitor extends ParentComponentMonitor {
 
             if (instance.getStatus() == GroupStatus.Terminating ||
                     instance.getStatus() == GroupStatus.Terminated) {
-                ServiceReferenceHolder.getInstance().getGroupStatusProcessorChain().process(id,
-                        appId, instanceId);
+                statusProcessor.requestProcessing(instanceId);
             } else {
                 //Checking whether the child who notified is still active.
                 // If it is active(scale down case), no need to act upon it.
@@ -88,6 +88,8 @@ public abstract class ParentComponentMonitor extends Monitor {
     private ScheduledFuture<?> schedulerFuture;
     //Executor service to maintain the thread pool
     private ExecutorService executorService;
+    // Coalesces status processing of parent instances upon child status changes
+    protected final CoalescingStatusProcessor statusProcessor;
 
     public ParentComponentMonitor(ParentComponent component) throws DependencyBuilderException {
         aliasToActiveChildMonitorsMap = new ConcurrentHashMap<String, Monitor>();
@@ -112,6 +114,14 @@ public abstract class ParentComponentMonitor extends Monitor {
         executorService = StratosThreadPool.getExecutorService(AutoscalerConstants.AUTOSCALER_THREAD_POOL_ID,
                 AutoscalerConstants.AUTOSCALER_THREAD_POOL_SIZE);
         networkPartitionContextsMap = new ConcurrentHashMap<String, NetworkPartitionContext>();
+        statusProcessor = new CoalescingStatusProcessor(id,
+                new CoalescingStatusProcessor.InstanceStatusProcessor() {
+                    @Override
+                    public void process(String instanceId) {
+                        ServiceReferenceHolder.getInstance().getGroupStatusProcessorChain().
+                                process(ParentComponentMonitor.this.id, appId, instanceId);
+                    }
+                });
     }
 
     /**
@@ -385,10 +395,10 @@ public abstract class ParentComponentMonitor extends Monitor {
 
         }
 
-        //Checking whether all the monitors got created
+        //Checking whether all the monitors got created, the status is processed once for the
+        // children activated within the processing window
         if (!startDep) {
-            ServiceReferenceHolder.getInstance().getGroupStatusProcessorChain().
-                    process(this.id, this.appId, instanceId);
+            statusProcessor.requestProcessing(instanceId);
         } else {
             log.info("started a child upon activation of " + childId +
                     " for [application] " + appId + " [" + getMonitorType() + "] " + id);
@@ -407,9 +417,9 @@ public abstract class ParentComponentMonitor extends Monitor {
         List<ApplicationChildContext> terminationList;
         terminationList = this.startupDependencyTree.getTerminationDependencies(childId);
 
-        //Need to notify the parent about the status  change from Active-->Inactive
-        ServiceReferenceHolder.getInstance().getGroupStatusProcessorChain().
-                process(id, appId, instanceId);
+        //Need to notify the parent about the status  change from Active-->Inactive, processed
+        // immediately since the termination behavior below depends on it
+        statusProcessor.processImmediately(instanceId);
 
         /**
          * Since it is reached the most independent unit and has few independent monitors,
@@ -519,8 +529,7 @@ public abstract class ParentComponentMonitor extends Monitor {
             //Starting the dependency sibling upon termination of most in-dependent sibling
             this.startDependencyOnTermination(instanceId);
         } else {
-            ServiceReferenceHolder.getInstance().getGroupStatusProcessorChain().
-                    process(id, appId, instanceId);
+            statusProcessor.processImmediately(instanceId);
             log.info("Checking the status of [group/application] as no dependent found for " +
                     "[application] " + appId + " [group] " + id + " [instance] " + instanceId);
         }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.pojo;
+
+import java.io.Serializable;
+
+/**
+ * Member spawned by a scaling decision.
+ */
+public class ScalingDecisionMember implements Serializable {
+
+    private static final long serialVersionUID = 6718802215380196554L;
+
+    private String memberId;
+    private String partitionId;
+    private String scalingReason;
+    private long spawnRequestTime;
+    private long spawnResponseTime;
+    private long memberActivatedTime;
+
+    public String getMemberId() {
+        return memberId;
+    }
+
+    public void setMemberId(String memberId) {
+        this.memberId = memberId;
+    }
+
+    public String getPartitionId() {
+        return partitionId;
+    }
+
+    public void setPartitionId(String partitionId) {
+        this.partitionId = partitionId;
+    }
+
+    public String getScalingReason() {
+        return scalingReason;
+    }
+
+    public void setScalingReason(String scalingReason) {
+        this.scalingReason = scalingReason;
+    }
+
+    public long getSpawnRequestTime() {
+        return spawnRequestTime;
+    }
+
+    public void setSpawnRequestTime(long spawnRequestTime) {
+        this.spawnRequestTime = spawnRequestTime;
+    }
+
+    public long getSpawnResponseTime() {
+        return spawnResponseTime;
+    }
+
+    public void setSpawnResponseTime(long spawnResponseTime) {
+        this.spawnResponseTime = spawnResponseTime;
+    }
+
+    public long getMemberActivatedTime() {
+        return memberActivatedTime;
+    }
+
+    public void setMemberActivatedTime(long memberActivatedTime) {
+        this.memberActivatedTime = memberActivatedTime;
+    }
+}
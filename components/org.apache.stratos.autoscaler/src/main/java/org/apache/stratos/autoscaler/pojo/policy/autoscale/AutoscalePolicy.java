@@ -35,6 +35,8 @@ public class AutoscalePolicy implements Serializable {
     private boolean isPublic;
     private int tenantId;
     private float instanceRoundingFactor;
+    private String scalingDecisionEngine;
+    private String predictor;
 
 
     public String getId() {
@@ -170,4 +172,30 @@ public class AutoscalePolicy implements Serializable {
     public void setInstanceRoundingFactor(float instanceRoundingFactor) {
         this.instanceRoundingFactor = instanceRoundingFactor;
     }
+
+    /**
+     * Gets the scaling decision engine of the policy, drools or java.
+     *
+     * @return engine name, null if not set
+     */
+    public String getScalingDecisionEngine() {
+        return scalingDecisionEngine;
+    }
+
+    public void setScalingDecisionEngine(String scalingDecisionEngine) {
+        this.scalingDecisionEngine = scalingDecisionEngine;
+    }
+
+    /**
+     * Gets the predictor of the policy, linear-regression, holt or seasonal.
+     *
+     * @return predictor name, null if statistics published by CEP are used for predictions
+     */
+    public String getPredictor() {
+        return predictor;
+    }
+
+    public void setPredictor(String predictor) {
+        this.predictor = predictor;
+    }
 }
@@ -21,7 +21,9 @@ package org.apache.stratos.autoscaler.rule;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.util.AutoscalerConstants;
 import org.apache.stratos.common.constants.StratosConstants;
+import org.apache.stratos.common.threading.StratosThreadPool;
 import org.drools.KnowledgeBase;
 import org.drools.KnowledgeBaseFactory;
 import org.drools.builder.*;
@@ -31,8 +33,11 @@ import org.drools.runtime.StatefulKnowledgeSession;
 import org.wso2.carbon.utils.CarbonUtils;
 
 import java.io.File;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is responsible for evaluating the current details of topology, statistics, and health
@@ -42,34 +47,59 @@ public class AutoscalerRuleEvaluator {
 
     private static final Log log = LogFactory.getLog(AutoscalerRuleEvaluator.class);
     private static volatile AutoscalerRuleEvaluator instance;
-    private Map<String, KnowledgeBase> knowledgeBases;
+    private final Map<String, KnowledgeBase> knowledgeBases;
+    private final Map<String, KnowledgeSessionPool> sessionPools;
+    private final Map<String, Long> ruleFileModifiedTimes;
+    private final String droolsDir;
+    private final int sessionPoolSize;
+    private ScheduledFuture<?> ruleFileWatcher;
 
     private AutoscalerRuleEvaluator() {
-        knowledgeBases = new HashMap<String, KnowledgeBase>();
+        this(CarbonUtils.getCarbonConfigDirPath() + File.separator + StratosConstants.DROOLS_DIR_NAME,
+                Integer.getInteger(AutoscalerConstants.DROOLS_SESSION_POOL_SIZE, 0));
+    }
+
+    AutoscalerRuleEvaluator(String droolsDir) {
+        this(droolsDir, 0);
+    }
+
+    /**
+     * @param droolsDir       directory of the rule files
+     * @param sessionPoolSize maximum number of sessions pooled per rule file, 0 to let each
+     *                        cluster instance own its sessions
+     */
+    AutoscalerRuleEvaluator(String droolsDir, int sessionPoolSize) {
+        this.droolsDir = droolsDir;
+        this.sessionPoolSize = sessionPoolSize;
+        knowledgeBases = new ConcurrentHashMap<String, KnowledgeBase>();
+        sessionPools = new ConcurrentHashMap<String, KnowledgeSessionPool>();
+        ruleFileModifiedTimes = new ConcurrentHashMap<String, Long>();
         parseAndBuildKnowledgeBaseForDroolsFile(StratosConstants.OBSOLETE_CHECK_DROOL_FILE);
         parseAndBuildKnowledgeBaseForDroolsFile(StratosConstants.SCALE_CHECK_DROOL_FILE);
         parseAndBuildKnowledgeBaseForDroolsFile(StratosConstants.MIN_CHECK_DROOL_FILE);
         parseAndBuildKnowledgeBaseForDroolsFile(StratosConstants.MAX_CHECK_DROOL_FILE);
         parseAndBuildKnowledgeBaseForDroolsFile(StratosConstants.DEPENDENT_SCALE_CHECK_DROOL_FILE);
-
-
+        if (sessionPoolSize > 0) {
+            log.info(String.format("Drools sessions are pooled: [max-sessions-per-rule-file] %d", sessionPoolSize));
+        }
     }
 
     public static AutoscalerRuleEvaluator getInstance() {
         if (instance == null) {
             synchronized (AutoscalerRuleEvaluator.class) {
                 if (instance == null) {
-                    instance = new AutoscalerRuleEvaluator();
+                    AutoscalerRuleEvaluator ruleEvaluator = new AutoscalerRuleEvaluator();
+                    ruleEvaluator.startRuleFileWatcher(Long.getLong(AutoscalerConstants.DROOLS_RULE_RELOAD_INTERVAL,
+                            AutoscalerConstants.DEFAULT_DROOLS_RULE_RELOAD_INTERVAL));
+                    instance = ruleEvaluator;
                 }
             }
         }
         return instance;
     }
 
-    private static KnowledgeBase readKnowledgeBase(String drlFileName) {
+    private static KnowledgeBase readKnowledgeBase(String droolsDir, String drlFileName) {
         KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
-        String configDir = CarbonUtils.getCarbonConfigDirPath();
-        String droolsDir = configDir + File.separator + StratosConstants.DROOLS_DIR_NAME;
         Resource resource = ResourceFactory.newFileResource(droolsDir + File.separator + drlFileName);
         kbuilder.add(resource, ResourceType.DRL);
         KnowledgeBuilderErrors errors = kbuilder.getErrors();
@@ -85,12 +115,21 @@ public class AutoscalerRuleEvaluator {
     }
 
     public void parseAndBuildKnowledgeBaseForDroolsFile(String drlFileName) {
-        KnowledgeBase knowledgeBase = readKnowledgeBase(drlFileName);
+        // Modified time is taken before reading to detect changes made while reading
+        ruleFileModifiedTimes.put(drlFileName, new File(droolsDir, drlFileName).lastModified());
+        KnowledgeBase knowledgeBase = readKnowledgeBase(droolsDir, drlFileName);
         if (knowledgeBase == null) {
             log.error("Knowledge base couldn't be read for" +
                     " [drool-file] " + drlFileName);
         } else {
             knowledgeBases.put(drlFileName, knowledgeBase);
+            if (sessionPoolSize > 0) {
+                KnowledgeSessionPool previousPool = sessionPools.put(drlFileName,
+                        new KnowledgeSessionPool(drlFileName, knowledgeBase, sessionPoolSize));
+                if (previousPool != null) {
+                    previousPool.close();
+                }
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Drools file is parsed successfully:" +
                         " [ file-name] " + drlFileName);
@@ -98,10 +137,79 @@ public class AutoscalerRuleEvaluator {
         }
     }
 
+    /**
+     * Rebuild the knowledge bases of rule files modified since they were last read. Sessions
+     * created from a previous knowledge base are replaced by the drools scaling decision engine
+     * on their next evaluation. A rule file which could not be parsed is not applied until it is
+     * modified again.
+     *
+     * @return number of rule files reloaded
+     */
+    public int reloadModifiedRuleFiles() {
+        int reloadedCount = 0;
+        for (Map.Entry<String, Long> entry : ruleFileModifiedTimes.entrySet()) {
+            String drlFileName = entry.getKey();
+            long modifiedTime = new File(droolsDir, drlFileName).lastModified();
+            if (modifiedTime == 0 || modifiedTime == entry.getValue()) {
+                continue;
+            }
+            log.info(String.format("Drools file is modified, reloading: [drool-file] %s", drlFileName));
+            try {
+                parseAndBuildKnowledgeBaseForDroolsFile(drlFileName);
+                reloadedCount++;
+                log.info(String.format("Drools file reloaded successfully: [drool-file] %s", drlFileName));
+            } catch (Exception e) {
+                log.error(String.format("Could not reload drools file, continuing with the previous rules: " +
+                        "[drool-file] %s", drlFileName), e);
+            }
+        }
+        return reloadedCount;
+    }
+
+    private synchronized void startRuleFileWatcher(long interval) {
+        if ((interval <= 0) || (ruleFileWatcher != null)) {
+            return;
+        }
+        ScheduledExecutorService scheduler = StratosThreadPool.getScheduledExecutorService(
+                AutoscalerConstants.DROOLS_RULE_RELOAD_SCHEDULER_ID, 1);
+        ruleFileWatcher = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reloadModifiedRuleFiles();
+                } catch (Exception e) {
+                    log.error("Could not check drools files for modifications", e);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Drools file watcher started: [directory] %s [interval] %d ms",
+                    droolsDir, interval));
+        }
+    }
+
     public StatefulKnowledgeSession getStatefulSession(String drlFileName) {
         StatefulKnowledgeSession ksession;
         ksession = knowledgeBases.get(drlFileName).newStatefulKnowledgeSession();
         ksession.setGlobal("log", RuleLog.getInstance());
         return ksession;
     }
+
+    /**
+     * Returns the current knowledge base of a rule file.
+     */
+    public KnowledgeBase getKnowledgeBase(String drlFileName) {
+        return knowledgeBases.get(drlFileName);
+    }
+
+    public boolean isSessionPoolEnabled() {
+        return sessionPoolSize > 0;
+    }
+
+    /**
+     * Returns the session pool of a rule file, null if sessions are not pooled.
+     */
+    public KnowledgeSessionPool getSessionPool(String drlFileName) {
+        return sessionPools.get(drlFileName);
+    }
 }
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.rule;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.context.cluster.ClusterInstanceContext;
+import org.apache.stratos.autoscaler.context.partition.ClusterLevelPartitionContext;
+import org.apache.stratos.common.constants.StratosConstants;
+import org.drools.KnowledgeBase;
+import org.drools.runtime.StatefulKnowledgeSession;
+import org.drools.runtime.rule.FactHandle;
+
+/**
+ * Scaling decision engine evaluating the Drools rule files. Unless the rule evaluator pools
+ * sessions, each cluster instance keeps a stateful session per rule file, sessions are created
+ * when the cluster instance is first evaluated and replaced when the rule file is reloaded. With
+ * pooled sessions the fact is inserted for a single evaluation and retracted afterwards.
+ */
+public class DroolsScalingDecisionEngine implements ScalingDecisionEngine {
+
+    private static final Log log = LogFactory.getLog(DroolsScalingDecisionEngine.class);
+
+    private static final InstanceSessionAccessor MIN_CHECK_SESSION = new InstanceSessionAccessor() {
+        @Override
+        StatefulKnowledgeSession getSession(ClusterInstanceContext context) {
+            return context.getMinCheckKnowledgeSession();
+        }
+
+        @Override
+        void setSession(ClusterInstanceContext context, StatefulKnowledgeSession ksession) {
+            context.setMinCheckKnowledgeSession(ksession);
+        }
+
+        @Override
+        FactHandle getFactHandle(ClusterInstanceContext context) {
+            return context.getMinCheckFactHandle();
+        }
+
+        @Override
+        void setFactHandle(ClusterInstanceContext context, FactHandle handle) {
+            context.setMinCheckFactHandle(handle);
+        }
+    };
+
+    private static final InstanceSessionAccessor MAX_CHECK_SESSION = new InstanceSessionAccessor() {
+        @Override
+        StatefulKnowledgeSession getSession(ClusterInstanceContext context) {
+            return context.getMaxCheckKnowledgeSession();
+        }
+
+        @Override
+        void setSession(ClusterInstanceContext context, StatefulKnowledgeSession ksession) {
+            context.setMaxCheckKnowledgeSession(ksession);
+        }
+
+        @Override
+        FactHandle getFactHandle(ClusterInstanceContext context) {
+            return context.getMaxCheckFactHandle();
+        }
+
+        @Override
+        void setFactHandle(ClusterInstanceContext context, FactHandle handle) {
+            context.setMaxCheckFactHandle(handle);
+        }
+    };
+
+    private static final InstanceSessionAccessor SCALE_CHECK_SESSION = new InstanceSessionAccessor() {
+        @Override
+        StatefulKnowledgeSession getSession(ClusterInstanceContext context) {
+            return context.getScaleCheckKnowledgeSession();
+        }
+
+        @Override
+        void setSession(ClusterInstanceContext context, StatefulKnowledgeSession ksession) {
+            context.setScaleCheckKnowledgeSession(ksession);
+        }
+
+        @Override
+        FactHandle getFactHandle(ClusterInstanceContext context) {
+            return context.getScaleCheckFactHandle();
+        }
+
+        @Override
+        void setFactHandle(ClusterInstanceContext context, FactHandle handle) {
+            context.setScaleCheckFactHandle(handle);
+        }
+    };
+
+    private static final InstanceSessionAccessor DEPENDENT_SCALE_CHECK_SESSION = new InstanceSessionAccessor() {
+        @Override
+        StatefulKnowledgeSession getSession(ClusterInstanceContext context) {
+            return context.getDependentScaleCheckKnowledgeSession();
+        }
+
+        @Override
+        void setSession(ClusterInstanceContext context, StatefulKnowledgeSession ksession) {
+            context.setDependentScaleCheckKnowledgeSession(ksession);
+        }
+
+        @Override
+        FactHandle getFactHandle(ClusterInstanceContext context) {
+            return context.getDependentScaleCheckFactHandle();
+        }
+
+        @Override
+        void setFactHandle(ClusterInstanceContext context, FactHandle handle) {
+            context.setDependentScaleCheckFactHandle(handle);
+        }
+    };
+
+    private static final InstanceSessionAccessor OBSOLETE_CHECK_SESSION = new InstanceSessionAccessor() {
+        @Override
+        StatefulKnowledgeSession getSession(ClusterInstanceContext context) {
+            return context.getObsoleteCheckKnowledgeSession();
+        }
+
+        @Override
+        void setSession(ClusterInstanceContext context, StatefulKnowledgeSession ksession) {
+            context.setObsoleteCheckKnowledgeSession(ksession);
+        }
+
+        @Override
+        FactHandle getFactHandle(ClusterInstanceContext context) {
+            return context.getObsoleteCheckFactHandle();
+        }
+
+        @Override
+        void setFactHandle(ClusterInstanceContext context, FactHandle handle) {
+            context.setObsoleteCheckFactHandle(handle);
+        }
+    };
+
+    private final AutoscalerRuleEvaluator ruleEvaluator;
+
+    public DroolsScalingDecisionEngine(AutoscalerRuleEvaluator ruleEvaluator) {
+        this.ruleEvaluator = ruleEvaluator;
+    }
+
+    @Override
+    public void evaluateMinCheck(ClusterInstanceContext clusterInstanceContext, ScalingDecisionParameters parameters) {
+        evaluate(StratosConstants.MIN_CHECK_DROOL_FILE, MIN_CHECK_SESSION, clusterInstanceContext,
+                clusterInstanceContext, parameters);
+    }
+
+    @Override
+    public void evaluateMaxCheck(ClusterInstanceContext clusterInstanceContext, ScalingDecisionParameters parameters) {
+        evaluate(StratosConstants.MAX_CHECK_DROOL_FILE, MAX_CHECK_SESSION, clusterInstanceContext,
+                clusterInstanceContext, parameters);
+    }
+
+    @Override
+    public void evaluateScaleCheck(ClusterInstanceContext clusterInstanceContext, ScalingDecisionParameters parameters) {
+        evaluate(StratosConstants.SCALE_CHECK_DROOL_FILE, SCALE_CHECK_SESSION, clusterInstanceContext,
+                clusterInstanceContext, parameters);
+    }
+
+    @Override
+    public void evaluateDependentScaleCheck(ClusterInstanceContext clusterInstanceContext,
+                                            ScalingDecisionParameters parameters) {
+        evaluate(StratosConstants.DEPENDENT_SCALE_CHECK_DROOL_FILE, DEPENDENT_SCALE_CHECK_SESSION,
+                clusterInstanceContext, clusterInstanceContext, parameters);
+    }
+
+    @Override
+    public void evaluateObsoleteCheck(ClusterInstanceContext clusterInstanceContext,
+                                      ClusterLevelPartitionContext partitionContext,
+                                      ScalingDecisionParameters parameters) {
+        evaluate(StratosConstants.OBSOLETE_CHECK_DROOL_FILE, OBSOLETE_CHECK_SESSION, clusterInstanceContext,
+                partitionContext, parameters);
+    }
+
+    private void evaluate(String drlFileName, InstanceSessionAccessor sessionAccessor,
+                          ClusterInstanceContext clusterInstanceContext, Object obj,
+                          ScalingDecisionParameters parameters) {
+        if (ruleEvaluator.isSessionPoolEnabled()) {
+            evaluateWithPooledSession(drlFileName, obj, parameters);
+            return;
+        }
+
+        StatefulKnowledgeSession ksession;
+        synchronized (clusterInstanceContext) {
+            ksession = sessionAccessor.getSession(clusterInstanceContext);
+            KnowledgeBase knowledgeBase = ruleEvaluator.getKnowledgeBase(drlFileName);
+            if ((ksession != null) && (ksession.getKnowledgeBase() != knowledgeBase)) {
+                // Rule file was reloaded, the previous session is not disposed since partitions of
+                // the cluster instance may still be evaluated using it
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Replacing drools session of reloaded rule file: [drool-file] %s " +
+                            "[cluster-instance] %s", drlFileName, clusterInstanceContext.getId()));
+                }
+                sessionAccessor.setFactHandle(clusterInstanceContext, null);
+                ksession = null;
+            }
+            if (ksession == null) {
+                ksession = ruleEvaluator.getStatefulSession(drlFileName);
+                sessionAccessor.setSession(clusterInstanceContext, ksession);
+            }
+        }
+        // Partitions of a cluster instance are evaluated in parallel using the same session
+        synchronized (ksession) {
+            setGlobals(drlFileName, ksession, parameters);
+            FactHandle handle = sessionAccessor.getFactHandle(clusterInstanceContext);
+            if (handle == null) {
+                handle = ksession.insert(obj);
+            } else {
+                ksession.update(handle, obj);
+            }
+            sessionAccessor.setFactHandle(clusterInstanceContext, handle);
+            fireAllRules(ksession, obj);
+        }
+    }
+
+    private void evaluateWithPooledSession(String drlFileName, Object obj, ScalingDecisionParameters parameters) {
+        KnowledgeSessionPool sessionPool;
+        StatefulKnowledgeSession ksession;
+        do {
+            // Pool is replaced when the rule file is reloaded
+            sessionPool = ruleEvaluator.getSessionPool(drlFileName);
+            ksession = sessionPool.borrowSession();
+        } while (ksession == null);
+
+        try {
+            setGlobals(drlFileName, ksession, parameters);
+            FactHandle handle = ksession.insert(obj);
+            try {
+                fireAllRules(ksession, obj);
+            } finally {
+                ksession.retract(handle);
+            }
+        } finally {
+            sessionPool.returnSession(ksession);
+        }
+    }
+
+    private void setGlobals(String drlFileName, StatefulKnowledgeSession ksession,
+                            ScalingDecisionParameters parameters) {
+        ksession.setGlobal("clusterId", parameters.getClusterId());
+        ksession.setGlobal("delegator", parameters.getDelegator());
+        if (StratosConstants.MIN_CHECK_DROOL_FILE.equals(drlFileName)) {
+            ksession.setGlobal("primaryMemberCount", parameters.getPrimaryMemberCount());
+            ksession.setGlobal("isPrimary", parameters.isPrimary());
+            ksession.setGlobal("algorithmName", parameters.getAlgorithmName());
+        } else if (StratosConstants.MAX_CHECK_DROOL_FILE.equals(drlFileName)) {
+            ksession.setGlobal("primaryMemberCount", parameters.getPrimaryMemberCount());
+            ksession.setGlobal("isPrimary", parameters.isPrimary());
+            ksession.setGlobal("primaryMembers", parameters.getPrimaryMembers());
+        } else if (StratosConstants.SCALE_CHECK_DROOL_FILE.equals(drlFileName)) {
+            ksession.setGlobal("applicationId", parameters.getApplicationId());
+            ksession.setGlobal("rifReset", parameters.isRifReset());
+            ksession.setGlobal("mcReset", parameters.isMcReset());
+            ksession.setGlobal("laReset", parameters.isLaReset());
+            ksession.setGlobal("isPrimary", parameters.isPrimary());
+            ksession.setGlobal("algorithmName", parameters.getAlgorithmName());
+            ksession.setGlobal("autoscalePolicy", parameters.getAutoscalePolicy());
+            ksession.setGlobal("arspiReset", parameters.isArspiReset());
+            ksession.setGlobal("primaryMembers", parameters.getPrimaryMembers());
+        } else if (StratosConstants.DEPENDENT_SCALE_CHECK_DROOL_FILE.equals(drlFileName)) {
+            ksession.setGlobal("roundedRequiredInstanceCount", parameters.getRoundedRequiredInstanceCount());
+            ksession.setGlobal("algorithmName", parameters.getAlgorithmName());
+            ksession.setGlobal("isPrimary", parameters.isPrimary());
+            ksession.setGlobal("primaryMembers", parameters.getPrimaryMembers());
+        }
+    }
+
+    private void fireAllRules(StatefulKnowledgeSession ksession, Object obj) {
+        ksession.fireAllRules();
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Rule executed for: %s ", obj));
+        }
+    }
+
+    /**
+     * Accessor of the session and fact handle of a rule file kept in the cluster instance context.
+     */
+    private static abstract class InstanceSessionAccessor {
+
+        abstract StatefulKnowledgeSession getSession(ClusterInstanceContext context);
+
+        abstract void setSession(ClusterInstanceContext context, StatefulKnowledgeSession ksession);
+
+        abstract FactHandle getFactHandle(ClusterInstanceContext context);
+
+        abstract void setFactHandle(ClusterInstanceContext context, FactHandle handle);
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.rule;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.algorithms.PartitionAlgorithm;
+import org.apache.stratos.autoscaler.context.cluster.ClusterInstanceContext;
+import org.apache.stratos.autoscaler.context.member.MemberStatsContext;
+import org.apache.stratos.autoscaler.context.partition.ClusterLevelPartitionContext;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.LoadAverage;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.LoadThresholds;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.MemoryConsumption;
+import org.apache.stratos.cloud.controller.stub.domain.MemberContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scaling decision engine making the decisions of mincheck.drl, maxcheck.drl, scaling.drl,
+ * dependent-scaling.drl and obsoletecheck.drl in plain Java. It does not keep any state per
+ * cluster instance.
+ */
+public class JavaScalingDecisionEngine implements ScalingDecisionEngine {
+
+    private static final Log log = LogFactory.getLog(JavaScalingDecisionEngine.class);
+
+    @Override
+    public void evaluateMinCheck(ClusterInstanceContext clusterInstanceContext, ScalingDecisionParameters parameters) {
+        RuleTasksDelegator delegator = parameters.getDelegator();
+        String clusterId = parameters.getClusterId();
+        PartitionAlgorithm partitionAlgorithm = delegator.getPartitionAlgorithm(parameters.getAlgorithmName());
+        if (partitionAlgorithm == null) {
+            return;
+        }
+        boolean isPrimary = parameters.isPrimary();
+        int primaryMemberCount = parameters.getPrimaryMemberCount();
+        int minInstanceCount = clusterInstanceContext.getMinInstanceCount();
+        int nonTerminatedMemberCount = clusterInstanceContext.getNonTerminatedMemberCount();
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("[min-check] [network-partition] %s [cluster-instance] %s [cluster] %s " +
+                            "[non-terminated-members] %d [min] %d", clusterInstanceContext.getNetworkPartitionId(),
+                    clusterInstanceContext.getId(), clusterId, nonTerminatedMemberCount, minInstanceCount));
+        }
+        if (!((isPrimary && (primaryMemberCount < minInstanceCount)) ||
+                (!isPrimary && (nonTerminatedMemberCount < minInstanceCount)))) {
+            return;
+        }
+
+        int additionalInstances = isPrimary ? minInstanceCount - primaryMemberCount :
+                minInstanceCount - nonTerminatedMemberCount;
+        int count = 0;
+        boolean partitionsAvailable = true;
+        while (count != additionalInstances && partitionsAvailable) {
+            ClusterLevelPartitionContext partitionContext = (ClusterLevelPartitionContext) partitionAlgorithm.
+                    getNextScaleUpPartitionContext(clusterInstanceContext.getPartitionCtxtsAsAnArray());
+            if (partitionContext != null) {
+                log.info(String.format("[min-check] Partition available, hence trying to spawn an instance to " +
+                        "fulfil minimum count: [cluster] %s [partition] %s", clusterId,
+                        partitionContext.getPartitionId()));
+                String scalingReason = "Scaling up to fulfil minimum count, [Cluster Min Members] " +
+                        minInstanceCount + " [Additional instances to be created] " + additionalInstances;
+                delegator.delegateSpawn(partitionContext, clusterId, clusterInstanceContext.getId(), isPrimary,
+                        scalingReason, System.currentTimeMillis());
+                count++;
+            } else {
+                partitionsAvailable = false;
+            }
+        }
+    }
+
+    @Override
+    public void evaluateMaxCheck(ClusterInstanceContext clusterInstanceContext, ScalingDecisionParameters parameters) {
+        RuleTasksDelegator delegator = parameters.getDelegator();
+        List<String> primaryMembers = parameters.getPrimaryMembers();
+        for (ClusterLevelPartitionContext partitionContext : clusterInstanceContext.getPartitionCtxtsAsAnArray()) {
+            if (partitionContext.isObsoletePartition()) {
+                continue;
+            }
+            int activeInstanceCount = partitionContext.getActiveInstanceCount();
+            int max = partitionContext.getMax();
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("[max-check] [cluster] %s [partition] %s [active-members] %d [max] %d",
+                        parameters.getClusterId(), partitionContext.getPartitionId(), activeInstanceCount, max));
+            }
+            int membersToTerminate = activeInstanceCount - max;
+            while (membersToTerminate > 0) {
+                MemberStatsContext selectedMemberStatsContext = null;
+                for (MemberStatsContext memberStatsContext : partitionContext.getMemberStatsContexts().values()) {
+                    if (!primaryMembers.contains(memberStatsContext.getMemberId())) {
+                        selectedMemberStatsContext = memberStatsContext;
+                    }
+                }
+                if (selectedMemberStatsContext == null) {
+                    // Only primary members are left, these are not terminated to keep to max
+                    break;
+                }
+                log.info(String.format("[max-check] Trying to terminate an instance to keep to max: " +
+                                "[cluster] %s [partition] %s [member] %s", parameters.getClusterId(),
+                        partitionContext.getPartitionId(), selectedMemberStatsContext.getMemberId()));
+                membersToTerminate--;
+                delegator.delegateTerminate(partitionContext, selectedMemberStatsContext.getMemberId());
+            }
+        }
+    }
+
+    @Override
+    public void evaluateScaleCheck(ClusterInstanceContext clusterInstanceContext, ScalingDecisionParameters parameters) {
+        RuleTasksDelegator delegator = parameters.getDelegator();
+        String clusterId = parameters.getClusterId();
+        LoadThresholds loadThresholds = parameters.getAutoscalePolicy().getLoadThresholds();
+        PartitionAlgorithm partitionAlgorithm = delegator.getPartitionAlgorithm(parameters.getAlgorithmName());
+        if (loadThresholds == null || partitionAlgorithm == null) {
+            return;
+        }
+
+        float rifThreshold = loadThresholds.getRequestsInFlightThreshold();
+        double rifPredictedValue = delegator.getRequestsInFlightPredictedValue(clusterInstanceContext);
+        float mcThreshold = loadThresholds.getMemoryConsumptionThreshold();
+        double mcPredictedValue = delegator.getMemoryConsumptionPredictedValue(clusterInstanceContext);
+        float laThreshold = loadThresholds.getLoadAverageThreshold();
+        double laPredictedValue = delegator.getLoadAveragePredictedValue(clusterInstanceContext);
+
+        int activeInstancesCount = clusterInstanceContext.getActiveMemberCount();
+        int maxInstancesCount = clusterInstanceContext.getMaxInstanceCount();
+        int minInstancesCount = clusterInstanceContext.getMinInstanceCount();
+
+        int numberOfInstancesRequiredBasedOnRif = delegator.getNumberOfInstancesRequiredBasedOnRif(
+                (float) rifPredictedValue, rifThreshold);
+        int numberOfInstancesRequiredBasedOnMemoryConsumption = delegator.
+                getNumberOfInstancesRequiredBasedOnMemoryConsumption(mcThreshold, mcPredictedValue,
+                        minInstancesCount, maxInstancesCount);
+        int numberOfInstancesRequiredBasedOnLoadAverage = delegator.getNumberOfInstancesRequiredBasedOnLoadAverage(
+                laThreshold, laPredictedValue, minInstancesCount);
+        int numberOfRequiredInstances = delegator.getMaxNumberOfInstancesRequired(
+                numberOfInstancesRequiredBasedOnRif, numberOfInstancesRequiredBasedOnMemoryConsumption,
+                parameters.isMcReset(), numberOfInstancesRequiredBasedOnLoadAverage, parameters.isLaReset());
+
+        boolean scaleUp = activeInstancesCount < numberOfRequiredInstances;
+        boolean scaleDown = activeInstancesCount > numberOfRequiredInstances ||
+                (numberOfRequiredInstances == 1 && activeInstancesCount == 1);
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("[scaling] [cluster] %s [rif-predicted] %s [rif-threshold] %s " +
+                            "[mc-predicted] %s [mc-threshold] %s [la-predicted] %s [la-threshold] %s " +
+                            "[required-instances] %d [active-instances] %d [scale-up] %s [scale-down] %s",
+                    clusterId, rifPredictedValue, rifThreshold, mcPredictedValue, mcThreshold, laPredictedValue,
+                    laThreshold, numberOfRequiredInstances, activeInstancesCount, scaleUp, scaleDown));
+        }
+
+        int nonTerminatedMembers = clusterInstanceContext.getNonTerminatedMemberCount();
+        if (scaleUp) {
+            int clusterMaxMembers = clusterInstanceContext.getMaxInstanceCount();
+            if (nonTerminatedMembers < clusterMaxMembers) {
+                int additionalInstances;
+                if (clusterMaxMembers < numberOfRequiredInstances) {
+                    additionalInstances = clusterMaxMembers - nonTerminatedMembers;
+                    log.info(String.format("[scale-up] Required member count based on stat based scaling is " +
+                                    "higher than max, hence notifying to parent for possible group scaling or " +
+                                    "app bursting: [cluster] %s [instance-id] %s [max] %d [required] %d",
+                            clusterId, clusterInstanceContext.getId(), clusterMaxMembers, numberOfRequiredInstances));
+                    delegator.delegateScalingOverMaxNotification(clusterId,
+                            clusterInstanceContext.getNetworkPartitionId(), clusterInstanceContext.getId());
+                } else {
+                    additionalInstances = numberOfRequiredInstances - nonTerminatedMembers;
+                }
+
+                clusterInstanceContext.resetScaleDownRequestsCount();
+
+                if (clusterInstanceContext.hasScalingDependants()) {
+                    delegator.delegateScalingDependencyNotification(clusterId,
+                            clusterInstanceContext.getNetworkPartitionId(), clusterInstanceContext.getId(),
+                            numberOfRequiredInstances, clusterInstanceContext.getMinInstanceCount());
+                } else {
+                    String autoscalingReason = (numberOfRequiredInstances == numberOfInstancesRequiredBasedOnRif) ?
+                            "Scaling up due to RIF, [Predicted Value] " + rifPredictedValue + " [Threshold] " +
+                                    rifThreshold :
+                            (numberOfRequiredInstances == numberOfInstancesRequiredBasedOnMemoryConsumption) ?
+                                    "Scaling up due to MC, [Predicted Value] " + mcPredictedValue +
+                                            " [Threshold] " + mcThreshold :
+                                    "Scaling up due to LA, [Predicted Value] " + laPredictedValue +
+                                            " [Threshold] " + laThreshold;
+                    autoscalingReason += " [Number of required instances] " + numberOfRequiredInstances +
+                            " [Cluster Max Members] " + clusterMaxMembers +
+                            " [Additional instances to be created] " + additionalInstances;
+
+                    int count = 0;
+                    boolean partitionsAvailable = true;
+                    while (count != additionalInstances && partitionsAvailable) {
+                        ClusterLevelPartitionContext partitionContext = (ClusterLevelPartitionContext)
+                                partitionAlgorithm.getNextScaleUpPartitionContext(
+                                        clusterInstanceContext.getPartitionCtxtsAsAnArray());
+                        if (partitionContext != null) {
+                            log.info(String.format("[scale-up] Partition available, hence trying to spawn an " +
+                                            "instance to scale up: [application-id] %s [cluster] %s " +
+                                            "[instance-id] %s [network-partition] %s [partition] %s",
+                                    parameters.getApplicationId(), clusterId, clusterInstanceContext.getId(),
+                                    clusterInstanceContext.getNetworkPartitionId(),
+                                    partitionContext.getPartitionId()));
+                            delegator.delegateSpawn(partitionContext, clusterId, clusterInstanceContext.getId(),
+                                    parameters.isPrimary(), autoscalingReason, System.currentTimeMillis());
+                            count++;
+                        } else {
+                            log.warn(String.format("[scale-up] No more partition available even though " +
+                                    "cartridge-max is not reached, please update deployment-policy with new " +
+                                    "partitions or with higher partition-max: [cluster] %s", clusterId));
+                            partitionsAvailable = false;
+                        }
+                    }
+                }
+            } else {
+                log.info(String.format("[scale-up] Trying to scale up over max, hence not scaling up cluster " +
+                                "itself and notifying to parent for possible group scaling or app bursting: " +
+                                "[cluster] %s [instance-id] %s [max] %d", clusterId, clusterInstanceContext.getId(),
+                        clusterMaxMembers));
+                delegator.delegateScalingOverMaxNotification(clusterId,
+                        clusterInstanceContext.getNetworkPartitionId(), clusterInstanceContext.getId());
+            }
+        } else if (scaleDown) {
+            if (nonTerminatedMembers > clusterInstanceContext.getMinInstanceCount()) {
+                if (clusterInstanceContext.getScaleDownRequestsCount() > 2) {
+                    if (clusterInstanceContext.hasScalingDependants()) {
+                        delegator.delegateScalingDependencyNotification(clusterId,
+                                clusterInstanceContext.getNetworkPartitionId(), clusterInstanceContext.getId(),
+                                numberOfRequiredInstances, clusterInstanceContext.getMinInstanceCount());
+                    } else {
+                        ClusterLevelPartitionContext partitionContext = (ClusterLevelPartitionContext)
+                                partitionAlgorithm.getNextScaleDownPartitionContext(
+                                        clusterInstanceContext.getPartitionCtxtsAsAnArray());
+                        if (partitionContext != null) {
+                            MemberStatsContext selectedMemberStatsContext = findMemberWithLowestOverallLoad(
+                                    partitionContext, parameters.getPrimaryMembers(), delegator);
+                            if (selectedMemberStatsContext != null) {
+                                log.info(String.format("[scale-down] Trying to terminate an instance to scale " +
+                                                "down: [application-id] %s [cluster] %s [instance-id] %s " +
+                                                "[partition] %s [member] %s", parameters.getApplicationId(),
+                                        clusterId, clusterInstanceContext.getId(),
+                                        partitionContext.getPartitionId(), selectedMemberStatsContext.getMemberId()));
+                                delegator.delegateTerminate(partitionContext, selectedMemberStatsContext.getMemberId());
+                            }
+                        }
+                    }
+                } else {
+                    if (log.isDebugEnabled()) {
+                        log.debug(String.format("[scale-down] Not reached scale down requests threshold: " +
+                                        "[cluster] %s [count] %d", clusterId,
+                                clusterInstanceContext.getScaleDownRequestsCount()));
+                    }
+                    clusterInstanceContext.increaseScaleDownRequestsCount();
+                }
+            } else {
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("[scale-down] Min is reached, hence not scaling down: [cluster] %s " +
+                            "[instance-id] %s", clusterId, clusterInstanceContext.getId()));
+                }
+                delegator.delegateScalingDownBeyondMinNotification(clusterId,
+                        clusterInstanceContext.getNetworkPartitionId(), clusterInstanceContext.getId());
+            }
+        } else if (log.isDebugEnabled()) {
+            log.debug(String.format("[scaling] No decision made to either scale up or scale down: [cluster] %s " +
+                    "[instance-id] %s", clusterId, clusterInstanceContext.getId()));
+        }
+    }
+
+    @Override
+    public void evaluateDependentScaleCheck(ClusterInstanceContext clusterInstanceContext,
+                                            ScalingDecisionParameters parameters) {
+        RuleTasksDelegator delegator = parameters.getDelegator();
+        String clusterId = parameters.getClusterId();
+        PartitionAlgorithm partitionAlgorithm = delegator.getPartitionAlgorithm(parameters.getAlgorithmName());
+        if (partitionAlgorithm == null) {
+            return;
+        }
+        int nonTerminatedMembers = clusterInstanceContext.getNonTerminatedMemberCount();
+        int roundedRequiredInstanceCount = parameters.getRoundedRequiredInstanceCount();
+
+        if (nonTerminatedMembers < roundedRequiredInstanceCount) {
+            int clusterMaxMembers = clusterInstanceContext.getMaxInstanceCount();
+            if (nonTerminatedMembers < clusterMaxMembers) {
+                int additionalInstances;
+                if (clusterMaxMembers < roundedRequiredInstanceCount) {
+                    additionalInstances = clusterMaxMembers - nonTerminatedMembers;
+                } else {
+                    additionalInstances = roundedRequiredInstanceCount - nonTerminatedMembers;
+                    log.info(String.format("[dependency-scaling] [scale-up] Required member count based on " +
+                                    "dependency scaling is higher than max, hence notifying to parent for possible " +
+                                    "group scaling or app bursting: [cluster] %s [instance-id] %s [max] %d",
+                            clusterId, clusterInstanceContext.getId(), clusterMaxMembers));
+                    delegator.delegateScalingOverMaxNotification(clusterId,
+                            clusterInstanceContext.getNetworkPartitionId(), clusterInstanceContext.getId());
+                }
+
+                int count = 0;
+                boolean partitionsAvailable = true;
+                while (count != additionalInstances && partitionsAvailable) {
+                    ClusterLevelPartitionContext partitionContext = (ClusterLevelPartitionContext) partitionAlgorithm.
+                            getNextScaleUpPartitionContext(clusterInstanceContext.getPartitionCtxtsAsAnArray());
+                    if (partitionContext != null) {
+                        log.info(String.format("[dependency-scale] [scale-up] Partition available, hence trying " +
+                                        "to spawn an instance to scale up: [cluster] %s [partition] %s", clusterId,
+                                partitionContext.getPartitionId()));
+                        delegator.delegateSpawn(partitionContext, clusterId, clusterInstanceContext.getId(),
+                                parameters.isPrimary(), "Dependency scaling", System.currentTimeMillis());
+                        count++;
+                    } else {
+                        partitionsAvailable = false;
+                    }
+                }
+
+                if (!partitionsAvailable) {
+                    if (clusterInstanceContext.isInGroupScalingEnabledSubtree()) {
+                        delegator.delegateScalingOverMaxNotification(clusterId,
+                                clusterInstanceContext.getNetworkPartitionId(), clusterInstanceContext.getId());
+                        log.info("[dependency-scale] [dependent-max-notification] partition is not available " +
+                                "for [scale-up]. Hence notifying the parent for group scaling");
+                    } else {
+                        log.warn("[dependency-scale] [dependent-max-notification] partition is not available " +
+                                "for [scale-up]. All resources are exhausted. Please enable group-scaling for " +
+                                "further scaleup");
+                    }
+                }
+            } else {
+                log.info(String.format("[dependency-scale] [scale-up] Trying to scale up over max, hence not " +
+                                "scaling up cluster itself and notifying to parent for possible group scaling or " +
+                                "app bursting: [cluster] %s [instance-id] %s [max] %d", clusterId,
+                        clusterInstanceContext.getId(), clusterMaxMembers));
+                delegator.delegateScalingOverMaxNotification(clusterId,
+                        clusterInstanceContext.getNetworkPartitionId(), clusterInstanceContext.getId());
+            }
+        } else if (nonTerminatedMembers > roundedRequiredInstanceCount) {
+            int redundantInstances = nonTerminatedMembers - roundedRequiredInstanceCount;
+            int count = 0;
+            while (count != redundantInstances) {
+                ClusterLevelPartitionContext partitionContext = (ClusterLevelPartitionContext) partitionAlgorithm.
+                        getNextScaleDownPartitionContext(clusterInstanceContext.getPartitionCtxtsAsAnArray());
+                if (partitionContext == null) {
+                    log.warn(String.format("[dependency-scale] [scale-down] No partition available to scale " +
+                            "down: [cluster] %s [instance-id] %s", clusterId, clusterInstanceContext.getId()));
+                    break;
+                }
+                MemberStatsContext selectedMemberStatsContext = findMemberWithLowestOverallLoad(
+                        partitionContext, parameters.getPrimaryMembers(), delegator);
+                if (selectedMemberStatsContext != null) {
+                    log.info(String.format("[dependency-scale] [scale-down] Trying to terminate an instance to " +
+                                    "scale down: [cluster] %s [partition] %s [member] %s", clusterId,
+                            partitionContext.getPartitionId(), selectedMemberStatsContext.getMemberId()));
+                    delegator.delegateTerminate(partitionContext, selectedMemberStatsContext.getMemberId());
+                }
+                count++;
+            }
+        }
+    }
+
+    @Override
+    public void evaluateObsoleteCheck(ClusterInstanceContext clusterInstanceContext,
+                                      ClusterLevelPartitionContext partitionContext,
+                                      ScalingDecisionParameters parameters) {
+        RuleTasksDelegator delegator = parameters.getDelegator();
+        for (String memberId : new ArrayList<String>(partitionContext.getObsoletedMembers().keySet())) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("[obsolete-check] [cluster] %s [partition] %s [member] %s",
+                        parameters.getClusterId(), partitionContext.getPartitionId(), memberId));
+            }
+            delegator.terminateObsoleteInstance(memberId);
+        }
+        for (MemberContext member : new ArrayList<MemberContext>(partitionContext.getTerminationPendingMembers())) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("[instance-cleanup-check] [cluster] %s [partition] %s [member] %s",
+                        parameters.getClusterId(), partitionContext.getPartitionId(), member.getMemberId()));
+            }
+            delegator.delegateInstanceCleanup(member.getMemberId());
+        }
+    }
+
+    /**
+     * Find the non primary member of the partition with the lowest predicted load.
+     */
+    private MemberStatsContext findMemberWithLowestOverallLoad(ClusterLevelPartitionContext partitionContext,
+                                                               List<String> primaryMembers,
+                                                               RuleTasksDelegator delegator) {
+        MemberStatsContext selectedMemberStatsContext = null;
+        double lowestOverallLoad = 0.0;
+        for (MemberStatsContext memberStatsContext : partitionContext.getMemberStatsContexts().values()) {
+            if (primaryMembers.contains(memberStatsContext.getMemberId())) {
+                continue;
+            }
+            LoadAverage loadAverage = memberStatsContext.getLoadAverage();
+            MemoryConsumption memoryConsumption = memberStatsContext.getMemoryConsumption();
+            double predictedCpu = delegator.getPredictedValueForNextMinute(loadAverage.getAverage(),
+                    loadAverage.getGradient(), loadAverage.getSecondDerivative(), 1);
+            double predictedMemoryConsumption = delegator.getPredictedValueForNextMinute(
+                    memoryConsumption.getAverage(), memoryConsumption.getGradient(),
+                    memoryConsumption.getSecondDerivative(), 1);
+            double overallLoad = (predictedCpu + predictedMemoryConsumption) / 2;
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("[scale-down] [partition] %s [member] %s [predicted-cpu] %s " +
+                                "[predicted-memory-consumption] %s [overall-load] %s",
+                        partitionContext.getPartitionId(), memberStatsContext.getMemberId(), predictedCpu,
+                        predictedMemoryConsumption, overallLoad));
+            }
+            if (selectedMemberStatsContext == null || overallLoad < lowestOverallLoad) {
+                selectedMemberStatsContext = memberStatsContext;
+                lowestOverallLoad = overallLoad;
+            }
+        }
+        return selectedMemberStatsContext;
+    }
+}
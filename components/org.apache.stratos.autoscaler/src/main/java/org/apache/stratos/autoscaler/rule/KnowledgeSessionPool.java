@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.rule;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.exception.AutoScalerException;
+import org.drools.KnowledgeBase;
+import org.drools.runtime.StatefulKnowledgeSession;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of stateful sessions of a rule file. Cluster instances borrow a session for an
+ * evaluation rather than owning one, hence the number of sessions does not grow with the number
+ * of cluster instances. Borrowers wait when all sessions are in use.
+ */
+public class KnowledgeSessionPool {
+
+    private static final Log log = LogFactory.getLog(KnowledgeSessionPool.class);
+    private static final long BORROW_WAIT_INTERVAL = 100;
+
+    private final String drlFileName;
+    private final KnowledgeBase knowledgeBase;
+    private final int maxSessions;
+    private final BlockingQueue<StatefulKnowledgeSession> idleSessions;
+    private final AtomicInteger sessionCount;
+    private volatile boolean closed;
+
+    public KnowledgeSessionPool(String drlFileName, KnowledgeBase knowledgeBase, int maxSessions) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("Maximum number of sessions should be at least 1: " +
+                    "[drool-file] " + drlFileName);
+        }
+        this.drlFileName = drlFileName;
+        this.knowledgeBase = knowledgeBase;
+        this.maxSessions = maxSessions;
+        this.idleSessions = new ArrayBlockingQueue<StatefulKnowledgeSession>(maxSessions);
+        this.sessionCount = new AtomicInteger();
+    }
+
+    /**
+     * Borrow a session, a new session is created if all sessions are in use and the pool is not
+     * full. The session should be returned once the evaluation is completed.
+     *
+     * @return a session, null if the pool is closed
+     */
+    public StatefulKnowledgeSession borrowSession() {
+        while (!closed) {
+            StatefulKnowledgeSession ksession = idleSessions.poll();
+            if (ksession != null) {
+                return ksession;
+            }
+            int count = sessionCount.get();
+            if (count < maxSessions) {
+                if (sessionCount.compareAndSet(count, count + 1)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug(String.format("Creating drools session: [drool-file] %s [session-count] %d",
+                                drlFileName, count + 1));
+                    }
+                    ksession = knowledgeBase.newStatefulKnowledgeSession();
+                    ksession.setGlobal("log", RuleLog.getInstance());
+                    return ksession;
+                }
+                continue;
+            }
+            try {
+                // Wait for a session to be returned, the pool may be closed meanwhile
+                ksession = idleSessions.poll(BORROW_WAIT_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AutoScalerException(String.format("Interrupted while waiting for a drools session: " +
+                        "[drool-file] %s", drlFileName), e);
+            }
+            if (ksession != null) {
+                return ksession;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return a borrowed session. Facts inserted for the evaluation should have been retracted.
+     * Sessions returned after the pool is closed are disposed.
+     */
+    public void returnSession(StatefulKnowledgeSession ksession) {
+        if (closed || !idleSessions.offer(ksession)) {
+            disposeSession(ksession);
+            return;
+        }
+        if (closed && idleSessions.remove(ksession)) {
+            // Pool was closed while the session was being returned
+            disposeSession(ksession);
+        }
+    }
+
+    /**
+     * Close the pool and dispose idle sessions, sessions in use are disposed when returned.
+     */
+    public void close() {
+        closed = true;
+        StatefulKnowledgeSession ksession;
+        while ((ksession = idleSessions.poll()) != null) {
+            disposeSession(ksession);
+        }
+    }
+
+    private void disposeSession(StatefulKnowledgeSession ksession) {
+        sessionCount.decrementAndGet();
+        try {
+            ksession.dispose();
+        } catch (Exception e) {
+            log.warn(String.format("Could not dispose drools session: [drool-file] %s", drlFileName), e);
+        }
+    }
+
+    public String getDrlFileName() {
+        return drlFileName;
+    }
+
+    public KnowledgeBase getKnowledgeBase() {
+        return knowledgeBase;
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * Returns the number of sessions created by the pool and not yet disposed.
+     */
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    public int getIdleSessionCount() {
+        return idleSessions.size();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -34,7 +34,12 @@ import org.apache.stratos.autoscaler.context.member.MemberStatsContext;
 import org.apache.stratos.autoscaler.context.partition.ClusterLevelPartitionContext;
 import org.apache.stratos.autoscaler.context.partition.network.NetworkPartitionContext;
 import org.apache.stratos.autoscaler.event.publisher.InstanceNotificationPublisher;
+import org.apache.stratos.autoscaler.forecast.ClusterInstanceForecaster;
+import org.apache.stratos.autoscaler.forecast.ForecastMetric;
 import org.apache.stratos.autoscaler.monitor.cluster.ClusterMonitor;
+import org.apache.stratos.autoscaler.tracing.ScalingTrace;
+import org.apache.stratos.autoscaler.tracing.ScalingTracer;
+import org.apache.stratos.autoscaler.util.AutoscalerConstants;
 import org.apache.stratos.cloud.controller.stub.domain.MemberContext;
 import org.apache.stratos.cloud.controller.stub.domain.NetworkPartition;
 import org.apache.stratos.common.client.CloudControllerServiceClient;
@@ -49,6 +54,20 @@ public class RuleTasksDelegator {
 
     private static final Log log = LogFactory.getLog(RuleTasksDelegator.class);
 
+    private ScalingTrace scalingTrace;
+
+    /**
+     * Returns the trace of the scaling decision made with this delegator, members spawned by the
+     * decision are traced until they are activated.
+     */
+    public ScalingTrace getScalingTrace() {
+        return scalingTrace;
+    }
+
+    public void setScalingTrace(ScalingTrace scalingTrace) {
+        this.scalingTrace = scalingTrace;
+    }
+
     public double getPredictedValueForNextMinute(float average, float gradient, float secondDerivative,
                                                  int timeInterval) {
         double predictedValue;
@@ -204,14 +223,24 @@ public class RuleTasksDelegator {
                             getInstanceContext(clusterInstanceId);
             minimumCountOfNetworkPartition = clusterInstanceContext.getMinInstanceCount();
 
+            // Decisions which are not made by a scale check, ex: minimum check, are traced from the spawn
+            if (scalingTrace == null) {
+                scalingTrace = ScalingTracer.getInstance().startTrace(clusterId, clusterInstanceId);
+            }
+            ScalingTrace.MemberSpawn memberSpawn = ScalingTracer.getInstance().spawnRequested(scalingTrace,
+                    autoscalingReason);
+
             MemberContext memberContext =
                     AutoscalerCloudControllerClient.getInstance()
                             .startInstance(clusterMonitorPartitionContext.getPartition(),
                                     clusterId,
                                     clusterInstanceId, clusterMonitorPartitionContext.getNetworkPartitionId(),
                                     isPrimary,
-                                    minimumCountOfNetworkPartition, autoscalingReason, scalingTime);
+                                    minimumCountOfNetworkPartition, autoscalingReason, scalingTime,
+                                    scalingTrace.getTraceId());
             if (memberContext != null) {
+                ScalingTracer.getInstance().spawnAccepted(memberSpawn, memberContext.getMemberId(),
+                        clusterMonitorPartitionContext.getPartitionId());
                 ClusterLevelPartitionContext partitionContext = clusterInstanceContext.
                         getPartitionCtxt(clusterMonitorPartitionContext.getPartitionId());
                 partitionContext.addPendingMember(memberContext);
@@ -339,7 +368,26 @@ public class RuleTasksDelegator {
         return (int) Math.ceil(predictedValue);
     }
 
+    /**
+     * Returns the requests in flight predicted for the next minute, by the predictor selected by
+     * the autoscale policy if it has enough observations, otherwise using the statistics
+     * published by CEP.
+     */
+    public double getRequestsInFlightPredictedValue(ClusterInstanceContext clusterInstanceContext) {
+        double forecastedValue = getForecastedValue(clusterInstanceContext, ForecastMetric.REQUESTS_IN_FLIGHT);
+        if (!Double.isNaN(forecastedValue)) {
+            return forecastedValue;
+        }
+        return getPredictedValueForNextMinute(clusterInstanceContext.getAverageRequestsInFlight(),
+                clusterInstanceContext.getRequestsInFlightGradient(),
+                clusterInstanceContext.getRequestsInFlightSecondDerivative(), 1);
+    }
+
     public double getLoadAveragePredictedValue(ClusterInstanceContext clusterInstanceContext) {
+        double forecastedValue = getForecastedValue(clusterInstanceContext, ForecastMetric.LOAD_AVERAGE);
+        if (!Double.isNaN(forecastedValue)) {
+            return forecastedValue;
+        }
         double loadAveragePredicted = 0.0d;
         int totalMemberCount = 0;
         for (ClusterLevelPartitionContext partitionContext : clusterInstanceContext.getPartitionCtxts()) {
@@ -372,6 +420,10 @@ public class RuleTasksDelegator {
     }
 
     public double getMemoryConsumptionPredictedValue(ClusterInstanceContext clusterInstanceContext) {
+        double forecastedValue = getForecastedValue(clusterInstanceContext, ForecastMetric.MEMORY_CONSUMPTION);
+        if (!Double.isNaN(forecastedValue)) {
+            return forecastedValue;
+        }
         double memoryConsumptionPredicted = 0.0d;
         int totalMemberCount = 0;
         for (ClusterLevelPartitionContext partitionContext : clusterInstanceContext.getPartitionCtxts()) {
@@ -402,4 +454,19 @@ public class RuleTasksDelegator {
             return 0;
         }
     }
-}
\ No newline at end of file
+
+    private double getForecastedValue(ClusterInstanceContext clusterInstanceContext, ForecastMetric metric) {
+        ClusterInstanceForecaster forecaster = clusterInstanceContext.getForecaster();
+        if (forecaster == null) {
+            return Double.NaN;
+        }
+        double forecastedValue = forecaster.predict(metric,
+                System.currentTimeMillis() + AutoscalerConstants.FORECAST_HORIZON);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Forecasted value: [cluster-instance-id] %s [metric] %s [predictor] %s " +
+                            "[value] %s", clusterInstanceContext.getId(), metric,
+                    forecaster.getPredictorName(), forecastedValue));
+        }
+        return forecastedValue;
+    }
+}
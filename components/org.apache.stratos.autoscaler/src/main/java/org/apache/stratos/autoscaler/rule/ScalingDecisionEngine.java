@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.rule;
+
+import org.apache.stratos.autoscaler.context.cluster.ClusterInstanceContext;
+import org.apache.stratos.autoscaler.context.partition.ClusterLevelPartitionContext;
+
+/**
+ * Makes the scaling decisions of a cluster instance. Decisions are carried out through the rule
+ * tasks delegator of the given parameters, engines only differ in how decisions are evaluated.
+ */
+public interface ScalingDecisionEngine {
+
+    /**
+     * Spawn members to fulfil the minimum instance count of the cluster instance.
+     */
+    void evaluateMinCheck(ClusterInstanceContext clusterInstanceContext, ScalingDecisionParameters parameters);
+
+    /**
+     * Terminate members of partitions exceeding the partition max.
+     */
+    void evaluateMaxCheck(ClusterInstanceContext clusterInstanceContext, ScalingDecisionParameters parameters);
+
+    /**
+     * Scale the cluster instance up or down based on the received statistics.
+     */
+    void evaluateScaleCheck(ClusterInstanceContext clusterInstanceContext, ScalingDecisionParameters parameters);
+
+    /**
+     * Scale the cluster instance to the instance count required by its dependencies.
+     */
+    void evaluateDependentScaleCheck(ClusterInstanceContext clusterInstanceContext,
+                                     ScalingDecisionParameters parameters);
+
+    /**
+     * Terminate obsolete members and clean up members pending termination of the partition.
+     */
+    void evaluateObsoleteCheck(ClusterInstanceContext clusterInstanceContext,
+                               ClusterLevelPartitionContext partitionContext, ScalingDecisionParameters parameters);
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.rule;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.AutoscalePolicy;
+import org.apache.stratos.autoscaler.util.AutoscalerConstants;
+
+/**
+ * Returns the scaling decision engine selected by an autoscale policy. Drools is used when the
+ * policy does not select an engine.
+ */
+public class ScalingDecisionEngineFactory {
+
+    private static final Log log = LogFactory.getLog(ScalingDecisionEngineFactory.class);
+
+    private static final ScalingDecisionEngine javaEngine = new JavaScalingDecisionEngine();
+    private static volatile ScalingDecisionEngine droolsEngine;
+
+    public static ScalingDecisionEngine getScalingDecisionEngine(AutoscalePolicy autoscalePolicy) {
+        String engineName = (autoscalePolicy == null) ? null : autoscalePolicy.getScalingDecisionEngine();
+        if (StringUtils.isBlank(engineName) || AutoscalerConstants.SCALING_DECISION_ENGINE_DROOLS.equals(engineName)) {
+            return getDroolsEngine();
+        }
+        if (AutoscalerConstants.SCALING_DECISION_ENGINE_JAVA.equals(engineName)) {
+            return javaEngine;
+        }
+        log.error(String.format("Scaling decision engine could not be identified, using drools: " +
+                "[autoscale-policy] %s [engine] %s", autoscalePolicy.getId(), engineName));
+        return getDroolsEngine();
+    }
+
+    private static ScalingDecisionEngine getDroolsEngine() {
+        if (droolsEngine == null) {
+            synchronized (ScalingDecisionEngineFactory.class) {
+                if (droolsEngine == null) {
+                    droolsEngine = new DroolsScalingDecisionEngine(AutoscalerRuleEvaluator.getInstance());
+                }
+            }
+        }
+        return droolsEngine;
+    }
+}
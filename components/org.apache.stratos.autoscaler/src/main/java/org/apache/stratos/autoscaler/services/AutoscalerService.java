@@ -29,6 +29,7 @@ import org.apache.stratos.autoscaler.exception.application.InvalidServiceGroupEx
 import org.apache.stratos.autoscaler.exception.CartridgeNotFoundException;
 import org.apache.stratos.autoscaler.exception.partition.PartitionValidationException;
 import org.apache.stratos.autoscaler.exception.policy.*;
+import org.apache.stratos.autoscaler.pojo.ScalingDecision;
 import org.apache.stratos.autoscaler.pojo.ServiceGroup;
 import org.apache.stratos.autoscaler.pojo.policy.autoscale.AutoscalePolicy;
 import org.apache.stratos.autoscaler.pojo.policy.deployment.ApplicationPolicy;
@@ -287,6 +288,14 @@ public interface AutoscalerService {
 
     public String[] getApplicationNetworkPartitions(String applicationId) throws AutoScalerException;
 
+    /**
+     * Get the most recent scaling decisions of a cluster which spawned members, most recent first.
+     *
+     * @param clusterId cluster id
+     * @return scaling decisions with the times of each stage from the health statistic to member activation
+     */
+    public ScalingDecision[] getScalingDecisions(String clusterId);
+
     /**
      * Add a deployment policy
      *
@@ -43,6 +43,7 @@ import org.apache.stratos.autoscaler.exception.policy.*;
 import org.apache.stratos.autoscaler.monitor.cluster.ClusterMonitor;
 import org.apache.stratos.autoscaler.monitor.component.ApplicationMonitor;
 import org.apache.stratos.autoscaler.pojo.Dependencies;
+import org.apache.stratos.autoscaler.pojo.ScalingDecision;
 import org.apache.stratos.autoscaler.pojo.ServiceGroup;
 import org.apache.stratos.autoscaler.pojo.policy.PolicyManager;
 import org.apache.stratos.autoscaler.pojo.policy.autoscale.AutoscalePolicy;
@@ -50,6 +51,8 @@ import org.apache.stratos.autoscaler.pojo.policy.deployment.ApplicationPolicy;
 import org.apache.stratos.autoscaler.pojo.policy.deployment.DeploymentPolicy;
 import org.apache.stratos.autoscaler.registry.RegistryManager;
 import org.apache.stratos.autoscaler.services.AutoscalerService;
+import org.apache.stratos.autoscaler.tracing.ScalingTracer;
+import org.apache.stratos.autoscaler.util.AutoscalerObjectConverter;
 import org.apache.stratos.autoscaler.util.AutoscalerUtil;
 import org.apache.stratos.cloud.controller.stub.CloudControllerServiceInvalidCartridgeTypeExceptionException;
 import org.apache.stratos.cloud.controller.stub.CloudControllerServiceInvalidPartitionExceptionException;
@@ -1020,6 +1023,12 @@ public class AutoscalerServiceImpl implements AutoscalerService {
         return networkPartitionIds.toArray(new String[networkPartitionIds.size()]);
     }
 
+    @Override
+    public ScalingDecision[] getScalingDecisions(String clusterId) {
+        return AutoscalerObjectConverter.convertScalingTracesToScalingDecisions(
+                ScalingTracer.getInstance().getRecentDecisions(clusterId));
+    }
+
     @Override
     public boolean addApplicationPolicy(ApplicationPolicy applicationPolicy)
             throws RemoteException, InvalidApplicationPolicyException, ApplicationPolicyAlreadyExistsException {
@@ -1520,14 +1529,17 @@ public class AutoscalerServiceImpl implements AutoscalerService {
 
                     //It has found that this partition context which is in cluster monitor is removed in updated policy
                     clusterLevelPartitionContext.setIsObsoletePartition(true);
-                    Iterator<MemberContext> memberContextIterator = clusterLevelPartitionContext.getActiveMembers().iterator();
+                    // Members are moved while iterating, iterate over copies of the member lists
+                    Iterator<MemberContext> memberContextIterator = new ArrayList<MemberContext>(
+                            clusterLevelPartitionContext.getActiveMembers()).iterator();
                     while (memberContextIterator.hasNext()) {
 
                         clusterLevelPartitionContext.moveActiveMemberToTerminationPendingMembers(
                                 memberContextIterator.next().getMemberId());
                     }
 
-                    memberContextIterator = clusterLevelPartitionContext.getPendingMembers().iterator();
+                    memberContextIterator = new ArrayList<MemberContext>(
+                            clusterLevelPartitionContext.getPendingMembers()).iterator();
                     while (memberContextIterator.hasNext()) {
 
                         clusterLevelPartitionContext.movePendingMemberToObsoleteMembers(
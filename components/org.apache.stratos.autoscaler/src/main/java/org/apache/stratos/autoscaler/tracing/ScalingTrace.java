@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trace of a scaling decision of a cluster instance, from the health statistic which triggered
+ * the scale check to the activation of the members spawned by the decision. Times are in
+ * milliseconds since epoch, zero if a stage has not been reached.
+ */
+public class ScalingTrace {
+
+    private final String traceId;
+    private final String clusterId;
+    private final String clusterInstanceId;
+    private final long statisticReceivedTime;
+    private long evaluationStartTime;
+    private long evaluationEndTime;
+    private final List<MemberSpawn> memberSpawns;
+
+    public ScalingTrace(String traceId, String clusterId, String clusterInstanceId, long statisticReceivedTime) {
+        this.traceId = traceId;
+        this.clusterId = clusterId;
+        this.clusterInstanceId = clusterInstanceId;
+        this.statisticReceivedTime = statisticReceivedTime;
+        this.memberSpawns = new ArrayList<MemberSpawn>();
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getClusterId() {
+        return clusterId;
+    }
+
+    public String getClusterInstanceId() {
+        return clusterInstanceId;
+    }
+
+    /**
+     * Returns the time the first health statistic of the scale check was received, zero if the
+     * decision was not triggered by health statistics, ex: minimum check.
+     */
+    public long getStatisticReceivedTime() {
+        return statisticReceivedTime;
+    }
+
+    public synchronized long getEvaluationStartTime() {
+        return evaluationStartTime;
+    }
+
+    synchronized void setEvaluationStartTime(long evaluationStartTime) {
+        this.evaluationStartTime = evaluationStartTime;
+    }
+
+    public synchronized long getEvaluationEndTime() {
+        return evaluationEndTime;
+    }
+
+    synchronized void setEvaluationEndTime(long evaluationEndTime) {
+        this.evaluationEndTime = evaluationEndTime;
+    }
+
+    /**
+     * Returns a snapshot of the member spawns of the decision.
+     */
+    public synchronized List<MemberSpawn> getMemberSpawns() {
+        return new ArrayList<MemberSpawn>(memberSpawns);
+    }
+
+    /**
+     * Add a member spawn, returns true if it is the first spawn of the decision.
+     */
+    synchronized boolean addMemberSpawn(MemberSpawn memberSpawn) {
+        memberSpawns.add(memberSpawn);
+        return memberSpawns.size() == 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[trace-id] %s [cluster] %s [cluster-instance] %s", traceId, clusterId,
+                clusterInstanceId);
+    }
+
+    /**
+     * Spawn of a member by a scaling decision.
+     */
+    public static class MemberSpawn {
+
+        private final ScalingTrace scalingTrace;
+        private final String scalingReason;
+        private final long spawnRequestTime;
+        private volatile String memberId;
+        private volatile String partitionId;
+        private volatile long spawnResponseTime;
+        private volatile long memberActivatedTime;
+
+        MemberSpawn(ScalingTrace scalingTrace, String scalingReason, long spawnRequestTime) {
+            this.scalingTrace = scalingTrace;
+            this.scalingReason = scalingReason;
+            this.spawnRequestTime = spawnRequestTime;
+        }
+
+        public ScalingTrace getScalingTrace() {
+            return scalingTrace;
+        }
+
+        public String getScalingReason() {
+            return scalingReason;
+        }
+
+        public long getSpawnRequestTime() {
+            return spawnRequestTime;
+        }
+
+        public String getMemberId() {
+            return memberId;
+        }
+
+        public String getPartitionId() {
+            return partitionId;
+        }
+
+        public long getSpawnResponseTime() {
+            return spawnResponseTime;
+        }
+
+        void setSpawnResponse(String memberId, String partitionId, long spawnResponseTime) {
+            this.memberId = memberId;
+            this.partitionId = partitionId;
+            this.spawnResponseTime = spawnResponseTime;
+        }
+
+        public long getMemberActivatedTime() {
+            return memberActivatedTime;
+        }
+
+        void setMemberActivatedTime(long memberActivatedTime) {
+            this.memberActivatedTime = memberActivatedTime;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.tracing;
+
+/**
+ * Fixed size ring buffer of the most recent scaling traces of a cluster.
+ */
+class ScalingTraceBuffer {
+
+    private final ScalingTrace[] traces;
+    private int next;
+    private int size;
+
+    ScalingTraceBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Scaling trace buffer capacity should be positive: " + capacity);
+        }
+        traces = new ScalingTrace[capacity];
+    }
+
+    synchronized void add(ScalingTrace trace) {
+        traces[next] = trace;
+        next = (next + 1) % traces.length;
+        if (size < traces.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Returns the traces in the buffer, most recent first.
+     */
+    synchronized ScalingTrace[] toArray() {
+        ScalingTrace[] result = new ScalingTrace[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = traces[(next - 1 - i + traces.length) % traces.length];
+        }
+        return result;
+    }
+}
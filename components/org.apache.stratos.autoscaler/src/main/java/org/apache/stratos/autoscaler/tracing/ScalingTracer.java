@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.tracing;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.tracing.ScalingTrace.MemberSpawn;
+import org.apache.stratos.autoscaler.util.AutoscalerConstants;
+import org.apache.stratos.common.statistics.LatencyHistogram;
+import org.apache.stratos.common.statistics.LatencyHistogramRegistry;
+
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Traces scaling decisions from the health statistic which triggered the scale check to the
+ * activation of the spawned members. A trace is opened per cluster instance when the first
+ * health statistic of a monitoring cycle is received, taken by the scale check and completed
+ * when the members spawned by the decision are activated. The latency of each stage is recorded
+ * in a histogram exposed over JMX and the most recent decisions of each cluster are kept in a
+ * ring buffer. The trace id is passed to the cloud controller as a member property, hence its
+ * stages can be correlated with the stages of the cloud controller.
+ */
+public class ScalingTracer {
+
+    private static final Log log = LogFactory.getLog(ScalingTracer.class);
+
+    public static final String STAGE_STATISTIC_TO_EVALUATION = "statisticToEvaluation";
+    public static final String STAGE_EVALUATION = "evaluation";
+    public static final String STAGE_EVALUATION_TO_SPAWN = "evaluationToSpawn";
+    public static final String STAGE_SPAWN_REQUEST = "spawnRequest";
+    public static final String STAGE_MEMBER_ACTIVATION = "memberActivation";
+    public static final String STAGE_STATISTIC_TO_MEMBER_ACTIVATION = "statisticToMemberActivation";
+
+    private static volatile ScalingTracer instance;
+
+    private final int bufferSize;
+    private final ConcurrentHashMap<String, ScalingTrace> openTraces;
+    private final ConcurrentHashMap<String, MemberSpawn> pendingActivations;
+    private final ConcurrentHashMap<String, ScalingTraceBuffer> recentDecisions;
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms;
+    private final boolean registerHistograms;
+
+    ScalingTracer(int bufferSize, boolean registerHistograms) {
+        this.bufferSize = bufferSize;
+        this.registerHistograms = registerHistograms;
+        this.openTraces = new ConcurrentHashMap<String, ScalingTrace>();
+        this.pendingActivations = new ConcurrentHashMap<String, MemberSpawn>();
+        this.recentDecisions = new ConcurrentHashMap<String, ScalingTraceBuffer>();
+        this.histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+    }
+
+    public static ScalingTracer getInstance() {
+        if (instance == null) {
+            synchronized (ScalingTracer.class) {
+                if (instance == null) {
+                    instance = new ScalingTracer(Integer.getInteger(AutoscalerConstants.SCALING_TRACE_BUFFER_SIZE,
+                            AutoscalerConstants.DEFAULT_SCALING_TRACE_BUFFER_SIZE), true);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Open a trace for the cluster instance if there is no open trace, the trace is taken by the
+     * next scale check of the cluster instance.
+     */
+    public void statisticReceived(String clusterId, String clusterInstanceId) {
+        String key = createKey(clusterId, clusterInstanceId);
+        if (!openTraces.containsKey(key)) {
+            ScalingTrace trace = new ScalingTrace(UUID.randomUUID().toString(), clusterId, clusterInstanceId,
+                    System.currentTimeMillis());
+            if ((openTraces.putIfAbsent(key, trace) == null) && log.isDebugEnabled()) {
+                log.debug("Scaling trace opened: " + trace);
+            }
+        }
+    }
+
+    /**
+     * Take the open trace of the cluster instance for a scale check, a new trace is started if
+     * no health statistic has been received since the previous scale check.
+     */
+    public ScalingTrace startEvaluation(String clusterId, String clusterInstanceId) {
+        ScalingTrace trace = openTraces.remove(createKey(clusterId, clusterInstanceId));
+        long now = System.currentTimeMillis();
+        if (trace == null) {
+            trace = startTrace(clusterId, clusterInstanceId);
+        } else {
+            getHistogram(STAGE_STATISTIC_TO_EVALUATION).record(now - trace.getStatisticReceivedTime());
+        }
+        trace.setEvaluationStartTime(now);
+        return trace;
+    }
+
+    public void endEvaluation(ScalingTrace trace) {
+        long now = System.currentTimeMillis();
+        trace.setEvaluationEndTime(now);
+        getHistogram(STAGE_EVALUATION).record(now - trace.getEvaluationStartTime());
+    }
+
+    /**
+     * Start a trace for a scaling decision which was not triggered by health statistics.
+     */
+    public ScalingTrace startTrace(String clusterId, String clusterInstanceId) {
+        return new ScalingTrace(UUID.randomUUID().toString(), clusterId, clusterInstanceId, 0);
+    }
+
+    public MemberSpawn spawnRequested(ScalingTrace trace, String scalingReason) {
+        long now = System.currentTimeMillis();
+        if (trace.getEvaluationStartTime() > 0) {
+            getHistogram(STAGE_EVALUATION_TO_SPAWN).record(now - trace.getEvaluationStartTime());
+        }
+        return new MemberSpawn(trace, scalingReason, now);
+    }
+
+    /**
+     * Record the member created by the cloud controller for a spawn request, the decision is
+     * added to the recent decisions of the cluster with its first member.
+     */
+    public void spawnAccepted(MemberSpawn memberSpawn, String memberId, String partitionId) {
+        long now = System.currentTimeMillis();
+        memberSpawn.setSpawnResponse(memberId, partitionId, now);
+        getHistogram(STAGE_SPAWN_REQUEST).record(now - memberSpawn.getSpawnRequestTime());
+
+        ScalingTrace trace = memberSpawn.getScalingTrace();
+        pendingActivations.put(memberId, memberSpawn);
+        if (trace.addMemberSpawn(memberSpawn)) {
+            getRecentDecisionBuffer(trace.getClusterId()).add(trace);
+        }
+    }
+
+    /**
+     * Complete the member spawn of an activated member, members not spawned by a traced
+     * decision are ignored.
+     */
+    public void memberActivated(String memberId) {
+        MemberSpawn memberSpawn = pendingActivations.remove(memberId);
+        if (memberSpawn == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        memberSpawn.setMemberActivatedTime(now);
+        getHistogram(STAGE_MEMBER_ACTIVATION).record(now - memberSpawn.getSpawnResponseTime());
+
+        ScalingTrace trace = memberSpawn.getScalingTrace();
+        if (trace.getStatisticReceivedTime() > 0) {
+            getHistogram(STAGE_STATISTIC_TO_MEMBER_ACTIVATION).record(now - trace.getStatisticReceivedTime());
+        }
+        if (log.isInfoEnabled()) {
+            long statisticToEvaluation = (trace.getStatisticReceivedTime() > 0) ?
+                    trace.getEvaluationStartTime() - trace.getStatisticReceivedTime() : -1;
+            long evaluationToSpawn = (trace.getEvaluationStartTime() > 0) ?
+                    memberSpawn.getSpawnRequestTime() - trace.getEvaluationStartTime() : -1;
+            log.info(String.format("Scaled member activated: %s [member] %s [statistic-to-evaluation] %dms " +
+                            "[evaluation-to-spawn] %dms [spawn-request] %dms [member-activation] %dms", trace,
+                    memberId, statisticToEvaluation, evaluationToSpawn,
+                    memberSpawn.getSpawnResponseTime() - memberSpawn.getSpawnRequestTime(),
+                    now - memberSpawn.getSpawnResponseTime()));
+        }
+    }
+
+    /**
+     * Stop waiting for the activation of a terminated member.
+     */
+    public void memberTerminated(String memberId) {
+        pendingActivations.remove(memberId);
+    }
+
+    /**
+     * Returns the most recent scaling decisions of the cluster which spawned members, most
+     * recent first.
+     */
+    public ScalingTrace[] getRecentDecisions(String clusterId) {
+        ScalingTraceBuffer buffer = recentDecisions.get(clusterId);
+        return (buffer == null) ? new ScalingTrace[0] : buffer.toArray();
+    }
+
+    /**
+     * Remove open traces, pending activations and recent decisions of a cluster.
+     */
+    public void removeCluster(String clusterId) {
+        recentDecisions.remove(clusterId);
+        for (Iterator<ScalingTrace> iterator = openTraces.values().iterator(); iterator.hasNext(); ) {
+            if (clusterId.equals(iterator.next().getClusterId())) {
+                iterator.remove();
+            }
+        }
+        for (Iterator<MemberSpawn> iterator = pendingActivations.values().iterator(); iterator.hasNext(); ) {
+            if (clusterId.equals(iterator.next().getScalingTrace().getClusterId())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    LatencyHistogram getHistogram(String stage) {
+        LatencyHistogram histogram = histograms.get(stage);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = registerHistograms ?
+                    LatencyHistogramRegistry.getInstance().getHistogram(
+                            AutoscalerConstants.SCALING_LATENCY_COMPONENT, stage) : new LatencyHistogram();
+            histogram = histograms.putIfAbsent(stage, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        return histogram;
+    }
+
+    private ScalingTraceBuffer getRecentDecisionBuffer(String clusterId) {
+        ScalingTraceBuffer buffer = recentDecisions.get(clusterId);
+        if (buffer == null) {
+            ScalingTraceBuffer newBuffer = new ScalingTraceBuffer(bufferSize);
+            buffer = recentDecisions.putIfAbsent(clusterId, newBuffer);
+            if (buffer == null) {
+                buffer = newBuffer;
+            }
+        }
+        return buffer;
+    }
+
+    private static String createKey(String clusterId, String clusterInstanceId) {
+        return clusterId + "/" + clusterInstanceId;
+    }
+}
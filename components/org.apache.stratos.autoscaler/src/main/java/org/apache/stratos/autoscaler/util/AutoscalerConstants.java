@@ -74,7 +74,45 @@ public final class AutoscalerConstants {
     public static final String MONITOR_THREAD_POOL_ID = "monitor.thread.pool";
     public static final String MONITOR_THREAD_POOL_SIZE = "monitor.thread.pool.size";
     public static final String CLUSTER_MONITOR_SCHEDULER_ID = "cluster.monitor.scheduler";
+    public static final int CLUSTER_MONITOR_SCHEDULER_THREAD_POOL_SIZE = 2;
+    public static final String MONITOR_TICK_THREAD_POOL_ID = "monitor.tick.thread.pool";
+    public static final String MONITOR_TICK_THREAD_POOL_SIZE = "monitor.tick.thread.pool.size";
+    public static final String MONITOR_TICK_JITTER = "monitor.tick.jitter";
+    public static final String STATUS_PROCESSING_SCHEDULER_ID = "autoscaler.status.processing.scheduler";
+    public static final int STATUS_PROCESSING_SCHEDULER_THREAD_POOL_SIZE = 4;
+    public static final String STATUS_PROCESSING_WINDOW = "status.processing.window";
+    public static final long DEFAULT_STATUS_PROCESSING_WINDOW = 100;
+
+    /**
+     * Scaling decision engines
+     */
+    public static final String SCALING_DECISION_ENGINE_DROOLS = "drools";
+    public static final String SCALING_DECISION_ENGINE_JAVA = "java";
+
+    /**
+     * Drools sessions
+     */
+    public static final String DROOLS_SESSION_POOL_SIZE = "drools.session.pool.size";
+    public static final String DROOLS_RULE_RELOAD_INTERVAL = "drools.rule.reload.interval";
+    public static final String DROOLS_RULE_RELOAD_SCHEDULER_ID = "autoscaler.drools.rule.reload.scheduler";
+    public static final long DEFAULT_DROOLS_RULE_RELOAD_INTERVAL = 10000;
+
+    /**
+     * Forecasting
+     */
+    public static final String PREDICTOR_LINEAR_REGRESSION = "linear-regression";
+    public static final String PREDICTOR_HOLT = "holt";
+    public static final String PREDICTOR_SEASONAL = "seasonal";
+    public static final String FORECAST_OBSERVATION_BUFFER_SIZE = "forecast.observation.buffer.size";
+    public static final int DEFAULT_FORECAST_OBSERVATION_BUFFER_SIZE = 40;
+    public static final long FORECAST_HORIZON = 60000;
+    public static final String MEMBER_EXPIRY_SCHEDULER_ID = "autoscaler.member.expiry.scheduler";
+    public static final int MEMBER_EXPIRY_SCHEDULER_THREAD_POOL_SIZE = 4;
     public static final String MEMBER_FAULT_EVENT_NAME = "member_fault";
+    public static final String PRIMARY_MEMBER_PROPERTY = "PRIMARY";
+    public static final String SCALING_TRACE_BUFFER_SIZE = "scaling.trace.buffer.size";
+    public static final int DEFAULT_SCALING_TRACE_BUFFER_SIZE = 20;
+    public static final String SCALING_LATENCY_COMPONENT = "autoscaler";
     //scheduler
     public static final int SCHEDULE_DEFAULT_INITIAL_DELAY = 30;
     public static final int SCHEDULE_DEFAULT_PERIOD = 15;
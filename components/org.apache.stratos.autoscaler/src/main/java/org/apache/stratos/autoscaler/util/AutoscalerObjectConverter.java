@@ -19,6 +19,9 @@
 
 package org.apache.stratos.autoscaler.util;
 
+import org.apache.stratos.autoscaler.pojo.ScalingDecision;
+import org.apache.stratos.autoscaler.pojo.ScalingDecisionMember;
+import org.apache.stratos.autoscaler.tracing.ScalingTrace;
 import org.apache.stratos.common.Properties;
 import org.apache.stratos.common.Property;
 import org.apache.stratos.common.partition.PartitionRef;
@@ -129,4 +132,39 @@ public class AutoscalerObjectConverter {
         return partition;
     }
 
+    public static ScalingDecision[] convertScalingTracesToScalingDecisions(ScalingTrace[] scalingTraces) {
+
+        ScalingDecision[] scalingDecisions = new ScalingDecision[scalingTraces.length];
+        for (int i = 0; i < scalingTraces.length; i++) {
+            scalingDecisions[i] = convertScalingTraceToScalingDecision(scalingTraces[i]);
+        }
+        return scalingDecisions;
+    }
+
+    public static ScalingDecision convertScalingTraceToScalingDecision(ScalingTrace scalingTrace) {
+
+        ScalingDecision scalingDecision = new ScalingDecision();
+        scalingDecision.setTraceId(scalingTrace.getTraceId());
+        scalingDecision.setClusterId(scalingTrace.getClusterId());
+        scalingDecision.setClusterInstanceId(scalingTrace.getClusterInstanceId());
+        scalingDecision.setStatisticReceivedTime(scalingTrace.getStatisticReceivedTime());
+        scalingDecision.setEvaluationStartTime(scalingTrace.getEvaluationStartTime());
+        scalingDecision.setEvaluationEndTime(scalingTrace.getEvaluationEndTime());
+
+        List<ScalingTrace.MemberSpawn> memberSpawns = scalingTrace.getMemberSpawns();
+        ScalingDecisionMember[] members = new ScalingDecisionMember[memberSpawns.size()];
+        for (int i = 0; i < members.length; i++) {
+            ScalingTrace.MemberSpawn memberSpawn = memberSpawns.get(i);
+            ScalingDecisionMember member = new ScalingDecisionMember();
+            member.setMemberId(memberSpawn.getMemberId());
+            member.setPartitionId(memberSpawn.getPartitionId());
+            member.setScalingReason(memberSpawn.getScalingReason());
+            member.setSpawnRequestTime(memberSpawn.getSpawnRequestTime());
+            member.setSpawnResponseTime(memberSpawn.getSpawnResponseTime());
+            member.setMemberActivatedTime(memberSpawn.getMemberActivatedTime());
+            members[i] = member;
+        }
+        scalingDecision.setMembers(members);
+        return scalingDecision;
+    }
 }
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.context.partition;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.util.Clock;
+import org.apache.stratos.cloud.controller.stub.domain.MemberContext;
+import org.apache.stratos.common.partition.PartitionRef;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Member expiry scheduler tests, verifies that member expiries are scheduled relative to the clock
+ * of the scheduler, executed when members expire and that the threads of the scheduler do not grow
+ * with the number of clusters.
+ */
+public class MemberExpirySchedulerTest {
+
+    private static final Log log = LogFactory.getLog(MemberExpirySchedulerTest.class);
+
+    private static final long EXPIRY_TIME = 300;
+    private static final long EXPIRY_TOLERANCE = 100;
+    private static final int THREAD_POOL_SIZE = 4;
+
+    private ScheduledThreadPoolExecutor executor;
+    private MemberExpiryScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        executor = new ScheduledThreadPoolExecutor(THREAD_POOL_SIZE);
+        scheduler = new MemberExpiryScheduler(executor, Clock.SYSTEM);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testExpiryIsScheduledRelativeToClock() throws Exception {
+        final long now = 1000000000L;
+        MemberExpiryScheduler clockScheduler = new MemberExpiryScheduler(executor, new Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return now;
+            }
+        });
+        Runnable expiryHandler = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        for (int i = 1; i <= 100; i++) {
+            long expiryDelay = TimeUnit.HOURS.toMillis(i);
+            // Delay is counted down by the executor from scheduling, hence it could only be lower
+            long delay = clockScheduler.schedule(expiryHandler, now + expiryDelay).getDelay(TimeUnit.MILLISECONDS);
+            assertTrue("Expiry delay is longer than the clock allows: " + delay, delay <= expiryDelay);
+            assertTrue("Expiry delay is not relative to the clock: " + delay,
+                    delay > expiryDelay - TimeUnit.MINUTES.toMillis(1));
+        }
+        assertEquals(100, clockScheduler.getScheduledExpiryCount());
+
+        // Expiries which are already due by the clock are executed immediately
+        final CountDownLatch latch = new CountDownLatch(1);
+        ScheduledFuture<?> future = clockScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, now - TimeUnit.HOURS.toMillis(1));
+        assertTrue(future.getDelay(TimeUnit.MILLISECONDS) <= 0);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelledExpiryIsNotExecuted() throws Exception {
+        final AtomicInteger executed = new AtomicInteger();
+        List<ScheduledFuture<?>> futures = new ArrayList<ScheduledFuture<?>>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    executed.incrementAndGet();
+                }
+            }, System.currentTimeMillis() + 200));
+        }
+        assertEquals(100, scheduler.getScheduledExpiryCount());
+        for (ScheduledFuture<?> future : futures) {
+            future.cancel(false);
+        }
+        assertEquals(0, scheduler.getScheduledExpiryCount());
+
+        Thread.sleep(400);
+        assertEquals(0, executed.get());
+    }
+
+    @Test
+    public void testPendingMemberExpiry() throws Exception {
+        ClusterLevelPartitionContext partitionContext = createPartitionContext("partition-1");
+        partitionContext.setPendingMemberExpiryTime(EXPIRY_TIME);
+        MemberContext memberContext = createMemberContext("member-1");
+        partitionContext.addPendingMember(memberContext);
+
+        long expiredTime = waitFor(partitionContext, "member-1");
+        long delay = expiredTime - (memberContext.getInitTime() + EXPIRY_TIME);
+        log.info(String.format("Pending member expired: [expiry time] %d ms [delay] %d ms", EXPIRY_TIME, delay));
+        assertTrue(delay >= -1);
+        assertTrue(delay < EXPIRY_TOLERANCE);
+        assertEquals(0, partitionContext.getPendingMembers().size());
+        // Obsolete member expiry is scheduled
+        assertEquals(1, partitionContext.getScheduledMemberExpiryCount());
+    }
+
+    @Test
+    public void testActivatedMemberDoesNotExpire() throws Exception {
+        ClusterLevelPartitionContext partitionContext = createPartitionContext("partition-1");
+        partitionContext.setPendingMemberExpiryTime(EXPIRY_TIME);
+        partitionContext.addPendingMember(createMemberContext("member-1"));
+        assertEquals(1, partitionContext.getScheduledMemberExpiryCount());
+
+        partitionContext.movePendingMemberToActiveMembers("member-1");
+        assertEquals(0, partitionContext.getScheduledMemberExpiryCount());
+
+        Thread.sleep(EXPIRY_TIME + EXPIRY_TOLERANCE);
+        assertEquals(1, partitionContext.getActiveMemberCount());
+        assertEquals(0, partitionContext.getObsoletedMembers().size());
+    }
+
+    @Test
+    public void testTerminationPendingMemberExpiry() throws Exception {
+        ClusterLevelPartitionContext partitionContext = createPartitionContext("partition-1");
+        partitionContext.setTerminationPendingMemberExpiryTime(EXPIRY_TIME);
+        partitionContext.addActiveMember(createMemberContext("member-1"));
+        partitionContext.moveActiveMemberToTerminationPendingMembers("member-1");
+        long startedTime = partitionContext.getTerminationPendingStartedTimeOfMember("member-1");
+
+        long expiredTime = waitFor(partitionContext, "member-1");
+        long delay = expiredTime - (startedTime + EXPIRY_TIME);
+        log.info(String.format("Termination pending member expired: [expiry time] %d ms [delay] %d ms",
+                EXPIRY_TIME, delay));
+        assertTrue(delay >= -1);
+        assertTrue(delay < EXPIRY_TOLERANCE);
+        assertEquals(0, partitionContext.getTerminationPendingMembers().size());
+    }
+
+    @Test
+    public void testIncreasedExpiryTimeIsApplied() throws Exception {
+        ClusterLevelPartitionContext partitionContext = createPartitionContext("partition-1");
+        partitionContext.setPendingMemberExpiryTime(EXPIRY_TIME);
+        MemberContext memberContext = createMemberContext("member-1");
+        partitionContext.addPendingMember(memberContext);
+        partitionContext.setPendingMemberExpiryTime(EXPIRY_TIME * 2);
+
+        Thread.sleep(EXPIRY_TIME + EXPIRY_TOLERANCE);
+        assertEquals(1, partitionContext.getPendingMembers().size());
+        long expiredTime = waitFor(partitionContext, "member-1");
+        assertTrue(expiredTime - memberContext.getInitTime() >= EXPIRY_TIME * 2 - 1);
+    }
+
+    @Test
+    public void testThreadCountAgainstClusterCount() throws Exception {
+        int[] clusterCounts = new int[]{100, 400, 1200};
+        int networkPartitionCount = 3;
+        int membersPerPartition = 2;
+        for (int clusterCount : clusterCounts) {
+            List<ClusterLevelPartitionContext> partitionContexts = new ArrayList<ClusterLevelPartitionContext>();
+            for (int i = 0; i < clusterCount * networkPartitionCount; i++) {
+                ClusterLevelPartitionContext partitionContext = createPartitionContext("partition-" + i);
+                for (int j = 0; j < membersPerPartition; j++) {
+                    partitionContext.addPendingMember(createMemberContext("member-" + i + "-" + j));
+                }
+                partitionContexts.add(partitionContext);
+            }
+
+            int scheduledExpiries = scheduler.getScheduledExpiryCount();
+            log.info(String.format("Member expiry tracking: [clusters] %d [partitions] %d [members] %d " +
+                            "[scheduled expiries] %d [scheduler threads] %d [watcher threads replaced] %d",
+                    clusterCount, partitionContexts.size(), partitionContexts.size() * membersPerPartition,
+                    scheduledExpiries, executor.getPoolSize(), partitionContexts.size() * 3));
+            assertTrue(executor.getPoolSize() <= THREAD_POOL_SIZE);
+            assertEquals(partitionContexts.size() * membersPerPartition, scheduledExpiries);
+
+            for (ClusterLevelPartitionContext partitionContext : partitionContexts) {
+                for (int j = 0; j < membersPerPartition; j++) {
+                    partitionContext.removePendingMember(partitionContext.getPendingMembers().get(0).getMemberId());
+                }
+                assertEquals(0, partitionContext.getScheduledMemberExpiryCount());
+            }
+            assertEquals(0, scheduler.getScheduledExpiryCount());
+        }
+    }
+
+    private static long waitFor(ClusterLevelPartitionContext partitionContext, String memberId)
+            throws InterruptedException {
+        long timeout = System.currentTimeMillis() + EXPIRY_TIME * 10;
+        while (partitionContext.getObsoleteMember(memberId) == null) {
+            if (System.currentTimeMillis() > timeout) {
+                break;
+            }
+            Thread.sleep(1);
+        }
+        assertNotNull("Member did not expire: " + memberId, partitionContext.getObsoleteMember(memberId));
+        return System.currentTimeMillis();
+    }
+
+    private ClusterLevelPartitionContext createPartitionContext(String partitionId) {
+        PartitionRef partition = new PartitionRef();
+        partition.setUuid(partitionId);
+        partition.setId(partitionId);
+        return new ClusterLevelPartitionContext(partition, "network-partition-1", "deployment-policy-1", scheduler,
+                TimeUnit.MINUTES.toMillis(15), TimeUnit.DAYS.toMillis(1), TimeUnit.MINUTES.toMillis(30));
+    }
+
+    private static MemberContext createMemberContext(String memberId) {
+        MemberContext memberContext = new MemberContext();
+        memberContext.setMemberId(memberId);
+        memberContext.setClusterId("cluster-1");
+        memberContext.setClusterInstanceId("cluster-1-instance-1");
+        memberContext.setInitTime(System.currentTimeMillis());
+        return memberContext;
+    }
+}
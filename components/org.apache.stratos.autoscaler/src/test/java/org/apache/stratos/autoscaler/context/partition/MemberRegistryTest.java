@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.context.partition;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.context.cluster.ClusterInstanceContext;
+import org.apache.stratos.autoscaler.context.partition.MemberRegistry.MemberState;
+import org.apache.stratos.autoscaler.util.AutoscalerConstants;
+import org.apache.stratos.cloud.controller.stub.Properties;
+import org.apache.stratos.cloud.controller.stub.Property;
+import org.apache.stratos.cloud.controller.stub.domain.MemberContext;
+import org.apache.stratos.common.partition.PartitionRef;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Member registry tests, verifies member state transitions and primary member tracking, and
+ * compares the time taken for member lifecycle events with scanning member lists.
+ */
+public class MemberRegistryTest {
+
+    private static final Log log = LogFactory.getLog(MemberRegistryTest.class);
+
+    @Test
+    public void testStateTransitions() {
+        MemberRegistry registry = new MemberRegistry();
+        for (int i = 0; i < 5; i++) {
+            registry.addMember(MemberState.Pending, createMemberContext("member-" + i));
+        }
+        assertEquals(5, registry.getMemberCount(MemberState.Pending));
+
+        assertNotNull(registry.moveMember("member-1", MemberState.Pending, MemberState.Active));
+        assertNull(registry.moveMember("member-1", MemberState.Pending, MemberState.Active));
+        assertNotNull(registry.moveMember("member-1", MemberState.Active, MemberState.TerminationPending));
+        assertEquals(MemberState.TerminationPending, registry.getMemberState("member-1"));
+        assertFalse(registry.containsMember(MemberState.Active, "member-1"));
+
+        assertNull(registry.removeMember(MemberState.Active, "member-3"));
+        assertNotNull(registry.removeMember(MemberState.Pending, "member-3"));
+        assertNull(registry.getMemberState("member-3"));
+        assertNull(registry.removeMember(null));
+
+        // Adding a known member moves it to the given state
+        registry.addMember(MemberState.Active, createMemberContext("member-0"));
+        assertEquals(MemberState.Active, registry.getMemberState("member-0"));
+
+        assertEquals(2, registry.getMemberCount(MemberState.Pending));
+        assertEquals(1, registry.getMemberCount(MemberState.Active));
+        assertEquals(1, registry.getMemberCount(MemberState.TerminationPending));
+        assertEquals(4, registry.getMemberCount());
+        assertEquals(new HashSet<String>(Arrays.asList("member-2", "member-4")),
+                toMemberIds(registry.getMembers(MemberState.Pending)));
+    }
+
+    @Test
+    public void testViews() {
+        MemberRegistry registry = new MemberRegistry();
+        List<MemberContext> pendingMembers = registry.getMembers(MemberState.Pending);
+        for (int i = 0; i < 100; i++) {
+            registry.addMember(MemberState.Pending, createMemberContext("member-" + i));
+        }
+        // Remove from the middle and the end, every member should still be reachable by index
+        for (int i = 0; i < 100; i += 3) {
+            registry.removeMember("member-" + i);
+        }
+        Set<String> memberIds = new HashSet<String>();
+        for (int i = 0; i < pendingMembers.size(); i++) {
+            memberIds.add(pendingMembers.get(i).getMemberId());
+        }
+        assertEquals(66, memberIds.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 3 != 0, memberIds.contains("member-" + i));
+        }
+
+        try {
+            pendingMembers.add(createMemberContext("member-100"));
+            fail("Member views should be read only");
+        } catch (UnsupportedOperationException ignore) {
+        }
+
+        Iterator<MemberContext> iterator = pendingMembers.iterator();
+        iterator.next();
+        registry.moveMember("member-1", MemberState.Pending, MemberState.Active);
+        try {
+            iterator.next();
+            fail("Iterator should fail when the registry is modified");
+        } catch (ConcurrentModificationException ignore) {
+        }
+
+        // Replacing members with the members of the same view keeps them
+        registry.setMembers(MemberState.Pending, pendingMembers);
+        assertEquals(65, pendingMembers.size());
+        registry.setMembers(MemberState.Pending, null);
+        assertEquals(0, pendingMembers.size());
+        assertEquals(1, registry.getMemberCount());
+    }
+
+    @Test
+    public void testPrimaryMemberTracking() {
+        MemberRegistry registry = new MemberRegistry();
+        registry.addMember(MemberState.Pending, createMemberContext("member-1", true));
+        registry.addMember(MemberState.Pending, createMemberContext("member-2", false));
+        registry.addMember(MemberState.Active, createMemberContext("member-3", true));
+        registry.addMember(MemberState.TerminationPending, createMemberContext("member-4", true));
+        assertEquals(2, registry.getPrimaryMemberCount());
+        assertEquals(new HashSet<String>(Arrays.asList("member-1", "member-3")),
+                new HashSet<String>(registry.getPrimaryMembers()));
+
+        // Primary members are tracked while pending or active
+        registry.moveMember("member-1", MemberState.Pending, MemberState.Active);
+        assertTrue(registry.isPrimaryMember("member-1"));
+        registry.moveMember("member-3", MemberState.Active, MemberState.TerminationPending);
+        assertFalse(registry.getPrimaryMembers().contains("member-3"));
+        assertFalse(registry.isPrimaryMember("member-2"));
+        assertFalse(registry.isPrimaryMember("member-4"));
+        registry.removeMember("member-1");
+        assertEquals(0, registry.getPrimaryMemberCount());
+
+        // Primary members of all partitions are seen by the cluster instance
+        ClusterInstanceContext instanceContext = new ClusterInstanceContext("cluster-1-instance-1",
+                "round-robin", 1, 10, "network-partition-1", "cluster-1", false, false);
+        for (int i = 0; i < 3; i++) {
+            PartitionRef partition = new PartitionRef();
+            partition.setUuid("partition-" + i);
+            partition.setId("partition-" + i);
+            ClusterLevelPartitionContext partitionContext = new ClusterLevelPartitionContext(partition,
+                    "network-partition-1", "deployment-policy-1");
+            for (int j = 0; j < 3; j++) {
+                partitionContext.addActiveMember(createMemberContext("member-" + i + "-" + j, j != 1));
+            }
+            instanceContext.addPartitionCtxt(partitionContext);
+        }
+        List<String> primaryMembers = instanceContext.getPrimaryMembers();
+        assertEquals(6, primaryMembers.size());
+        assertEquals(6, new HashSet<String>(primaryMembers).size());
+        assertTrue(primaryMembers.contains("member-2-2"));
+        assertFalse(primaryMembers.contains("member-2-1"));
+        // The snapshot given to the rules does not change while members change state
+        instanceContext.getPartitionCtxt("partition-2").moveActiveMemberToTerminationPendingMembers("member-2-2");
+        assertEquals(5, instanceContext.getPrimaryMemberCount());
+        assertEquals(6, primaryMembers.size());
+        assertTrue(primaryMembers.contains("member-2-2"));
+        assertFalse(instanceContext.getPrimaryMembers().contains("member-2-2"));
+    }
+
+    @Test
+    public void testViewSerializedAsList() throws Exception {
+        MemberRegistry registry = new MemberRegistry();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeObject(registry.getMembers(MemberState.Active));
+        objectOutputStream.close();
+        Object list = new ObjectInputStream(new ByteArrayInputStream(outputStream.toByteArray())).readObject();
+        assertEquals(ArrayList.class, list.getClass());
+    }
+
+    @Test
+    public void testLifecycleEventTime() {
+        int memberCount = 1000;
+        List<MemberContext> members = new ArrayList<MemberContext>();
+        for (int i = 0; i < memberCount; i++) {
+            members.add(createMemberContext("member-" + i));
+        }
+
+        // Pending -> active -> termination pending -> removed, in a different order to the additions
+        long start = System.nanoTime();
+        MemberRegistry registry = new MemberRegistry();
+        for (MemberContext member : members) {
+            registry.addMember(MemberState.Pending, member);
+        }
+        for (int i = memberCount - 1; i >= 0; i--) {
+            registry.moveMember("member-" + i, MemberState.Pending, MemberState.Active);
+        }
+        for (int i = memberCount - 1; i >= 0; i--) {
+            registry.moveMember("member-" + i, MemberState.Active, MemberState.TerminationPending);
+        }
+        for (int i = memberCount - 1; i >= 0; i--) {
+            registry.removeMember(MemberState.TerminationPending, "member-" + i);
+        }
+        long registryTime = System.nanoTime() - start;
+        assertEquals(0, registry.getMemberCount());
+
+        start = System.nanoTime();
+        List<MemberContext> pendingMembers = new ArrayList<MemberContext>(members);
+        List<MemberContext> activeMembers = new ArrayList<MemberContext>();
+        List<MemberContext> terminationPendingMembers = new ArrayList<MemberContext>();
+        for (int i = memberCount - 1; i >= 0; i--) {
+            moveMember(pendingMembers, activeMembers, "member-" + i);
+        }
+        for (int i = memberCount - 1; i >= 0; i--) {
+            moveMember(activeMembers, terminationPendingMembers, "member-" + i);
+        }
+        for (int i = memberCount - 1; i >= 0; i--) {
+            moveMember(terminationPendingMembers, null, "member-" + i);
+        }
+        long listTime = System.nanoTime() - start;
+        assertTrue(pendingMembers.isEmpty() && activeMembers.isEmpty() && terminationPendingMembers.isEmpty());
+
+        log.info(String.format("Member lifecycle events: [members] %d [registry] %d us [list scan] %d us",
+                memberCount, registryTime / 1000, listTime / 1000));
+    }
+
+    private static void moveMember(List<MemberContext> from, List<MemberContext> to, String memberId) {
+        for (Iterator<MemberContext> iterator = from.iterator(); iterator.hasNext(); ) {
+            MemberContext member = iterator.next();
+            if (memberId.equals(member.getMemberId())) {
+                iterator.remove();
+                if (to != null) {
+                    to.add(member);
+                }
+                return;
+            }
+        }
+    }
+
+    private static Set<String> toMemberIds(List<MemberContext> members) {
+        Set<String> memberIds = new HashSet<String>();
+        for (MemberContext member : members) {
+            memberIds.add(member.getMemberId());
+        }
+        return memberIds;
+    }
+
+    private static MemberContext createMemberContext(String memberId, boolean primary) {
+        MemberContext memberContext = createMemberContext(memberId);
+        Property property = new Property();
+        property.setName(AutoscalerConstants.PRIMARY_MEMBER_PROPERTY);
+        property.setValue(String.valueOf(primary));
+        Properties properties = new Properties();
+        properties.setProperties(new Property[]{property});
+        memberContext.setProperties(properties);
+        return memberContext;
+    }
+
+    private static MemberContext createMemberContext(String memberId) {
+        MemberContext memberContext = new MemberContext();
+        memberContext.setMemberId(memberId);
+        memberContext.setClusterId("cluster-1");
+        memberContext.setClusterInstanceId("cluster-1-instance-1");
+        memberContext.setInitTime(System.currentTimeMillis());
+        return memberContext;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.forecast;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Backtests the predictors against the CEP extrapolation on synthetic traces of spiky, ramping
+ * and daily load.
+ */
+public class BacktesterTest {
+
+    private static final Log log = LogFactory.getLog(BacktesterTest.class);
+
+    private static final long START_TIME = 1400000000000L - (1400000000000L % SeasonalProfilePredictor.DAY);
+    private static final long INTERVAL = 15000L;
+    private static final long HORIZON = 60000L;
+    private static final int BUFFER_SIZE = 40;
+
+    private final Backtester backtester = new Backtester(50, 1, 10, HORIZON, BUFFER_SIZE);
+
+    @Test
+    public void testSpikyLoad() {
+        Random random = new Random(7);
+        int count = 2000;
+        long[] times = new long[count];
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = START_TIME + i * INTERVAL;
+            values[i] = 120 + random.nextGaussian() * 8;
+            if (random.nextInt(20) == 0) {
+                values[i] += 150;
+            }
+        }
+        Backtester.BacktestResult cep = backtester.backtest("cep", new CepExtrapolationPredictor(), times, values);
+        Backtester.BacktestResult holt = backtester.backtest("holt", new HoltPredictor(), times, values);
+        Backtester.BacktestResult regression = backtester.backtest("linear-regression",
+                new LinearRegressionPredictor(), times, values);
+        log.info("Spiky load: " + cep);
+        log.info("Spiky load: " + holt);
+        log.info("Spiky load: " + regression);
+
+        assertTrue(holt.getScalingActionCount() < cep.getScalingActionCount());
+        assertTrue(regression.getScalingActionCount() < cep.getScalingActionCount());
+        assertTrue(holt.getMeanAbsoluteError() < cep.getMeanAbsoluteError());
+        assertTrue(regression.getMeanAbsoluteError() < cep.getMeanAbsoluteError());
+    }
+
+    @Test
+    public void testRampingLoad() {
+        Random random = new Random(11);
+        int count = 480;
+        long[] times = new long[count];
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = START_TIME + i * INTERVAL;
+            values[i] = i + random.nextGaussian() * 5;
+        }
+        Backtester.BacktestResult cep = backtester.backtest("cep", new CepExtrapolationPredictor(), times, values);
+        Backtester.BacktestResult holt = backtester.backtest("holt", new HoltPredictor(), times, values);
+        Backtester.BacktestResult regression = backtester.backtest("linear-regression",
+                new LinearRegressionPredictor(), times, values);
+        log.info("Ramping load: " + cep);
+        log.info("Ramping load: " + holt);
+        log.info("Ramping load: " + regression);
+
+        assertTrue(holt.getMeanAbsoluteError() < cep.getMeanAbsoluteError());
+        assertTrue(regression.getMeanAbsoluteError() < cep.getMeanAbsoluteError());
+        // Load only grows, a well behaving predictor should hardly scale down
+        assertTrue(regression.getScaleDownCount() < cep.getScaleDownCount());
+    }
+
+    @Test
+    public void testDailyLoad() {
+        Random random = new Random(13);
+        int count = (int) (4 * SeasonalProfilePredictor.DAY / INTERVAL);
+        long[] times = new long[count];
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = START_TIME + i * INTERVAL;
+            values[i] = 4 * PredictorTest.dailyLoad(times[i]) + random.nextGaussian() * 10;
+        }
+        Backtester.BacktestResult cep = backtester.backtest("cep", new CepExtrapolationPredictor(), times, values);
+        Backtester.BacktestResult holt = backtester.backtest("holt", new HoltPredictor(), times, values);
+        Backtester.BacktestResult seasonal = backtester.backtest("seasonal", new SeasonalProfilePredictor(),
+                times, values);
+        log.info("Daily load: " + cep);
+        log.info("Daily load: " + holt);
+        log.info("Daily load: " + seasonal);
+
+        assertTrue(seasonal.getMeanAbsoluteError() < cep.getMeanAbsoluteError());
+        assertTrue(seasonal.getMeanAbsoluteError() < holt.getMeanAbsoluteError());
+        assertTrue(seasonal.getScalingActionCount() < cep.getScalingActionCount());
+    }
+
+    @Test
+    public void testReadTrace() throws Exception {
+        Backtester.Trace trace = Backtester.readTrace(new StringReader(
+                "# time,requests-in-flight\n1000,10.5\n\n 16000 , 12\n"));
+        assertArrayEquals(new long[]{1000, 16000}, trace.getTimes());
+        assertArrayEquals(new double[]{10.5, 12}, trace.getValues(), 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadInvalidTrace() throws Exception {
+        Backtester.readTrace(new StringReader("1000;10.5\n"));
+    }
+}
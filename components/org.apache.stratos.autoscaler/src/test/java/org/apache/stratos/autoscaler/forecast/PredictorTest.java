@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.forecast;
+
+import org.apache.stratos.autoscaler.util.AutoscalerConstants;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the observation buffer and predictors.
+ */
+public class PredictorTest {
+
+    private static final long START_TIME = 1400000000000L - (1400000000000L % SeasonalProfilePredictor.DAY);
+    private static final long INTERVAL = 15000L;
+    private static final long HORIZON = 60000L;
+
+    @Test
+    public void testObservationBufferWraps() {
+        ObservationBuffer observations = new ObservationBuffer(3);
+        assertTrue(observations.isEmpty());
+        for (int i = 0; i < 5; i++) {
+            observations.add(i, i * 10);
+        }
+        assertEquals(3, observations.size());
+        assertEquals(2, observations.getTime(0));
+        assertEquals(20, observations.getValue(0), 0);
+        assertEquals(4, observations.getLatestTime());
+        assertEquals(40, observations.getLatestValue(), 0);
+        observations.clear();
+        assertTrue(observations.isEmpty());
+    }
+
+    @Test
+    public void testNotEnoughObservations() {
+        Predictor[] predictors = new Predictor[]{new LinearRegressionPredictor(), new HoltPredictor(),
+                new SeasonalProfilePredictor(), new CepExtrapolationPredictor()};
+        for (Predictor predictor : predictors) {
+            ObservationBuffer observations = new ObservationBuffer(10);
+            observations.add(START_TIME, 10);
+            predictor.update(observations);
+            assertTrue(predictor.getClass().getSimpleName(),
+                    Double.isNaN(predictor.predict(observations, START_TIME + HORIZON)));
+        }
+    }
+
+    @Test
+    public void testLinearRegressionOnLine() {
+        ObservationBuffer observations = new ObservationBuffer(10);
+        Predictor predictor = new LinearRegressionPredictor();
+        for (int i = 0; i < 20; i++) {
+            long time = START_TIME + i * INTERVAL;
+            observations.add(time, 5 + 2 * (time - START_TIME) / 1000d);
+            predictor.update(observations);
+        }
+        long time = observations.getLatestTime() + HORIZON;
+        assertEquals(5 + 2 * (time - START_TIME) / 1000d, predictor.predict(observations, time), 1e-6);
+    }
+
+    @Test
+    public void testHoltFollowsRamp() {
+        ObservationBuffer observations = new ObservationBuffer(10);
+        Predictor predictor = new HoltPredictor();
+        for (int i = 0; i < 40; i++) {
+            long time = START_TIME + i * INTERVAL;
+            observations.add(time, (time - START_TIME) / 1000d);
+            predictor.update(observations);
+        }
+        long time = observations.getLatestTime() + HORIZON;
+        double expected = (time - START_TIME) / 1000d;
+        assertEquals(expected, predictor.predict(observations, time), expected * 0.01);
+    }
+
+    @Test
+    public void testSeasonalLearnsDailyProfile() {
+        ObservationBuffer observations = new ObservationBuffer(40);
+        SeasonalProfilePredictor seasonal = new SeasonalProfilePredictor(96, 0.3);
+        HoltPredictor holt = new HoltPredictor();
+        long time = START_TIME;
+        for (; time < START_TIME + 3 * SeasonalProfilePredictor.DAY; time += INTERVAL) {
+            observations.add(time, dailyLoad(time));
+            seasonal.update(observations);
+            holt.update(observations);
+        }
+        long predictedTime = observations.getLatestTime() + 3 * 60 * 60 * 1000L;
+        assertTrue(seasonal.isProfiled(predictedTime));
+        double expected = dailyLoad(predictedTime);
+        double seasonalError = Math.abs(seasonal.predict(observations, predictedTime) - expected);
+        double holtError = Math.abs(holt.predict(observations, predictedTime) - expected);
+        assertTrue(String.format("[seasonal-error] %s [holt-error] %s", seasonalError, holtError),
+                seasonalError < holtError);
+        assertEquals(expected, seasonal.predict(observations, predictedTime), 10);
+    }
+
+    @Test
+    public void testPredictorFactory() {
+        assertTrue(PredictorFactory.createPredictor(AutoscalerConstants.PREDICTOR_LINEAR_REGRESSION)
+                instanceof LinearRegressionPredictor);
+        assertTrue(PredictorFactory.createPredictor(AutoscalerConstants.PREDICTOR_HOLT) instanceof HoltPredictor);
+        assertTrue(PredictorFactory.createPredictor(AutoscalerConstants.PREDICTOR_SEASONAL)
+                instanceof SeasonalProfilePredictor);
+        assertFalse(PredictorFactory.isPredictorDefined(null));
+        assertFalse(PredictorFactory.isPredictorDefined("arima"));
+        assertNull(PredictorFactory.createPredictor("arima"));
+    }
+
+    @Test
+    public void testForecasterClampsOutOfOrderObservations() {
+        ClusterInstanceForecaster forecaster = new ClusterInstanceForecaster(AutoscalerConstants.PREDICTOR_HOLT, 10);
+        assertTrue(Double.isNaN(forecaster.predict(ForecastMetric.LOAD_AVERAGE, START_TIME)));
+        forecaster.addObservation(ForecastMetric.LOAD_AVERAGE, START_TIME, 10);
+        forecaster.addObservation(ForecastMetric.LOAD_AVERAGE, START_TIME + INTERVAL, 20);
+        forecaster.addObservation(ForecastMetric.LOAD_AVERAGE, START_TIME, 20);
+        assertEquals(3, forecaster.getObservationCount(ForecastMetric.LOAD_AVERAGE));
+        assertEquals(0, forecaster.getObservationCount(ForecastMetric.MEMORY_CONSUMPTION));
+        assertFalse(Double.isNaN(forecaster.predict(ForecastMetric.LOAD_AVERAGE, START_TIME + HORIZON)));
+    }
+
+    /**
+     * Load of a day peaking at noon, between 20 and 100.
+     */
+    static double dailyLoad(long time) {
+        double phase = 2 * Math.PI * (time % SeasonalProfilePredictor.DAY) / SeasonalProfilePredictor.DAY;
+        return 60 - 40 * Math.cos(phase);
+    }
+}
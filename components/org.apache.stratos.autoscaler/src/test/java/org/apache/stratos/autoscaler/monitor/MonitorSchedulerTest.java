@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.monitor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Monitor scheduler tests, run with the worker pool configuration used in production. Monitors
+ * are scheduled with a long interval so that only the first tick is executed by the timer and
+ * the outcome of each tick can be counted.
+ */
+public class MonitorSchedulerTest {
+
+    private static final Log log = LogFactory.getLog(MonitorSchedulerTest.class);
+
+    private static final int CLUSTER_COUNT = 2000;
+    private static final int WORKER_POOL_SIZE = 2;
+    private static final long INTERVAL = TimeUnit.HOURS.toMillis(1);
+    private static final long WAIT_TIMEOUT = 10000;
+
+    private ScheduledThreadPoolExecutor timer;
+    private ThreadPoolExecutor workerPool;
+
+    @Before
+    public void setUp() {
+        timer = new ScheduledThreadPoolExecutor(1);
+        workerPool = MonitorScheduler.createWorkerPool(WORKER_POOL_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        timer.shutdownNow();
+        workerPool.shutdownNow();
+    }
+
+    /**
+     * Schedule 2000 simulated cluster monitors and verify that each first tick is either executed
+     * or counted as skipped, and that worker threads do not grow with the number of clusters.
+     */
+    @Test
+    public void testEveryTickIsExecutedOrSkippedAtScale() throws Exception {
+        MonitorScheduler scheduler = new MonitorScheduler(timer, workerPool, 0.1f);
+        AtomicInteger executedTicks = new AtomicInteger();
+        List<MonitorScheduler.MonitorSchedule> schedules = new ArrayList<MonitorScheduler.MonitorSchedule>();
+        for (int i = 0; i < CLUSTER_COUNT; i++) {
+            schedules.add(scheduler.schedule("cluster-" + i, new CountingTask(executedTicks), INTERVAL));
+        }
+        waitForTimerTasks(CLUSTER_COUNT);
+        waitForWorkerTasks(CLUSTER_COUNT - getRejectedTickCount(schedules));
+
+        long ticks = 0, rejected = 0;
+        for (MonitorScheduler.MonitorSchedule schedule : schedules) {
+            assertEquals("Tick should be executed or skipped once: [monitor] " + schedule.getMonitorId(),
+                    1, schedule.getTickCount() + schedule.getRejectedTickCount());
+            assertEquals(0, schedule.getOverrunCount());
+            assertEquals(0, schedule.getMissedTickCount());
+            ticks += schedule.getTickCount();
+            rejected += schedule.getRejectedTickCount();
+            schedule.cancel();
+        }
+        assertEquals(ticks, executedTicks.get());
+        assertEquals(0, timer.getQueue().size());
+        assertTrue("Worker threads should not grow with the number of clusters",
+                workerPool.getLargestPoolSize() <= WORKER_POOL_SIZE);
+        log.info(String.format("Monitor ticks: [clusters] %d [executed] %d [skipped] %d",
+                CLUSTER_COUNT, ticks, rejected));
+    }
+
+    /**
+     * Ticks should be rejected and counted as skipped without blocking the timer once the worker
+     * threads and the worker queue are full.
+     */
+    @Test
+    public void testTicksSkippedWhenWorkerPoolIsFull() throws Exception {
+        MonitorScheduler scheduler = new MonitorScheduler(timer, workerPool, 0f);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executedTicks = new AtomicInteger();
+        List<MonitorScheduler.MonitorSchedule> schedules = new ArrayList<MonitorScheduler.MonitorSchedule>();
+        for (int i = 0; i < 10; i++) {
+            schedules.add(scheduler.schedule("cluster-" + i, new BlockingTask(release, executedTicks), INTERVAL));
+        }
+        // The timer keeps dispatching ticks while all workers are blocked
+        waitForTimerTasks(10);
+        assertEquals(WORKER_POOL_SIZE, workerPool.getPoolSize());
+        assertEquals(WORKER_POOL_SIZE, workerPool.getQueue().size());
+        assertEquals(10 - 2 * WORKER_POOL_SIZE, getRejectedTickCount(schedules));
+
+        release.countDown();
+        waitForWorkerTasks(2 * WORKER_POOL_SIZE);
+        assertEquals(2 * WORKER_POOL_SIZE, executedTicks.get());
+        for (MonitorScheduler.MonitorSchedule schedule : schedules) {
+            assertEquals(1, schedule.getTickCount() + schedule.getRejectedTickCount());
+            schedule.cancel();
+        }
+    }
+
+    /**
+     * Monitors scheduled together should be spread over the jitter window.
+     */
+    @Test
+    public void testTicksAreSpreadByJitter() {
+        MonitorScheduler scheduler = new MonitorScheduler(timer, workerPool, 0.5f);
+        long interval = 60000;
+        long minOffset = Long.MAX_VALUE, maxOffset = 0;
+        for (int i = 0; i < CLUSTER_COUNT; i++) {
+            MonitorScheduler.MonitorSchedule schedule = scheduler.schedule("cluster-" + i,
+                    new CountingTask(new AtomicInteger()), interval);
+            minOffset = Math.min(minOffset, schedule.getPhaseOffsetMillis());
+            maxOffset = Math.max(maxOffset, schedule.getPhaseOffsetMillis());
+            schedule.cancel();
+        }
+        assertTrue(minOffset >= 0 && minOffset < interval / 20);
+        assertTrue(maxOffset < interval / 2 && maxOffset > interval / 2 - interval / 20);
+        assertEquals(0, scheduler.getMonitorSchedules().size());
+    }
+
+    /**
+     * A tick should be skipped while the previous tick of the same monitor is running.
+     */
+    @Test
+    public void testOverrunningTickIsSkipped() throws Exception {
+        MonitorScheduler scheduler = new MonitorScheduler(timer, workerPool, 0f);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executedTicks = new AtomicInteger();
+        MonitorScheduler.MonitorSchedule schedule = scheduler.schedule("slow-cluster",
+                new BlockingTask(release, executedTicks), INTERVAL);
+        waitForTimerTasks(1);
+
+        // Ticks fired by the timer while the first tick is running
+        for (int i = 0; i < 3; i++) {
+            schedule.run();
+        }
+        assertEquals(3, schedule.getOverrunCount());
+
+        release.countDown();
+        waitForWorkerTasks(1);
+        assertEquals(1, schedule.getTickCount());
+        schedule.run();
+        waitForWorkerTasks(2);
+        assertEquals(2, schedule.getTickCount());
+        assertEquals(2, executedTicks.get());
+        assertEquals(3, schedule.getOverrunCount());
+        schedule.cancel();
+    }
+
+    /**
+     * A cancelled monitor should not tick any more.
+     */
+    @Test
+    public void testCancelledMonitorDoesNotTick() throws Exception {
+        MonitorScheduler scheduler = new MonitorScheduler(timer, workerPool, 0f);
+        AtomicInteger executedTicks = new AtomicInteger();
+        MonitorScheduler.MonitorSchedule schedule = scheduler.schedule("cluster",
+                new CountingTask(executedTicks), INTERVAL);
+        waitForTimerTasks(1);
+        waitForWorkerTasks(1);
+        schedule.cancel();
+        assertTrue(schedule.isCancelled());
+        assertEquals(0, timer.getQueue().size());
+
+        schedule.run();
+        assertEquals(1, schedule.getTickCount());
+        assertEquals(1, workerPool.getCompletedTaskCount());
+        assertEquals(1, executedTicks.get());
+    }
+
+    /**
+     * Evaluation lag is measured from the tick to the start of the evaluation.
+     */
+    @Test
+    public void testEvaluationStatistics() {
+        MonitorScheduler scheduler = new MonitorScheduler(timer, workerPool, 0f);
+        MonitorScheduler.MonitorSchedule schedule = scheduler.schedule("cluster",
+                new CountingTask(new AtomicInteger()), INTERVAL);
+
+        schedule.recordEvaluation(1000, 1100, 1150);
+        schedule.recordEvaluation(2000, 2300, 2450);
+        assertEquals(2, schedule.getEvaluationCount());
+        assertEquals(300, schedule.getLastLagMillis());
+        assertEquals(300, schedule.getMaxLagMillis());
+        assertEquals(200, schedule.getAverageLagMillis());
+        assertEquals(150, schedule.getMaxEvaluationMillis());
+        assertEquals(100, schedule.getAverageEvaluationMillis());
+        assertEquals(1, scheduler.getLaggingMonitorSchedules(299).size());
+        assertEquals(0, scheduler.getLaggingMonitorSchedules(300).size());
+        schedule.cancel();
+    }
+
+    private long getRejectedTickCount(List<MonitorScheduler.MonitorSchedule> schedules) {
+        long rejected = 0;
+        for (MonitorScheduler.MonitorSchedule schedule : schedules) {
+            rejected += schedule.getRejectedTickCount();
+        }
+        return rejected;
+    }
+
+    private void waitForTimerTasks(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT;
+        while (timer.getCompletedTaskCount() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timer tasks not completed: [expected] " + count + " [completed] " + timer.getCompletedTaskCount());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private void waitForWorkerTasks(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT;
+        while (workerPool.getCompletedTaskCount() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Worker tasks not completed: [expected] " + count + " [completed] "
+                        + workerPool.getCompletedTaskCount());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Simulated cluster monitor task, counts the ticks executed.
+     */
+    private static class CountingTask implements Runnable {
+
+        private final AtomicInteger executedTicks;
+
+        private CountingTask(AtomicInteger executedTicks) {
+            this.executedTicks = executedTicks;
+        }
+
+        @Override
+        public void run() {
+            executedTicks.incrementAndGet();
+        }
+    }
+
+    /**
+     * Simulated cluster monitor task which blocks until released.
+     */
+    private static class BlockingTask implements Runnable {
+
+        private final CountDownLatch release;
+        private final AtomicInteger executedTicks;
+
+        private BlockingTask(CountDownLatch release, AtomicInteger executedTicks) {
+            this.release = release;
+            this.executedTicks = executedTicks;
+        }
+
+        @Override
+        public void run() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executedTicks.incrementAndGet();
+        }
+    }
+}
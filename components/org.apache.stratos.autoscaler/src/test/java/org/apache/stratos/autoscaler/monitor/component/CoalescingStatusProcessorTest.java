@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.monitor.component;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Coalescing status processor tests, verifies that requests within a window are processed once,
+ * in order and never concurrently, and measures the time taken by a large nested application to
+ * become active.
+ */
+public class CoalescingStatusProcessorTest {
+
+    private static final Log log = LogFactory.getLog(CoalescingStatusProcessorTest.class);
+
+    private static final long WINDOW = 50;
+    private static final long TIMEOUT = 10000;
+
+    private ScheduledThreadPoolExecutor scheduler;
+    private ScheduledThreadPoolExecutor eventPool;
+
+    @Before
+    public void setUp() {
+        scheduler = new ScheduledThreadPoolExecutor(4);
+        eventPool = new ScheduledThreadPoolExecutor(16);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+        eventPool.shutdownNow();
+    }
+
+    @Test
+    public void testRequestsWithinWindowProcessedOnce() throws Exception {
+        RecordingProcessor processor = new RecordingProcessor(1);
+        CoalescingStatusProcessor statusProcessor = new CoalescingStatusProcessor("application-1", processor,
+                scheduler, WINDOW);
+        for (int i = 0; i < 50; i++) {
+            statusProcessor.requestProcessing("application-1-1");
+        }
+        assertTrue(processor.await());
+        Thread.sleep(2 * WINDOW);
+        assertEquals(Collections.singletonList("application-1-1"), processor.getInstanceIds());
+        assertEquals(50, statusProcessor.getRequestCount());
+        assertEquals(1, statusProcessor.getProcessedCount());
+    }
+
+    @Test
+    public void testInstancesProcessedInRequestOrder() throws Exception {
+        RecordingProcessor processor = new RecordingProcessor(3);
+        CoalescingStatusProcessor statusProcessor = new CoalescingStatusProcessor("group-1", processor,
+                scheduler, WINDOW);
+        statusProcessor.requestProcessing("group-1-2");
+        statusProcessor.requestProcessing("group-1-1");
+        statusProcessor.requestProcessing("group-1-2");
+        statusProcessor.requestProcessing("group-1-3");
+        assertTrue(processor.await());
+        List<String> expected = new ArrayList<String>();
+        expected.add("group-1-2");
+        expected.add("group-1-1");
+        expected.add("group-1-3");
+        assertEquals(expected, processor.getInstanceIds());
+    }
+
+    /**
+     * Requests made while a window is processed are processed in the next window and processing
+     * is never run concurrently even if requests arrive from many threads.
+     */
+    @Test
+    public void testRequestsDuringProcessingNotLost() throws Exception {
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        final AtomicLong lastRequestProcessed = new AtomicLong();
+        final AtomicLong lastRequestMade = new AtomicLong();
+        final CoalescingStatusProcessor statusProcessor = new CoalescingStatusProcessor("group-1",
+                new CoalescingStatusProcessor.InstanceStatusProcessor() {
+                    @Override
+                    public void process(String instanceId) {
+                        if (concurrent.incrementAndGet() > 1) {
+                            overlapped.set(true);
+                        }
+                        long request = lastRequestMade.get();
+                        try {
+                            Thread.sleep(5);
+                        } catch (InterruptedException ignored) {
+                        }
+                        lastRequestProcessed.set(request);
+                        concurrent.decrementAndGet();
+                    }
+                }, scheduler, 10);
+        final CountDownLatch latch = new CountDownLatch(2000);
+        for (int i = 0; i < 2000; i++) {
+            eventPool.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (lastRequestMade) {
+                        lastRequestMade.incrementAndGet();
+                        statusProcessor.requestProcessing("group-1-1");
+                    }
+                    latch.countDown();
+                }
+            }, i / 10, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (lastRequestProcessed.get() != 2000 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // The last request made is observed by processing started after it
+        assertEquals(2000, lastRequestProcessed.get());
+        assertFalse("Status processing was run concurrently", overlapped.get());
+        assertTrue(statusProcessor.getProcessedCount() < statusProcessor.getRequestCount());
+    }
+
+    @Test
+    public void testProcessedImmediatelyWithoutWindow() {
+        RecordingProcessor processor = new RecordingProcessor(2);
+        CoalescingStatusProcessor statusProcessor = new CoalescingStatusProcessor("group-1", processor,
+                scheduler, 0);
+        statusProcessor.requestProcessing("group-1-1");
+        assertEquals(Collections.singletonList("group-1-1"), processor.getInstanceIds());
+        statusProcessor.requestProcessing("group-1-1");
+        assertEquals(2, processor.getInstanceIds().size());
+    }
+
+    @Test
+    public void testImmediateProcessingFulfilsPendingRequest() throws Exception {
+        RecordingProcessor processor = new RecordingProcessor(2);
+        CoalescingStatusProcessor statusProcessor = new CoalescingStatusProcessor("group-1", processor,
+                scheduler, WINDOW);
+        statusProcessor.requestProcessing("group-1-1");
+        statusProcessor.requestProcessing("group-1-2");
+        statusProcessor.processImmediately("group-1-1");
+        assertEquals(Collections.singletonList("group-1-1"), processor.getInstanceIds());
+        assertTrue(processor.await());
+        Thread.sleep(2 * WINDOW);
+        List<String> expected = new ArrayList<String>();
+        expected.add("group-1-1");
+        expected.add("group-1-2");
+        assertEquals(expected, processor.getInstanceIds());
+        assertEquals(3, statusProcessor.getRequestCount());
+        assertEquals(2, statusProcessor.getProcessedCount());
+    }
+
+    /**
+     * Activates the clusters of an application of ten groups, each with five nested groups of five
+     * clusters, and measures the time until the application becomes active along with the number
+     * of status evaluations with and without coalescing.
+     */
+    @Test
+    public void testNestedApplicationTimeToActive() throws Exception {
+        NestedApplication immediate = new NestedApplication(0);
+        long immediateTime = immediate.activate();
+        NestedApplication coalesced = new NestedApplication(WINDOW);
+        long coalescedTime = coalesced.activate();
+        log.info(String.format("Nested application time to active: [clusters] %d [window] 0 [time] %d ms " +
+                        "[evaluations] %d [window] %d [time] %d ms [evaluations] %d", immediate.clusterCount,
+                immediateTime, immediate.evaluationCount.get(), WINDOW, coalescedTime,
+                coalesced.evaluationCount.get()));
+
+        // Every group and the application are published active exactly once in both modes
+        assertEquals(immediate.parentCount, immediate.activatedCount.get());
+        assertEquals(coalesced.parentCount, coalesced.activatedCount.get());
+        assertTrue(coalesced.evaluationCount.get() * 4 < immediate.evaluationCount.get());
+    }
+
+    private static class RecordingProcessor implements CoalescingStatusProcessor.InstanceStatusProcessor {
+
+        private final List<String> instanceIds = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch latch;
+
+        private RecordingProcessor(int count) {
+            latch = new CountDownLatch(count);
+        }
+
+        @Override
+        public void process(String instanceId) {
+            instanceIds.add(instanceId);
+            latch.countDown();
+        }
+
+        private boolean await() throws InterruptedException {
+            return latch.await(TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+
+        private List<String> getInstanceIds() {
+            return new ArrayList<String>(instanceIds);
+        }
+    }
+
+    /**
+     * Application monitor hierarchy in which each parent evaluates the status of all its children
+     * upon a child status change, as the group status processors do, and notifies its own parent
+     * once all children are active.
+     */
+    private class NestedApplication {
+
+        private final long window;
+        private final AtomicInteger evaluationCount = new AtomicInteger();
+        private final AtomicInteger activatedCount = new AtomicInteger();
+        private final List<Component> clusters = new ArrayList<Component>();
+        private final CountDownLatch applicationActive = new CountDownLatch(1);
+        private final Component application;
+        private int parentCount;
+        private int clusterCount;
+
+        private NestedApplication(long window) {
+            this.window = window;
+            application = createParent(null, "application-1");
+            for (int i = 0; i < 10; i++) {
+                Component group = createParent(application, "group-" + i);
+                for (int j = 0; j < 5; j++) {
+                    Component nestedGroup = createParent(group, "group-" + i + "-" + j);
+                    for (int k = 0; k < 5; k++) {
+                        Component cluster = new Component(nestedGroup, "cluster-" + i + "-" + j + "-" + k, null);
+                        nestedGroup.children.add(cluster);
+                        clusters.add(cluster);
+                        clusterCount++;
+                    }
+                }
+            }
+        }
+
+        private Component createParent(Component parent, String id) {
+            Component component = new Component(parent, id, window);
+            if (parent != null) {
+                parent.children.add(component);
+            }
+            parentCount++;
+            return component;
+        }
+
+        /**
+         * Activate the clusters from the event pool, spread over a short period, and return the
+         * time taken by the application to become active.
+         */
+        private long activate() throws InterruptedException {
+            long startTime = System.nanoTime();
+            for (int i = 0; i < clusters.size(); i++) {
+                final Component cluster = clusters.get(i);
+                eventPool.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        cluster.active = true;
+                        cluster.parent.statusProcessor.requestProcessing(cluster.parent.id + "-1");
+                    }
+                }, i % 50, TimeUnit.MILLISECONDS);
+            }
+            assertTrue("Application did not become active",
+                    applicationActive.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            return (System.nanoTime() - startTime) / 1000000;
+        }
+
+        private class Component {
+
+            private final Component parent;
+            private final String id;
+            private final List<Component> children = new ArrayList<Component>();
+            private final AtomicBoolean published = new AtomicBoolean();
+            private final CoalescingStatusProcessor statusProcessor;
+            private volatile boolean active;
+
+            private Component(Component parent, String id, Long window) {
+                this.parent = parent;
+                this.id = id;
+                this.statusProcessor = (window == null) ? null : new CoalescingStatusProcessor(id,
+                        new CoalescingStatusProcessor.InstanceStatusProcessor() {
+                            @Override
+                            public void process(String instanceId) {
+                                evaluate();
+                            }
+                        }, scheduler, window);
+            }
+
+            private void evaluate() {
+                evaluationCount.incrementAndGet();
+                for (Component child : children) {
+                    if (!child.active) {
+                        return;
+                    }
+                }
+                // Publishing the status event
+                if (published.compareAndSet(false, true)) {
+                    activatedCount.incrementAndGet();
+                    active = true;
+                    if (parent == null) {
+                        applicationActive.countDown();
+                    } else {
+                        parent.statusProcessor.requestProcessing(parent.id + "-1");
+                    }
+                }
+            }
+        }
+    }
+}
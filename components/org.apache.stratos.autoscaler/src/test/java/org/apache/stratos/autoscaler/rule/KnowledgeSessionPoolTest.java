@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.rule;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.context.cluster.ClusterInstanceContext;
+import org.apache.stratos.autoscaler.context.partition.ClusterLevelPartitionContext;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.AutoscalePolicy;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.LoadThresholds;
+import org.apache.stratos.common.constants.StratosConstants;
+import org.apache.stratos.common.partition.PartitionRef;
+import org.drools.KnowledgeBase;
+import org.drools.runtime.StatefulKnowledgeSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of pooled drools sessions and reloading of rule files.
+ */
+public class KnowledgeSessionPoolTest {
+
+    private static final Log log = LogFactory.getLog(KnowledgeSessionPoolTest.class);
+
+    private static final String DROOLS_DIR = "../../products/stratos/modules/distribution/src/main/conf/drools";
+    private static final String[] DRL_FILE_NAMES = new String[]{
+            StratosConstants.MIN_CHECK_DROOL_FILE, StratosConstants.MAX_CHECK_DROOL_FILE,
+            StratosConstants.SCALE_CHECK_DROOL_FILE, StratosConstants.DEPENDENT_SCALE_CHECK_DROOL_FILE,
+            StratosConstants.OBSOLETE_CHECK_DROOL_FILE};
+    private static final int CLUSTER_INSTANCE_COUNT = 1000;
+
+    private File droolsDir;
+
+    @Before
+    public void setUp() throws IOException {
+        droolsDir = Files.createTempDirectory("drools").toFile();
+        for (String drlFileName : DRL_FILE_NAMES) {
+            Files.copy(new File(DROOLS_DIR, drlFileName).toPath(), new File(droolsDir, drlFileName).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = droolsDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        droolsDir.delete();
+    }
+
+    @Test
+    public void testPooledSessionsAreBounded() throws Exception {
+        final AutoscalerRuleEvaluator ruleEvaluator = new AutoscalerRuleEvaluator(DROOLS_DIR, 2);
+        final ScalingDecisionEngine engine = new DroolsScalingDecisionEngine(ruleEvaluator);
+        final List<ClusterInstanceContext> clusterInstanceContexts = createClusterInstanceContexts(200);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (final ClusterInstanceContext clusterInstanceContext : clusterInstanceContexts) {
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    evaluate(engine, clusterInstanceContext);
+                }
+            });
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(60, TimeUnit.SECONDS));
+
+        for (String drlFileName : DRL_FILE_NAMES) {
+            KnowledgeSessionPool sessionPool = ruleEvaluator.getSessionPool(drlFileName);
+            assertTrue(sessionPool.getSessionCount() >= 1);
+            assertTrue(sessionPool.getSessionCount() <= 2);
+            assertEquals(sessionPool.getSessionCount(), sessionPool.getIdleSessionCount());
+        }
+        for (ClusterInstanceContext clusterInstanceContext : clusterInstanceContexts) {
+            assertNull(clusterInstanceContext.getMinCheckKnowledgeSession());
+            assertNull(clusterInstanceContext.getScaleCheckKnowledgeSession());
+            assertNull(clusterInstanceContext.getObsoleteCheckKnowledgeSession());
+        }
+    }
+
+    @Test
+    public void testHeapPerThousandClusterInstances() throws InterruptedException {
+        long instanceSessionHeap = measureHeap(new AutoscalerRuleEvaluator(DROOLS_DIR));
+        long pooledSessionHeap = measureHeap(new AutoscalerRuleEvaluator(DROOLS_DIR, 4));
+        log.info(String.format("Heap used by %d cluster instances: [sessions-per-cluster-instance] %d KB " +
+                        "[pooled-sessions] %d KB", CLUSTER_INSTANCE_COUNT, instanceSessionHeap / 1024,
+                pooledSessionHeap / 1024));
+        assertTrue(pooledSessionHeap < instanceSessionHeap);
+    }
+
+    @Test
+    public void testRuleFileReload() throws IOException {
+        AutoscalerRuleEvaluator ruleEvaluator = new AutoscalerRuleEvaluator(droolsDir.getPath(), 2);
+        KnowledgeBase knowledgeBase = ruleEvaluator.getKnowledgeBase(StratosConstants.MIN_CHECK_DROOL_FILE);
+        KnowledgeSessionPool sessionPool = ruleEvaluator.getSessionPool(StratosConstants.MIN_CHECK_DROOL_FILE);
+        assertEquals(0, ruleEvaluator.reloadModifiedRuleFiles());
+
+        modifyRuleFile(StratosConstants.MIN_CHECK_DROOL_FILE, "\n// modified\n", true);
+        assertEquals(1, ruleEvaluator.reloadModifiedRuleFiles());
+        KnowledgeBase reloadedKnowledgeBase = ruleEvaluator.getKnowledgeBase(StratosConstants.MIN_CHECK_DROOL_FILE);
+        assertNotSame(knowledgeBase, reloadedKnowledgeBase);
+        assertTrue(sessionPool.isClosed());
+        assertSame(reloadedKnowledgeBase,
+                ruleEvaluator.getSessionPool(StratosConstants.MIN_CHECK_DROOL_FILE).getKnowledgeBase());
+
+        // Rule file with errors is not applied
+        modifyRuleFile(StratosConstants.MIN_CHECK_DROOL_FILE, "rule \"Invalid Rule\" when then", false);
+        assertEquals(0, ruleEvaluator.reloadModifiedRuleFiles());
+        assertSame(reloadedKnowledgeBase, ruleEvaluator.getKnowledgeBase(StratosConstants.MIN_CHECK_DROOL_FILE));
+        assertEquals(0, ruleEvaluator.reloadModifiedRuleFiles());
+    }
+
+    @Test
+    public void testInstanceSessionReplacedOnReload() throws IOException {
+        AutoscalerRuleEvaluator ruleEvaluator = new AutoscalerRuleEvaluator(droolsDir.getPath());
+        ScalingDecisionEngine engine = new DroolsScalingDecisionEngine(ruleEvaluator);
+        ClusterInstanceContext clusterInstanceContext = createClusterInstanceContexts(1).get(0);
+
+        evaluate(engine, clusterInstanceContext);
+        StatefulKnowledgeSession ksession = clusterInstanceContext.getMinCheckKnowledgeSession();
+        assertNotNull(ksession);
+        evaluate(engine, clusterInstanceContext);
+        assertSame(ksession, clusterInstanceContext.getMinCheckKnowledgeSession());
+
+        modifyRuleFile(StratosConstants.MIN_CHECK_DROOL_FILE, "\n// modified\n", true);
+        assertEquals(1, ruleEvaluator.reloadModifiedRuleFiles());
+        evaluate(engine, clusterInstanceContext);
+        StatefulKnowledgeSession reloadedSession = clusterInstanceContext.getMinCheckKnowledgeSession();
+        assertNotSame(ksession, reloadedSession);
+        assertSame(ruleEvaluator.getKnowledgeBase(StratosConstants.MIN_CHECK_DROOL_FILE),
+                reloadedSession.getKnowledgeBase());
+        // Sessions of rule files which were not modified are kept
+        assertSame(ruleEvaluator.getKnowledgeBase(StratosConstants.MAX_CHECK_DROOL_FILE),
+                clusterInstanceContext.getMaxCheckKnowledgeSession().getKnowledgeBase());
+    }
+
+    private void modifyRuleFile(String drlFileName, String content, boolean append) throws IOException {
+        File drlFile = new File(droolsDir, drlFileName);
+        long modifiedTime = drlFile.lastModified();
+        FileWriter writer = new FileWriter(drlFile, append);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+        // Make sure the modification is visible with coarse file system timestamps
+        assertTrue(drlFile.setLastModified(modifiedTime + 2000));
+    }
+
+    private long measureHeap(AutoscalerRuleEvaluator ruleEvaluator) throws InterruptedException {
+        long usedHeapBefore = getUsedHeap();
+        ScalingDecisionEngine engine = new DroolsScalingDecisionEngine(ruleEvaluator);
+        List<ClusterInstanceContext> clusterInstanceContexts = createClusterInstanceContexts(CLUSTER_INSTANCE_COUNT);
+        for (ClusterInstanceContext clusterInstanceContext : clusterInstanceContexts) {
+            evaluate(engine, clusterInstanceContext);
+        }
+        long usedHeap = getUsedHeap() - usedHeapBefore;
+        // Keep the cluster instances reachable until measured
+        assertEquals(CLUSTER_INSTANCE_COUNT, clusterInstanceContexts.size());
+        return usedHeap;
+    }
+
+    private static long getUsedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Evaluate all rule files of the cluster instance, statistics are left unset hence no scaling
+     * decisions are made.
+     */
+    private static void evaluate(ScalingDecisionEngine engine, ClusterInstanceContext clusterInstanceContext) {
+        ScalingDecisionParameters parameters = new ScalingDecisionParameters(new RuleTasksDelegator(),
+                clusterInstanceContext.getClusterId());
+        parameters.setApplicationId("application-1");
+        parameters.setAlgorithmName(StratosConstants.PARTITION_ROUND_ROBIN_ALGORITHM_ID);
+        LoadThresholds loadThresholds = new LoadThresholds();
+        loadThresholds.setRequestsInFlightThreshold(50);
+        loadThresholds.setMemoryConsumptionThreshold(80);
+        loadThresholds.setLoadAverageThreshold(80);
+        AutoscalePolicy autoscalePolicy = new AutoscalePolicy();
+        autoscalePolicy.setId("autoscale-policy-1");
+        autoscalePolicy.setLoadThresholds(loadThresholds);
+        parameters.setAutoscalePolicy(autoscalePolicy);
+
+        engine.evaluateMinCheck(clusterInstanceContext, parameters);
+        engine.evaluateMaxCheck(clusterInstanceContext, parameters);
+        engine.evaluateScaleCheck(clusterInstanceContext, parameters);
+        engine.evaluateDependentScaleCheck(clusterInstanceContext, parameters);
+        for (ClusterLevelPartitionContext partitionContext : clusterInstanceContext.getPartitionCtxts()) {
+            engine.evaluateObsoleteCheck(clusterInstanceContext, partitionContext, parameters);
+        }
+    }
+
+    private static List<ClusterInstanceContext> createClusterInstanceContexts(int count) {
+        List<ClusterInstanceContext> clusterInstanceContexts = new ArrayList<ClusterInstanceContext>(count);
+        for (int i = 0; i < count; i++) {
+            ClusterInstanceContext clusterInstanceContext = new ClusterInstanceContext("cluster-instance-" + i,
+                    StratosConstants.PARTITION_ROUND_ROBIN_ALGORITHM_ID, 0, 0, "network-partition-1",
+                    "cluster-" + i, false, false);
+            PartitionRef partition = new PartitionRef();
+            partition.setUuid("partition-1");
+            partition.setId("partition-1");
+            clusterInstanceContext.addPartitionCtxt(new ClusterLevelPartitionContext(partition,
+                    "network-partition-1", "deployment-policy-1") {
+                @Override
+                public int getMax() {
+                    return 0;
+                }
+            });
+            clusterInstanceContexts.add(clusterInstanceContext);
+        }
+        return clusterInstanceContexts;
+    }
+}
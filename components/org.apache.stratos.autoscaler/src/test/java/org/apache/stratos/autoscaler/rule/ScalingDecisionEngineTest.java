@@ -0,0 +1,419 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.rule;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.context.cluster.ClusterInstanceContext;
+import org.apache.stratos.autoscaler.context.member.MemberStatsContext;
+import org.apache.stratos.autoscaler.context.partition.ClusterLevelPartitionContext;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.AutoscalePolicy;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.LoadThresholds;
+import org.apache.stratos.cloud.controller.stub.domain.MemberContext;
+import org.apache.stratos.common.constants.StratosConstants;
+import org.apache.stratos.common.partition.PartitionRef;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Differential tests of the scaling decision engines, the drools and the java engine are run over
+ * the same statistics sequences on identical cluster instances and are expected to make identical
+ * decisions in every monitoring cycle.
+ */
+public class ScalingDecisionEngineTest {
+
+    private static final Log log = LogFactory.getLog(ScalingDecisionEngineTest.class);
+
+    private static final String DROOLS_DIR = "../../products/stratos/modules/distribution/src/main/conf/drools";
+    private static final String CLUSTER_ID = "cluster-1";
+    private static final int SEQUENCE_COUNT = 25;
+    private static final int CYCLE_COUNT = 40;
+
+    private static AutoscalerRuleEvaluator ruleEvaluator;
+
+    @BeforeClass
+    public static void setUp() {
+        ruleEvaluator = new AutoscalerRuleEvaluator(DROOLS_DIR);
+    }
+
+    @Test
+    public void testRoundRobinDecisions() {
+        assertIdenticalDecisions(StratosConstants.PARTITION_ROUND_ROBIN_ALGORITHM_ID, false, false, false, 1000);
+    }
+
+    @Test
+    public void testOneAfterAnotherDecisions() {
+        assertIdenticalDecisions(StratosConstants.PARTITION_ONE_AFTER_ANOTHER_ALGORITHM_ID, false, false, false, 2000);
+    }
+
+    @Test
+    public void testPrimaryMemberDecisions() {
+        assertIdenticalDecisions(StratosConstants.PARTITION_ROUND_ROBIN_ALGORITHM_ID, true, false, false, 3000);
+    }
+
+    @Test
+    public void testScalingDependantDecisions() {
+        assertIdenticalDecisions(StratosConstants.PARTITION_ONE_AFTER_ANOTHER_ALGORITHM_ID, false, true, false, 4000);
+    }
+
+    @Test
+    public void testDependentScaleDecisions() {
+        assertIdenticalDecisions(StratosConstants.PARTITION_ROUND_ROBIN_ALGORITHM_ID, false, false, true, 5000);
+    }
+
+    /**
+     * Compares the time taken by the engines to evaluate monitoring cycles.
+     */
+    @Test
+    public void testEvaluationTime() {
+        ScalingDecisionEngine[] engines = new ScalingDecisionEngine[]{
+                new DroolsScalingDecisionEngine(ruleEvaluator), new JavaScalingDecisionEngine()};
+        for (ScalingDecisionEngine engine : engines) {
+            // Warm up before measuring
+            runCycles(engine, 200, 6000);
+            long startTime = System.nanoTime();
+            int cycles = runCycles(engine, 2000, 7000);
+            long time = System.nanoTime() - startTime;
+            log.info(String.format("Scaling decision engine evaluation time: [engine] %s [cycles] %d " +
+                            "[time-per-cycle] %d us", engine.getClass().getSimpleName(), cycles,
+                    time / cycles / 1000));
+            assertTrue(cycles > 0);
+        }
+    }
+
+    private int runCycles(ScalingDecisionEngine engine, int cycles, long seed) {
+        int count = 0;
+        for (long sequence = seed; count < cycles; sequence++) {
+            SimulatedClusterInstance instance = new SimulatedClusterInstance(engine, sequence,
+                    StratosConstants.PARTITION_ROUND_ROBIN_ALGORITHM_ID, false, false, false);
+            for (int cycle = 0; cycle < CYCLE_COUNT && count < cycles; cycle++, count++) {
+                instance.runCycle(cycle);
+            }
+        }
+        return count;
+    }
+
+    private void assertIdenticalDecisions(String algorithm, boolean primary, boolean scalingDependants,
+                                          boolean dependentScaling, long seed) {
+        int decisionCount = 0;
+        for (long sequence = seed; sequence < seed + SEQUENCE_COUNT; sequence++) {
+            SimulatedClusterInstance droolsInstance = new SimulatedClusterInstance(
+                    new DroolsScalingDecisionEngine(ruleEvaluator), sequence, algorithm, primary,
+                    scalingDependants, dependentScaling);
+            SimulatedClusterInstance javaInstance = new SimulatedClusterInstance(
+                    new JavaScalingDecisionEngine(), sequence, algorithm, primary, scalingDependants,
+                    dependentScaling);
+            for (int cycle = 0; cycle < CYCLE_COUNT; cycle++) {
+                List<String> droolsDecisions = droolsInstance.runCycle(cycle);
+                List<String> javaDecisions = javaInstance.runCycle(cycle);
+                assertEquals(String.format("Decisions differ: [sequence] %d [cycle] %d", sequence, cycle),
+                        droolsDecisions, javaDecisions);
+                decisionCount += javaDecisions.size();
+            }
+        }
+        log.info(String.format("Identical scaling decisions made: [algorithm] %s [decisions] %d",
+                algorithm, decisionCount));
+        assertTrue("No scaling decisions were made", decisionCount > 0);
+    }
+
+    /**
+     * Cluster instance evaluated by a scaling decision engine in each monitoring cycle. Statistics
+     * are generated from the sequence number, members spawned in a cycle become active in the next.
+     */
+    private static class SimulatedClusterInstance {
+
+        private final ScalingDecisionEngine engine;
+        private final long sequence;
+        private final String algorithm;
+        private final boolean primary;
+        private final boolean dependentScaling;
+        private final ClusterInstanceContext instanceContext;
+        private final List<SimulatedPartitionContext> partitionContexts;
+        private final RecordingRuleTasksDelegator delegator;
+        private final AutoscalePolicy autoscalePolicy;
+        private int memberCount;
+
+        private SimulatedClusterInstance(ScalingDecisionEngine engine, long sequence, String algorithm,
+                                         boolean primary, boolean scalingDependants, boolean dependentScaling) {
+            this.engine = engine;
+            this.sequence = sequence;
+            this.algorithm = algorithm;
+            this.primary = primary;
+            this.dependentScaling = dependentScaling;
+            this.delegator = new RecordingRuleTasksDelegator();
+            this.partitionContexts = new ArrayList<SimulatedPartitionContext>();
+
+            Random random = new Random(sequence);
+            int partitionCount = 1 + random.nextInt(3);
+            int max = 0;
+            for (int i = 0; i < partitionCount; i++) {
+                SimulatedPartitionContext partitionContext = new SimulatedPartitionContext("partition-" + i,
+                        2 + random.nextInt(5));
+                partitionContexts.add(partitionContext);
+                max += partitionContext.getMax();
+            }
+            int min = 1 + random.nextInt(2);
+            instanceContext = new ClusterInstanceContext("cluster-instance-1", algorithm, min, max,
+                    "network-partition-1", CLUSTER_ID, scalingDependants, random.nextBoolean());
+            for (SimulatedPartitionContext partitionContext : partitionContexts) {
+                instanceContext.addPartitionCtxt(partitionContext);
+            }
+            int initialMembers = random.nextInt(min + 2);
+            for (int i = 0; i < initialMembers; i++) {
+                SimulatedPartitionContext partitionContext = partitionContexts.get(i % partitionCount);
+                if (partitionContext.getNonTerminatedMemberCount() < partitionContext.getMax()) {
+                    MemberContext memberContext = createMemberContext();
+                    partitionContext.addActiveMember(memberContext);
+                    partitionContext.addMemberStatsContext(new MemberStatsContext(memberContext.getMemberId()));
+                }
+            }
+
+            LoadThresholds loadThresholds = new LoadThresholds();
+            loadThresholds.setRequestsInFlightThreshold(20 + random.nextInt(60));
+            loadThresholds.setMemoryConsumptionThreshold(50 + random.nextInt(30));
+            loadThresholds.setLoadAverageThreshold(50 + random.nextInt(30));
+            autoscalePolicy = new AutoscalePolicy();
+            autoscalePolicy.setId("autoscale-policy-1");
+            autoscalePolicy.setLoadThresholds(loadThresholds);
+        }
+
+        private MemberContext createMemberContext() {
+            MemberContext memberContext = new MemberContext();
+            memberContext.setMemberId("member-" + (memberCount++));
+            memberContext.setClusterId(CLUSTER_ID);
+            memberContext.setClusterInstanceId(instanceContext.getId());
+            // Members are expired relative to the init time, keep them away from expiry during the test
+            memberContext.setInitTime(System.currentTimeMillis());
+            return memberContext;
+        }
+
+        /**
+         * Publish the statistics of the cycle, evaluate the cluster instance and return the sorted
+         * decisions of the cycle.
+         */
+        private List<String> runCycle(int cycle) {
+            publishStats(cycle);
+            delegator.decisions.clear();
+
+            List<String> primaryMembers = new ArrayList<String>();
+            if (primary) {
+                for (SimulatedPartitionContext partitionContext : partitionContexts) {
+                    for (MemberContext memberContext : partitionContext.getActiveMembers()) {
+                        if (memberContext.getMemberId().hashCode() % 3 == 0) {
+                            primaryMembers.add(memberContext.getMemberId());
+                        }
+                    }
+                }
+            }
+            ScalingDecisionParameters parameters = new ScalingDecisionParameters(delegator, CLUSTER_ID);
+            parameters.setApplicationId("application-1");
+            parameters.setPrimary(primary);
+            parameters.setPrimaryMembers(primaryMembers);
+            parameters.setAlgorithmName(algorithm);
+
+            engine.evaluateMinCheck(instanceContext, parameters);
+            engine.evaluateMaxCheck(instanceContext, parameters);
+            if (instanceContext.isRifReset() || instanceContext.isMemoryConsumptionReset() ||
+                    instanceContext.isLoadAverageReset()) {
+                parameters.setRifReset(instanceContext.isRifReset());
+                parameters.setMcReset(instanceContext.isMemoryConsumptionReset());
+                parameters.setLaReset(instanceContext.isLoadAverageReset());
+                parameters.setArspiReset(instanceContext.isAverageRequestServedPerInstanceReset());
+                parameters.setAutoscalePolicy(autoscalePolicy);
+                engine.evaluateScaleCheck(instanceContext, parameters);
+                instanceContext.setRifReset(false);
+                instanceContext.setMemoryConsumptionReset(false);
+                instanceContext.setLoadAverageReset(false);
+            }
+            for (SimulatedPartitionContext partitionContext : partitionContexts) {
+                engine.evaluateObsoleteCheck(instanceContext, partitionContext,
+                        new ScalingDecisionParameters(delegator, CLUSTER_ID));
+            }
+            if (dependentScaling) {
+                ScalingDecisionParameters dependentParameters = new ScalingDecisionParameters(delegator, CLUSTER_ID);
+                dependentParameters.setRoundedRequiredInstanceCount(new Random(sequence * 31 + cycle).nextInt(
+                        instanceContext.getMaxInstanceCount() + 2));
+                dependentParameters.setAlgorithmName(algorithm);
+                dependentParameters.setPrimary(primary);
+                dependentParameters.setPrimaryMembers(primaryMembers);
+                engine.evaluateDependentScaleCheck(instanceContext, dependentParameters);
+            }
+
+            completeMemberTransitions();
+            List<String> decisions = new ArrayList<String>(delegator.decisions);
+            Collections.sort(decisions);
+            return decisions;
+        }
+
+        private void publishStats(int cycle) {
+            Random random = new Random(sequence * 1000 + cycle);
+            if (random.nextInt(4) != 0) {
+                instanceContext.setAverageRequestsInFlight(random.nextInt(200));
+                instanceContext.setRequestsInFlightGradient(random.nextFloat() * 20 - 10);
+                instanceContext.setRequestsInFlightSecondDerivative(random.nextFloat() * 4 - 2);
+            }
+            if (random.nextInt(4) != 0) {
+                instanceContext.setAverageMemoryConsumption(random.nextInt(100));
+                instanceContext.setMemoryConsumptionGradient(random.nextFloat() * 10 - 5);
+                instanceContext.setMemoryConsumptionSecondDerivative(random.nextFloat() * 2 - 1);
+            }
+            if (random.nextInt(4) != 0) {
+                instanceContext.setAverageLoadAverage(random.nextInt(100));
+                instanceContext.setLoadAverageGradient(random.nextFloat() * 10 - 5);
+                instanceContext.setLoadAverageSecondDerivative(random.nextFloat() * 2 - 1);
+            }
+            for (SimulatedPartitionContext partitionContext : partitionContexts) {
+                for (MemberStatsContext memberStatsContext : partitionContext.getMemberStatsContexts().values()) {
+                    Random memberRandom = new Random(sequence * 1000 + cycle * 31 +
+                            memberStatsContext.getMemberId().hashCode());
+                    memberStatsContext.setAverageLoadAverage(memberRandom.nextInt(100));
+                    memberStatsContext.setGradientOfLoadAverage(memberRandom.nextFloat() * 10 - 5);
+                    memberStatsContext.setSecondDerivativeOfLoadAverage(memberRandom.nextFloat() * 2 - 1);
+                    memberStatsContext.setAverageMemoryConsumption(memberRandom.nextInt(100));
+                    memberStatsContext.setGradientOfMemoryConsumption(memberRandom.nextFloat() * 10 - 5);
+                    memberStatsContext.setSecondDerivativeOfMemoryConsumption(memberRandom.nextFloat() * 2 - 1);
+                }
+            }
+            // Shrink a partition in the middle of the sequence to exercise the max check,
+            // not done with primary members since those are never terminated to keep to max
+            if (!primary && cycle == CYCLE_COUNT / 2) {
+                SimulatedPartitionContext partitionContext = partitionContexts.get(0);
+                partitionContext.setMax(Math.max(1, partitionContext.getMax() - 2));
+            }
+        }
+
+        /**
+         * Activate pending members and remove members which were cleaned up or terminated.
+         */
+        private void completeMemberTransitions() {
+            for (SimulatedPartitionContext partitionContext : partitionContexts) {
+                for (MemberContext memberContext : new ArrayList<MemberContext>(partitionContext.getPendingMembers())) {
+                    partitionContext.movePendingMemberToActiveMembers(memberContext.getMemberId());
+                }
+                for (String memberId : delegator.cleanedUpMembers) {
+                    partitionContext.removeTerminationPendingMember(memberId);
+                }
+                for (String memberId : delegator.terminatedMembers) {
+                    partitionContext.removeObsoleteMember(memberId);
+                }
+            }
+            delegator.cleanedUpMembers.clear();
+            delegator.terminatedMembers.clear();
+        }
+
+        /**
+         * Rule tasks delegator recording decisions and applying them to the simulated cluster
+         * instance rather than calling the cloud controller.
+         */
+        private class RecordingRuleTasksDelegator extends RuleTasksDelegator {
+
+            private final List<String> decisions = new ArrayList<String>();
+            private final List<String> cleanedUpMembers = new ArrayList<String>();
+            private final List<String> terminatedMembers = new ArrayList<String>();
+
+            @Override
+            public void delegateSpawn(ClusterLevelPartitionContext partitionContext, String clusterId,
+                                      String clusterInstanceId, boolean isPrimary, String autoscalingReason,
+                                      long scalingTime) {
+                decisions.add(String.format("spawn [partition] %s [instance] %s [primary] %s",
+                        partitionContext.getPartitionId(), clusterInstanceId, isPrimary));
+                MemberContext memberContext = createMemberContext();
+                partitionContext.addPendingMember(memberContext);
+                partitionContext.addMemberStatsContext(new MemberStatsContext(memberContext.getMemberId()));
+            }
+
+            @Override
+            public void delegateTerminate(ClusterLevelPartitionContext partitionContext, String memberId) {
+                decisions.add(String.format("terminate [partition] %s [member] %s",
+                        partitionContext.getPartitionId(), memberId));
+                super.delegateTerminate(partitionContext, memberId);
+            }
+
+            @Override
+            public void delegateScalingDependencyNotification(String clusterId, String networkPartitionId,
+                                                              String instanceId, int requiredInstanceCount,
+                                                              int minimumInstanceCount) {
+                decisions.add(String.format("scaling-dependency [instance] %s [required] %d [min] %d",
+                        instanceId, requiredInstanceCount, minimumInstanceCount));
+            }
+
+            @Override
+            public void delegateScalingOverMaxNotification(String clusterId, String networkPartitionId,
+                                                           String instanceId) {
+                decisions.add(String.format("scaling-over-max [instance] %s", instanceId));
+            }
+
+            @Override
+            public void delegateScalingDownBeyondMinNotification(String clusterId, String networkPartitionId,
+                                                                 String instanceId) {
+                decisions.add(String.format("scaling-down-beyond-min [instance] %s", instanceId));
+            }
+
+            @Override
+            public void terminateObsoleteInstance(String memberId) {
+                decisions.add(String.format("terminate-obsolete [member] %s", memberId));
+                terminatedMembers.add(memberId);
+            }
+
+            @Override
+            public void delegateInstanceCleanup(String memberId) {
+                decisions.add(String.format("cleanup [member] %s", memberId));
+                cleanedUpMembers.add(memberId);
+            }
+        }
+    }
+
+    /**
+     * Partition context with a max set by the test instead of the deployment policy.
+     */
+    private static class SimulatedPartitionContext extends ClusterLevelPartitionContext {
+
+        private int max;
+
+        private SimulatedPartitionContext(String partitionId, int max) {
+            super(createPartitionRef(partitionId), "network-partition-1", "deployment-policy-1");
+            this.max = max;
+        }
+
+        private static PartitionRef createPartitionRef(String partitionId) {
+            PartitionRef partition = new PartitionRef();
+            partition.setUuid(partitionId);
+            partition.setId(partitionId);
+            return partition;
+        }
+
+        @Override
+        public int getMax() {
+            return max;
+        }
+
+        public void setMax(int max) {
+            this.max = max;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.simulation;
+
+import org.apache.stratos.autoscaler.context.member.MemberStatsContext;
+import org.apache.stratos.autoscaler.context.partition.ClusterLevelPartitionContext;
+import org.apache.stratos.autoscaler.rule.RuleTasksDelegator;
+import org.apache.stratos.cloud.controller.stub.domain.MemberContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rule tasks delegator recording the decisions of a scaling decision engine and applying them to
+ * simulated partitions rather than calling the cloud controller. Spawned members are added to the
+ * pending members of the partition, members cleaned up or terminated are recorded to be removed
+ * by the simulation.
+ */
+public abstract class RecordingRuleTasksDelegator extends RuleTasksDelegator {
+
+    private final List<String> decisions = new ArrayList<String>();
+    private final List<String> cleanedUpMembers = new ArrayList<String>();
+    private final List<String> terminatedMembers = new ArrayList<String>();
+    private long spawnCount;
+    private long terminationCount;
+
+    /**
+     * Create the context of a member spawned by the engine.
+     */
+    protected abstract MemberContext createMemberContext();
+
+    @Override
+    public void delegateSpawn(ClusterLevelPartitionContext partitionContext, String clusterId,
+                              String clusterInstanceId, boolean isPrimary, String autoscalingReason,
+                              long scalingTime) {
+        decisions.add(String.format("spawn [partition] %s [instance] %s [primary] %s",
+                partitionContext.getPartitionId(), clusterInstanceId, isPrimary));
+        MemberContext memberContext = createMemberContext();
+        partitionContext.addPendingMember(memberContext);
+        partitionContext.addMemberStatsContext(new MemberStatsContext(memberContext.getMemberId()));
+        spawnCount++;
+    }
+
+    @Override
+    public void delegateTerminate(ClusterLevelPartitionContext partitionContext, String memberId) {
+        decisions.add(String.format("terminate [partition] %s [member] %s",
+                partitionContext.getPartitionId(), memberId));
+        super.delegateTerminate(partitionContext, memberId);
+        terminationCount++;
+    }
+
+    @Override
+    public void delegateScalingDependencyNotification(String clusterId, String networkPartitionId,
+                                                      String instanceId, int requiredInstanceCount,
+                                                      int minimumInstanceCount) {
+        decisions.add(String.format("scaling-dependency [instance] %s [required] %d [min] %d",
+                instanceId, requiredInstanceCount, minimumInstanceCount));
+    }
+
+    @Override
+    public void delegateScalingOverMaxNotification(String clusterId, String networkPartitionId,
+                                                   String instanceId) {
+        decisions.add(String.format("scaling-over-max [instance] %s", instanceId));
+    }
+
+    @Override
+    public void delegateScalingDownBeyondMinNotification(String clusterId, String networkPartitionId,
+                                                         String instanceId) {
+        decisions.add(String.format("scaling-down-beyond-min [instance] %s", instanceId));
+    }
+
+    @Override
+    public void terminateObsoleteInstance(String memberId) {
+        decisions.add(String.format("terminate-obsolete [member] %s", memberId));
+        terminatedMembers.add(memberId);
+    }
+
+    @Override
+    public void delegateInstanceCleanup(String memberId) {
+        decisions.add(String.format("cleanup [member] %s", memberId));
+        cleanedUpMembers.add(memberId);
+    }
+
+    /**
+     * Returns the decisions recorded since the last clear.
+     */
+    public List<String> getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Returns the termination pending members cleaned up since the last clear.
+     */
+    public List<String> getCleanedUpMembers() {
+        return cleanedUpMembers;
+    }
+
+    /**
+     * Returns the obsolete members terminated since the last clear.
+     */
+    public List<String> getTerminatedMembers() {
+        return terminatedMembers;
+    }
+
+    /**
+     * Clear the recorded decisions and members, counts are kept.
+     */
+    public void clear() {
+        decisions.clear();
+        cleanedUpMembers.clear();
+        terminatedMembers.clear();
+    }
+
+    public long getSpawnCount() {
+        return spawnCount;
+    }
+
+    public long getTerminationCount() {
+        return terminationCount;
+    }
+}
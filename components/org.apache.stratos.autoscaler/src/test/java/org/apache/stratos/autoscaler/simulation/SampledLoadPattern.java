@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.simulation;
+
+/**
+ * Load pattern of sample values each held for a fixed duration, as the mock IaaS health
+ * statistics patterns. Once the samples are exhausted the pattern either starts over, continues
+ * with the last sample or stops, in which case no load is offered.
+ */
+public class SampledLoadPattern implements LoadPattern {
+
+    public enum Mode {
+        Loop, Continue, Stop
+    }
+
+    private final double[] sampleValues;
+    private final long sampleDuration;
+    private final Mode mode;
+
+    /**
+     * @param sampleValues   requests in flight of the cluster in each sample
+     * @param sampleDuration duration of a sample in milliseconds
+     * @param mode           behaviour once the samples are exhausted
+     */
+    public SampledLoadPattern(double[] sampleValues, long sampleDuration, Mode mode) {
+        if (sampleValues == null || sampleValues.length == 0) {
+            throw new IllegalArgumentException("No sample values found");
+        }
+        if (sampleDuration <= 0) {
+            throw new IllegalArgumentException("Sample duration should be greater than zero: [sample-duration] " +
+                    sampleDuration);
+        }
+        this.sampleValues = sampleValues.clone();
+        this.sampleDuration = sampleDuration;
+        this.mode = mode;
+    }
+
+    @Override
+    public double getLoad(long time) {
+        long sample = Math.max(0, time) / sampleDuration;
+        if (sample < sampleValues.length) {
+            return sampleValues[(int) sample];
+        }
+        if (mode == Mode.Loop) {
+            return sampleValues[(int) (sample % sampleValues.length)];
+        } else if (mode == Mode.Continue) {
+            return sampleValues[sampleValues.length - 1];
+        }
+        return 0;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.simulation;
+
+import org.apache.stratos.autoscaler.context.cluster.ClusterInstanceContext;
+import org.apache.stratos.autoscaler.context.member.MemberStatsContext;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.AutoscalePolicy;
+import org.apache.stratos.autoscaler.rule.ScalingDecisionEngine;
+import org.apache.stratos.autoscaler.rule.ScalingDecisionParameters;
+import org.apache.stratos.cloud.controller.stub.domain.MemberContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cluster instance evaluated by a scaling decision engine in virtual time. Spawned members become
+ * active after the member startup time, members cleaned up or terminated by the engine are removed
+ * at the end of the monitoring cycle. Members are billed from spawn until removal. Member expiries
+ * of the partitions are run in the virtual time of the cluster.
+ */
+class SimulatedCluster {
+
+    private static final double MINUTE = 60000d;
+
+    private final String clusterId;
+    private final ScalingDecisionEngine engine;
+    private final AutoscalePolicy autoscalePolicy;
+    private final String algorithm;
+    private final LoadPattern loadPattern;
+    private final long memberStartupTime;
+    private final double instanceCapacity;
+    private final ClusterInstanceContext instanceContext;
+    private final List<SimulatedPartitionContext> partitionContexts;
+    private final SimulatedMemberExpiryScheduler memberExpiryScheduler;
+    private final SimulatedRuleTasksDelegator delegator;
+    private final Map<String, Long> memberSpawnTimes;
+    private int memberCount;
+
+    private long previousStatTime = -1;
+    private double previousLoad;
+    private double previousGradient;
+
+    private int activeMemberCount;
+    private long monitorCycleCount;
+    private long slaViolationTime;
+    private long billedTime;
+
+    SimulatedCluster(String clusterId, int min, int max, int partitionCount, String algorithm,
+                     LoadPattern loadPattern, AutoscalePolicy autoscalePolicy, ScalingDecisionEngine engine,
+                     long memberStartupTime, double instanceCapacity) {
+        this.clusterId = clusterId;
+        this.engine = engine;
+        this.autoscalePolicy = autoscalePolicy;
+        this.algorithm = algorithm;
+        this.loadPattern = loadPattern;
+        this.memberStartupTime = memberStartupTime;
+        this.instanceCapacity = instanceCapacity;
+        this.memberExpiryScheduler = new SimulatedMemberExpiryScheduler();
+        this.delegator = new SimulatedRuleTasksDelegator();
+        this.memberSpawnTimes = new LinkedHashMap<String, Long>();
+        this.partitionContexts = new ArrayList<SimulatedPartitionContext>();
+
+        instanceContext = new ClusterInstanceContext(clusterId + "-1", algorithm, min, max,
+                SimulatedPartitionContext.NETWORK_PARTITION_ID, clusterId, false, false);
+        int partitionMax = (max + partitionCount - 1) / partitionCount;
+        for (int i = 0; i < partitionCount; i++) {
+            SimulatedPartitionContext partitionContext = new SimulatedPartitionContext(
+                    clusterId + "-partition-" + i, partitionMax, memberExpiryScheduler);
+            partitionContexts.add(partitionContext);
+            instanceContext.addPartitionCtxt(partitionContext);
+        }
+        // Start with a running cluster of min members
+        for (int i = 0; i < min; i++) {
+            SimulatedPartitionContext partitionContext = partitionContexts.get(i % partitionCount);
+            MemberContext memberContext = createMemberContext();
+            partitionContext.addActiveMember(memberContext);
+            partitionContext.addMemberStatsContext(new MemberStatsContext(memberContext.getMemberId()));
+        }
+        activeMemberCount = min;
+    }
+
+    private MemberContext createMemberContext() {
+        long time = memberExpiryScheduler.currentTimeMillis();
+        MemberContext memberContext = new MemberContext();
+        memberContext.setMemberId(clusterId + "-member-" + (memberCount++));
+        memberContext.setClusterId(clusterId);
+        memberContext.setClusterInstanceId(instanceContext.getId());
+        memberContext.setInitTime(time);
+        memberSpawnTimes.put(memberContext.getMemberId(), time);
+        return memberContext;
+    }
+
+    /**
+     * Advance the cluster by a tick: run the member expiries due, activate started members, publish the statistics at the
+     * given time, run a monitoring cycle if due and account the tick.
+     *
+     * @param time         virtual time at the start of the tick
+     * @param tickInterval duration of the tick in milliseconds
+     * @param monitorCycle whether a monitoring cycle is due in the tick
+     */
+    void tick(long time, long tickInterval, boolean monitorCycle) {
+        memberExpiryScheduler.advance(time);
+        activateStartedMembers(time);
+        double load = loadPattern.getLoad(time);
+        publishStats(time, load);
+        if (monitorCycle) {
+            runMonitorCycle(time);
+        }
+        activeMemberCount = instanceContext.getActiveMemberCount();
+        if (load > activeMemberCount * instanceCapacity) {
+            slaViolationTime += tickInterval;
+        }
+    }
+
+    private void activateStartedMembers(long time) {
+        for (SimulatedPartitionContext partitionContext : partitionContexts) {
+            for (MemberContext memberContext : new ArrayList<MemberContext>(partitionContext.getPendingMembers())) {
+                Long spawnTime = memberSpawnTimes.get(memberContext.getMemberId());
+                if (spawnTime != null && time - spawnTime >= memberStartupTime) {
+                    partitionContext.movePendingMemberToActiveMembers(memberContext.getMemberId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Publish the requests in flight of the cluster along with the gradient and the second
+     * derivative per minute, as derived by CEP from consecutive averages.
+     */
+    private void publishStats(long time, double load) {
+        double gradient = 0;
+        double secondDerivative = 0;
+        if (previousStatTime >= 0 && time > previousStatTime) {
+            double interval = (time - previousStatTime) / MINUTE;
+            gradient = (load - previousLoad) / interval;
+            secondDerivative = (gradient - previousGradient) / interval;
+        }
+        instanceContext.setAverageRequestsInFlight((float) load);
+        instanceContext.setRequestsInFlightGradient((float) gradient);
+        instanceContext.setRequestsInFlightSecondDerivative((float) secondDerivative);
+        previousStatTime = time;
+        previousLoad = load;
+        previousGradient = gradient;
+    }
+
+    /**
+     * Same checks as the cluster monitor runs in each monitoring cycle.
+     */
+    private void runMonitorCycle(long time) {
+        ScalingDecisionParameters parameters = new ScalingDecisionParameters(delegator, clusterId);
+        parameters.setApplicationId(clusterId);
+        parameters.setPrimaryMembers(new ArrayList<String>());
+        parameters.setAlgorithmName(algorithm);
+
+        engine.evaluateMinCheck(instanceContext, parameters);
+        engine.evaluateMaxCheck(instanceContext, parameters);
+        if (instanceContext.isRifReset() || instanceContext.isMemoryConsumptionReset() ||
+                instanceContext.isLoadAverageReset()) {
+            parameters.setRifReset(instanceContext.isRifReset());
+            parameters.setMcReset(instanceContext.isMemoryConsumptionReset());
+            parameters.setLaReset(instanceContext.isLoadAverageReset());
+            parameters.setArspiReset(instanceContext.isAverageRequestServedPerInstanceReset());
+            parameters.setAutoscalePolicy(autoscalePolicy);
+            engine.evaluateScaleCheck(instanceContext, parameters);
+            instanceContext.setRifReset(false);
+            instanceContext.setMemoryConsumptionReset(false);
+            instanceContext.setLoadAverageReset(false);
+        }
+        for (SimulatedPartitionContext partitionContext : partitionContexts) {
+            engine.evaluateObsoleteCheck(instanceContext, partitionContext,
+                    new ScalingDecisionParameters(delegator, clusterId));
+        }
+        monitorCycleCount++;
+
+        for (SimulatedPartitionContext partitionContext : partitionContexts) {
+            for (String memberId : delegator.getCleanedUpMembers()) {
+                if (partitionContext.removeTerminationPendingMember(memberId)) {
+                    removeMember(memberId, time);
+                }
+            }
+            for (String memberId : delegator.getTerminatedMembers()) {
+                if (partitionContext.removeObsoleteMember(memberId)) {
+                    removeMember(memberId, time);
+                }
+            }
+        }
+        delegator.clear();
+    }
+
+    private void removeMember(String memberId, long time) {
+        Long spawnTime = memberSpawnTimes.remove(memberId);
+        if (spawnTime != null) {
+            billedTime += time - spawnTime;
+        }
+    }
+
+    /**
+     * Remove all members at the end of the simulation, billing them until the given time.
+     */
+    void finish(long time) {
+        for (Map.Entry<String, Long> entry : memberSpawnTimes.entrySet()) {
+            billedTime += time - entry.getValue();
+        }
+        memberSpawnTimes.clear();
+        for (SimulatedPartitionContext partitionContext : partitionContexts) {
+            for (MemberContext memberContext : new ArrayList<MemberContext>(partitionContext.getPendingMembers())) {
+                partitionContext.removePendingMember(memberContext.getMemberId());
+            }
+            for (MemberContext memberContext : new ArrayList<MemberContext>(
+                    partitionContext.getTerminationPendingMembers())) {
+                partitionContext.removeTerminationPendingMember(memberContext.getMemberId());
+            }
+            for (String memberId : new ArrayList<String>(partitionContext.getObsoletedMembers().keySet())) {
+                partitionContext.removeObsoleteMember(memberId);
+            }
+        }
+    }
+
+    int getActiveMemberCount() {
+        return activeMemberCount;
+    }
+
+    long getSpawnCount() {
+        return delegator.getSpawnCount();
+    }
+
+    long getTerminationCount() {
+        return delegator.getTerminationCount();
+    }
+
+    long getMonitorCycleCount() {
+        return monitorCycleCount;
+    }
+
+    long getSlaViolationTime() {
+        return slaViolationTime;
+    }
+
+    long getBilledTime() {
+        return billedTime;
+    }
+
+    /**
+     * Rule tasks delegator spawning the members of the simulated cluster.
+     */
+    private class SimulatedRuleTasksDelegator extends RecordingRuleTasksDelegator {
+
+        @Override
+        protected MemberContext createMemberContext() {
+            return SimulatedCluster.this.createMemberContext();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.simulation;
+
+import org.apache.stratos.autoscaler.context.partition.MemberExpiryScheduler;
+import org.apache.stratos.autoscaler.util.Clock;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Member expiry scheduler running in virtual time. Expiries are queued without a thread and
+ * executed in the order of their expiry times when the virtual time is advanced past them.
+ */
+public class SimulatedMemberExpiryScheduler extends MemberExpiryScheduler {
+
+    private final VirtualClock clock;
+    private final PriorityQueue<SimulatedExpiry> expiries;
+
+    public SimulatedMemberExpiryScheduler() {
+        this(new VirtualClock());
+    }
+
+    private SimulatedMemberExpiryScheduler(VirtualClock clock) {
+        super(null, clock);
+        this.clock = clock;
+        this.expiries = new PriorityQueue<SimulatedExpiry>();
+    }
+
+    @Override
+    public synchronized ScheduledFuture<?> schedule(Runnable expiryHandler, long expiryTime) {
+        SimulatedExpiry expiry = new SimulatedExpiry(expiryHandler, expiryTime);
+        expiries.add(expiry);
+        return expiry;
+    }
+
+    /**
+     * Advance the virtual time and execute the expiries which are due by then.
+     *
+     * @param time virtual time in milliseconds, not before the current virtual time
+     */
+    public void advance(long time) {
+        if (time < clock.time) {
+            throw new IllegalArgumentException(String.format("Virtual time cannot go backwards: " +
+                    "[current-time] %d [time] %d", clock.time, time));
+        }
+        clock.time = time;
+        SimulatedExpiry expiry;
+        while ((expiry = pollDueExpiry(time)) != null) {
+            expiry.done = true;
+            expiry.expiryHandler.run();
+        }
+    }
+
+    private synchronized SimulatedExpiry pollDueExpiry(long time) {
+        SimulatedExpiry expiry = expiries.peek();
+        if (expiry == null || expiry.expiryTime > time) {
+            return null;
+        }
+        return expiries.poll();
+    }
+
+    @Override
+    public synchronized int getScheduledExpiryCount() {
+        return expiries.size();
+    }
+
+    private synchronized boolean cancel(SimulatedExpiry expiry) {
+        return expiries.remove(expiry);
+    }
+
+    private static class VirtualClock implements Clock {
+
+        private volatile long time;
+
+        @Override
+        public long currentTimeMillis() {
+            return time;
+        }
+    }
+
+    private class SimulatedExpiry implements ScheduledFuture<Object> {
+
+        private final Runnable expiryHandler;
+        private final long expiryTime;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+
+        private SimulatedExpiry(Runnable expiryHandler, long expiryTime) {
+            this.expiryHandler = expiryHandler;
+            this.expiryTime = expiryTime;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiryTime - clock.time, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            long delay = getDelay(TimeUnit.MILLISECONDS);
+            long otherDelay = other.getDelay(TimeUnit.MILLISECONDS);
+            return delay < otherDelay ? -1 : (delay == otherDelay ? 0 : 1);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (done || cancelled) {
+                return false;
+            }
+            cancelled = SimulatedMemberExpiryScheduler.this.cancel(this);
+            return cancelled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done || cancelled;
+        }
+
+        @Override
+        public Object get() {
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            return null;
+        }
+    }
+}
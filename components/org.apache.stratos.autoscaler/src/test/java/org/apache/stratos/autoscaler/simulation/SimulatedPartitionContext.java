@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.simulation;
+
+import org.apache.stratos.autoscaler.context.partition.ClusterLevelPartitionContext;
+import org.apache.stratos.autoscaler.context.partition.MemberExpiryScheduler;
+import org.apache.stratos.common.partition.PartitionRef;
+
+/**
+ * Partition context with a max set by the simulation instead of the deployment policy. Member
+ * expiries are scheduled by the given scheduler, which also provides the clock of the partition.
+ */
+public class SimulatedPartitionContext extends ClusterLevelPartitionContext {
+
+    public static final String NETWORK_PARTITION_ID = "network-partition-1";
+    public static final String DEPLOYMENT_POLICY_ID = "deployment-policy-1";
+
+    private static final long PENDING_MEMBER_EXPIRY_TIME = 900000;
+    private static final long TERMINATION_PENDING_MEMBER_EXPIRY_TIME = 1800000;
+    // Obsolete members are terminated by the obsolete check, their expiry would call the cloud controller
+    private static final long OBSOLETED_MEMBER_EXPIRY_TIME = Long.MAX_VALUE / 2;
+
+    private int max;
+
+    public SimulatedPartitionContext(String partitionId, int max, MemberExpiryScheduler memberExpiryScheduler) {
+        super(createPartitionRef(partitionId), NETWORK_PARTITION_ID, DEPLOYMENT_POLICY_ID, memberExpiryScheduler,
+                PENDING_MEMBER_EXPIRY_TIME, OBSOLETED_MEMBER_EXPIRY_TIME, TERMINATION_PENDING_MEMBER_EXPIRY_TIME);
+        this.max = max;
+    }
+
+    private static PartitionRef createPartitionRef(String partitionId) {
+        PartitionRef partition = new PartitionRef();
+        partition.setUuid(partitionId);
+        partition.setId(partitionId);
+        return partition;
+    }
+
+    @Override
+    public int getMax() {
+        return max;
+    }
+
+    public void setMax(int max) {
+        this.max = max;
+    }
+}
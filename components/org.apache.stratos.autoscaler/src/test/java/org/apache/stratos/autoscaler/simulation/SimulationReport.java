@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.simulation;
+
+/**
+ * Outcome of simulating all clusters under a single autoscale policy.
+ */
+public class SimulationReport {
+
+    private static final double HOUR = 3600000d;
+
+    private final String policyName;
+    private final int clusterCount;
+    private final long duration;
+    private final long[] sampleTimes;
+    private final int[] activeMemberCounts;
+    private long slaViolationTime;
+    private long billedTime;
+    private double instanceHourCost;
+    private long spawnCount;
+    private long terminationCount;
+    private long monitorCycleCount;
+    private long wallClockTime;
+
+    SimulationReport(String policyName, int clusterCount, long duration, int sampleCount) {
+        this.policyName = policyName;
+        this.clusterCount = clusterCount;
+        this.duration = duration;
+        this.sampleTimes = new long[sampleCount];
+        this.activeMemberCounts = new int[sampleCount];
+    }
+
+    void setSample(int sample, long time, int activeMemberCount) {
+        sampleTimes[sample] = time;
+        activeMemberCounts[sample] = activeMemberCount;
+    }
+
+    void addCluster(SimulatedCluster cluster) {
+        slaViolationTime += cluster.getSlaViolationTime();
+        billedTime += cluster.getBilledTime();
+        spawnCount += cluster.getSpawnCount();
+        terminationCount += cluster.getTerminationCount();
+        monitorCycleCount += cluster.getMonitorCycleCount();
+    }
+
+    void setInstanceHourCost(double instanceHourCost) {
+        this.instanceHourCost = instanceHourCost;
+    }
+
+    void setWallClockTime(long wallClockTime) {
+        this.wallClockTime = wallClockTime;
+    }
+
+    public String getPolicyName() {
+        return policyName;
+    }
+
+    public int getClusterCount() {
+        return clusterCount;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the virtual times at which the active member counts were sampled.
+     */
+    public long[] getSampleTimes() {
+        return sampleTimes.clone();
+    }
+
+    /**
+     * Returns the active member count of all clusters at each sample time.
+     */
+    public int[] getActiveMemberCounts() {
+        return activeMemberCounts.clone();
+    }
+
+    /**
+     * Returns the time summed over all clusters during which the load exceeded the capacity of the
+     * active members, in milliseconds.
+     */
+    public long getSlaViolationTime() {
+        return slaViolationTime;
+    }
+
+    /**
+     * Returns the fraction of the cluster time during which the load exceeded the capacity.
+     */
+    public double getSlaViolationRatio() {
+        if (clusterCount == 0 || duration == 0) {
+            return 0;
+        }
+        return (double) slaViolationTime / ((double) clusterCount * duration);
+    }
+
+    public double getInstanceHours() {
+        return billedTime / HOUR;
+    }
+
+    public double getCost() {
+        return getInstanceHours() * instanceHourCost;
+    }
+
+    public long getSpawnCount() {
+        return spawnCount;
+    }
+
+    public long getTerminationCount() {
+        return terminationCount;
+    }
+
+    public long getMonitorCycleCount() {
+        return monitorCycleCount;
+    }
+
+    /**
+     * Returns the wall clock time taken by the simulation in milliseconds, the only value of the
+     * report which differs between runs.
+     */
+    public long getWallClockTime() {
+        return wallClockTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[policy] %s [clusters] %d [duration] %d s [sla-violation-ratio] %.4f " +
+                        "[instance-hours] %.2f [cost] %.2f [spawns] %d [terminations] %d [monitor-cycles] %d " +
+                        "[wall-clock-time] %d ms", policyName, clusterCount, duration / 1000,
+                getSlaViolationRatio(), getInstanceHours(), getCost(), spawnCount, terminationCount,
+                monitorCycleCount, wallClockTime);
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.simulation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.AutoscalePolicy;
+import org.apache.stratos.autoscaler.rule.ScalingDecisionEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test fixture evaluating scaling decision engines in virtual time. Clusters are driven by load
+ * patterns and evaluated with the checks of the cluster monitor, without a message broker, cloud
+ * controller or IaaS. Runs are deterministic: the virtual clock advances in statistics intervals
+ * and monitoring cycles of clusters are spread over the ticks of the monitoring interval.
+ * <p/>
+ * This is not a simulation of the autoscaler: cluster, group and application monitors, topology
+ * events, dependent scaling and forecasters are not run, only the decisions of a single cluster
+ * instance and its partitions.
+ */
+public class Simulator {
+
+    private static final Log log = LogFactory.getLog(Simulator.class);
+
+    /**
+     * Interval at which health statistics are published to the clusters, in milliseconds.
+     */
+    public static final long STATISTICS_INTERVAL = 15000;
+
+    private final long duration;
+    private final long monitorInterval;
+    private final long memberStartupTime;
+    private final double instanceCapacity;
+    private final double instanceHourCost;
+    private final List<ClusterDefinition> clusterDefinitions;
+    private long sampleInterval = 60000;
+    private int threadCount = 1;
+
+    /**
+     * @param duration          virtual duration of the simulation in milliseconds
+     * @param monitorInterval   monitoring interval of the clusters in milliseconds, a multiple of the
+     *                          statistics interval
+     * @param memberStartupTime time taken by a spawned member to become active in milliseconds
+     * @param instanceCapacity  requests in flight a member can serve without violating the SLA
+     * @param instanceHourCost  cost of running a member for an hour
+     */
+    public Simulator(long duration, long monitorInterval, long memberStartupTime, double instanceCapacity,
+                     double instanceHourCost) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("Duration should be greater than zero: [duration] " + duration);
+        }
+        validateInterval("monitor-interval", monitorInterval);
+        if (instanceCapacity <= 0) {
+            throw new IllegalArgumentException("Instance capacity should be greater than zero: " +
+                    "[instance-capacity] " + instanceCapacity);
+        }
+        this.duration = duration;
+        this.monitorInterval = monitorInterval;
+        this.memberStartupTime = memberStartupTime;
+        this.instanceCapacity = instanceCapacity;
+        this.instanceHourCost = instanceHourCost;
+        this.clusterDefinitions = new ArrayList<ClusterDefinition>();
+    }
+
+    private static void validateInterval(String name, long interval) {
+        if (interval <= 0 || interval % STATISTICS_INTERVAL != 0) {
+            throw new IllegalArgumentException(String.format("Interval should be a multiple of the statistics " +
+                    "interval: [%s] %d [statistics-interval] %d", name, interval, STATISTICS_INTERVAL));
+        }
+    }
+
+    /**
+     * Add a cluster with a single cluster instance to be simulated.
+     *
+     * @param clusterId      id of the cluster
+     * @param min            minimum member count
+     * @param max            maximum member count, divided evenly among the partitions
+     * @param partitionCount number of partitions
+     * @param algorithm      partition algorithm
+     * @param loadPattern    requests in flight of the cluster over time
+     */
+    public void addCluster(String clusterId, int min, int max, int partitionCount, String algorithm,
+                           LoadPattern loadPattern) {
+        if (min > max) {
+            throw new IllegalArgumentException(String.format("Minimum member count is greater than the " +
+                    "maximum: [cluster] %s [min] %d [max] %d", clusterId, min, max));
+        }
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException(String.format("Partition count should be greater than zero: " +
+                    "[cluster] %s [partition-count] %d", clusterId, partitionCount));
+        }
+        clusterDefinitions.add(new ClusterDefinition(clusterId, min, max, partitionCount, algorithm, loadPattern));
+    }
+
+    /**
+     * @param sampleInterval interval at which active member counts are sampled, a multiple of the
+     *                       statistics interval
+     */
+    public void setSampleInterval(long sampleInterval) {
+        validateInterval("sample-interval", sampleInterval);
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * @param threadCount number of threads the clusters are advanced by in each tick, the engine
+     *                    should be safe for concurrent evaluations if greater than one
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("Thread count should be greater than zero: [thread-count] " +
+                    threadCount);
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Simulate all clusters under the given autoscale policy.
+     *
+     * @param policyName      name of the policy used in the report
+     * @param autoscalePolicy autoscale policy of the clusters
+     * @param engine          scaling decision engine evaluating the clusters
+     * @return simulation report
+     */
+    public SimulationReport simulate(String policyName, AutoscalePolicy autoscalePolicy,
+                                     ScalingDecisionEngine engine) {
+        long startTime = System.currentTimeMillis();
+        List<SimulatedCluster> clusters = new ArrayList<SimulatedCluster>(clusterDefinitions.size());
+        for (ClusterDefinition definition : clusterDefinitions) {
+            clusters.add(new SimulatedCluster(definition.clusterId, definition.min, definition.max,
+                    definition.partitionCount, definition.algorithm, definition.loadPattern, autoscalePolicy,
+                    engine, memberStartupTime, instanceCapacity));
+        }
+        int sampleCount = (int) ((duration + sampleInterval - 1) / sampleInterval);
+        SimulationReport report = new SimulationReport(policyName, clusters.size(), duration, sampleCount);
+        report.setInstanceHourCost(instanceHourCost);
+
+        ExecutorService executorService = (threadCount > 1) ? Executors.newFixedThreadPool(threadCount) : null;
+        try {
+            List<ClusterTicker> tickers = createTickers(clusters);
+            int ticksPerCycle = (int) (monitorInterval / STATISTICS_INTERVAL);
+            int tick = 0;
+            for (long time = 0; time < duration; time += STATISTICS_INTERVAL, tick++) {
+                for (ClusterTicker ticker : tickers) {
+                    ticker.set(time, tick, ticksPerCycle);
+                }
+                if (executorService == null) {
+                    tickers.get(0).call();
+                } else {
+                    invokeAll(executorService, tickers);
+                }
+                if (time % sampleInterval == 0) {
+                    int activeMemberCount = 0;
+                    for (SimulatedCluster cluster : clusters) {
+                        activeMemberCount += cluster.getActiveMemberCount();
+                    }
+                    report.setSample((int) (time / sampleInterval), time, activeMemberCount);
+                }
+            }
+        } finally {
+            if (executorService != null) {
+                executorService.shutdownNow();
+            }
+        }
+
+        for (SimulatedCluster cluster : clusters) {
+            cluster.finish(duration);
+            report.addCluster(cluster);
+        }
+        report.setWallClockTime(System.currentTimeMillis() - startTime);
+        if (log.isInfoEnabled()) {
+            log.info("Simulation completed: " + report);
+        }
+        return report;
+    }
+
+    private List<ClusterTicker> createTickers(List<SimulatedCluster> clusters) {
+        List<ClusterTicker> tickers = new ArrayList<ClusterTicker>(threadCount);
+        int chunkSize = (clusters.size() + threadCount - 1) / threadCount;
+        for (int from = 0; from < clusters.size(); from += chunkSize) {
+            tickers.add(new ClusterTicker(clusters, from, Math.min(clusters.size(), from + chunkSize)));
+        }
+        if (tickers.isEmpty()) {
+            tickers.add(new ClusterTicker(clusters, 0, 0));
+        }
+        return tickers;
+    }
+
+    private void invokeAll(ExecutorService executorService, List<ClusterTicker> tickers) {
+        try {
+            for (Future<Void> future : executorService.invokeAll(tickers)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Simulation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Could not simulate clusters", e.getCause());
+        }
+    }
+
+    /**
+     * Advances a contiguous range of clusters by a tick. The monitoring cycle of each cluster is
+     * offset by its index so that cycles are spread over the monitoring interval.
+     */
+    private static class ClusterTicker implements Callable<Void> {
+
+        private final List<SimulatedCluster> clusters;
+        private final int from;
+        private final int to;
+        private long time;
+        private int tick;
+        private int ticksPerCycle;
+
+        private ClusterTicker(List<SimulatedCluster> clusters, int from, int to) {
+            this.clusters = clusters;
+            this.from = from;
+            this.to = to;
+        }
+
+        private void set(long time, int tick, int ticksPerCycle) {
+            this.time = time;
+            this.tick = tick;
+            this.ticksPerCycle = ticksPerCycle;
+        }
+
+        @Override
+        public Void call() {
+            for (int i = from; i < to; i++) {
+                boolean monitorCycle = (tick + i) % ticksPerCycle == 0;
+                clusters.get(i).tick(time, STATISTICS_INTERVAL, monitorCycle);
+            }
+            return null;
+        }
+    }
+
+    private static class ClusterDefinition {
+
+        private final String clusterId;
+        private final int min;
+        private final int max;
+        private final int partitionCount;
+        private final String algorithm;
+        private final LoadPattern loadPattern;
+
+        private ClusterDefinition(String clusterId, int min, int max, int partitionCount, String algorithm,
+                                  LoadPattern loadPattern) {
+            this.clusterId = clusterId;
+            this.min = min;
+            this.max = max;
+            this.partitionCount = partitionCount;
+            this.algorithm = algorithm;
+            this.loadPattern = loadPattern;
+        }
+    }
+}
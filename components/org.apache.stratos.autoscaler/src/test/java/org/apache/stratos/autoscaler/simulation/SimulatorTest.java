@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.simulation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.autoscaler.forecast.Backtester;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.AutoscalePolicy;
+import org.apache.stratos.autoscaler.pojo.policy.autoscale.LoadThresholds;
+import org.apache.stratos.autoscaler.rule.JavaScalingDecisionEngine;
+import org.apache.stratos.common.constants.StratosConstants;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Simulates clusters under synthetic and recorded load with the java scaling decision engine.
+ */
+public class SimulatorTest {
+
+    private static final Log log = LogFactory.getLog(SimulatorTest.class);
+
+    private static final long MINUTE = 60000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long MONITOR_INTERVAL = 90000L;
+    private static final long MEMBER_STARTUP_TIME = 3 * MINUTE;
+    private static final double INSTANCE_CAPACITY = 100;
+
+    @Test
+    public void testSampledLoadPatternModes() {
+        double[] samples = new double[]{10, 20, 30};
+        SampledLoadPattern loop = new SampledLoadPattern(samples, MINUTE, SampledLoadPattern.Mode.Loop);
+        SampledLoadPattern cont = new SampledLoadPattern(samples, MINUTE, SampledLoadPattern.Mode.Continue);
+        SampledLoadPattern stop = new SampledLoadPattern(samples, MINUTE, SampledLoadPattern.Mode.Stop);
+        assertEquals(10, loop.getLoad(0), 0);
+        assertEquals(20, loop.getLoad(MINUTE + 1), 0);
+        assertEquals(30, loop.getLoad(3 * MINUTE - 1), 0);
+        assertEquals(10, loop.getLoad(3 * MINUTE), 0);
+        assertEquals(30, cont.getLoad(10 * MINUTE), 0);
+        assertEquals(0, stop.getLoad(10 * MINUTE), 0);
+    }
+
+    @Test
+    public void testTraceLoadPattern() throws IOException {
+        String trace = "# time,requests-in-flight\n" +
+                "1400000000000,50\n" +
+                "1400000060000,250\n" +
+                "1400000120000,400\n" +
+                "1400000900000,80\n";
+        TraceLoadPattern loadPattern = new TraceLoadPattern(Backtester.readTrace(new StringReader(trace)));
+        assertEquals(50, loadPattern.getLoad(0), 0);
+        assertEquals(50, loadPattern.getLoad(MINUTE - 1), 0);
+        assertEquals(250, loadPattern.getLoad(MINUTE), 0);
+        assertEquals(400, loadPattern.getLoad(14 * MINUTE), 0);
+        assertEquals(80, loadPattern.getLoad(HOUR), 0);
+
+        Simulator simulator = new Simulator(30 * MINUTE, MONITOR_INTERVAL, MEMBER_STARTUP_TIME, INSTANCE_CAPACITY, 1);
+        simulator.addCluster("cluster-1", 1, 10, 2, StratosConstants.PARTITION_ROUND_ROBIN_ALGORITHM_ID,
+                loadPattern);
+        SimulationReport report = simulator.simulate("rif-80", createAutoscalePolicy(80),
+                new JavaScalingDecisionEngine());
+        log.info("Trace load: " + report);
+        int[] activeMemberCounts = report.getActiveMemberCounts();
+        assertEquals(1, activeMemberCounts[0]);
+        // 400 requests in flight need 5 members at a threshold of 80
+        assertEquals(5, activeMemberCounts[14]);
+        assertTrue(activeMemberCounts[29] < 5);
+        assertTrue(report.getSpawnCount() >= 4);
+        assertTrue(report.getTerminationCount() > 0);
+        assertTrue(report.getSlaViolationTime() > 0);
+    }
+
+    @Test
+    public void testDeterministicRuns() {
+        Simulator simulator = createSimulator(50, 2 * HOUR);
+        SimulationReport first = simulator.simulate("rif-80", createAutoscalePolicy(80),
+                new JavaScalingDecisionEngine());
+        SimulationReport second = simulator.simulate("rif-80", createAutoscalePolicy(80),
+                new JavaScalingDecisionEngine());
+        simulator.setThreadCount(4);
+        SimulationReport concurrent = simulator.simulate("rif-80", createAutoscalePolicy(80),
+                new JavaScalingDecisionEngine());
+        assertTrue(first.getSpawnCount() > 0);
+        assertIdentical(first, second);
+        assertIdentical(first, concurrent);
+    }
+
+    @Test
+    public void testPolicyComparison() {
+        Simulator simulator = createSimulator(50, 4 * HOUR);
+        SimulationReport eager = simulator.simulate("rif-60", createAutoscalePolicy(60),
+                new JavaScalingDecisionEngine());
+        SimulationReport lazy = simulator.simulate("rif-120", createAutoscalePolicy(120),
+                new JavaScalingDecisionEngine());
+        log.info("Policy comparison: " + eager);
+        log.info("Policy comparison: " + lazy);
+        // Scaling at a threshold below the instance capacity costs more and violates the SLA less
+        assertTrue(eager.getCost() > lazy.getCost());
+        assertTrue(eager.getSlaViolationRatio() < lazy.getSlaViolationRatio());
+    }
+
+    /**
+     * Simulates an hour of load on a thousand clusters.
+     */
+    @Test
+    public void testLargeSimulation() {
+        int clusterCount = 1000;
+        Simulator simulator = createSimulator(clusterCount, HOUR);
+        simulator.setThreadCount(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        SimulationReport report = simulator.simulate("rif-80", createAutoscalePolicy(80),
+                new JavaScalingDecisionEngine());
+        log.info(String.format("Large simulation: %s [monitor-cycles-per-second] %d", report,
+                report.getMonitorCycleCount() * 1000 / Math.max(1, report.getWallClockTime())));
+        assertEquals(clusterCount * (HOUR / MONITOR_INTERVAL), report.getMonitorCycleCount());
+        assertTrue(report.getSpawnCount() > 0);
+    }
+
+    /**
+     * Create a simulator of clusters with daily load compressed to an hour with noise, each
+     * cluster with its own peak and phase.
+     */
+    private Simulator createSimulator(int clusterCount, long duration) {
+        Simulator simulator = new Simulator(duration, MONITOR_INTERVAL, MEMBER_STARTUP_TIME, INSTANCE_CAPACITY,
+                0.1);
+        Random random = new Random(17);
+        for (int i = 0; i < clusterCount; i++) {
+            double peak = 200 + random.nextInt(800);
+            int phase = random.nextInt(60);
+            double[] samples = new double[60];
+            for (int j = 0; j < samples.length; j++) {
+                double wave = 0.5 - 0.5 * Math.cos(2 * Math.PI * (j + phase) / samples.length);
+                samples[j] = Math.max(0, peak * wave + random.nextGaussian() * 10);
+            }
+            String algorithm = (i % 2 == 0) ? StratosConstants.PARTITION_ROUND_ROBIN_ALGORITHM_ID :
+                    StratosConstants.PARTITION_ONE_AFTER_ANOTHER_ALGORITHM_ID;
+            simulator.addCluster("cluster-" + i, 1, 20, 1 + i % 3, algorithm,
+                    new SampledLoadPattern(samples, MINUTE, SampledLoadPattern.Mode.Loop));
+        }
+        return simulator;
+    }
+
+    private AutoscalePolicy createAutoscalePolicy(float requestsInFlightThreshold) {
+        LoadThresholds loadThresholds = new LoadThresholds();
+        loadThresholds.setRequestsInFlightThreshold(requestsInFlightThreshold);
+        loadThresholds.setMemoryConsumptionThreshold(80);
+        loadThresholds.setLoadAverageThreshold(80);
+        AutoscalePolicy autoscalePolicy = new AutoscalePolicy();
+        autoscalePolicy.setId("autoscale-policy-rif-" + requestsInFlightThreshold);
+        autoscalePolicy.setLoadThresholds(loadThresholds);
+        return autoscalePolicy;
+    }
+
+    private void assertIdentical(SimulationReport expected, SimulationReport actual) {
+        assertTrue(Arrays.equals(expected.getSampleTimes(), actual.getSampleTimes()));
+        assertTrue(Arrays.equals(expected.getActiveMemberCounts(), actual.getActiveMemberCounts()));
+        assertEquals(expected.getSlaViolationTime(), actual.getSlaViolationTime());
+        assertEquals(expected.getInstanceHours(), actual.getInstanceHours(), 0);
+        assertEquals(expected.getSpawnCount(), actual.getSpawnCount());
+        assertEquals(expected.getTerminationCount(), actual.getTerminationCount());
+        assertEquals(expected.getMonitorCycleCount(), actual.getMonitorCycleCount());
+    }
+}
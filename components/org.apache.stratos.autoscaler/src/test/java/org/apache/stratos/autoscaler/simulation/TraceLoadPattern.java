@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.simulation;
+
+import org.apache.stratos.autoscaler.forecast.Backtester;
+
+/**
+ * Load pattern replaying a recorded requests in flight trace. Trace times are taken relative to
+ * the first observation and each observed value is held until the next one, the last value is
+ * held until the end of the simulation.
+ */
+public class TraceLoadPattern implements LoadPattern {
+
+    private final long[] times;
+    private final double[] values;
+
+    public TraceLoadPattern(Backtester.Trace trace) {
+        long[] traceTimes = trace.getTimes();
+        double[] traceValues = trace.getValues();
+        if (traceTimes.length == 0 || traceTimes.length != traceValues.length) {
+            throw new IllegalArgumentException(String.format("Invalid trace: [times] %d [values] %d",
+                    traceTimes.length, traceValues.length));
+        }
+        times = new long[traceTimes.length];
+        for (int i = 0; i < traceTimes.length; i++) {
+            if (i > 0 && traceTimes[i] < traceTimes[i - 1]) {
+                throw new IllegalArgumentException(String.format("Trace times are not in ascending order: " +
+                        "[index] %d [time] %d", i, traceTimes[i]));
+            }
+            times[i] = traceTimes[i] - traceTimes[0];
+        }
+        values = traceValues.clone();
+    }
+
+    @Override
+    public double getLoad(long time) {
+        // Index of the last observation at or before the time
+        int low = 0;
+        int high = times.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (times[mid] <= time) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return values[low];
+    }
+}
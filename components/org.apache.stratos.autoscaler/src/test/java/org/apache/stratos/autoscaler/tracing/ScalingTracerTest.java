@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.autoscaler.tracing;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the scaling tracer.
+ */
+public class ScalingTracerTest {
+
+    private static final String CLUSTER_ID = "cluster-1";
+    private static final String CLUSTER_INSTANCE_ID = "cluster-1-instance-1";
+
+    @Test
+    public void testTraceFromStatisticToMemberActivation() throws InterruptedException {
+        ScalingTracer tracer = new ScalingTracer(5, false);
+        tracer.statisticReceived(CLUSTER_ID, CLUSTER_INSTANCE_ID);
+        Thread.sleep(5);
+        // further statistics of the cycle do not open another trace
+        tracer.statisticReceived(CLUSTER_ID, CLUSTER_INSTANCE_ID);
+
+        ScalingTrace trace = tracer.startEvaluation(CLUSTER_ID, CLUSTER_INSTANCE_ID);
+        assertTrue(trace.getStatisticReceivedTime() > 0);
+        assertTrue(trace.getEvaluationStartTime() >= trace.getStatisticReceivedTime() + 5);
+
+        ScalingTrace.MemberSpawn first = tracer.spawnRequested(trace, "rif");
+        tracer.spawnAccepted(first, "member-1", "partition-1");
+        ScalingTrace.MemberSpawn second = tracer.spawnRequested(trace, "rif");
+        tracer.spawnAccepted(second, "member-2", "partition-2");
+        tracer.endEvaluation(trace);
+
+        assertEquals(1, tracer.getHistogram(ScalingTracer.STAGE_STATISTIC_TO_EVALUATION).getCount());
+        assertTrue(tracer.getHistogram(ScalingTracer.STAGE_STATISTIC_TO_EVALUATION).getMax() >= 5);
+        assertEquals(1, tracer.getHistogram(ScalingTracer.STAGE_EVALUATION).getCount());
+        assertEquals(2, tracer.getHistogram(ScalingTracer.STAGE_EVALUATION_TO_SPAWN).getCount());
+        assertEquals(2, tracer.getHistogram(ScalingTracer.STAGE_SPAWN_REQUEST).getCount());
+
+        tracer.memberActivated("member-1");
+        tracer.memberActivated("member-1");
+        tracer.memberActivated("unknown-member");
+        assertEquals(1, tracer.getHistogram(ScalingTracer.STAGE_MEMBER_ACTIVATION).getCount());
+        assertEquals(1, tracer.getHistogram(ScalingTracer.STAGE_STATISTIC_TO_MEMBER_ACTIVATION).getCount());
+
+        ScalingTrace[] decisions = tracer.getRecentDecisions(CLUSTER_ID);
+        assertEquals(1, decisions.length);
+        assertSame(trace, decisions[0]);
+        List<ScalingTrace.MemberSpawn> memberSpawns = decisions[0].getMemberSpawns();
+        assertEquals(2, memberSpawns.size());
+        assertEquals("member-1", memberSpawns.get(0).getMemberId());
+        assertTrue(memberSpawns.get(0).getMemberActivatedTime() >= memberSpawns.get(0).getSpawnResponseTime());
+        assertEquals("partition-2", memberSpawns.get(1).getPartitionId());
+        assertEquals(0, memberSpawns.get(1).getMemberActivatedTime());
+    }
+
+    @Test
+    public void testEvaluationWithoutStatistics() {
+        ScalingTracer tracer = new ScalingTracer(5, false);
+        ScalingTrace trace = tracer.startEvaluation(CLUSTER_ID, CLUSTER_INSTANCE_ID);
+        assertEquals(0, trace.getStatisticReceivedTime());
+        tracer.endEvaluation(trace);
+        assertEquals(0, tracer.getHistogram(ScalingTracer.STAGE_STATISTIC_TO_EVALUATION).getCount());
+
+        // decisions without spawns are not kept
+        assertEquals(0, tracer.getRecentDecisions(CLUSTER_ID).length);
+
+        // the next statistic opens a new trace
+        tracer.statisticReceived(CLUSTER_ID, CLUSTER_INSTANCE_ID);
+        ScalingTrace nextTrace = tracer.startEvaluation(CLUSTER_ID, CLUSTER_INSTANCE_ID);
+        assertFalse(trace.getTraceId().equals(nextTrace.getTraceId()));
+        assertTrue(nextTrace.getStatisticReceivedTime() > 0);
+    }
+
+    @Test
+    public void testDecisionsWithoutStatisticsAreNotCountedInTotal() {
+        ScalingTracer tracer = new ScalingTracer(5, false);
+        ScalingTrace trace = tracer.startTrace(CLUSTER_ID, CLUSTER_INSTANCE_ID);
+        ScalingTrace.MemberSpawn memberSpawn = tracer.spawnRequested(trace, "min");
+        tracer.spawnAccepted(memberSpawn, "member-1", "partition-1");
+        tracer.memberActivated("member-1");
+
+        assertEquals(0, tracer.getHistogram(ScalingTracer.STAGE_EVALUATION_TO_SPAWN).getCount());
+        assertEquals(1, tracer.getHistogram(ScalingTracer.STAGE_MEMBER_ACTIVATION).getCount());
+        assertEquals(0, tracer.getHistogram(ScalingTracer.STAGE_STATISTIC_TO_MEMBER_ACTIVATION).getCount());
+        assertEquals(1, tracer.getRecentDecisions(CLUSTER_ID).length);
+    }
+
+    @Test
+    public void testRecentDecisionsAreBounded() {
+        ScalingTracer tracer = new ScalingTracer(3, false);
+        ScalingTrace[] traces = new ScalingTrace[5];
+        for (int i = 0; i < traces.length; i++) {
+            traces[i] = tracer.startTrace(CLUSTER_ID, CLUSTER_INSTANCE_ID);
+            tracer.spawnAccepted(tracer.spawnRequested(traces[i], "rif"), "member-" + i, "partition-1");
+        }
+        ScalingTrace[] decisions = tracer.getRecentDecisions(CLUSTER_ID);
+        assertEquals(3, decisions.length);
+        assertSame(traces[4], decisions[0]);
+        assertSame(traces[3], decisions[1]);
+        assertSame(traces[2], decisions[2]);
+        assertEquals(0, tracer.getRecentDecisions("cluster-2").length);
+    }
+
+    @Test
+    public void testTerminatedAndRemovedMembersAreNotTracked() {
+        ScalingTracer tracer = new ScalingTracer(5, false);
+        ScalingTrace trace = tracer.startTrace(CLUSTER_ID, CLUSTER_INSTANCE_ID);
+        tracer.spawnAccepted(tracer.spawnRequested(trace, "rif"), "member-1", "partition-1");
+        tracer.spawnAccepted(tracer.spawnRequested(trace, "rif"), "member-2", "partition-1");
+        tracer.statisticReceived(CLUSTER_ID, CLUSTER_INSTANCE_ID);
+
+        tracer.memberTerminated("member-1");
+        tracer.memberActivated("member-1");
+        assertEquals(0, tracer.getHistogram(ScalingTracer.STAGE_MEMBER_ACTIVATION).getCount());
+
+        tracer.removeCluster(CLUSTER_ID);
+        tracer.memberActivated("member-2");
+        assertEquals(0, tracer.getHistogram(ScalingTracer.STAGE_MEMBER_ACTIVATION).getCount());
+        assertEquals(0, tracer.getRecentDecisions(CLUSTER_ID).length);
+        assertEquals(0, tracer.startEvaluation(CLUSTER_ID, CLUSTER_INSTANCE_ID).getStatisticReceivedTime());
+    }
+}
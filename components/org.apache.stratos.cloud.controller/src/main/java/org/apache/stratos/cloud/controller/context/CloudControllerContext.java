@@ -31,18 +31,20 @@ import org.apache.stratos.cloud.controller.exception.NonExistingKubernetesCluste
 import org.apache.stratos.cloud.controller.exception.NonExistingKubernetesHostException;
 import org.apache.stratos.cloud.controller.internal.ServiceReferenceHolder;
 import org.apache.stratos.cloud.controller.registry.RegistryManager;
+import org.apache.stratos.cloud.controller.registry.ResourceStore;
 import org.apache.stratos.cloud.controller.util.CloudControllerConstants;
 import org.apache.stratos.common.services.DistributedObjectProvider;
 import org.apache.stratos.common.threading.StratosThreadPool;
 import org.wso2.carbon.databridge.agent.thrift.AsyncDataPublisher;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
 
-import java.io.Serializable;
+import java.io.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This object holds all runtime data and provides faster access. This is a Singleton class.
@@ -76,9 +78,32 @@ public class CloudControllerContext implements Serializable {
     private static final String CC_CARTRIDGES_WRITE_LOCK = "CC_CARTRIDGES_WRITE_LOCK";
     private static final String CC_SERVICE_GROUPS_WRITE_LOCK = "CC_SERVICE_GROUPS_WRITE_LOCK";
 
+    private static final String JOURNAL_PERSISTENCE_MODE = "journal";
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+
     private static volatile CloudControllerContext instance;
 
     private final transient DistributedObjectProvider distributedObjectProvider;
+    private final transient ResourceStore resourceStore;
+    private final transient CloudControllerContextJournal journal;
+    private final transient boolean journalEnabled;
+    private final transient int compactionThreshold;
+
+    /**
+     * Member and cluster context updates hold the read lock, the context is copied for a snapshot
+     * under the write lock
+     */
+    private final transient ReentrantReadWriteLock contextLock;
+
+    /**
+     * Sequence of the last journal record covered by the persisted context
+     */
+    private long journalSequence;
+
+    /**
+     * Sequence of the last journal record covered by the previously persisted context
+     */
+    private long compactedJournalSequence;
 
 	/* We keep following maps in order to make the look up time, small. */
 
@@ -181,6 +206,15 @@ public class CloudControllerContext implements Serializable {
     private boolean coordinator;
 
     private CloudControllerContext() {
+        this(ServiceReferenceHolder.getInstance().getDistributedObjectProvider(), RegistryManager.getInstance());
+
+        if(!unitTest) {
+            // Update context from the registry
+            updateContextFromRegistry();
+        }
+    }
+
+    CloudControllerContext(DistributedObjectProvider distributedObjectProvider, ResourceStore resourceStore) {
         // Check clustering status
         AxisConfiguration axisConfiguration = ServiceReferenceHolder.getInstance().getAxisConfiguration();
         if ((axisConfiguration != null) && (axisConfiguration.getClusteringAgent() != null)) {
@@ -188,7 +222,8 @@ public class CloudControllerContext implements Serializable {
         }
 
         // Initialize distributed object provider
-        distributedObjectProvider = ServiceReferenceHolder.getInstance().getDistributedObjectProvider();
+        this.distributedObjectProvider = distributedObjectProvider;
+        this.resourceStore = resourceStore;
 
         // Initialize objects
         kubernetesClustersMap = distributedObjectProvider.getMap(CC_KUB_GROUP_ID_TO_GROUP_MAP);
@@ -205,9 +240,25 @@ public class CloudControllerContext implements Serializable {
         cartridgeTypeToIaasProviders = distributedObjectProvider.getMap(CC_CARTRIDGE_TYPE_TO_IAAS_PROVIDER_MAP);
         applicationIdToClusterIdToPortMappings = distributedObjectProvider.getMap(CC_APPLICATION_ID_TO_CLUSTER_ID_TO_PORT_MAPPING_MAP);
 
-        if(!unitTest) {
-            // Update context from the registry
-            updateContextFromRegistry();
+        // Initialize persistence, changes are only journaled by a standalone cloud controller since
+        // changes made by other members of a cluster are not seen by the coordinator
+        journal = new CloudControllerContextJournal(resourceStore, CloudControllerConstants.DATA_JOURNAL_RESOURCE);
+        boolean journalRequested = JOURNAL_PERSISTENCE_MODE.equals(
+                System.getProperty(CloudControllerConstants.PERSISTENCE_MODE));
+        journalEnabled = journalRequested && !clustered;
+        if (journalRequested && clustered) {
+            log.warn("Journal persistence mode is not supported in a clustered deployment, " +
+                    "complete cloud controller context will be persisted");
+        }
+        compactionThreshold = getCompactionThreshold();
+        contextLock = new ReentrantReadWriteLock();
+    }
+
+    private static int getCompactionThreshold() {
+        try {
+            return Integer.parseInt(System.getProperty(CloudControllerConstants.PERSISTENCE_COMPACTION_THRESHOLD));
+        } catch (NumberFormatException e) {
+            return DEFAULT_COMPACTION_THRESHOLD;
         }
     }
 
@@ -377,31 +428,40 @@ public class CloudControllerContext implements Serializable {
     }
 
     public void addMemberContext(MemberContext memberContext) {
-        memberIdToMemberContextMap.put(memberContext.getMemberId(), memberContext);
-
-        List<MemberContext> memberContextList;
-        if ((memberContextList = clusterIdToMemberContextListMap.get(memberContext.getClusterId())) == null) {
-            memberContextList = new ArrayList<MemberContext>();
-        }
-        if (memberContextList.contains(memberContext)) {
-            memberContextList.remove(memberContext);
+        contextLock.readLock().lock();
+        try {
+            putMemberContext(memberContext);
+            recordChange(CloudControllerContextJournal.Change.memberContextUpdated(memberContext));
+        } finally {
+            contextLock.readLock().unlock();
         }
-        memberContextList.add(memberContext);
-        clusterIdToMemberContextListMap.put(memberContext.getClusterId(), memberContextList);
         if (log.isDebugEnabled()) {
             log.debug("Added member context to the cloud controller context: " + memberContext);
         }
     }
 
     public void updateMemberContext(MemberContext memberContext) {
+        contextLock.readLock().lock();
+        try {
+            putMemberContext(memberContext);
+            recordChange(CloudControllerContextJournal.Change.memberContextUpdated(memberContext));
+        } finally {
+            contextLock.readLock().unlock();
+        }
+    }
+
+    private void putMemberContext(MemberContext memberContext) {
         memberIdToMemberContextMap.put(memberContext.getMemberId(), memberContext);
 
         List<MemberContext> memberContextList;
         if ((memberContextList = clusterIdToMemberContextListMap.get(memberContext.getClusterId())) == null) {
             memberContextList = new ArrayList<MemberContext>();
         }
-        if (memberContextList.contains(memberContext)) {
-            memberContextList.remove(memberContext);
+        // Match by member id, replayed journal records carry detached copies of the member context
+        for (Iterator<MemberContext> iterator = memberContextList.iterator(); iterator.hasNext(); ) {
+            if (memberContext.getMemberId().equals(iterator.next().getMemberId())) {
+                iterator.remove();
+            }
         }
         memberContextList.add(memberContext);
         clusterIdToMemberContextListMap.put(memberContext.getClusterId(), memberContextList);
@@ -412,14 +472,23 @@ public class CloudControllerContext implements Serializable {
     }
 
     public List<MemberContext> removeMemberContextsOfCluster(String clusterId) {
-        List<MemberContext> memberContextList = clusterIdToMemberContextListMap.get(clusterId);
-        clusterIdToMemberContextListMap.remove(clusterId);
-        if (memberContextList == null) {
-            return new ArrayList<MemberContext>();
+        List<MemberContext> memberContextList;
+        contextLock.readLock().lock();
+        try {
+            memberContextList = clusterIdToMemberContextListMap.get(clusterId);
+            clusterIdToMemberContextListMap.remove(clusterId);
+            if (memberContextList == null) {
+                return new ArrayList<MemberContext>();
+            }
+            recordChange(CloudControllerContextJournal.Change.memberContextsOfClusterRemoved(clusterId));
+            for (MemberContext memberContext : memberContextList) {
+                memberIdToMemberContextMap.remove(memberContext.getMemberId());
+            }
+        } finally {
+            contextLock.readLock().unlock();
         }
         for (MemberContext memberContext : memberContextList) {
             String memberId = memberContext.getMemberId();
-            memberIdToMemberContextMap.remove(memberId);
             ScheduledFuture<?> task = memberIdToScheduledTaskMap.get(memberId);
             memberIdToScheduledTaskMap.remove(memberId);
             stopTask(task);
@@ -433,6 +502,22 @@ public class CloudControllerContext implements Serializable {
     }
 
     public MemberContext removeMemberContext(String clusterId, String memberId) {
+        MemberContext removedMemberContext;
+        contextLock.readLock().lock();
+        try {
+            removedMemberContext = deleteMemberContext(clusterId, memberId);
+            recordChange(CloudControllerContextJournal.Change.memberContextRemoved(clusterId, memberId));
+        } finally {
+            contextLock.readLock().unlock();
+        }
+
+        ScheduledFuture<?> task = memberIdToScheduledTaskMap.get(memberId);
+        memberIdToScheduledTaskMap.remove(memberId);
+        stopTask(task);
+        return removedMemberContext;
+    }
+
+    private MemberContext deleteMemberContext(String clusterId, String memberId) {
         MemberContext removedMemberContext = memberIdToMemberContextMap.get(memberId);
         memberIdToMemberContextMap.remove(memberId);
 
@@ -450,9 +535,6 @@ public class CloudControllerContext implements Serializable {
             }
             clusterIdToMemberContextListMap.put(clusterId, newCtxts);
         }
-        ScheduledFuture<?> task = memberIdToScheduledTaskMap.get(memberId);
-        memberIdToScheduledTaskMap.remove(memberId);
-        stopTask(task);
         return removedMemberContext;
     }
 
@@ -472,11 +554,23 @@ public class CloudControllerContext implements Serializable {
     }
 
     public void addClusterContext(ClusterContext clusterContext) {
-        clusterIdToContextMap.put(clusterContext.getClusterId(), clusterContext);
+        contextLock.readLock().lock();
+        try {
+            clusterIdToContextMap.put(clusterContext.getClusterId(), clusterContext);
+            recordChange(CloudControllerContextJournal.Change.clusterContextUpdated(clusterContext));
+        } finally {
+            contextLock.readLock().unlock();
+        }
     }
 
     public void updateClusterContext(ClusterContext clusterContext) {
-        clusterIdToContextMap.put(clusterContext.getClusterId(), clusterContext);
+        contextLock.readLock().lock();
+        try {
+            clusterIdToContextMap.put(clusterContext.getClusterId(), clusterContext);
+            recordChange(CloudControllerContextJournal.Change.clusterContextUpdated(clusterContext));
+        } finally {
+            contextLock.readLock().unlock();
+        }
     }
 
     public ClusterContext getClusterContext(String clusterId) {
@@ -484,9 +578,15 @@ public class CloudControllerContext implements Serializable {
     }
 
     public ClusterContext removeClusterContext(String clusterId) {
-        ClusterContext removed = clusterIdToContextMap.get(clusterId);
-        clusterIdToContextMap.remove(clusterId);
-        return removed;
+        contextLock.readLock().lock();
+        try {
+            ClusterContext removed = clusterIdToContextMap.get(clusterId);
+            clusterIdToContextMap.remove(clusterId);
+            recordChange(CloudControllerContextJournal.Change.clusterContextRemoved(clusterId));
+            return removed;
+        } finally {
+            contextLock.readLock().unlock();
+        }
     }
 
     public ExecutorService getExecutorService() {
@@ -702,21 +802,110 @@ public class CloudControllerContext implements Serializable {
         this.coordinator = coordinator;
     }
 
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    private void recordChange(CloudControllerContextJournal.Change change) {
+        if (journalEnabled) {
+            journal.record(change);
+        }
+    }
+
+    /**
+     * Persist the complete cloud controller context in the registry. Journal records covered
+     * by the persisted context are removed.
+     */
     public void persist() {
         if ((!isClustered()) || (isCoordinator())) {
             try {
-                RegistryManager.getInstance().persist(CloudControllerConstants.DATA_RESOURCE, this);
+                persistSnapshot();
             } catch (RegistryException e) {
                 log.error("Could not persist cloud controller context in registry", e);
             }
         }
     }
 
-    private void updateContextFromRegistry() {
+    /**
+     * Persist the member and cluster context changes made since the last persist. In journal
+     * persistence mode only the changes are appended to the registry and the complete context
+     * is persisted in the background once enough changes are journaled, otherwise the complete
+     * context is persisted.
+     */
+    public void persistChanges() {
+        if (!journalEnabled) {
+            persist();
+            return;
+        }
+        try {
+            long recordCount = journal.flush();
+            if ((recordCount >= compactionThreshold) && journal.startCompaction()) {
+                executorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            persistSnapshot();
+                        } catch (Exception e) {
+                            log.error("Could not compact cloud controller context journal", e);
+                        } finally {
+                            journal.compactionCompleted();
+                        }
+                    }
+                });
+            }
+        } catch (RegistryException e) {
+            log.error("Could not persist cloud controller context changes in registry", e);
+        }
+    }
+
+    /**
+     * Persist the complete context. In journal persistence mode, or while records journaled before
+     * switching the mode are left, the context is serialized while member and cluster context
+     * updates are blocked and persisted once updates are resumed.
+     */
+    private void persistSnapshot() throws RegistryException {
+        if ((!journalEnabled) && (journal.getLastSequence() == journal.getSnapshotSequence())) {
+            resourceStore.persist(CloudControllerConstants.DATA_RESOURCE, this);
+            return;
+        }
+        journal.snapshot(new CloudControllerContextJournal.SnapshotWriter() {
+            @Override
+            public void write(long sequence, long previousSequence) throws RegistryException {
+                byte[] snapshot;
+                contextLock.writeLock().lock();
+                try {
+                    journalSequence = sequence;
+                    compactedJournalSequence = previousSequence;
+                    snapshot = serializeContext();
+                } finally {
+                    contextLock.writeLock().unlock();
+                }
+                resourceStore.persistSerialized(CloudControllerConstants.DATA_RESOURCE, snapshot);
+            }
+        });
+    }
+
+    private byte[] serializeContext() throws RegistryException {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+            try {
+                objectOutputStream.writeObject(this);
+            } finally {
+                objectOutputStream.close();
+            }
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            throw new RegistryException("Could not serialize cloud controller context", e);
+        }
+    }
+
+    void updateContextFromRegistry() {
         if ((!isClustered()) || (isCoordinator())) {
             try {
-                Object dataObj = RegistryManager.getInstance().
-                        read(CloudControllerConstants.DATA_RESOURCE);
+                Object dataObj = resourceStore.read(CloudControllerConstants.DATA_RESOURCE);
+                long snapshotSequence = 0;
+                long compactedSnapshotSequence = 0;
                 if (dataObj != null) {
                     if (dataObj instanceof CloudControllerContext) {
                         CloudControllerContext serializedObj = (CloudControllerContext) dataObj;
@@ -743,6 +932,8 @@ public class CloudControllerContext implements Serializable {
                                 cartridgeTypeToIaasProviders);
                         copyMap(serializedObj.applicationIdToClusterIdToPortMappings,
                                 applicationIdToClusterIdToPortMappings);
+                        snapshotSequence = serializedObj.journalSequence;
+                        compactedSnapshotSequence = serializedObj.compactedJournalSequence;
 
                         if (log.isDebugEnabled()) {
                             log.debug("Cloud controller context is read from the registry");
@@ -753,6 +944,18 @@ public class CloudControllerContext implements Serializable {
                         }
                     }
                 }
+
+                // Replay the changes journaled after the context was persisted
+                long recordCount = journal.recover(snapshotSequence, compactedSnapshotSequence,
+                        new CloudControllerContextJournal.ChangeHandler() {
+                            @Override
+                            public void apply(CloudControllerContextJournal.Change change) {
+                                applyChange(change);
+                            }
+                        });
+                if ((recordCount > 0) && log.isInfoEnabled()) {
+                    log.info(String.format("Cloud controller context journal replayed: [records] %d", recordCount));
+                }
             } catch (Exception e) {
                 String msg = "Unable to read cloud controller context from the registry. " +
                         "Hence, any historical data will not be reflected";
@@ -761,6 +964,31 @@ public class CloudControllerContext implements Serializable {
         }
     }
 
+    private void applyChange(CloudControllerContextJournal.Change change) {
+        switch (change.getType()) {
+            case MemberContextUpdated:
+                putMemberContext(change.getMemberContext());
+                break;
+            case MemberContextRemoved:
+                deleteMemberContext(change.getClusterId(), change.getMemberId());
+                break;
+            case MemberContextsOfClusterRemoved:
+                List<MemberContext> memberContextList = clusterIdToMemberContextListMap.remove(change.getClusterId());
+                if (memberContextList != null) {
+                    for (MemberContext memberContext : memberContextList) {
+                        memberIdToMemberContextMap.remove(memberContext.getMemberId());
+                    }
+                }
+                break;
+            case ClusterContextUpdated:
+                clusterIdToContextMap.put(change.getClusterId(), change.getClusterContext());
+                break;
+            case ClusterContextRemoved:
+                clusterIdToContextMap.remove(change.getClusterId());
+                break;
+        }
+    }
+
     private void copyMap(Map sourceMap, Map destinationMap) {
         for (Object key : sourceMap.keySet()) {
             destinationMap.put(key, sourceMap.get(key));
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.cloud.controller.context;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.cloud.controller.domain.ClusterContext;
+import org.apache.stratos.cloud.controller.domain.MemberContext;
+import org.apache.stratos.cloud.controller.registry.ResourceStore;
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-ahead journal of the member and cluster context changes of the cloud controller context.
+ * Instead of persisting the complete context, the changes made since the previous flush are appended
+ * to the store as a journal record. Each context snapshot keeps the sequence of the last record it
+ * covers, records up to that sequence are removed once the snapshot is persisted and the remaining
+ * records are replayed on top of the snapshot when the context is recovered.
+ * <p/>
+ * Snapshots are copied while member and cluster context updates are blocked, after flushing the
+ * changes recorded so far, hence a snapshot might already contain changes of the records replayed on
+ * top of it. Records hold the latest state of the entries they refer to, therefore replaying them in
+ * order is idempotent.
+ */
+class CloudControllerContextJournal {
+
+    private static final Log log = LogFactory.getLog(CloudControllerContextJournal.class);
+
+    private final ResourceStore resourceStore;
+    private final String journalResourcePath;
+    private final List<Change> pendingChanges;
+    private final Object flushLock;
+    private final Object snapshotLock;
+    private final AtomicBoolean compacting;
+    private volatile long lastSequence;
+    private volatile long snapshotSequence;
+
+    CloudControllerContextJournal(ResourceStore resourceStore, String journalResourcePath) {
+        this.resourceStore = resourceStore;
+        this.journalResourcePath = journalResourcePath;
+        this.pendingChanges = new ArrayList<Change>();
+        this.flushLock = new Object();
+        this.snapshotLock = new Object();
+        this.compacting = new AtomicBoolean();
+    }
+
+    /**
+     * Record a change to be appended by the next flush.
+     */
+    void record(Change change) {
+        synchronized (pendingChanges) {
+            pendingChanges.add(change);
+        }
+    }
+
+    /**
+     * Append the changes recorded since the previous flush as a journal record.
+     *
+     * @return number of journal records appended since the last snapshot
+     */
+    long flush() throws RegistryException {
+        synchronized (flushLock) {
+            List<Change> changes;
+            synchronized (pendingChanges) {
+                if (pendingChanges.isEmpty()) {
+                    return lastSequence - snapshotSequence;
+                }
+                changes = new ArrayList<Change>(pendingChanges);
+                pendingChanges.clear();
+            }
+
+            long sequence = lastSequence + 1;
+            try {
+                resourceStore.persist(getRecordPath(sequence), (Serializable) changes);
+            } catch (RegistryException e) {
+                // Keep the changes to be appended by the next flush
+                synchronized (pendingChanges) {
+                    pendingChanges.addAll(0, changes);
+                }
+                throw e;
+            }
+            lastSequence = sequence;
+
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Journal record persisted: [sequence] %d [changes] %d", sequence,
+                        changes.size()));
+            }
+            return lastSequence - snapshotSequence;
+        }
+    }
+
+    /**
+     * Persist a snapshot of the context using the given writer and remove the journal records
+     * covered by it.
+     */
+    void snapshot(SnapshotWriter snapshotWriter) throws RegistryException {
+        synchronized (snapshotLock) {
+            flush();
+            long sequence = lastSequence;
+            long previousSequence = snapshotSequence;
+            snapshotWriter.write(sequence, previousSequence);
+            snapshotSequence = sequence;
+            removeRecords(previousSequence + 1, sequence);
+        }
+    }
+
+    /**
+     * Returns true if a compaction can be started, compactions are started one at a time.
+     */
+    boolean startCompaction() {
+        return compacting.compareAndSet(false, true);
+    }
+
+    void compactionCompleted() {
+        compacting.set(false);
+    }
+
+    /**
+     * Replay the journal records following the recovered snapshot.
+     *
+     * @param snapshotSequence          sequence of the last record covered by the snapshot
+     * @param compactedSnapshotSequence sequence of the last record covered by the previous snapshot
+     * @param changeHandler             handler the changes are applied with
+     * @return number of records replayed
+     */
+    long recover(long snapshotSequence, long compactedSnapshotSequence, ChangeHandler changeHandler)
+            throws RegistryException {
+        synchronized (snapshotLock) {
+            // Remove records left behind if the previous compaction did not complete
+            removeRecords(compactedSnapshotSequence + 1, snapshotSequence);
+
+            long sequence = snapshotSequence;
+            Object record;
+            while ((record = resourceStore.read(getRecordPath(sequence + 1))) != null) {
+                for (Object change : (List<?>) record) {
+                    changeHandler.apply((Change) change);
+                }
+                sequence++;
+            }
+
+            this.snapshotSequence = snapshotSequence;
+            this.lastSequence = sequence;
+            if (log.isInfoEnabled()) {
+                log.info(String.format("Cloud controller context journal recovered: [snapshot-sequence] %d " +
+                        "[last-sequence] %d", snapshotSequence, sequence));
+            }
+            return sequence - snapshotSequence;
+        }
+    }
+
+    private void removeRecords(long fromSequence, long toSequence) throws RegistryException {
+        for (long sequence = fromSequence; sequence <= toSequence; sequence++) {
+            resourceStore.remove(getRecordPath(sequence));
+        }
+    }
+
+    String getRecordPath(long sequence) {
+        return String.format("%s/%019d", journalResourcePath, sequence);
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    long getSnapshotSequence() {
+        return snapshotSequence;
+    }
+
+    /**
+     * Writes a snapshot of the context.
+     */
+    interface SnapshotWriter {
+
+        /**
+         * @param sequence         sequence of the last journal record covered by the snapshot
+         * @param previousSequence sequence of the last journal record covered by the previous snapshot
+         */
+        void write(long sequence, long previousSequence) throws RegistryException;
+    }
+
+    /**
+     * Applies the changes replayed from the journal.
+     */
+    interface ChangeHandler {
+        void apply(Change change);
+    }
+
+    /**
+     * Change of a member or cluster context.
+     */
+    static class Change implements Serializable {
+
+        private static final long serialVersionUID = -4383012711520374592L;
+
+        enum Type {
+            MemberContextUpdated, MemberContextRemoved, MemberContextsOfClusterRemoved, ClusterContextUpdated,
+            ClusterContextRemoved
+        }
+
+        private final Type type;
+        private final String clusterId;
+        private final String memberId;
+        private final Serializable context;
+
+        private Change(Type type, String clusterId, String memberId, Serializable context) {
+            this.type = type;
+            this.clusterId = clusterId;
+            this.memberId = memberId;
+            this.context = context;
+        }
+
+        static Change memberContextUpdated(MemberContext memberContext) {
+            return new Change(Type.MemberContextUpdated, memberContext.getClusterId(), memberContext.getMemberId(),
+                    memberContext);
+        }
+
+        static Change memberContextRemoved(String clusterId, String memberId) {
+            return new Change(Type.MemberContextRemoved, clusterId, memberId, null);
+        }
+
+        static Change memberContextsOfClusterRemoved(String clusterId) {
+            return new Change(Type.MemberContextsOfClusterRemoved, clusterId, null, null);
+        }
+
+        static Change clusterContextUpdated(ClusterContext clusterContext) {
+            return new Change(Type.ClusterContextUpdated, clusterContext.getClusterId(), null, clusterContext);
+        }
+
+        static Change clusterContextRemoved(String clusterId) {
+            return new Change(Type.ClusterContextRemoved, clusterId, null, null);
+        }
+
+        Type getType() {
+            return type;
+        }
+
+        String getClusterId() {
+            return clusterId;
+        }
+
+        String getMemberId() {
+            return memberId;
+        }
+
+        MemberContext getMemberContext() {
+            return (MemberContext) context;
+        }
+
+        ClusterContext getClusterContext() {
+            return (ClusterContext) context;
+        }
+    }
+}
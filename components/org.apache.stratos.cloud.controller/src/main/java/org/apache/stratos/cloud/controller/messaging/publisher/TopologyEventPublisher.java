@@ -26,6 +26,7 @@ import org.apache.stratos.cloud.controller.domain.ClusterContext;
 import org.apache.stratos.cloud.controller.domain.MemberContext;
 import org.apache.stratos.cloud.controller.domain.PortMapping;
 import org.apache.stratos.cloud.controller.util.CloudControllerUtil;
+import org.apache.stratos.messaging.broker.publish.EventOutboxPool;
 import org.apache.stratos.messaging.broker.publish.EventPublisher;
 import org.apache.stratos.messaging.broker.publish.EventPublisherPool;
 import org.apache.stratos.messaging.domain.application.ClusterDataHolder;
@@ -41,7 +42,10 @@ import org.apache.stratos.messaging.util.MessagingUtil;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * this is to send the relevant events from cloud controller to topology topic
@@ -49,6 +53,13 @@ import java.util.Set;
 public class TopologyEventPublisher {
     private static final Log log = LogFactory.getLog(TopologyEventPublisher.class);
 
+    // Identifies this cloud controller run, versions start over from one in each epoch
+    private static final long topologyEpoch = System.currentTimeMillis();
+    private static long topologyVersion;
+    // Topology events versioned but not yet published, used if the event outbox is not enabled
+    private static final Queue<Event> pendingTopologyEvents = new ConcurrentLinkedQueue<Event>();
+    private static final AtomicBoolean publishingTopologyEvents = new AtomicBoolean();
+
     public static void sendServiceCreateEvent(List<Cartridge> cartridgeList) {
         ServiceCreatedEvent serviceCreatedEvent;
         for (Cartridge cartridge : cartridgeList) {
@@ -71,7 +82,8 @@ public class TopologyEventPublisher {
                         "Publishing service created event: [service-name] %s",
                         cartridge.getType()));
             }
-            publishEvent(serviceCreatedEvent);
+            TopologyEventSynchronizer.serviceChanged(cartridge.getUuid());
+            publishEvent(serviceCreatedEvent, null, cartridge.getUuid());
         }
     }
 
@@ -84,7 +96,8 @@ public class TopologyEventPublisher {
                         "Publishing service removed event: [service-name] %s",
                         serviceRemovedEvent.getServiceUuid()));
             }
-            publishEvent(serviceRemovedEvent);
+            TopologyEventSynchronizer.serviceChanged(cartridge.getUuid());
+            publishEvent(serviceRemovedEvent, null, cartridge.getUuid());
         }
     }
 
@@ -96,7 +109,7 @@ public class TopologyEventPublisher {
         if (log.isInfoEnabled()) {
             log.info("Publishing cluster reset event: [cluster-id] " + clusterId);
         }
-        publishEvent(clusterResetEvent);
+        publishEvent(clusterResetEvent, clusterId, clusterId + ":" + instanceId);
     }
 
     public static void sendClusterCreatedEvent(Cluster cluster) {
@@ -105,7 +118,7 @@ public class TopologyEventPublisher {
         if (log.isInfoEnabled()) {
             log.info("Publishing cluster created event: [cluster-id] " + cluster.getClusterId());
         }
-        publishEvent(clusterCreatedEvent);
+        publishEvent(clusterCreatedEvent, cluster.getClusterId(), cluster.getClusterId());
     }
 
     public static void sendApplicationClustersCreated(String appId, List<Cluster> clusters) {
@@ -114,6 +127,9 @@ public class TopologyEventPublisher {
             log.info("Publishing application clusters created event: [application-id] " + appId);
         }
 
+        for (Cluster cluster : clusters) {
+            TopologyEventSynchronizer.clusterChanged(cluster.getClusterId());
+        }
         publishEvent(new ApplicationClustersCreatedEvent(clusters, appId));
     }
 
@@ -123,6 +139,9 @@ public class TopologyEventPublisher {
             log.info("Publishing application clusters removed event: [application-id] " + appId);
         }
 
+        for (ClusterDataHolder cluster : clusters) {
+            TopologyEventSynchronizer.clusterChanged(cluster.getClusterId());
+        }
         publishEvent(new ApplicationClustersRemovedEvent(clusters, appId));
     }
 
@@ -134,7 +153,7 @@ public class TopologyEventPublisher {
                     .format("Publishing cluster removed event: [service-name] %s [cluster-id] %s",
                             ctxt.getCartridgeUuid(), ctxt.getClusterId()));
         }
-        publishEvent(clusterRemovedEvent);
+        publishEvent(clusterRemovedEvent, ctxt.getClusterId(), ctxt.getClusterId());
 
     }
 
@@ -159,7 +178,7 @@ public class TopologyEventPublisher {
                 memberContext.getCartridgeType(), memberContext.getClusterId(), memberContext.getClusterInstanceId(),
                 memberContext.getMemberId(), memberContext.getClusterInstanceId(), memberContext.getNetworkPartitionId(),
                 memberContext.getPartition().getUuid(), memberContext.getLbClusterId()));
-        publishEvent(memberCreatedEvent);
+        publishEvent(memberCreatedEvent, memberContext.getClusterId(), memberContext.getMemberId());
     }
 
 
@@ -190,7 +209,7 @@ public class TopologyEventPublisher {
                 memberContext.getCartridgeType(), memberContext.getClusterId(), memberContext.getClusterInstanceId(),
                 memberContext.getMemberId(), memberContext.getInstanceId(), memberContext.getNetworkPartitionId(),
                 memberContext.getPartition().getUuid(), memberContext.getLbClusterId()));
-        publishEvent(memberInitializedEvent);
+        publishEvent(memberInitializedEvent, memberContext.getClusterId(), memberContext.getMemberId());
     }
 
     public static void sendMemberStartedEvent(InstanceStartedEvent instanceStartedEvent) {
@@ -209,7 +228,8 @@ public class TopologyEventPublisher {
                             instanceStartedEvent.getNetworkPartitionId(),
                             instanceStartedEvent.getPartitionId()));
         }
-        publishEvent(memberStartedEventTopology);
+        publishEvent(memberStartedEventTopology, instanceStartedEvent.getClusterId(),
+                instanceStartedEvent.getMemberId());
     }
 
     public static void sendMemberActivatedEvent(
@@ -225,7 +245,8 @@ public class TopologyEventPublisher {
                             memberActivatedEvent.getNetworkPartitionId(),
                             memberActivatedEvent.getPartitionId()));
         }
-        publishEvent(memberActivatedEvent);
+        publishEvent(memberActivatedEvent, memberActivatedEvent.getClusterId(),
+                memberActivatedEvent.getMemberId());
     }
 
     public static void sendMemberReadyToShutdownEvent(MemberReadyToShutdownEvent memberReadyToShutdownEvent) {
@@ -242,7 +263,8 @@ public class TopologyEventPublisher {
         }
         // grouping
         memberReadyToShutdownEvent.setGroupId(memberReadyToShutdownEvent.getGroupId());
-        publishEvent(memberReadyToShutdownEvent);
+        publishEvent(memberReadyToShutdownEvent, memberReadyToShutdownEvent.getClusterId(),
+                memberReadyToShutdownEvent.getMemberId());
     }
 
     public static void sendMemberMaintenanceModeEvent(MemberMaintenanceModeEvent memberMaintenanceModeEvent) {
@@ -257,7 +279,8 @@ public class TopologyEventPublisher {
                     memberMaintenanceModeEvent.getPartitionId()));
         }
 
-        publishEvent(memberMaintenanceModeEvent);
+        publishEvent(memberMaintenanceModeEvent, memberMaintenanceModeEvent.getClusterId(),
+                memberMaintenanceModeEvent.getMemberId());
     }
 
     public static void sendClusterActivatedEvent(ClusterInstanceActivatedEvent clusterActivatedEvent) {
@@ -269,7 +292,8 @@ public class TopologyEventPublisher {
                     clusterActivatedEvent.getInstanceId(),
                     clusterActivatedEvent.getAppId()));
         }
-        publishEvent(clusterActivatedEvent);
+        publishEvent(clusterActivatedEvent, clusterActivatedEvent.getClusterId(),
+                clusterActivatedEvent.getClusterId() + ":" + clusterActivatedEvent.getInstanceId());
     }
 
     public static void sendClusterInactivateEvent(ClusterInstanceInactivateEvent clusterInactiveEvent) {
@@ -279,7 +303,8 @@ public class TopologyEventPublisher {
                     clusterInactiveEvent.getServiceName(), clusterInactiveEvent.getClusterId(),
                     clusterInactiveEvent.getInstanceId(), clusterInactiveEvent.getAppId()));
         }
-        publishEvent(clusterInactiveEvent);
+        publishEvent(clusterInactiveEvent, clusterInactiveEvent.getClusterId(),
+                clusterInactiveEvent.getClusterId() + ":" + clusterInactiveEvent.getInstanceId());
     }
 
     public static void sendClusterInstanceCreatedEvent(ClusterInstanceCreatedEvent clusterInstanceCreatedEvent) {
@@ -290,7 +315,9 @@ public class TopologyEventPublisher {
                     clusterInstanceCreatedEvent.getNetworkPartitionId(),
                     clusterInstanceCreatedEvent.getClusterInstance().getInstanceId()));
         }
-        publishEvent(clusterInstanceCreatedEvent);
+        publishEvent(clusterInstanceCreatedEvent, clusterInstanceCreatedEvent.getClusterId(),
+                clusterInstanceCreatedEvent.getClusterId() + ":" +
+                        clusterInstanceCreatedEvent.getClusterInstance().getInstanceId());
     }
 
 
@@ -309,7 +336,7 @@ public class TopologyEventPublisher {
                             "[partition-id] %s [group-id] %s", serviceName, clusterId, clusterInstanceId, memberId,
                     networkPartitionId, partitionId, groupId));
         }
-        publishEvent(memberTerminatedEvent);
+        publishEvent(memberTerminatedEvent, clusterId, memberId);
     }
 
     public static void sendCompleteTopologyEvent(Topology topology) {
@@ -318,7 +345,20 @@ public class TopologyEventPublisher {
         if (log.isDebugEnabled()) {
             log.debug(String.format("Publishing complete topology event"));
         }
-        publishEvent(completeTopologyEvent);
+        // A complete topology event waiting in the outbox is superseded by this one
+        publishEvent(completeTopologyEvent, null, "complete-topology");
+    }
+
+    public static void sendTopologyDeltaEvent(Topology changedTopology, List<String> removedServices,
+                                              List<String> removedClusterIds) {
+        TopologyDeltaEvent topologyDeltaEvent = new TopologyDeltaEvent(changedTopology, removedServices,
+                removedClusterIds);
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Publishing topology delta event: [removed-services] %s [removed-clusters] %s",
+                    removedServices, removedClusterIds));
+        }
+        publishEvent(topologyDeltaEvent);
     }
 
     public static void sendClusterTerminatingEvent(ClusterInstanceTerminatingEvent clusterTerminatingEvent) {
@@ -330,7 +370,8 @@ public class TopologyEventPublisher {
                     clusterTerminatingEvent.getInstanceId()));
         }
 
-        publishEvent(clusterTerminatingEvent);
+        publishEvent(clusterTerminatingEvent, clusterTerminatingEvent.getClusterId(),
+                clusterTerminatingEvent.getClusterId() + ":" + clusterTerminatingEvent.getInstanceId());
     }
 
     public static void sendClusterTerminatedEvent(ClusterInstanceTerminatedEvent clusterTerminatedEvent) {
@@ -342,11 +383,85 @@ public class TopologyEventPublisher {
                     clusterTerminatedEvent.getInstanceId()));
         }
 
-        publishEvent(clusterTerminatedEvent);
+        publishEvent(clusterTerminatedEvent, clusterTerminatedEvent.getClusterId(),
+                clusterTerminatedEvent.getClusterId() + ":" + clusterTerminatedEvent.getInstanceId());
     }
 
     public static void publishEvent(Event event) {
+        publishEvent(event, null, null);
+    }
+
+    /**
+     * @param event         event to be published
+     * @param clusterId     cluster changed by the event, null if none
+     * @param coalescingKey key of the entity the event describes, superseding a pending event of
+     *                      the same type and entity in the event outbox; null if not superseding
+     */
+    private static void publishEvent(Event event, String clusterId, String coalescingKey) {
+        TopologyEventSynchronizer.clusterChanged(clusterId);
+        if (!(event instanceof TopologyEvent)) {
+            doPublishEvent(event, coalescingKey, null);
+            return;
+        }
+
+        // Topology events are versioned in the order they are published, letting subscribers
+        // detect lost events. Only versioning and queueing is done while holding the lock.
+        synchronized (TopologyEventPublisher.class) {
+            TopologyEvent topologyEvent = (TopologyEvent) event;
+            topologyEvent.setTopologyEpoch(topologyEpoch);
+            Event placeholderEvent = null;
+            if ((event instanceof CompleteTopologyEvent) || (event instanceof TopologyDeltaEvent)) {
+                // Complete topology and topology deltas reflect the events published so far
+                topologyEvent.setTopologyVersion(topologyVersion);
+            } else {
+                topologyEvent.setTopologyVersion(++topologyVersion);
+                if ((coalescingKey != null) && EventOutboxPool.isEnabled()) {
+                    // Takes the place of the event in the outbox if superseded, keeping versions contiguous
+                    TopologyVersionEvent topologyVersionEvent = new TopologyVersionEvent(clusterId);
+                    topologyVersionEvent.setTopologyEpoch(topologyEpoch);
+                    topologyVersionEvent.setTopologyVersion(topologyVersion);
+                    placeholderEvent = topologyVersionEvent;
+                }
+            }
+            if (EventOutboxPool.isEnabled()) {
+                // The outbox of the topology topic publishes events in the order they are queued
+                doPublishEvent(event, coalescingKey, placeholderEvent);
+                return;
+            }
+            pendingTopologyEvents.add(event);
+        }
+        publishPendingTopologyEvents();
+    }
+
+    /**
+     * Publish the topology events queued so far in version order. Events are published by one thread
+     * at a time, a thread finding another one publishing leaves its event to that thread.
+     */
+    private static void publishPendingTopologyEvents() {
+        while (!pendingTopologyEvents.isEmpty() && publishingTopologyEvents.compareAndSet(false, true)) {
+            try {
+                Event event;
+                while ((event = pendingTopologyEvents.poll()) != null) {
+                    try {
+                        doPublishEvent(event, null, null);
+                    } catch (Exception e) {
+                        // Subscribers detect the version gap and request the complete topology
+                        log.error(String.format("Could not publish topology event: [event] %s",
+                                event.getClass().getName()), e);
+                    }
+                }
+            } finally {
+                publishingTopologyEvents.set(false);
+            }
+        }
+    }
+
+    private static void doPublishEvent(Event event, String coalescingKey, Event placeholderEvent) {
         String topic = MessagingUtil.getMessageTopicName(event);
+        if (EventOutboxPool.isEnabled()) {
+            EventOutboxPool.getOutbox(topic).publish(topic, event, coalescingKey, placeholderEvent);
+            return;
+        }
         EventPublisher eventPublisher = EventPublisherPool.getPublisher(topic);
         eventPublisher.publish(event);
     }
@@ -22,15 +22,71 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.cloud.controller.config.CloudControllerConfig;
 import org.apache.stratos.cloud.controller.context.CloudControllerContext;
+import org.apache.stratos.cloud.controller.domain.TopologyConfig;
 import org.apache.stratos.cloud.controller.messaging.topology.TopologyManager;
+import org.apache.stratos.cloud.controller.util.CloudControllerConstants;
+import org.apache.stratos.messaging.domain.topology.Cluster;
+import org.apache.stratos.messaging.domain.topology.Service;
+import org.apache.stratos.messaging.domain.topology.Topology;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Topology event synchronizer publishes complete topology event periodically.
+ * If a full snapshot interval greater than one is configured, only every n-th run
+ * publishes the complete topology while the others publish the clusters and services
+ * changed since the previous run, as recorded by the topology event publisher.
+ * A complete topology is also published when requested by a subscriber.
  */
 public class TopologyEventSynchronizer implements Runnable {
 
     private static final Log log = LogFactory.getLog(TopologyEventSynchronizer.class);
 
+    private static final AtomicBoolean completeTopologyRequested = new AtomicBoolean();
+    private static final Set<String> changedClusterIds =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private static final Set<String> changedServiceUuids =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    // Changes are only recorded while delta synchronization is enabled
+    private static volatile boolean recordingChanges;
+
+    private long runCount;
+
+    /**
+     * Publish the complete topology in the next synchronization run.
+     */
+    public static void requestCompleteTopology() {
+        completeTopologyRequested.set(true);
+    }
+
+    /**
+     * Record a cluster created, updated or removed since the previous run.
+     *
+     * @param clusterId cluster id
+     */
+    public static void clusterChanged(String clusterId) {
+        if (recordingChanges && (clusterId != null)) {
+            changedClusterIds.add(clusterId);
+        }
+    }
+
+    /**
+     * Record a service created or removed since the previous run.
+     *
+     * @param serviceUuid service uuid
+     */
+    public static void serviceChanged(String serviceUuid) {
+        if (recordingChanges && (serviceUuid != null)) {
+            changedServiceUuids.add(serviceUuid);
+        }
+    }
+
     @Override
     public void run() {
         if (log.isDebugEnabled()) {
@@ -55,10 +111,106 @@ public class TopologyEventSynchronizer implements Runnable {
             // Publish complete topology event
             if (TopologyManager.getTopology() != null) {
                 CloudControllerContext.getInstance().setTopologySyncRunning(true);
-                TopologyEventPublisher.sendCompleteTopologyEvent(TopologyManager.getTopology());
+                Topology topology = TopologyManager.getTopology();
+                int fullSnapshotInterval = getFullSnapshotInterval();
+                recordingChanges = (fullSnapshotInterval > 1);
+                boolean requested = completeTopologyRequested.getAndSet(false);
+                if (!recordingChanges || requested || (runCount % fullSnapshotInterval == 0)) {
+                    // Complete topology covers the changes recorded so far
+                    changedClusterIds.clear();
+                    changedServiceUuids.clear();
+                    TopologyEventPublisher.sendCompleteTopologyEvent(topology);
+                } else {
+                    synchronizeChanges(topology);
+                }
+                runCount++;
             }
+        } catch (Exception e) {
+            log.error("Could not synchronize topology", e);
+            // Start over from a complete topology
+            requestCompleteTopology();
         } finally {
             CloudControllerContext.getInstance().setTopologySyncRunning(false);
         }
     }
+
+    private void synchronizeChanges(Topology topology) {
+        // Topology is locked to publish the delta with the version it was derived from
+        TopologyManager.acquireWriteLock();
+        try {
+            Topology changedTopology = new Topology();
+
+            List<String> removedServices = new ArrayList<String>();
+            for (String serviceUuid : drain(changedServiceUuids)) {
+                Service service = topology.getService(serviceUuid);
+                if (service == null) {
+                    removedServices.add(serviceUuid);
+                } else {
+                    getChangedService(changedTopology, service);
+                }
+            }
+
+            List<String> removedClusterIds = new ArrayList<String>();
+            for (String clusterId : drain(changedClusterIds)) {
+                Service service = findService(topology, clusterId);
+                if (service == null) {
+                    removedClusterIds.add(clusterId);
+                } else {
+                    Cluster cluster = service.getCluster(clusterId);
+                    getChangedService(changedTopology, service).addCluster(cluster);
+                }
+            }
+
+            // An empty delta still lets subscribers verify their topology version
+            TopologyEventPublisher.sendTopologyDeltaEvent(changedTopology, removedServices, removedClusterIds);
+        } finally {
+            TopologyManager.releaseWriteLock();
+        }
+    }
+
+    private static Service getChangedService(Topology changedTopology, Service service) {
+        Service changedService = changedTopology.getService(service.getServiceUuid());
+        if (changedService == null) {
+            changedService = new Service(service.getServiceName(), service.getServiceType(),
+                    service.getServiceUuid());
+            changedService.addPorts(service.getPorts());
+            changedService.setProperties(service.getProperties());
+            changedTopology.addService(changedService);
+        }
+        return changedService;
+    }
+
+    private static Service findService(Topology topology, String clusterId) {
+        for (Service service : topology.getServices()) {
+            if (service.clusterExists(clusterId)) {
+                return service;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> drain(Set<String> ids) {
+        List<String> drained = new ArrayList<String>();
+        Iterator<String> iterator = ids.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    private int getFullSnapshotInterval() {
+        TopologyConfig topologyConfig = CloudControllerConfig.getInstance().getTopologyConfig();
+        String value = (topologyConfig == null) ? null : topologyConfig.getProperty(
+                CloudControllerConstants.FULL_SNAPSHOT_INTERVAL_PROPERTY);
+        if (value == null) {
+            return 1;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn(String.format("Invalid topology full snapshot interval: %s", value));
+            return 1;
+        }
+    }
 }
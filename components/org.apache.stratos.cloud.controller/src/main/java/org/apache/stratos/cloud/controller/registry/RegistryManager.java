@@ -37,7 +37,7 @@ import java.io.*;
 /**
  * Registry manager provides functionality for persisting resources in the registry and reading them back.
  */
-public class RegistryManager {
+public class RegistryManager implements ResourceStore {
     private final static Log log = LogFactory.getLog(RegistryManager.class);
 
     private static final RegistryManager instance = new RegistryManager();
@@ -54,11 +54,39 @@ public class RegistryManager {
      *
      * @param serializableObject object to be persisted.
      */
-    public synchronized void persist(String resourcePath, Serializable serializableObject) throws RegistryException {
+    @Override
+    public void persist(String resourcePath, Serializable serializableObject) throws RegistryException {
         if (log.isDebugEnabled()) {
             log.debug(String.format("Persisting resource in registry: [resource-path] %s", resourcePath));
         }
 
+        // Serialize outside the lock, only the registry transaction needs to be exclusive
+        byte[] content;
+        try {
+            content = serializeToByteArray(serializableObject);
+        } catch (IOException e) {
+            String msg = "Failed to serialize resource: " + resourcePath;
+            log.error(msg, e);
+            throw new RegistryException(msg, e);
+        }
+        putResource(resourcePath, content);
+    }
+
+    /**
+     * Persist an object already serialized in the registry with the given resource path.
+     *
+     * @param content serialized object to be persisted.
+     */
+    @Override
+    public void persistSerialized(String resourcePath, byte[] content) throws RegistryException {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Persisting serialized resource in registry: [resource-path] %s",
+                    resourcePath));
+        }
+        putResource(resourcePath, content);
+    }
+
+    private synchronized void putResource(String resourcePath, byte[] content) throws RegistryException {
         Registry registry = getRegistry();
 
         try {
@@ -69,7 +97,7 @@ public class RegistryManager {
             registry.beginTransaction();
 
             Resource nodeResource = registry.newResource();
-            nodeResource.setContent(serializeToByteArray(serializableObject));
+            nodeResource.setContent(content);
             registry.put(resourcePath, nodeResource);
 
             registry.commitTransaction();
@@ -93,6 +121,7 @@ public class RegistryManager {
      * @return
      * @throws org.wso2.carbon.registry.core.exceptions.RegistryException
      */
+    @Override
     public synchronized Object read(String resourcePath) throws RegistryException {
         try {
             Registry registry = getRegistry();
@@ -120,10 +149,14 @@ public class RegistryManager {
         }
     }
 
+    @Override
     public synchronized void remove(String resourcePath) throws RegistryException {
         Registry registry = getRegistry();
 
         try {
+            if (!registry.resourceExists(resourcePath)) {
+                return;
+            }
             registry.beginTransaction();
             registry.delete(resourcePath);
             registry.commitTransaction();
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.cloud.controller.registry;
+
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
+
+import java.io.Serializable;
+
+/**
+ * Store for persisting serializable resources against resource paths.
+ */
+public interface ResourceStore {
+
+    /**
+     * Persist a serializable object with the given resource path.
+     *
+     * @param resourcePath       resource path
+     * @param serializableObject object to be persisted
+     */
+    void persist(String resourcePath, Serializable serializableObject) throws RegistryException;
+
+    /**
+     * Persist the content of an object already serialized with the given resource path.
+     *
+     * @param resourcePath resource path
+     * @param content      serialized object to be persisted
+     */
+    void persistSerialized(String resourcePath, byte[] content) throws RegistryException;
+
+    /**
+     * Returns the object stored in the given resource path, null if the resource does not exist.
+     *
+     * @param resourcePath resource path
+     */
+    Object read(String resourcePath) throws RegistryException;
+
+    /**
+     * Remove the resource stored in the given resource path if it exists.
+     *
+     * @param resourcePath resource path
+     */
+    void remove(String resourcePath) throws RegistryException;
+}
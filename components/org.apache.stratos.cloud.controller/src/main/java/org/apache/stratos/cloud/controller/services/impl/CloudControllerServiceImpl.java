@@ -457,11 +457,12 @@ public class CloudControllerServiceImpl implements CloudControllerService {
                     }
                 }
                 clusterContext.setVolumes(volumes);
+                CloudControllerContext.getInstance().updateClusterContext(clusterContext);
             }
 
             // Persist member context
             CloudControllerContext.getInstance().addMemberContext(memberContext);
-            CloudControllerContext.getInstance().persist();
+            CloudControllerContext.getInstance().persistChanges();
 
             // Handle member created event
             TopologyBuilder.handleMemberCreatedEvent(memberContext);
@@ -1056,7 +1057,7 @@ public class CloudControllerServiceImpl implements CloudControllerService {
         TopologyBuilder.handleClusterRemoved(ctxt);
         CloudControllerContext.getInstance().removeClusterContext(clusterId);
         CloudControllerContext.getInstance().removeMemberContextsOfCluster(clusterId);
-        CloudControllerContext.getInstance().persist();
+        CloudControllerContext.getInstance().persistChanges();
     }
 
     @Override
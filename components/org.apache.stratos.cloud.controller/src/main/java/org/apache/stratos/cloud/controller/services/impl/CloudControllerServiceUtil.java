@@ -82,7 +82,7 @@ public class CloudControllerServiceUtil {
                 memberContext.getMemberId());
 
         // Persist cloud controller context
-        CloudControllerContext.getInstance().persist();
+        CloudControllerContext.getInstance().persistChanges();
     }
 
     public static boolean isValidIpAddress(String ip) {
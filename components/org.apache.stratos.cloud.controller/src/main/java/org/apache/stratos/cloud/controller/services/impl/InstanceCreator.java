@@ -27,6 +27,10 @@ import org.apache.stratos.cloud.controller.domain.*;
 import org.apache.stratos.cloud.controller.exception.CartridgeNotFoundException;
 import org.apache.stratos.cloud.controller.iaases.Iaas;
 import org.apache.stratos.cloud.controller.messaging.topology.TopologyBuilder;
+import org.apache.stratos.cloud.controller.util.CloudControllerConstants;
+import org.apache.stratos.common.Property;
+import org.apache.stratos.common.constants.StratosConstants;
+import org.apache.stratos.common.statistics.LatencyHistogramRegistry;
 
 import java.util.concurrent.locks.Lock;
 
@@ -40,18 +44,21 @@ public class InstanceCreator implements Runnable {
     private MemberContext memberContext;
     private IaasProvider iaasProvider;
     private byte[] payload;
+    private final long createdTime;
 
     public InstanceCreator(MemberContext memberContext, IaasProvider iaasProvider, byte[] payload) {
         this.memberContext = memberContext;
         this.iaasProvider = iaasProvider;
         this.payload = payload;
+        this.createdTime = System.currentTimeMillis();
     }
 
     @Override
     public void run() {
-        Lock lock = null;
         try {
-            lock = CloudControllerContext.getInstance().acquireMemberContextWriteLock();
+            long runStartTime = System.currentTimeMillis();
+            LatencyHistogramRegistry.getInstance().record(CloudControllerConstants.SCALING_LATENCY_COMPONENT,
+                    CloudControllerConstants.STAGE_INSTANCE_CREATOR_QUEUE, runStartTime - createdTime);
 
             String clusterId = memberContext.getClusterId();
             Partition partition = memberContext.getPartition();
@@ -63,15 +70,21 @@ public class InstanceCreator implements Runnable {
                 log.debug(String.format("Payload passed to instance created, [member] %s [payload] %s",
                         memberContext.getMemberId(), new String(payload)));
             }
-            memberContext = startInstance(iaas, memberContext, payload);
+            // IaaS calls are made without holding the member context lock, hence instances of
+            // different members are started concurrently within the limits of the IaaS region
+            MemberContext startedMemberContext = startInstance(iaas, memberContext, payload);
+            if (startedMemberContext == null) {
+                return;
+            }
+            memberContext = startedMemberContext;
 
             if (log.isInfoEnabled()) {
                 log.info(String.format("Instance started successfully: [cartridge-type] %s [cluster-id] %s " +
                                 "[instance-id] %s " +
-                                "[default-private-ip] %s [default-public-ip] %s",
+                                "[default-private-ip] %s [default-public-ip] %s [scaling-trace-id] %s",
                         memberContext.getCartridgeType(), memberContext.getClusterId(),
                         memberContext.getInstanceId(), memberContext.getDefaultPrivateIP(),
-                        memberContext.getDefaultPublicIP()));
+                        memberContext.getDefaultPublicIP(), getScalingTraceId(memberContext)));
             }
 
             if (clusterContext.isVolumeRequired()) {
@@ -79,25 +92,39 @@ public class InstanceCreator implements Runnable {
             }
 
             // Allocate IP addresses
+            long ipAllocationStartTime = System.currentTimeMillis();
             iaas.allocateIpAddresses(clusterId, memberContext, partition);
+            LatencyHistogramRegistry.getInstance().record(CloudControllerConstants.SCALING_LATENCY_COMPONENT,
+                    CloudControllerConstants.STAGE_IP_ALLOCATION,
+                    System.currentTimeMillis() - ipAllocationStartTime);
+            if (!updateMemberContext(memberContext)) {
+                terminateRemovedInstance(iaas, memberContext);
+                return;
+            }
+            CloudControllerContext.getInstance().persistChanges();
 
             // Update topology
             TopologyBuilder.handleMemberInitializedEvent(memberContext);
 
+            long instanceCreationTime = System.currentTimeMillis() - createdTime;
+            LatencyHistogramRegistry.getInstance().record(CloudControllerConstants.SCALING_LATENCY_COMPONENT,
+                    CloudControllerConstants.STAGE_INSTANCE_CREATION, instanceCreationTime);
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Member initialized: [member-id] %s [scaling-trace-id] %s " +
+                                "[instance-creator-queue] %dms [instance-creation] %dms", memberContext.getMemberId(),
+                        getScalingTraceId(memberContext), runStartTime - createdTime, instanceCreationTime));
+            }
+
         } catch (Exception e) {
             String message = String.format("Could not start instance: [cartridge-type] %s [cluster-id] %s",
                     memberContext.getCartridgeType(), memberContext.getClusterId());
             log.error(message, e);
-        } finally {
-            if (lock != null) {
-                CloudControllerContext.getInstance().releaseWriteLock(lock);
-            }
         }
     }
 
     private MemberContext startInstance(Iaas iaas, MemberContext memberContext, byte[] payload) throws
-            CartridgeNotFoundException {
-        memberContext = iaas.startInstance(memberContext, payload);
+            CartridgeNotFoundException, InterruptedException {
+        memberContext = InstanceStartThrottle.getInstance().startInstance(iaasProvider, memberContext, payload);
 
         // Validate instance id
         String instanceId = memberContext.getInstanceId();
@@ -108,9 +135,13 @@ public class InstanceCreator implements Runnable {
             throw new IllegalStateException(msg);
         }
 
-        // Update member context and persist changes
-        CloudControllerContext.getInstance().updateMemberContext(memberContext);
-        CloudControllerContext.getInstance().persist();
+        // Update member context and persist the instance id, the instance can then be terminated
+        // after a restart even if attaching volumes or allocating IP addresses fails
+        if (!updateMemberContext(memberContext)) {
+            terminateRemovedInstance(iaas, memberContext);
+            return null;
+        }
+        CloudControllerContext.getInstance().persistChanges();
 
         if (log.isDebugEnabled()) {
             log.debug(String.format("Member context updated: [application] %s [cartridge] %s [member] %s",
@@ -120,6 +151,51 @@ public class InstanceCreator implements Runnable {
         return memberContext;
     }
 
+    /**
+     * Returns the id of the autoscaler scaling trace which spawned the member, null if not traced.
+     */
+    private static String getScalingTraceId(MemberContext memberContext) {
+        if (memberContext.getProperties() == null) {
+            return null;
+        }
+        Property property = memberContext.getProperties().getProperty(StratosConstants.SCALING_TRACE_ID);
+        return (property == null) ? null : property.getValue();
+    }
+
+    /**
+     * Update the member context under the member context lock, the lock is only held for the
+     * in-memory update and changes are not persisted. Returns false if the member was removed while
+     * its instance was starting.
+     */
+    private boolean updateMemberContext(MemberContext memberContext) {
+        Lock lock = null;
+        try {
+            lock = CloudControllerContext.getInstance().acquireMemberContextWriteLock();
+            if (CloudControllerContext.getInstance().getMemberContextOfMemberId(memberContext.getMemberId()) == null) {
+                log.warn(String.format("Member context was removed while starting the instance: [cartridge-type] %s " +
+                                "[member-id] %s [instance-id] %s", memberContext.getCartridgeType(),
+                        memberContext.getMemberId(), memberContext.getInstanceId()));
+                return false;
+            }
+            CloudControllerContext.getInstance().updateMemberContext(memberContext);
+        } finally {
+            if (lock != null) {
+                CloudControllerContext.getInstance().releaseWriteLock(lock);
+            }
+        }
+        return true;
+    }
+
+    private void terminateRemovedInstance(Iaas iaas, MemberContext memberContext) {
+        try {
+            iaas.terminateInstance(memberContext);
+        } catch (Exception e) {
+            log.error(String.format("Could not terminate instance of removed member: [cartridge-type] %s " +
+                            "[member-id] %s [instance-id] %s", memberContext.getCartridgeType(),
+                    memberContext.getMemberId(), memberContext.getInstanceId()), e);
+        }
+    }
+
     public void attachVolumes(Iaas iaas, ClusterContext clusterContext, MemberContext memberContext) {
         // attach volumes
         if (clusterContext.isVolumeRequired()) {
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.cloud.controller.services.impl;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.cloud.controller.domain.IaasProvider;
+import org.apache.stratos.cloud.controller.domain.MemberContext;
+import org.apache.stratos.cloud.controller.exception.CartridgeNotFoundException;
+import org.apache.stratos.cloud.controller.util.CloudControllerConstants;
+import org.apache.stratos.common.statistics.LatencyHistogramRegistry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of concurrent instance start requests and the instance start rate of each
+ * IaaS region. Limits are read from the IaaS provider properties, hence could be defined for an
+ * IaaS provider in cloud-controller.xml and overridden for a region using partition properties:
+ * instance.start.concurrency - maximum number of concurrent instance start requests
+ * instance.start.rate - maximum number of instance start requests per second, 0 for no limit
+ */
+public class InstanceStartThrottle {
+
+    private static final Log log = LogFactory.getLog(InstanceStartThrottle.class);
+
+    private static final int DEFAULT_CONCURRENCY = 10;
+    private static final double DEFAULT_RATE = 0;
+
+    private static volatile InstanceStartThrottle instance;
+
+    private final ConcurrentMap<String, RegionLimit> regionLimits;
+
+    InstanceStartThrottle() {
+        regionLimits = new ConcurrentHashMap<String, RegionLimit>();
+    }
+
+    public static InstanceStartThrottle getInstance() {
+        if (instance == null) {
+            synchronized (InstanceStartThrottle.class) {
+                if (instance == null) {
+                    instance = new InstanceStartThrottle();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start an instance in the IaaS once the limits of its region allow it.
+     *
+     * @param iaasProvider  partition specific IaaS provider
+     * @param memberContext member context
+     * @param payload       payload
+     * @return member context returned by the IaaS
+     * @throws CartridgeNotFoundException
+     * @throws InterruptedException if interrupted while waiting for the limits
+     */
+    public MemberContext startInstance(IaasProvider iaasProvider, MemberContext memberContext, byte[] payload)
+            throws CartridgeNotFoundException, InterruptedException {
+        RegionLimit regionLimit = getRegionLimit(iaasProvider);
+        long waitStartTime = System.currentTimeMillis();
+        regionLimit.acquire(memberContext);
+        long startTime = System.currentTimeMillis();
+        LatencyHistogramRegistry.getInstance().record(CloudControllerConstants.SCALING_LATENCY_COMPONENT,
+                CloudControllerConstants.STAGE_REGION_LIMIT_WAIT, startTime - waitStartTime);
+        try {
+            return iaasProvider.getIaas().startInstance(memberContext, payload);
+        } finally {
+            regionLimit.release();
+            LatencyHistogramRegistry.getInstance().record(CloudControllerConstants.SCALING_LATENCY_COMPONENT,
+                    CloudControllerConstants.STAGE_IAAS_START_INSTANCE, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * Returns the number of instance start requests in progress in the region of the IaaS provider.
+     */
+    public int getActiveRequestCount(IaasProvider iaasProvider) {
+        RegionLimit regionLimit = regionLimits.get(getRegionKey(iaasProvider));
+        return (regionLimit == null) ? 0 : regionLimit.getActiveRequestCount();
+    }
+
+    /**
+     * Returns the limit of the region of the IaaS provider. Limits are read on each request and
+     * a region limit is replaced once its configured limits change, requests in progress release
+     * the limit they were admitted by.
+     */
+    private RegionLimit getRegionLimit(IaasProvider iaasProvider) {
+        String regionKey = getRegionKey(iaasProvider);
+        int concurrency = Math.max(1, readProperty(iaasProvider, CloudControllerConstants.INSTANCE_START_CONCURRENCY,
+                DEFAULT_CONCURRENCY));
+        double rate = readProperty(iaasProvider, CloudControllerConstants.INSTANCE_START_RATE, DEFAULT_RATE);
+        while (true) {
+            RegionLimit regionLimit = regionLimits.get(regionKey);
+            if ((regionLimit != null) && regionLimit.hasLimits(concurrency, rate)) {
+                return regionLimit;
+            }
+            RegionLimit newRegionLimit = new RegionLimit(regionKey, concurrency, rate);
+            boolean updated = (regionLimit == null) ? (regionLimits.putIfAbsent(regionKey, newRegionLimit) == null) :
+                    regionLimits.replace(regionKey, regionLimit, newRegionLimit);
+            if (updated) {
+                if (log.isInfoEnabled()) {
+                    log.info(String.format("Instance start limits %s: [region] %s [concurrency] %d [rate] %s",
+                            (regionLimit == null) ? "initialized" : "updated", regionKey, concurrency,
+                            (rate > 0) ? rate + "/s" : "unlimited"));
+                }
+                return newRegionLimit;
+            }
+        }
+    }
+
+    private static String getRegionKey(IaasProvider iaasProvider) {
+        String region = iaasProvider.getProperty(CloudControllerConstants.REGION_PROPERTY);
+        return iaasProvider.getType() + "/" + (StringUtils.isBlank(region) ? "default" : region);
+    }
+
+    private static int readProperty(IaasProvider iaasProvider, String name, int defaultValue) {
+        return (int) readProperty(iaasProvider, name, (double) defaultValue);
+    }
+
+    private static double readProperty(IaasProvider iaasProvider, String name, double defaultValue) {
+        String value = iaasProvider.getProperty(name);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn(String.format("Invalid IaaS provider property, using default value: [iaas] %s [property] %s " +
+                    "[value] %s [default] %s", iaasProvider.getType(), name, value, defaultValue));
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Concurrency and rate limit of a region. Rate is limited by spacing requests evenly, each
+     * request reserves the next free start slot and waits until it is reached.
+     */
+    private static class RegionLimit {
+
+        private final String regionKey;
+        private final int concurrency;
+        private final double rate;
+        private final Semaphore semaphore;
+        private final long intervalNanos;
+        private long nextSlotNanos;
+
+        RegionLimit(String regionKey, int concurrency, double rate) {
+            this.regionKey = regionKey;
+            this.concurrency = concurrency;
+            this.rate = rate;
+            this.semaphore = new Semaphore(concurrency, true);
+            this.intervalNanos = (rate > 0) ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+            this.nextSlotNanos = System.nanoTime();
+        }
+
+        void acquire(MemberContext memberContext) throws InterruptedException {
+            if (!semaphore.tryAcquire()) {
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Instance start concurrency limit reached, waiting: [region] %s " +
+                            "[limit] %d [member] %s", regionKey, concurrency, memberContext.getMemberId()));
+                }
+                semaphore.acquire();
+            }
+            if (intervalNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(reserveSlot());
+                } catch (InterruptedException e) {
+                    semaphore.release();
+                    throw e;
+                }
+            }
+        }
+
+        boolean hasLimits(int concurrency, double rate) {
+            return (this.concurrency == concurrency) && (Double.compare(this.rate, rate) == 0);
+        }
+
+        void release() {
+            semaphore.release();
+        }
+
+        int getActiveRequestCount() {
+            return concurrency - semaphore.availablePermits();
+        }
+
+        private synchronized long reserveSlot() {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSlotNanos);
+            nextSlotNanos = slot + intervalNanos;
+            return slot - now;
+        }
+    }
+}
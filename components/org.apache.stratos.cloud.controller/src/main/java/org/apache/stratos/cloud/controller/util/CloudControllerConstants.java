@@ -43,6 +43,7 @@ public final class CloudControllerConstants {
     public static final String ENABLE_ATTR = "enable";
     public static final String BAM_SERVER_ELEMENT = "bamServer";
     public static final String CRON_ELEMENT = "cron";
+    public static final String FULL_SNAPSHOT_INTERVAL_PROPERTY = "fullSnapshotInterval";
     public static final String BAM_SERVER_ADMIN_USERNAME_ELEMENT = "adminUserName";
     public static final String BAM_SERVER_ADMIN_PASSWORD_ELEMENT = "adminPassword";
     public static final String CASSANDRA_INFO_ELEMENT = "cassandraInfo";
@@ -135,6 +136,9 @@ public final class CloudControllerConstants {
      * Persistence
      */
     public static final String DATA_RESOURCE = "/cloud.controller/data";
+    public static final String DATA_JOURNAL_RESOURCE = "/cloud.controller/journal";
+    public static final String PERSISTENCE_MODE = "cloud.controller.persistence.mode";
+    public static final String PERSISTENCE_COMPACTION_THRESHOLD = "cloud.controller.persistence.compactionThreshold";
     public static final String TOPOLOGY_RESOURCE = "/cloud.controller/topology";
     public static final String AVAILABILITY_ZONE = "availabilityZone";
     public static final String KEY_PAIR = "keyPair";
@@ -147,6 +151,16 @@ public final class CloudControllerConstants {
     public static final String BLOCK_UNTIL_RUNNING = "blockUntilRunning";
     public static final String INSTANCE_TYPE = "instanceType";
     public static final String ASSOCIATE_PUBLIC_IP_ADDRESS = "associatePublicIpAddress";
+    public static final String INSTANCE_START_CONCURRENCY = "instance.start.concurrency";
+    public static final String INSTANCE_START_RATE = "instance.start.rate";
+
+    // Scaling latency stages of instance creation
+    public static final String SCALING_LATENCY_COMPONENT = "cloudController";
+    public static final String STAGE_INSTANCE_CREATOR_QUEUE = "instanceCreatorQueue";
+    public static final String STAGE_REGION_LIMIT_WAIT = "regionLimitWait";
+    public static final String STAGE_IAAS_START_INSTANCE = "iaasStartInstance";
+    public static final String STAGE_IP_ALLOCATION = "ipAllocation";
+    public static final String STAGE_INSTANCE_CREATION = "instanceCreation";
     public static final String LB_CLUSTER_ID_COL = "lbclusterId";
 
     // CloudStack specific
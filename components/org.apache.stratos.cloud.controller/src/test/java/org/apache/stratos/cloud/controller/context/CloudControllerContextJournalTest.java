@@ -0,0 +1,460 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.cloud.controller.context;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.cloud.controller.domain.ClusterContext;
+import org.apache.stratos.cloud.controller.domain.MemberContext;
+import org.apache.stratos.cloud.controller.registry.ResourceStore;
+import org.apache.stratos.cloud.controller.util.CloudControllerConstants;
+import org.apache.stratos.common.services.DistributedObjectProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Cloud controller context journal tests, verifies that the context is recovered from the last
+ * snapshot and the journal records persisted after it when the cloud controller stops at any
+ * point of persisting, and compares the persist latency of the complete context with the latency
+ * of journaling a member context change.
+ */
+public class CloudControllerContextJournalTest {
+
+    private static final Log log = LogFactory.getLog(CloudControllerContextJournalTest.class);
+
+    private static final String APPLICATION_ID = "app-1";
+    private static final String CARTRIDGE_TYPE = "php";
+    private static final String CLUSTER_ID = "cluster-1";
+    private static final int[] BENCHMARK_MEMBER_COUNTS = {100, 1000, 5000};
+    private static final int BENCHMARK_ITERATIONS = 20;
+
+    private InMemoryResourceStore resourceStore;
+
+    @Before
+    public void setUp() {
+        System.setProperty(CloudControllerConstants.PERSISTENCE_MODE, "journal");
+        System.setProperty(CloudControllerConstants.PERSISTENCE_COMPACTION_THRESHOLD, "1000");
+        resourceStore = new InMemoryResourceStore();
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(CloudControllerConstants.PERSISTENCE_MODE);
+        System.clearProperty(CloudControllerConstants.PERSISTENCE_COMPACTION_THRESHOLD);
+    }
+
+    @Test
+    public void testRecoverFromJournal() {
+        CloudControllerContext context = createContext();
+        assertTrue(context.isJournalEnabled());
+        context.addClusterContext(createClusterContext(CLUSTER_ID));
+        for (int i = 1; i <= 3; i++) {
+            context.addMemberContext(createMemberContext(CLUSTER_ID, "member-" + i));
+        }
+        context.persistChanges();
+        context.updateMemberContext(createMemberContext(CLUSTER_ID, "member-2", "instance-2"));
+        context.removeMemberContext(CLUSTER_ID, "member-1");
+        context.persistChanges();
+
+        // Only the changes are persisted
+        assertNull(resourceStore.read(CloudControllerConstants.DATA_RESOURCE));
+        assertEquals(2, resourceStore.countResources(CloudControllerConstants.DATA_JOURNAL_RESOURCE));
+
+        CloudControllerContext recoveredContext = createContext();
+        assertNotNull(recoveredContext.getClusterContext(CLUSTER_ID));
+        assertNull(recoveredContext.getMemberContextOfMemberId("member-1"));
+        assertEquals("instance-2", recoveredContext.getMemberContextOfMemberId("member-2").getInstanceId());
+        assertNotNull(recoveredContext.getMemberContextOfMemberId("member-3"));
+        assertEquals(2, recoveredContext.getMemberContextsOfClusterId(CLUSTER_ID).size());
+    }
+
+    @Test
+    public void testRecoverFromSnapshotAndJournal() {
+        CloudControllerContext context = createContext();
+        context.addClusterContext(createClusterContext(CLUSTER_ID));
+        context.addMemberContext(createMemberContext(CLUSTER_ID, "member-1"));
+        context.persistChanges();
+        context.addMemberContext(createMemberContext(CLUSTER_ID, "member-2"));
+        context.persist();
+
+        // Snapshot covers all records persisted before it
+        assertNotNull(resourceStore.read(CloudControllerConstants.DATA_RESOURCE));
+        assertEquals(0, resourceStore.countResources(CloudControllerConstants.DATA_JOURNAL_RESOURCE));
+
+        context.addClusterContext(createClusterContext("cluster-2"));
+        context.addMemberContext(createMemberContext("cluster-2", "member-3"));
+        context.persistChanges();
+        context.removeClusterContext(CLUSTER_ID);
+        context.removeMemberContextsOfCluster(CLUSTER_ID);
+        context.persistChanges();
+
+        CloudControllerContext recoveredContext = createContext();
+        assertNull(recoveredContext.getClusterContext(CLUSTER_ID));
+        assertNull(recoveredContext.getMemberContextsOfClusterId(CLUSTER_ID));
+        assertNull(recoveredContext.getMemberContextOfMemberId("member-1"));
+        assertNull(recoveredContext.getMemberContextOfMemberId("member-2"));
+        assertNotNull(recoveredContext.getClusterContext("cluster-2"));
+        assertNotNull(recoveredContext.getMemberContextOfMemberId("member-3"));
+
+        // Changes journaled after recovery follow the replayed records
+        recoveredContext.addMemberContext(createMemberContext("cluster-2", "member-4"));
+        recoveredContext.persistChanges();
+        assertEquals(3, resourceStore.countResources(CloudControllerConstants.DATA_JOURNAL_RESOURCE));
+        assertNotNull(createContext().getMemberContextOfMemberId("member-4"));
+    }
+
+    @Test
+    public void testRecoverWhenStoppedBeforeJournalCompacted() {
+        CloudControllerContext context = createContext();
+        context.addMemberContext(createMemberContext(CLUSTER_ID, "member-1"));
+        context.persistChanges();
+        context.removeMemberContext(CLUSTER_ID, "member-1");
+        context.persistChanges();
+
+        // Cloud controller stops after persisting the snapshot, before removing the records it covers
+        resourceStore.failRemovals = true;
+        context.addMemberContext(createMemberContext(CLUSTER_ID, "member-2"));
+        context.persist();
+        assertEquals(3, resourceStore.countResources(CloudControllerConstants.DATA_JOURNAL_RESOURCE));
+
+        resourceStore.failRemovals = false;
+        CloudControllerContext recoveredContext = createContext();
+        assertNull(recoveredContext.getMemberContextOfMemberId("member-1"));
+        assertNotNull(recoveredContext.getMemberContextOfMemberId("member-2"));
+        // Records left behind are removed on recovery
+        assertEquals(0, resourceStore.countResources(CloudControllerConstants.DATA_JOURNAL_RESOURCE));
+    }
+
+    @Test
+    public void testFailedJournalWriteIsRetried() {
+        CloudControllerContext context = createContext();
+        context.addMemberContext(createMemberContext(CLUSTER_ID, "member-1"));
+        resourceStore.failPersists = true;
+        context.persistChanges();
+        assertEquals(0, resourceStore.countResources(CloudControllerConstants.DATA_JOURNAL_RESOURCE));
+
+        resourceStore.failPersists = false;
+        context.addMemberContext(createMemberContext(CLUSTER_ID, "member-2"));
+        context.persistChanges();
+        assertEquals(1, resourceStore.countResources(CloudControllerConstants.DATA_JOURNAL_RESOURCE));
+
+        CloudControllerContext recoveredContext = createContext();
+        assertNotNull(recoveredContext.getMemberContextOfMemberId("member-1"));
+        assertNotNull(recoveredContext.getMemberContextOfMemberId("member-2"));
+    }
+
+    @Test
+    public void testUnpersistedChangesAreNotRecovered() {
+        CloudControllerContext context = createContext();
+        context.addMemberContext(createMemberContext(CLUSTER_ID, "member-1"));
+        context.persistChanges();
+        context.addMemberContext(createMemberContext(CLUSTER_ID, "member-2"));
+
+        CloudControllerContext recoveredContext = createContext();
+        assertNotNull(recoveredContext.getMemberContextOfMemberId("member-1"));
+        assertNull(recoveredContext.getMemberContextOfMemberId("member-2"));
+    }
+
+    @Test(timeout = 30000)
+    public void testJournalIsCompactedInBackground() throws Exception {
+        System.setProperty(CloudControllerConstants.PERSISTENCE_COMPACTION_THRESHOLD, "5");
+        CloudControllerContext context = createContext();
+        for (int i = 1; i <= 5; i++) {
+            context.addMemberContext(createMemberContext(CLUSTER_ID, "member-" + i));
+            context.persistChanges();
+        }
+        // Wait for the snapshot to be persisted and the records covered by it to be removed
+        while ((resourceStore.read(CloudControllerConstants.DATA_RESOURCE) == null) ||
+                (resourceStore.countResources(CloudControllerConstants.DATA_JOURNAL_RESOURCE) > 0)) {
+            Thread.sleep(10);
+        }
+        context.addMemberContext(createMemberContext(CLUSTER_ID, "member-6"));
+        context.persistChanges();
+        assertEquals(1, resourceStore.countResources(CloudControllerConstants.DATA_JOURNAL_RESOURCE));
+
+        CloudControllerContext recoveredContext = createContext();
+        assertEquals(6, recoveredContext.getMemberContextsOfClusterId(CLUSTER_ID).size());
+    }
+
+    /**
+     * Members are added and removed from several threads while snapshots are persisted, each
+     * snapshot is expected to hold the same consecutive members of a cluster in both member
+     * context maps.
+     */
+    @Test(timeout = 60000)
+    public void testSnapshotIsConsistentWhileContextIsUpdated() throws Exception {
+        final CloudControllerContext context = createContext();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                final String clusterId = "cluster-" + i;
+                futures.add(executorService.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 2000; j++) {
+                            context.addMemberContext(createMemberContext(clusterId, clusterId + "-member-" + j));
+                            if (j >= 50) {
+                                context.removeMemberContext(clusterId, clusterId + "-member-" + (j - 50));
+                            }
+                            context.persistChanges();
+                        }
+                    }
+                }));
+            }
+            boolean updating = true;
+            while (updating) {
+                context.persist();
+                CloudControllerContext snapshot = (CloudControllerContext) resourceStore.read(
+                        CloudControllerConstants.DATA_RESOURCE);
+                for (int i = 0; i < 4; i++) {
+                    assertMembersAreConsistent(snapshot, "cluster-" + i);
+                }
+                updating = false;
+                for (Future<?> future : futures) {
+                    updating |= !future.isDone();
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testJournalIsRemovedWhenPersistenceModeIsChanged() {
+        CloudControllerContext context = createContext();
+        context.addMemberContext(createMemberContext(CLUSTER_ID, "member-1"));
+        context.persistChanges();
+        assertEquals(1, resourceStore.countResources(CloudControllerConstants.DATA_JOURNAL_RESOURCE));
+
+        System.clearProperty(CloudControllerConstants.PERSISTENCE_MODE);
+        CloudControllerContext recoveredContext = createContext();
+        assertFalse(recoveredContext.isJournalEnabled());
+        assertNotNull(recoveredContext.getMemberContextOfMemberId("member-1"));
+        recoveredContext.addMemberContext(createMemberContext(CLUSTER_ID, "member-2"));
+        recoveredContext.persistChanges();
+        assertEquals(0, resourceStore.countResources(CloudControllerConstants.DATA_JOURNAL_RESOURCE));
+        recoveredContext.addMemberContext(createMemberContext(CLUSTER_ID, "member-3"));
+        recoveredContext.persistChanges();
+
+        recoveredContext = createContext();
+        assertEquals(3, recoveredContext.getMemberContextsOfClusterId(CLUSTER_ID).size());
+    }
+
+    @Test
+    public void testPersistLatency() {
+        for (int memberCount : BENCHMARK_MEMBER_COUNTS) {
+            resourceStore = new InMemoryResourceStore();
+            CloudControllerContext context = createContext();
+            context.addClusterContext(createClusterContext(CLUSTER_ID));
+            for (int i = 0; i < memberCount; i++) {
+                context.addMemberContext(createMemberContext(CLUSTER_ID, "member-" + i));
+            }
+            context.persist();
+
+            long snapshotNanos = 0;
+            long journalNanos = 0;
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                context.updateMemberContext(createMemberContext(CLUSTER_ID, "member-" + i, "instance-" + i));
+                long startTime = System.nanoTime();
+                context.persist();
+                snapshotNanos += System.nanoTime() - startTime;
+
+                context.updateMemberContext(createMemberContext(CLUSTER_ID, "member-" + i, "instance-" + i));
+                startTime = System.nanoTime();
+                context.persistChanges();
+                journalNanos += System.nanoTime() - startTime;
+            }
+            log.info(String.format("Persist latency: [members] %d [snapshot] %.3f ms [snapshot-size] %d KB " +
+                            "[journal] %.3f ms", memberCount,
+                    (double) snapshotNanos / BENCHMARK_ITERATIONS / 1000000,
+                    resourceStore.getResourceSize(CloudControllerConstants.DATA_RESOURCE) / 1024,
+                    (double) journalNanos / BENCHMARK_ITERATIONS / 1000000));
+        }
+    }
+
+    private static void assertMembersAreConsistent(CloudControllerContext context, String clusterId) {
+        String memberIdPrefix = clusterId + "-member-";
+        List<MemberContext> memberContexts = context.getMemberContextsOfClusterId(clusterId);
+        if (memberContexts == null) {
+            assertNull(context.getMemberContextOfMemberId(memberIdPrefix + 0));
+            return;
+        }
+        int first = Integer.MAX_VALUE;
+        int last = -1;
+        for (MemberContext memberContext : memberContexts) {
+            assertNotNull(context.getMemberContextOfMemberId(memberContext.getMemberId()));
+            int index = Integer.parseInt(memberContext.getMemberId().substring(memberIdPrefix.length()));
+            first = Math.min(first, index);
+            last = Math.max(last, index);
+        }
+        assertEquals(last - first + 1, memberContexts.size());
+        assertNull(context.getMemberContextOfMemberId(memberIdPrefix + (first - 1)));
+        assertNull(context.getMemberContextOfMemberId(memberIdPrefix + (last + 1)));
+    }
+
+    private CloudControllerContext createContext() {
+        CloudControllerContext context = new CloudControllerContext(new LocalDistributedObjectProvider(),
+                resourceStore);
+        context.updateContextFromRegistry();
+        return context;
+    }
+
+    private static ClusterContext createClusterContext(String clusterId) {
+        return new ClusterContext(APPLICATION_ID, CARTRIDGE_TYPE, clusterId, null, "php.stratos.org", false, null);
+    }
+
+    private static MemberContext createMemberContext(String clusterId, String memberId) {
+        return new MemberContext(APPLICATION_ID, CARTRIDGE_TYPE, clusterId, memberId);
+    }
+
+    private static MemberContext createMemberContext(String clusterId, String memberId, String instanceId) {
+        MemberContext memberContext = createMemberContext(clusterId, memberId);
+        memberContext.setInstanceId(instanceId);
+        return memberContext;
+    }
+
+    /**
+     * Keeps resources serialized in memory, hence resources read are detached from the context.
+     */
+    private static class InMemoryResourceStore implements ResourceStore {
+
+        private final Map<String, byte[]> resources = new ConcurrentHashMap<String, byte[]>();
+        private volatile boolean failPersists;
+        private volatile boolean failRemovals;
+
+        @Override
+        public void persist(String resourcePath, Serializable serializableObject) throws RegistryException {
+            if (failPersists) {
+                throw new RegistryException("Could not persist resource: " + resourcePath);
+            }
+            try {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+                objectOutputStream.writeObject(serializableObject);
+                objectOutputStream.close();
+                resources.put(resourcePath, outputStream.toByteArray());
+            } catch (IOException e) {
+                throw new RegistryException("Could not serialize resource: " + resourcePath, e);
+            }
+        }
+
+        @Override
+        public void persistSerialized(String resourcePath, byte[] content) throws RegistryException {
+            if (failPersists) {
+                throw new RegistryException("Could not persist resource: " + resourcePath);
+            }
+            resources.put(resourcePath, content);
+        }
+
+        @Override
+        public Object read(String resourcePath) {
+            byte[] content = resources.get(resourcePath);
+            if (content == null) {
+                return null;
+            }
+            try {
+                return new ObjectInputStream(new ByteArrayInputStream(content)).readObject();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void remove(String resourcePath) throws RegistryException {
+            if (failRemovals) {
+                throw new RegistryException("Could not remove resource: " + resourcePath);
+            }
+            resources.remove(resourcePath);
+        }
+
+        private int countResources(String parentPath) {
+            int count = 0;
+            for (String resourcePath : resources.keySet()) {
+                if (resourcePath.startsWith(parentPath + "/")) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private int getResourceSize(String resourcePath) {
+            return resources.get(resourcePath).length;
+        }
+    }
+
+    /**
+     * Distributed object provider of a standalone cloud controller.
+     */
+    private static class LocalDistributedObjectProvider implements DistributedObjectProvider {
+
+        @Override
+        public Map getMap(String name) {
+            return new ConcurrentHashMap();
+        }
+
+        @Override
+        public void removeMap(String name) {
+        }
+
+        @Override
+        public List getList(String name) {
+            return new ArrayList();
+        }
+
+        @Override
+        public void removeList(String name) {
+        }
+
+        @Override
+        public Lock acquireLock(Object object) {
+            Lock lock = new ReentrantLock();
+            lock.lock();
+            return lock;
+        }
+
+        @Override
+        public void releaseLock(Lock lock) {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.cloud.controller.services.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.cloud.controller.domain.IaasProvider;
+import org.apache.stratos.cloud.controller.domain.MemberContext;
+import org.apache.stratos.cloud.controller.iaases.mock.MockIaas;
+import org.apache.stratos.cloud.controller.util.CloudControllerConstants;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Instance start throttle tests, starts instances in parallel using a mock IaaS which takes a fixed
+ * time to start an instance and verifies that start time scales with the concurrency limit while
+ * concurrency and rate limits of each region are respected.
+ */
+public class InstanceStartThrottleTest {
+
+    private static final Log log = LogFactory.getLog(InstanceStartThrottleTest.class);
+
+    private static final long START_DELAY = 200;
+    private static final int MEMBER_COUNT = 20;
+
+    private InstanceStartThrottle throttle;
+
+    @Before
+    public void setUp() {
+        throttle = new InstanceStartThrottle();
+        DelayedMockIaas.reset();
+    }
+
+    @Test
+    public void testParallelStartsScaleWithConcurrencyLimit() throws Exception {
+        long serialTime = startInstances(createIaasProvider("region-1", 1, 0), MEMBER_COUNT);
+        long parallelTime = startInstances(createIaasProvider("region-2", 5, 0), MEMBER_COUNT);
+        long fullyParallelTime = startInstances(createIaasProvider("region-3", MEMBER_COUNT, 0), MEMBER_COUNT);
+
+        log.info(String.format("Instance start time: [members] %d [concurrency] 1 [time] %d ms", MEMBER_COUNT,
+                serialTime));
+        log.info(String.format("Instance start time: [members] %d [concurrency] 5 [time] %d ms [speedup] %.1f",
+                MEMBER_COUNT, parallelTime, (double) serialTime / parallelTime));
+        log.info(String.format("Instance start time: [members] %d [concurrency] %d [time] %d ms [speedup] %.1f",
+                MEMBER_COUNT, MEMBER_COUNT, fullyParallelTime, (double) serialTime / fullyParallelTime));
+
+        assertTrue(serialTime >= MEMBER_COUNT * START_DELAY);
+        assertTrue(parallelTime >= (MEMBER_COUNT / 5) * START_DELAY);
+        assertTrue("Expected close to linear speedup with 5 concurrent starts",
+                parallelTime < (serialTime / 5) * 1.5);
+        assertTrue("Expected close to linear speedup with 20 concurrent starts",
+                fullyParallelTime < (serialTime / MEMBER_COUNT) * 2);
+    }
+
+    @Test
+    public void testConcurrencyLimitIsAppliedPerRegion() throws Exception {
+        final IaasProvider region1 = createIaasProvider("region-1", 3, 0);
+        final IaasProvider region2 = createIaasProvider("region-2", 3, 0);
+        ExecutorService executorService = Executors.newFixedThreadPool(MEMBER_COUNT);
+        try {
+            List<Future<MemberContext>> futures = new ArrayList<Future<MemberContext>>();
+            for (int i = 0; i < MEMBER_COUNT; i++) {
+                IaasProvider iaasProvider = (i % 2 == 0) ? region1 : region2;
+                futures.add(executorService.submit(createStartTask(iaasProvider, "member-" + i)));
+            }
+            waitFor(futures);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(3, DelayedMockIaas.getMaxActiveStarts("region-1"));
+        assertEquals(3, DelayedMockIaas.getMaxActiveStarts("region-2"));
+        assertEquals(0, throttle.getActiveRequestCount(region1));
+        assertEquals(0, throttle.getActiveRequestCount(region2));
+    }
+
+    @Test
+    public void testRateLimit() throws Exception {
+        // 10 starts per second, the first start is not delayed
+        long time = startInstances(createIaasProvider("region-1", 10, 10), 10);
+        log.info(String.format("Rate limited instance start time: [members] 10 [rate] 10/s [time] %d ms", time));
+        assertTrue(time >= 900);
+        assertTrue(time < 900 + START_DELAY * 3);
+    }
+
+    @Test
+    public void testLimitsAreReloadedWhenChanged() throws Exception {
+        IaasProvider iaasProvider = createIaasProvider("region-1", 1, 0);
+        startInstances(iaasProvider, 4);
+        assertEquals(1, DelayedMockIaas.getMaxActiveStarts("region-1"));
+
+        DelayedMockIaas.reset();
+        iaasProvider.setProperty(CloudControllerConstants.INSTANCE_START_CONCURRENCY, "4");
+        startInstances(iaasProvider, 4);
+        assertEquals(4, DelayedMockIaas.getMaxActiveStarts("region-1"));
+        assertEquals(0, throttle.getActiveRequestCount(iaasProvider));
+    }
+
+    @Test
+    public void testLimitIsReleasedWhenStartFails() throws Exception {
+        IaasProvider iaasProvider = createIaasProvider("region-1", 1, 0);
+        try {
+            createStartTask(iaasProvider, DelayedMockIaas.FAILING_MEMBER_ID).call();
+            fail("Expected instance start to fail");
+        } catch (IllegalStateException ignore) {
+        }
+        assertEquals(0, throttle.getActiveRequestCount(iaasProvider));
+        assertEquals("instance-member-1", createStartTask(iaasProvider, "member-1").call().getInstanceId());
+    }
+
+    private long startInstances(IaasProvider iaasProvider, int count) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(count);
+        try {
+            long startTime = System.currentTimeMillis();
+            List<Future<MemberContext>> futures = new ArrayList<Future<MemberContext>>();
+            for (int i = 0; i < count; i++) {
+                futures.add(executorService.submit(createStartTask(iaasProvider, "member-" + i)));
+            }
+            waitFor(futures);
+            return System.currentTimeMillis() - startTime;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void waitFor(List<Future<MemberContext>> futures) throws InterruptedException, ExecutionException {
+        for (Future<MemberContext> future : futures) {
+            MemberContext memberContext = future.get();
+            assertEquals("instance-" + memberContext.getMemberId(), memberContext.getInstanceId());
+        }
+    }
+
+    private Callable<MemberContext> createStartTask(final IaasProvider iaasProvider, final String memberId) {
+        return new Callable<MemberContext>() {
+            @Override
+            public MemberContext call() throws Exception {
+                MemberContext memberContext = new MemberContext("application-1", "php", "cluster-1", memberId);
+                return throttle.startInstance(iaasProvider, memberContext, new byte[0]);
+            }
+        };
+    }
+
+    private static IaasProvider createIaasProvider(String region, int concurrency, double rate) {
+        IaasProvider iaasProvider = new IaasProvider();
+        iaasProvider.setType("mock");
+        iaasProvider.setClassName(DelayedMockIaas.class.getName());
+        iaasProvider.setProperty("api.endpoint", "https://localhost:9443/mock-iaas/api");
+        iaasProvider.setProperty(CloudControllerConstants.REGION_PROPERTY, region);
+        iaasProvider.setProperty(CloudControllerConstants.INSTANCE_START_CONCURRENCY, String.valueOf(concurrency));
+        iaasProvider.setProperty(CloudControllerConstants.INSTANCE_START_RATE, String.valueOf(rate));
+        return iaasProvider;
+    }
+
+    /**
+     * Mock IaaS taking a fixed time to start an instance without calling the mock IaaS service,
+     * keeps track of the maximum number of concurrent instance starts of each region.
+     */
+    public static class DelayedMockIaas extends MockIaas {
+
+        static final String FAILING_MEMBER_ID = "failing-member";
+
+        private static final ConcurrentHashMap<String, AtomicInteger> activeStarts =
+                new ConcurrentHashMap<String, AtomicInteger>();
+        private static final ConcurrentHashMap<String, AtomicInteger> maxActiveStarts =
+                new ConcurrentHashMap<String, AtomicInteger>();
+
+        private final String region;
+
+        public DelayedMockIaas(IaasProvider iaasProvider) {
+            super(iaasProvider);
+            region = iaasProvider.getProperty(CloudControllerConstants.REGION_PROPERTY);
+        }
+
+        static void reset() {
+            activeStarts.clear();
+            maxActiveStarts.clear();
+        }
+
+        static int getMaxActiveStarts(String region) {
+            AtomicInteger max = maxActiveStarts.get(region);
+            return (max == null) ? 0 : max.get();
+        }
+
+        @Override
+        public MemberContext startInstance(MemberContext memberContext, byte[] payload) {
+            if (FAILING_MEMBER_ID.equals(memberContext.getMemberId())) {
+                throw new IllegalStateException("Could not start instance");
+            }
+            activeStarts.putIfAbsent(region, new AtomicInteger());
+            maxActiveStarts.putIfAbsent(region, new AtomicInteger());
+            int active = activeStarts.get(region).incrementAndGet();
+            AtomicInteger max = maxActiveStarts.get(region);
+            int currentMax;
+            while (active > (currentMax = max.get()) && !max.compareAndSet(currentMax, active)) {
+            }
+            try {
+                Thread.sleep(START_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                activeStarts.get(region).decrementAndGet();
+            }
+            memberContext.setInstanceId("instance-" + memberContext.getMemberId());
+            return memberContext;
+        }
+    }
+}
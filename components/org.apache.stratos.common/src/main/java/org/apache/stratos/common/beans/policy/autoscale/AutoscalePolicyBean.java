@@ -28,6 +28,8 @@ public class AutoscalePolicyBean {
     private String displayName;
     private String description;
     private LoadThresholdsBean loadThresholds;
+    private String scalingDecisionEngine;
+    private String predictor;
 
     public String getId() {
         return id;
@@ -60,4 +62,20 @@ public class AutoscalePolicyBean {
     public void setLoadThresholds(LoadThresholdsBean loadThresholds) {
         this.loadThresholds = loadThresholds;
     }
+
+    public String getScalingDecisionEngine() {
+        return scalingDecisionEngine;
+    }
+
+    public void setScalingDecisionEngine(String scalingDecisionEngine) {
+        this.scalingDecisionEngine = scalingDecisionEngine;
+    }
+
+    public String getPredictor() {
+        return predictor;
+    }
+
+    public void setPredictor(String predictor) {
+        this.predictor = predictor;
+    }
 }
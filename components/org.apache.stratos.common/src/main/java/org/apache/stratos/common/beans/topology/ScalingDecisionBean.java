@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.common.beans.topology;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+@XmlRootElement(name = "scalingDecisions")
+public class ScalingDecisionBean {
+
+    private String traceId;
+    private String clusterId;
+    private String clusterInstanceId;
+    private long statisticReceivedTime;
+    private long evaluationStartTime;
+    private long evaluationEndTime;
+    private List<ScalingDecisionMemberBean> members;
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public void setTraceId(String traceId) {
+        this.traceId = traceId;
+    }
+
+    public String getClusterId() {
+        return clusterId;
+    }
+
+    public void setClusterId(String clusterId) {
+        this.clusterId = clusterId;
+    }
+
+    public String getClusterInstanceId() {
+        return clusterInstanceId;
+    }
+
+    public void setClusterInstanceId(String clusterInstanceId) {
+        this.clusterInstanceId = clusterInstanceId;
+    }
+
+    public long getStatisticReceivedTime() {
+        return statisticReceivedTime;
+    }
+
+    public void setStatisticReceivedTime(long statisticReceivedTime) {
+        this.statisticReceivedTime = statisticReceivedTime;
+    }
+
+    public long getEvaluationStartTime() {
+        return evaluationStartTime;
+    }
+
+    public void setEvaluationStartTime(long evaluationStartTime) {
+        this.evaluationStartTime = evaluationStartTime;
+    }
+
+    public long getEvaluationEndTime() {
+        return evaluationEndTime;
+    }
+
+    public void setEvaluationEndTime(long evaluationEndTime) {
+        this.evaluationEndTime = evaluationEndTime;
+    }
+
+    public List<ScalingDecisionMemberBean> getMembers() {
+        return members;
+    }
+
+    public void setMembers(List<ScalingDecisionMemberBean> members) {
+        this.members = members;
+    }
+}
@@ -28,6 +28,7 @@ import org.apache.stratos.autoscaler.stub.autoscale.policy.AutoscalePolicy;
 import org.apache.stratos.autoscaler.stub.deployment.policy.ApplicationPolicy;
 import org.apache.stratos.autoscaler.stub.deployment.policy.DeploymentPolicy;
 import org.apache.stratos.autoscaler.stub.pojo.ApplicationContext;
+import org.apache.stratos.autoscaler.stub.pojo.ScalingDecision;
 import org.apache.stratos.autoscaler.stub.pojo.ServiceGroup;
 import org.apache.stratos.common.constants.StratosConstants;
 
@@ -177,6 +178,10 @@ public class AutoscalerServiceClient {
         return stub.getApplicationNetworkPartitions(applicationId);
     }
 
+    public ScalingDecision[] getScalingDecisions(String clusterId) throws RemoteException {
+        return stub.getScalingDecisions(clusterId);
+    }
+
     public void undeployApplication(String applicationId, boolean force) throws
             AutoscalerServiceApplicationDefinitionExceptionException, RemoteException {
         stub.undeployApplication(applicationId, force);
@@ -146,6 +146,10 @@ public class StratosConstants {
     public static final String LB_CLUSTER_ID = "LB_CLUSTER_ID";
     public static final String NETWORK_PARTITION_ID = "NETWORK_PARTITION_ID";
 
+    // Load balancer - cluster and member properties
+    public static final String LOAD_BALANCING_ALGORITHM = "LOAD_BALANCING_ALGORITHM";
+    public static final String LOAD_BALANCING_WEIGHT = "LOAD_BALANCING_WEIGHT";
+
     // Kubernetes related constants
     public static final String KUBERNETES_CLUSTER_ID = "KUBERNETES_CLUSTER_ID";
     public static final String KUBERNETES_MASTER_PORT = "KUBERNETES_MASTER_PORT";
@@ -161,6 +165,7 @@ public class StratosConstants {
     public static final String MIN_COUNT = "MIN_COUNT";
     public static final String SCALING_REASON = "SCALING_REASON";
     public static final String SCALING_TIME = "SCALING_TIME";
+    public static final String SCALING_TRACE_ID = "SCALING_TRACE_ID";
 
     // Policy and definition related constants
     public static final int PUBLIC_DEFINITION = 0;
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.common.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of latencies in milliseconds. Values are counted in log-linear buckets, eight
+ * buckets per power of two, hence percentiles are accurate to within 12.5% of the recorded value
+ * while recording a value is a few atomic increments.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a latency, negative values are recorded as zero.
+     *
+     * @param latency latency in milliseconds
+     */
+    public void record(long latency) {
+        if (latency < 0) {
+            latency = 0;
+        }
+        buckets.incrementAndGet(bucketIndex(latency));
+        count.incrementAndGet();
+        sum.addAndGet(latency);
+        long current;
+        while (latency < (current = min.get()) && !min.compareAndSet(current, latency)) {
+            // retry
+        }
+        while (latency > (current = max.get()) && !max.compareAndSet(current, latency)) {
+            // retry
+        }
+    }
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public double getMean() {
+        long currentCount = count.get();
+        return (currentCount == 0) ? 0 : (double) sum.get() / currentCount;
+    }
+
+    @Override
+    public long getMin() {
+        long currentMin = min.get();
+        return (currentMin == Long.MAX_VALUE) ? 0 : currentMin;
+    }
+
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+
+    @Override
+    public long getPercentile50() {
+        return getPercentile(0.5);
+    }
+
+    @Override
+    public long getPercentile90() {
+        return getPercentile(0.9);
+    }
+
+    @Override
+    public long getPercentile99() {
+        return getPercentile(0.99);
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile of the recorded latencies.
+     *
+     * @param percentile percentile between 0 and 1
+     * @return latency in milliseconds, 0 if no latencies are recorded
+     */
+    public long getPercentile(double percentile) {
+        if ((percentile < 0) || (percentile > 1)) {
+            throw new IllegalArgumentException("Percentile should be between 0 and 1: " + percentile);
+        }
+        long total = 0;
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        min.set(Long.MAX_VALUE);
+        max.set(0);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        return (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long bucketUpperBound(int index) {
+        return (index == BUCKET_COUNT - 1) ? Long.MAX_VALUE : bucketLowerBound(index + 1) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[count] %d [mean] %.1f [p50] %d [p90] %d [p99] %d [max] %d", getCount(), getMean(),
+                getPercentile50(), getPercentile90(), getPercentile99(), getMax());
+    }
+}
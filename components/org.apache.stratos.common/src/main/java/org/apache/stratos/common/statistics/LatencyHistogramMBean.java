@@ -7,7 +7,7 @@
  * "License"); you may not use this file except in compliance
  * with the License.  You may obtain a copy of the License at
  *
- *  http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.apache.org/licenses/LICENSE-2.0
  *
  * Unless required by applicable law or agreed to in writing,
  * software distributed under the License is distributed on an
@@ -16,23 +16,27 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.apache.stratos.load.balancer.statistics;
 
-import java.util.concurrent.Callable;
+package org.apache.stratos.common.statistics;
 
 /**
- * In-flight request decrement callable definition.
+ * JMX view of a latency histogram, latencies are in milliseconds.
  */
-public class InFlightRequestDecrementCallable implements Callable<Object> {
-    private String clusterId;
-
-    public InFlightRequestDecrementCallable(String clusterId) {
-        this.clusterId = clusterId;
-    }
-
-    @Override
-    public Object call() throws Exception {
-        LoadBalancerStatisticsCollector.getInstance().decrementInFlightRequestCount(clusterId);
-        return null;
-    }
+public interface LatencyHistogramMBean {
+
+    long getCount();
+
+    double getMean();
+
+    long getMin();
+
+    long getMax();
+
+    long getPercentile50();
+
+    long getPercentile90();
+
+    long getPercentile99();
+
+    void reset();
 }
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.common.statistics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of latency histograms, histograms are registered with the platform MBean server as
+ * org.apache.stratos:type=LatencyHistogram,component=[component],stage=[stage].
+ */
+public class LatencyHistogramRegistry {
+
+    private static final Log log = LogFactory.getLog(LatencyHistogramRegistry.class);
+
+    private static final String OBJECT_NAME_FORMAT = "org.apache.stratos:type=LatencyHistogram,component=%s,stage=%s";
+
+    private static volatile LatencyHistogramRegistry instance;
+
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms;
+
+    private LatencyHistogramRegistry() {
+        histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+    }
+
+    public static LatencyHistogramRegistry getInstance() {
+        if (instance == null) {
+            synchronized (LatencyHistogramRegistry.class) {
+                if (instance == null) {
+                    instance = new LatencyHistogramRegistry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the histogram of the given stage, the histogram is created and registered over JMX
+     * on first use.
+     *
+     * @param component component measuring the stage, ex: autoscaler
+     * @param stage     stage name
+     * @return histogram
+     */
+    public LatencyHistogram getHistogram(String component, String stage) {
+        String objectName = String.format(OBJECT_NAME_FORMAT, component, stage);
+        LatencyHistogram histogram = histograms.get(objectName);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(objectName, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+                registerMBean(objectName, histogram);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Record a latency in the histogram of the given stage.
+     *
+     * @param component component measuring the stage, ex: autoscaler
+     * @param stage     stage name
+     * @param latency   latency in milliseconds
+     */
+    public void record(String component, String stage, long latency) {
+        getHistogram(component, stage).record(latency);
+    }
+
+    /**
+     * Returns the registered histograms by object name.
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        return Collections.<String, LatencyHistogram>unmodifiableMap(histograms);
+    }
+
+    private void registerMBean(String objectName, LatencyHistogram histogram) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (!mBeanServer.isRegistered(name)) {
+                mBeanServer.registerMBean(histogram, name);
+            }
+        } catch (Exception e) {
+            // Latencies are still recorded, only the JMX view is not available
+            log.warn("Could not register latency histogram MBean: [object-name] " + objectName, e);
+        }
+    }
+}
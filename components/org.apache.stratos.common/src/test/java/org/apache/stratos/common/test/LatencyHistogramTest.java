@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.common.test;
+
+import org.apache.stratos.common.statistics.LatencyHistogram;
+import org.apache.stratos.common.statistics.LatencyHistogramRegistry;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the latency histogram and its registry.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile99());
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 8; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-5);
+        assertEquals(9, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(7, histogram.getMax());
+        assertEquals(3, histogram.getPercentile50());
+        assertEquals(7, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void testPercentileAccuracy() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            // latencies between 10ms and about 10 minutes
+            values[i] = (long) Math.pow(10, 1 + random.nextDouble() * 4.8);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        double[] percentiles = new double[]{0.5, 0.9, 0.99};
+        for (double percentile : percentiles) {
+            long expected = values[(int) Math.ceil(percentile * values.length) - 1];
+            long actual = histogram.getPercentile(percentile);
+            assertTrue(String.format("p%s expected %d actual %d", percentile, expected, actual),
+                    (actual >= expected) && (actual <= expected * 1.125 + 1));
+        }
+        assertEquals(values[0], histogram.getMin());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(values[values.length - 1], histogram.getPercentile(1));
+    }
+
+    @Test
+    public void testLargeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(Long.MAX_VALUE / 3);
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile99());
+        assertTrue(histogram.getPercentile(0.5) >= Long.MAX_VALUE / 3);
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.record(300);
+        assertEquals(200, histogram.getMean(), 0);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile50());
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        histogram.record(j % 1000);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, histogram.getCount());
+        assertEquals(999, histogram.getMax());
+        assertEquals(499.5, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    public void testRegistryExposesHistogramsOverJmx() throws Exception {
+        LatencyHistogramRegistry registry = LatencyHistogramRegistry.getInstance();
+        LatencyHistogram histogram = registry.getHistogram("test", "registryStage");
+        assertSame(histogram, registry.getHistogram("test", "registryStage"));
+        histogram.record(25);
+
+        ObjectName name = new ObjectName("org.apache.stratos:type=LatencyHistogram,component=test,stage=registryStage");
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Count"));
+    }
+}
@@ -38,6 +38,8 @@ public class Cluster {
     private Set<String> hostNames;
     private String tenantRange;
     private Map<String, Member> memberMap;
+    // Members of the cluster used for load balancing, rebuilt when members are added or removed
+    private volatile Member[] memberArray;
     private Map<String, String> hostNameToContextPathMap;
     private String loadBalanceAlgorithmName;
 
@@ -46,6 +48,7 @@ public class Cluster {
         this.clusterId = clusterId;
         this.hostNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
         this.memberMap = new HashMap<String, Member>();
+        this.memberArray = new Member[0];
         this.hostNameToContextPathMap = new ConcurrentHashMap<String, String>();
     }
 
@@ -70,11 +73,12 @@ public class Cluster {
         hostNameToContextPathMap.put(hostName, contextPath);
     }
 
-    public void addMember(Member member) {
+    public synchronized void addMember(Member member) {
         memberMap.put(member.getMemberId(), member);
+        memberArray = memberMap.values().toArray(new Member[memberMap.size()]);
     }
 
-    public void removeMember(String memberId) {
+    public synchronized void removeMember(String memberId) {
         Member member = memberMap.get(memberId);
         if (member == null) {
             if (log.isWarnEnabled()) {
@@ -84,6 +88,7 @@ public class Cluster {
         }
 
         memberMap.remove(memberId);
+        memberArray = memberMap.values().toArray(new Member[memberMap.size()]);
     }
 
     public Member getMember(String memberId) {
@@ -94,6 +99,17 @@ public class Cluster {
         return memberMap.values();
     }
 
+    /**
+     * Returns the members of the cluster as an array which is replaced rather than modified when
+     * members are added or removed, hence it can be read without locking on every request. The
+     * array should not be modified.
+     *
+     * @return members of the cluster
+     */
+    public Member[] getMemberArray() {
+        return memberArray;
+    }
+
     public String getTenantRange() {
         return tenantRange;
     }
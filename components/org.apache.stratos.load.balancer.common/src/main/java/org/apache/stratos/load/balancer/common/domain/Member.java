@@ -28,11 +28,18 @@ import java.util.Map;
  */
 public class Member {
 
+    /**
+     * Maximum member weight, higher weights are capped to keep weighted selection sequences short.
+     */
+    public static final int MAX_WEIGHT = 100;
+
     private String serviceName;
     private String clusterId;
     private String memberId;
     private String hostName;
     private Map<Integer, Port> portMap;
+    // Relative share of requests received by weighted load balance algorithms
+    private int weight;
 
     public Member(String serviceName, String clusterId, String memberId, String hostName) {
         this.serviceName = serviceName;
@@ -40,6 +47,7 @@ public class Member {
         this.memberId = memberId;
         this.hostName = hostName;
         this.portMap = new HashMap<Integer, Port>();
+        this.weight = 1;
     }
 
     public String getClusterId() {
@@ -86,4 +94,19 @@ public class Member {
     public String getServiceName() {
         return serviceName;
     }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @param weight positive weight of the member, capped at {@link #MAX_WEIGHT}
+     */
+    public void setWeight(int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException(String.format("Member weight should be a positive integer: " +
+                    "[member] %s [weight] %d", memberId, weight));
+        }
+        this.weight = Math.min(weight, MAX_WEIGHT);
+    }
 }
@@ -408,6 +408,13 @@ public class LoadBalancerCommonTopologyEventReceiver extends TopologyEventReceiv
                 cluster.addHostName(hostName);
             }
         }
+        if (messagingCluster.getProperties() != null) {
+            String algorithmName = messagingCluster.getProperties().getProperty(
+                    StratosConstants.LOAD_BALANCING_ALGORITHM);
+            if (StringUtils.isNotBlank(algorithmName)) {
+                cluster.setLoadBalanceAlgorithmName(algorithmName.trim());
+            }
+        }
         return cluster;
     }
 
@@ -440,6 +447,23 @@ public class LoadBalancerCommonTopologyEventReceiver extends TopologyEventReceiv
                 member.addPort(transformPort(port));
             }
         }
+        if (messagingMember.getProperties() != null) {
+            String weight = messagingMember.getProperties().getProperty(StratosConstants.LOAD_BALANCING_WEIGHT);
+            if (StringUtils.isNotBlank(weight)) {
+                try {
+                    int memberWeight = Integer.parseInt(weight.trim());
+                    member.setWeight(memberWeight);
+                    if (memberWeight > member.getWeight()) {
+                        log.warn(String.format("Load balancing weight is above the maximum, using the maximum " +
+                                "weight: [member] %s [weight] %s [max-weight] %d", messagingMember.getMemberId(),
+                                weight, org.apache.stratos.load.balancer.common.domain.Member.MAX_WEIGHT));
+                    }
+                } catch (IllegalArgumentException e) {
+                    log.warn(String.format("Invalid load balancing weight, using the default weight: " +
+                            "[member] %s [weight] %s", messagingMember.getMemberId(), weight));
+                }
+            }
+        }
         return member;
     }
 }
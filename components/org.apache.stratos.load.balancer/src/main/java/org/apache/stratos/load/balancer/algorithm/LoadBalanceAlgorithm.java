@@ -22,11 +22,11 @@ package org.apache.stratos.load.balancer.algorithm;
 import org.apache.stratos.load.balancer.common.domain.Member;
 import org.apache.stratos.load.balancer.context.AlgorithmContext;
 
-import java.util.List;
-
 /**
  * Load balance algorithm interface.
- * Implement this interface to introduce new load balance algorithms.
+ * Implement this interface to introduce new load balance algorithms. A single algorithm instance
+ * is used by all request threads for all clusters, hence state of a cluster should be kept in its
+ * algorithm context rather than in the algorithm.
  */
 public interface LoadBalanceAlgorithm {
     /**
@@ -39,17 +39,11 @@ public interface LoadBalanceAlgorithm {
     /**
      * Apply the algorithm and return the next member.
      *
-     * @param algorithmContext
-     * @return
-     */
-    public Member getNextMember(AlgorithmContext algorithmContext);
-
-    /**
-     * Set member list of a given cluster.
-     *
-     * @param members
+     * @param members          members of the cluster, should not be modified
+     * @param algorithmContext algorithm context of the cluster
+     * @return next member, null if there are no members
      */
-    public void setMembers(List<Member> members);
+    public Member getNextMember(Member[] members, AlgorithmContext algorithmContext);
 
     /**
      * Reset the algorithm and start from the beginning.
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.load.balancer.algorithm;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.load.balancer.common.domain.Member;
+import org.apache.stratos.load.balancer.context.AlgorithmContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power of two choices algorithm picks two distinct members at random and selects the one with
+ * fewer in-flight requests. Unlike least outstanding requests it does not scan all members and
+ * does not send every request to the same least loaded member until its count is updated.
+ */
+public class PowerOfTwoChoices implements LoadBalanceAlgorithm {
+    private static final Log log = LogFactory.getLog(PowerOfTwoChoices.class);
+
+    @Override
+    public String getName() {
+        return "Power Of Two Choices";
+    }
+
+    @Override
+    public Member getNextMember(Member[] members, AlgorithmContext algorithmContext) {
+        if (members.length == 0) {
+            return null;
+        }
+        if (members.length == 1) {
+            return members[0];
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int firstIndex = random.nextInt(members.length);
+        int secondIndex = random.nextInt(members.length - 1);
+        if (secondIndex >= firstIndex) {
+            secondIndex++;
+        }
+        Member first = members[firstIndex];
+        Member second = members[secondIndex];
+        int firstCount = algorithmContext.getInFlightRequestCount(first.getMemberId());
+        int secondCount = algorithmContext.getInFlightRequestCount(second.getMemberId());
+        Member selectedMember = (secondCount < firstCount) ? second : first;
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Next member selected: [service] %s [cluster] %s [member] %s " +
+                            "[in-flight-requests] %d", algorithmContext.getServiceName(),
+                    algorithmContext.getClusterId(), selectedMember.getMemberId(),
+                    Math.min(firstCount, secondCount)));
+        }
+        return selectedMember;
+    }
+
+    @Override
+    public void reset(AlgorithmContext algorithmContext) {
+        // Members are selected at random, in-flight request counts reflect the requests being
+        // served, hence there is nothing to reset
+        if (log.isDebugEnabled()) {
+            log.debug("Power of two choices load balance algorithm was reset");
+        }
+    }
+}
@@ -24,69 +24,36 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.load.balancer.common.domain.Member;
 import org.apache.stratos.load.balancer.context.AlgorithmContext;
 
-import java.util.List;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-
 /**
  * This is the implementation of the round robin load balancing algorithm. It simply iterates
- * through the endpoint list one by one for until an active endpoint is found.
+ * through the member list one by one, the position of each cluster is advanced atomically in
+ * its algorithm context.
  */
 public class RoundRobin implements LoadBalanceAlgorithm {
     private static final Log log = LogFactory.getLog(RoundRobin.class);
 
-    private List<Member> members;
-    private final Lock lock = new ReentrantLock();
-
     @Override
     public String getName() {
         return "Round Robin";
     }
 
     @Override
-    public Member getNextMember(AlgorithmContext algorithmContext) {
-        if (members.size() == 0) {
+    public Member getNextMember(Member[] members, AlgorithmContext algorithmContext) {
+        if (members.length == 0) {
             return null;
         }
-        Member current = null;
-        lock.lock();
-        try {
-            int currentMemberIndex = algorithmContext.getCurrentMemberIndex();
-            if (currentMemberIndex >= members.size()) {
-                currentMemberIndex = 0;
-            }
-            if (log.isDebugEnabled()) {
-                log.debug(String.format("Searching for next member: [service] %s [cluster]: %s [member-count]: %d [current-index] %d", algorithmContext.getServiceName(), algorithmContext.getClusterId(), members.size(), currentMemberIndex));
-            }
-            int index = members.size();
-            do {
-                current = members.get(currentMemberIndex);
-                if (currentMemberIndex == members.size() - 1) {
-                    currentMemberIndex = 0;
-                } else {
-                    currentMemberIndex++;
-                }
-                index--;
-            } while (index > 0);
-            algorithmContext.setCurrentMemberIndex(currentMemberIndex);
-        } finally {
-            lock.unlock();
+        int currentMemberIndex = algorithmContext.getAndIncrementCurrentMemberIndex() % members.length;
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Next member selected: [service] %s [cluster]: %s [member-count]: %d [current-index] %d", algorithmContext.getServiceName(), algorithmContext.getClusterId(), members.length, currentMemberIndex));
         }
-        return current;
-    }
-
-    @Override
-    public void setMembers(List<Member> members) {
-        this.members = members;
+        return members[currentMemberIndex];
     }
 
     @Override
     public void reset(AlgorithmContext algorithmContext) {
-        synchronized (algorithmContext) {
-            algorithmContext.setCurrentMemberIndex(0);
-            if (log.isDebugEnabled()) {
-                log.debug("Round robin load balance algorithm was reset");
-            }
+        algorithmContext.setCurrentMemberIndex(0);
+        if (log.isDebugEnabled()) {
+            log.debug("Round robin load balance algorithm was reset");
         }
     }
 
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.load.balancer.algorithm;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.load.balancer.common.domain.Member;
+import org.apache.stratos.load.balancer.context.AlgorithmContext;
+
+/**
+ * Weighted round robin algorithm sends each member a share of requests proportional to its weight.
+ * A selection sequence is built once per member array by interleaving members according to their
+ * weights (a member of weight 3 and a member of weight 1 give a, a, b, a rather than a, a, a, b),
+ * thereafter members are selected from the sequence using the round robin index of the cluster.
+ */
+public class WeightedRoundRobin implements LoadBalanceAlgorithm {
+    private static final Log log = LogFactory.getLog(WeightedRoundRobin.class);
+
+    @Override
+    public String getName() {
+        return "Weighted Round Robin";
+    }
+
+    @Override
+    public Member getNextMember(Member[] members, AlgorithmContext algorithmContext) {
+        if (members.length == 0) {
+            return null;
+        }
+        Member[] sequence = getSequence(members, algorithmContext);
+        int currentIndex = algorithmContext.getAndIncrementCurrentMemberIndex() % sequence.length;
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Next member selected: [service] %s [cluster] %s [sequence-length] %d " +
+                            "[current-index] %d", algorithmContext.getServiceName(), algorithmContext.getClusterId(),
+                    sequence.length, currentIndex));
+        }
+        return sequence[currentIndex];
+    }
+
+    private Member[] getSequence(Member[] members, AlgorithmContext algorithmContext) {
+        Object state = algorithmContext.getAlgorithmState();
+        if ((state instanceof WeightedSequence) && (((WeightedSequence) state).members == members)) {
+            return ((WeightedSequence) state).sequence;
+        }
+        // Member arrays are replaced on topology changes, hence the sequence is only rebuilt after
+        // a change, concurrent callers may build it more than once which is harmless
+        WeightedSequence weightedSequence = new WeightedSequence(members, buildSequence(members));
+        algorithmContext.setAlgorithmState(weightedSequence);
+        return weightedSequence.sequence;
+    }
+
+    /**
+     * Interleave members according to their weights, weights are divided by their greatest common
+     * divisor to keep the sequence short. Member weights are capped, hence the sequence is at most
+     * {@link Member#MAX_WEIGHT} times the member count.
+     */
+    static Member[] buildSequence(Member[] members) {
+        int gcd = 0;
+        for (Member member : members) {
+            gcd = gcd(gcd, member.getWeight());
+        }
+        int[] weights = new int[members.length];
+        long totalWeight = 0;
+        for (int i = 0; i < members.length; i++) {
+            weights[i] = members[i].getWeight() / gcd;
+            totalWeight += weights[i];
+        }
+        if (totalWeight == members.length) {
+            return members;
+        }
+
+        // Each step adds the weight of every member to its current weight, selects the member with
+        // the highest current weight and subtracts the total weight from it
+        if (totalWeight > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Total member weight is too large: [members] %d " +
+                    "[total-weight] %d", members.length, totalWeight));
+        }
+        Member[] sequence = new Member[(int) totalWeight];
+        long[] currentWeights = new long[members.length];
+        for (int step = 0; step < totalWeight; step++) {
+            int selected = 0;
+            for (int i = 0; i < members.length; i++) {
+                currentWeights[i] += weights[i];
+                if (currentWeights[i] > currentWeights[selected]) {
+                    selected = i;
+                }
+            }
+            currentWeights[selected] -= totalWeight;
+            sequence[step] = members[selected];
+        }
+        return sequence;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int temp = b;
+            b = a % b;
+            a = temp;
+        }
+        return a;
+    }
+
+    @Override
+    public void reset(AlgorithmContext algorithmContext) {
+        algorithmContext.setCurrentMemberIndex(0);
+        algorithmContext.setAlgorithmState(null);
+        if (log.isDebugEnabled()) {
+            log.debug("Weighted round robin load balance algorithm was reset");
+        }
+    }
+
+    private static class WeightedSequence {
+        private final Member[] members;
+        private final Member[] sequence;
+
+        private WeightedSequence(Member[] members, Member[] sequence) {
+            this.members = members;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -35,6 +35,7 @@ import org.apache.stratos.load.balancer.conf.structure.Node;
 import org.apache.stratos.load.balancer.conf.structure.NodeBuilder;
 import org.apache.stratos.load.balancer.conf.util.Constants;
 import org.apache.stratos.load.balancer.context.LoadBalancerContext;
+import org.apache.stratos.load.balancer.endpoint.TenantResolver;
 import org.apache.stratos.load.balancer.exception.InvalidConfigurationException;
 
 import java.io.File;
@@ -64,6 +65,8 @@ public class LoadBalancerConfiguration {
     private boolean multiTenancyEnabled;
     private TenantIdentifier tenantIdentifier;
     private List<String> tenantIdentifierRegexList;
+    // Compiled tenant identification, rebuilt when the tenant identifier or its regex list changes
+    private volatile TenantResolver tenantResolver;
     private String topologyMemberFilter;
     private String networkPartitionId;
     private boolean reWriteLocationHeader;
@@ -232,6 +235,7 @@ public class LoadBalancerConfiguration {
 
     public void setTenantIdentifier(TenantIdentifier tenantIdentifier) {
         this.tenantIdentifier = tenantIdentifier;
+        updateTenantResolver();
     }
 
     public TenantIdentifier getTenantIdentifier() {
@@ -240,12 +244,28 @@ public class LoadBalancerConfiguration {
 
     public void setTenantIdentifierRegexList(List<String> tenantIdentifierRegexList) {
         this.tenantIdentifierRegexList = tenantIdentifierRegexList;
+        updateTenantResolver();
     }
 
     public List<String> getTenantIdentifierRegexList() {
         return tenantIdentifierRegexList;
     }
 
+    /**
+     * Returns the tenant resolver, null if the tenant identifier or its regex list is not set.
+     */
+    public TenantResolver getTenantResolver() {
+        return tenantResolver;
+    }
+
+    private void updateTenantResolver() {
+        if ((tenantIdentifier != null) && (tenantIdentifierRegexList != null)) {
+            tenantResolver = new TenantResolver(tenantIdentifier, tenantIdentifierRegexList);
+        } else {
+            tenantResolver = null;
+        }
+    }
+
     public void setNetworkPartitionId(String networkPartitionId) {
         this.networkPartitionId = networkPartitionId;
     }
@@ -510,6 +530,16 @@ public class LoadBalancerConfiguration {
                             validateRequiredPropertyInNode(Constants.CONF_PROPERTY_IP, ip, String.format("member %s", memberId));
                             Member member = new Member(cluster.getServiceName(), cluster.getClusterId(), memberId, ip);
 
+                            String weight = memberNode.getProperty(Constants.CONF_PROPERTY_WEIGHT);
+                            if (StringUtils.isNotBlank(weight)) {
+                                try {
+                                    member.setWeight(Integer.parseInt(weight.trim()));
+                                } catch (IllegalArgumentException e) {
+                                    throw new InvalidConfigurationException(String.format("Invalid %s value found in " +
+                                            "member %s: %s", Constants.CONF_PROPERTY_WEIGHT, memberId, weight));
+                                }
+                            }
+
                             Node portsNode = memberNode.findChildNodeByName(Constants.CONF_ELEMENT_PORTS);
                             validateRequiredNode(portsNode, Constants.CONF_ELEMENT_PORTS, String.format("member %s", memberId));
 
@@ -46,6 +46,7 @@ public class Constants {
     public static final String CONF_PROPERTY_IP = "ip";
     public static final String CONF_PROPERTY_VALUE = "value";
     public static final String CONF_PROPERTY_PROXY = "proxy";
+    public static final String CONF_PROPERTY_WEIGHT = "weight";
     public static final String CONF_PROPERTY_TOPOLOGY_SERVICE_FILTER = "topology-service-filter";
     public static final String CONF_PROPERTY_TOPOLOGY_CLUSTER_FILTER = "topology-cluster-filter";
     public static final String CONF_PROPERTY_TOPOLOGY_MEMBER_FILTER = "topology-member-filter";
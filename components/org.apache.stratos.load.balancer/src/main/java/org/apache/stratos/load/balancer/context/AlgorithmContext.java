@@ -19,43 +19,35 @@
 
 package org.apache.stratos.load.balancer.context;
 
-import org.apache.stratos.common.services.DistributedObjectProvider;
-import org.apache.stratos.load.balancer.internal.ServiceReferenceHolder;
+import org.apache.stratos.load.balancer.common.domain.Member;
 
-import java.util.Map;
-import java.util.concurrent.locks.Lock;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Algorithm context is used for identifying the cluster and its current member for executing load balancing algorithms.
- * Key: service name, cluster id
+ * The current member index is kept per load balancer instance and advanced atomically, hence load balancing
+ * algorithms do not need to lock while finding the next member.
  */
 public class AlgorithmContext {
 
-    private static final String LOAD_BALANCER_ALGORITHM_CONTEXT_MAP = "load.balancer.algorithm.context.map";
-    private static final String CURRENT_MEMBER_INDEX_MAP_LOCK = "current.member.index.map.lock";
-
     private String serviceName;
     private String clusterId;
-    private final Map<String, Integer> clusterMemberIndexMap;
-    private final DistributedObjectProvider distributedObjectProvider;
+    private final AtomicInteger currentMemberIndex;
+    // Map<MemberId, InFlightRequestCount>
+    private final ConcurrentMap<String, AtomicInteger> memberIdToInFlightRequestCountMap;
+    private volatile Member[] members;
+    // State derived from the member array by load balancing algorithms
+    private volatile Object algorithmState;
 
     public AlgorithmContext(String serviceName, String clusterId) {
         this.serviceName = serviceName;
         this.clusterId = clusterId;
-        // Initialize distributed object provider
-        distributedObjectProvider = ServiceReferenceHolder.getInstance().getDistributedObjectProvider();
-        // Initialize cluster->memberIndex map
-        clusterMemberIndexMap = distributedObjectProvider.getMap(LOAD_BALANCER_ALGORITHM_CONTEXT_MAP);
-
-        Lock lock = null;
-        try {
-            lock = acquireCurrentMemberIndexLock();
-            putCurrentMemberIndex(serviceName, clusterId, 0);
-        } finally {
-            if (lock != null) {
-                releaseCurrentMemberIndexLock(lock);
-            }
-        }
+        this.currentMemberIndex = new AtomicInteger();
+        this.memberIdToInFlightRequestCountMap = new ConcurrentHashMap<String, AtomicInteger>();
     }
 
     public String getServiceName() {
@@ -67,42 +59,80 @@ public class AlgorithmContext {
     }
 
     public int getCurrentMemberIndex() {
-        return getCurrentMemberIndex(getServiceName(), getClusterId());
+        return currentMemberIndex.get();
     }
 
     public void setCurrentMemberIndex(int currentMemberIndex) {
-        Lock lock = null;
-        try {
-            lock = acquireCurrentMemberIndexLock();
-            putCurrentMemberIndex(getServiceName(), getClusterId(), currentMemberIndex);
-        } finally {
-            if (lock != null) {
-                releaseCurrentMemberIndexLock(lock);
-            }
-        }
+        this.currentMemberIndex.set(currentMemberIndex);
+    }
+
+    /**
+     * Returns the current member index and advances it by one.
+     *
+     * @return current member index, never negative
+     */
+    public int getAndIncrementCurrentMemberIndex() {
+        // Wraps around to zero rather than going negative on overflow
+        return currentMemberIndex.getAndIncrement() & Integer.MAX_VALUE;
     }
 
-    private String constructKey(String serviceName, String clusterId) {
-        return String.format("%s-%s", serviceName, clusterId);
+    /**
+     * Returns the number of requests sent to the given member which have not yet been responded.
+     */
+    public int getInFlightRequestCount(String memberId) {
+        AtomicInteger count = memberIdToInFlightRequestCountMap.get(memberId);
+        return (count == null) ? 0 : count.get();
     }
 
-    private Lock acquireCurrentMemberIndexLock() {
-        return distributedObjectProvider.acquireLock(CURRENT_MEMBER_INDEX_MAP_LOCK);
+    public void incrementInFlightRequestCount(String memberId) {
+        AtomicInteger count = memberIdToInFlightRequestCountMap.get(memberId);
+        if (count == null) {
+            count = new AtomicInteger();
+            AtomicInteger existing = memberIdToInFlightRequestCountMap.putIfAbsent(memberId, count);
+            if (existing != null) {
+                count = existing;
+            }
+        }
+        count.incrementAndGet();
     }
 
-    private void releaseCurrentMemberIndexLock(Lock lock) {
-        if (lock != null) {
-            distributedObjectProvider.releaseLock(lock);
+    public void decrementInFlightRequestCount(String memberId) {
+        AtomicInteger count = memberIdToInFlightRequestCountMap.get(memberId);
+        if (count == null) {
+            return;
+        }
+        // Never go below zero, counts of removed members may have been recreated while requests were in flight
+        int current;
+        do {
+            current = count.get();
+            if (current == 0) {
+                return;
+            }
+        } while (!count.compareAndSet(current, current - 1));
+    }
+
+    /**
+     * Update the members of the cluster, in-flight request counts of members which are no longer
+     * in the cluster are removed. Member arrays are replaced on topology changes, hence an identity
+     * check is enough for finding out whether the members have changed.
+     */
+    public void updateMembers(Member[] members) {
+        if (members == this.members) {
+            return;
+        }
+        this.members = members;
+        Set<String> memberIds = new HashSet<String>();
+        for (Member member : members) {
+            memberIds.add(member.getMemberId());
         }
+        memberIdToInFlightRequestCountMap.keySet().retainAll(memberIds);
     }
 
-    public void putCurrentMemberIndex(String serviceName, String clusterId, int currentMemberIndex) {
-        String key = constructKey(serviceName, clusterId);
-        clusterMemberIndexMap.put(key, currentMemberIndex);
+    public Object getAlgorithmState() {
+        return algorithmState;
     }
 
-    public int getCurrentMemberIndex(String serviceName, String clusterId) {
-        String key = constructKey(serviceName, clusterId);
-        return clusterMemberIndexMap.get(key);
+    public void setAlgorithmState(Object algorithmState) {
+        this.algorithmState = algorithmState;
     }
 }
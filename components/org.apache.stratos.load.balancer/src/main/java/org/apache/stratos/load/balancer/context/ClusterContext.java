@@ -28,12 +28,13 @@ public class ClusterContext {
 
     private String serviceName;
     private String clusterId;
-    private AlgorithmContext algorithmContext;
+    private volatile AlgorithmContext algorithmContext;
     private Properties properties;
 
     public ClusterContext(String serviceName, String clusterId) {
         this.serviceName = serviceName;
         this.clusterId = clusterId;
+        this.algorithmContext = new AlgorithmContext(serviceName, clusterId);
     }
 
     public String getServiceName() {
@@ -25,6 +25,7 @@ import org.apache.commons.logging.LogFactory;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Defines load balancer context information.
@@ -36,7 +37,7 @@ public class LoadBalancerContext {
     private static volatile LoadBalancerContext instance;
 
     // Map<ClusterId, ClusterContext>
-    private Map<String, ClusterContext> clusterIdToClusterContextMap;
+    private ConcurrentMap<String, ClusterContext> clusterIdToClusterContextMap;
     // Map<Host/Domain-Name, DomainMappingContextPath>
     private Map<String, String> hostNameToDomainMappingContextPathMap;
 
@@ -73,6 +74,43 @@ public class LoadBalancerContext {
         return clusterIdToClusterContextMap.containsKey(clusterId);
     }
 
+    /**
+     * Returns the cluster context of the given cluster, a new context is added if one does not exist.
+     *
+     * @param serviceName service name of the cluster
+     * @param clusterId   cluster id
+     * @return cluster context
+     */
+    public ClusterContext getOrCreateClusterContext(String serviceName, String clusterId) {
+        ClusterContext clusterContext = clusterIdToClusterContextMap.get(clusterId);
+        if (clusterContext == null) {
+            clusterContext = new ClusterContext(serviceName, clusterId);
+            ClusterContext existing = clusterIdToClusterContextMap.putIfAbsent(clusterId, clusterContext);
+            if (existing != null) {
+                clusterContext = existing;
+            }
+        }
+        return clusterContext;
+    }
+
+    /**
+     * Increment the in-flight request count of a member, used by load balance algorithms which
+     * select members according to their in-flight requests.
+     */
+    public void incrementMemberInFlightRequestCount(String clusterId, String memberId) {
+        ClusterContext clusterContext = clusterIdToClusterContextMap.get(clusterId);
+        if (clusterContext != null) {
+            clusterContext.getAlgorithmContext().incrementInFlightRequestCount(memberId);
+        }
+    }
+
+    public void decrementMemberInFlightRequestCount(String clusterId, String memberId) {
+        ClusterContext clusterContext = clusterIdToClusterContextMap.get(clusterId);
+        if (clusterContext != null) {
+            clusterContext.getAlgorithmContext().decrementInFlightRequestCount(memberId);
+        }
+    }
+
     public void addClusterContext(ClusterContext clusterContext) {
         clusterIdToClusterContextMap.put(clusterContext.getClusterId(), clusterContext);
     }
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.load.balancer.context;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.endpoints.Endpoint;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Member endpoint cache keeps the synapse endpoints created for members, hence an endpoint is
+ * created and initialized once per member and port rather than for each request. Endpoints
+ * are keyed by the member address, the transport, host name and port of the member without the
+ * path of the request. Endpoints are destroyed once removed from the cache: when the member
+ * leaves the topology, when the cluster is removed or when a fault is detected.
+ */
+public class MemberEndpointCache {
+
+    private static final Log log = LogFactory.getLog(MemberEndpointCache.class);
+
+    private static volatile MemberEndpointCache instance;
+
+    // Map<ClusterId, Map<MemberId, Map<MemberAddress, Endpoint>>>
+    private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, Endpoint>>> clusterIdToMemberEndpointsMap;
+
+    private MemberEndpointCache() {
+        clusterIdToMemberEndpointsMap = new ConcurrentHashMap<String, ConcurrentMap<String, ConcurrentMap<String, Endpoint>>>();
+    }
+
+    public static MemberEndpointCache getInstance() {
+        if (instance == null) {
+            synchronized (MemberEndpointCache.class) {
+                if (instance == null) {
+                    instance = new MemberEndpointCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the member address of a request address, e.g. http://10.0.0.1:8080 for
+     * http://10.0.0.1:8080/app/index.html?id=1.
+     *
+     * @param address request address
+     * @return transport, host name and port of the address
+     */
+    public static String getMemberAddress(String address) {
+        try {
+            URL url = new URL(address);
+            int port = (url.getPort() != -1) ? url.getPort() : url.getDefaultPort();
+            return url.getProtocol() + "://" + url.getHost() + ":" + port;
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(String.format("URL is malformed: %s", address), e);
+        }
+    }
+
+    /**
+     * Find the cached endpoint of a member.
+     *
+     * @param clusterId     cluster id
+     * @param memberId      member id
+     * @param memberAddress transport, host name and port of the member
+     * @return endpoint, null if not cached
+     */
+    public Endpoint getEndpoint(String clusterId, String memberId, String memberAddress) {
+        ConcurrentMap<String, ConcurrentMap<String, Endpoint>> memberEndpointsMap =
+                clusterIdToMemberEndpointsMap.get(clusterId);
+        if (memberEndpointsMap == null) {
+            return null;
+        }
+        ConcurrentMap<String, Endpoint> endpointMap = memberEndpointsMap.get(memberId);
+        if (endpointMap == null) {
+            return null;
+        }
+        return endpointMap.get(memberAddress);
+    }
+
+    /**
+     * Add an endpoint of a member if an endpoint is not already cached for the member address.
+     * The given endpoint is destroyed if another endpoint is already cached.
+     *
+     * @param clusterId     cluster id
+     * @param memberId      member id
+     * @param memberAddress transport, host name and port of the member
+     * @param endpoint      initialized endpoint
+     * @return cached endpoint of the member address
+     */
+    public Endpoint addEndpoint(String clusterId, String memberId, String memberAddress, Endpoint endpoint) {
+        ConcurrentMap<String, ConcurrentMap<String, Endpoint>> memberEndpointsMap =
+                clusterIdToMemberEndpointsMap.get(clusterId);
+        if (memberEndpointsMap == null) {
+            ConcurrentMap<String, ConcurrentMap<String, Endpoint>> newMemberEndpointsMap =
+                    new ConcurrentHashMap<String, ConcurrentMap<String, Endpoint>>();
+            memberEndpointsMap = clusterIdToMemberEndpointsMap.putIfAbsent(clusterId, newMemberEndpointsMap);
+            if (memberEndpointsMap == null) {
+                memberEndpointsMap = newMemberEndpointsMap;
+            }
+        }
+        ConcurrentMap<String, Endpoint> endpointMap = memberEndpointsMap.get(memberId);
+        if (endpointMap == null) {
+            ConcurrentMap<String, Endpoint> newEndpointMap = new ConcurrentHashMap<String, Endpoint>();
+            endpointMap = memberEndpointsMap.putIfAbsent(memberId, newEndpointMap);
+            if (endpointMap == null) {
+                endpointMap = newEndpointMap;
+            }
+        }
+        Endpoint cachedEndpoint = endpointMap.putIfAbsent(memberAddress, endpoint);
+        if (cachedEndpoint != null) {
+            destroyEndpoint(endpoint);
+            return cachedEndpoint;
+        }
+        return endpoint;
+    }
+
+    /**
+     * Remove and destroy an endpoint of a member if it is still cached for the member address.
+     *
+     * @return true if the endpoint was removed
+     */
+    public boolean removeEndpoint(String clusterId, String memberId, String memberAddress, Endpoint endpoint) {
+        ConcurrentMap<String, ConcurrentMap<String, Endpoint>> memberEndpointsMap =
+                clusterIdToMemberEndpointsMap.get(clusterId);
+        if (memberEndpointsMap == null) {
+            return false;
+        }
+        ConcurrentMap<String, Endpoint> endpointMap = memberEndpointsMap.get(memberId);
+        if ((endpointMap != null) && endpointMap.remove(memberAddress, endpoint)) {
+            destroyEndpoint(endpoint);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove and destroy all endpoints of a member.
+     */
+    public void removeMember(String clusterId, String memberId) {
+        ConcurrentMap<String, ConcurrentMap<String, Endpoint>> memberEndpointsMap =
+                clusterIdToMemberEndpointsMap.get(clusterId);
+        if (memberEndpointsMap == null) {
+            return;
+        }
+        ConcurrentMap<String, Endpoint> endpointMap = memberEndpointsMap.remove(memberId);
+        if (endpointMap != null) {
+            destroyEndpoints(endpointMap);
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Member endpoints removed: [cluster] %s [member] %s", clusterId, memberId));
+            }
+        }
+    }
+
+    /**
+     * Remove and destroy all endpoints of the members of a cluster.
+     */
+    public void removeCluster(String clusterId) {
+        ConcurrentMap<String, ConcurrentMap<String, Endpoint>> memberEndpointsMap =
+                clusterIdToMemberEndpointsMap.remove(clusterId);
+        if (memberEndpointsMap != null) {
+            for (ConcurrentMap<String, Endpoint> endpointMap : memberEndpointsMap.values()) {
+                destroyEndpoints(endpointMap);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Cluster endpoints removed: [cluster] %s", clusterId));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cached endpoints of a member.
+     */
+    public int getEndpointCount(String clusterId, String memberId) {
+        ConcurrentMap<String, ConcurrentMap<String, Endpoint>> memberEndpointsMap =
+                clusterIdToMemberEndpointsMap.get(clusterId);
+        if (memberEndpointsMap == null) {
+            return 0;
+        }
+        ConcurrentMap<String, Endpoint> endpointMap = memberEndpointsMap.get(memberId);
+        return (endpointMap != null) ? endpointMap.size() : 0;
+    }
+
+    private void destroyEndpoints(Map<String, Endpoint> endpointMap) {
+        for (Endpoint endpoint : endpointMap.values()) {
+            destroyEndpoint(endpoint);
+        }
+    }
+
+    private void destroyEndpoint(Endpoint endpoint) {
+        try {
+            endpoint.destroy();
+        } catch (Exception e) {
+            log.warn(String.format("Could not destroy endpoint: [endpoint] %s", endpoint.getName()), e);
+        }
+    }
+}
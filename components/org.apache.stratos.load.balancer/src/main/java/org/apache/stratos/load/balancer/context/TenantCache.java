@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.load.balancer.context;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.tenant.Tenant;
+import org.apache.stratos.messaging.message.receiver.tenant.TenantManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tenant cache keeps tenant ids of tenant domains and tenant ids found in request URLs, hence the
+ * tenant manager lock is only taken the first time a tenant is looked up. The cache is invalidated
+ * by tenant events after the tenant manager has been updated.
+ */
+public class TenantCache {
+
+    private static final Log log = LogFactory.getLog(TenantCache.class);
+
+    // Limit of cached lookups, unknown tenant domains found in URLs are not cached beyond this limit
+    private static final int MAX_CACHE_SIZE = 10000;
+
+    private static volatile TenantCache instance;
+
+    private volatile CacheEntries cacheEntries;
+
+    private TenantCache() {
+        cacheEntries = new CacheEntries();
+    }
+
+    public static TenantCache getInstance() {
+        if (instance == null) {
+            synchronized (TenantCache.class) {
+                if (instance == null) {
+                    instance = new TenantCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Find tenant id of a tenant domain.
+     *
+     * @param tenantDomain tenant domain
+     * @return tenant id, -1 if the tenant is not found
+     */
+    public int getTenantId(String tenantDomain) {
+        // Entries are read before the tenant manager, a lookup which overlaps with an invalidation
+        // is added to the discarded entries
+        CacheEntries entries = cacheEntries;
+        Integer tenantId = entries.tenantDomainToTenantIdMap.get(tenantDomain);
+        if (tenantId != null) {
+            return tenantId;
+        }
+        try {
+            TenantManager.acquireReadLock();
+            Tenant tenant = TenantManager.getInstance().getTenant(tenantDomain);
+            tenantId = (tenant != null) ? tenant.getTenantId() : -1;
+        } finally {
+            TenantManager.releaseReadLock();
+        }
+        if ((tenantId != -1) || (entries.tenantDomainToTenantIdMap.size() < MAX_CACHE_SIZE)) {
+            entries.tenantDomainToTenantIdMap.put(tenantDomain, tenantId);
+        }
+        return tenantId;
+    }
+
+    /**
+     * Check whether a tenant exists.
+     */
+    public boolean tenantExists(int tenantId) {
+        CacheEntries entries = cacheEntries;
+        Boolean exists = entries.tenantIdToExistsMap.get(tenantId);
+        if (exists != null) {
+            return exists;
+        }
+        try {
+            TenantManager.acquireReadLock();
+            exists = TenantManager.getInstance().tenantExists(tenantId);
+        } finally {
+            TenantManager.releaseReadLock();
+        }
+        if (exists || (entries.tenantIdToExistsMap.size() < MAX_CACHE_SIZE)) {
+            entries.tenantIdToExistsMap.put(tenantId, exists);
+        }
+        return exists;
+    }
+
+    /**
+     * Discard all cached lookups.
+     */
+    public void invalidate() {
+        cacheEntries = new CacheEntries();
+        if (log.isDebugEnabled()) {
+            log.debug("Tenant cache invalidated");
+        }
+    }
+
+    private static class CacheEntries {
+        // Map<TenantDomain, TenantId>
+        private final ConcurrentMap<String, Integer> tenantDomainToTenantIdMap =
+                new ConcurrentHashMap<String, Integer>();
+        // Map<TenantId, Exists>
+        private final ConcurrentMap<Integer, Boolean> tenantIdToExistsMap =
+                new ConcurrentHashMap<Integer, Boolean>();
+    }
+}
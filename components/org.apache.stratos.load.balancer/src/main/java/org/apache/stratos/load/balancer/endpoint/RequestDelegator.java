@@ -19,18 +19,22 @@
 
 package org.apache.stratos.load.balancer.endpoint;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.load.balancer.algorithm.LoadBalanceAlgorithm;
+import org.apache.stratos.load.balancer.algorithm.LoadBalanceAlgorithmFactory;
 import org.apache.stratos.load.balancer.common.domain.Cluster;
 import org.apache.stratos.load.balancer.common.domain.Member;
 import org.apache.stratos.load.balancer.common.topology.TopologyProvider;
 import org.apache.stratos.load.balancer.conf.LoadBalancerConfiguration;
+import org.apache.stratos.load.balancer.conf.domain.Algorithm;
 import org.apache.stratos.load.balancer.context.AlgorithmContext;
 import org.apache.stratos.load.balancer.context.ClusterContext;
 import org.apache.stratos.load.balancer.context.LoadBalancerContext;
 
-import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implements core load balancing logic for identifying the next member
@@ -41,9 +45,12 @@ public class RequestDelegator {
     private static final Log log = LogFactory.getLog(RequestDelegator.class);
 
     private LoadBalanceAlgorithm algorithm;
+    // Map<AlgorithmName, LoadBalanceAlgorithm>
+    private ConcurrentMap<String, LoadBalanceAlgorithm> algorithmNameToAlgorithmMap;
 
     public RequestDelegator(LoadBalanceAlgorithm algorithm) {
         this.algorithm = algorithm;
+        this.algorithmNameToAlgorithmMap = new ConcurrentHashMap<String, LoadBalanceAlgorithm>();
     }
 
     /**
@@ -116,25 +123,18 @@ public class RequestDelegator {
     /**
      * Find next member in the cluster by applying a load balancing algorithm.
      * <p/>
-     * This operation should be synchronized in order to find a member
-     * correctly. This has no performance impact as per the load tests
-     * carried out.
+     * Members are read from the member array of the cluster which is only rebuilt on topology
+     * changes and the algorithm of the cluster keeps the state of the cluster in its algorithm
+     * context, hence no locking is needed.
      */
-    private synchronized Member findNextMemberInCluster(Cluster cluster) {
+    private Member findNextMemberInCluster(Cluster cluster) {
         // Find algorithm context of the cluster
-        ClusterContext clusterContext = LoadBalancerContext.getInstance().getClusterContext(cluster.getClusterId());
-        if (clusterContext == null) {
-            clusterContext = new ClusterContext(cluster.getServiceName(), cluster.getClusterId());
-            LoadBalancerContext.getInstance().addClusterContext(clusterContext);
-        }
-
+        ClusterContext clusterContext = LoadBalancerContext.getInstance().getOrCreateClusterContext(
+                cluster.getServiceName(), cluster.getClusterId());
         AlgorithmContext algorithmContext = clusterContext.getAlgorithmContext();
-        if (algorithmContext == null) {
-            algorithmContext = new AlgorithmContext(cluster.getServiceName(), cluster.getClusterId());
-            clusterContext.setAlgorithmContext(algorithmContext);
-        }
-        algorithm.setMembers(new ArrayList<Member>(cluster.getMembers()));
-        Member member = algorithm.getNextMember(algorithmContext);
+        Member[] members = cluster.getMemberArray();
+        algorithmContext.updateMembers(members);
+        Member member = findAlgorithm(cluster).getNextMember(members, algorithmContext);
         if (member == null) {
             if (log.isWarnEnabled()) {
                 log.warn(String.format("Could not find a member in cluster: [service] %s [cluster] %s",
@@ -144,6 +144,47 @@ public class RequestDelegator {
         return member;
     }
 
+    /**
+     * Find the load balance algorithm of the cluster, algorithms keep their state in algorithm contexts
+     * hence one instance of each algorithm is shared by all clusters. The default algorithm is used if
+     * the cluster does not define an algorithm or its algorithm is not found in the configuration.
+     */
+    private LoadBalanceAlgorithm findAlgorithm(Cluster cluster) {
+        String algorithmName = cluster.getLoadBalanceAlgorithmName();
+        if (StringUtils.isBlank(algorithmName)) {
+            return algorithm;
+        }
+        LoadBalanceAlgorithm clusterAlgorithm = algorithmNameToAlgorithmMap.get(algorithmName);
+        if (clusterAlgorithm == null) {
+            clusterAlgorithm = createAlgorithm(algorithmName);
+            LoadBalanceAlgorithm existing = algorithmNameToAlgorithmMap.putIfAbsent(algorithmName, clusterAlgorithm);
+            if (existing != null) {
+                clusterAlgorithm = existing;
+            }
+        }
+        return clusterAlgorithm;
+    }
+
+    private LoadBalanceAlgorithm createAlgorithm(String algorithmName) {
+        Algorithm algorithmDefinition = LoadBalancerConfiguration.getInstance().getAlgorithm(algorithmName);
+        LoadBalanceAlgorithm clusterAlgorithm = null;
+        if (algorithmDefinition != null) {
+            clusterAlgorithm = LoadBalanceAlgorithmFactory.createAlgorithm(algorithmDefinition.getClassName());
+        }
+        if (clusterAlgorithm == null) {
+            if (log.isWarnEnabled()) {
+                log.warn(String.format("Load balance algorithm not found, using the default algorithm: " +
+                        "[algorithm] %s [default-algorithm] %s", algorithmName, algorithm.getName()));
+            }
+            return algorithm;
+        }
+        if (log.isInfoEnabled()) {
+            log.info(String.format("Load balance algorithm created: [algorithm] %s [class] %s", algorithmName,
+                    algorithmDefinition.getClassName()));
+        }
+        return clusterAlgorithm;
+    }
+
     public boolean isTargetHostValid(String hostName) {
         if (hostName == null)
             return false;
@@ -29,20 +29,16 @@ import org.apache.stratos.load.balancer.common.domain.Cluster;
 import org.apache.stratos.load.balancer.common.domain.Member;
 import org.apache.stratos.load.balancer.common.domain.Port;
 import org.apache.stratos.load.balancer.conf.LoadBalancerConfiguration;
-import org.apache.stratos.load.balancer.conf.domain.TenantIdentifier;
 import org.apache.stratos.load.balancer.context.LoadBalancerContext;
-import org.apache.stratos.load.balancer.statistics.InFlightRequestDecrementCallable;
-import org.apache.stratos.load.balancer.statistics.InFlightRequestIncrementCallable;
-import org.apache.stratos.load.balancer.statistics.LoadBalancerStatisticsExecutor;
+import org.apache.stratos.load.balancer.context.MemberEndpointCache;
+import org.apache.stratos.load.balancer.statistics.LoadBalancerStatisticsCollector;
 import org.apache.stratos.load.balancer.util.LoadBalancerConstants;
-import org.apache.stratos.messaging.domain.tenant.Tenant;
-import org.apache.stratos.messaging.message.receiver.tenant.TenantManager;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseException;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
-import org.apache.synapse.endpoints.AddressEndpoint;
+import org.apache.synapse.endpoints.DefaultEndpoint;
 import org.apache.synapse.endpoints.DynamicLoadbalanceFaultHandler;
 import org.apache.synapse.endpoints.Endpoint;
 import org.apache.synapse.endpoints.EndpointDefinition;
@@ -54,7 +50,6 @@ import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
-import java.util.concurrent.FutureTask;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -239,12 +234,13 @@ public class TenantAwareLoadBalanceEndpoint extends org.apache.synapse.endpoints
                 log.debug("Multi-tenancy enabled, scanning URL for tenant...");
             }
             String url = extractUrl(synCtx);
-            int tenantId = scanUrlForTenantId(url);
+            TenantResolver tenantResolver = LoadBalancerConfiguration.getInstance().getTenantResolver();
+            int tenantId = tenantResolver.findTenantId(url);
 
             if (tenantId == -1) {
                 // If there is no tenant involves in the URL, Find next member from host name
                 member = requestDelegator.findNextMemberFromHostName(targetHost, synCtx.getMessageID());
-            } else if (tenantExists(tenantId)) {
+            } else if (tenantResolver.tenantExists(tenantId)) {
                 // Tenant found, find member from hostname and tenant id
                 member = requestDelegator.findNextMemberFromTenantId(targetHost, tenantId);
             } else {
@@ -429,85 +425,6 @@ public class TenantAwareLoadBalanceEndpoint extends org.apache.synapse.endpoints
         return (String) axis2MessageCtx.getProperty(LoadBalancerConstants.AXIS2_MSG_CTX_TRANSPORT_IN_URL);
     }
 
-    /**
-     * Scan given URL for tenant id.
-     *
-     * @param url
-     * @return
-     */
-    private int scanUrlForTenantId(String url) {
-        int tenantId = -1;
-        List<String> regexList = LoadBalancerConfiguration.getInstance().getTenantIdentifierRegexList();
-        for (String regex : regexList) {
-            if (log.isDebugEnabled()) {
-                log.debug(String.format("Request URL: %s ", url));
-                log.debug(String.format("Tenant identifier regex: %s ", regex));
-            }
-            Pattern pattern = Pattern.compile(regex);
-            Matcher matcher = pattern.matcher(url);
-            if (matcher.find()) {
-                if (LoadBalancerConfiguration.getInstance().getTenantIdentifier() == TenantIdentifier.TenantId) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Identifying tenant using tenant id...");
-                    }
-                    tenantId = Integer.parseInt(matcher.group(1));
-                    if (log.isDebugEnabled()) {
-                        log.debug(String.format("Tenant identifier found: [tenant-id] %d", tenantId));
-                    }
-                } else if (LoadBalancerConfiguration.getInstance().getTenantIdentifier() == TenantIdentifier.TenantDomain) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Identifying tenant using tenant domain...");
-                    }
-                    String tenantDomain = matcher.group(1);
-                    tenantId = findTenantIdFromTenantDomain(tenantDomain);
-                    if (log.isDebugEnabled()) {
-                        log.debug(String.format("Tenant identifier found: [tenant-domain] %s [tenant-id] %d", tenantDomain, tenantId));
-                    }
-                }
-                break;
-            } else {
-                if (log.isDebugEnabled()) {
-                    log.debug("Tenant identifier not found in URL");
-                }
-            }
-        }
-        return tenantId;
-    }
-
-    /**
-     * Check tenant exists.
-     *
-     * @param tenantId
-     * @return
-     */
-    private boolean tenantExists(int tenantId) {
-        try {
-            TenantManager.acquireReadLock();
-            return TenantManager.getInstance().tenantExists(tenantId);
-        } finally {
-            TenantManager.releaseReadLock();
-        }
-    }
-
-    /**
-     * Find tenant id from tenant domain.
-     *
-     * @param tenantDomain
-     * @return
-     */
-    private int findTenantIdFromTenantDomain(String tenantDomain) {
-        try {
-            TenantManager.acquireReadLock();
-            Tenant tenant = TenantManager.getInstance().getTenant(tenantDomain);
-            if (tenant != null) {
-                return tenant.getTenantId();
-            }
-            return -1;
-        } finally {
-            TenantManager.releaseReadLock();
-        }
-    }
-
     /**
      * Extract target host from incoming request.
      *
@@ -539,22 +456,63 @@ public class TenantAwareLoadBalanceEndpoint extends org.apache.synapse.endpoints
     }
 
     /**
+     * Find the cached endpoint of the member for the transport and port of the address, an
+     * endpoint is created and cached if not found.
+     *
      * @param to     get an endpoint to send the information
      * @param member The member to which an EP has to be created
      * @param synCtx synapse context
-     * @return the created endpoint
+     * @return the endpoint
      */
     private Endpoint getEndpoint(EndpointReference to, org.apache.axis2.clustering.Member member, MessageContext synCtx) {
-        AddressEndpoint endpoint = new AddressEndpoint();
+        String clusterId = member.getProperties().getProperty(LoadBalancerConstants.CLUSTER_ID);
+        String memberId = member.getProperties().getProperty(LoadBalancerConstants.MEMBER_ID);
+        String memberAddress = MemberEndpointCache.getMemberAddress(to.getAddress());
+        if (StringUtils.isBlank(clusterId) || StringUtils.isBlank(memberId)) {
+            return createEndpoint(memberAddress, synCtx);
+        }
+
+        MemberEndpointCache endpointCache = MemberEndpointCache.getInstance();
+        Endpoint endpoint = endpointCache.getEndpoint(clusterId, memberId, memberAddress);
+        if (endpoint == null) {
+            endpoint = endpointCache.addEndpoint(clusterId, memberId, memberAddress,
+                    createEndpoint(memberAddress, synCtx));
+        }
+        return endpoint;
+    }
+
+    /**
+     * Remove the endpoint of the member from the endpoint cache, the endpoint is destroyed by
+     * the request which removes it. Endpoints not cached are destroyed right away.
+     */
+    private void removeEndpoint(EndpointReference to, org.apache.axis2.clustering.Member member, Endpoint endpoint) {
+        String clusterId = member.getProperties().getProperty(LoadBalancerConstants.CLUSTER_ID);
+        String memberId = member.getProperties().getProperty(LoadBalancerConstants.MEMBER_ID);
+        if (StringUtils.isBlank(clusterId) || StringUtils.isBlank(memberId)) {
+            endpoint.destroy();
+            return;
+        }
+        MemberEndpointCache.getInstance().removeEndpoint(clusterId, memberId,
+                MemberEndpointCache.getMemberAddress(to.getAddress()), endpoint);
+    }
+
+    /**
+     * Create an endpoint for a member. The endpoint does not have an address, messages are sent
+     * to the rewritten address of each request which carries the path and the query.
+     *
+     * @param memberAddress transport, host name and port of the member
+     * @param synCtx        synapse context
+     * @return the created endpoint
+     */
+    private Endpoint createEndpoint(String memberAddress, MessageContext synCtx) {
+        DefaultEndpoint endpoint = new DefaultEndpoint();
         endpoint.setEnableMBeanStats(false);
-        endpoint.setName("DLB:" + member.getHostName() +
-                ":" + member.getPort() + ":" + UUID.randomUUID());
+        endpoint.setName("DLB:" + memberAddress + ":" + UUID.randomUUID());
 
         EndpointDefinition definition = new EndpointDefinition();
         definition.setTimeoutAction(SynapseConstants.DISCARD_AND_FAULT);
         definition.setTimeoutDuration(LoadBalancerConfiguration.getInstance().getEndpointTimeout());
         definition.setReplicationDisabled(true);
-        definition.setAddress(to.getAddress());
 
         endpoint.setDefinition(definition);
         endpoint.init((SynapseEnvironment)
@@ -672,7 +630,7 @@ public class TenantAwareLoadBalanceEndpoint extends org.apache.synapse.endpoints
                 ((Axis2MessageContext) synCtx).getAxis2MessageContext();
 
         //Removing the REST_URL_POSTFIX - this is a hack.
-        //In this load balance endpoint we create an endpoint per request by setting the complete url as the address.
+        //In this load balance endpoint the endpoint of a member does not have an address, the complete url is set as the To address.
         //If a REST message comes Axis2FlexibleMEPClient append the REST_URL_POSTFIX to the address. Hence endpoint fails
         //do send the request. e.g.  http://localhost:8080/example/index.html/example/index.html
         axis2MsgCtx.removeProperty(NhttpConstants.REST_URL_POSTFIX);
@@ -717,11 +675,12 @@ public class TenantAwareLoadBalanceEndpoint extends org.apache.synapse.endpoints
             if (log.isDebugEnabled()) {
                 log.debug(String.format("Sending request %s to endpoint: %s", synCtx.getMessageID(), to.getAddress()));
             }
+            // Increment in-flight request count before sending, the response may be received
+            // before the send method returns
+            incrementInFlightRequestCount(synCtx, currentMember);
             endpoint.send(synCtx);
-
-            // Increment in-flight request count
-            incrementInFlightRequestCount(synCtx);
         } catch (Exception e) {
+            decrementInFlightRequestCount(synCtx);
             if (e.getMessage().toLowerCase().contains("io reactor shutdown")) {
                 log.fatal("System cannot continue normal operation. Restarting", e);
                 System.exit(121); // restart
@@ -731,33 +690,36 @@ public class TenantAwareLoadBalanceEndpoint extends org.apache.synapse.endpoints
         }
     }
 
-    private void incrementInFlightRequestCount(MessageContext messageContext) {
-        try {
-            String clusterId = (String) messageContext.getProperty(LoadBalancerConstants.CLUSTER_ID);
-            if (StringUtils.isBlank(clusterId)) {
-                throw new RuntimeException("Cluster id not found in message context");
-            }
-            FutureTask<Object> task = new FutureTask<Object>(new InFlightRequestIncrementCallable(clusterId));
-            LoadBalancerStatisticsExecutor.getInstance().getService().submit(task);
-        } catch (Exception e) {
+    /**
+     * Increment in-flight request counts of the cluster and the member, statistics and algorithm
+     * contexts are updated in the request thread without locking.
+     */
+    private void incrementInFlightRequestCount(MessageContext messageContext,
+                                               org.apache.axis2.clustering.Member axis2Member) {
+        String clusterId = axis2Member.getProperties().getProperty(LoadBalancerConstants.CLUSTER_ID);
+        String memberId = axis2Member.getProperties().getProperty(LoadBalancerConstants.MEMBER_ID);
+        if (StringUtils.isBlank(clusterId) || StringUtils.isBlank(memberId)) {
             if (log.isDebugEnabled()) {
-                log.debug("Could not increment in-flight request count", e);
+                log.debug("Could not increment in-flight request count: cluster id or member id not found");
             }
+            return;
         }
+        LoadBalancerStatisticsCollector.getInstance().incrementInFlightRequestCount(clusterId);
+        LoadBalancerContext.getInstance().incrementMemberInFlightRequestCount(clusterId, memberId);
+        // Keep the member id in the message context for decrementing the counts once
+        messageContext.setProperty(LoadBalancerConstants.LB_IN_FLIGHT_MEMBER_ID, memberId);
     }
 
     private void decrementInFlightRequestCount(MessageContext messageContext) {
-        try {
-            String clusterId = (String) messageContext.getProperty(LoadBalancerConstants.CLUSTER_ID);
-            if (StringUtils.isBlank(clusterId)) {
-                throw new RuntimeException("Cluster id not found in message context");
-            }
-            FutureTask<Object> task = new FutureTask<Object>(new InFlightRequestDecrementCallable(clusterId));
-            LoadBalancerStatisticsExecutor.getInstance().getService().submit(task);
-        } catch (Exception e) {
-            if (log.isDebugEnabled()) {
-                log.debug("Could not decrement in-flight request count", e);
-            }
+        String memberId = (String) messageContext.getProperty(LoadBalancerConstants.LB_IN_FLIGHT_MEMBER_ID);
+        if (memberId == null) {
+            return;
+        }
+        messageContext.getPropertyKeySet().remove(LoadBalancerConstants.LB_IN_FLIGHT_MEMBER_ID);
+        String clusterId = (String) messageContext.getProperty(LoadBalancerConstants.CLUSTER_ID);
+        if (StringUtils.isNotBlank(clusterId)) {
+            LoadBalancerStatisticsCollector.getInstance().decrementInFlightRequestCount(clusterId);
+            LoadBalancerContext.getInstance().decrementMemberInFlightRequestCount(clusterId, memberId);
         }
     }
 
@@ -827,15 +789,16 @@ public class TenantAwareLoadBalanceEndpoint extends org.apache.synapse.endpoints
             // Decrement in-flight request count
             decrementInFlightRequestCount(synCtx);
 
+            // Remove and destroy the endpoint, the endpoint state may have been changed by the fault
+            if ((currentEp != null) && (currentMember != null) && (to != null)) {
+                removeEndpoint(to, currentMember, currentEp);
+            }
+
             if (isFailover()) {
                 if (log.isDebugEnabled()) {
                     log.debug("Fail-over enabled, trying to send the message to the next available member");
                 }
 
-                // Cleanup endpoint if exists
-                if (currentEp != null) {
-                    currentEp.destroy();
-                }
                 if (currentMember == null) {
                     if (log.isErrorEnabled()) {
                         log.error("Current member is null, could not fail-over");
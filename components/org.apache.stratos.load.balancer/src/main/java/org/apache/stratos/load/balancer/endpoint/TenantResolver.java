@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.load.balancer.endpoint;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.load.balancer.conf.domain.TenantIdentifier;
+import org.apache.stratos.load.balancer.context.TenantCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tenant resolver identifies the tenant of a request URL. Tenant identifier regular expressions are
+ * compiled once when the load balancer configuration is loaded or changed, tenant domains and tenant
+ * ids are resolved using the tenant cache.
+ */
+public class TenantResolver {
+
+    private static final Log log = LogFactory.getLog(TenantResolver.class);
+
+    private final TenantIdentifier tenantIdentifier;
+    private final List<Pattern> tenantIdentifierPatterns;
+
+    public TenantResolver(TenantIdentifier tenantIdentifier, List<String> tenantIdentifierRegexList) {
+        this.tenantIdentifier = tenantIdentifier;
+        List<Pattern> patterns = new ArrayList<Pattern>(tenantIdentifierRegexList.size());
+        for (String regex : tenantIdentifierRegexList) {
+            patterns.add(Pattern.compile(regex));
+        }
+        this.tenantIdentifierPatterns = Collections.unmodifiableList(patterns);
+    }
+
+    public TenantIdentifier getTenantIdentifier() {
+        return tenantIdentifier;
+    }
+
+    public List<Pattern> getTenantIdentifierPatterns() {
+        return tenantIdentifierPatterns;
+    }
+
+    /**
+     * Scan given URL for tenant id.
+     *
+     * @param url request URL
+     * @return tenant id, -1 if the URL does not identify a tenant or the tenant domain is not found
+     */
+    public int findTenantId(String url) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Request URL: %s ", url));
+        }
+        for (Pattern pattern : tenantIdentifierPatterns) {
+            Matcher matcher = pattern.matcher(url);
+            if (matcher.find()) {
+                int tenantId = -1;
+                if (tenantIdentifier == TenantIdentifier.TenantId) {
+                    tenantId = Integer.parseInt(matcher.group(1));
+                    if (log.isDebugEnabled()) {
+                        log.debug(String.format("Tenant identifier found: [tenant-id] %d", tenantId));
+                    }
+                } else if (tenantIdentifier == TenantIdentifier.TenantDomain) {
+                    String tenantDomain = matcher.group(1);
+                    tenantId = TenantCache.getInstance().getTenantId(tenantDomain);
+                    if (log.isDebugEnabled()) {
+                        log.debug(String.format("Tenant identifier found: [tenant-domain] %s [tenant-id] %d",
+                                tenantDomain, tenantId));
+                    }
+                }
+                return tenantId;
+            } else if (log.isDebugEnabled()) {
+                log.debug(String.format("Tenant identifier not found in URL: [regex] %s", pattern.pattern()));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check tenant exists.
+     */
+    public boolean tenantExists(int tenantId) {
+        return TenantCache.getInstance().tenantExists(tenantId);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.load.balancer.event.receivers;
+
+import org.apache.stratos.load.balancer.context.TenantCache;
+import org.apache.stratos.messaging.event.Event;
+import org.apache.stratos.messaging.listener.tenant.CompleteTenantEventListener;
+import org.apache.stratos.messaging.listener.tenant.TenantCreatedEventListener;
+import org.apache.stratos.messaging.listener.tenant.TenantRemovedEventListener;
+import org.apache.stratos.messaging.listener.tenant.TenantUpdatedEventListener;
+import org.apache.stratos.messaging.message.receiver.tenant.TenantEventReceiver;
+
+/**
+ * Load balancer tenant event receiver invalidates the tenant cache once the tenant manager has been
+ * updated by tenant events.
+ */
+public class LoadBalancerTenantEventReceiver extends TenantEventReceiver {
+
+    public LoadBalancerTenantEventReceiver() {
+        addEventListeners();
+    }
+
+    private void addEventListeners() {
+        addEventListener(new CompleteTenantEventListener() {
+            @Override
+            protected void onEvent(Event event) {
+                TenantCache.getInstance().invalidate();
+            }
+        });
+        addEventListener(new TenantCreatedEventListener() {
+            @Override
+            protected void onEvent(Event event) {
+                TenantCache.getInstance().invalidate();
+            }
+        });
+        addEventListener(new TenantUpdatedEventListener() {
+            @Override
+            protected void onEvent(Event event) {
+                TenantCache.getInstance().invalidate();
+            }
+        });
+        addEventListener(new TenantRemovedEventListener() {
+            @Override
+            protected void onEvent(Event event) {
+                TenantCache.getInstance().invalidate();
+            }
+        });
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.stratos.load.balancer.event.receivers;
 import org.apache.stratos.load.balancer.common.event.receivers.LoadBalancerCommonTopologyEventReceiver;
 import org.apache.stratos.load.balancer.common.topology.TopologyProvider;
 import org.apache.stratos.load.balancer.context.LoadBalancerContext;
+import org.apache.stratos.load.balancer.context.MemberEndpointCache;
 import org.apache.stratos.messaging.domain.topology.Cluster;
 
 /**
@@ -39,5 +40,16 @@ public class LoadBalancerTopologyEventReceiver extends LoadBalancerCommonTopolog
 
         // Remove cluster context
         LoadBalancerContext.getInstance().removeClusterContext(cluster.getClusterId());
+
+        // Remove cached endpoints of cluster members
+        MemberEndpointCache.getInstance().removeCluster(cluster.getClusterId());
+    }
+
+    @Override
+    protected void removeMember(String serviceName, String clusterId, String memberId) {
+        super.removeMember(serviceName, clusterId, memberId);
+
+        // Remove cached endpoints of member
+        MemberEndpointCache.getInstance().removeMember(clusterId, memberId);
     }
 }
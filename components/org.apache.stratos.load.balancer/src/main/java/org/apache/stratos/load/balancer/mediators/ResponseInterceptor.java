@@ -19,18 +19,17 @@
 package org.apache.stratos.load.balancer.mediators;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.stratos.load.balancer.statistics.InFlightRequestDecrementCallable;
-import org.apache.stratos.load.balancer.statistics.LoadBalancerStatisticsExecutor;
+import org.apache.stratos.load.balancer.context.LoadBalancerContext;
+import org.apache.stratos.load.balancer.statistics.LoadBalancerStatisticsCollector;
 import org.apache.stratos.load.balancer.util.LoadBalancerConstants;
 import org.apache.synapse.ManagedLifecycle;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.mediators.AbstractMediator;
 
-import java.util.concurrent.FutureTask;
-
 /**
- * This Synapse mediator counts the responses that are going across LB.
+ * This Synapse mediator counts the responses that are going across LB and decrements the
+ * in-flight request counts of clusters and members.
  */
 public class ResponseInterceptor extends AbstractMediator implements ManagedLifecycle {
 
@@ -46,16 +45,19 @@ public class ResponseInterceptor extends AbstractMediator implements ManagedLife
             if (log.isDebugEnabled()) {
                 log.debug("Response interceptor mediation started");
             }
+            // The member id is removed from the message context for decrementing the counts only once
             String clusterId = (String) messageContext.getProperty(LoadBalancerConstants.CLUSTER_ID);
-            if (StringUtils.isNotBlank(clusterId)) {
-                FutureTask<Object> task = new FutureTask<Object>(new InFlightRequestDecrementCallable(clusterId));
-                LoadBalancerStatisticsExecutor.getInstance().getService().submit(task);
+            String memberId = (String) messageContext.getProperty(LoadBalancerConstants.LB_IN_FLIGHT_MEMBER_ID);
+            if (StringUtils.isNotBlank(clusterId) && (memberId != null)) {
+                messageContext.getPropertyKeySet().remove(LoadBalancerConstants.LB_IN_FLIGHT_MEMBER_ID);
+                LoadBalancerStatisticsCollector.getInstance().decrementInFlightRequestCount(clusterId);
+                LoadBalancerContext.getInstance().decrementMemberInFlightRequestCount(clusterId, memberId);
             } else {
                 if (log.isDebugEnabled()) {
-                    log.debug("Could not decrement in-flight request count : cluster id not found in message context");
+                    log.debug("Could not decrement in-flight request count : cluster id or member id not found in " +
+                            "message context");
                 }
             }
-
         } catch (Exception e) {
             if (log.isErrorEnabled()) {
                 log.error("Could not decrement in-flight request count", e);
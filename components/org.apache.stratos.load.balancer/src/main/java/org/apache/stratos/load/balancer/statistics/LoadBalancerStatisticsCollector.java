@@ -7,7 +7,7 @@
  * "License"); you may not use this file except in compliance
  * with the License.  You may obtain a copy of the License at
  *
- *  http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.apache.org/licenses/LICENSE-2.0
  *
  * Unless required by applicable law or agreed to in writing,
  * software distributed under the License is distributed on an
@@ -16,6 +16,7 @@
  * specific language governing permissions and limitations
  * under the License.
  */
+
 package org.apache.stratos.load.balancer.statistics;
 
 import org.apache.commons.lang.StringUtils;
@@ -25,24 +26,25 @@ import org.apache.stratos.common.constants.StratosConstants;
 import org.apache.stratos.load.balancer.common.domain.Cluster;
 import org.apache.stratos.load.balancer.common.statistics.LoadBalancerStatisticsReader;
 
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * This is the load balancer statistics collector.
+ * This is the load balancer statistics collector. In-flight and served request counts of clusters
+ * are kept in striped counters which are updated by request threads without locking, served
+ * request counts are reset when they are read. In-flight request counts of members are kept by
+ * the algorithm contexts of the clusters.
  */
 public class LoadBalancerStatisticsCollector implements LoadBalancerStatisticsReader {
     private static final Log log = LogFactory.getLog(LoadBalancerStatisticsCollector.class);
 
     private static volatile LoadBalancerStatisticsCollector instance;
-    // Map<ClusterId, Integer>
-    private Map<String, Integer> clusterIdRequestCountMap;
-    private Map<String, Integer> clusterIdServedRequestCountMap;
+    // Map<ClusterId, RequestCounters>
+    private ConcurrentMap<String, RequestCounters> clusterIdToRequestCountersMap;
     private String clusterInstanceId;
 
     private LoadBalancerStatisticsCollector() {
-        clusterIdRequestCountMap = new ConcurrentHashMap<String, Integer>();
-        clusterIdServedRequestCountMap = new ConcurrentHashMap<String, Integer>();
+        clusterIdToRequestCountersMap = new ConcurrentHashMap<String, RequestCounters>();
         clusterInstanceId = System.getProperty(StratosConstants.CLUSTER_INSTANCE_ID, StratosConstants.NOT_DEFINED);
     }
 
@@ -75,92 +77,102 @@ public class LoadBalancerStatisticsCollector implements LoadBalancerStatisticsRe
     }
 
     public int getInFlightRequestCount(String clusterId) {
-        synchronized (LoadBalancerStatisticsCollector.class) {
-            if (clusterIdRequestCountMap.containsKey(clusterId)) {
-                Integer count = clusterIdRequestCountMap.get(clusterId);
-                if (count != null) {
-                    return count;
-                }
-            }
+        RequestCounters requestCounters = clusterIdToRequestCountersMap.get(clusterId);
+        if (requestCounters == null) {
             return 0;
         }
+        return requestCounters.getInFlightRequestCount();
     }
 
     /**
      * Returns the number of requests served since the last time this function was called.
      */
     public int getServedRequestCount(String clusterId) {
-        synchronized (LoadBalancerStatisticsCollector.class) {
-            if (clusterIdServedRequestCountMap.containsKey(clusterId)) {
-                Integer servedCount = clusterIdServedRequestCountMap.get(clusterId);
-                if (servedCount != null) {
-                    clusterIdServedRequestCountMap.put(clusterId, 0);
-                    return servedCount;
-                }
-            }
+        RequestCounters requestCounters = clusterIdToRequestCountersMap.get(clusterId);
+        if (requestCounters == null) {
             return 0;
         }
+        return requestCounters.getServedRequestCount();
     }
 
     public int getActiveInstancesCount(Cluster cluster) {
         return cluster.getMembers().size();
     }
 
-    void incrementInFlightRequestCount(String clusterId) {
-        synchronized (LoadBalancerStatisticsCollector.class) {
-            if (StringUtils.isBlank(clusterId)) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Cluster id is null, could not increment in-flight request count");
-                }
-                return;
-            }
-            Integer count = 0;
-            if (clusterIdRequestCountMap.containsKey(clusterId)) {
-                count = clusterIdRequestCountMap.get(clusterId);
+    /**
+     * Increment the in-flight request count of the cluster when a request is sent.
+     *
+     * @param clusterId cluster id
+     */
+    public void incrementInFlightRequestCount(String clusterId) {
+        if (StringUtils.isBlank(clusterId)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cluster id is null, could not increment in-flight request count");
             }
-            count++;
-            clusterIdRequestCountMap.put(clusterId, count);
+            return;
+        }
+        getOrCreateRequestCounters(clusterId).inFlightRequestCount.increment();
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("In-flight request count incremented: [cluster] %s", clusterId));
+        }
+    }
 
+    /**
+     * Decrement the in-flight request count and increment the served request count of the cluster
+     * when a response or a fault is received. Callers need to make sure that the count of a request
+     * is decremented only once.
+     *
+     * @param clusterId cluster id
+     */
+    public void decrementInFlightRequestCount(String clusterId) {
+        if (StringUtils.isBlank(clusterId)) {
             if (log.isDebugEnabled()) {
-                log.debug(String.format("In-flight request count incremented: [cluster] %s [count] %s ", clusterId,
-                        count));
-
+                log.debug("Cluster id is null, could not decrement in-flight request count");
             }
+            return;
+        }
+        RequestCounters requestCounters = clusterIdToRequestCountersMap.get(clusterId);
+        if (requestCounters == null) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("In-flight request count not found for cluster, could not decrement " +
+                        "in-flight request count: [cluster] %s ", clusterId));
+            }
+            return;
+        }
+        requestCounters.requestServed();
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("In-flight request count decremented: [cluster] %s", clusterId));
         }
     }
 
-    void decrementInFlightRequestCount(String clusterId) {
-        synchronized (LoadBalancerStatisticsCollector.class) {
-            if (StringUtils.isBlank(clusterId)) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Cluster id is null, could not decrement in-flight request count");
-                }
-                return;
+    private RequestCounters getOrCreateRequestCounters(String clusterId) {
+        RequestCounters requestCounters = clusterIdToRequestCountersMap.get(clusterId);
+        if (requestCounters == null) {
+            requestCounters = new RequestCounters();
+            RequestCounters existing = clusterIdToRequestCountersMap.putIfAbsent(clusterId, requestCounters);
+            if (existing != null) {
+                requestCounters = existing;
             }
+        }
+        return requestCounters;
+    }
 
-            if (!clusterIdRequestCountMap.containsKey(clusterId)) {
-                if (log.isDebugEnabled()) {
-                    log.debug(String.format("In-flight request count not found for cluster, could not decrement in-flight request count: [cluster] %s ", clusterId));
-                }
-            } else {
-                Integer count = clusterIdRequestCountMap.get(clusterId);
-                if (count != null) {
-                    count = (count >= 1) ? (count - 1) : 0;
-                }
-                clusterIdRequestCountMap.put(clusterId, count);
+    private static class RequestCounters {
+        private final StripedCounter inFlightRequestCount = new StripedCounter();
+        private final StripedCounter servedRequestCount = new StripedCounter();
 
-                Integer servedCount = 0;
-                if (clusterIdServedRequestCountMap.containsKey(clusterId)) {
-                    servedCount = clusterIdServedRequestCountMap.get(clusterId);
-                }
-                servedCount++;
-                clusterIdServedRequestCountMap.put(clusterId, servedCount);
+        void requestServed() {
+            inFlightRequestCount.decrement();
+            servedRequestCount.increment();
+        }
 
-                if (log.isDebugEnabled()) {
-                    log.debug(String.format("In-flight request count decremented: [cluster] %s [count] %s ", clusterId,
-                            count));
-                }
-            }
+        int getInFlightRequestCount() {
+            // Concurrent updates may be partially summed up, never report a negative count
+            return (int) Math.max(0, inFlightRequestCount.sum());
+        }
+
+        int getServedRequestCount() {
+            return (int) servedRequestCount.sumThenReset();
         }
     }
-}
\ No newline at end of file
+}
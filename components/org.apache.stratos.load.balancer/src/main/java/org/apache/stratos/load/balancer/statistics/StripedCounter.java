@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.load.balancer.statistics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter which spreads updates of concurrent threads over a set of cells, each cell is placed in
+ * its own cache line and selected by the id of the updating thread. Hence request threads do not
+ * contend on a single value and the value is only summed up when the counter is read.
+ */
+public class StripedCounter {
+
+    // Longs per cell, a cell takes a cache line of 64 bytes
+    private static final int CELL_PADDING = 8;
+    private static final int CELL_COUNT = cellCount(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLongArray cells;
+
+    public StripedCounter() {
+        cells = new AtomicLongArray(CELL_COUNT * CELL_PADDING);
+    }
+
+    private static int cellCount(int processors) {
+        int count = 1;
+        while ((count < processors) && (count < 64)) {
+            count <<= 1;
+        }
+        return count;
+    }
+
+    public void increment() {
+        cells.getAndIncrement(cellIndex());
+    }
+
+    public void decrement() {
+        cells.getAndDecrement(cellIndex());
+    }
+
+    /**
+     * Returns the current value, concurrent updates may or may not be included.
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += CELL_PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the current value and resets the counter, each cell is read and reset atomically
+     * hence concurrent updates are either included or kept for the next read.
+     */
+    public long sumThenReset() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += CELL_PADDING) {
+            sum += cells.getAndSet(i, 0);
+        }
+        return sum;
+    }
+
+    private static int cellIndex() {
+        long threadId = Thread.currentThread().getId();
+        int hash = (int) (threadId ^ (threadId >>> 32));
+        hash ^= (hash >>> 16);
+        return (hash & (CELL_COUNT - 1)) * CELL_PADDING;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.load.balancer.test;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.load.balancer.algorithm.LeastOutstandingRequests;
+import org.apache.stratos.load.balancer.algorithm.LoadBalanceAlgorithm;
+import org.apache.stratos.load.balancer.algorithm.PowerOfTwoChoices;
+import org.apache.stratos.load.balancer.algorithm.RoundRobin;
+import org.apache.stratos.load.balancer.algorithm.WeightedRoundRobin;
+import org.apache.stratos.load.balancer.common.domain.Cluster;
+import org.apache.stratos.load.balancer.common.domain.Member;
+import org.apache.stratos.load.balancer.context.AlgorithmContext;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Simulate a cluster with a few slow members, for example members which have just started or are
+ * in a long garbage collection pause, and compare request latencies of load balance algorithms.
+ * Each member serves one request at a time in arrival order, requests arrive at random and in-flight
+ * request counts are updated when requests are sent and when responses are received.
+ */
+@RunWith(JUnit4.class)
+public class LoadBalanceAlgorithmLatencyTest {
+
+    private static final Log log = LogFactory.getLog(LoadBalanceAlgorithmLatencyTest.class);
+
+    private static final int FAST_MEMBER_COUNT = 8;
+    private static final int SLOW_MEMBER_COUNT = 2;
+    private static final double FAST_MEMBER_SERVICE_TIME = 10;
+    private static final double SLOW_MEMBER_SERVICE_TIME = 60;
+    // Requests per millisecond, slow members are close to saturation with round robin
+    private static final double ARRIVAL_RATE = 0.14;
+    private static final int REQUEST_COUNT = 200000;
+    private static final long SEED = 20150501L;
+
+    /**
+     * Compare the 99th percentile latency of in-flight request aware algorithms with round robin.
+     */
+    @Test
+    public void testTailLatencyWithSlowMembers() {
+        Cluster cluster = createCluster();
+        LatencyResult roundRobin = simulate(new RoundRobin(), cluster);
+        LatencyResult weightedRoundRobin = simulate(new WeightedRoundRobin(), cluster);
+        LatencyResult leastOutstandingRequests = simulate(new LeastOutstandingRequests(), cluster);
+        LatencyResult powerOfTwoChoices = simulate(new PowerOfTwoChoices(), cluster);
+
+        for (LatencyResult result : new LatencyResult[]{roundRobin, weightedRoundRobin,
+                leastOutstandingRequests, powerOfTwoChoices}) {
+            log.info(String.format("Simulated request latency: [algorithm] %s [p50] %.1f ms [p99] %.1f ms " +
+                    "[max] %.1f ms", result.algorithmName, result.p50, result.p99, result.max));
+        }
+
+        // In-flight request aware algorithms move requests away from slow members
+        Assert.assertTrue(String.format("Least outstanding requests p99 %.1f ms, round robin p99 %.1f ms",
+                leastOutstandingRequests.p99, roundRobin.p99), leastOutstandingRequests.p99 * 2 < roundRobin.p99);
+        Assert.assertTrue(String.format("Power of two choices p99 %.1f ms, round robin p99 %.1f ms",
+                powerOfTwoChoices.p99, roundRobin.p99), powerOfTwoChoices.p99 * 2 < roundRobin.p99);
+        // Weights matching member capacities give the same improvement when the capacities are known
+        Assert.assertTrue(String.format("Weighted round robin p99 %.1f ms, round robin p99 %.1f ms",
+                weightedRoundRobin.p99, roundRobin.p99), weightedRoundRobin.p99 < roundRobin.p99);
+    }
+
+    private LatencyResult simulate(LoadBalanceAlgorithm algorithm, Cluster cluster) {
+        Random random = new Random(SEED);
+        Member[] members = cluster.getMemberArray();
+        Map<Member, Integer> memberIndexes = new IdentityHashMap<Member, Integer>();
+        for (int i = 0; i < members.length; i++) {
+            memberIndexes.put(members[i], i);
+        }
+        AlgorithmContext algorithmContext = new AlgorithmContext(cluster.getServiceName(), cluster.getClusterId());
+        double[] busyUntil = new double[members.length];
+        PriorityQueue<Response> responses = new PriorityQueue<Response>();
+        double[] latencies = new double[REQUEST_COUNT];
+
+        double time = 0;
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            time += exponential(random, 1 / ARRIVAL_RATE);
+            while (!responses.isEmpty() && (responses.peek().time <= time)) {
+                algorithmContext.decrementInFlightRequestCount(responses.poll().member.getMemberId());
+            }
+
+            Member member = algorithm.getNextMember(members, algorithmContext);
+            algorithmContext.incrementInFlightRequestCount(member.getMemberId());
+            int index = memberIndexes.get(member);
+            double serviceTime = exponential(random, isSlow(member) ? SLOW_MEMBER_SERVICE_TIME :
+                    FAST_MEMBER_SERVICE_TIME);
+            double responseTime = Math.max(time, busyUntil[index]) + serviceTime;
+            busyUntil[index] = responseTime;
+            responses.add(new Response(responseTime, member));
+            latencies[i] = responseTime - time;
+        }
+        Arrays.sort(latencies);
+        return new LatencyResult(algorithm.getName(), latencies[REQUEST_COUNT / 2],
+                latencies[(int) (REQUEST_COUNT * 0.99)], latencies[REQUEST_COUNT - 1]);
+    }
+
+    private Cluster createCluster() {
+        Cluster cluster = new Cluster("service-1", "cluster-1");
+        for (int i = 0; i < FAST_MEMBER_COUNT + SLOW_MEMBER_COUNT; i++) {
+            Member member = new Member(cluster.getServiceName(), cluster.getClusterId(), "member-" + i, "10.0.0." + i);
+            // Weights proportional to member capacities
+            member.setWeight(i < FAST_MEMBER_COUNT ? (int) (SLOW_MEMBER_SERVICE_TIME / FAST_MEMBER_SERVICE_TIME) : 1);
+            cluster.addMember(member);
+        }
+        return cluster;
+    }
+
+    private boolean isSlow(Member member) {
+        return member.getWeight() == 1;
+    }
+
+    private double exponential(Random random, double mean) {
+        return -Math.log(1 - random.nextDouble()) * mean;
+    }
+
+    private static class Response implements Comparable<Response> {
+        private final double time;
+        private final Member member;
+
+        private Response(double time, Member member) {
+            this.time = time;
+            this.member = member;
+        }
+
+        @Override
+        public int compareTo(Response other) {
+            return Double.compare(time, other.time);
+        }
+    }
+
+    private static class LatencyResult {
+        private final String algorithmName;
+        private final double p50;
+        private final double p99;
+        private final double max;
+
+        private LatencyResult(String algorithmName, double p50, double p99, double max) {
+            this.algorithmName = algorithmName;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.max = max;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.load.balancer.test;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.load.balancer.algorithm.LeastOutstandingRequests;
+import org.apache.stratos.load.balancer.algorithm.LoadBalanceAlgorithm;
+import org.apache.stratos.load.balancer.algorithm.PowerOfTwoChoices;
+import org.apache.stratos.load.balancer.algorithm.RoundRobin;
+import org.apache.stratos.load.balancer.algorithm.WeightedRoundRobin;
+import org.apache.stratos.load.balancer.common.domain.Cluster;
+import org.apache.stratos.load.balancer.common.domain.Member;
+import org.apache.stratos.load.balancer.context.AlgorithmContext;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Load balance algorithm tests.
+ */
+@RunWith(JUnit4.class)
+public class LoadBalanceAlgorithmTest {
+
+    private static final Log log = LogFactory.getLog(LoadBalanceAlgorithmTest.class);
+
+    private static final int THREAD_COUNT = 64;
+    private static final int CLUSTER_COUNT = 200;
+    private static final int MEMBER_COUNT = 8;
+    private static final int REQUESTS_PER_THREAD = 200000;
+
+    /**
+     * Test round robin selection of members in order.
+     */
+    @Test
+    public void testRoundRobinSelection() {
+        Cluster cluster = createCluster("cluster-1", 5);
+        AlgorithmContext algorithmContext = new AlgorithmContext(cluster.getServiceName(), cluster.getClusterId());
+        LoadBalanceAlgorithm algorithm = new RoundRobin();
+        Member[] members = cluster.getMemberArray();
+        for (int i = 0; i < 20; i++) {
+            Assert.assertSame(members[i % members.length], algorithm.getNextMember(members, algorithmContext));
+        }
+        algorithm.reset(algorithmContext);
+        Assert.assertSame(members[0], algorithm.getNextMember(members, algorithmContext));
+        Assert.assertNull(algorithm.getNextMember(new Member[0], algorithmContext));
+    }
+
+    /**
+     * Test member array is replaced when members are added or removed.
+     */
+    @Test
+    public void testMemberArrayRebuiltOnTopologyChange() {
+        Cluster cluster = createCluster("cluster-1", 3);
+        Member[] members = cluster.getMemberArray();
+        Assert.assertEquals(3, members.length);
+        Assert.assertSame(members, cluster.getMemberArray());
+
+        cluster.addMember(new Member(cluster.getServiceName(), cluster.getClusterId(), "member-3", "10.0.0.3"));
+        Assert.assertEquals(4, cluster.getMemberArray().length);
+        Assert.assertEquals(3, members.length);
+
+        cluster.removeMember("member-0");
+        cluster.removeMember("member-3");
+        Assert.assertEquals(2, cluster.getMemberArray().length);
+        for (Member member : cluster.getMemberArray()) {
+            Assert.assertNotNull(cluster.getMember(member.getMemberId()));
+        }
+    }
+
+    /**
+     * Select members of 200 clusters from 64 request threads and verify that the requests of each
+     * cluster are spread evenly over its members.
+     */
+    @Test
+    public void testConcurrentRoundRobinSelection() throws Exception {
+        final LoadBalanceAlgorithm algorithm = new RoundRobin();
+        final List<Cluster> clusters = new ArrayList<Cluster>();
+        final List<AlgorithmContext> algorithmContexts = new ArrayList<AlgorithmContext>();
+        final Map<Member, Integer> memberIndexes = new HashMap<Member, Integer>();
+        for (int i = 0; i < CLUSTER_COUNT; i++) {
+            Cluster cluster = createCluster("cluster-" + i, MEMBER_COUNT);
+            clusters.add(cluster);
+            algorithmContexts.add(new AlgorithmContext(cluster.getServiceName(), cluster.getClusterId()));
+            for (Member member : cluster.getMemberArray()) {
+                memberIndexes.put(member, memberIndexes.size());
+            }
+        }
+        final AtomicIntegerArray selections = new AtomicIntegerArray(memberIndexes.size());
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch doneLatch = new CountDownLatch(THREAD_COUNT);
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            final int thread = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        int[] counts = new int[memberIndexes.size()];
+                        for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                            int clusterIndex = (thread + i) % CLUSTER_COUNT;
+                            Member member = algorithm.getNextMember(clusters.get(clusterIndex).getMemberArray(),
+                                    algorithmContexts.get(clusterIndex));
+                            counts[memberIndexes.get(member)]++;
+                        }
+                        for (int i = 0; i < counts.length; i++) {
+                            selections.addAndGet(i, counts[i]);
+                        }
+                    } catch (InterruptedException ignored) {
+                    } finally {
+                        doneLatch.countDown();
+                    }
+                }
+            }).start();
+        }
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        doneLatch.await();
+        long time = System.nanoTime() - startTime;
+        long requests = (long) THREAD_COUNT * REQUESTS_PER_THREAD;
+        log.info(String.format("Round robin selection: [threads] %d [clusters] %d [requests] %d [time] %d ms " +
+                        "[ns-per-request] %d", THREAD_COUNT, CLUSTER_COUNT, requests, time / 1000000,
+                time / requests));
+
+        // Each cluster receives the same number of requests, spread evenly over its members
+        int expected = (int) (requests / CLUSTER_COUNT / MEMBER_COUNT);
+        for (int i = 0; i < selections.length(); i++) {
+            Assert.assertEquals(expected, selections.get(i));
+        }
+    }
+
+    /**
+     * Test least outstanding requests selects the member with the lowest in-flight request count
+     * and selects members in round robin order when counts are equal.
+     */
+    @Test
+    public void testLeastOutstandingRequestsSelection() {
+        Cluster cluster = createCluster("cluster-1", 4);
+        AlgorithmContext algorithmContext = new AlgorithmContext(cluster.getServiceName(), cluster.getClusterId());
+        LoadBalanceAlgorithm algorithm = new LeastOutstandingRequests();
+        Member[] members = cluster.getMemberArray();
+        for (int i = 0; i < 8; i++) {
+            Assert.assertSame(members[i % members.length], algorithm.getNextMember(members, algorithmContext));
+        }
+
+        for (Member member : members) {
+            algorithmContext.incrementInFlightRequestCount(member.getMemberId());
+        }
+        algorithmContext.incrementInFlightRequestCount(members[0].getMemberId());
+        algorithmContext.incrementInFlightRequestCount(members[2].getMemberId());
+        algorithmContext.incrementInFlightRequestCount(members[3].getMemberId());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertSame(members[1], algorithm.getNextMember(members, algorithmContext));
+        }
+
+        algorithmContext.decrementInFlightRequestCount(members[3].getMemberId());
+        algorithmContext.decrementInFlightRequestCount(members[3].getMemberId());
+        Assert.assertEquals(0, algorithmContext.getInFlightRequestCount(members[3].getMemberId()));
+        Assert.assertSame(members[3], algorithm.getNextMember(members, algorithmContext));
+
+        // Counts never go below zero
+        algorithmContext.decrementInFlightRequestCount(members[3].getMemberId());
+        Assert.assertEquals(0, algorithmContext.getInFlightRequestCount(members[3].getMemberId()));
+        Assert.assertNull(algorithm.getNextMember(new Member[0], algorithmContext));
+    }
+
+    /**
+     * Test power of two choices never selects the member with the highest in-flight request count
+     * and spreads requests over the remaining members.
+     */
+    @Test
+    public void testPowerOfTwoChoicesSelection() {
+        Cluster cluster = createCluster("cluster-1", 4);
+        AlgorithmContext algorithmContext = new AlgorithmContext(cluster.getServiceName(), cluster.getClusterId());
+        LoadBalanceAlgorithm algorithm = new PowerOfTwoChoices();
+        Member[] members = cluster.getMemberArray();
+        for (int i = 0; i < 10; i++) {
+            algorithmContext.incrementInFlightRequestCount(members[2].getMemberId());
+        }
+        Map<Member, Integer> selections = new HashMap<Member, Integer>();
+        for (int i = 0; i < 3000; i++) {
+            Member member = algorithm.getNextMember(members, algorithmContext);
+            Assert.assertNotSame(members[2], member);
+            selections.put(member, (selections.containsKey(member) ? selections.get(member) : 0) + 1);
+        }
+        Assert.assertEquals(3, selections.size());
+        for (int count : selections.values()) {
+            Assert.assertTrue(String.format("Requests not spread: %s", selections.values()), count > 500);
+        }
+
+        Member[] singleMember = new Member[]{members[2]};
+        Assert.assertSame(members[2], algorithm.getNextMember(singleMember, algorithmContext));
+        Assert.assertNull(algorithm.getNextMember(new Member[0], algorithmContext));
+    }
+
+    /**
+     * Test weighted round robin sends requests in proportion to member weights, interleaves members
+     * and picks up weight changes when the member array is rebuilt.
+     */
+    @Test
+    public void testWeightedRoundRobinSelection() {
+        Cluster cluster = createCluster("cluster-1", 3);
+        cluster.getMember("member-0").setWeight(6);
+        cluster.getMember("member-1").setWeight(2);
+        cluster.getMember("member-2").setWeight(4);
+        AlgorithmContext algorithmContext = new AlgorithmContext(cluster.getServiceName(), cluster.getClusterId());
+        LoadBalanceAlgorithm algorithm = new WeightedRoundRobin();
+        Member[] members = cluster.getMemberArray();
+
+        // Weights are reduced to 3:1:2, hence the sequence is 6 members long
+        Map<String, Integer> selections = new HashMap<String, Integer>();
+        Member previous = null;
+        int run = 0;
+        for (int i = 0; i < 600; i++) {
+            Member member = algorithm.getNextMember(members, algorithmContext);
+            String memberId = member.getMemberId();
+            selections.put(memberId, (selections.containsKey(memberId) ? selections.get(memberId) : 0) + 1);
+            // Members are interleaved rather than selected weight times in a row
+            run = (member == previous) ? run + 1 : 1;
+            Assert.assertTrue(String.format("Member %s selected %d times in a row", memberId, run), run <= 2);
+            previous = member;
+        }
+        Assert.assertEquals(300, (int) selections.get("member-0"));
+        Assert.assertEquals(100, (int) selections.get("member-1"));
+        Assert.assertEquals(200, (int) selections.get("member-2"));
+
+        // A new member array is created when members change
+        cluster.removeMember("member-0");
+        members = cluster.getMemberArray();
+        selections.clear();
+        for (int i = 0; i < 300; i++) {
+            String memberId = algorithm.getNextMember(members, algorithmContext).getMemberId();
+            selections.put(memberId, (selections.containsKey(memberId) ? selections.get(memberId) : 0) + 1);
+        }
+        Assert.assertEquals(100, (int) selections.get("member-1"));
+        Assert.assertEquals(200, (int) selections.get("member-2"));
+        Assert.assertNull(algorithm.getNextMember(new Member[0], algorithmContext));
+    }
+
+    /**
+     * Test member weights are capped, hence a huge weight does not build a huge selection sequence.
+     */
+    @Test
+    public void testWeightedRoundRobinWeightIsCapped() {
+        Cluster cluster = createCluster("cluster-1", 2);
+        cluster.getMember("member-0").setWeight(Integer.MAX_VALUE);
+        cluster.getMember("member-1").setWeight(1);
+        Assert.assertEquals(Member.MAX_WEIGHT, cluster.getMember("member-0").getWeight());
+        AlgorithmContext algorithmContext = new AlgorithmContext(cluster.getServiceName(), cluster.getClusterId());
+        LoadBalanceAlgorithm algorithm = new WeightedRoundRobin();
+        Member[] members = cluster.getMemberArray();
+
+        Map<String, Integer> selections = new HashMap<String, Integer>();
+        for (int i = 0; i < Member.MAX_WEIGHT + 1; i++) {
+            String memberId = algorithm.getNextMember(members, algorithmContext).getMemberId();
+            selections.put(memberId, (selections.containsKey(memberId) ? selections.get(memberId) : 0) + 1);
+        }
+        Assert.assertEquals(Member.MAX_WEIGHT, (int) selections.get("member-0"));
+        Assert.assertEquals(1, (int) selections.get("member-1"));
+    }
+
+    /**
+     * Test in-flight request counts of members which left the cluster are removed.
+     */
+    @Test
+    public void testInFlightRequestCountsOfRemovedMembers() {
+        Cluster cluster = createCluster("cluster-1", 2);
+        AlgorithmContext algorithmContext = new AlgorithmContext(cluster.getServiceName(), cluster.getClusterId());
+        algorithmContext.updateMembers(cluster.getMemberArray());
+        algorithmContext.incrementInFlightRequestCount("member-0");
+        algorithmContext.incrementInFlightRequestCount("member-1");
+
+        cluster.removeMember("member-0");
+        algorithmContext.updateMembers(cluster.getMemberArray());
+        Assert.assertEquals(0, algorithmContext.getInFlightRequestCount("member-0"));
+        Assert.assertEquals(1, algorithmContext.getInFlightRequestCount("member-1"));
+    }
+
+    private Cluster createCluster(String clusterId, int memberCount) {
+        Cluster cluster = new Cluster("service-1", clusterId);
+        for (int i = 0; i < memberCount; i++) {
+            cluster.addMember(new Member(cluster.getServiceName(), clusterId, "member-" + i, "10.0.0." + i));
+        }
+        return cluster;
+    }
+}
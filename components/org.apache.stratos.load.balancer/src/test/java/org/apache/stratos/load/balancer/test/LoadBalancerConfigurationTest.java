@@ -84,6 +84,7 @@ public class LoadBalancerConfigurationTest {
             Assert.assertTrue(String.format("%s, multi-tenancy is not true", validationError), configuration.isMultiTenancyEnabled());
             Assert.assertEquals(String.format("%s, tenant-identifier is not valid", validationError), TenantIdentifier.TenantDomain, configuration.getTenantIdentifier());
             Assert.assertEquals(String.format("%s, tenant-identifier-regex is not valid", validationError), "t/([^/]*)/", configuration.getTenantIdentifierRegexList().get(0));
+            Assert.assertEquals(String.format("%s, tenant resolver is not valid", validationError), "t/([^/]*)/", configuration.getTenantResolver().getTenantIdentifierPatterns().get(0).pattern());
         } finally {
             LoadBalancerConfiguration.clear();
         }
@@ -19,17 +19,15 @@
 
 package org.apache.stratos.load.balancer.test;
 
-import org.apache.stratos.load.balancer.statistics.InFlightRequestDecrementCallable;
-import org.apache.stratos.load.balancer.statistics.InFlightRequestIncrementCallable;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.load.balancer.statistics.LoadBalancerStatisticsCollector;
-import org.apache.stratos.load.balancer.statistics.LoadBalancerStatisticsExecutor;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
-import java.util.concurrent.Future;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Load balancer statistics collector tests.
@@ -37,51 +35,104 @@ import java.util.concurrent.FutureTask;
 @RunWith(JUnit4.class)
 public class LoadBalancerStatisticsCollectorTest {
 
+    private static final Log log = LogFactory.getLog(LoadBalancerStatisticsCollectorTest.class);
+
+    private static final int THREAD_COUNT = 64;
+    private static final int CLUSTER_COUNT = 20;
+    private static final int REQUESTS_PER_THREAD = 100000;
+
     /**
      * Test in-flight request count calculation.
      */
     @Test
     public void testInFlightRequestCountCalculation() {
+        LoadBalancerStatisticsCollector collector = LoadBalancerStatisticsCollector.getInstance();
         String clusterId = "cluster1";
         String incrementErrorMessage = "Could not increment in-flight request count: ";
         String decrementErrorMessage = "Could not decrement in-flight request count: ";
 
-        FutureTask<Object> task = new FutureTask<Object>(new InFlightRequestIncrementCallable(clusterId));
-        executeTask(task);
-        Assert.assertEquals(incrementErrorMessage, 1, LoadBalancerStatisticsCollector.getInstance().getInFlightRequestCount(clusterId));
-
-        task = new FutureTask<Object>(new InFlightRequestIncrementCallable(clusterId));
-        executeTask(task);
-        Assert.assertEquals(incrementErrorMessage, 2, LoadBalancerStatisticsCollector.getInstance().getInFlightRequestCount(clusterId));
-
-        task = new FutureTask<Object>(new InFlightRequestIncrementCallable(clusterId));
-        executeTask(task);
-        Assert.assertEquals(incrementErrorMessage, 3, LoadBalancerStatisticsCollector.getInstance().getInFlightRequestCount(clusterId));
+        for (int i = 1; i <= 3; i++) {
+            collector.incrementInFlightRequestCount(clusterId);
+            Assert.assertEquals(incrementErrorMessage, i, collector.getInFlightRequestCount(clusterId));
+        }
+        for (int i = 2; i >= 0; i--) {
+            collector.decrementInFlightRequestCount(clusterId);
+            Assert.assertEquals(decrementErrorMessage, i, collector.getInFlightRequestCount(clusterId));
+        }
+        Assert.assertEquals(0, collector.getInFlightRequestCount("cluster2"));
 
-        task = new FutureTask<Object>(new InFlightRequestDecrementCallable(clusterId));
-        executeTask(task);
-        Assert.assertEquals(decrementErrorMessage, 2, LoadBalancerStatisticsCollector.getInstance().getInFlightRequestCount(clusterId));
+        LoadBalancerStatisticsCollector.clear();
+    }
 
-        task = new FutureTask<Object>(new InFlightRequestDecrementCallable(clusterId));
-        executeTask(task);
-        Assert.assertEquals(decrementErrorMessage, 1, LoadBalancerStatisticsCollector.getInstance().getInFlightRequestCount(clusterId));
+    /**
+     * Test served request counts which are reset when read.
+     */
+    @Test
+    public void testServedRequestCountCalculation() {
+        LoadBalancerStatisticsCollector collector = LoadBalancerStatisticsCollector.getInstance();
+        String clusterId = "cluster1";
+        collector.incrementInFlightRequestCount(clusterId);
+        collector.incrementInFlightRequestCount(clusterId);
+        collector.incrementInFlightRequestCount(clusterId);
+        collector.decrementInFlightRequestCount(clusterId);
+        collector.decrementInFlightRequestCount(clusterId);
+        Assert.assertEquals(1, collector.getInFlightRequestCount(clusterId));
 
-        task = new FutureTask<Object>(new InFlightRequestDecrementCallable(clusterId));
-        executeTask(task);
-        Assert.assertEquals(decrementErrorMessage, 0, LoadBalancerStatisticsCollector.getInstance().getInFlightRequestCount(clusterId));
+        // Served request counts are reset when they are read
+        Assert.assertEquals(2, collector.getServedRequestCount(clusterId));
+        Assert.assertEquals(0, collector.getServedRequestCount(clusterId));
+        Assert.assertEquals(1, collector.getInFlightRequestCount(clusterId));
 
         LoadBalancerStatisticsCollector.clear();
     }
 
-    private void executeTask(FutureTask<Object> task) {
-        Future future = LoadBalancerStatisticsExecutor.getInstance().getService().submit(task);
-        while (!future.isDone()) {
-            // Wait until task get executed
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                // Might not need to trace
-            }
+    /**
+     * Send and receive requests of 20 clusters from 64 threads, verify the counts and measure the
+     * collector overhead per request.
+     */
+    @Test
+    public void testConcurrentRequestCountCalculation() throws Exception {
+        final LoadBalancerStatisticsCollector collector = LoadBalancerStatisticsCollector.getInstance();
+        final String[] clusterIds = new String[CLUSTER_COUNT];
+        for (int i = 0; i < CLUSTER_COUNT; i++) {
+            clusterIds[i] = "cluster" + i;
+        }
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch doneLatch = new CountDownLatch(THREAD_COUNT);
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            final int thread = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                            String clusterId = clusterIds[(thread + i) % CLUSTER_COUNT];
+                            collector.incrementInFlightRequestCount(clusterId);
+                            collector.decrementInFlightRequestCount(clusterId);
+                        }
+                    } catch (InterruptedException ignored) {
+                    } finally {
+                        doneLatch.countDown();
+                    }
+                }
+            }).start();
+        }
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        doneLatch.await();
+        long time = System.nanoTime() - startTime;
+        long requests = (long) THREAD_COUNT * REQUESTS_PER_THREAD;
+        log.info(String.format("Statistics collector: [threads] %d [clusters] %d [requests] %d [time] %d ms " +
+                "[ns-per-request] %d", THREAD_COUNT, CLUSTER_COUNT, requests, time / 1000000, time / requests));
+
+        long servedRequestCount = 0;
+        for (String clusterId : clusterIds) {
+            Assert.assertEquals(0, collector.getInFlightRequestCount(clusterId));
+            servedRequestCount += collector.getServedRequestCount(clusterId);
         }
+        Assert.assertEquals(requests, servedRequestCount);
+
+        LoadBalancerStatisticsCollector.clear();
     }
 }
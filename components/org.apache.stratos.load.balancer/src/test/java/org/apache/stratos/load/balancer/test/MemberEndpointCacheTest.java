@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.load.balancer.test;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.load.balancer.context.MemberEndpointCache;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.endpoints.DefaultEndpoint;
+import org.apache.synapse.endpoints.Endpoint;
+import org.apache.synapse.endpoints.EndpointDefinition;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.UUID;
+
+/**
+ * Member endpoint cache tests.
+ */
+@RunWith(JUnit4.class)
+public class MemberEndpointCacheTest {
+
+    private static final Log log = LogFactory.getLog(MemberEndpointCacheTest.class);
+
+    private static final int ITERATIONS = 100000;
+
+    /**
+     * Test endpoints are cached per member and port, and destroyed once removed with members
+     * and clusters.
+     */
+    @Test
+    public void testEndpointCache() {
+        MemberEndpointCache endpointCache = MemberEndpointCache.getInstance();
+        String address1 = MemberEndpointCache.getMemberAddress("http://10.0.0.1:8080/app/index.html");
+        String address2 = MemberEndpointCache.getMemberAddress("https://10.0.0.1:8443/app/index.html");
+        Assert.assertEquals("http://10.0.0.1:8080", address1);
+        Assert.assertEquals("https://10.0.0.1:8443", address2);
+
+        Assert.assertNull(endpointCache.getEndpoint("cluster-1", "member-1", address1));
+        TestEndpoint endpoint1 = createEndpoint(address1);
+        Assert.assertSame(endpoint1, endpointCache.addEndpoint("cluster-1", "member-1", address1, endpoint1));
+        Assert.assertSame(endpoint1, endpointCache.getEndpoint("cluster-1", "member-1", address1));
+
+        // An endpoint added concurrently for the same address is not cached and destroyed
+        TestEndpoint endpoint2 = createEndpoint(address1);
+        Assert.assertSame(endpoint1, endpointCache.addEndpoint("cluster-1", "member-1", address1, endpoint2));
+        Assert.assertEquals(1, endpoint2.destroyCount);
+
+        TestEndpoint endpoint3 = createEndpoint(address2);
+        endpointCache.addEndpoint("cluster-1", "member-1", address2, endpoint3);
+        TestEndpoint endpoint4 = createEndpoint(address1);
+        endpointCache.addEndpoint("cluster-1", "member-2", address1, endpoint4);
+        Assert.assertEquals(2, endpointCache.getEndpointCount("cluster-1", "member-1"));
+        Assert.assertSame(endpoint4, endpointCache.getEndpoint("cluster-1", "member-2", address1));
+
+        // Only the cached endpoint is removed, once
+        Assert.assertFalse(endpointCache.removeEndpoint("cluster-1", "member-1", address1, endpoint2));
+        Assert.assertSame(endpoint1, endpointCache.getEndpoint("cluster-1", "member-1", address1));
+        Assert.assertTrue(endpointCache.removeEndpoint("cluster-1", "member-1", address1, endpoint1));
+        Assert.assertFalse(endpointCache.removeEndpoint("cluster-1", "member-1", address1, endpoint1));
+        Assert.assertNull(endpointCache.getEndpoint("cluster-1", "member-1", address1));
+        Assert.assertEquals(1, endpoint1.destroyCount);
+
+        endpointCache.removeMember("cluster-1", "member-1");
+        Assert.assertEquals(0, endpointCache.getEndpointCount("cluster-1", "member-1"));
+        Assert.assertEquals(1, endpoint3.destroyCount);
+        Assert.assertSame(endpoint4, endpointCache.getEndpoint("cluster-1", "member-2", address1));
+
+        endpointCache.removeCluster("cluster-1");
+        Assert.assertNull(endpointCache.getEndpoint("cluster-1", "member-2", address1));
+        Assert.assertEquals(1, endpoint4.destroyCount);
+    }
+
+    /**
+     * Test requests with unique paths and query strings share the endpoint of the member, and
+     * measure memory allocated per request when an endpoint is created for each request against
+     * finding the endpoint in the cache. Endpoint initialization is not included since it
+     * requires a synapse environment.
+     */
+    @Test
+    public void testUniqueRequestAddresses() {
+        MemberEndpointCache endpointCache = MemberEndpointCache.getInstance();
+        String[] addresses = new String[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            addresses[i] = "http://10.0.0.1:8080/app/page" + i + ".html?session=" + UUID.randomUUID();
+        }
+
+        int checksum = 0;
+        long startBytes = getAllocatedBytes();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += createEndpoint(MemberEndpointCache.getMemberAddress(addresses[i])).hashCode() & 1;
+        }
+        long perRequestTime = System.nanoTime() - startTime;
+        long perRequestBytes = getAllocatedBytes() - startBytes;
+
+        TestEndpoint endpoint = null;
+        startBytes = getAllocatedBytes();
+        startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            String memberAddress = MemberEndpointCache.getMemberAddress(addresses[i]);
+            Endpoint cachedEndpoint = endpointCache.getEndpoint("cluster-2", "member-1", memberAddress);
+            if (cachedEndpoint == null) {
+                endpoint = createEndpoint(memberAddress);
+                cachedEndpoint = endpointCache.addEndpoint("cluster-2", "member-1", memberAddress, endpoint);
+            }
+            checksum += cachedEndpoint.hashCode() & 1;
+        }
+        long cachedTime = System.nanoTime() - startTime;
+        long cachedBytes = getAllocatedBytes() - startBytes;
+
+        Assert.assertEquals(1, endpointCache.getEndpointCount("cluster-2", "member-1"));
+        Assert.assertSame(endpoint, endpointCache.getEndpoint("cluster-2", "member-1", "http://10.0.0.1:8080"));
+        log.info(String.format("Endpoint allocation: [iterations] %d [per-request-bytes] %d [per-request-ns] %d " +
+                        "[cached-bytes] %d [cached-ns] %d [checksum] %d", ITERATIONS, perRequestBytes / ITERATIONS,
+                perRequestTime / ITERATIONS, cachedBytes / ITERATIONS, cachedTime / ITERATIONS, checksum));
+        if (startBytes != -1) {
+            Assert.assertTrue(cachedBytes < perRequestBytes);
+        }
+
+        endpointCache.removeCluster("cluster-2");
+        Assert.assertEquals(1, endpoint.destroyCount);
+    }
+
+    /**
+     * Create an endpoint the way the tenant aware load balance endpoint does without initializing it.
+     */
+    private TestEndpoint createEndpoint(String memberAddress) {
+        TestEndpoint endpoint = new TestEndpoint();
+        endpoint.setEnableMBeanStats(false);
+        endpoint.setName("DLB:" + memberAddress + ":" + UUID.randomUUID());
+
+        EndpointDefinition definition = new EndpointDefinition();
+        definition.setTimeoutAction(SynapseConstants.DISCARD_AND_FAULT);
+        definition.setTimeoutDuration(120000);
+        definition.setReplicationDisabled(true);
+        endpoint.setDefinition(definition);
+        return endpoint;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread, -1 if not supported.
+     */
+    private long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static class TestEndpoint extends DefaultEndpoint {
+
+        private int destroyCount;
+
+        @Override
+        public void destroy() {
+            destroyCount++;
+            super.destroy();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.load.balancer.test;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.load.balancer.conf.domain.TenantIdentifier;
+import org.apache.stratos.load.balancer.context.TenantCache;
+import org.apache.stratos.load.balancer.endpoint.TenantResolver;
+import org.apache.stratos.messaging.domain.tenant.Tenant;
+import org.apache.stratos.messaging.message.receiver.tenant.TenantManager;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tenant resolver tests.
+ */
+@RunWith(JUnit4.class)
+public class TenantResolverTest {
+
+    private static final Log log = LogFactory.getLog(TenantResolverTest.class);
+
+    private static final List<String> TENANT_DOMAIN_REGEX_LIST = Arrays.asList("/tenant/([^/]*)/", "t/([^/]*)/");
+    private static final int TENANT_COUNT = 1000;
+    private static final int ITERATIONS = 200000;
+
+    /**
+     * Test tenant domains in URLs are resolved and the cache is refreshed when invalidated.
+     */
+    @Test
+    public void testTenantDomainResolution() {
+        addTenant(new Tenant(101, "abc.com"));
+        TenantCache.getInstance().invalidate();
+        TenantResolver resolver = new TenantResolver(TenantIdentifier.TenantDomain, TENANT_DOMAIN_REGEX_LIST);
+
+        Assert.assertEquals(101, resolver.findTenantId("http://localhost:8280/t/abc.com/app/index.html"));
+        Assert.assertEquals(101, resolver.findTenantId("http://localhost:8280/tenant/abc.com/index.html"));
+        Assert.assertEquals(-1, resolver.findTenantId("http://localhost:8280/app/index.html"));
+        Assert.assertEquals(-1, resolver.findTenantId("http://localhost:8280/t/xyz.com/index.html"));
+
+        // Unknown tenant domains are cached until a tenant event invalidates the cache
+        addTenant(new Tenant(102, "xyz.com"));
+        Assert.assertEquals(-1, resolver.findTenantId("http://localhost:8280/t/xyz.com/index.html"));
+        TenantCache.getInstance().invalidate();
+        Assert.assertEquals(102, resolver.findTenantId("http://localhost:8280/t/xyz.com/index.html"));
+
+        removeTenant(101);
+        TenantCache.getInstance().invalidate();
+        Assert.assertEquals(-1, resolver.findTenantId("http://localhost:8280/t/abc.com/app/index.html"));
+        removeTenant(102);
+        TenantCache.getInstance().invalidate();
+    }
+
+    /**
+     * Test tenant ids in URLs are resolved and checked for existence.
+     */
+    @Test
+    public void testTenantIdResolution() {
+        addTenant(new Tenant(201, "def.com"));
+        TenantCache.getInstance().invalidate();
+        TenantResolver resolver = new TenantResolver(TenantIdentifier.TenantId, Arrays.asList("t/([0-9]+)/"));
+
+        Assert.assertEquals(201, resolver.findTenantId("http://localhost:8280/t/201/index.html"));
+        Assert.assertTrue(resolver.tenantExists(201));
+        Assert.assertEquals(202, resolver.findTenantId("http://localhost:8280/t/202/index.html"));
+        Assert.assertFalse(resolver.tenantExists(202));
+
+        removeTenant(201);
+        TenantCache.getInstance().invalidate();
+        Assert.assertFalse(resolver.tenantExists(201));
+    }
+
+    /**
+     * Measure tenant domain resolution of the resolver against compiling tenant identifier regular
+     * expressions and taking the tenant manager lock on each request.
+     */
+    @Test
+    public void testTenantResolutionPerformance() {
+        String[] urls = new String[TENANT_COUNT];
+        for (int i = 0; i < TENANT_COUNT; i++) {
+            addTenant(new Tenant(1000 + i, "tenant" + i + ".com"));
+            urls[i] = "http://localhost:8280/t/tenant" + i + ".com/app/index.html";
+        }
+        TenantCache.getInstance().invalidate();
+        TenantResolver resolver = new TenantResolver(TenantIdentifier.TenantDomain, TENANT_DOMAIN_REGEX_LIST);
+
+        long checksum = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += findTenantIdPerRequest(urls[i % TENANT_COUNT]);
+        }
+        long perRequestTime = System.nanoTime() - startTime;
+
+        long resolverChecksum = 0;
+        startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            resolverChecksum += resolver.findTenantId(urls[i % TENANT_COUNT]);
+        }
+        long resolverTime = System.nanoTime() - startTime;
+
+        log.info(String.format("Tenant resolution: [iterations] %d [per-request-ns] %d [resolver-ns] %d",
+                ITERATIONS, perRequestTime / ITERATIONS, resolverTime / ITERATIONS));
+        Assert.assertEquals(checksum, resolverChecksum);
+
+        for (int i = 0; i < TENANT_COUNT; i++) {
+            removeTenant(1000 + i);
+        }
+        TenantCache.getInstance().invalidate();
+    }
+
+    /**
+     * Tenant domain resolution compiling the regular expressions and taking the tenant manager lock
+     * on each request.
+     */
+    private int findTenantIdPerRequest(String url) {
+        for (String regex : TENANT_DOMAIN_REGEX_LIST) {
+            Matcher matcher = Pattern.compile(regex).matcher(url);
+            if (matcher.find()) {
+                try {
+                    TenantManager.acquireReadLock();
+                    Tenant tenant = TenantManager.getInstance().getTenant(matcher.group(1));
+                    return (tenant != null) ? tenant.getTenantId() : -1;
+                } finally {
+                    TenantManager.releaseReadLock();
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void addTenant(Tenant tenant) {
+        try {
+            TenantManager.acquireWriteLock();
+            TenantManager.getInstance().addTenant(tenant);
+        } finally {
+            TenantManager.releaseWriteLock();
+        }
+    }
+
+    private void removeTenant(int tenantId) {
+        try {
+            TenantManager.acquireWriteLock();
+            TenantManager.getInstance().removeTenant(tenantId);
+        } finally {
+            TenantManager.releaseWriteLock();
+        }
+    }
+}
@@ -31,4 +31,12 @@ public interface TopicPublisher extends TopicConnector {
      * @param retry
      */
     public abstract void publish(String message, boolean retry);
+
+    /**
+     * Publish an encoded message to a topic in the message broker.
+     *
+     * @param message UTF-8 encoded message
+     * @param retry
+     */
+    public abstract void publish(byte[] message, boolean retry);
 }
@@ -23,10 +23,12 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.messaging.broker.connect.RetryTimer;
 import org.apache.stratos.messaging.broker.connect.TopicPublisher;
+import org.apache.stratos.messaging.codec.JsonCodec;
+import org.apache.stratos.messaging.codec.MessageCodec;
 import org.apache.stratos.messaging.domain.exception.MessagingException;
 
+import javax.jms.BytesMessage;
 import javax.jms.JMSException;
-import javax.jms.TextMessage;
 import javax.jms.Topic;
 import javax.jms.TopicSession;
 
@@ -56,6 +58,17 @@ public class AmqpTopicPublisher extends AmqpTopicConnector implements TopicPubli
      */
     @Override
     public void publish(String message, boolean retry) {
+        publish(message.getBytes(JsonCodec.UTF_8), retry);
+    }
+
+    /**
+     * Publish an encoded message to message broker.
+     *
+     * @param message UTF-8 encoded message to be published
+     * @param retry   Retry if message broker is not available
+     */
+    @Override
+    public void publish(byte[] message, boolean retry) {
         boolean published = false;
         while (!published) {
             TopicSession topicSession = null;
@@ -83,8 +96,16 @@ public class AmqpTopicPublisher extends AmqpTopicConnector implements TopicPubli
                     topic = topicSession.createTopic(topicName);
                 }
                 topicPublisher = topicSession.createPublisher(topic);
-                TextMessage textMessage = topicSession.createTextMessage(message);
-                topicPublisher.publish(textMessage);
+                javax.jms.Message jmsMessage;
+                if (MessageCodec.hasFormatHeader(message)) {
+                    // Payload is encoded in a wire format negotiated for the topic
+                    BytesMessage bytesMessage = topicSession.createBytesMessage();
+                    bytesMessage.writeBytes(message);
+                    jmsMessage = bytesMessage;
+                } else {
+                    jmsMessage = topicSession.createTextMessage(new String(message, JsonCodec.UTF_8));
+                }
+                topicPublisher.publish(jmsMessage);
                 published = true;
             } catch (Exception e) {
                 String errorMessage = "Could not publish to topic: [topic-name] %s";
@@ -106,9 +127,9 @@ public class AmqpTopicPublisher extends AmqpTopicConnector implements TopicPubli
                     }
 
                 } catch (JMSException e) {
-                    message = "Error cleaning up pubisher";
-                    log.error(message, e);
-                    throw new MessagingException(message, e);
+                    String errorMessage = "Error cleaning up pubisher";
+                    log.error(errorMessage, e);
+                    throw new MessagingException(errorMessage, e);
                 }
 
             }
@@ -62,22 +62,23 @@ public class AmqpTopicSubscriber extends AmqpTopicConnector implements TopicSubs
                 @Override
                 public void onMessage(Message message) {
                     try {
-                        String topicName = null, messageText = null;
+                        org.apache.stratos.messaging.domain.Message message_;
 
                         if (message instanceof ActiveMQTextMessage) {
                             ActiveMQTextMessage textMessage = (ActiveMQTextMessage) message;
-                            topicName = textMessage.getDestination().getPhysicalName();
-                            messageText = textMessage.getText();
+                            String topicName = textMessage.getDestination().getPhysicalName();
+                            message_ = new org.apache.stratos.messaging.domain.Message(topicName,
+                                    textMessage.getText());
                         } else if (message instanceof ActiveMQBytesMessage) {
                             ActiveMQBytesMessage bytesMessage = (ActiveMQBytesMessage) message;
-                            topicName = bytesMessage.getDestination().getPhysicalName();
-                            messageText = new String(bytesMessage.getContent().data);
+                            String topicName = bytesMessage.getDestination().getPhysicalName();
+                            byte[] payload = new byte[(int) bytesMessage.getBodyLength()];
+                            bytesMessage.readBytes(payload);
+                            message_ = new org.apache.stratos.messaging.domain.Message(topicName, payload);
                         } else {
                             throw new RuntimeException(String.format("Could not receive message, " +
                                     "unknown JMS message type: %s", message.getClass().getName()));
                         }
-                        org.apache.stratos.messaging.domain.Message message_ =
-                                new org.apache.stratos.messaging.domain.Message(topicName, messageText);
                         messageListener.messageReceived(message_);
                     } catch (Exception e) {
                         String error = "An error occurred when receiving message";
@@ -22,6 +22,7 @@ package org.apache.stratos.messaging.broker.connect.mqtt;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.messaging.broker.connect.TopicPublisher;
+import org.apache.stratos.messaging.codec.JsonCodec;
 import org.apache.stratos.messaging.domain.exception.MessagingException;
 import org.apache.stratos.messaging.util.MessagingConstants;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
@@ -44,6 +45,10 @@ public class MqttTopicPublisher extends MqttTopicConnector implements TopicPubli
     }
 
     public void publish(String message, boolean retry) {
+        publish(message.getBytes(JsonCodec.UTF_8), retry);
+    }
+
+    public void publish(byte[] message, boolean retry) {
         try {
             if (mqttClient == null) {
                 String error = "Could not publish message to topic, MQTT client has not been initialized";
@@ -53,11 +58,11 @@ public class MqttTopicPublisher extends MqttTopicConnector implements TopicPubli
                 throw new MessagingException(error);
             }
 
-            MqttMessage mqttMessage = new MqttMessage(message.getBytes());
+            MqttMessage mqttMessage = new MqttMessage(message);
             mqttMessage.setQos(MessagingConstants.QOS);
             mqttClient.publish(topicName, mqttMessage);
         } catch (Exception e) {
-            String errorMessage = "Could not publish message: " + message;
+            String errorMessage = "Could not publish message to topic: " + topicName;
             log.error(errorMessage, e);
             throw new MessagingException(errorMessage, e);
         }
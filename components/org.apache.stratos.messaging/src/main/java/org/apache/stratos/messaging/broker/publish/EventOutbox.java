@@ -0,0 +1,473 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.broker.publish;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.broker.connect.RetryTimer;
+import org.apache.stratos.messaging.codec.JsonCodec;
+import org.apache.stratos.messaging.codec.MessageCodec;
+import org.apache.stratos.messaging.domain.EventBatch;
+import org.apache.stratos.messaging.domain.exception.MessagingException;
+import org.apache.stratos.messaging.event.Event;
+import org.apache.stratos.messaging.util.MessagingUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous event outbox for a parent topic. Events are queued in a bounded queue and
+ * published by a single thread, either one by one or as an event batch once the batch size
+ * or the linger time is reached. Since all events of a parent topic go through the same
+ * queue, they are published in the order they were added.
+ * <p/>
+ * An event added with a coalescing key replaces a pending event of the same topic with the
+ * same key, the superseded event is removed from the queue and the new one is appended.
+ * If the superseded event was added with a placeholder event, the placeholder takes its
+ * place in the queue instead.
+ */
+public class EventOutbox implements Runnable, EventOutboxMBean {
+
+    private static final Log log = LogFactory.getLog(EventOutbox.class);
+
+    private final String batchTopicName;
+    private final int capacity;
+    private final int batchSize;
+    private final long lingerTimeNanos;
+
+    // Linked hash set for removing superseded events in constant time
+    private final LinkedHashSet<PendingEvent> queue;
+    private final Map<String, PendingEvent> coalescingKeyToEventMap;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+    private volatile boolean terminated;
+
+    private final AtomicLong publishedEventCount;
+    private final AtomicLong publishedBatchCount;
+    private final AtomicLong coalescedEventCount;
+    private final AtomicLong droppedEventCount;
+    private final AtomicLong totalPublishLatencyNanos;
+    private final AtomicLong totalEventDelayNanos;
+    private volatile long maxPublishLatencyNanos;
+    private volatile int maxPublishedBatchSize;
+
+    /**
+     * @param batchTopicName topic name event batches are published to
+     * @param capacity       maximum number of events queued, publishers are blocked once reached
+     * @param batchSize      maximum number of events published in one message
+     * @param lingerTime     maximum time in milliseconds an event waits for a batch to fill up
+     */
+    public EventOutbox(String batchTopicName, int capacity, int batchSize, long lingerTime) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Event outbox capacity should be greater than zero: " + capacity);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Event outbox batch size should be greater than zero: " + batchSize);
+        }
+        this.batchTopicName = batchTopicName;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.lingerTimeNanos = TimeUnit.MILLISECONDS.toNanos(lingerTime);
+        this.queue = new LinkedHashSet<PendingEvent>();
+        this.coalescingKeyToEventMap = new HashMap<String, PendingEvent>();
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+        this.publishedEventCount = new AtomicLong();
+        this.publishedBatchCount = new AtomicLong();
+        this.coalescedEventCount = new AtomicLong();
+        this.droppedEventCount = new AtomicLong();
+        this.totalPublishLatencyNanos = new AtomicLong();
+        this.totalEventDelayNanos = new AtomicLong();
+    }
+
+    /**
+     * Add an event to the outbox.
+     *
+     * @param topicName topic name of the event
+     * @param event     event to be published
+     */
+    public void publish(String topicName, Event event) {
+        publish(topicName, event, null);
+    }
+
+    /**
+     * Add an event to the outbox, replacing any pending event of the same topic having the
+     * same coalescing key. The event is converted to JSON at this point, hence later changes
+     * to the event object are not reflected in the published message.
+     *
+     * @param topicName     topic name of the event
+     * @param event         event to be published
+     * @param coalescingKey key identifying superseded events, null if the event should not be coalesced
+     */
+    public void publish(String topicName, Event event, String coalescingKey) {
+        publish(topicName, event, coalescingKey, null);
+    }
+
+    /**
+     * Add an event to the outbox, replacing any pending event of the same topic having the
+     * same coalescing key. If this event is superseded in turn, the given placeholder event is
+     * published in its place, for subscribers relying on the sequence of the events.
+     *
+     * @param topicName        topic name of the event
+     * @param event            event to be published
+     * @param coalescingKey    key identifying superseded events, null if the event should not be coalesced
+     * @param placeholderEvent event published instead of this event if superseded, null to drop it
+     */
+    public void publish(String topicName, Event event, String coalescingKey, Event placeholderEvent) {
+        byte[] message = JsonCodec.encode(event);
+        String key = (coalescingKey == null) ? null : topicName + ":" + coalescingKey;
+
+        lock.lock();
+        try {
+            while ((queue.size() >= capacity) && !terminated) {
+                notFull.await();
+            }
+            if (terminated) {
+                throw new MessagingException(String.format("Event outbox has been terminated: [topic] %s",
+                        batchTopicName));
+            }
+
+            if (key != null) {
+                PendingEvent supersededEvent = coalescingKeyToEventMap.remove(key);
+                if (supersededEvent != null) {
+                    if (supersededEvent.getPlaceholderEvent() != null) {
+                        supersededEvent.replaceWithPlaceholder();
+                        coalescedEventCount.incrementAndGet();
+                    } else if (queue.remove(supersededEvent)) {
+                        coalescedEventCount.incrementAndGet();
+                    }
+                }
+            }
+            PendingEvent pendingEvent = new PendingEvent(topicName, message, key,
+                    (key == null) ? null : placeholderEvent, System.nanoTime());
+            queue.add(pendingEvent);
+            if (key != null) {
+                coalescingKeyToEventMap.put(key, pendingEvent);
+            }
+
+            // Wake up the publisher thread only when it needs to act
+            if ((queue.size() == 1) || (queue.size() >= batchSize)) {
+                notEmpty.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException(String.format("Interrupted while adding event to outbox: [topic] %s",
+                    topicName), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void run() {
+        if (log.isInfoEnabled()) {
+            log.info(String.format("Event outbox started: [topic] %s [capacity] %d [batch-size] %d " +
+                    "[linger-time] %d ms", batchTopicName, capacity, batchSize,
+                    TimeUnit.NANOSECONDS.toMillis(lingerTimeNanos)));
+        }
+
+        try {
+            List<PendingEvent> batch;
+            while ((batch = takeBatch()) != null) {
+                publishBatch(batch);
+            }
+        } catch (InterruptedException ignore) {
+            log.info(String.format("Shutting down event outbox: [topic] %s", batchTopicName));
+        }
+    }
+
+    /**
+     * Wait until the batch size or the linger time of the oldest event is reached and take
+     * the next batch from the queue.
+     *
+     * @return next batch of events, null if the outbox has been terminated and the queue is empty
+     */
+    private List<PendingEvent> takeBatch() throws InterruptedException {
+        lock.lock();
+        try {
+            while (queue.isEmpty() && !terminated) {
+                notEmpty.await();
+            }
+            if (queue.isEmpty()) {
+                return null;
+            }
+
+            long deadline = queue.iterator().next().getEnqueuedTime() + lingerTimeNanos;
+            while ((queue.size() < batchSize) && !terminated) {
+                long remainingTime = deadline - System.nanoTime();
+                if (remainingTime <= 0) {
+                    break;
+                }
+                notEmpty.awaitNanos(remainingTime);
+            }
+
+            List<PendingEvent> batch = new ArrayList<PendingEvent>(Math.min(batchSize, queue.size()));
+            Iterator<PendingEvent> iterator = queue.iterator();
+            while (iterator.hasNext() && (batch.size() < batchSize)) {
+                PendingEvent pendingEvent = iterator.next();
+                iterator.remove();
+                if (pendingEvent.getCoalescingKey() != null) {
+                    coalescingKeyToEventMap.remove(pendingEvent.getCoalescingKey());
+                }
+                batch.add(pendingEvent);
+            }
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publish a batch of events, retrying until the message broker accepts it. A batch which
+     * cannot be encoded is split up so that only the events which cannot be encoded are dropped.
+     */
+    private void publishBatch(List<PendingEvent> batch) throws InterruptedException {
+        EventPublisher eventPublisher;
+        byte[] message;
+        try {
+            if (batch.size() == 1) {
+                // Publish a single event to its own topic, as it would be without the outbox
+                PendingEvent pendingEvent = batch.get(0);
+                eventPublisher = EventPublisherPool.getPublisher(pendingEvent.getTopicName());
+                message = MessageCodec.encodeJson(pendingEvent.getTopicName(), pendingEvent.getMessage());
+            } else {
+                EventBatch eventBatch = new EventBatch();
+                for (PendingEvent pendingEvent : batch) {
+                    eventBatch.addEntry(pendingEvent.getTopicName(),
+                            new String(pendingEvent.getMessage(), JsonCodec.UTF_8));
+                }
+                eventPublisher = EventPublisherPool.getPublisher(batchTopicName);
+                message = MessageCodec.encode(batchTopicName, eventBatch);
+            }
+        } catch (Exception e) {
+            if (batch.size() > 1) {
+                log.warn(String.format("Could not encode event batch, publishing events one by one: [topic] %s " +
+                        "[batch-size] %d", batchTopicName, batch.size()), e);
+                for (PendingEvent pendingEvent : batch) {
+                    publishBatch(Collections.singletonList(pendingEvent));
+                }
+            } else {
+                droppedEventCount.incrementAndGet();
+                log.error(String.format("Could not encode event, event dropped: [topic] %s",
+                        batch.get(0).getTopicName()), e);
+            }
+            return;
+        }
+
+        RetryTimer retryTimer = new RetryTimer();
+        while (true) {
+            try {
+                long startTime = System.nanoTime();
+                eventPublisher.publishMessage(message, true);
+                long endTime = System.nanoTime();
+                updateStatistics(batch, startTime, endTime);
+
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Events published: [topic] %s [batch-size] %d [latency] %d ms",
+                            batchTopicName, batch.size(), TimeUnit.NANOSECONDS.toMillis(endTime - startTime)));
+                }
+                return;
+            } catch (MessagingException e) {
+                // Message broker is not reachable, the same message can be published once it is back
+                long interval = retryTimer.getNextInterval();
+                log.error(String.format("Could not publish events, will retry in %d sec: [topic] %s " +
+                        "[batch-size] %d", interval / 1000, batchTopicName, batch.size()), e);
+                Thread.sleep(interval);
+            } catch (RuntimeException e) {
+                droppedEventCount.addAndGet(batch.size());
+                log.error(String.format("Could not publish events, events dropped: [topic] %s [batch-size] %d",
+                        batchTopicName, batch.size()), e);
+                return;
+            }
+        }
+    }
+
+    private void updateStatistics(List<PendingEvent> batch, long startTime, long endTime) {
+        long publishLatency = endTime - startTime;
+        publishedBatchCount.incrementAndGet();
+        publishedEventCount.addAndGet(batch.size());
+        totalPublishLatencyNanos.addAndGet(publishLatency);
+        for (PendingEvent pendingEvent : batch) {
+            totalEventDelayNanos.addAndGet(endTime - pendingEvent.getEnqueuedTime());
+        }
+        // Only the outbox thread updates the maximum values
+        if (publishLatency > maxPublishLatencyNanos) {
+            maxPublishLatencyNanos = publishLatency;
+        }
+        if (batch.size() > maxPublishedBatchSize) {
+            maxPublishedBatchSize = batch.size();
+        }
+    }
+
+    /**
+     * Stop accepting events, publish the events already queued and stop the outbox thread.
+     */
+    public void terminate() {
+        lock.lock();
+        try {
+            terminated = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String getBatchTopicName() {
+        return batchTopicName;
+    }
+
+    /**
+     * @return number of events waiting to be published
+     */
+    @Override
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getPublishedEventCount() {
+        return publishedEventCount.get();
+    }
+
+    @Override
+    public long getPublishedBatchCount() {
+        return publishedBatchCount.get();
+    }
+
+    @Override
+    public long getCoalescedEventCount() {
+        return coalescedEventCount.get();
+    }
+
+    /**
+     * @return number of events dropped since they could not be encoded or published
+     */
+    @Override
+    public long getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
+
+    @Override
+    public double getAverageBatchSize() {
+        long batchCount = publishedBatchCount.get();
+        return (batchCount == 0) ? 0 : (double) publishedEventCount.get() / batchCount;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return maxPublishedBatchSize;
+    }
+
+    /**
+     * @return average time in milliseconds taken to publish a message to the message broker
+     */
+    @Override
+    public double getAveragePublishLatency() {
+        long batchCount = publishedBatchCount.get();
+        return (batchCount == 0) ? 0 : (double) totalPublishLatencyNanos.get() / batchCount / 1000000;
+    }
+
+    /**
+     * @return maximum time in milliseconds taken to publish a message to the message broker
+     */
+    @Override
+    public double getMaxPublishLatency() {
+        return (double) maxPublishLatencyNanos / 1000000;
+    }
+
+    /**
+     * @return average time in milliseconds from adding an event to the outbox until it is published
+     */
+    @Override
+    public double getAverageEventDelay() {
+        long eventCount = publishedEventCount.get();
+        return (eventCount == 0) ? 0 : (double) totalEventDelayNanos.get() / eventCount / 1000000;
+    }
+
+    /**
+     * An event waiting in the outbox queue, identified by the instance.
+     */
+    private static class PendingEvent {
+
+        private String topicName;
+        private byte[] message;
+        private String coalescingKey;
+        private Event placeholderEvent;
+        private final long enqueuedTime;
+
+        private PendingEvent(String topicName, byte[] message, String coalescingKey, Event placeholderEvent,
+                             long enqueuedTime) {
+            this.topicName = topicName;
+            this.message = message;
+            this.coalescingKey = coalescingKey;
+            this.placeholderEvent = placeholderEvent;
+            this.enqueuedTime = enqueuedTime;
+        }
+
+        /**
+         * Publish the placeholder event instead of the superseded event, keeping its position.
+         */
+        private void replaceWithPlaceholder() {
+            topicName = MessagingUtil.getMessageTopicName(placeholderEvent);
+            message = JsonCodec.encode(placeholderEvent);
+            coalescingKey = null;
+            placeholderEvent = null;
+        }
+
+        public String getTopicName() {
+            return topicName;
+        }
+
+        public byte[] getMessage() {
+            return message;
+        }
+
+        public String getCoalescingKey() {
+            return coalescingKey;
+        }
+
+        public Event getPlaceholderEvent() {
+            return placeholderEvent;
+        }
+
+        public long getEnqueuedTime() {
+            return enqueuedTime;
+        }
+    }
+}
@@ -7,7 +7,7 @@
  * "License"); you may not use this file except in compliance
  * with the License.  You may obtain a copy of the License at
  *
- *  http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.apache.org/licenses/LICENSE-2.0
  *
  * Unless required by applicable law or agreed to in writing,
  * software distributed under the License is distributed on an
@@ -16,23 +16,33 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.apache.stratos.load.balancer.statistics;
 
-import java.util.concurrent.Callable;
+package org.apache.stratos.messaging.broker.publish;
 
 /**
- * In-flight request increment callable definition.
+ * JMX view of an event outbox, times are in milliseconds.
  */
-public class InFlightRequestIncrementCallable implements Callable<Object> {
-    private String clusterId;
-
-    public InFlightRequestIncrementCallable(String clusterId) {
-        this.clusterId = clusterId;
-    }
-
-    @Override
-    public Object call() throws Exception {
-        LoadBalancerStatisticsCollector.getInstance().incrementInFlightRequestCount(clusterId);
-        return null;
-    }
+public interface EventOutboxMBean {
+
+    String getBatchTopicName();
+
+    int getQueueDepth();
+
+    long getPublishedEventCount();
+
+    long getPublishedBatchCount();
+
+    long getCoalescedEventCount();
+
+    long getDroppedEventCount();
+
+    double getAverageBatchSize();
+
+    int getMaxBatchSize();
+
+    double getAveragePublishLatency();
+
+    double getMaxPublishLatency();
+
+    double getAverageEventDelay();
 }
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.broker.publish;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.event.Event;
+import org.apache.stratos.messaging.util.MessagingUtil;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Event outbox pool will make sure that only one outbox is created for each parent topic.
+ * Outboxes are used by publishers only if the system property stratos.messaging.outbox.enabled
+ * is set to true. Outboxes are registered with the platform MBean server as
+ * org.apache.stratos:type=EventOutbox,topic=[batch topic name].
+ */
+public class EventOutboxPool {
+
+    private static final Log log = LogFactory.getLog(EventOutboxPool.class);
+
+    public static final String OUTBOX_ENABLED_PROPERTY = "stratos.messaging.outbox.enabled";
+    public static final String OUTBOX_CAPACITY_PROPERTY = "stratos.messaging.outbox.capacity";
+    public static final String OUTBOX_BATCH_SIZE_PROPERTY = "stratos.messaging.outbox.batchSize";
+    public static final String OUTBOX_LINGER_TIME_PROPERTY = "stratos.messaging.outbox.lingerTime";
+
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_LINGER_TIME = 50;
+
+    private static final String OBJECT_NAME_FORMAT = "org.apache.stratos:type=EventOutbox,topic=%s";
+
+    private static Map<String, EventOutbox> topicNameEventOutboxMap = new ConcurrentHashMap<String, EventOutbox>();
+
+    /**
+     * @return true if events should be published through the event outbox
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(OUTBOX_ENABLED_PROPERTY);
+    }
+
+    /**
+     * Publish an event through the outbox of its parent topic.
+     *
+     * @param event event to be published
+     */
+    public static void publish(Event event) {
+        publish(event, null);
+    }
+
+    /**
+     * Publish an event through the outbox of its parent topic, replacing any pending
+     * event of the same type having the same coalescing key.
+     *
+     * @param event         event to be published
+     * @param coalescingKey key identifying superseded events, null if the event should not be coalesced
+     */
+    public static void publish(Event event, String coalescingKey) {
+        publish(event, coalescingKey, null);
+    }
+
+    /**
+     * Publish an event through the outbox of its parent topic, replacing any pending
+     * event of the same type having the same coalescing key.
+     *
+     * @param event            event to be published
+     * @param coalescingKey    key identifying superseded events, null if the event should not be coalesced
+     * @param placeholderEvent event published instead of this event if superseded, null to drop it
+     */
+    public static void publish(Event event, String coalescingKey, Event placeholderEvent) {
+        String topicName = MessagingUtil.getMessageTopicName(event);
+        getOutbox(topicName).publish(topicName, event, coalescingKey, placeholderEvent);
+    }
+
+    /**
+     * Get the event outbox of the parent topic of the given event topic.
+     *
+     * @param topicName topic name of the event
+     * @return event outbox
+     */
+    public static EventOutbox getOutbox(String topicName) {
+        String batchTopicName = MessagingUtil.getEventBatchTopicName(topicName);
+        EventOutbox eventOutbox = topicNameEventOutboxMap.get(batchTopicName);
+        if (eventOutbox != null) {
+            return eventOutbox;
+        }
+
+        synchronized (EventOutboxPool.class) {
+            eventOutbox = topicNameEventOutboxMap.get(batchTopicName);
+            if (eventOutbox != null) {
+                return eventOutbox;
+            }
+
+            int capacity = MessagingUtil.getNumericSystemProperty(DEFAULT_CAPACITY, OUTBOX_CAPACITY_PROPERTY);
+            int batchSize = MessagingUtil.getNumericSystemProperty(DEFAULT_BATCH_SIZE, OUTBOX_BATCH_SIZE_PROPERTY);
+            int lingerTime = MessagingUtil.getNumericSystemProperty(DEFAULT_LINGER_TIME,
+                    OUTBOX_LINGER_TIME_PROPERTY);
+            eventOutbox = new EventOutbox(batchTopicName, capacity, batchSize, lingerTime);
+
+            Thread outboxThread = new Thread(eventOutbox, "event-outbox-" + batchTopicName);
+            outboxThread.setDaemon(true);
+            outboxThread.start();
+
+            topicNameEventOutboxMap.put(batchTopicName, eventOutbox);
+            registerMBean(eventOutbox);
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Event outbox instance created: [topic] %s", batchTopicName));
+            }
+            return eventOutbox;
+        }
+    }
+
+    /**
+     * @return event outboxes created so far, for exposing their statistics
+     */
+    public static Collection<EventOutbox> getOutboxes() {
+        return new ArrayList<EventOutbox>(topicNameEventOutboxMap.values());
+    }
+
+    /**
+     * Terminate all event outboxes, events already queued are still published.
+     */
+    public static void terminateAll() {
+        synchronized (EventOutboxPool.class) {
+            for (EventOutbox eventOutbox : topicNameEventOutboxMap.values()) {
+                eventOutbox.terminate();
+                unregisterMBean(eventOutbox);
+            }
+            topicNameEventOutboxMap.clear();
+        }
+    }
+
+    private static ObjectName getObjectName(EventOutbox eventOutbox) throws Exception {
+        return new ObjectName(String.format(OBJECT_NAME_FORMAT, ObjectName.quote(eventOutbox.getBatchTopicName())));
+    }
+
+    private static void registerMBean(EventOutbox eventOutbox) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = getObjectName(eventOutbox);
+            if (!mBeanServer.isRegistered(name)) {
+                mBeanServer.registerMBean(eventOutbox, name);
+            }
+        } catch (Exception e) {
+            // Events are still published, only the JMX view is not available
+            log.warn(String.format("Could not register event outbox MBean: [topic] %s",
+                    eventOutbox.getBatchTopicName()), e);
+        }
+    }
+
+    private static void unregisterMBean(EventOutbox eventOutbox) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = getObjectName(eventOutbox);
+            if (mBeanServer.isRegistered(name)) {
+                mBeanServer.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            log.warn(String.format("Could not unregister event outbox MBean: [topic] %s",
+                    eventOutbox.getBatchTopicName()), e);
+        }
+    }
+}
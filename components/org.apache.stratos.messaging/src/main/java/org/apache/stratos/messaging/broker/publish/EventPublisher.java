@@ -19,24 +19,35 @@
 
 package org.apache.stratos.messaging.broker.publish;
 
-import com.google.gson.Gson;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.messaging.broker.connect.TopicPublisher;
 import org.apache.stratos.messaging.broker.connect.TopicPublisherFactory;
+import org.apache.stratos.messaging.codec.MessageCodec;
+import org.apache.stratos.messaging.domain.exception.MessagingException;
 import org.apache.stratos.messaging.event.Event;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * A topic publisher for publishing messages to a message broker topic.
- * Messages will be published in JSON format.
+ * Messages will be published in the wire format configured for the topic, JSON by default.
+ * <p/>
+ * By default a connection is established and closed for each message while holding a
+ * JVM wide lock. If the system property stratos.messaging.publisher.persistentConnection
+ * is set to true, the publisher keeps its broker connection open, serializes messages
+ * outside of any lock and only serializes publishing on the same topic.
  */
 public class EventPublisher {
 
     private static final Log log = LogFactory.getLog(EventPublisher.class);
 
+    public static final String PERSISTENT_CONNECTION_PROPERTY = "stratos.messaging.publisher.persistentConnection";
+
     private final String topicName;
     private final TopicPublisher topicPublisher;
+    private final boolean persistentConnection;
+    private final Object publisherLock = new Object();
+    private boolean connected;
 
     /**
      * @param topicName topic name of this publisher instance.
@@ -45,8 +56,10 @@ public class EventPublisher {
         this.topicName = topicName;
         String protocol = MessagingUtil.getMessagingProtocol();
         this.topicPublisher = TopicPublisherFactory.createTopicPublisher(protocol, topicName);
+        this.persistentConnection = Boolean.getBoolean(PERSISTENT_CONNECTION_PROPERTY);
         if (log.isDebugEnabled()) {
-            log.debug(String.format("Topic publisher created: [protocol] %s [topic] %s", protocol, topicName));
+            log.debug(String.format("Topic publisher created: [protocol] %s [topic] %s [persistent-connection] %s",
+                    protocol, topicName, persistentConnection));
         }
     }
 
@@ -60,18 +73,71 @@ public class EventPublisher {
     }
 
     /**
-     * Convert the object to its JSON representation and publish to the given topic.
+     * Encode the object in the wire format of the topic and publish to the given topic.
      */
 
     public void publish(Object messageObj, boolean retry) {
-        synchronized (EventPublisher.class) {
-            Gson gson = new Gson();
-            String message = gson.toJson(messageObj);
+        publishMessage(MessageCodec.encode(topicName, messageObj), retry);
+    }
+
+    /**
+     * Publish a message which has already been encoded.
+     */
+    void publishMessage(byte[] message, boolean retry) {
+        if (persistentConnection) {
+            publishUsingPersistentConnection(message, retry);
+            return;
+        }
 
+        synchronized (EventPublisher.class) {
             topicPublisher.connect();
             topicPublisher.publish(message, retry);
             topicPublisher.disconnect();
 
         }
     }
+
+    private void publishUsingPersistentConnection(byte[] message, boolean retry) {
+        synchronized (publisherLock) {
+            if (!connected) {
+                topicPublisher.connect();
+                connected = true;
+            }
+            try {
+                topicPublisher.publish(message, retry);
+            } catch (MessagingException e) {
+                // Connection might have been dropped by the message broker, close it so that
+                // the next attempt starts with a fresh connection
+                topicPublisher.disconnect();
+                connected = false;
+                if (!retry) {
+                    throw e;
+                }
+
+                log.warn(String.format("Could not publish message, reconnecting: [topic] %s", topicName));
+                topicPublisher.connect();
+                connected = true;
+                topicPublisher.publish(message, retry);
+            }
+        }
+    }
+
+    /**
+     * Close the broker connection if it has been kept open by this publisher.
+     */
+    public void close() {
+        synchronized (publisherLock) {
+            if (connected) {
+                topicPublisher.disconnect();
+                connected = false;
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Topic publisher disconnected: [topic] %s", topicName));
+                }
+            }
+        }
+    }
+
+    public boolean isPersistentConnection() {
+        return persistentConnection;
+    }
 }
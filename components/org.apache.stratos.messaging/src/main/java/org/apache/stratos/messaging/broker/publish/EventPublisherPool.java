@@ -22,8 +22,8 @@ package org.apache.stratos.messaging.broker.publish;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Event publisher instance pool will make sure that only one publisher
@@ -31,9 +31,19 @@ import java.util.Map;
  */
 public class EventPublisherPool {
     private static final Log log = LogFactory.getLog(EventPublisherPool.class);
-    private static Map<String, EventPublisher> topicNameEventPublisherMap = new HashMap<String, EventPublisher>();
+    private static Map<String, EventPublisher> topicNameEventPublisherMap =
+            new ConcurrentHashMap<String, EventPublisher>();
 
     public static EventPublisher getPublisher(String topicName) {
+        // Avoid taking the pool lock once the publisher has been created
+        EventPublisher pooledPublisher = topicNameEventPublisherMap.get(topicName);
+        if (pooledPublisher != null) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Event publisher fetched from pool: [topic] %s", topicName));
+            }
+            return pooledPublisher;
+        }
+
         synchronized (EventPublisherPool.class) {
             if (topicNameEventPublisherMap.containsKey(topicName)) {
                 if (log.isDebugEnabled()) {
@@ -53,7 +63,8 @@ public class EventPublisherPool {
     public static void close(String topicName) {
         synchronized (EventPublisherPool.class) {
             if (topicNameEventPublisherMap.containsKey(topicName)) {
-                topicNameEventPublisherMap.remove(topicName);
+                EventPublisher eventPublisher = topicNameEventPublisherMap.remove(topicName);
+                eventPublisher.close();
                 if (log.isDebugEnabled()) {
                     log.debug(String.format("Event publisher closed and removed from pool: [topic] %s", topicName));
                 }
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.broker.subscribe;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.EventBatch;
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.util.MessagingUtil;
+
+/**
+ * Message listener which splits event batches published by the event outbox into
+ * individual messages and passes them to the actual message listener in order.
+ * Messages which are not batches are passed through as they are.
+ */
+class EventBatchMessageListener implements MessageListener {
+
+    private static final Log log = LogFactory.getLog(EventBatchMessageListener.class);
+
+    private final MessageListener messageListener;
+
+    EventBatchMessageListener(MessageListener messageListener) {
+        this.messageListener = messageListener;
+    }
+
+    @Override
+    public void messageReceived(Message message) {
+        if (!EventBatch.isEventBatch(message)) {
+            messageListener.messageReceived(message);
+            return;
+        }
+
+        EventBatch eventBatch = (EventBatch) MessagingUtil.jsonToObject(message, EventBatch.class);
+        if (eventBatch == null) {
+            log.warn(String.format("Could not read event batch: [topic] %s", message.getTopicName()));
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Event batch received: [topic] %s [size] %d", message.getTopicName(),
+                    eventBatch.size()));
+        }
+        for (EventBatch.Entry entry : eventBatch.getEntries()) {
+            messageListener.messageReceived(new Message(entry.getTopicName(), entry.getMessage()));
+        }
+    }
+}
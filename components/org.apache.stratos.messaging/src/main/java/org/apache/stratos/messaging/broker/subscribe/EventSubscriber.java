@@ -43,7 +43,9 @@ public class EventSubscriber implements Runnable {
     public EventSubscriber(String topicName, MessageListener messageListener) {
         this.topicName = topicName;
         String protocol = MessagingUtil.getMessagingProtocol();
-        this.topicSubscriber = TopicSubscriberFactory.createTopicSubscriber(protocol, messageListener, topicName);
+        // Event batches published by the event outbox are split before reaching the message listener
+        this.topicSubscriber = TopicSubscriberFactory.createTopicSubscriber(protocol,
+                new EventBatchMessageListener(messageListener), topicName);
 
         if (log.isDebugEnabled()) {
             log.debug(String.format("Topic subscriber created: [protocol] %s [topic] %s", protocol, topicName));
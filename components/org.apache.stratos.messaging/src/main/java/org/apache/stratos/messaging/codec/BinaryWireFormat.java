@@ -0,0 +1,639 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.apache.stratos.messaging.domain.exception.MessagingException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary wire format. The field schema is derived from the event classes by
+ * Gson, hence any object that can be encoded in JSON can be encoded in this format
+ * and vice versa. Objects are encoded and decoded in a single pass by the Gson type
+ * adapters. Field names and repeated string values (service names, cluster ids,
+ * network partition ids, etc) are written once per message and referred by index
+ * afterwards, integers are written as variable length integers.
+ */
+public class BinaryWireFormat implements WireFormat {
+
+    public static final byte ID = 2;
+    public static final String NAME = "binary";
+
+    private static final byte BEGIN_OBJECT = 1;
+    private static final byte END_OBJECT = 2;
+    private static final byte BEGIN_ARRAY = 3;
+    private static final byte END_ARRAY = 4;
+    private static final byte NULL = 5;
+    private static final byte TRUE = 6;
+    private static final byte FALSE = 7;
+    private static final byte LONG = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte NUMBER = 10;
+    private static final byte STRING = 11;
+    private static final byte STRING_REFERENCE = 12;
+
+    // Longer strings are unlikely to be repeated, they are not kept in the string table
+    private static final int MAX_REFERENCED_STRING_LENGTH = 256;
+
+    private static final Gson gson = new Gson();
+    private static final Map<Class, TypeAdapter> typeAdapterMap = new ConcurrentHashMap<Class, TypeAdapter>();
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] encode(Object object) {
+        BinaryWriter writer = new BinaryWriter();
+        try {
+            if (object instanceof JsonElement) {
+                writer.write((JsonElement) object);
+            } else {
+                getTypeAdapter(object.getClass()).write(writer, object);
+            }
+        } catch (IOException e) {
+            throw new MessagingException(String.format("Could not encode object: [type] %s",
+                    object.getClass().getName()), e);
+        }
+        return writer.toByteArray();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T decode(byte[] data, Class<T> type) {
+        JsonReader reader = new JsonReader(new JsonTextReader(data));
+        reader.setLenient(true);
+        try {
+            return (T) getTypeAdapter(type).read(reader);
+        } catch (IOException e) {
+            throw new MessagingException(String.format("Could not decode object: [type] %s", type.getName()), e);
+        } catch (RuntimeException e) {
+            throw new MessagingException(String.format("Could not decode object: [type] %s", type.getName()), e);
+        }
+    }
+
+    private static TypeAdapter getTypeAdapter(Class type) {
+        TypeAdapter typeAdapter = typeAdapterMap.get(type);
+        if (typeAdapter == null) {
+            typeAdapter = gson.getAdapter(type);
+            typeAdapterMap.put(type, typeAdapter);
+        }
+        return typeAdapter;
+    }
+
+    /**
+     * Writes the tokens produced by Gson type adapters in the binary format, hence objects
+     * are encoded in a single pass without building a JSON tree. Names of null fields are
+     * deferred and dropped as in the JSON wire format.
+     */
+    private static class BinaryWriter extends JsonWriter {
+
+        private static final Writer UNSUPPORTED_WRITER = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        private byte[] buffer = new byte[256];
+        private int size;
+        private final Map<String, Integer> stringTable = new HashMap<String, Integer>();
+        private String deferredName;
+
+        BinaryWriter() {
+            super(UNSUPPORTED_WRITER);
+        }
+
+        @Override
+        public JsonWriter beginObject() throws IOException {
+            writeDeferredName();
+            writeByte(BEGIN_OBJECT);
+            return this;
+        }
+
+        @Override
+        public JsonWriter endObject() throws IOException {
+            deferredName = null;
+            writeByte(END_OBJECT);
+            return this;
+        }
+
+        @Override
+        public JsonWriter beginArray() throws IOException {
+            writeDeferredName();
+            writeByte(BEGIN_ARRAY);
+            return this;
+        }
+
+        @Override
+        public JsonWriter endArray() throws IOException {
+            writeByte(END_ARRAY);
+            return this;
+        }
+
+        @Override
+        public JsonWriter name(String name) throws IOException {
+            if (name == null) {
+                throw new NullPointerException("name == null");
+            }
+            deferredName = name;
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(String value) throws IOException {
+            if (value == null) {
+                return nullValue();
+            }
+            writeDeferredName();
+            writeString(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter nullValue() throws IOException {
+            if (deferredName != null) {
+                // Null fields are omitted as in the JSON wire format
+                deferredName = null;
+                return this;
+            }
+            writeByte(NULL);
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(boolean value) throws IOException {
+            writeDeferredName();
+            writeByte(value ? TRUE : FALSE);
+            return this;
+        }
+
+        // Overloads added in later Gson versions
+        public JsonWriter value(Boolean value) throws IOException {
+            return (value == null) ? nullValue() : value(value.booleanValue());
+        }
+
+        public JsonWriter value(float value) throws IOException {
+            return value((double) value);
+        }
+
+        @Override
+        public JsonWriter value(double value) throws IOException {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+            }
+            writeDeferredName();
+            writeByte(DOUBLE);
+            writeLong(Double.doubleToLongBits(value));
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(long value) throws IOException {
+            writeDeferredName();
+            writeByte(LONG);
+            writeVarLong(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(Number value) throws IOException {
+            if (value == null) {
+                return nullValue();
+            }
+            if ((value instanceof Long) || (value instanceof Integer) ||
+                    (value instanceof Short) || (value instanceof Byte)) {
+                return value(value.longValue());
+            }
+            if ((value instanceof Double) || (value instanceof Float)) {
+                return value(value.doubleValue());
+            }
+            // Numbers parsed from JSON text and big numbers are kept as they are written
+            String text = value.toString();
+            Long longValue = parseLong(text);
+            if (longValue != null) {
+                return value(longValue.longValue());
+            }
+            writeDeferredName();
+            writeByte(NUMBER);
+            writeString(text);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        void write(JsonElement element) throws IOException {
+            if ((element == null) || element.isJsonNull()) {
+                nullValue();
+            } else if (element.isJsonObject()) {
+                beginObject();
+                for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+                    name(entry.getKey());
+                    write(entry.getValue());
+                }
+                endObject();
+            } else if (element.isJsonArray()) {
+                beginArray();
+                for (JsonElement item : element.getAsJsonArray()) {
+                    write(item);
+                }
+                endArray();
+            } else {
+                JsonPrimitive primitive = element.getAsJsonPrimitive();
+                if (primitive.isBoolean()) {
+                    value(primitive.getAsBoolean());
+                } else if (primitive.isNumber()) {
+                    value(primitive.getAsNumber());
+                } else {
+                    value(primitive.getAsString());
+                }
+            }
+        }
+
+        private void writeDeferredName() {
+            if (deferredName != null) {
+                writeString(deferredName);
+                deferredName = null;
+            }
+        }
+
+        private void writeString(String value) {
+            Integer index = stringTable.get(value);
+            if (index != null) {
+                writeByte(STRING_REFERENCE);
+                writeVarInt(index);
+                return;
+            }
+            byte[] bytes = value.getBytes(JsonCodec.UTF_8);
+            writeByte(STRING);
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+            if (bytes.length <= MAX_REFERENCED_STRING_LENGTH) {
+                stringTable.put(value, stringTable.size());
+            }
+        }
+
+        private void writeVarLong(long value) {
+            // Zigzag encoding keeps small negative numbers short
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                writeByte((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            writeByte((int) zigzag);
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        private void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        private static Long parseLong(String value) {
+            int length = value.length();
+            if ((length == 0) || (length > 18)) {
+                return null;
+            }
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (((c < '0') || (c > '9')) && !((i == 0) && (c == '-') && (length > 1))) {
+                    return null;
+                }
+            }
+            return Long.parseLong(value);
+        }
+
+        private void writeByte(int value) {
+            if (size == buffer.length) {
+                ensureCapacity(1);
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void ensureCapacity(int length) {
+            if (size + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + length));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    /**
+     * Reads a binary message as JSON text, hence it can be decoded by the streaming Gson
+     * type adapters. Strings of the string table are kept as JSON literals and are not
+     * decoded again when referred.
+     */
+    private static class JsonTextReader extends Reader {
+
+        private static final char[] NULL_LITERAL = "null".toCharArray();
+        private static final char[] TRUE_LITERAL = "true".toCharArray();
+        private static final char[] FALSE_LITERAL = "false".toCharArray();
+        private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+        private final byte[] data;
+        private final List<char[]> stringTable = new ArrayList<char[]>();
+        private int position;
+
+        // Container stack: true for objects, false for arrays
+        private boolean[] objectStack = new boolean[32];
+        private boolean[] emptyStack = new boolean[32];
+        private int depth;
+        private boolean valueExpected;
+
+        private char[] chunk = new char[256];
+        private int chunkPosition;
+        private int chunkLength;
+
+        JsonTextReader(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int count = 0;
+            while (count < length) {
+                if (chunkPosition == chunkLength) {
+                    if (!readToken()) {
+                        break;
+                    }
+                }
+                int n = Math.min(length - count, chunkLength - chunkPosition);
+                System.arraycopy(chunk, chunkPosition, buffer, offset + count, n);
+                chunkPosition += n;
+                count += n;
+            }
+            return ((count == 0) && (length > 0)) ? -1 : count;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        /**
+         * Read the next token into the chunk, returns false at the end of the message.
+         */
+        private boolean readToken() throws IOException {
+            if (position == data.length) {
+                if (depth > 0) {
+                    throw new IOException("Unexpected end of message");
+                }
+                return false;
+            }
+            chunkPosition = 0;
+            chunkLength = 0;
+            byte tag = data[position++];
+            if ((tag == END_OBJECT) || (tag == END_ARRAY)) {
+                if ((depth == 0) || (objectStack[depth - 1] != (tag == END_OBJECT)) || valueExpected) {
+                    throw new IOException(String.format("Unexpected tag: [tag] %d [position] %d", tag, position - 1));
+                }
+                depth--;
+                append(tag == END_OBJECT ? '}' : ']');
+                return true;
+            }
+
+            if (valueExpected) {
+                valueExpected = false;
+            } else if (depth > 0) {
+                if (emptyStack[depth - 1]) {
+                    emptyStack[depth - 1] = false;
+                } else {
+                    append(',');
+                }
+                if (objectStack[depth - 1]) {
+                    // Field name
+                    appendString(tag);
+                    append(':');
+                    valueExpected = true;
+                    return true;
+                }
+            }
+
+            switch (tag) {
+                case BEGIN_OBJECT:
+                case BEGIN_ARRAY:
+                    push(tag == BEGIN_OBJECT);
+                    append(tag == BEGIN_OBJECT ? '{' : '[');
+                    break;
+                case NULL:
+                    append(NULL_LITERAL, NULL_LITERAL.length);
+                    break;
+                case TRUE:
+                    append(TRUE_LITERAL, TRUE_LITERAL.length);
+                    break;
+                case FALSE:
+                    append(FALSE_LITERAL, FALSE_LITERAL.length);
+                    break;
+                case LONG:
+                    appendText(Long.toString(readVarLong()));
+                    break;
+                case DOUBLE:
+                    appendText(Double.toString(Double.longBitsToDouble(readLong())));
+                    break;
+                case NUMBER:
+                    // Written as a string literal, the quotes are dropped
+                    char[] number = readString(readTag());
+                    append(number, 1, number.length - 2);
+                    break;
+                case STRING:
+                case STRING_REFERENCE:
+                    appendString(tag);
+                    break;
+                default:
+                    throw new IOException(String.format("Unknown tag: [tag] %d [position] %d", tag, position - 1));
+            }
+            return true;
+        }
+
+        private void push(boolean object) {
+            if (depth == objectStack.length) {
+                objectStack = Arrays.copyOf(objectStack, depth << 1);
+                emptyStack = Arrays.copyOf(emptyStack, depth << 1);
+            }
+            objectStack[depth] = object;
+            emptyStack[depth] = true;
+            depth++;
+        }
+
+        private void appendString(byte tag) throws IOException {
+            char[] literal = readString(tag);
+            append(literal, literal.length);
+        }
+
+        /**
+         * Read a string and return it as a quoted JSON literal.
+         */
+        private char[] readString(byte tag) throws IOException {
+            if (tag == STRING_REFERENCE) {
+                int index = readVarInt();
+                if (index >= stringTable.size()) {
+                    throw new IOException(String.format("Invalid string reference: [index] %d", index));
+                }
+                return stringTable.get(index);
+            }
+            if (tag != STRING) {
+                throw new IOException(String.format("String expected: [tag] %d [position] %d", tag, position - 1));
+            }
+            int length = readVarInt();
+            if ((length < 0) || (length > data.length - position)) {
+                throw new IOException(String.format("Invalid string length: [length] %d", length));
+            }
+            String value = new String(data, position, length, JsonCodec.UTF_8);
+            position += length;
+            char[] literal = toLiteral(value);
+            if (length <= MAX_REFERENCED_STRING_LENGTH) {
+                stringTable.add(literal);
+            }
+            return literal;
+        }
+
+        private static char[] toLiteral(String value) {
+            StringBuilder builder = new StringBuilder(value.length() + 2);
+            builder.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if ((c == '"') || (c == '\\')) {
+                    builder.append('\\').append(c);
+                } else if (c < 0x20) {
+                    builder.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+                } else {
+                    builder.append(c);
+                }
+            }
+            builder.append('"');
+            char[] literal = new char[builder.length()];
+            builder.getChars(0, literal.length, literal, 0);
+            return literal;
+        }
+
+        private void append(char c) {
+            ensureCapacity(1);
+            chunk[chunkLength++] = c;
+        }
+
+        private void append(char[] chars, int length) {
+            append(chars, 0, length);
+        }
+
+        private void append(char[] chars, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(chars, offset, chunk, chunkLength, length);
+            chunkLength += length;
+        }
+
+        private void appendText(String text) {
+            ensureCapacity(text.length());
+            text.getChars(0, text.length(), chunk, chunkLength);
+            chunkLength += text.length();
+        }
+
+        private void ensureCapacity(int length) {
+            if (chunkLength + length > chunk.length) {
+                chunk = Arrays.copyOf(chunk, Math.max(chunk.length << 1, chunkLength + length));
+            }
+        }
+
+        private byte readTag() throws IOException {
+            if (position >= data.length) {
+                throw new IOException("Unexpected end of message");
+            }
+            return data[position++];
+        }
+
+        private long readVarLong() throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = readTag();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = readTag();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            return value;
+        }
+
+        private long readLong() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (readTag() & 0xFF);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.apache.stratos.messaging.domain.exception.MessagingException;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming JSON codec for messaging events. Events are written straight to the
+ * broker payload and read back from it without building intermediate strings.
+ * Type adapters are looked up once per class and shared by all threads; the JSON
+ * produced is the same as Gson.toJson().
+ */
+public class JsonCodec {
+
+    public static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int MIN_BUFFER_SIZE = 256;
+    private static final int MAX_BUFFER_SIZE_HINT = 64 * 1024 * 1024;
+
+    private static final Gson gson = new Gson();
+    private static final Map<Class, TypeAdapter> typeAdapterMap = new ConcurrentHashMap<Class, TypeAdapter>();
+    // Key: class, value: size of the last payload encoded, used to size the output buffer
+    private static final Map<Class, Integer> bufferSizeHintMap = new ConcurrentHashMap<Class, Integer>();
+
+    private JsonCodec() {
+    }
+
+    /**
+     * Encode the given object to a UTF-8 JSON payload.
+     *
+     * @param object object to be encoded
+     * @return JSON payload
+     */
+    @SuppressWarnings("unchecked")
+    public static byte[] encode(Object object) {
+        Class type = object.getClass();
+        Integer sizeHint = bufferSizeHintMap.get(type);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(
+                (sizeHint == null) ? MIN_BUFFER_SIZE : sizeHint);
+        try {
+            // Buffered since OutputStreamWriter allocates a char buffer wrapper for each write of the JsonWriter
+            JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8)));
+            // Same settings as Gson.toJson()
+            writer.setLenient(true);
+            writer.setHtmlSafe(true);
+            writer.setSerializeNulls(false);
+            getTypeAdapter(type).write(writer, object);
+            writer.close();
+        } catch (IOException e) {
+            throw new MessagingException(String.format("Could not encode object: [type] %s", type.getName()), e);
+        }
+        int size = outputStream.size();
+        if ((sizeHint == null) || (sizeHint < size)) {
+            bufferSizeHintMap.put(type, Math.min(size + (size >> 3), MAX_BUFFER_SIZE_HINT));
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Decode an object of the given type from a UTF-8 JSON payload.
+     *
+     * @param payload JSON payload
+     * @param type    type of the object
+     * @return decoded object
+     */
+    public static <T> T decode(byte[] payload, Class<T> type) {
+        return decode(new InputStreamReader(new ByteArrayInputStream(payload), UTF_8), type);
+    }
+
+    /**
+     * Decode an object of the given type from JSON text.
+     *
+     * @param json JSON text
+     * @param type type of the object
+     * @return decoded object
+     */
+    public static <T> T decode(String json, Class<T> type) {
+        return decode(new StringReader(json), type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T decode(Reader in, Class<T> type) {
+        JsonReader reader = new JsonReader(in);
+        // Same settings as Gson.fromJson()
+        reader.setLenient(true);
+        try {
+            return (T) getTypeAdapter(type).read(reader);
+        } catch (IOException e) {
+            throw new MessagingException(String.format("Could not decode object: [type] %s", type.getName()), e);
+        } catch (RuntimeException e) {
+            throw new MessagingException(String.format("Could not decode object: [type] %s", type.getName()), e);
+        }
+    }
+
+    /**
+     * Create a deep copy of the given object, copying the fields which are encoded in JSON.
+     *
+     * @param object object to be copied
+     * @return copy of the object
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copy(T object) {
+        TypeAdapter typeAdapter = getTypeAdapter(object.getClass());
+        return (T) typeAdapter.fromJsonTree(typeAdapter.toJsonTree(object));
+    }
+
+    private static TypeAdapter getTypeAdapter(Class type) {
+        TypeAdapter typeAdapter = typeAdapterMap.get(type);
+        if (typeAdapter == null) {
+            // Gson resolves the reflective field bindings once per type
+            typeAdapter = gson.getAdapter(type);
+            typeAdapterMap.put(type, typeAdapter);
+        }
+        return typeAdapter;
+    }
+}
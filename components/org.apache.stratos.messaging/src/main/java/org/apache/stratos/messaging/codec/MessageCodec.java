@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.codec;
+
+import com.google.gson.JsonElement;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.exception.MessagingException;
+import org.apache.stratos.messaging.util.MessagingConstants;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes messages into broker payloads using the wire format configured for the topic
+ * and decodes them back.
+ * <p/>
+ * The wire format is selected by the system property messaging.wireFormat and can be
+ * overridden per topic using messaging.wireFormat.[topic], where [topic] is the first
+ * segment of the topic name (for an example messaging.wireFormat.topology=binary).
+ * Payloads larger than messaging.wireFormat.compressionThreshold bytes are compressed,
+ * compression is disabled by default. Compressed payloads which would decompress to more
+ * than messaging.wireFormat.maxPayloadSize bytes (64 MB by default) are rejected.
+ * <p/>
+ * Encoded payloads start with a format header: two magic bytes, the wire format id and
+ * a flags byte. Uncompressed JSON payloads are written without the header, hence
+ * subscribers which only understand JSON keep working as long as their topics use the
+ * default wire format. Payloads without a header are decoded as JSON.
+ */
+public class MessageCodec {
+
+    private static final Log log = LogFactory.getLog(MessageCodec.class);
+
+    private static final byte MAGIC_0 = 0x00;
+    private static final byte MAGIC_1 = 0x53;
+    private static final int HEADER_LENGTH = 4;
+    private static final int COMPRESSED_HEADER_LENGTH = HEADER_LENGTH + 4;
+    private static final byte FLAG_COMPRESSED = 0x01;
+    private static final int DEFAULT_MAX_PAYLOAD_SIZE = 64 * 1024 * 1024;
+    // Deflate does not compress data more than 1032:1
+    private static final int MAX_COMPRESSION_RATIO = 1032;
+
+    private static final WireFormat JSON_WIRE_FORMAT = new JsonWireFormat();
+
+    private static final Map<String, WireFormat> wireFormatsByName = new ConcurrentHashMap<String, WireFormat>();
+    private static final Map<Byte, WireFormat> wireFormatsById = new ConcurrentHashMap<Byte, WireFormat>();
+
+    static {
+        registerWireFormat(JSON_WIRE_FORMAT);
+        registerWireFormat(new BinaryWireFormat());
+    }
+
+    private MessageCodec() {
+    }
+
+    /**
+     * Register a wire format. Wire formats need to be registered in both publishers and
+     * subscribers of the topics they are used in.
+     *
+     * @param wireFormat wire format to be registered
+     */
+    public static void registerWireFormat(WireFormat wireFormat) {
+        WireFormat existing = wireFormatsById.get(wireFormat.getId());
+        if ((existing != null) && !existing.getName().equals(wireFormat.getName())) {
+            throw new MessagingException(String.format("Wire format id is already in use: [id] %d " +
+                    "[wire-format] %s", wireFormat.getId(), existing.getName()));
+        }
+        wireFormatsById.put(wireFormat.getId(), wireFormat);
+        wireFormatsByName.put(wireFormat.getName(), wireFormat);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Wire format registered: [id] %d [name] %s", wireFormat.getId(),
+                    wireFormat.getName()));
+        }
+    }
+
+    /**
+     * Get the wire format configured for the given topic.
+     *
+     * @param topicName topic name
+     * @return wire format of the topic
+     */
+    public static WireFormat getWireFormat(String topicName) {
+        String defaultName = System.getProperty(MessagingConstants.WIRE_FORMAT, JsonWireFormat.NAME);
+        String name = System.getProperty(MessagingConstants.WIRE_FORMAT + "." + getRootTopicName(topicName),
+                defaultName);
+        WireFormat wireFormat = wireFormatsByName.get(name);
+        if (wireFormat == null) {
+            throw new MessagingException(String.format("Wire format not found: [wire-format] %s [topic] %s",
+                    name, topicName));
+        }
+        return wireFormat;
+    }
+
+    /**
+     * Get the payload size above which payloads are compressed, 0 if compression is disabled.
+     */
+    public static int getCompressionThreshold() {
+        return Integer.getInteger(MessagingConstants.WIRE_FORMAT_COMPRESSION_THRESHOLD, 0);
+    }
+
+    /**
+     * Get the maximum size of a decompressed payload.
+     */
+    public static int getMaxPayloadSize() {
+        return Integer.getInteger(MessagingConstants.WIRE_FORMAT_MAX_PAYLOAD_SIZE, DEFAULT_MAX_PAYLOAD_SIZE);
+    }
+
+    /**
+     * Encode the given object using the wire format of the given topic.
+     *
+     * @param topicName topic name the payload is published to
+     * @param object    object to be encoded
+     * @return payload
+     */
+    public static byte[] encode(String topicName, Object object) {
+        return encode(getWireFormat(topicName), object, getCompressionThreshold());
+    }
+
+    /**
+     * Encode a message which has already been encoded in JSON using the wire format of
+     * the given topic.
+     *
+     * @param topicName topic name the payload is published to
+     * @param json      JSON payload
+     * @return payload
+     */
+    public static byte[] encodeJson(String topicName, byte[] json) {
+        WireFormat wireFormat = getWireFormat(topicName);
+        if (wireFormat.getId() == JsonWireFormat.ID) {
+            return applyHeader(wireFormat, json, getCompressionThreshold());
+        }
+        return encode(wireFormat, JsonCodec.decode(json, JsonElement.class), getCompressionThreshold());
+    }
+
+    /**
+     * Encode the given object using the given wire format.
+     *
+     * @param wireFormat           wire format
+     * @param object               object to be encoded
+     * @param compressionThreshold payload size above which the payload is compressed, 0 to disable
+     * @return payload
+     */
+    public static byte[] encode(WireFormat wireFormat, Object object, int compressionThreshold) {
+        return applyHeader(wireFormat, wireFormat.encode(object), compressionThreshold);
+    }
+
+    /**
+     * Decode an object of the given type from a payload encoded in any of the registered
+     * wire formats.
+     *
+     * @param payload payload
+     * @param type    type of the object
+     * @return decoded object
+     */
+    public static <T> T decode(byte[] payload, Class<T> type) {
+        if (!hasFormatHeader(payload)) {
+            return JsonCodec.decode(payload, type);
+        }
+        WireFormat wireFormat = wireFormatsById.get(payload[2]);
+        if (wireFormat == null) {
+            throw new MessagingException(String.format("Wire format not found: [id] %d", payload[2]));
+        }
+        byte[] body = ((payload[3] & FLAG_COMPRESSED) != 0) ? decompress(payload) :
+                Arrays.copyOfRange(payload, HEADER_LENGTH, payload.length);
+        return wireFormat.decode(body, type);
+    }
+
+    /**
+     * Returns true if the payload starts with a format header. Payloads without a header
+     * are plain JSON.
+     */
+    public static boolean hasFormatHeader(byte[] payload) {
+        return (payload.length >= HEADER_LENGTH) && (payload[0] == MAGIC_0) && (payload[1] == MAGIC_1);
+    }
+
+    private static byte[] applyHeader(WireFormat wireFormat, byte[] body, int compressionThreshold) {
+        if ((compressionThreshold > 0) && (body.length > compressionThreshold)) {
+            byte[] payload = compress(wireFormat, body);
+            if (payload.length < body.length) {
+                return payload;
+            }
+        }
+        if (wireFormat.getId() == JsonWireFormat.ID) {
+            return body;
+        }
+        byte[] payload = new byte[HEADER_LENGTH + body.length];
+        writeHeader(payload, wireFormat, (byte) 0);
+        System.arraycopy(body, 0, payload, HEADER_LENGTH, body.length);
+        return payload;
+    }
+
+    private static void writeHeader(byte[] payload, WireFormat wireFormat, byte flags) {
+        payload[0] = MAGIC_0;
+        payload[1] = MAGIC_1;
+        payload[2] = wireFormat.getId();
+        payload[3] = flags;
+    }
+
+    private static byte[] compress(WireFormat wireFormat, byte[] body) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(body.length / 4 + COMPRESSED_HEADER_LENGTH);
+        byte[] header = new byte[COMPRESSED_HEADER_LENGTH];
+        writeHeader(header, wireFormat, FLAG_COMPRESSED);
+        // Uncompressed length is written after the header to size the output buffer when decompressing
+        for (int i = 0; i < 4; i++) {
+            header[HEADER_LENGTH + i] = (byte) (body.length >>> (24 - i * 8));
+        }
+        outputStream.write(header, 0, header.length);
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(body);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, length);
+            }
+        } finally {
+            deflater.end();
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] payload) {
+        if (payload.length < COMPRESSED_HEADER_LENGTH) {
+            throw new MessagingException("Invalid compressed payload");
+        }
+        long length = 0;
+        for (int i = 0; i < 4; i++) {
+            length = (length << 8) | (payload[HEADER_LENGTH + i] & 0xFF);
+        }
+        // The length is read from the payload, hence it is validated before allocating the buffer
+        long compressedLength = payload.length - COMPRESSED_HEADER_LENGTH;
+        if ((length > getMaxPayloadSize()) || (length > compressedLength * MAX_COMPRESSION_RATIO)) {
+            throw new MessagingException(String.format("Invalid compressed payload: [length] %d " +
+                    "[compressed-length] %d [max-length] %d", length, compressedLength, getMaxPayloadSize()));
+        }
+        byte[] body = new byte[(int) length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload, COMPRESSED_HEADER_LENGTH, payload.length - COMPRESSED_HEADER_LENGTH);
+            int offset = 0;
+            while ((offset < length) && !inflater.finished()) {
+                int count = inflater.inflate(body, offset, body.length - offset);
+                if ((count == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += count;
+            }
+            if (offset != length) {
+                throw new MessagingException(String.format("Invalid compressed payload: [expected-length] %d " +
+                        "[length] %d", length, offset));
+            }
+        } catch (DataFormatException e) {
+            throw new MessagingException("Could not decompress payload", e);
+        } finally {
+            inflater.end();
+        }
+        return body;
+    }
+
+    private static String getRootTopicName(String topicName) {
+        for (int i = 0; i < topicName.length(); i++) {
+            char c = topicName.charAt(i);
+            if ((c == '/') || (c == '.')) {
+                return topicName.substring(0, i);
+            }
+        }
+        return topicName;
+    }
+}
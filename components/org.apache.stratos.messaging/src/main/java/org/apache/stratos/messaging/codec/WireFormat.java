@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.codec;
+
+/**
+ * Wire format definition for encoding messaging events into broker payloads.
+ * Wire formats are registered with MessageCodec and selected per topic.
+ */
+public interface WireFormat {
+
+    /**
+     * Identifier of the wire format written to the format header of the payload.
+     *
+     * @return wire format id, unique among the registered wire formats
+     */
+    public abstract byte getId();
+
+    /**
+     * Name used for selecting the wire format in the configuration.
+     *
+     * @return wire format name
+     */
+    public abstract String getName();
+
+    /**
+     * Encode the given object. Objects of type com.google.gson.JsonElement are encoded
+     * as the JSON tree they represent.
+     *
+     * @param object object to be encoded
+     * @return encoded object
+     */
+    public abstract byte[] encode(Object object);
+
+    /**
+     * Decode an object of the given type.
+     *
+     * @param data encoded object
+     * @param type type of the object
+     * @return decoded object
+     */
+    public abstract <T> T decode(byte[] data, Class<T> type);
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of events published to the message broker as a single message. Each entry keeps
+ * the topic name and the JSON representation of the original event, so that subscribers
+ * can process the entries exactly as if they were received one by one.
+ */
+public class EventBatch implements Serializable {
+
+    private static final long serialVersionUID = -7432684751203648937L;
+
+    /**
+     * Name of the topic (relative to the parent topic) batches are published to.
+     */
+    public static final String BATCH_TOPIC_NAME = "EventBatch";
+
+    private final List<Entry> entries;
+
+    public EventBatch() {
+        this.entries = new ArrayList<Entry>();
+    }
+
+    public void addEntry(String topicName, String message) {
+        entries.add(new Entry(topicName, message));
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Check whether the given message carries an event batch.
+     *
+     * @param message message received from the message broker
+     * @return true if the message is an event batch
+     */
+    public static boolean isEventBatch(Message message) {
+        String eventClassName = message.getEventClassName();
+        return (eventClassName != null) && eventClassName.endsWith("." + BATCH_TOPIC_NAME);
+    }
+
+    /**
+     * Event entry of a batch.
+     */
+    public static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 2198347561093487721L;
+
+        private final String topicName;
+        private final String message;
+
+        public Entry(String topicName, String message) {
+            this.topicName = topicName;
+            this.message = message;
+        }
+
+        public String getTopicName() {
+            return topicName;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -19,15 +19,20 @@
 
 package org.apache.stratos.messaging.domain;
 
+import com.google.gson.JsonElement;
+import org.apache.stratos.messaging.codec.JsonCodec;
+import org.apache.stratos.messaging.codec.MessageCodec;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
- * Message definition.
+ * Message definition. A message received from the message broker keeps the raw
+ * payload, the text is only built if requested.
  */
 public class Message {
     private final String topicName;
-    private final String text;
     private final String eventClassName;
+    private String text;
+    private byte[] payload;
 
     public Message(String topicName, String text) {
         this.topicName = topicName;
@@ -35,15 +40,55 @@ public class Message {
         this.eventClassName = MessagingUtil.getEventClassNameForTopic(topicName);
     }
 
+    public Message(String topicName, byte[] payload) {
+        this.topicName = topicName;
+        this.payload = payload;
+        this.eventClassName = MessagingUtil.getEventClassNameForTopic(topicName);
+    }
+
+    private Message(String topicName, String eventClassName, String text) {
+        this.topicName = topicName;
+        this.eventClassName = eventClassName;
+        this.text = text;
+    }
+
+    /**
+     * Create a message for a text given without its topic, such as a text passed to a message processor.
+     *
+     * @param eventClassName event class name
+     * @param text           message text
+     * @return message
+     */
+    public static Message fromText(String eventClassName, String text) {
+        return new Message(null, eventClassName, text);
+    }
+
     public String getTopicName() {
         return topicName;
     }
 
     public String getText() {
+        if (text == null && payload != null) {
+            // Payloads encoded in other wire formats are transformed to JSON
+            text = MessageCodec.hasFormatHeader(payload) ?
+                    MessageCodec.decode(payload, JsonElement.class).toString() : new String(payload, JsonCodec.UTF_8);
+        }
         return text;
     }
 
+    /**
+     * Returns the raw payload if the message was received as bytes, null otherwise.
+     */
+    public byte[] getPayload() {
+        return payload;
+    }
+
     public String getEventClassName() {
         return eventClassName;
     }
+
+    @Override
+    public String toString() {
+        return getText();
+    }
 }
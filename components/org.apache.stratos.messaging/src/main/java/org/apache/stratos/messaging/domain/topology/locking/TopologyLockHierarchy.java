@@ -61,9 +61,18 @@ public class TopologyLockHierarchy {
         return topologyLockHierarchy;
     }
 
-    public synchronized TopologyLock getTopologyLockForService(String serviceUuid, boolean forceCreationIfNotFound) {
+    public TopologyLock getTopologyLockForService(String serviceUuid, boolean forceCreationIfNotFound) {
+        // Locks are only created once, look them up without synchronizing readers
         TopologyLock topologyLock = serviceNameToTopologyLockMap.get(serviceUuid);
-        if (topologyLock == null && forceCreationIfNotFound) {
+        if (topologyLock != null || !forceCreationIfNotFound) {
+            return topologyLock;
+        }
+        return createTopologyLockForService(serviceUuid);
+    }
+
+    private synchronized TopologyLock createTopologyLockForService(String serviceUuid) {
+        TopologyLock topologyLock = serviceNameToTopologyLockMap.get(serviceUuid);
+        if (topologyLock == null) {
             topologyLock = new TopologyLock();
             if (log.isDebugEnabled()) {
                 log.debug("Lock created for topology service: [service-uuid] " + serviceUuid);
@@ -74,9 +83,18 @@ public class TopologyLockHierarchy {
         return topologyLock;
     }
 
-    public synchronized TopologyLock getTopologyLockForCluster(String clusterId, boolean forceCreationIfNotFound) {
+    public TopologyLock getTopologyLockForCluster(String clusterId, boolean forceCreationIfNotFound) {
+        // Locks are only created once, look them up without synchronizing readers
+        TopologyLock topologyLock = clusterIdToTopologyLockMap.get(clusterId);
+        if (topologyLock != null || !forceCreationIfNotFound) {
+            return topologyLock;
+        }
+        return createTopologyLockForCluster(clusterId);
+    }
+
+    private synchronized TopologyLock createTopologyLockForCluster(String clusterId) {
         TopologyLock topologyLock = clusterIdToTopologyLockMap.get(clusterId);
-        if (topologyLock == null && forceCreationIfNotFound) {
+        if (topologyLock == null) {
             topologyLock = new TopologyLock();
             if (log.isDebugEnabled()) {
                 log.debug("Lock created for topology cluster: [cluster-id] " + clusterId);
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.event.initializer;
+
+import org.apache.stratos.messaging.event.Event;
+
+import java.io.Serializable;
+
+/**
+ * This event is fired by a topology subscriber which has not been initialized yet or
+ * has detected a gap in the topology event sequence, to request a complete topology.
+ */
+public class CompleteTopologyRequestEvent extends Event implements Serializable {
+    private static final long serialVersionUID = 2815617867264582311L;
+
+    // Last topology version applied by the requester
+    private final long topologyVersion;
+
+    public CompleteTopologyRequestEvent(long topologyVersion) {
+        this.topologyVersion = topologyVersion;
+    }
+
+    public long getTopologyVersion() {
+        return topologyVersion;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[topology-version] %d", getTopologyVersion());
+    }
+}
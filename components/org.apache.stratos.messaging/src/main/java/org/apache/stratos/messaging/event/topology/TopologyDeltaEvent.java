@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.event.topology;
+
+import org.apache.stratos.messaging.domain.topology.Topology;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This event is fired periodically in between complete topology events if delta topology
+ * synchronization is enabled. It carries the clusters changed since the previous synchronization
+ * together with the identifiers of the removed services and clusters, and is only applicable on
+ * top of a topology initialized from a complete topology event.
+ */
+public class TopologyDeltaEvent extends TopologyEvent implements Serializable {
+    private static final long serialVersionUID = -3468270361208593142L;
+
+    private final Topology changedTopology;
+    private final List<String> removedServices;
+    private final List<String> removedClusterIds;
+
+    public TopologyDeltaEvent(Topology changedTopology, List<String> removedServices, List<String> removedClusterIds) {
+        this.changedTopology = changedTopology;
+        this.removedServices = removedServices;
+        this.removedClusterIds = removedClusterIds;
+    }
+
+    public Topology getChangedTopology() {
+        return changedTopology;
+    }
+
+    public List<String> getRemovedServices() {
+        if (removedServices == null) {
+            return Collections.emptyList();
+        }
+        return removedServices;
+    }
+
+    public List<String> getRemovedClusterIds() {
+        if (removedClusterIds == null) {
+            return Collections.emptyList();
+        }
+        return removedClusterIds;
+    }
+}
@@ -28,4 +28,25 @@ import java.io.Serializable;
  */
 public abstract class TopologyEvent extends Event implements Serializable {
     private static final long serialVersionUID = -3279032168352271675L;
+
+    // Identifies the publisher run the version belongs to, 0 if the event is not versioned
+    private long topologyEpoch;
+    // Sequence number assigned by the publisher, starting over in each epoch
+    private long topologyVersion;
+
+    public long getTopologyEpoch() {
+        return topologyEpoch;
+    }
+
+    public void setTopologyEpoch(long topologyEpoch) {
+        this.topologyEpoch = topologyEpoch;
+    }
+
+    public long getTopologyVersion() {
+        return topologyVersion;
+    }
+
+    public void setTopologyVersion(long topologyVersion) {
+        this.topologyVersion = topologyVersion;
+    }
 }
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.event.topology;
+
+import java.io.Serializable;
+
+/**
+ * This event takes the place of a topology event superseded in the event outbox before
+ * being published, carrying only its topology version. It lets subscribers track topology
+ * versions without gaps and does not change the topology.
+ */
+public class TopologyVersionEvent extends TopologyEvent implements Serializable {
+    private static final long serialVersionUID = 4726843571269517582L;
+
+    // Cluster of the superseded event, keeps the event in the order of its cluster
+    private final String clusterId;
+
+    public TopologyVersionEvent(String clusterId) {
+        this.clusterId = clusterId;
+    }
+
+    public String getClusterId() {
+        return clusterId;
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.apache.stratos.messaging.message.processor;
 
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.EventObservable;
 
 /**
@@ -33,13 +34,38 @@ public abstract class MessageProcessor extends EventObservable {
      */
     public abstract void setNext(MessageProcessor nextProcessor);
 
+    /**
+     * Type of the messages handled by this processor, which is the class name of the event.
+     * Message processor chains use it for dispatching messages directly to the processor,
+     * processors returning null are reached by walking the chain.
+     *
+     * @return message type or null if not known.
+     */
+    public String getMessageType() {
+        return null;
+    }
+
     /**
      * Message processing and delegating logic.
      *
      * @param type    type of the message.
-     * @param message real message body.
+     * @param message message received.
      * @param object  Object that will get updated.
      * @return whether the processing was successful or not.
      */
     public abstract boolean process(String type, String message, Object object);
+
+    /**
+     * Process a message received from the message broker. By default the message text is
+     * passed to {@link #process(String, String, Object)}, processors extending
+     * {@link PayloadMessageProcessor} decode the payload directly.
+     *
+     * @param type    type of the message.
+     * @param message message received.
+     * @param object  Object that will get updated.
+     * @return whether the processing was successful or not.
+     */
+    public boolean process(String type, Message message, Object object) {
+        return process(type, message.getText(), object);
+    }
 }
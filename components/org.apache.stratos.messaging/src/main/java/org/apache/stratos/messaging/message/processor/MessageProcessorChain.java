@@ -19,19 +19,27 @@
 
 package org.apache.stratos.messaging.message.processor;
 
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.event.Event;
 import org.apache.stratos.messaging.listener.EventListener;
 
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
 /**
- * Message processor chain definition.
+ * Message processor chain definition. Messages are dispatched directly to the processor
+ * registered for their type, messages of an unknown type are passed through the chain.
  */
 public abstract class MessageProcessorChain {
 
     private LinkedList<MessageProcessor> list;
+    private Map<String, MessageProcessor> messageTypeToProcessorMap;
+    private boolean unindexedProcessorFound;
 
     public MessageProcessorChain() {
         list = new LinkedList<MessageProcessor>();
+        messageTypeToProcessorMap = new HashMap<String, MessageProcessor>();
         initialize();
     }
 
@@ -44,6 +52,7 @@ public abstract class MessageProcessorChain {
             list.getLast().setNext(messageProcessor);
         }
         list.add(messageProcessor);
+        indexProcessor(messageProcessor);
     }
 
     public void removeLast() {
@@ -51,13 +60,58 @@ public abstract class MessageProcessorChain {
         if (list.size() > 0) {
             list.getLast().setNext(null);
         }
+
+        messageTypeToProcessorMap.clear();
+        unindexedProcessorFound = false;
+        for (MessageProcessor messageProcessor : list) {
+            indexProcessor(messageProcessor);
+        }
+    }
+
+    /**
+     * Register the processor against its message type. Processors placed after a processor
+     * with an unknown message type are only reached by walking the chain, since the unknown
+     * processor might handle their messages first.
+     */
+    private void indexProcessor(MessageProcessor messageProcessor) {
+        if (unindexedProcessorFound) {
+            return;
+        }
+        String messageType = messageProcessor.getMessageType();
+        if (messageType == null) {
+            unindexedProcessorFound = true;
+        } else if (!messageTypeToProcessorMap.containsKey(messageType)) {
+            messageTypeToProcessorMap.put(messageType, messageProcessor);
+        }
     }
 
     public boolean process(String type, String message, Object object) {
+        return process(type, Message.fromText(type, message), object);
+    }
+
+    public boolean process(String type, Message message, Object object) {
+        MessageProcessor messageProcessor = messageTypeToProcessorMap.get(type);
+        if (messageProcessor != null) {
+            return messageProcessor.process(type, message, object);
+        }
+
         MessageProcessor root = list.getFirst();
         if (root == null) {
             throw new RuntimeException("Message processor chain is not initialized");
         }
         return root.process(type, message, object);
     }
+
+    /**
+     * Notify the listeners of the processor registered for the type of the given event,
+     * for events derived by a processor rather than received.
+     *
+     * @param event event to be notified
+     */
+    public void notifyEventListeners(Event event) {
+        MessageProcessor messageProcessor = messageTypeToProcessorMap.get(event.getClass().getName());
+        if (messageProcessor != null) {
+            messageProcessor.notifyEventListeners(event);
+        }
+    }
 }
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.message.processor;
+
+import org.apache.stratos.messaging.domain.Message;
+
+/**
+ * Message processor decoding the payload received from the message broker directly,
+ * without building the message text. Messages given as text are wrapped in a message.
+ */
+public abstract class PayloadMessageProcessor extends MessageProcessor {
+
+    @Override
+    public boolean process(String type, String message, Object object) {
+        return process(type, Message.fromText(type, message), object);
+    }
+
+    @Override
+    public abstract boolean process(String type, Message message, Object object);
+}
@@ -21,13 +21,15 @@ package org.apache.stratos.messaging.message.processor.application;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.application.Applications;
 import org.apache.stratos.messaging.event.application.ApplicationCreatedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.application.updater.ApplicationsUpdater;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
-public class ApplicationCreatedMessageProcessor extends MessageProcessor {
+public class ApplicationCreatedMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(ApplicationCreatedMessageProcessor.class);
     private MessageProcessor nextProcessor;
@@ -38,7 +40,12 @@ public class ApplicationCreatedMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ApplicationCreatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
 
         Applications applications = (Applications) object;
 
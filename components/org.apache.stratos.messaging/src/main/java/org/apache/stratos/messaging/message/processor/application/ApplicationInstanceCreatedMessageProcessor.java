@@ -21,14 +21,16 @@ package org.apache.stratos.messaging.message.processor.application;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.application.Applications;
 import org.apache.stratos.messaging.domain.instance.ApplicationInstance;
 import org.apache.stratos.messaging.event.application.ApplicationInstanceCreatedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.application.updater.ApplicationsUpdater;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
-public class ApplicationInstanceCreatedMessageProcessor extends MessageProcessor {
+public class ApplicationInstanceCreatedMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(ApplicationInstanceCreatedMessageProcessor.class);
     private MessageProcessor nextProcessor;
@@ -39,7 +41,12 @@ public class ApplicationInstanceCreatedMessageProcessor extends MessageProcessor
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ApplicationInstanceCreatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
 
         Applications applications = (Applications) object;
 
@@ -20,19 +20,21 @@ package org.apache.stratos.messaging.message.processor.application;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.application.Application;
 import org.apache.stratos.messaging.domain.application.ApplicationStatus;
 import org.apache.stratos.messaging.domain.application.Applications;
 import org.apache.stratos.messaging.domain.instance.ApplicationInstance;
 import org.apache.stratos.messaging.event.application.ApplicationInstanceInactivatedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.application.updater.ApplicationsUpdater;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * This processor responsible to process the application Inactivation even and update the Topology.
  */
-public class ApplicationInstanceInactivatedMessageProcessor extends MessageProcessor {
+public class ApplicationInstanceInactivatedMessageProcessor extends PayloadMessageProcessor {
     private static final Log log =
             LogFactory.getLog(ApplicationInstanceInactivatedMessageProcessor.class);
 
@@ -44,9 +46,14 @@ public class ApplicationInstanceInactivatedMessageProcessor extends MessageProce
         this.nextProcessor = nextProcessor;
     }
 
+    @Override
+    public String getMessageType() {
+        return ApplicationInstanceInactivatedEvent.class.getName();
+    }
+
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public boolean process(String type, Message message, Object object) {
         Applications applications = (Applications) object;
 
         if (ApplicationInstanceInactivatedEvent.class.getName().equals(type)) {
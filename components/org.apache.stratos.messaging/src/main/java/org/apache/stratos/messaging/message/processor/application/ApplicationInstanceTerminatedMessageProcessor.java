@@ -20,18 +20,20 @@ package org.apache.stratos.messaging.message.processor.application;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.application.ApplicationStatus;
 import org.apache.stratos.messaging.domain.application.Applications;
 import org.apache.stratos.messaging.domain.instance.ApplicationInstance;
 import org.apache.stratos.messaging.event.application.ApplicationInstanceTerminatedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.application.updater.ApplicationsUpdater;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * This processor responsible to process the application Inactivation even and update the Topology.
  */
-public class ApplicationInstanceTerminatedMessageProcessor extends MessageProcessor {
+public class ApplicationInstanceTerminatedMessageProcessor extends PayloadMessageProcessor {
     private static final Log log =
             LogFactory.getLog(ApplicationInstanceTerminatedMessageProcessor.class);
 
@@ -43,9 +45,14 @@ public class ApplicationInstanceTerminatedMessageProcessor extends MessageProces
         this.nextProcessor = nextProcessor;
     }
 
+    @Override
+    public String getMessageType() {
+        return ApplicationInstanceTerminatedEvent.class.getName();
+    }
+
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public boolean process(String type, Message message, Object object) {
         Applications applications = (Applications) object;
 
         if (ApplicationInstanceTerminatedEvent.class.getName().equals(type)) {
@@ -20,16 +20,18 @@ package org.apache.stratos.messaging.message.processor.application;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.application.Application;
 import org.apache.stratos.messaging.domain.application.Applications;
 import org.apache.stratos.messaging.event.application.CompleteApplicationsEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.application.updater.ApplicationsUpdater;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 import java.util.Collection;
 
-public class CompleteApplicationsMessageProcessor extends MessageProcessor {
+public class CompleteApplicationsMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(CompleteApplicationsMessageProcessor.class);
     private MessageProcessor nextProcessor;
@@ -40,7 +42,12 @@ public class CompleteApplicationsMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return CompleteApplicationsEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         Applications applications = (Applications) object;
 
         if (CompleteApplicationsEvent.class.getName().equals(type)) {
@@ -20,6 +20,7 @@ package org.apache.stratos.messaging.message.processor.application;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.application.Application;
 import org.apache.stratos.messaging.domain.application.Applications;
 import org.apache.stratos.messaging.domain.application.Group;
@@ -27,13 +28,14 @@ import org.apache.stratos.messaging.domain.application.GroupStatus;
 import org.apache.stratos.messaging.domain.instance.GroupInstance;
 import org.apache.stratos.messaging.event.application.GroupInstanceActivatedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.application.updater.ApplicationsUpdater;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * This processor will act upon the Group activation events
  */
-public class GroupInstanceActivatedProcessor extends MessageProcessor {
+public class GroupInstanceActivatedProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(GroupInstanceActivatedProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -43,7 +45,12 @@ public class GroupInstanceActivatedProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return GroupInstanceActivatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         Applications applications = (Applications) object;
 
         if (GroupInstanceActivatedEvent.class.getName().equals(type)) {
@@ -20,19 +20,21 @@ package org.apache.stratos.messaging.message.processor.application;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.application.Application;
 import org.apache.stratos.messaging.domain.application.Applications;
 import org.apache.stratos.messaging.domain.application.Group;
 import org.apache.stratos.messaging.domain.instance.GroupInstance;
 import org.apache.stratos.messaging.event.application.GroupInstanceCreatedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.application.updater.ApplicationsUpdater;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * This processor will act upon the Group activation events
  */
-public class GroupInstanceCreatedProcessor extends MessageProcessor {
+public class GroupInstanceCreatedProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(GroupInstanceCreatedProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -42,7 +44,12 @@ public class GroupInstanceCreatedProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return GroupInstanceCreatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         Applications applications = (Applications) object;
 
         if (GroupInstanceCreatedEvent.class.getName().equals(type)) {
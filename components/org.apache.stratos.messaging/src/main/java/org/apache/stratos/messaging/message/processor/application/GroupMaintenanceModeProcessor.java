@@ -20,13 +20,15 @@ package org.apache.stratos.messaging.message.processor.application;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.application.Applications;
 import org.apache.stratos.messaging.event.application.GroupMaintenanceModeEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.application.updater.ApplicationsUpdater;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
-public class GroupMaintenanceModeProcessor extends MessageProcessor {
+public class GroupMaintenanceModeProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(GroupMaintenanceModeProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -36,7 +38,12 @@ public class GroupMaintenanceModeProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return GroupMaintenanceModeEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         Applications applications = (Applications) object;
 
         if (GroupMaintenanceModeEvent.class.getName().equals(type)) {
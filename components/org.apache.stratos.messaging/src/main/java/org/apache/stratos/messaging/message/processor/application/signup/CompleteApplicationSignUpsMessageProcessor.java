@@ -21,16 +21,18 @@ package org.apache.stratos.messaging.message.processor.application.signup;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.application.signup.ApplicationSignUp;
 import org.apache.stratos.messaging.event.application.signup.CompleteApplicationSignUpsEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.receiver.application.signup.ApplicationSignUpManager;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * Complete application signups message processor.
  */
-public class CompleteApplicationSignUpsMessageProcessor extends MessageProcessor {
+public class CompleteApplicationSignUpsMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(CompleteApplicationSignUpsMessageProcessor.class);
 
@@ -42,7 +44,12 @@ public class CompleteApplicationSignUpsMessageProcessor extends MessageProcessor
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return CompleteApplicationSignUpsEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
 
         if (type.equals(CompleteApplicationSignUpsEvent.class.getName())) {
             CompleteApplicationSignUpsEvent event = (CompleteApplicationSignUpsEvent) MessagingUtil.jsonToObject(message,
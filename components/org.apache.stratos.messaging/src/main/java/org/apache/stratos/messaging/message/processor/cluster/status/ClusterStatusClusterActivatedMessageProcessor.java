@@ -20,12 +20,14 @@ package org.apache.stratos.messaging.message.processor.cluster.status;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.cluster.status.ClusterStatusClusterActivatedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 
-public class ClusterStatusClusterActivatedMessageProcessor extends MessageProcessor {
+public class ClusterStatusClusterActivatedMessageProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(ClusterStatusClusterActivatedMessageProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -35,7 +37,12 @@ public class ClusterStatusClusterActivatedMessageProcessor extends MessageProces
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ClusterStatusClusterActivatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (ClusterStatusClusterActivatedEvent.class.getName().equals(type)) {
             // Parse complete message and build event
             ClusterStatusClusterActivatedEvent event = (ClusterStatusClusterActivatedEvent) MessagingUtil.
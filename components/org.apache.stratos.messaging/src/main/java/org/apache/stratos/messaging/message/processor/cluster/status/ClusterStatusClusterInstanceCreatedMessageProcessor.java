@@ -20,12 +20,14 @@ package org.apache.stratos.messaging.message.processor.cluster.status;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.cluster.status.ClusterStatusClusterInstanceCreatedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 
-public class ClusterStatusClusterInstanceCreatedMessageProcessor extends MessageProcessor {
+public class ClusterStatusClusterInstanceCreatedMessageProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(ClusterStatusClusterInstanceCreatedMessageProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -35,7 +37,12 @@ public class ClusterStatusClusterInstanceCreatedMessageProcessor extends Message
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ClusterStatusClusterInstanceCreatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (ClusterStatusClusterInstanceCreatedEvent.class.getName().equals(type)) {
             // Parse complete message and build event
             ClusterStatusClusterInstanceCreatedEvent event = (ClusterStatusClusterInstanceCreatedEvent) MessagingUtil.
@@ -20,12 +20,14 @@ package org.apache.stratos.messaging.message.processor.cluster.status;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.cluster.status.ClusterStatusClusterResetEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 
-public class ClusterStatusClusterResetMessageProcessor extends MessageProcessor {
+public class ClusterStatusClusterResetMessageProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(ClusterStatusClusterResetMessageProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -35,7 +37,12 @@ public class ClusterStatusClusterResetMessageProcessor extends MessageProcessor
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ClusterStatusClusterResetEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (ClusterStatusClusterResetEvent.class.getName().equals(type)) {
             // Parse complete message and build event
             ClusterStatusClusterResetEvent event = (ClusterStatusClusterResetEvent) MessagingUtil.
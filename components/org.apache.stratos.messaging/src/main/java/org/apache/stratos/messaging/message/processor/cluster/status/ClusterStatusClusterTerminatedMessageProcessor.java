@@ -20,13 +20,15 @@ package org.apache.stratos.messaging.message.processor.cluster.status;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.cluster.status.ClusterStatusClusterTerminatedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.receiver.topology.TopologyManager;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 
-public class ClusterStatusClusterTerminatedMessageProcessor extends MessageProcessor {
+public class ClusterStatusClusterTerminatedMessageProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(ClusterStatusClusterTerminatedMessageProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -36,7 +38,12 @@ public class ClusterStatusClusterTerminatedMessageProcessor extends MessageProce
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ClusterStatusClusterTerminatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (ClusterStatusClusterTerminatedEvent.class.getName().equals(type)) {
             // Parse complete message and build event
             ClusterStatusClusterTerminatedEvent event = (ClusterStatusClusterTerminatedEvent) MessagingUtil.
@@ -21,11 +21,13 @@ package org.apache.stratos.messaging.message.processor.domain.mapping;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.application.Application;
 import org.apache.stratos.messaging.domain.application.signup.DomainMapping;
 import org.apache.stratos.messaging.domain.tenant.Tenant;
 import org.apache.stratos.messaging.event.domain.mapping.DomainMappingAddedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.receiver.application.ApplicationManager;
 import org.apache.stratos.messaging.message.receiver.domain.mapping.DomainMappingManager;
 import org.apache.stratos.messaging.message.receiver.tenant.TenantManager;
@@ -34,7 +36,7 @@ import org.apache.stratos.messaging.util.MessagingUtil;
 /**
  * Url mapping added message processor.
  */
-public class DomainMappingAddedMessageProcessor extends MessageProcessor {
+public class DomainMappingAddedMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(DomainMappingAddedMessageProcessor.class);
 
@@ -46,7 +48,12 @@ public class DomainMappingAddedMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return DomainMappingAddedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (DomainMappingAddedEvent.class.getName().equals(type)) {
 
             // Return if domain mapping manager has not initialized
@@ -21,11 +21,13 @@ package org.apache.stratos.messaging.message.processor.domain.mapping;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.application.Application;
 import org.apache.stratos.messaging.domain.application.signup.DomainMapping;
 import org.apache.stratos.messaging.domain.tenant.Tenant;
 import org.apache.stratos.messaging.event.domain.mapping.DomainMappingRemovedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.receiver.application.ApplicationManager;
 import org.apache.stratos.messaging.message.receiver.domain.mapping.DomainMappingManager;
 import org.apache.stratos.messaging.message.receiver.tenant.TenantManager;
@@ -34,7 +36,7 @@ import org.apache.stratos.messaging.util.MessagingUtil;
 /**
  * Subscription domain removed message processor for removing domains from tenant subscriptions.
  */
-public class DomainMappingRemovedMessageProcessor extends MessageProcessor {
+public class DomainMappingRemovedMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(DomainMappingRemovedMessageProcessor.class);
 
@@ -46,7 +48,12 @@ public class DomainMappingRemovedMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return DomainMappingRemovedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
 
         if (DomainMappingRemovedEvent.class.getName().equals(type)) {
 
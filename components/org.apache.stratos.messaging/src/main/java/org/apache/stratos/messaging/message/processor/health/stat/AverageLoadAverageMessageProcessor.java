@@ -21,14 +21,16 @@ package org.apache.stratos.messaging.message.processor.health.stat;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.health.stat.AverageLoadAverageEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * Processes event that is fired by Event processing engine to send average of Load average
  */
-public class AverageLoadAverageMessageProcessor extends MessageProcessor {
+public class AverageLoadAverageMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(AverageLoadAverageMessageProcessor.class);
 
@@ -40,7 +42,12 @@ public class AverageLoadAverageMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return AverageLoadAverageEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (AverageLoadAverageEvent.class.getName().equals(type)) {
 
             // Parse complete message and build event
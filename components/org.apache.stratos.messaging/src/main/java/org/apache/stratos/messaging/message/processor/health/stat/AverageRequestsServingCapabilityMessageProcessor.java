@@ -20,14 +20,16 @@ package org.apache.stratos.messaging.message.processor.health.stat;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.health.stat.AverageRequestsServingCapabilityEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * Average Requests Serving Capability Message Processor
  */
-public class AverageRequestsServingCapabilityMessageProcessor extends MessageProcessor {
+public class AverageRequestsServingCapabilityMessageProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(AverageRequestsServingCapabilityMessageProcessor.class);
 
     private MessageProcessor nextProcessor;
@@ -38,7 +40,12 @@ public class AverageRequestsServingCapabilityMessageProcessor extends MessagePro
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return AverageRequestsServingCapabilityEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (AverageRequestsServingCapabilityEvent.class.getName().equals(type)) {
 
             // Parse complete message and build event
@@ -21,14 +21,16 @@ package org.apache.stratos.messaging.message.processor.health.stat;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.health.stat.GradientOfLoadAverageEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * Processes event that is fired by Event processing engine to send gradient of Load average
  */
-public class GradientOfLoadAverageMessageProcessor extends MessageProcessor {
+public class GradientOfLoadAverageMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(GradientOfLoadAverageMessageProcessor.class);
 
@@ -40,7 +42,12 @@ public class GradientOfLoadAverageMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return GradientOfLoadAverageEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (GradientOfLoadAverageEvent.class.getName().equals(type)) {
 
             // Parse complete message and build event
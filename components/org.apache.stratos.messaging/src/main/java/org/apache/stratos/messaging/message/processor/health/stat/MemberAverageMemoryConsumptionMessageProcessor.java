@@ -21,14 +21,16 @@ package org.apache.stratos.messaging.message.processor.health.stat;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.health.stat.MemberAverageMemoryConsumptionEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * Processes event that is fired by Event processing engine to send average of memory consumption
  */
-public class MemberAverageMemoryConsumptionMessageProcessor extends MessageProcessor {
+public class MemberAverageMemoryConsumptionMessageProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(MemberAverageMemoryConsumptionMessageProcessor.class);
 
     private MessageProcessor nextProcessor;
@@ -39,7 +41,12 @@ public class MemberAverageMemoryConsumptionMessageProcessor extends MessageProce
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return MemberAverageMemoryConsumptionEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (MemberAverageMemoryConsumptionEvent.class.getName().equals(type)) {
 
             // Parse complete message and build event
@@ -21,14 +21,16 @@ package org.apache.stratos.messaging.message.processor.health.stat;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.health.stat.MemberSecondDerivativeOfLoadAverageEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * Processes event that is fired by Event processing engine to send second derivative of Load average
  */
-public class MemberSecondDerivativeOfLoadAverageMessageProcessor extends MessageProcessor {
+public class MemberSecondDerivativeOfLoadAverageMessageProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(MemberSecondDerivativeOfLoadAverageMessageProcessor.class);
 
     private MessageProcessor nextProcessor;
@@ -39,7 +41,12 @@ public class MemberSecondDerivativeOfLoadAverageMessageProcessor extends Message
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return MemberSecondDerivativeOfLoadAverageEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (MemberSecondDerivativeOfLoadAverageEvent.class.getName().equals(type)) {
 
             // Parse complete message and build event
@@ -21,14 +21,16 @@ package org.apache.stratos.messaging.message.processor.instance.notifier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.instance.notifier.ArtifactUpdatedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * Artifact update message processor.
  */
-public class ArtifactUpdateMessageProcessor extends MessageProcessor {
+public class ArtifactUpdateMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(ArtifactUpdateMessageProcessor.class);
 
@@ -40,7 +42,12 @@ public class ArtifactUpdateMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ArtifactUpdatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (ArtifactUpdatedEvent.class.getName().equals(type)) {
             // Parse complete message and build event
             ArtifactUpdatedEvent event = (ArtifactUpdatedEvent) MessagingUtil.jsonToObject(message, ArtifactUpdatedEvent.class);
@@ -20,11 +20,13 @@ package org.apache.stratos.messaging.message.processor.instance.notifier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.instance.notifier.InstanceCleanupClusterEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
-public class InstanceCleanupClusterNotifierMessageProcessor extends MessageProcessor {
+public class InstanceCleanupClusterNotifierMessageProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(InstanceCleanupClusterNotifierMessageProcessor.class);
 
     private MessageProcessor nextProcessor;
@@ -35,7 +37,12 @@ public class InstanceCleanupClusterNotifierMessageProcessor extends MessageProce
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return InstanceCleanupClusterEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (InstanceCleanupClusterEvent.class.getName().equals(type)) {
             // Parse complete message and build event
             InstanceCleanupClusterEvent event = (InstanceCleanupClusterEvent) MessagingUtil.
@@ -20,11 +20,13 @@ package org.apache.stratos.messaging.message.processor.instance.notifier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.instance.notifier.InstanceCleanupMemberEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
-public class InstanceCleanupMemberNotifierMessageProcessor extends MessageProcessor {
+public class InstanceCleanupMemberNotifierMessageProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(InstanceCleanupMemberNotifierMessageProcessor.class);
 
     private MessageProcessor nextProcessor;
@@ -35,7 +37,12 @@ public class InstanceCleanupMemberNotifierMessageProcessor extends MessageProces
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return InstanceCleanupMemberEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (InstanceCleanupMemberEvent.class.getName().equals(type)) {
             // Parse complete message and build event
             InstanceCleanupMemberEvent event = (InstanceCleanupMemberEvent) MessagingUtil.jsonToObject(message, InstanceCleanupMemberEvent.class);
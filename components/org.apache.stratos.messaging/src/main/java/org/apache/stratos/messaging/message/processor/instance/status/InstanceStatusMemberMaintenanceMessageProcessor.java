@@ -20,13 +20,15 @@ package org.apache.stratos.messaging.message.processor.instance.status;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.instance.status.InstanceMaintenanceModeEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.cluster.status.ClusterStatusClusterActivatedMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 
-public class InstanceStatusMemberMaintenanceMessageProcessor extends MessageProcessor {
+public class InstanceStatusMemberMaintenanceMessageProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(ClusterStatusClusterActivatedMessageProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -36,7 +38,12 @@ public class InstanceStatusMemberMaintenanceMessageProcessor extends MessageProc
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return InstanceMaintenanceModeEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (InstanceMaintenanceModeEvent.class.getName().equals(type)) {
             // Parse complete message and build event
             InstanceMaintenanceModeEvent event = (InstanceMaintenanceModeEvent) MessagingUtil.
@@ -20,13 +20,15 @@ package org.apache.stratos.messaging.message.processor.instance.status;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.instance.status.InstanceStartedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.cluster.status.ClusterStatusClusterInactivateMessageProcessor;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 
-public class InstanceStatusMemberStartedMessageProcessor extends MessageProcessor {
+public class InstanceStatusMemberStartedMessageProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(ClusterStatusClusterInactivateMessageProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -36,7 +38,12 @@ public class InstanceStatusMemberStartedMessageProcessor extends MessageProcesso
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return InstanceStartedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (InstanceStartedEvent.class.getName().equals(type)) {
             // Parse complete message and build event
             InstanceStartedEvent event = (InstanceStartedEvent) MessagingUtil.
@@ -21,8 +21,10 @@ package org.apache.stratos.messaging.message.processor.tenant;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.tenant.CompleteTenantEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.receiver.tenant.TenantManager;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
@@ -30,7 +32,7 @@ import org.apache.stratos.messaging.util.MessagingUtil;
  * Complete tenant message processor for initializing the tenant manager and
  * triggering complete tenant event listeners.
  */
-public class CompleteTenantMessageProcessor extends MessageProcessor {
+public class CompleteTenantMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(CompleteTenantMessageProcessor.class);
 
@@ -42,7 +44,12 @@ public class CompleteTenantMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return CompleteTenantEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (CompleteTenantEvent.class.getName().equals(type)) {
             // Return if tenant manager has already initialized
             if (TenantManager.getInstance().isInitialized()) {
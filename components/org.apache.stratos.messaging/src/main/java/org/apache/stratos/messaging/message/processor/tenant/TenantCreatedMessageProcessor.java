@@ -21,8 +21,10 @@ package org.apache.stratos.messaging.message.processor.tenant;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.tenant.TenantCreatedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.receiver.tenant.TenantManager;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
@@ -30,7 +32,7 @@ import org.apache.stratos.messaging.util.MessagingUtil;
  * Tenant created message processor for adding a tenant to the tenant manager and
  * triggering tenant created event listeners.
  */
-public class TenantCreatedMessageProcessor extends MessageProcessor {
+public class TenantCreatedMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(TenantCreatedMessageProcessor.class);
 
@@ -42,7 +44,12 @@ public class TenantCreatedMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return TenantCreatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (TenantCreatedEvent.class.getName().equals(type)) {
             // Return if tenant manager has not initialized
             if (!TenantManager.getInstance().isInitialized()) {
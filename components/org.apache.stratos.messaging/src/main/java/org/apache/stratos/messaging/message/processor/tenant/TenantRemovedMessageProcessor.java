@@ -21,9 +21,11 @@ package org.apache.stratos.messaging.message.processor.tenant;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.tenant.Tenant;
 import org.apache.stratos.messaging.event.tenant.TenantRemovedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.receiver.tenant.TenantManager;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
@@ -31,7 +33,7 @@ import org.apache.stratos.messaging.util.MessagingUtil;
  * Tenant removed message processor for removing a tenant from tenant manager
  * and triggering tenant removed event listeners.
  */
-public class TenantRemovedMessageProcessor extends MessageProcessor {
+public class TenantRemovedMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(TenantRemovedMessageProcessor.class);
 
@@ -43,7 +45,12 @@ public class TenantRemovedMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return TenantRemovedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (TenantRemovedEvent.class.getName().equals(type)) {
             // Return if tenant manager has not initialized
             if (!TenantManager.getInstance().isInitialized()) {
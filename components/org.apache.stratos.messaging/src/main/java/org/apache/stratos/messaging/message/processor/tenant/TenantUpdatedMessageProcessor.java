@@ -21,9 +21,11 @@ package org.apache.stratos.messaging.message.processor.tenant;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.tenant.Tenant;
 import org.apache.stratos.messaging.event.tenant.TenantUpdatedEvent;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.receiver.tenant.TenantManager;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
@@ -31,7 +33,7 @@ import org.apache.stratos.messaging.util.MessagingUtil;
  * Tenant updated message processor for updating a tenant in tenant manager and
  * triggering tenant updated event listeners.
  */
-public class TenantUpdatedMessageProcessor extends MessageProcessor {
+public class TenantUpdatedMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(TenantUpdatedMessageProcessor.class);
 
@@ -43,7 +45,12 @@ public class TenantUpdatedMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return TenantUpdatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         if (TenantUpdatedEvent.class.getName().equals(type)) {
             // Return if tenant manager has not initialized
             if (!TenantManager.getInstance().isInitialized()) {
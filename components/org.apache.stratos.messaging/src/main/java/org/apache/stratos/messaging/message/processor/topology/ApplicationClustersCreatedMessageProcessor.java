@@ -20,6 +20,7 @@ package org.apache.stratos.messaging.message.processor.topology;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.topology.Cluster;
 import org.apache.stratos.messaging.domain.topology.Service;
 import org.apache.stratos.messaging.domain.topology.Topology;
@@ -27,7 +28,9 @@ import org.apache.stratos.messaging.event.topology.ApplicationClustersCreatedEve
 import org.apache.stratos.messaging.message.filter.topology.TopologyClusterFilter;
 import org.apache.stratos.messaging.message.filter.topology.TopologyServiceFilter;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.topology.updater.TopologyUpdater;
+import org.apache.stratos.messaging.message.receiver.topology.ClusterSnapshotRegistry;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 import java.util.List;
@@ -35,7 +38,7 @@ import java.util.List;
 /**
  * This will process the clusters and add them to relevant service.
  */
-public class ApplicationClustersCreatedMessageProcessor extends MessageProcessor {
+public class ApplicationClustersCreatedMessageProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(ApplicationClustersCreatedMessageProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -45,7 +48,12 @@ public class ApplicationClustersCreatedMessageProcessor extends MessageProcessor
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ApplicationClustersCreatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         Topology topology = (Topology) object;
         if (ApplicationClustersCreatedEvent.class.getName().equals(type)) {
             // Return if topology has not been initialized
@@ -77,6 +85,7 @@ public class ApplicationClustersCreatedMessageProcessor extends MessageProcessor
             String clusterId = cluster.getClusterId();
             TopologyUpdater.acquireWriteLockForService(serviceUuid);
             try {
+                ClusterSnapshotRegistry.markClusterReplaced(clusterId);
 
                 // Apply service filter
                 if (TopologyServiceFilter.apply(serviceUuid)) {
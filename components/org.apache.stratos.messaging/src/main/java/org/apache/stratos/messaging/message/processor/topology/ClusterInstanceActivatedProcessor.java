@@ -20,6 +20,7 @@ package org.apache.stratos.messaging.message.processor.topology;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.instance.ClusterInstance;
 import org.apache.stratos.messaging.domain.topology.*;
 import org.apache.stratos.messaging.event.topology.ClusterInstanceActivatedEvent;
@@ -27,7 +28,9 @@ import org.apache.stratos.messaging.message.filter.topology.TopologyApplicationF
 import org.apache.stratos.messaging.message.filter.topology.TopologyClusterFilter;
 import org.apache.stratos.messaging.message.filter.topology.TopologyServiceFilter;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.topology.updater.TopologyUpdater;
+import org.apache.stratos.messaging.message.receiver.topology.ClusterSnapshotRegistry;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 import java.net.URL;
@@ -36,7 +39,7 @@ import java.util.List;
 /**
  * This processor will act upon the cluster activated event
  */
-public class ClusterInstanceActivatedProcessor extends MessageProcessor {
+public class ClusterInstanceActivatedProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(ClusterInstanceActivatedProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -46,7 +49,12 @@ public class ClusterInstanceActivatedProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ClusterInstanceActivatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
 
         Topology topology = (Topology) object;
 
@@ -63,6 +71,7 @@ public class ClusterInstanceActivatedProcessor extends MessageProcessor {
             String clusterId = event.getClusterId();
             TopologyUpdater.acquireWriteLockForCluster(event.getServiceName(), clusterId);
             try {
+                ClusterSnapshotRegistry.markClusterUpdated(clusterId);
                 return doProcess(event, topology);
 
             } finally {
@@ -20,6 +20,7 @@ package org.apache.stratos.messaging.message.processor.topology;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.instance.ClusterInstance;
 import org.apache.stratos.messaging.domain.topology.Cluster;
 import org.apache.stratos.messaging.domain.topology.Service;
@@ -29,10 +30,12 @@ import org.apache.stratos.messaging.message.filter.topology.TopologyApplicationF
 import org.apache.stratos.messaging.message.filter.topology.TopologyClusterFilter;
 import org.apache.stratos.messaging.message.filter.topology.TopologyServiceFilter;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.topology.updater.TopologyUpdater;
+import org.apache.stratos.messaging.message.receiver.topology.ClusterSnapshotRegistry;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
-public class ClusterInstanceCreatedMessageProcessor extends MessageProcessor {
+public class ClusterInstanceCreatedMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(ClusterInstanceCreatedMessageProcessor.class);
     private MessageProcessor nextProcessor;
@@ -43,7 +46,12 @@ public class ClusterInstanceCreatedMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ClusterInstanceCreatedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
 
         Topology topology = (Topology) object;
         if (ClusterInstanceCreatedEvent.class.getName().equals(type)) {
@@ -58,6 +66,7 @@ public class ClusterInstanceCreatedMessageProcessor extends MessageProcessor {
 
             TopologyUpdater.acquireWriteLockForService(event.getServiceUuid());
             try {
+                ClusterSnapshotRegistry.markClusterUpdated(event.getClusterId());
                 return doProcess(event, topology);
 
             } finally {
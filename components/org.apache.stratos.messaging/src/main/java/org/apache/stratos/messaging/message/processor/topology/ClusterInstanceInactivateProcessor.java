@@ -20,6 +20,7 @@ package org.apache.stratos.messaging.message.processor.topology;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.instance.ClusterInstance;
 import org.apache.stratos.messaging.domain.topology.Cluster;
 import org.apache.stratos.messaging.domain.topology.ClusterStatus;
@@ -30,13 +31,15 @@ import org.apache.stratos.messaging.message.filter.topology.TopologyApplicationF
 import org.apache.stratos.messaging.message.filter.topology.TopologyClusterFilter;
 import org.apache.stratos.messaging.message.filter.topology.TopologyServiceFilter;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.topology.updater.TopologyUpdater;
+import org.apache.stratos.messaging.message.receiver.topology.ClusterSnapshotRegistry;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 /**
  * This processor will act upon the cluster activated event
  */
-public class ClusterInstanceInactivateProcessor extends MessageProcessor {
+public class ClusterInstanceInactivateProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(ClusterInstanceInactivateProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -46,7 +49,12 @@ public class ClusterInstanceInactivateProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ClusterInstanceInactivateEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
 
         Topology topology = (Topology) object;
 
@@ -62,6 +70,7 @@ public class ClusterInstanceInactivateProcessor extends MessageProcessor {
 
             TopologyUpdater.acquireWriteLockForCluster(event.getServiceName(), event.getClusterId());
             try {
+                ClusterSnapshotRegistry.markClusterUpdated(event.getClusterId());
                 return doProcess(event, topology);
 
             } finally {
@@ -20,6 +20,7 @@ package org.apache.stratos.messaging.message.processor.topology;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.topology.Cluster;
 import org.apache.stratos.messaging.domain.topology.Service;
 import org.apache.stratos.messaging.domain.topology.Topology;
@@ -28,10 +29,12 @@ import org.apache.stratos.messaging.message.filter.topology.TopologyApplicationF
 import org.apache.stratos.messaging.message.filter.topology.TopologyClusterFilter;
 import org.apache.stratos.messaging.message.filter.topology.TopologyServiceFilter;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.topology.updater.TopologyUpdater;
+import org.apache.stratos.messaging.message.receiver.topology.ClusterSnapshotRegistry;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
-public class ClusterRemovedMessageProcessor extends MessageProcessor {
+public class ClusterRemovedMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(ClusterRemovedMessageProcessor.class);
     private MessageProcessor nextProcessor;
@@ -42,7 +45,12 @@ public class ClusterRemovedMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ClusterRemovedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         Topology topology = (Topology) object;
 
         if (ClusterRemovedEvent.class.getName().equals(type)) {
@@ -55,6 +63,7 @@ public class ClusterRemovedMessageProcessor extends MessageProcessor {
 
             TopologyUpdater.acquireWriteLockForService(event.getServiceName());
             try {
+                ClusterSnapshotRegistry.markClusterReplaced(event.getClusterId());
                 return doProcess(event, topology);
 
             } finally {
@@ -20,6 +20,7 @@ package org.apache.stratos.messaging.message.processor.topology;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.instance.ClusterInstance;
 import org.apache.stratos.messaging.domain.topology.Cluster;
 import org.apache.stratos.messaging.domain.topology.ClusterStatus;
@@ -30,10 +31,12 @@ import org.apache.stratos.messaging.message.filter.topology.TopologyApplicationF
 import org.apache.stratos.messaging.message.filter.topology.TopologyClusterFilter;
 import org.apache.stratos.messaging.message.filter.topology.TopologyServiceFilter;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.topology.updater.TopologyUpdater;
+import org.apache.stratos.messaging.message.receiver.topology.ClusterSnapshotRegistry;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
-public class ClusterResetMessageProcessor extends MessageProcessor {
+public class ClusterResetMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(ClusterResetMessageProcessor.class);
     private MessageProcessor nextProcessor;
@@ -44,7 +47,12 @@ public class ClusterResetMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return ClusterResetEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
 
         Topology topology = (Topology) object;
         if (ClusterResetEvent.class.getName().equals(type)) {
@@ -59,6 +67,7 @@ public class ClusterResetMessageProcessor extends MessageProcessor {
 
             TopologyUpdater.acquireWriteLockForService(event.getServiceName());
             try {
+                ClusterSnapshotRegistry.markClusterUpdated(event.getClusterId());
                 return doProcess(event, topology);
 
             } finally {
@@ -20,6 +20,7 @@ package org.apache.stratos.messaging.message.processor.topology;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.topology.Cluster;
 import org.apache.stratos.messaging.domain.topology.Member;
 import org.apache.stratos.messaging.domain.topology.Service;
@@ -30,16 +31,31 @@ import org.apache.stratos.messaging.message.filter.topology.TopologyClusterFilte
 import org.apache.stratos.messaging.message.filter.topology.TopologyMemberFilter;
 import org.apache.stratos.messaging.message.filter.topology.TopologyServiceFilter;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.topology.updater.TopologyUpdater;
+import org.apache.stratos.messaging.message.receiver.topology.ClusterSnapshotRegistry;
+import org.apache.stratos.messaging.message.receiver.topology.TopologyVersionTracker;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class CompleteTopologyMessageProcessor extends MessageProcessor {
+public class CompleteTopologyMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(CompleteTopologyMessageProcessor.class);
     private MessageProcessor nextProcessor;
+    private final TopologyVersionTracker versionTracker;
+
+    public CompleteTopologyMessageProcessor() {
+        this(new TopologyVersionTracker());
+    }
+
+    /**
+     * @param versionTracker version tracker of the topology event receiver
+     */
+    public CompleteTopologyMessageProcessor(TopologyVersionTracker versionTracker) {
+        this.versionTracker = versionTracker;
+    }
 
     @Override
     public void setNext(MessageProcessor nextProcessor) {
@@ -47,18 +63,34 @@ public class CompleteTopologyMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return CompleteTopologyEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         Topology topology = (Topology) object;
 
         if (CompleteTopologyEvent.class.getName().equals(type)) {
             // Parse complete message and build event
             CompleteTopologyEvent event = (CompleteTopologyEvent) MessagingUtil.jsonToObject(message, CompleteTopologyEvent.class);
+            boolean outOfSync = versionTracker.isOutOfSync();
+            versionTracker.completeTopologyReceived(event);
 
-            if (!topology.isInitialized()) {
+            if (!topology.isInitialized() || outOfSync) {
                 TopologyUpdater.acquireWriteLock();
 
                 try {
+                    if (topology.isInitialized()) {
+                        // Rebuild the topology since events have been lost
+                        topology.clear();
+                        if (log.isInfoEnabled()) {
+                            log.info(String.format("Topology is out of sync, re-initializing: [topology-version] %d",
+                                    event.getTopologyVersion()));
+                        }
+                    }
                     doProcess(event, topology);
+                    ClusterSnapshotRegistry.markTopologyReplaced();
 
                 } finally {
                     TopologyUpdater.releaseWriteLock();
@@ -20,6 +20,7 @@ package org.apache.stratos.messaging.message.processor.topology;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.topology.*;
 import org.apache.stratos.messaging.event.topology.MemberInitializedEvent;
 import org.apache.stratos.messaging.message.filter.topology.TopologyApplicationFilter;
@@ -27,10 +28,12 @@ import org.apache.stratos.messaging.message.filter.topology.TopologyClusterFilte
 import org.apache.stratos.messaging.message.filter.topology.TopologyMemberFilter;
 import org.apache.stratos.messaging.message.filter.topology.TopologyServiceFilter;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.topology.updater.TopologyUpdater;
+import org.apache.stratos.messaging.message.receiver.topology.ClusterSnapshotRegistry;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
-public class MemberInitializedMessageProcessor extends MessageProcessor {
+public class MemberInitializedMessageProcessor extends PayloadMessageProcessor {
 
     private static final Log log = LogFactory.getLog(MemberInitializedMessageProcessor.class);
     private MessageProcessor nextProcessor;
@@ -41,7 +44,12 @@ public class MemberInitializedMessageProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return MemberInitializedEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         Topology topology = (Topology) object;
 
         if (MemberInitializedEvent.class.getName().equals(type)) {
@@ -54,6 +62,7 @@ public class MemberInitializedMessageProcessor extends MessageProcessor {
 
             TopologyUpdater.acquireWriteLockForCluster(event.getServiceName(), event.getClusterId());
             try {
+                ClusterSnapshotRegistry.markMemberUpdated(event.getClusterId(), event.getMemberId());
                 return doProcess(event, topology);
             } finally {
                 TopologyUpdater.releaseWriteLockForCluster(event.getServiceName(), event.getClusterId());
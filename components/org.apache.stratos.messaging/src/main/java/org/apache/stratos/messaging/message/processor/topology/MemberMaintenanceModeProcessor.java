@@ -21,6 +21,7 @@ package org.apache.stratos.messaging.message.processor.topology;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.domain.topology.*;
 import org.apache.stratos.messaging.event.topology.MemberMaintenanceModeEvent;
 import org.apache.stratos.messaging.message.filter.topology.TopologyApplicationFilter;
@@ -28,10 +29,12 @@ import org.apache.stratos.messaging.message.filter.topology.TopologyClusterFilte
 import org.apache.stratos.messaging.message.filter.topology.TopologyMemberFilter;
 import org.apache.stratos.messaging.message.filter.topology.TopologyServiceFilter;
 import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
 import org.apache.stratos.messaging.message.processor.topology.updater.TopologyUpdater;
+import org.apache.stratos.messaging.message.receiver.topology.ClusterSnapshotRegistry;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
-public class MemberMaintenanceModeProcessor extends MessageProcessor {
+public class MemberMaintenanceModeProcessor extends PayloadMessageProcessor {
     private static final Log log = LogFactory.getLog(MemberMaintenanceModeProcessor.class);
     private MessageProcessor nextProcessor;
 
@@ -41,7 +44,12 @@ public class MemberMaintenanceModeProcessor extends MessageProcessor {
     }
 
     @Override
-    public boolean process(String type, String message, Object object) {
+    public String getMessageType() {
+        return MemberMaintenanceModeEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
         Topology topology = (Topology) object;
 
         if (MemberMaintenanceModeEvent.class.getName().equals(type)) {
@@ -55,6 +63,7 @@ public class MemberMaintenanceModeProcessor extends MessageProcessor {
 
             TopologyUpdater.acquireWriteLockForCluster(event.getServiceName(), event.getClusterId());
             try {
+                ClusterSnapshotRegistry.markMemberUpdated(event.getClusterId(), event.getMemberId());
                 return doProcess(event, topology);
 
             } finally {
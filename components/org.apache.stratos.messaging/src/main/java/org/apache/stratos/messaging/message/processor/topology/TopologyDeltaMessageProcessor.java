@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.message.processor.topology;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.domain.topology.Cluster;
+import org.apache.stratos.messaging.domain.topology.Member;
+import org.apache.stratos.messaging.domain.topology.Service;
+import org.apache.stratos.messaging.domain.topology.Topology;
+import org.apache.stratos.messaging.event.Event;
+import org.apache.stratos.messaging.event.topology.*;
+import org.apache.stratos.messaging.message.filter.topology.TopologyApplicationFilter;
+import org.apache.stratos.messaging.message.filter.topology.TopologyClusterFilter;
+import org.apache.stratos.messaging.message.filter.topology.TopologyMemberFilter;
+import org.apache.stratos.messaging.message.filter.topology.TopologyServiceFilter;
+import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.MessageProcessorChain;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
+import org.apache.stratos.messaging.message.processor.topology.updater.TopologyUpdater;
+import org.apache.stratos.messaging.message.receiver.topology.ClusterSnapshotRegistry;
+import org.apache.stratos.messaging.message.receiver.topology.TopologyVersionTracker;
+import org.apache.stratos.messaging.util.MessagingUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies topology deltas on top of an in sync topology. Since a delta replaces the changed
+ * clusters, the listeners of the events which bring the topology to the state of the delta
+ * are notified along with the topology delta listeners.
+ */
+public class TopologyDeltaMessageProcessor extends PayloadMessageProcessor {
+
+    private static final Log log = LogFactory.getLog(TopologyDeltaMessageProcessor.class);
+    private MessageProcessor nextProcessor;
+    private final MessageProcessorChain processorChain;
+    private final TopologyVersionTracker versionTracker;
+
+    /**
+     * @param processorChain chain notifying the listeners of the events derived from topology deltas
+     * @param versionTracker version tracker of the topology event receiver
+     */
+    public TopologyDeltaMessageProcessor(MessageProcessorChain processorChain,
+                                         TopologyVersionTracker versionTracker) {
+        this.processorChain = processorChain;
+        this.versionTracker = versionTracker;
+    }
+
+    @Override
+    public void setNext(MessageProcessor nextProcessor) {
+        this.nextProcessor = nextProcessor;
+    }
+
+    @Override
+    public String getMessageType() {
+        return TopologyDeltaEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
+        Topology topology = (Topology) object;
+
+        if (TopologyDeltaEvent.class.getName().equals(type)) {
+            TopologyDeltaEvent event = (TopologyDeltaEvent) MessagingUtil.jsonToObject(message,
+                    TopologyDeltaEvent.class);
+            versionTracker.topologyDeltaReceived(event);
+
+            // Deltas are only applied on top of an in sync topology
+            if (!topology.isInitialized() || versionTracker.isOutOfSync()) {
+                return true;
+            }
+            TopologyUpdater.acquireWriteLock();
+            try {
+                doProcess(event, topology);
+            } finally {
+                TopologyUpdater.releaseWriteLock();
+            }
+
+            // Notify event listeners
+            notifyEventListeners(event);
+            return true;
+
+        } else {
+            if (nextProcessor != null) {
+                // ask the next processor to take care of the message.
+                return nextProcessor.process(type, message, topology);
+            }
+            return false;
+        }
+    }
+
+    private void doProcess(TopologyDeltaEvent event, Topology topology) {
+        // Events of added entities are notified once the delta has been applied
+        List<Event> addedEvents = new ArrayList<Event>();
+
+        for (String clusterId : event.getRemovedClusterIds()) {
+            Cluster cluster = topology.getCluster(clusterId);
+            if (cluster != null) {
+                // Notify event listeners before removing cluster object
+                notifyClusterRemoved(cluster);
+            }
+            for (Service service : topology.getServices()) {
+                service.removeCluster(clusterId);
+            }
+            topology.removeFromClusterMap(clusterId);
+        }
+
+        for (String serviceUuid : event.getRemovedServices()) {
+            Service service = topology.getService(serviceUuid);
+            if (service != null) {
+                for (Cluster cluster : service.getClusters()) {
+                    notifyClusterRemoved(cluster);
+                    topology.removeFromClusterMap(cluster.getClusterId());
+                }
+                ServiceRemovedEvent serviceRemovedEvent = new ServiceRemovedEvent(serviceUuid);
+                serviceRemovedEvent.setServiceName(service.getServiceName());
+                notifyDerivedEvent(serviceRemovedEvent);
+                topology.removeService(serviceUuid);
+            }
+        }
+
+        for (Service changedService : event.getChangedTopology().getServices()) {
+            // Apply service filter
+            if (TopologyServiceFilter.apply(changedService.getServiceName())) {
+                continue;
+            }
+            Service service = topology.getService(changedService.getServiceUuid());
+            if (service == null) {
+                service = new Service(changedService.getServiceName(), changedService.getServiceType(),
+                        changedService.getServiceUuid());
+                service.addPorts(changedService.getPorts());
+                service.setProperties(changedService.getProperties());
+                topology.addService(service);
+                ServiceCreatedEvent serviceCreatedEvent = new ServiceCreatedEvent(service.getServiceName(),
+                        service.getServiceType(), service.getServiceUuid());
+                serviceCreatedEvent.addPorts(service.getPorts());
+                serviceCreatedEvent.setProperties(service.getProperties());
+                addedEvents.add(serviceCreatedEvent);
+            }
+            for (Cluster cluster : changedService.getClusters()) {
+                // Apply application & cluster filters
+                if (TopologyApplicationFilter.apply(cluster.getAppId()) ||
+                        TopologyClusterFilter.apply(cluster.getClusterId())) {
+                    continue;
+                }
+                // Apply member filter
+                List<Member> membersToRemove = new ArrayList<Member>();
+                for (Member member : cluster.getMembers()) {
+                    if (TopologyMemberFilter.apply(member.getLbClusterId(), member.getNetworkPartitionId())) {
+                        membersToRemove.add(member);
+                    }
+                }
+                for (Member member : membersToRemove) {
+                    cluster.removeMember(member);
+                }
+
+                Cluster existingCluster = topology.getCluster(cluster.getClusterId());
+                if (existingCluster == null) {
+                    addedEvents.add(new ClusterCreatedEvent(cluster));
+                } else {
+                    for (Member existingMember : existingCluster.getMembers()) {
+                        if (!cluster.memberExists(existingMember.getMemberId())) {
+                            // Notify event listeners before removing member object
+                            notifyDerivedEvent(createMemberTerminatedEvent(existingMember));
+                        }
+                    }
+                }
+                for (Member member : cluster.getMembers()) {
+                    Member existingMember = (existingCluster == null) ? null :
+                            existingCluster.getMember(member.getMemberId());
+                    if ((existingMember == null) || (existingMember.getStatus() != member.getStatus())) {
+                        Event memberEvent = createMemberStatusEvent(member);
+                        if (memberEvent != null) {
+                            addedEvents.add(memberEvent);
+                        }
+                    }
+                }
+                service.addCluster(cluster);
+                topology.addToCluterMap(cluster);
+                ClusterSnapshotRegistry.markClusterReplaced(cluster.getClusterId());
+            }
+        }
+
+        for (Event addedEvent : addedEvents) {
+            notifyDerivedEvent(addedEvent);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Topology delta applied: [topology-epoch] %d [topology-version] %d " +
+                            "[removed-services] %s [removed-clusters] %s", event.getTopologyEpoch(),
+                    event.getTopologyVersion(), event.getRemovedServices(), event.getRemovedClusterIds()));
+        }
+    }
+
+    private void notifyClusterRemoved(Cluster cluster) {
+        notifyDerivedEvent(new ClusterRemovedEvent(cluster.getServiceName(), cluster.getClusterId(),
+                cluster.getDeploymentPolicyName(), cluster.isLbCluster()));
+    }
+
+    private void notifyDerivedEvent(Event event) {
+        if (processorChain != null) {
+            processorChain.notifyEventListeners(event);
+        }
+    }
+
+    private static MemberTerminatedEvent createMemberTerminatedEvent(Member member) {
+        MemberTerminatedEvent memberTerminatedEvent = new MemberTerminatedEvent(member.getServiceName(),
+                member.getClusterId(), member.getMemberId(), member.getClusterInstanceId(),
+                member.getNetworkPartitionId(), member.getPartitionId());
+        memberTerminatedEvent.setProperties(member.getProperties());
+        return memberTerminatedEvent;
+    }
+
+    /**
+     * Create the event which brings a member to its current status.
+     *
+     * @param member member
+     * @return member event, null if no event applies to the status
+     */
+    private static Event createMemberStatusEvent(Member member) {
+        if (member.getStatus() == null) {
+            return null;
+        }
+        switch (member.getStatus()) {
+            case Created:
+                MemberCreatedEvent memberCreatedEvent = new MemberCreatedEvent(member.getServiceName(),
+                        member.getClusterId(), member.getClusterInstanceId(), member.getMemberId(),
+                        member.getNetworkPartitionId(), member.getPartitionId(), member.getLoadBalancingIPType(),
+                        member.getInitTime());
+                memberCreatedEvent.setProperties(member.getProperties());
+                return memberCreatedEvent;
+            case Initialized:
+                MemberInitializedEvent memberInitializedEvent = new MemberInitializedEvent(member.getServiceName(),
+                        member.getClusterId(), member.getClusterInstanceId(), member.getMemberId(),
+                        member.getNetworkPartitionId(), member.getPartitionId());
+                memberInitializedEvent.setDefaultPrivateIP(member.getDefaultPrivateIP());
+                memberInitializedEvent.setMemberPrivateIPs(member.getMemberPrivateIPs());
+                memberInitializedEvent.setDefaultPublicIP(member.getDefaultPublicIP());
+                memberInitializedEvent.setMemberPublicIPs(member.getMemberPublicIPs());
+                memberInitializedEvent.setProperties(member.getProperties());
+                return memberInitializedEvent;
+            case Starting:
+                MemberStartedEvent memberStartedEvent = new MemberStartedEvent(member.getServiceName(),
+                        member.getClusterId(), member.getClusterInstanceId(), member.getMemberId(),
+                        member.getNetworkPartitionId(), member.getPartitionId());
+                memberStartedEvent.setProperties(member.getProperties());
+                return memberStartedEvent;
+            case Active:
+                MemberActivatedEvent memberActivatedEvent = new MemberActivatedEvent(member.getServiceName(),
+                        member.getClusterId(), member.getClusterInstanceId(), member.getMemberId(),
+                        member.getNetworkPartitionId(), member.getPartitionId());
+                memberActivatedEvent.addPorts(member.getPorts());
+                memberActivatedEvent.setDefaultPrivateIP(member.getDefaultPrivateIP());
+                memberActivatedEvent.setMemberPrivateIPs(member.getMemberPrivateIPs());
+                memberActivatedEvent.setDefaultPublicIP(member.getDefaultPublicIP());
+                memberActivatedEvent.setMemberPublicIPs(member.getMemberPublicIPs());
+                return memberActivatedEvent;
+            case In_Maintenance:
+                MemberMaintenanceModeEvent memberMaintenanceModeEvent = new MemberMaintenanceModeEvent(
+                        member.getServiceName(), member.getClusterId(), member.getClusterInstanceId(),
+                        member.getMemberId(), member.getNetworkPartitionId(), member.getPartitionId());
+                memberMaintenanceModeEvent.setProperties(member.getProperties());
+                return memberMaintenanceModeEvent;
+            case ReadyToShutDown:
+                MemberReadyToShutdownEvent memberReadyToShutdownEvent = new MemberReadyToShutdownEvent(
+                        member.getServiceName(), member.getClusterId(), member.getClusterInstanceId(),
+                        member.getMemberId(), member.getNetworkPartitionId(), member.getPartitionId());
+                memberReadyToShutdownEvent.setProperties(member.getProperties());
+                return memberReadyToShutdownEvent;
+            case Suspended:
+                return new MemberSuspendedEvent(member.getServiceName(), member.getClusterId(),
+                        member.getNetworkPartitionId(), member.getPartitionId(), member.getMemberId());
+            default:
+                return null;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.messaging.listener.EventListener;
 import org.apache.stratos.messaging.listener.topology.*;
 import org.apache.stratos.messaging.message.processor.MessageProcessorChain;
+import org.apache.stratos.messaging.message.receiver.topology.TopologyVersionTracker;
 
 /**
  * Defines default topology message processor chain.
@@ -32,7 +33,9 @@ import org.apache.stratos.messaging.message.processor.MessageProcessorChain;
 public class TopologyMessageProcessorChain extends MessageProcessorChain {
     private static final Log log = LogFactory.getLog(TopologyMessageProcessorChain.class);
 
+    private TopologyVersionTracker versionTracker;
     private CompleteTopologyMessageProcessor completeTopologyMessageProcessor;
+    private TopologyDeltaMessageProcessor topologyDeltaMessageProcessor;
     private ServiceCreatedMessageProcessor serviceCreatedMessageProcessor;
     private ServiceRemovedMessageProcessor serviceRemovedMessageProcessor;
     private ApplicationClustersCreatedMessageProcessor appClustersCreatedMessageProcessor;
@@ -53,12 +56,20 @@ public class TopologyMessageProcessorChain extends MessageProcessorChain {
     private ClusterInstanceTerminatingProcessor clusterTerminatingProcessor;
     private ClusterInstanceTerminatedProcessor clusterTerminatedProcessor;
     private ClusterInstanceCreatedMessageProcessor clusterInstanceCreatedMessageProcessor;
+    private TopologyVersionMessageProcessor topologyVersionMessageProcessor;
 
     public void initialize() {
         // Add topology event processors
-        completeTopologyMessageProcessor = new CompleteTopologyMessageProcessor();
+        versionTracker = new TopologyVersionTracker();
+        completeTopologyMessageProcessor = new CompleteTopologyMessageProcessor(versionTracker);
         add(completeTopologyMessageProcessor);
 
+        topologyDeltaMessageProcessor = new TopologyDeltaMessageProcessor(this, versionTracker);
+        add(topologyDeltaMessageProcessor);
+
+        topologyVersionMessageProcessor = new TopologyVersionMessageProcessor();
+        add(topologyVersionMessageProcessor);
+
         serviceCreatedMessageProcessor = new ServiceCreatedMessageProcessor();
         add(serviceCreatedMessageProcessor);
 
@@ -124,9 +135,18 @@ public class TopologyMessageProcessorChain extends MessageProcessorChain {
         }
     }
 
+    /**
+     * Version tracker of the topology events processed by this chain.
+     */
+    public TopologyVersionTracker getVersionTracker() {
+        return versionTracker;
+    }
+
     public void addEventListener(EventListener eventListener) {
         if (eventListener instanceof CompleteTopologyEventListener) {
             completeTopologyMessageProcessor.addEventListener(eventListener);
+        } else if (eventListener instanceof TopologyDeltaEventListener) {
+            topologyDeltaMessageProcessor.addEventListener(eventListener);
         } else if (eventListener instanceof ClusterCreatedEventListener) {
             clusterCreatedMessageProcessor.addEventListener(eventListener);
         } else if (eventListener instanceof ApplicationClustersCreatedEventListener) {
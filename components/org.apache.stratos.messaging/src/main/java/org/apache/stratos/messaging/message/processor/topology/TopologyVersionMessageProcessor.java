@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.message.processor.topology;
+
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.event.topology.TopologyVersionEvent;
+import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.PayloadMessageProcessor;
+
+/**
+ * Consumes topology version events, their versions are tracked when they are received.
+ */
+public class TopologyVersionMessageProcessor extends PayloadMessageProcessor {
+
+    private MessageProcessor nextProcessor;
+
+    @Override
+    public void setNext(MessageProcessor nextProcessor) {
+        this.nextProcessor = nextProcessor;
+    }
+
+    @Override
+    public String getMessageType() {
+        return TopologyVersionEvent.class.getName();
+    }
+
+    @Override
+    public boolean process(String type, Message message, Object object) {
+        if (TopologyVersionEvent.class.getName().equals(type)) {
+            return true;
+        }
+        if (nextProcessor != null) {
+            // ask the next processor to take care of the message.
+            return nextProcessor.process(type, message, object);
+        }
+        return false;
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.messaging.domain.topology.locking.TopologyLock;
 import org.apache.stratos.messaging.domain.topology.locking.TopologyLockHierarchy;
+import org.apache.stratos.messaging.message.receiver.topology.ClusterSnapshotRegistry;
 import org.apache.stratos.messaging.message.receiver.topology.TopologyManager;
 
 /**
@@ -53,6 +54,9 @@ import org.apache.stratos.messaging.message.receiver.topology.TopologyManager;
  * <p/>
  * release:
  * public static void releaseWriteLockForServices()
+ * <p/>
+ * Releasing a write lock publishes new snapshots of the clusters under it to
+ * ClusterSnapshotRegistry, for lock free readers.
  */
 
 public class TopologyUpdater {
@@ -77,6 +81,11 @@ public class TopologyUpdater {
      * Releases write lock for the Complete Topology
      */
     public static void releaseWriteLock() {
+        try {
+            ClusterSnapshotRegistry.topologyUpdated(TopologyManager.getTopology());
+        } catch (RuntimeException e) {
+            log.error("Could not publish cluster snapshots", e);
+        }
         if (log.isDebugEnabled()) {
             log.debug("Write lock released for Topology");
         }
@@ -99,6 +108,11 @@ public class TopologyUpdater {
      * Releases write lock for the all Services
      */
     public static void releaseWriteLockForServices() {
+        try {
+            ClusterSnapshotRegistry.servicesUpdated(TopologyManager.getTopology());
+        } catch (RuntimeException e) {
+            log.error("Could not publish cluster snapshots", e);
+        }
         if (log.isDebugEnabled()) {
             log.debug("Write lock released for Services");
         }
@@ -134,6 +148,12 @@ public class TopologyUpdater {
      */
     public static void releaseWriteLockForService(String serviceName) {
 
+        try {
+            ClusterSnapshotRegistry.serviceUpdated(TopologyManager.getTopology(), serviceName);
+        } catch (RuntimeException e) {
+            log.error(String.format("Could not publish cluster snapshots: [service] %s", serviceName), e);
+        }
+
         TopologyLock topologyServiceLock = topologyLockHierarchy.getTopologyLockForService(serviceName, false);
         if (topologyServiceLock == null) {
             handleLockNotFound("Topology lock not found for Service " + serviceName);
@@ -184,6 +204,12 @@ public class TopologyUpdater {
      */
     public static void releaseWriteLockForCluster(String serviceName, String clusterId) {
 
+        try {
+            ClusterSnapshotRegistry.clusterUpdated(TopologyManager.getTopology(), serviceName, clusterId);
+        } catch (RuntimeException e) {
+            log.error(String.format("Could not publish cluster snapshot: [cluster] %s", clusterId), e);
+        }
+
         TopologyLock topologyClusterLock = topologyLockHierarchy.getTopologyLockForCluster(clusterId, false);
         if (topologyClusterLock == null) {
             handleLockNotFound("Topology lock not found for Cluster " + clusterId);
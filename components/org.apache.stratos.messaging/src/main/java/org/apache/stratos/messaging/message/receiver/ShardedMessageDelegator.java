@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.message.receiver;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delegates the messages of a message queue to a set of shard threads. Messages are assigned
+ * to shards by the key returned by the message handler, hence messages of the same key are
+ * processed in the order they are received while messages of different keys are processed
+ * concurrently. Messages without a key act as a barrier: they are processed by the dispatcher
+ * thread once all shards are drained and before any following message is delegated.
+ * <p/>
+ * Once started, the delegator is registered with the platform MBean server as
+ * org.apache.stratos:type=ShardedMessageDelegator,name=[name] until it is terminated.
+ */
+public class ShardedMessageDelegator implements Runnable, ShardedMessageDelegatorMBean {
+
+    private static final Log log = LogFactory.getLog(ShardedMessageDelegator.class);
+
+    private static final int SHARD_QUEUE_CAPACITY = 1000;
+    private static final long POLL_TIMEOUT = 1000;
+    private static final String OBJECT_NAME_FORMAT = "org.apache.stratos:type=ShardedMessageDelegator,name=%s";
+
+    private final String name;
+    private final BlockingQueue<Message> messageQueue;
+    private final ShardedMessageHandler messageHandler;
+    private final Shard[] shards;
+    private final Object idleMonitor;
+    private final AtomicLong barrierCount;
+    private final AtomicLong totalBarrierWaitNanos;
+    private int pendingMessageCount;
+    private volatile boolean terminated;
+    private boolean mBeanRegistered;
+
+    /**
+     * @param name           name of the delegator, used to name the shard threads
+     * @param messageQueue   queue the messages are taken from
+     * @param messageHandler handler the messages are delegated to
+     * @param shardCount     number of shard threads
+     */
+    public ShardedMessageDelegator(String name, BlockingQueue<Message> messageQueue,
+                                   ShardedMessageHandler messageHandler, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException(String.format("Invalid shard count: [name] %s [shard-count] %d",
+                    name, shardCount));
+        }
+        this.name = name;
+        this.messageQueue = messageQueue;
+        this.messageHandler = messageHandler;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        this.idleMonitor = new Object();
+        this.barrierCount = new AtomicLong();
+        this.totalBarrierWaitNanos = new AtomicLong();
+    }
+
+    @Override
+    public void run() {
+        for (int i = 0; i < shards.length; i++) {
+            Thread shardThread = new Thread(shards[i], name + "-shard-" + i);
+            shardThread.setDaemon(true);
+            shardThread.start();
+        }
+        registerMBean();
+        if (log.isInfoEnabled()) {
+            log.info(String.format("Sharded message delegator started: [name] %s [shards] %d", name, shards.length));
+        }
+
+        while (!terminated) {
+            try {
+                Message message = messageHandler.prepare(messageQueue.take());
+                if (message == null) {
+                    continue;
+                }
+                String shardKey = messageHandler.getShardKey(message);
+                if (shardKey == null) {
+                    processBarrier(message);
+                } else {
+                    delegate(shards[getShardIndex(shardKey)], message);
+                }
+            } catch (InterruptedException ignore) {
+                log.info(String.format("Shutting down sharded message delegator: [name] %s", name));
+                terminate();
+            } catch (Exception e) {
+                log.error(String.format("Failed to delegate message: [name] %s", name), e);
+            }
+        }
+        // The delegator might have been terminated before it was registered
+        unregisterMBean();
+    }
+
+    private void delegate(Shard shard, Message message) throws InterruptedException {
+        synchronized (idleMonitor) {
+            pendingMessageCount++;
+        }
+        // Block the dispatcher while the shard is full, the message queue buffers the messages meanwhile
+        while (!shard.queue.offer(message, POLL_TIMEOUT, TimeUnit.MILLISECONDS)) {
+            if (terminated) {
+                messageCompleted();
+                return;
+            }
+        }
+    }
+
+    private void processBarrier(Message message) throws InterruptedException {
+        long startTime = System.nanoTime();
+        synchronized (idleMonitor) {
+            while ((pendingMessageCount > 0) && !terminated) {
+                idleMonitor.wait(POLL_TIMEOUT);
+            }
+        }
+        totalBarrierWaitNanos.addAndGet(System.nanoTime() - startTime);
+        barrierCount.incrementAndGet();
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Processing barrier message: [name] %s [type] %s", name,
+                    message.getEventClassName()));
+        }
+        messageHandler.process(message);
+    }
+
+    private void messageCompleted() {
+        synchronized (idleMonitor) {
+            pendingMessageCount--;
+            if (pendingMessageCount == 0) {
+                idleMonitor.notifyAll();
+            }
+        }
+    }
+
+    int getShardIndex(String shardKey) {
+        return (shardKey.hashCode() & Integer.MAX_VALUE) % shards.length;
+    }
+
+    /**
+     * Terminate the dispatcher and the shard threads.
+     */
+    public void terminate() {
+        terminated = true;
+        unregisterMBean();
+    }
+
+    private ObjectName getObjectName() throws Exception {
+        return new ObjectName(String.format(OBJECT_NAME_FORMAT, ObjectName.quote(name)));
+    }
+
+    private synchronized void registerMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getObjectName();
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+                mBeanRegistered = true;
+            }
+        } catch (Exception e) {
+            // Messages are still delegated, only the JMX view is not available
+            log.warn(String.format("Could not register sharded message delegator MBean: [name] %s", name), e);
+        }
+    }
+
+    private synchronized void unregisterMBean() {
+        if (!mBeanRegistered) {
+            return;
+        }
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getObjectName();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanRegistered = false;
+        } catch (Exception e) {
+            log.warn(String.format("Could not unregister sharded message delegator MBean: [name] %s", name), e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public int[] getQueueDepths() {
+        int[] queueDepths = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            queueDepths[i] = getQueueDepth(i);
+        }
+        return queueDepths;
+    }
+
+    @Override
+    public long[] getProcessedCounts() {
+        long[] processedCounts = new long[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            processedCounts[i] = getProcessedCount(i);
+        }
+        return processedCounts;
+    }
+
+    @Override
+    public double[] getAverageProcessingLatencies() {
+        double[] latencies = new double[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            latencies[i] = getAverageProcessingLatency(i);
+        }
+        return latencies;
+    }
+
+    @Override
+    public double[] getMaxProcessingLatencies() {
+        double[] latencies = new double[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            latencies[i] = getMaxProcessingLatency(i);
+        }
+        return latencies;
+    }
+
+    /**
+     * @return number of messages waiting to be processed by the given shard
+     */
+    public int getQueueDepth(int shardIndex) {
+        return shards[shardIndex].queue.size();
+    }
+
+    public long getProcessedCount(int shardIndex) {
+        return shards[shardIndex].processedCount.get();
+    }
+
+    /**
+     * @return average time in milliseconds taken by the given shard to process a message
+     */
+    public double getAverageProcessingLatency(int shardIndex) {
+        Shard shard = shards[shardIndex];
+        long processedCount = shard.processedCount.get();
+        return (processedCount == 0) ? 0 : (double) shard.totalProcessingNanos.get() / processedCount / 1000000;
+    }
+
+    /**
+     * @return maximum time in milliseconds taken by the given shard to process a message
+     */
+    public double getMaxProcessingLatency(int shardIndex) {
+        return (double) shards[shardIndex].maxProcessingNanos / 1000000;
+    }
+
+    @Override
+    public long getBarrierCount() {
+        return barrierCount.get();
+    }
+
+    /**
+     * @return average time in milliseconds a barrier message waited for the shards to drain
+     */
+    @Override
+    public double getAverageBarrierWait() {
+        long count = barrierCount.get();
+        return (count == 0) ? 0 : (double) totalBarrierWaitNanos.get() / count / 1000000;
+    }
+
+    /**
+     * Processes the messages of a shard in the order they are delegated.
+     */
+    private class Shard implements Runnable {
+
+        private final BlockingQueue<Message> queue;
+        private final AtomicLong processedCount;
+        private final AtomicLong totalProcessingNanos;
+        private volatile long maxProcessingNanos;
+
+        private Shard() {
+            this.queue = new ArrayBlockingQueue<Message>(SHARD_QUEUE_CAPACITY);
+            this.processedCount = new AtomicLong();
+            this.totalProcessingNanos = new AtomicLong();
+        }
+
+        @Override
+        public void run() {
+            while (!terminated) {
+                Message message;
+                try {
+                    message = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ignore) {
+                    return;
+                }
+                if (message == null) {
+                    continue;
+                }
+
+                long startTime = System.nanoTime();
+                try {
+                    messageHandler.process(message);
+                } catch (Exception e) {
+                    log.error(String.format("Failed to process message: [name] %s [type] %s", name,
+                            message.getEventClassName()), e);
+                } finally {
+                    long processingNanos = System.nanoTime() - startTime;
+                    totalProcessingNanos.addAndGet(processingNanos);
+                    processedCount.incrementAndGet();
+                    if (processingNanos > maxProcessingNanos) {
+                        maxProcessingNanos = processingNanos;
+                    }
+                    messageCompleted();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.message.receiver;
+
+import org.apache.stratos.messaging.domain.Message;
+
+/**
+ * Processes the messages delegated by a {@link ShardedMessageDelegator}.
+ */
+public abstract class ShardedMessageHandler {
+
+    /**
+     * Invoked by the dispatcher thread for each message in the order the messages are received.
+     *
+     * @param message message received
+     * @return message to be delegated, null if the message should be skipped
+     */
+    public Message prepare(Message message) {
+        return message;
+    }
+
+    /**
+     * Invoked by the dispatcher thread to find the key the given message is ordered by.
+     * Messages of the same key are processed in the order they are received.
+     *
+     * @param message message to be delegated
+     * @return shard key of the message, null if the message needs to be processed after all
+     * previous messages and before any following message
+     */
+    public abstract String getShardKey(Message message);
+
+    /**
+     * Process the given message. Messages of different keys are processed concurrently.
+     *
+     * @param message message to be processed
+     */
+    public abstract void process(Message message);
+}
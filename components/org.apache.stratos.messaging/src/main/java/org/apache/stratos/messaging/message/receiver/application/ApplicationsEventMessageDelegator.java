@@ -21,24 +21,18 @@ package org.apache.stratos.messaging.message.receiver.application;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.messaging.domain.Message;
-import org.apache.stratos.messaging.listener.EventListener;
-import org.apache.stratos.messaging.message.processor.MessageProcessorChain;
-import org.apache.stratos.messaging.message.processor.application.ApplicationsMessageProcessorChain;
 
 public class ApplicationsEventMessageDelegator implements Runnable {
     private static final Log log = LogFactory.getLog(ApplicationsEventMessageDelegator.class);
 
     private ApplicationsEventMessageQueue messageQueue;
-    private MessageProcessorChain processorChain;
+    private ApplicationsEventMessageHandler messageHandler;
     private boolean terminated;
 
-    public ApplicationsEventMessageDelegator(ApplicationsEventMessageQueue messageQueue) {
+    public ApplicationsEventMessageDelegator(ApplicationsEventMessageQueue messageQueue,
+                                             ApplicationsEventMessageHandler messageHandler) {
         this.messageQueue = messageQueue;
-        this.processorChain = new ApplicationsMessageProcessorChain();
-    }
-
-    public void addEventListener(EventListener eventListener) {
-        processorChain.addEventListener(eventListener);
+        this.messageHandler = messageHandler;
     }
 
     @Override
@@ -50,14 +44,10 @@ public class ApplicationsEventMessageDelegator implements Runnable {
 
             while (!terminated) {
                 try {
-                    Message message = messageQueue.take();
-                    String type = message.getEventClassName();
-
-                    // Skip application signup events
-                    if (!type.startsWith("org.apache.stratos.messaging.event.application.signup")) {
-
-                        // Retrieve the actual message
-                        String json = message.getText();
+                    // Application signup events are skipped by the message handler
+                    Message message = messageHandler.prepare(messageQueue.take());
+                    if (message != null) {
+                        String type = message.getEventClassName();
 
                         if (log.isDebugEnabled()) {
                             log.debug(String.format("Application status event message received from queue: %s", type));
@@ -67,7 +57,7 @@ public class ApplicationsEventMessageDelegator implements Runnable {
                         if (log.isDebugEnabled()) {
                             log.debug(String.format("Delegating application status event message: %s", type));
                         }
-                        processorChain.process(type, json, ApplicationManager.getApplications());
+                        messageHandler.process(message);
                     }
                 } catch (InterruptedException ignore) {
                     log.info("Shutting down application event message delegator...");
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.message.receiver.application;
+
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.listener.EventListener;
+import org.apache.stratos.messaging.message.processor.MessageProcessorChain;
+import org.apache.stratos.messaging.message.processor.application.ApplicationsMessageProcessorChain;
+import org.apache.stratos.messaging.message.receiver.ShardedMessageHandler;
+import org.apache.stratos.messaging.util.MessagingUtil;
+
+/**
+ * Processes application event messages using the applications processor chain. Messages
+ * are ordered by application id, events which do not belong to a single application are
+ * processed as barriers.
+ */
+class ApplicationsEventMessageHandler extends ShardedMessageHandler {
+
+    private static final String SIGNUP_EVENT_PACKAGE = "org.apache.stratos.messaging.event.application.signup";
+    private static final String APP_ID_FIELD = "appId";
+    private static final String APPLICATION_ID_FIELD = "applicationId";
+
+    private final MessageProcessorChain processorChain;
+
+    public ApplicationsEventMessageHandler() {
+        this.processorChain = new ApplicationsMessageProcessorChain();
+    }
+
+    public void addEventListener(EventListener eventListener) {
+        processorChain.addEventListener(eventListener);
+    }
+
+    @Override
+    public Message prepare(Message message) {
+        // Skip application signup events
+        if (message.getEventClassName().startsWith(SIGNUP_EVENT_PACKAGE)) {
+            return null;
+        }
+        return message;
+    }
+
+    @Override
+    public String getShardKey(Message message) {
+        String appId = MessagingUtil.readField(message, APP_ID_FIELD);
+        if (appId != null) {
+            return appId;
+        }
+        return MessagingUtil.readField(message, APPLICATION_ID_FIELD);
+    }
+
+    @Override
+    public void process(Message message) {
+        processorChain.process(message.getEventClassName(), message, ApplicationManager.getApplications());
+    }
+}
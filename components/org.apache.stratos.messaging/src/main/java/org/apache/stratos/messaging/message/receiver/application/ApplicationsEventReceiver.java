@@ -22,6 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.messaging.broker.subscribe.EventSubscriber;
 import org.apache.stratos.messaging.listener.EventListener;
+import org.apache.stratos.messaging.message.receiver.ShardedMessageDelegator;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 import java.util.concurrent.ExecutorService;
@@ -29,7 +30,11 @@ import java.util.concurrent.ExecutorService;
 public class ApplicationsEventReceiver {
     private static final Log log = LogFactory.getLog(ApplicationsEventReceiver.class);
 
+    private static final String DELEGATOR_NAME = "application";
+
+    private ApplicationsEventMessageHandler messageHandler;
     private ApplicationsEventMessageDelegator messageDelegator;
+    private ShardedMessageDelegator shardedMessageDelegator;
     private ApplicationsEventMessageListener messageListener;
     private EventSubscriber eventSubscriber;
     private boolean terminated;
@@ -37,12 +42,20 @@ public class ApplicationsEventReceiver {
 
     public ApplicationsEventReceiver() {
         ApplicationsEventMessageQueue messageQueue = new ApplicationsEventMessageQueue();
-        this.messageDelegator = new ApplicationsEventMessageDelegator(messageQueue);
+        this.messageHandler = new ApplicationsEventMessageHandler();
+        int shardCount = MessagingUtil.getDelegatorShardCount(DELEGATOR_NAME);
+        if (shardCount > 1) {
+            // Events are processed concurrently per application, listeners need to be thread safe
+            this.shardedMessageDelegator = new ShardedMessageDelegator("application-event-delegator", messageQueue,
+                    messageHandler, shardCount);
+        } else {
+            this.messageDelegator = new ApplicationsEventMessageDelegator(messageQueue, messageHandler);
+        }
         this.messageListener = new ApplicationsEventMessageListener(messageQueue);
     }
 
     public void addEventListener(EventListener eventListener) {
-        messageDelegator.addEventListener(eventListener);
+        messageHandler.addEventListener(eventListener);
     }
 
 
@@ -57,7 +70,11 @@ public class ApplicationsEventReceiver {
             }
 
             // Start Application status event message delegator thread
-            executorService.execute(messageDelegator);
+            if (shardedMessageDelegator != null) {
+                executorService.execute(shardedMessageDelegator);
+            } else {
+                executorService.execute(messageDelegator);
+            }
 
             if (log.isDebugEnabled()) {
                 log.debug("Application status event message delegator thread started");
@@ -73,10 +90,22 @@ public class ApplicationsEventReceiver {
 
     public void terminate() {
         eventSubscriber.terminate();
-        messageDelegator.terminate();
+        if (shardedMessageDelegator != null) {
+            shardedMessageDelegator.terminate();
+        } else {
+            messageDelegator.terminate();
+        }
         terminated = true;
     }
 
+    /**
+     * Returns the sharded message delegator if application events are delegated to multiple
+     * threads, null otherwise.
+     */
+    public ShardedMessageDelegator getShardedMessageDelegator() {
+        return shardedMessageDelegator;
+    }
+
     public ExecutorService getExecutorService() {
         return executorService;
     }
@@ -58,9 +58,6 @@ class DomainMappingEventMessageDelegator implements Runnable {
                     Message message = messageQueue.take();
                     String type = message.getEventClassName();
 
-                    // Retrieve the actual message
-                    String json = message.getText();
-
                     if (log.isDebugEnabled()) {
                         log.debug(String.format("Domain mapping event message received from queue: [event-class-name] %s " +
                                 "[message-queue] %s", type, messageQueue.getClass()));
@@ -69,7 +66,7 @@ class DomainMappingEventMessageDelegator implements Runnable {
                     if (log.isDebugEnabled()) {
                         log.debug(String.format("Delegating domain mapping event message: %s", type));
                     }
-                    processorChain.process(type, json, DomainMappingManager.getInstance());
+                    processorChain.process(type, message, DomainMappingManager.getInstance());
                 } catch (InterruptedException e) {
                     log.info("Shutting down domain mapping event message delegator...");
                     terminate();
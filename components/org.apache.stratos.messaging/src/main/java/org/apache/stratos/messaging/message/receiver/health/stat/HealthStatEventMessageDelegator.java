@@ -22,30 +22,24 @@ package org.apache.stratos.messaging.message.receiver.health.stat;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.messaging.domain.Message;
-import org.apache.stratos.messaging.listener.EventListener;
-import org.apache.stratos.messaging.message.processor.MessageProcessorChain;
-import org.apache.stratos.messaging.message.processor.health.stat.HealthStatMessageProcessorChain;
 
 
 /**
- * Implements logic for processing health stat event messages based on a given
- * topology process chain.
+ * Delegates health stat event messages to the health stat event message handler
+ * in the order they are received.
  */
 class HealthStatEventMessageDelegator implements Runnable {
 
     private static final Log log = LogFactory.getLog(HealthStatEventMessageDelegator.class);
 
     private HealthStatEventMessageQueue messageQueue;
-    private MessageProcessorChain processorChain;
+    private HealthStatEventMessageHandler messageHandler;
     private boolean terminated;
 
-    public HealthStatEventMessageDelegator(HealthStatEventMessageQueue messageQueue) {
+    public HealthStatEventMessageDelegator(HealthStatEventMessageQueue messageQueue,
+                                           HealthStatEventMessageHandler messageHandler) {
         this.messageQueue = messageQueue;
-        this.processorChain = new HealthStatMessageProcessorChain();
-    }
-
-    public void addEventListener(EventListener eventListener) {
-        processorChain.addEventListener(eventListener);
+        this.messageHandler = messageHandler;
     }
 
     @Override
@@ -57,19 +51,12 @@ class HealthStatEventMessageDelegator implements Runnable {
 
             while (!terminated) {
                 try {
-                    Message message = messageQueue.take();
-
-                    String messageText = message.getText();
-                    if (log.isDebugEnabled()) {
-                        log.debug("Health event message received: [message] " + messageText);
-                    }
-                    EventMessage eventMessage = jsonToEventMessage(messageText);
-                    if (eventMessage == null) {
-                        log.error("Error occurred while extracting message");
+                    // Messages are extracted from the health stat event by the message handler
+                    Message message = messageHandler.prepare(messageQueue.take());
+                    if (message == null) {
                         continue;
                     }
-                    String type = eventMessage.getEventName();
-                    String json = eventMessage.getMessage();
+                    String type = message.getEventClassName();
 
                     if (log.isDebugEnabled()) {
                         log.debug(String.format("Instance notifier event message received from queue: %s", type));
@@ -79,7 +66,7 @@ class HealthStatEventMessageDelegator implements Runnable {
                     if (log.isDebugEnabled()) {
                         log.debug(String.format("Delegating instance notifier event message: %s", type));
                     }
-                    processorChain.process(type, json, null);
+                    messageHandler.process(message);
                 } catch (InterruptedException ignore) {
                     log.info("Shutting down health statistics event message delegator...");
                     terminate();
@@ -100,61 +87,4 @@ class HealthStatEventMessageDelegator implements Runnable {
     public void terminate() {
         terminated = true;
     }
-
-
-    private EventMessage jsonToEventMessage(String json) {
-
-        EventMessage event = new EventMessage();
-        String message;
-
-        //split the message to 3 parts using ':' first is class name, second contains the text 'message' and the third contains
-        //message
-        String[] MessageParts = json.split(":", 3);
-
-        String eventType = MessageParts[0].trim();
-        eventType = eventType.substring(eventType.indexOf("\"") + 1, eventType.lastIndexOf("\""));
-        if (log.isDebugEnabled()) {
-            log.debug(String.format("Extracted [event type] %s", eventType));
-        }
-
-        event.setEventName(eventType);
-        String messageTag = MessageParts[1];
-        messageTag = messageTag.substring(messageTag.indexOf("\"") + 1, messageTag.lastIndexOf("\""));
-
-        if ("message".equals(messageTag)) {
-            message = MessageParts[2].trim();
-            //Remove trailing bracket twice to get the message
-            message = message.substring(0, message.lastIndexOf("}")).trim();
-            message = message.substring(0, message.lastIndexOf("}")).trim();
-            if (message.indexOf('{') == 0 && message.indexOf('}') == message.length() - 1) {
-                if (log.isDebugEnabled()) {
-                    log.debug(String.format("[Extracted message] %s ", message));
-                }
-                event.setMessage(message);
-                return event;
-            }
-        }
-        return null;
-    }
-
-    private class EventMessage {
-        private String eventName;
-        private String message;
-
-        private String getEventName() {
-            return eventName;
-        }
-
-        private void setEventName(String eventName) {
-            this.eventName = eventName;
-        }
-
-        public String getMessage() {
-            return message;
-        }
-
-        public void setMessage(String message) {
-            this.message = message;
-        }
-    }
 }
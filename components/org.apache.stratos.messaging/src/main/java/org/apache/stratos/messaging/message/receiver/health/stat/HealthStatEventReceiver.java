@@ -23,6 +23,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.messaging.broker.subscribe.EventSubscriber;
 import org.apache.stratos.messaging.listener.EventListener;
+import org.apache.stratos.messaging.message.receiver.ShardedMessageDelegator;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 import java.util.concurrent.ExecutorService;
@@ -33,7 +34,11 @@ import java.util.concurrent.ExecutorService;
 public class HealthStatEventReceiver {
     private static final Log log = LogFactory.getLog(HealthStatEventReceiver.class);
 
-    private final HealthStatEventMessageDelegator messageDelegator;
+    private static final String DELEGATOR_NAME = "health";
+
+    private final HealthStatEventMessageHandler messageHandler;
+    private HealthStatEventMessageDelegator messageDelegator;
+    private ShardedMessageDelegator shardedMessageDelegator;
     private final HealthStatEventMessageListener messageListener;
     private EventSubscriber eventSubscriber;
     private boolean terminated;
@@ -41,12 +46,20 @@ public class HealthStatEventReceiver {
 
     public HealthStatEventReceiver() {
         HealthStatEventMessageQueue messageQueue = new HealthStatEventMessageQueue();
-        this.messageDelegator = new HealthStatEventMessageDelegator(messageQueue);
+        this.messageHandler = new HealthStatEventMessageHandler();
+        int shardCount = MessagingUtil.getDelegatorShardCount(DELEGATOR_NAME);
+        if (shardCount > 1) {
+            // Events are processed concurrently per cluster, listeners need to be thread safe
+            this.shardedMessageDelegator = new ShardedMessageDelegator("health-stat-event-delegator", messageQueue,
+                    messageHandler, shardCount);
+        } else {
+            this.messageDelegator = new HealthStatEventMessageDelegator(messageQueue, messageHandler);
+        }
         this.messageListener = new HealthStatEventMessageListener(messageQueue);
     }
 
     public void addEventListener(EventListener eventListener) {
-        messageDelegator.addEventListener(eventListener);
+        messageHandler.addEventListener(eventListener);
     }
 
 
@@ -61,7 +74,11 @@ public class HealthStatEventReceiver {
                 log.debug("Health stats event message delegator thread started");
             }
             // Start health stat event message delegator thread
-            executorService.execute(messageDelegator);
+            if (shardedMessageDelegator != null) {
+                executorService.execute(shardedMessageDelegator);
+            } else {
+                executorService.execute(messageDelegator);
+            }
         } catch (Exception e) {
             if (log.isErrorEnabled()) {
                 log.error("Health stats receiver failed", e);
@@ -71,10 +88,22 @@ public class HealthStatEventReceiver {
 
     public void terminate() {
         eventSubscriber.terminate();
-        messageDelegator.terminate();
+        if (shardedMessageDelegator != null) {
+            shardedMessageDelegator.terminate();
+        } else {
+            messageDelegator.terminate();
+        }
         terminated = true;
     }
 
+    /**
+     * Returns the sharded message delegator if health stat events are delegated to multiple
+     * threads, null otherwise.
+     */
+    public ShardedMessageDelegator getShardedMessageDelegator() {
+        return shardedMessageDelegator;
+    }
+
     public ExecutorService getExecutorService() {
         return executorService;
     }
@@ -59,9 +59,6 @@ class TenantEventMessageDelegator implements Runnable {
                 try {
                     Message message = messageQueue.take();
                     String type = message.getEventClassName();
-
-                    // Retrieve the actual message
-                    String json = message.getText();
                     if (log.isDebugEnabled()) {
                         log.debug(String.format("Tenant event message received from queue: %s", type));
                     }
@@ -70,7 +67,7 @@ class TenantEventMessageDelegator implements Runnable {
                     if (log.isDebugEnabled()) {
                         log.debug(String.format("Delegating tenant event message: %s", type));
                     }
-                    processorChain.process(type, json, null);
+                    processorChain.process(type, message, null);
                 } catch (InterruptedException ignore) {
                     log.info("Shutting down tenant event message delegator...");
                     terminate();
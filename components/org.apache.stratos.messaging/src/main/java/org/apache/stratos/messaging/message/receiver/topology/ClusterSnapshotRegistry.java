@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.message.receiver.topology;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.codec.JsonCodec;
+import org.apache.stratos.messaging.domain.instance.ClusterInstance;
+import org.apache.stratos.messaging.domain.topology.Cluster;
+import org.apache.stratos.messaging.domain.topology.KubernetesService;
+import org.apache.stratos.messaging.domain.topology.Member;
+import org.apache.stratos.messaging.domain.topology.Service;
+import org.apache.stratos.messaging.domain.topology.Topology;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds an immutable snapshot of each cluster in the topology for lock free reads.
+ * <p/>
+ * Snapshots are published through an atomic reference per cluster by the topology writers
+ * while they still hold the relevant write lock; hence a snapshot is always a consistent
+ * view of the cluster as of the last completed update. Snapshots are shared by all readers
+ * and must not be modified.
+ * <p/>
+ * Snapshots are copied on write: writers mark the members and clusters they change, and the
+ * new snapshot of a cluster only copies those, sharing everything else with the previous
+ * snapshot. Releasing a cluster write lock without marks copies the complete cluster.
+ * Releasing a service or topology write lock only publishes the marked clusters and
+ * clusters without a snapshot.
+ */
+public class ClusterSnapshotRegistry {
+
+    private static final Log log = LogFactory.getLog(ClusterSnapshotRegistry.class);
+
+    // Key: Cluster.clusterId
+    private static final Map<String, AtomicReference<Cluster>> snapshotReferenceMap =
+            new ConcurrentHashMap<String, AtomicReference<Cluster>>();
+    // Key: Cluster.clusterId, changes made since the last snapshot of the cluster
+    private static final Map<String, PendingUpdate> pendingUpdateMap = new ConcurrentHashMap<String, PendingUpdate>();
+    private static volatile boolean topologyReplaced;
+
+    private ClusterSnapshotRegistry() {
+    }
+
+    /**
+     * Get the snapshot of the given cluster.
+     *
+     * @param clusterId cluster id
+     * @return cluster snapshot, null if the cluster does not exist
+     */
+    public static Cluster getSnapshot(String clusterId) {
+        AtomicReference<Cluster> snapshotReference = snapshotReferenceMap.get(clusterId);
+        return (snapshotReference == null) ? null : snapshotReference.get();
+    }
+
+    /**
+     * Get the reference through which the snapshots of the given cluster are published.
+     * Readers may keep the reference to avoid looking up the cluster on each read; it holds
+     * null while the cluster does not exist.
+     *
+     * @param clusterId cluster id
+     * @return snapshot reference of the cluster
+     */
+    public static AtomicReference<Cluster> getSnapshotReference(String clusterId) {
+        AtomicReference<Cluster> snapshotReference = snapshotReferenceMap.get(clusterId);
+        if (snapshotReference == null) {
+            synchronized (snapshotReferenceMap) {
+                snapshotReference = snapshotReferenceMap.get(clusterId);
+                if (snapshotReference == null) {
+                    snapshotReference = new AtomicReference<Cluster>();
+                    snapshotReferenceMap.put(clusterId, snapshotReference);
+                }
+            }
+        }
+        return snapshotReference;
+    }
+
+    /**
+     * Get the snapshots of all clusters.
+     */
+    public static Collection<Cluster> getSnapshots() {
+        Collection<Cluster> snapshots = new ArrayList<Cluster>(snapshotReferenceMap.size());
+        for (AtomicReference<Cluster> snapshotReference : snapshotReferenceMap.values()) {
+            Cluster snapshot = snapshotReference.get();
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Mark a member as updated. The caller needs to hold the write lock of the cluster.
+     *
+     * @param clusterId cluster id
+     * @param memberId  member id
+     */
+    public static void markMemberUpdated(String clusterId, String memberId) {
+        getPendingUpdate(clusterId).updatedMemberIds.add(memberId);
+    }
+
+    /**
+     * Mark a cluster as updated without changing its members, for an example when its
+     * instances change. The caller needs to hold the write lock of the cluster.
+     *
+     * @param clusterId cluster id
+     */
+    public static void markClusterUpdated(String clusterId) {
+        getPendingUpdate(clusterId).clusterUpdated = true;
+    }
+
+    /**
+     * Mark a cluster as added, replaced or removed. The caller needs to hold the write lock
+     * of the service of the cluster.
+     *
+     * @param clusterId cluster id
+     */
+    public static void markClusterReplaced(String clusterId) {
+        getPendingUpdate(clusterId).clusterReplaced = true;
+    }
+
+    /**
+     * Mark all clusters as replaced. The caller needs to hold the write lock of the topology.
+     */
+    public static void markTopologyReplaced() {
+        topologyReplaced = true;
+    }
+
+    private static PendingUpdate getPendingUpdate(String clusterId) {
+        PendingUpdate pendingUpdate = pendingUpdateMap.get(clusterId);
+        if (pendingUpdate == null) {
+            // Writers of a cluster are serialized by the topology locks
+            pendingUpdate = new PendingUpdate();
+            pendingUpdateMap.put(clusterId, pendingUpdate);
+        }
+        return pendingUpdate;
+    }
+
+    /**
+     * Replace the snapshot of the given cluster, copying the complete cluster. The caller
+     * needs to hold the write lock of the cluster, or of a level above it.
+     *
+     * @param cluster cluster in the topology
+     */
+    public static void publish(Cluster cluster) {
+        pendingUpdateMap.remove(cluster.getClusterId());
+        publish(cluster, null);
+    }
+
+    /**
+     * Replace the snapshot of the given cluster, copying the changes of the given pending
+     * update on top of the previous snapshot. All of the cluster is copied if there is no
+     * pending update.
+     */
+    private static void publish(Cluster cluster, PendingUpdate pendingUpdate) {
+        AtomicReference<Cluster> snapshotReference = getSnapshotReference(cluster.getClusterId());
+        Cluster previousSnapshot = snapshotReference.get();
+        if ((previousSnapshot == null) || (pendingUpdate == null) || pendingUpdate.clusterReplaced) {
+            snapshotReference.set(JsonCodec.copy(cluster));
+        } else if (pendingUpdate.clusterUpdated) {
+            snapshotReference.set(createSnapshot(cluster, previousSnapshot, pendingUpdate.updatedMemberIds));
+        } else {
+            // Only members have been updated, cluster fields are shared with the previous snapshot
+            Cluster snapshot = new Cluster(previousSnapshot);
+            snapshot.setMemberMap(copyMembers(cluster, previousSnapshot, pendingUpdate.updatedMemberIds));
+            snapshotReference.set(snapshot);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Cluster snapshot published: [cluster] %s", cluster.getClusterId()));
+        }
+    }
+
+    /**
+     * Create a snapshot of the given cluster, taking members which have not been updated from
+     * the previous snapshot.
+     */
+    private static Cluster createSnapshot(Cluster cluster, Cluster previousSnapshot, Set<String> updatedMemberIds) {
+        Cluster snapshot = new Cluster(cluster);
+        snapshot.setHostNames(copyList(cluster.getHostNames()));
+        snapshot.setAccessUrls(copyList(cluster.getAccessUrls()));
+        if (cluster.getProperties() != null) {
+            Properties properties = new Properties();
+            properties.putAll(cluster.getProperties());
+            snapshot.setProperties(properties);
+        }
+        if (cluster.getInstanceIdToInstanceContextMap() != null) {
+            Map<String, ClusterInstance> instanceMap = new HashMap<String, ClusterInstance>();
+            for (Map.Entry<String, ClusterInstance> entry : cluster.getInstanceIdToInstanceContextMap().entrySet()) {
+                instanceMap.put(entry.getKey(), JsonCodec.copy(entry.getValue()));
+            }
+            snapshot.setInstanceIdToInstanceContextMap(instanceMap);
+        }
+        if (cluster.getKubernetesServices() != null) {
+            List<KubernetesService> kubernetesServices = new ArrayList<KubernetesService>();
+            for (KubernetesService kubernetesService : cluster.getKubernetesServices()) {
+                kubernetesServices.add(JsonCodec.copy(kubernetesService));
+            }
+            snapshot.setKubernetesServices(kubernetesServices);
+        }
+        snapshot.setMemberMap(copyMembers(cluster, previousSnapshot, updatedMemberIds));
+        return snapshot;
+    }
+
+    private static Map<String, Member> copyMembers(Cluster cluster, Cluster previousSnapshot,
+                                                   Set<String> updatedMemberIds) {
+        Map<String, Member> memberMap = new HashMap<String, Member>();
+        for (Member member : cluster.getMembers()) {
+            Member memberSnapshot = null;
+            if (!updatedMemberIds.contains(member.getMemberId())) {
+                memberSnapshot = previousSnapshot.getMember(member.getMemberId());
+            }
+            memberMap.put(member.getMemberId(), (memberSnapshot != null) ? memberSnapshot : JsonCodec.copy(member));
+        }
+        return memberMap;
+    }
+
+    private static <T> List<T> copyList(List<T> list) {
+        return (list == null) ? null : new ArrayList<T>(list);
+    }
+
+    /**
+     * Remove the snapshot of the given cluster.
+     *
+     * @param clusterId cluster id
+     */
+    public static void remove(String clusterId) {
+        // References are kept, readers may have cached them
+        pendingUpdateMap.remove(clusterId);
+        AtomicReference<Cluster> snapshotReference = snapshotReferenceMap.get(clusterId);
+        if ((snapshotReference != null) && (snapshotReference.getAndSet(null) != null)) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Cluster snapshot removed: [cluster] %s", clusterId));
+            }
+        }
+    }
+
+    /**
+     * Publish the snapshot of the given cluster after an update of the cluster.
+     *
+     * @param topology    topology
+     * @param serviceName service name or uuid of the cluster
+     * @param clusterId   cluster id
+     */
+    public static void clusterUpdated(Topology topology, String serviceName, String clusterId) {
+        Cluster cluster = findCluster(topology, serviceName, clusterId);
+        if (cluster != null) {
+            publish(cluster, pendingUpdateMap.remove(clusterId));
+        } else {
+            remove(clusterId);
+        }
+    }
+
+    /**
+     * Publish the snapshots of the updated clusters of the given service after an update of
+     * the service, removing snapshots of clusters which no longer exist in the service.
+     *
+     * @param topology    topology
+     * @param serviceName service name or uuid
+     */
+    public static void serviceUpdated(Topology topology, String serviceName) {
+        for (Service service : topology.getServices()) {
+            if (serviceName.equals(service.getServiceName()) || serviceName.equals(service.getServiceUuid())) {
+                Set<String> clusterIds = new HashSet<String>();
+                for (Cluster cluster : service.getClusters()) {
+                    publishIfUpdated(cluster, false);
+                    clusterIds.add(cluster.getClusterId());
+                }
+                removeSnapshots(service.getServiceName(), clusterIds);
+                return;
+            }
+        }
+        // Service has been removed
+        removeSnapshots(serviceName, new HashSet<String>());
+    }
+
+    /**
+     * Publish the snapshots of the updated clusters after an update of the topology, or of
+     * all clusters if the topology has been replaced, removing snapshots of clusters which
+     * no longer exist.
+     *
+     * @param topology topology
+     */
+    public static void topologyUpdated(Topology topology) {
+        boolean replaced = topologyReplaced;
+        topologyReplaced = false;
+        Set<String> clusterIds = new HashSet<String>();
+        for (Service service : topology.getServices()) {
+            for (Cluster cluster : service.getClusters()) {
+                publishIfUpdated(cluster, replaced);
+                clusterIds.add(cluster.getClusterId());
+            }
+        }
+        removeSnapshots(null, clusterIds);
+        pendingUpdateMap.clear();
+    }
+
+    private static void publishIfUpdated(Cluster cluster, boolean replaced) {
+        PendingUpdate pendingUpdate = pendingUpdateMap.remove(cluster.getClusterId());
+        if (replaced) {
+            publish(cluster, null);
+        } else if ((pendingUpdate != null) || (getSnapshot(cluster.getClusterId()) == null)) {
+            publish(cluster, pendingUpdate);
+        }
+    }
+
+    /**
+     * Remove snapshots of clusters which no longer exist after services have been added
+     * or removed.
+     *
+     * @param topology topology
+     */
+    public static void servicesUpdated(Topology topology) {
+        Set<String> serviceNames = new HashSet<String>();
+        for (Service service : topology.getServices()) {
+            serviceNames.add(service.getServiceName());
+            serviceNames.add(service.getServiceUuid());
+        }
+        for (Cluster snapshot : getSnapshots()) {
+            if (!serviceNames.contains(snapshot.getServiceName())) {
+                remove(snapshot.getClusterId());
+            }
+        }
+    }
+
+    /**
+     * Remove the snapshots of the given service, other than the given clusters.
+     */
+    private static void removeSnapshots(String serviceName, Set<String> clusterIds) {
+        for (Cluster snapshot : getSnapshots()) {
+            if (((serviceName == null) || serviceName.equals(snapshot.getServiceName())) &&
+                    !clusterIds.contains(snapshot.getClusterId())) {
+                remove(snapshot.getClusterId());
+            }
+        }
+    }
+
+    private static Cluster findCluster(Topology topology, String serviceName, String clusterId) {
+        Service service = topology.getService(serviceName);
+        if (service != null) {
+            Cluster cluster = service.getCluster(clusterId);
+            if (cluster != null) {
+                return cluster;
+            }
+        }
+        // Services are looked up by name in some of the events and by uuid in others
+        for (Service aService : topology.getServices()) {
+            Cluster cluster = aService.getCluster(clusterId);
+            if (cluster != null) {
+                return cluster;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Changes made to a cluster since its last snapshot.
+     */
+    private static class PendingUpdate {
+        private final Set<String> updatedMemberIds = new HashSet<String>();
+        private boolean clusterUpdated;
+        private boolean clusterReplaced;
+    }
+}
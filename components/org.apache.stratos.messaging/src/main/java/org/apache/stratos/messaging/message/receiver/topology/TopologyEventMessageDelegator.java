@@ -21,30 +21,24 @@ package org.apache.stratos.messaging.message.receiver.topology;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.messaging.domain.Message;
-import org.apache.stratos.messaging.listener.EventListener;
-import org.apache.stratos.messaging.message.processor.MessageProcessorChain;
-import org.apache.stratos.messaging.message.processor.topology.TopologyMessageProcessorChain;
 
 
 /**
- * Implements logic for processing topology event messages based on a given
- * topology process chain.
+ * Delegates topology event messages to the topology event message handler
+ * in the order they are received.
  */
 class TopologyEventMessageDelegator implements Runnable {
 
     private static final Log log = LogFactory.getLog(TopologyEventMessageDelegator.class);
 
-    private MessageProcessorChain processorChain;
+    private TopologyEventMessageHandler messageHandler;
     private TopologyEventMessageQueue messageQueue;
     private boolean terminated;
 
-    public TopologyEventMessageDelegator(TopologyEventMessageQueue messageQueue) {
+    public TopologyEventMessageDelegator(TopologyEventMessageQueue messageQueue,
+                                         TopologyEventMessageHandler messageHandler) {
         this.messageQueue = messageQueue;
-        this.processorChain = new TopologyMessageProcessorChain();
-    }
-
-    public void addEventListener(EventListener eventListener) {
-        processorChain.addEventListener(eventListener);
+        this.messageHandler = messageHandler;
     }
 
     @Override
@@ -59,9 +53,6 @@ class TopologyEventMessageDelegator implements Runnable {
                     Message message = messageQueue.take();
                     String type = message.getEventClassName();
 
-                    // Retrieve the actual message
-                    String json = message.getText();
-
                     if (log.isDebugEnabled()) {
                         log.debug(String.format("Topology event message [%s] received from queue: %s", type,
                                 messageQueue.getClass()));
@@ -70,7 +61,7 @@ class TopologyEventMessageDelegator implements Runnable {
                     if (log.isDebugEnabled()) {
                         log.debug(String.format("Delegating topology event message: %s", type));
                     }
-                    processorChain.process(type, json, TopologyManager.getTopology());
+                    messageHandler.process(messageHandler.prepare(message));
                 } catch (InterruptedException ignore) {
                     log.info("Shutting down topology event message delegator...");
                     terminate();
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.message.receiver.topology;
+
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.event.topology.CompleteTopologyEvent;
+import org.apache.stratos.messaging.event.topology.TopologyDeltaEvent;
+import org.apache.stratos.messaging.listener.EventListener;
+import org.apache.stratos.messaging.message.processor.topology.TopologyMessageProcessorChain;
+import org.apache.stratos.messaging.message.receiver.ShardedMessageHandler;
+import org.apache.stratos.messaging.util.MessagingUtil;
+
+/**
+ * Processes topology event messages using the topology processor chain. Messages are
+ * ordered by cluster id, complete topology events, topology deltas and events which do not
+ * belong to a single cluster are processed as barriers.
+ */
+class TopologyEventMessageHandler extends ShardedMessageHandler {
+
+    private static final String CLUSTER_ID_FIELD = "clusterId";
+    private static final String COMPLETE_TOPOLOGY_EVENT = CompleteTopologyEvent.class.getName();
+    private static final String TOPOLOGY_DELTA_EVENT = TopologyDeltaEvent.class.getName();
+
+    private final TopologyMessageProcessorChain processorChain;
+
+    public TopologyEventMessageHandler() {
+        this.processorChain = new TopologyMessageProcessorChain();
+    }
+
+    public void addEventListener(EventListener eventListener) {
+        processorChain.addEventListener(eventListener);
+    }
+
+    @Override
+    public Message prepare(Message message) {
+        // Versions are tracked in the order the events are received
+        processorChain.getVersionTracker().messageReceived(message);
+        return message;
+    }
+
+    @Override
+    public String getShardKey(Message message) {
+        String eventClassName = message.getEventClassName();
+        if (COMPLETE_TOPOLOGY_EVENT.equals(eventClassName) || TOPOLOGY_DELTA_EVENT.equals(eventClassName)) {
+            return null;
+        }
+        return MessagingUtil.readField(message, CLUSTER_ID_FIELD);
+    }
+
+    @Override
+    public void process(Message message) {
+        processorChain.process(message.getEventClassName(), message, TopologyManager.getTopology());
+    }
+}
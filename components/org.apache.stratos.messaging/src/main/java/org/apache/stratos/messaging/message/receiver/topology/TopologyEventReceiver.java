@@ -23,6 +23,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.stratos.messaging.broker.subscribe.EventSubscriber;
 import org.apache.stratos.messaging.listener.EventListener;
+import org.apache.stratos.messaging.message.receiver.ShardedMessageDelegator;
 import org.apache.stratos.messaging.util.MessagingUtil;
 
 import java.util.concurrent.ExecutorService;
@@ -35,19 +36,31 @@ public class TopologyEventReceiver {
 
     private static final Log log = LogFactory.getLog(TopologyEventReceiver.class);
 
+    private static final String DELEGATOR_NAME = "topology";
+
+    private TopologyEventMessageHandler messageHandler;
     private TopologyEventMessageDelegator messageDelegator;
+    private ShardedMessageDelegator shardedMessageDelegator;
     private TopologyEventMessageListener messageListener;
     private EventSubscriber eventSubscriber;
     private ExecutorService executorService;
 
     public TopologyEventReceiver() {
         TopologyEventMessageQueue messageQueue = new TopologyEventMessageQueue();
-        this.messageDelegator = new TopologyEventMessageDelegator(messageQueue);
+        this.messageHandler = new TopologyEventMessageHandler();
+        int shardCount = MessagingUtil.getDelegatorShardCount(DELEGATOR_NAME);
+        if (shardCount > 1) {
+            // Events are processed concurrently per cluster, listeners need to be thread safe
+            this.shardedMessageDelegator = new ShardedMessageDelegator("topology-event-delegator", messageQueue,
+                    messageHandler, shardCount);
+        } else {
+            this.messageDelegator = new TopologyEventMessageDelegator(messageQueue, messageHandler);
+        }
         this.messageListener = new TopologyEventMessageListener(messageQueue);
     }
 
     public void addEventListener(EventListener eventListener) {
-        messageDelegator.addEventListener(eventListener);
+        messageHandler.addEventListener(eventListener);
     }
 
 
@@ -64,7 +77,11 @@ public class TopologyEventReceiver {
             }
 
             // Start topology event message delegator thread
-            executorService.execute(messageDelegator);
+            if (shardedMessageDelegator != null) {
+                executorService.execute(shardedMessageDelegator);
+            } else {
+                executorService.execute(messageDelegator);
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Topology event message delegator thread started");
             }
@@ -79,7 +96,19 @@ public class TopologyEventReceiver {
 
     public void terminate() {
         eventSubscriber.terminate();
-        messageDelegator.terminate();
+        if (shardedMessageDelegator != null) {
+            shardedMessageDelegator.terminate();
+        } else {
+            messageDelegator.terminate();
+        }
+    }
+
+    /**
+     * Returns the sharded message delegator if topology events are delegated to multiple
+     * threads, null otherwise.
+     */
+    public ShardedMessageDelegator getShardedMessageDelegator() {
+        return shardedMessageDelegator;
     }
 
     public ExecutorService getExecutorService() {
@@ -21,10 +21,13 @@ package org.apache.stratos.messaging.message.receiver.topology;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.topology.Cluster;
 import org.apache.stratos.messaging.domain.topology.Topology;
 import org.apache.stratos.messaging.domain.topology.locking.TopologyLock;
 import org.apache.stratos.messaging.domain.topology.locking.TopologyLockHierarchy;
 
+import java.util.Collection;
+
 /**
  * A singleton class for managing the topology data structure.
  * <p/>
@@ -57,6 +60,11 @@ import org.apache.stratos.messaging.domain.topology.locking.TopologyLockHierarch
  * <p/>
  * releasing:
  * public static void releaseReadLockForService (String serviceName)
+ * <p/>
+ * Lock free reads:
+ * <p/>
+ * Readers which only need a consistent view of a cluster can use getClusterSnapshot()
+ * instead, which returns an immutable snapshot of the cluster without acquiring any locks.
  */
 public class TopologyManager {
     private static final Log log = LogFactory.getLog(TopologyManager.class);
@@ -208,6 +216,25 @@ public class TopologyManager {
         //throw new RuntimeException(errorMsg);
     }
 
+    /**
+     * Returns an immutable snapshot of the given cluster as of the last completed update,
+     * without acquiring any locks. The snapshot must not be modified.
+     *
+     * @param clusterId cluster id
+     * @return cluster snapshot, null if the cluster does not exist
+     */
+    public static Cluster getClusterSnapshot(String clusterId) {
+        return ClusterSnapshotRegistry.getSnapshot(clusterId);
+    }
+
+    /**
+     * Returns immutable snapshots of all clusters, without acquiring any locks.
+     * The snapshots must not be modified.
+     */
+    public static Collection<Cluster> getClusterSnapshots() {
+        return ClusterSnapshotRegistry.getSnapshots();
+    }
+
     public static Topology getTopology() {
         if (topology == null) {
             synchronized (TopologyManager.class) {
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.message.receiver.topology;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.broker.publish.EventPublisherPool;
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.event.initializer.CompleteTopologyRequestEvent;
+import org.apache.stratos.messaging.event.topology.CompleteTopologyEvent;
+import org.apache.stratos.messaging.event.topology.TopologyDeltaEvent;
+import org.apache.stratos.messaging.util.MessagingUtil;
+
+
+/**
+ * Tracks the version of the topology events received by a topology event receiver.
+ * Topology events are versioned sequentially by the publisher within an epoch, which
+ * identifies a publisher run; a new epoch starts over from version one. A version which
+ * does not follow the last one indicates that events have been lost. In that case the
+ * local topology is marked as out of sync and a complete topology is requested; delta
+ * topology events are ignored until a complete topology is applied.
+ */
+public class TopologyVersionTracker {
+
+    private static final Log log = LogFactory.getLog(TopologyVersionTracker.class);
+
+    private static final String TOPOLOGY_EPOCH_FIELD = "topologyEpoch";
+    private static final String TOPOLOGY_VERSION_FIELD = "topologyVersion";
+    private static final long REQUEST_INTERVAL = 30000;
+
+    private long lastEpoch;
+    private long lastVersion;
+    private long outOfSyncEpoch;
+    private long outOfSyncVersion;
+    private long lastRequestTime;
+
+    /**
+     * Invoked for each topology event message in the order it is received,
+     * complete topology and topology delta events are reported via completeTopologyReceived()
+     * and topologyDeltaReceived().
+     *
+     * @param message event message
+     */
+    public synchronized void messageReceived(Message message) {
+        String eventClassName = message.getEventClassName();
+        if (CompleteTopologyEvent.class.getName().equals(eventClassName) ||
+                TopologyDeltaEvent.class.getName().equals(eventClassName)) {
+            return;
+        }
+        long[] epochAndVersion = readTopologyVersion(message);
+        long epoch = epochAndVersion[0];
+        long version = epochAndVersion[1];
+        if (epoch <= 0) {
+            // Event has not been versioned by the publisher
+            return;
+        }
+        if (epoch != lastEpoch) {
+            // The publisher has been restarted, the first event of its epoch is the new baseline
+            if ((lastEpoch == 0) || (version != 1)) {
+                gapDetected(epoch, version - 1);
+            }
+        } else if (version != lastVersion + 1) {
+            gapDetected(epoch, version - 1);
+        }
+        lastEpoch = epoch;
+        lastVersion = version;
+    }
+
+    /**
+     * Invoked for each complete topology event in the order it is received.
+     *
+     * @param event complete topology event
+     */
+    public synchronized void completeTopologyReceived(CompleteTopologyEvent event) {
+        long epoch = event.getTopologyEpoch();
+        long version = event.getTopologyVersion();
+        if (epoch <= 0) {
+            return;
+        }
+        if ((epoch != outOfSyncEpoch) || (version >= outOfSyncVersion)) {
+            // Complete topology covers all events up to its version
+            outOfSyncEpoch = 0;
+            outOfSyncVersion = 0;
+        }
+        lastEpoch = epoch;
+        lastVersion = version;
+    }
+
+    /**
+     * Invoked for each topology delta event in the order it is received.
+     *
+     * @param event topology delta event
+     */
+    public synchronized void topologyDeltaReceived(TopologyDeltaEvent event) {
+        long epoch = event.getTopologyEpoch();
+        long version = event.getTopologyVersion();
+        if (epoch <= 0) {
+            return;
+        }
+        // A delta is only meaningful on top of the version it was derived from
+        if ((epoch != lastEpoch) || (version != lastVersion)) {
+            gapDetected(epoch, version);
+        }
+        lastEpoch = epoch;
+        lastVersion = version;
+    }
+
+    /**
+     * Returns true if topology events have been lost since the last complete topology was applied.
+     */
+    public synchronized boolean isOutOfSync() {
+        return outOfSyncEpoch > 0;
+    }
+
+    public synchronized long getLastEpoch() {
+        return lastEpoch;
+    }
+
+    public synchronized long getLastVersion() {
+        return lastVersion;
+    }
+
+    private void gapDetected(long epoch, long missingVersion) {
+        if (lastEpoch > 0) {
+            if (log.isWarnEnabled()) {
+                log.warn(String.format("Topology event gap detected: [last-epoch] %d [last-version] %d " +
+                        "[epoch] %d [expected-version] %d", lastEpoch, lastVersion, epoch, missingVersion));
+            }
+            if (epoch != outOfSyncEpoch) {
+                outOfSyncEpoch = epoch;
+                outOfSyncVersion = missingVersion;
+            } else {
+                outOfSyncVersion = Math.max(outOfSyncVersion, missingVersion);
+            }
+        }
+        requestCompleteTopology();
+    }
+
+    private void requestCompleteTopology() {
+        long now = System.currentTimeMillis();
+        if (now - lastRequestTime < REQUEST_INTERVAL) {
+            return;
+        }
+        lastRequestTime = now;
+        try {
+            CompleteTopologyRequestEvent event = new CompleteTopologyRequestEvent(lastVersion);
+            String topic = MessagingUtil.getMessageTopicName(event);
+            EventPublisherPool.getPublisher(topic).publish(event, false);
+            if (log.isInfoEnabled()) {
+                log.info(String.format("Complete topology requested: [topology-epoch] %d [topology-version] %d",
+                        lastEpoch, lastVersion));
+            }
+        } catch (Exception e) {
+            log.warn("Could not request complete topology", e);
+        }
+    }
+
+    /**
+     * Read the topology epoch and version of the given event message without building the event.
+     *
+     * @param message event message
+     * @return topology epoch and version, 0 if the event is not versioned
+     */
+    static long[] readTopologyVersion(Message message) {
+        String[] values = MessagingUtil.readFields(message, TOPOLOGY_EPOCH_FIELD, TOPOLOGY_VERSION_FIELD);
+        long[] epochAndVersion = new long[2];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            try {
+                epochAndVersion[i] = Long.parseLong(values[i]);
+            } catch (NumberFormatException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Could not read topology version: [value] %s", values[i]));
+                }
+            }
+        }
+        return epochAndVersion;
+    }
+}
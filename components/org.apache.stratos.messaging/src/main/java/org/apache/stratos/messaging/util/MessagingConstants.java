@@ -32,6 +32,10 @@ public class MessagingConstants {
     public static final String AMQP = "amqp";
     public static final String MQTT = "mqtt";
     public static final String MQTT_URL_DEFAULT = "defaultValue";
+    public static final String WIRE_FORMAT = "messaging.wireFormat";
+    public static final String WIRE_FORMAT_COMPRESSION_THRESHOLD = "messaging.wireFormat.compressionThreshold";
+    public static final String WIRE_FORMAT_MAX_PAYLOAD_SIZE = "messaging.wireFormat.maxPayloadSize";
+    public static final String DELEGATOR_SHARDS = "messaging.delegator.shards";
 
     /**
      * Quality of Service for message delivery:
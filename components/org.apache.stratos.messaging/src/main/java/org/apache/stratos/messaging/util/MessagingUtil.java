@@ -19,16 +19,28 @@
 package org.apache.stratos.messaging.util;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.apache.commons.lang.math.NumberUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.EventBatch;
+import org.apache.stratos.messaging.domain.Message;
 import org.apache.stratos.messaging.event.Event;
-import org.apache.stratos.messaging.message.JsonMessage;
+import org.apache.stratos.messaging.codec.JsonCodec;
+import org.apache.stratos.messaging.codec.MessageCodec;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
 import java.util.Properties;
 import java.util.UUID;
 
@@ -52,6 +64,7 @@ public class MessagingUtil {
     private static final String FAILOVER_PING_INTERVAL_PROPERTY = "stratos.messaging.failoverPingInterval";
     private static final int DEFAULT_AVERAGE_PING_INTERVAL = 1000;
     private static final int DEFAULT_FAILOVER_PING_INTERVAL = 30000;
+    private static final int DEFAULT_DELEGATOR_SHARDS = 1;
 
     // Time interval between each ping message sent to topic.
     private static int averagePingInterval;
@@ -70,7 +83,8 @@ public class MessagingUtil {
         APPLICATION_SIGNUP_TOPIC("application/signup/#"),
         CLUSTER_STATUS_TOPIC("cluster/status/#"),
         TENANT_TOPIC("tenant/#"),
-        DOMAIN_MAPPING_TOPIC("domain/mapping/#");
+        DOMAIN_MAPPING_TOPIC("domain/mapping/#"),
+        INITIALIZER_TOPIC("initializer/#");
 
         private String topicName;
 
@@ -161,7 +175,104 @@ public class MessagingUtil {
      * @return Object of the json String
      */
     public static Object jsonToObject(String json, Class type) {
-        return (new JsonMessage(json, type)).getObject();
+        return JsonCodec.decode(json, type);
+    }
+
+    /**
+     * Transform the given message into an object of given type, reading the raw
+     * payload in the wire format it has been encoded in if available.
+     *
+     * @param message message received
+     * @param type    type of the class
+     * @return Object of the message
+     */
+    public static Object jsonToObject(Message message, Class type) {
+        if (message.getPayload() != null) {
+            return MessageCodec.decode(message.getPayload(), type);
+        }
+        return JsonCodec.decode(message.getText(), type);
+    }
+
+    /**
+     * Read the value of a top level field of the given event message without building the event.
+     * JSON payloads are streamed until the field is found.
+     *
+     * @param message   event message
+     * @param fieldName name of the field
+     * @return value of the field, null if the field is not found or is not a string or a number
+     */
+    public static String readField(Message message, String fieldName) {
+        return readFields(message, fieldName)[0];
+    }
+
+    /**
+     * Read the values of top level fields of the given event message in a single pass,
+     * without building the event. JSON payloads are streamed until all fields are found.
+     *
+     * @param message    event message
+     * @param fieldNames names of the fields
+     * @return values in the order of the field names, null for fields which are not found or
+     * are not strings or numbers
+     */
+    public static String[] readFields(Message message, String... fieldNames) {
+        String[] values = new String[fieldNames.length];
+        byte[] payload = message.getPayload();
+        try {
+            if ((payload != null) && MessageCodec.hasFormatHeader(payload)) {
+                // Payloads of other wire formats are not streamed, the event tree is decoded instead
+                JsonObject jsonObject = MessageCodec.decode(payload, JsonObject.class);
+                for (int i = 0; i < fieldNames.length; i++) {
+                    JsonElement element = jsonObject.get(fieldNames[i]);
+                    values[i] = ((element != null) && element.isJsonPrimitive()) ? element.getAsString() : null;
+                }
+                return values;
+            }
+            Reader in = (payload != null) ?
+                    new InputStreamReader(new ByteArrayInputStream(payload), JsonCodec.UTF_8) :
+                    new StringReader(message.getText());
+            JsonReader reader = new JsonReader(in);
+            try {
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    return values;
+                }
+                reader.beginObject();
+                int remaining = fieldNames.length;
+                while ((remaining > 0) && reader.hasNext()) {
+                    int index = indexOf(fieldNames, reader.nextName());
+                    if (index < 0) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    JsonToken token = reader.peek();
+                    if ((token == JsonToken.STRING) || (token == JsonToken.NUMBER)) {
+                        values[index] = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                    remaining--;
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Could not read fields: [fields] %s", Arrays.toString(fieldNames)), e);
+            }
+        } catch (RuntimeException e) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Could not read fields: [fields] %s", Arrays.toString(fieldNames)), e);
+            }
+        }
+        return values;
+    }
+
+    private static int indexOf(String[] fieldNames, String fieldName) {
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (fieldNames[i].equals(fieldName)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -205,6 +316,19 @@ public class MessagingUtil {
         }
     }
 
+    /**
+     * Get the number of threads the messages of the given receiver are delegated to. The
+     * receiver specific property overrides the global one, messages are delegated by a
+     * single thread by default.
+     *
+     * @param receiverName name of the receiver, e.g. topology
+     * @return number of delegator shards
+     */
+    public static int getDelegatorShardCount(String receiverName) {
+        int shardCount = getNumericSystemProperty(DEFAULT_DELEGATOR_SHARDS, MessagingConstants.DELEGATOR_SHARDS);
+        return getNumericSystemProperty(shardCount, MessagingConstants.DELEGATOR_SHARDS + DOT + receiverName);
+    }
+
     public static String getMessagingProtocol() {
         return System.getProperty(MessagingConstants.MESSAGING_TRANSPORT, MessagingConstants.AMQP);
     }
@@ -224,6 +348,21 @@ public class MessagingUtil {
         return topicName;
     }
 
+    /**
+     * Get the topic name event batches of the given event topic are published to.
+     * Batches are published under the parent topic of the event, hence they are
+     * received by the same subscribers.
+     *
+     * @param topicName topic name of the event
+     * @return String topic name of the event batch
+     */
+    public static String getEventBatchTopicName(String topicName) {
+        String separator = getMessagingProtocol().equals(MessagingConstants.MQTT) ? SLASH : DOT;
+        int index = topicName.lastIndexOf(separator);
+        String parentTopicName = (index > 0) ? topicName.substring(START_INDEX, index + 1) : EMPTY_SPACE;
+        return parentTopicName + EventBatch.BATCH_TOPIC_NAME;
+    }
+
     /**
      * Get the event name for topic
      *
@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.test;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.common.domain.LoadBalancingIPType;
+import org.apache.stratos.messaging.domain.topology.Cluster;
+import org.apache.stratos.messaging.domain.topology.Member;
+import org.apache.stratos.messaging.domain.topology.Service;
+import org.apache.stratos.messaging.domain.topology.ServiceType;
+import org.apache.stratos.messaging.domain.topology.Topology;
+import org.apache.stratos.messaging.message.processor.topology.updater.TopologyUpdater;
+import org.apache.stratos.messaging.message.receiver.topology.ClusterSnapshotRegistry;
+import org.apache.stratos.messaging.message.receiver.topology.TopologyManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Cluster snapshot tests, compares the read latency of the lock based read path with the
+ * lock free snapshot read path while the topology is being updated.
+ */
+public class ClusterSnapshotTest {
+
+    private static final Log log = LogFactory.getLog(ClusterSnapshotTest.class);
+
+    private static final String SERVICE_NAME = "php";
+    private static final int CLUSTER_COUNT = 10;
+    private static final int MEMBERS_PER_CLUSTER = 50;
+    private static final int READER_COUNT = 4;
+    private static final long BENCHMARK_DURATION = 2000;
+
+    @Before
+    public void setUp() {
+        TopologyUpdater.acquireWriteLock();
+        try {
+            Topology topology = TopologyManager.getTopology();
+            topology.clear();
+            Service service = new Service(SERVICE_NAME, ServiceType.SingleTenant, SERVICE_NAME);
+            for (int i = 0; i < CLUSTER_COUNT; i++) {
+                String clusterId = "cluster-" + i;
+                Cluster cluster = new Cluster(SERVICE_NAME, clusterId, "deployment-policy-1",
+                        "autoscaling-policy-1", "app-1");
+                for (int j = 0; j < MEMBERS_PER_CLUSTER; j++) {
+                    cluster.addMember(createMember(clusterId, clusterId + ".member-" + j));
+                }
+                service.addCluster(cluster);
+            }
+            topology.addService(service);
+            ClusterSnapshotRegistry.markTopologyReplaced();
+        } finally {
+            TopologyUpdater.releaseWriteLock();
+        }
+    }
+
+    private static Member createMember(String clusterId, String memberId) {
+        Member member = new Member(SERVICE_NAME, clusterId, memberId, clusterId + "-1", "network-partition-1",
+                "partition-1", LoadBalancingIPType.Private, System.currentTimeMillis());
+        member.setDefaultPrivateIP("10.0.0.1");
+        member.setMemberPrivateIPs(Arrays.asList("10.0.0.1"));
+        return member;
+    }
+
+    @Test
+    public void testSnapshotPublishedOnRelease() {
+        Cluster snapshot = TopologyManager.getClusterSnapshot("cluster-1");
+        assertNotNull(snapshot);
+        assertEquals(MEMBERS_PER_CLUSTER, snapshot.getMembers().size());
+        assertEquals(CLUSTER_COUNT, TopologyManager.getClusterSnapshots().size());
+
+        TopologyUpdater.acquireWriteLockForCluster(SERVICE_NAME, "cluster-1");
+        try {
+            Cluster cluster = TopologyManager.getTopology().getService(SERVICE_NAME).getCluster("cluster-1");
+            cluster.addMember(createMember("cluster-1", "cluster-1.member-new"));
+            // Not visible to snapshot readers until the write lock is released
+            assertSame(snapshot, TopologyManager.getClusterSnapshot("cluster-1"));
+        } finally {
+            TopologyUpdater.releaseWriteLockForCluster(SERVICE_NAME, "cluster-1");
+        }
+
+        Cluster newSnapshot = TopologyManager.getClusterSnapshot("cluster-1");
+        assertNotSame(snapshot, newSnapshot);
+        assertNotNull(newSnapshot.getMember("cluster-1.member-new"));
+        // Previous snapshot is not modified
+        assertEquals(MEMBERS_PER_CLUSTER, snapshot.getMembers().size());
+        assertNull(snapshot.getMember("cluster-1.member-new"));
+    }
+
+    @Test
+    public void testSnapshotCopiedOnWrite() {
+        Cluster snapshot = TopologyManager.getClusterSnapshot("cluster-3");
+        String memberId = "cluster-3.member-1";
+
+        TopologyUpdater.acquireWriteLockForCluster(SERVICE_NAME, "cluster-3");
+        try {
+            ClusterSnapshotRegistry.markMemberUpdated("cluster-3", memberId);
+            Cluster cluster = TopologyManager.getTopology().getService(SERVICE_NAME).getCluster("cluster-3");
+            cluster.getMember(memberId).setDefaultPublicIP("192.168.0.1");
+        } finally {
+            TopologyUpdater.releaseWriteLockForCluster(SERVICE_NAME, "cluster-3");
+        }
+
+        Cluster newSnapshot = TopologyManager.getClusterSnapshot("cluster-3");
+        assertNotSame(snapshot, newSnapshot);
+        assertEquals("192.168.0.1", newSnapshot.getMember(memberId).getDefaultPublicIP());
+        assertNull(snapshot.getMember(memberId).getDefaultPublicIP());
+        // Members which have not been updated are shared with the previous snapshot
+        assertSame(snapshot.getMember("cluster-3.member-2"), newSnapshot.getMember("cluster-3.member-2"));
+        assertEquals(MEMBERS_PER_CLUSTER, newSnapshot.getMembers().size());
+
+        // Only the marked clusters are published when a service write lock is released
+        Cluster otherSnapshot = TopologyManager.getClusterSnapshot("cluster-4");
+        TopologyUpdater.acquireWriteLockForService(SERVICE_NAME);
+        try {
+            ClusterSnapshotRegistry.markClusterUpdated("cluster-3");
+        } finally {
+            TopologyUpdater.releaseWriteLockForService(SERVICE_NAME);
+        }
+        assertNotSame(newSnapshot, TopologyManager.getClusterSnapshot("cluster-3"));
+        assertSame(newSnapshot.getMember(memberId), TopologyManager.getClusterSnapshot("cluster-3").getMember(memberId));
+        assertSame(otherSnapshot, TopologyManager.getClusterSnapshot("cluster-4"));
+    }
+
+    @Test
+    public void testSnapshotRemovedWithCluster() {
+        AtomicReference<Cluster> snapshotReference = ClusterSnapshotRegistry.getSnapshotReference("cluster-2");
+        assertNotNull(snapshotReference.get());
+
+        TopologyUpdater.acquireWriteLockForService(SERVICE_NAME);
+        try {
+            TopologyManager.getTopology().getService(SERVICE_NAME).removeCluster("cluster-2");
+        } finally {
+            TopologyUpdater.releaseWriteLockForService(SERVICE_NAME);
+        }
+        assertNull(TopologyManager.getClusterSnapshot("cluster-2"));
+        assertNull(snapshotReference.get());
+        assertEquals(CLUSTER_COUNT - 1, TopologyManager.getClusterSnapshots().size());
+
+        TopologyUpdater.acquireWriteLockForServices();
+        try {
+            TopologyManager.getTopology().removeService(SERVICE_NAME);
+        } finally {
+            TopologyUpdater.releaseWriteLockForServices();
+        }
+        assertTrue(TopologyManager.getClusterSnapshots().isEmpty());
+    }
+
+    @Test
+    public void testReadLatencyUnderConcurrentUpdates() throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                int count = 0;
+                while (running.get()) {
+                    String clusterId = "cluster-" + (count % CLUSTER_COUNT);
+                    TopologyUpdater.acquireWriteLockForCluster(SERVICE_NAME, clusterId);
+                    try {
+                        Cluster cluster = TopologyManager.getTopology().getService(SERVICE_NAME).getCluster(clusterId);
+                        Member member = cluster.getMember(clusterId + ".member-" + (count % MEMBERS_PER_CLUSTER));
+                        ClusterSnapshotRegistry.markMemberUpdated(clusterId, member.getMemberId());
+                        member.setDefaultPublicIP("192.168.0." + (count % 256));
+                    } finally {
+                        TopologyUpdater.releaseWriteLockForCluster(SERVICE_NAME, clusterId);
+                    }
+                    count++;
+                }
+            }
+        });
+        writer.start();
+        try {
+            long[] lockedLatencies = runReaders(true);
+            long[] snapshotLatencies = runReaders(false);
+            log.info(String.format("Locked reads: %d reads [avg] %d ns [p50] %d ns [p99] %d ns [max] %d ns",
+                    lockedLatencies[0], lockedLatencies[1], lockedLatencies[2], lockedLatencies[3],
+                    lockedLatencies[4]));
+            log.info(String.format("Snapshot reads: %d reads [avg] %d ns [p50] %d ns [p99] %d ns [max] %d ns",
+                    snapshotLatencies[0], snapshotLatencies[1], snapshotLatencies[2], snapshotLatencies[3],
+                    snapshotLatencies[4]));
+            assertTrue(snapshotLatencies[0] > 0);
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    /**
+     * Run the readers for the benchmark duration, returns the number of reads, the average,
+     * the median, the 99th percentile and the maximum read latency.
+     */
+    private static long[] runReaders(final boolean locked) throws InterruptedException {
+        final long[][] latencies = new long[READER_COUNT][];
+        final int[] counts = new int[READER_COUNT];
+        final long endTime = System.currentTimeMillis() + BENCHMARK_DURATION;
+        final CountDownLatch latch = new CountDownLatch(READER_COUNT);
+        for (int i = 0; i < READER_COUNT; i++) {
+            final int readerIndex = i;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long[] readerLatencies = new long[1 << 20];
+                    int count = 0;
+                    while ((System.currentTimeMillis() < endTime) && (count < readerLatencies.length)) {
+                        String clusterId = "cluster-" + (count % CLUSTER_COUNT);
+                        long startTime = System.nanoTime();
+                        if (locked) {
+                            TopologyManager.acquireReadLockForCluster(SERVICE_NAME, clusterId);
+                            try {
+                                readCluster(TopologyManager.getTopology().getService(SERVICE_NAME)
+                                        .getCluster(clusterId));
+                            } finally {
+                                TopologyManager.releaseReadLockForCluster(SERVICE_NAME, clusterId);
+                            }
+                        } else {
+                            readCluster(TopologyManager.getClusterSnapshot(clusterId));
+                        }
+                        readerLatencies[count++] = System.nanoTime() - startTime;
+                    }
+                    latencies[readerIndex] = readerLatencies;
+                    counts[readerIndex] = count;
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        long sum = 0;
+        for (int i = 0; i < READER_COUNT; i++) {
+            System.arraycopy(latencies[i], 0, all, offset, counts[i]);
+            offset += counts[i];
+        }
+        for (long latency : all) {
+            sum += latency;
+        }
+        Arrays.sort(all);
+        if (total == 0) {
+            return new long[5];
+        }
+        return new long[]{total, sum / total, all[total / 2], all[(int) (total * 0.99)], all[total - 1]};
+    }
+
+    private static int readCluster(Cluster cluster) {
+        int activeCount = 0;
+        for (Member member : cluster.getMembers()) {
+            if (member.getDefaultPublicIP() != null) {
+                activeCount++;
+            }
+        }
+        return activeCount;
+    }
+}
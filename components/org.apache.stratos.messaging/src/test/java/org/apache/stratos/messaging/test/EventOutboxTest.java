@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.test;
+
+import org.apache.activemq.broker.BrokerService;
+import org.apache.stratos.messaging.broker.publish.EventOutbox;
+import org.apache.stratos.messaging.broker.subscribe.EventSubscriber;
+import org.apache.stratos.messaging.broker.subscribe.MessageListener;
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.event.Event;
+import org.apache.stratos.messaging.event.topology.TopologyVersionEvent;
+import org.apache.stratos.messaging.util.MessagingUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Event outbox tests.
+ */
+public class EventOutboxTest {
+
+    private static BrokerService broker;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        broker = MessagingTestUtil.startBroker("outboxTestBroker");
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        if (broker != null) {
+            broker.stop();
+        }
+    }
+
+    @Test
+    public void testCoalescing() {
+        // Outbox thread is not started, hence events stay in the queue
+        EventOutbox eventOutbox = new EventOutbox("coalescing-test.EventBatch", 100, 10, 1000);
+        eventOutbox.publish("coalescing-test.TestEvent", new TestEvent("cluster-1", 1), "cluster-1");
+        eventOutbox.publish("coalescing-test.TestEvent", new TestEvent("cluster-2", 1), "cluster-2");
+        eventOutbox.publish("coalescing-test.TestEvent", new TestEvent("cluster-1", 2), "cluster-1");
+        eventOutbox.publish("coalescing-test.TestEvent", new TestEvent("cluster-1", 3), "cluster-1");
+        eventOutbox.publish("coalescing-test.TestEvent", new TestEvent("cluster-1", 4), null);
+
+        assertEquals(3, eventOutbox.getQueueDepth());
+        assertEquals(2, eventOutbox.getCoalescedEventCount());
+    }
+
+    @Test
+    public void testCoalescingWithPlaceholder() {
+        // A superseded event with a placeholder keeps its position in the queue
+        EventOutbox eventOutbox = new EventOutbox("placeholder-test.EventBatch", 100, 10, 1000);
+        eventOutbox.publish("placeholder-test.TestEvent", new TestEvent("cluster-1", 1), "cluster-1",
+                new TopologyVersionEvent("cluster-1"));
+        eventOutbox.publish("placeholder-test.TestEvent", new TestEvent("cluster-2", 2), "cluster-2");
+        eventOutbox.publish("placeholder-test.TestEvent", new TestEvent("cluster-1", 3), "cluster-1",
+                new TopologyVersionEvent("cluster-1"));
+        eventOutbox.publish("placeholder-test.TestEvent", new TestEvent("cluster-1", 4), "cluster-1",
+                new TopologyVersionEvent("cluster-1"));
+
+        assertEquals(4, eventOutbox.getQueueDepth());
+        assertEquals(2, eventOutbox.getCoalescedEventCount());
+    }
+
+    @Test(timeout = 30000)
+    public void testBatchedPublishingOrder() throws Exception {
+        final String topicPrefix = "outbox-test";
+        final int eventCount = 200;
+        final List<Integer> sequencesReceived = Collections.synchronizedList(new ArrayList<Integer>());
+
+        EventSubscriber eventSubscriber = new EventSubscriber(topicPrefix + ".>", new MessageListener() {
+            @Override
+            public void messageReceived(Message message) {
+                TestEvent event = (TestEvent) MessagingUtil.jsonToObject(message, TestEvent.class);
+                sequencesReceived.add(event.getSequence());
+            }
+        });
+        Thread subscriberThread = new Thread(eventSubscriber);
+        subscriberThread.start();
+        while (!eventSubscriber.isSubscribed()) {
+            Thread.sleep(100);
+        }
+
+        EventOutbox eventOutbox = new EventOutbox(topicPrefix + ".EventBatch", 1000, 50, 20);
+        Thread outboxThread = new Thread(eventOutbox);
+        outboxThread.start();
+        for (int i = 0; i < eventCount; i++) {
+            eventOutbox.publish(topicPrefix + ".TestEvent", new TestEvent("cluster-1", i));
+        }
+
+        while (sequencesReceived.size() < eventCount) {
+            Thread.sleep(100);
+        }
+        eventOutbox.terminate();
+        eventSubscriber.terminate();
+
+        for (int i = 0; i < eventCount; i++) {
+            assertEquals("Events were not received in order", i, sequencesReceived.get(i).intValue());
+        }
+        assertEquals(eventCount, eventOutbox.getPublishedEventCount());
+        assertTrue("Events were not published in batches", eventOutbox.getPublishedBatchCount() < eventCount);
+        assertEquals(0, eventOutbox.getQueueDepth());
+    }
+
+    private static class TestEvent extends Event {
+
+        private final String clusterId;
+        private final int sequence;
+
+        public TestEvent(String clusterId, int sequence) {
+            this.clusterId = clusterId;
+            this.sequence = sequence;
+        }
+
+        public String getClusterId() {
+            return clusterId;
+        }
+
+        public int getSequence() {
+            return sequence;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.test;
+
+import org.apache.activemq.broker.BrokerService;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.broker.publish.EventPublisher;
+import org.apache.stratos.messaging.broker.publish.EventPublisherPool;
+import org.apache.stratos.messaging.broker.subscribe.EventSubscriber;
+import org.apache.stratos.messaging.broker.subscribe.MessageListener;
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.event.Event;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures event publishing throughput against an embedded message broker with and without
+ * persistent publisher connections. Throughput is logged, events published in both modes are
+ * verified to be received.
+ */
+public class EventPublisherPerformanceTest {
+
+    private static final Log log = LogFactory.getLog(EventPublisherPerformanceTest.class);
+
+    private static final int TOPIC_COUNT = 4;
+    private static final int EVENTS_PER_TOPIC = 250;
+
+    private static BrokerService broker;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        broker = MessagingTestUtil.startBroker("performanceTestBroker");
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        System.clearProperty(EventPublisher.PERSISTENT_CONNECTION_PROPERTY);
+        if (broker != null) {
+            broker.stop();
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void testPublishingThroughput() throws Exception {
+        System.setProperty(EventPublisher.PERSISTENT_CONNECTION_PROPERTY, "false");
+        double legacyThroughput = measureThroughput("performance-test-legacy");
+
+        System.setProperty(EventPublisher.PERSISTENT_CONNECTION_PROPERTY, "true");
+        double persistentThroughput = measureThroughput("performance-test-persistent");
+
+        log.info(String.format("Event publisher throughput: [connection-per-event] %.1f events/sec " +
+                "[persistent-connection] %.1f events/sec", legacyThroughput, persistentThroughput));
+    }
+
+    /**
+     * Publish events to a set of topics concurrently, one thread per topic, and wait until all
+     * events are received.
+     *
+     * @param topicPrefix prefix of the topic names used
+     * @return number of events published per second
+     */
+    private double measureThroughput(String topicPrefix) throws Exception {
+        final AtomicInteger receivedCount = new AtomicInteger();
+        EventSubscriber eventSubscriber = new EventSubscriber(topicPrefix + ".>", new MessageListener() {
+            @Override
+            public void messageReceived(Message message) {
+                receivedCount.incrementAndGet();
+            }
+        });
+        Thread subscriberThread = new Thread(eventSubscriber);
+        subscriberThread.start();
+        while (!eventSubscriber.isSubscribed()) {
+            Thread.sleep(100);
+        }
+
+        final List<EventPublisher> publishers = new ArrayList<EventPublisher>();
+        for (int i = 0; i < TOPIC_COUNT; i++) {
+            publishers.add(EventPublisherPool.getPublisher(topicPrefix + "." + i));
+        }
+
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch doneLatch = new CountDownLatch(TOPIC_COUNT);
+        final AtomicInteger publishedCount = new AtomicInteger();
+        for (final EventPublisher publisher : publishers) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (int i = 0; i < EVENTS_PER_TOPIC; i++) {
+                            publisher.publish(new TestEvent("member-" + i), true);
+                            publishedCount.incrementAndGet();
+                        }
+                    } catch (InterruptedException ignore) {
+                    } finally {
+                        doneLatch.countDown();
+                    }
+                }
+            });
+            thread.start();
+        }
+
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        doneLatch.await();
+        long duration = System.nanoTime() - startTime;
+
+        // Wait for all published events to be received, the test times out otherwise
+        while (receivedCount.get() < TOPIC_COUNT * EVENTS_PER_TOPIC) {
+            Thread.sleep(100);
+        }
+        eventSubscriber.terminate();
+        for (int i = 0; i < TOPIC_COUNT; i++) {
+            EventPublisherPool.close(topicPrefix + "." + i);
+        }
+        assertEquals(TOPIC_COUNT * EVENTS_PER_TOPIC, publishedCount.get());
+        assertEquals(TOPIC_COUNT * EVENTS_PER_TOPIC, receivedCount.get());
+        return publishedCount.get() / (duration / 1000000000.0);
+    }
+
+    private static class TestEvent extends Event {
+
+        private final String memberId;
+
+        public TestEvent(String memberId) {
+            this.memberId = memberId;
+        }
+
+        public String getMemberId() {
+            return memberId;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.test;
+
+import com.google.gson.Gson;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.common.domain.LoadBalancingIPType;
+import org.apache.stratos.messaging.codec.JsonCodec;
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.domain.topology.Cluster;
+import org.apache.stratos.messaging.domain.topology.Member;
+import org.apache.stratos.messaging.domain.topology.Port;
+import org.apache.stratos.messaging.domain.topology.Service;
+import org.apache.stratos.messaging.domain.topology.ServiceType;
+import org.apache.stratos.messaging.domain.topology.Topology;
+import org.apache.stratos.messaging.event.topology.CompleteTopologyEvent;
+import org.apache.stratos.messaging.event.topology.MemberActivatedEvent;
+import org.apache.stratos.messaging.util.MessagingUtil;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Streaming JSON codec tests, compares the codec with the string based Gson path
+ * for a complete topology event of 5,000 members.
+ */
+public class JsonCodecTest {
+
+    private static final Log log = LogFactory.getLog(JsonCodecTest.class);
+
+    private static final int SERVICE_COUNT = 10;
+    private static final int CLUSTERS_PER_SERVICE = 5;
+    private static final int MEMBERS_PER_CLUSTER = 100;
+    private static final int ITERATIONS = 20;
+
+    static CompleteTopologyEvent createCompleteTopologyEvent() {
+        Topology topology = new Topology();
+        for (int i = 0; i < SERVICE_COUNT; i++) {
+            String serviceName = "service-" + i;
+            Service service = new Service(serviceName, ServiceType.SingleTenant, serviceName + "-uuid");
+            service.addPort(new Port("http", 8080, 80));
+            for (int j = 0; j < CLUSTERS_PER_SERVICE; j++) {
+                String clusterId = serviceName + ".cluster-" + j;
+                Cluster cluster = new Cluster(serviceName, clusterId, "deployment-policy-1",
+                        "autoscaling-policy-1", "application-" + j);
+                cluster.addHostName(clusterId + ".stratos.org");
+                for (int k = 0; k < MEMBERS_PER_CLUSTER; k++) {
+                    Member member = new Member(serviceName, clusterId, clusterId + ".member-" + k,
+                            clusterId + "-1", "network-partition-1", "partition-1", LoadBalancingIPType.Private,
+                            System.currentTimeMillis());
+                    member.setDefaultPrivateIP("10.0." + j + "." + k);
+                    member.setMemberPrivateIPs(Arrays.asList("10.0." + j + "." + k));
+                    member.setDefaultPublicIP("192.168." + j + "." + k);
+                    member.setMemberPublicIPs(Arrays.asList("192.168." + j + "." + k));
+                    member.addPort(new Port("http", 8080, 80));
+                    cluster.addMember(member);
+                }
+                service.addCluster(cluster);
+            }
+            topology.addService(service);
+        }
+        return new CompleteTopologyEvent(topology);
+    }
+
+    @Test
+    public void testSameJsonAsGson() {
+        MemberActivatedEvent event = new MemberActivatedEvent("service-1", "service-1.cluster-1", "instance-1",
+                "member-1", "network-partition-1", "partition-1");
+        byte[] payload = JsonCodec.encode(event);
+        assertArrayEquals(new Gson().toJson(event).getBytes(JsonCodec.UTF_8), payload);
+
+        MemberActivatedEvent decodedEvent = JsonCodec.decode(payload, MemberActivatedEvent.class);
+        assertEquals(event.getMemberId(), decodedEvent.getMemberId());
+        assertEquals(event.getClusterId(), decodedEvent.getClusterId());
+    }
+
+    @Test
+    public void testCompleteTopologyRoundTrip() {
+        CompleteTopologyEvent event = createCompleteTopologyEvent();
+        Message message = new Message(MessagingUtil.getMessageTopicName(event), JsonCodec.encode(event));
+
+        CompleteTopologyEvent decodedEvent = (CompleteTopologyEvent) MessagingUtil.jsonToObject(message,
+                CompleteTopologyEvent.class);
+        int memberCount = 0;
+        for (Service service : decodedEvent.getTopology().getServices()) {
+            for (Cluster cluster : service.getClusters()) {
+                memberCount += cluster.getMembers().size();
+            }
+        }
+        assertEquals(SERVICE_COUNT * CLUSTERS_PER_SERVICE * MEMBERS_PER_CLUSTER, memberCount);
+        Cluster cluster = decodedEvent.getTopology().getService("service-3-uuid").getCluster("service-3.cluster-2");
+        assertNotNull(cluster);
+        assertNotNull(cluster.getMember("service-3.cluster-2.member-42"));
+    }
+
+    @Test
+    public void testCompleteTopologyPerformance() {
+        CompleteTopologyEvent event = createCompleteTopologyEvent();
+
+        // Warm up both paths
+        for (int i = 0; i < ITERATIONS; i++) {
+            gsonRoundTrip(event);
+            codecRoundTrip(event);
+        }
+
+        long gsonAllocatedBytes = getAllocatedBytes();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            gsonRoundTrip(event);
+        }
+        long gsonDuration = System.nanoTime() - startTime;
+        gsonAllocatedBytes = getAllocatedBytes() - gsonAllocatedBytes;
+
+        long codecAllocatedBytes = getAllocatedBytes();
+        startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            codecRoundTrip(event);
+        }
+        long codecDuration = System.nanoTime() - startTime;
+        codecAllocatedBytes = getAllocatedBytes() - codecAllocatedBytes;
+
+        log.info(String.format("Complete topology event of %d members, %d bytes",
+                SERVICE_COUNT * CLUSTERS_PER_SERVICE * MEMBERS_PER_CLUSTER, JsonCodec.encode(event).length));
+        log.info(String.format("Gson string path: %.1f ms/event [allocated] %d KB/event",
+                gsonDuration / 1000000.0 / ITERATIONS, gsonAllocatedBytes / 1024 / ITERATIONS));
+        log.info(String.format("Streaming codec path: %.1f ms/event [allocated] %d KB/event",
+                codecDuration / 1000000.0 / ITERATIONS, codecAllocatedBytes / 1024 / ITERATIONS));
+    }
+
+    /**
+     * The previous path: serialize to a string, copy it to the payload, copy the payload
+     * back to a string on arrival and parse the string with a new Gson instance.
+     */
+    private static Object gsonRoundTrip(CompleteTopologyEvent event) {
+        byte[] payload = new Gson().toJson(event).getBytes();
+        String text = new String(payload);
+        return new Gson().fromJson(text, CompleteTopologyEvent.class);
+    }
+
+    private static Object codecRoundTrip(CompleteTopologyEvent event) {
+        byte[] payload = JsonCodec.encode(event);
+        return MessagingUtil.jsonToObject(new Message("topology", payload), CompleteTopologyEvent.class);
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread, or 0 if not supported by the JVM.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
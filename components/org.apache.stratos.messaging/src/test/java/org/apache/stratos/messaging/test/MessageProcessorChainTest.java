@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.test;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.domain.topology.Topology;
+import org.apache.stratos.messaging.event.topology.*;
+import org.apache.stratos.messaging.listener.EventListener;
+import org.apache.stratos.messaging.message.processor.MessageProcessor;
+import org.apache.stratos.messaging.message.processor.MessageProcessorChain;
+import org.apache.stratos.messaging.message.processor.topology.TopologyMessageProcessorChain;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Message processor chain dispatching tests.
+ */
+public class MessageProcessorChainTest {
+
+    private static final Log log = LogFactory.getLog(MessageProcessorChainTest.class);
+
+    private static final int ITERATIONS = 1000000;
+    private static final Message EMPTY_MESSAGE = new Message("topology", "{}");
+
+    /**
+     * Event types received by a topology receiver while clusters scale up and down,
+     * member life cycle events dominate the mix.
+     */
+    private static List<String> createTopologyEventMix() {
+        List<String> eventMix = new ArrayList<String>();
+        for (int i = 0; i < 4; i++) {
+            eventMix.add(MemberCreatedEvent.class.getName());
+            eventMix.add(MemberInitializedEvent.class.getName());
+            eventMix.add(MemberStartedEvent.class.getName());
+            eventMix.add(MemberActivatedEvent.class.getName());
+            eventMix.add(MemberReadyToShutdownEvent.class.getName());
+            eventMix.add(MemberTerminatedEvent.class.getName());
+        }
+        eventMix.add(MemberMaintenanceModeEvent.class.getName());
+        eventMix.add(MemberSuspendedEvent.class.getName());
+        eventMix.add(ClusterInstanceCreatedEvent.class.getName());
+        eventMix.add(ClusterInstanceActivatedEvent.class.getName());
+        eventMix.add(ClusterInstanceInactivateEvent.class.getName());
+        eventMix.add(ClusterInstanceTerminatingEvent.class.getName());
+        eventMix.add(ClusterInstanceTerminatedEvent.class.getName());
+        eventMix.add(ClusterCreatedEvent.class.getName());
+        eventMix.add(ClusterRemovedEvent.class.getName());
+        return eventMix;
+    }
+
+    @Test
+    public void testDispatchingByMessageType() {
+        MessageProcessorChain processorChain = new TopologyMessageProcessorChain();
+        // Processors ignore messages until the topology is initialized
+        Topology topology = new Topology();
+        for (String type : createTopologyEventMix()) {
+            assertFalse(processorChain.process(type, EMPTY_MESSAGE, topology));
+        }
+    }
+
+    @Test
+    public void testDispatchingText() {
+        MessageProcessorChain processorChain = new TopologyMessageProcessorChain();
+        Topology topology = new Topology();
+        for (String type : createTopologyEventMix()) {
+            assertFalse(processorChain.process(type, "{}", topology));
+        }
+    }
+
+    @Test
+    public void testTextMessageProcessor() {
+        final TextMessageProcessor textMessageProcessor = new TextMessageProcessor();
+        MessageProcessorChain processorChain = new MessageProcessorChain() {
+            @Override
+            protected void initialize() {
+            }
+
+            @Override
+            public void addEventListener(EventListener eventListener) {
+            }
+        };
+        processorChain.add(textMessageProcessor);
+
+        assertTrue(processorChain.process(MemberCreatedEvent.class.getName(),
+                new Message("topology", "{\"memberId\":\"member-1\"}".getBytes()), null));
+        assertEquals("{\"memberId\":\"member-1\"}", textMessageProcessor.getReceivedText());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUnknownMessageType() {
+        MessageProcessorChain processorChain = new TopologyMessageProcessorChain();
+        processorChain.process("org.apache.stratos.messaging.event.topology.UnknownEvent", EMPTY_MESSAGE,
+                new Topology());
+    }
+
+    @Test
+    public void testDispatchingThroughput() {
+        MessageProcessorChain processorChain = new TopologyMessageProcessorChain();
+        Topology topology = new Topology();
+        List<String> eventMix = createTopologyEventMix();
+        String[] types = eventMix.toArray(new String[eventMix.size()]);
+
+        // Warm up
+        for (int i = 0; i < ITERATIONS; i++) {
+            processorChain.process(types[i % types.length], EMPTY_MESSAGE, topology);
+        }
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            processorChain.process(types[i % types.length], EMPTY_MESSAGE, topology);
+        }
+        long duration = System.nanoTime() - startTime;
+
+        log.info(String.format("Topology message processor chain throughput: %.0f messages/sec " +
+                "[average] %.1f ns/message", ITERATIONS / (duration / 1000000000.0), (double) duration / ITERATIONS));
+    }
+
+    /**
+     * Message processor implementing the text based processing method only.
+     */
+    private static class TextMessageProcessor extends MessageProcessor {
+
+        private String receivedText;
+
+        @Override
+        public void setNext(MessageProcessor nextProcessor) {
+        }
+
+        @Override
+        public boolean process(String type, String message, Object object) {
+            receivedText = message;
+            return true;
+        }
+
+        public String getReceivedText() {
+            return receivedText;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.test;
+
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.broker.TransportConnector;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+
+/**
+ * Messaging test utility methods.
+ */
+public class MessagingTestUtil {
+
+    private static final String JNDI_PROPERTIES_FILE_NAME = "jndi.properties";
+    private static final String PROVIDER_URL_PROPERTY = "java.naming.provider.url";
+
+    /**
+     * Start an embedded message broker on an ephemeral port and point the jndi.properties.dir system
+     * property to a jndi.properties file with the broker URL, hence tests do not depend on a fixed port.
+     *
+     * @param brokerName broker name
+     * @return started broker
+     */
+    public static BrokerService startBroker(String brokerName) throws Exception {
+        BrokerService broker = new BrokerService();
+        broker.setDataDirectory(getResourcesFolderPath() + File.separator + ".." + File.separator + "activemq-data");
+        broker.setBrokerName(brokerName);
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        TransportConnector connector = broker.addConnector("tcp://localhost:0");
+        broker.start();
+
+        String brokerUrl = connector.getConnectUri().toString();
+        System.setProperty("jndi.properties.dir", createJndiPropertiesFolder(brokerUrl));
+        return broker;
+    }
+
+    /**
+     * Create a folder with a copy of the test jndi.properties file using the given broker URL.
+     */
+    private static String createJndiPropertiesFolder(String brokerUrl) throws IOException {
+        Properties properties = new Properties();
+        InputStream inputStream = new FileInputStream(getResourcesFolderPath() + File.separator +
+                JNDI_PROPERTIES_FILE_NAME);
+        try {
+            properties.load(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        properties.setProperty(PROVIDER_URL_PROPERTY, brokerUrl);
+
+        File folder = Files.createTempDirectory("jndi").toFile();
+        folder.deleteOnExit();
+        File file = new File(folder, JNDI_PROPERTIES_FILE_NAME);
+        file.deleteOnExit();
+        OutputStream outputStream = new FileOutputStream(file);
+        try {
+            properties.store(outputStream, null);
+        } finally {
+            outputStream.close();
+        }
+        return folder.getAbsolutePath();
+    }
+
+    private static String getResourcesFolderPath() {
+        String path = MessagingTestUtil.class.getResource("/").getPath();
+        return StringUtils.removeEnd(path, File.separator);
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.test;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.message.receiver.ShardedMessageDelegator;
+import org.apache.stratos.messaging.message.receiver.ShardedMessageHandler;
+import org.apache.stratos.messaging.util.MessagingUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sharded message delegator tests, verifies that messages are ordered per shard key, that
+ * messages without a key act as barriers and compares the delegation throughput with a
+ * single shard.
+ */
+public class ShardedMessageDelegatorTest {
+
+    private static final Log log = LogFactory.getLog(ShardedMessageDelegatorTest.class);
+
+    private static final String TOPIC_NAME = "topology.MemberActivatedEvent";
+    private static final int SHARD_COUNT = 4;
+    private static final int CLUSTER_COUNT = 20;
+    private static final int MESSAGES_PER_CLUSTER = 50;
+    private static final long TIMEOUT = 30000;
+
+    private ShardedMessageDelegator messageDelegator;
+    private RecordingMessageHandler lastMessageHandler;
+
+    @After
+    public void tearDown() {
+        if (messageDelegator != null) {
+            messageDelegator.terminate();
+        }
+    }
+
+    @Test
+    public void testReadField() {
+        Message message = new Message(TOPIC_NAME, "{\"member\":{\"clusterId\":\"nested\"},\"clusterId\":\"c1\"," +
+                "\"topologyVersion\":12}");
+        assertEquals("c1", MessagingUtil.readField(message, "clusterId"));
+        assertEquals("12", MessagingUtil.readField(message, "topologyVersion"));
+        assertNull(MessagingUtil.readField(message, "member"));
+        assertNull(MessagingUtil.readField(message, "appId"));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMessagesAreOrderedPerKey() throws Exception {
+        LinkedBlockingQueue<Message> messageQueue = new LinkedBlockingQueue<Message>();
+        RecordingMessageHandler messageHandler = new RecordingMessageHandler(0);
+        messageDelegator = startDelegator(messageQueue, messageHandler, SHARD_COUNT);
+
+        for (int i = 0; i < MESSAGES_PER_CLUSTER; i++) {
+            for (int j = 0; j < CLUSTER_COUNT; j++) {
+                messageQueue.put(createMessage("cluster-" + j, i));
+            }
+        }
+        int messageCount = CLUSTER_COUNT * MESSAGES_PER_CLUSTER;
+        messageHandler.awaitProcessed(messageCount);
+
+        assertEquals(CLUSTER_COUNT, messageHandler.sequences.size());
+        for (List<Integer> sequence : messageHandler.sequences.values()) {
+            assertEquals(MESSAGES_PER_CLUSTER, sequence.size());
+            for (int i = 0; i < sequence.size(); i++) {
+                assertEquals(i, sequence.get(i).intValue());
+            }
+        }
+
+        long processedCount = 0;
+        for (int i = 0; i < messageDelegator.getShardCount(); i++) {
+            processedCount += messageDelegator.getProcessedCount(i);
+            assertEquals(0, messageDelegator.getQueueDepth(i));
+            assertTrue(messageDelegator.getMaxProcessingLatency(i) >= messageDelegator.getAverageProcessingLatency(i));
+        }
+        assertEquals(messageCount, processedCount);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMessagesWithoutKeyActAsBarrier() throws Exception {
+        LinkedBlockingQueue<Message> messageQueue = new LinkedBlockingQueue<Message>();
+        RecordingMessageHandler messageHandler = new RecordingMessageHandler(1);
+        messageDelegator = startDelegator(messageQueue, messageHandler, SHARD_COUNT);
+
+        for (int i = 0; i < CLUSTER_COUNT; i++) {
+            messageQueue.put(createMessage("cluster-" + i, 0));
+        }
+        messageQueue.put(new Message(TOPIC_NAME, "{\"barrier\":1}"));
+        for (int i = 0; i < CLUSTER_COUNT; i++) {
+            messageQueue.put(createMessage("cluster-" + i, 1));
+        }
+        messageQueue.put(new Message(TOPIC_NAME, "{\"barrier\":2}"));
+        messageHandler.awaitProcessed(2 * CLUSTER_COUNT + 2);
+
+        // Each barrier is processed once all previous messages are processed and before any following message
+        assertEquals(2, messageHandler.barrierPositions.size());
+        assertEquals(CLUSTER_COUNT, messageHandler.barrierPositions.get(0).intValue());
+        assertEquals(2 * CLUSTER_COUNT + 1, messageHandler.barrierPositions.get(1).intValue());
+        assertEquals(2, messageDelegator.getBarrierCount());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testStatisticsAreExposedThroughJmx() throws Exception {
+        LinkedBlockingQueue<Message> messageQueue = new LinkedBlockingQueue<Message>();
+        RecordingMessageHandler messageHandler = new RecordingMessageHandler(0);
+        messageDelegator = startDelegator(messageQueue, messageHandler, SHARD_COUNT);
+        for (int i = 0; i < CLUSTER_COUNT; i++) {
+            messageQueue.put(createMessage("cluster-" + i, 0));
+        }
+        messageHandler.awaitProcessed(CLUSTER_COUNT);
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("org.apache.stratos:type=ShardedMessageDelegator,name=" +
+                ObjectName.quote("test-delegator"));
+        assertEquals(SHARD_COUNT, mBeanServer.getAttribute(objectName, "ShardCount"));
+        long[] processedCounts = (long[]) mBeanServer.getAttribute(objectName, "ProcessedCounts");
+        long processedCount = 0;
+        for (long count : processedCounts) {
+            processedCount += count;
+        }
+        assertEquals(CLUSTER_COUNT, processedCount);
+        for (int queueDepth : (int[]) mBeanServer.getAttribute(objectName, "QueueDepths")) {
+            assertEquals(0, queueDepth);
+        }
+
+        messageDelegator.terminate();
+        assertFalse(mBeanServer.isRegistered(objectName));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testDelegationThroughput() throws Exception {
+        long singleShardTime = measureDelegation(1);
+        assertEquals(1, lastMessageHandler.maxConcurrency.get());
+        long shardedTime = measureDelegation(SHARD_COUNT);
+        assertTrue("Messages were not processed concurrently", lastMessageHandler.maxConcurrency.get() > 1);
+        log.info(String.format("Delegation time: [messages] %d [single-shard] %d ms [%d-shards] %d ms",
+                CLUSTER_COUNT * 10, singleShardTime, SHARD_COUNT, shardedTime));
+        for (int i = 0; i < messageDelegator.getShardCount(); i++) {
+            log.info(String.format("Shard statistics: [shard] %d [processed] %d [average-latency] %.3f ms " +
+                            "[max-latency] %.3f ms", i, messageDelegator.getProcessedCount(i),
+                    messageDelegator.getAverageProcessingLatency(i), messageDelegator.getMaxProcessingLatency(i)));
+        }
+    }
+
+    private long measureDelegation(int shardCount) throws Exception {
+        if (messageDelegator != null) {
+            messageDelegator.terminate();
+        }
+        LinkedBlockingQueue<Message> messageQueue = new LinkedBlockingQueue<Message>();
+        RecordingMessageHandler messageHandler = new RecordingMessageHandler(2);
+        messageDelegator = startDelegator(messageQueue, messageHandler, shardCount);
+        lastMessageHandler = messageHandler;
+
+        long startTime = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < CLUSTER_COUNT; j++) {
+                messageQueue.put(createMessage("cluster-" + j, i));
+            }
+        }
+        messageHandler.awaitProcessed(CLUSTER_COUNT * 10);
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private static ShardedMessageDelegator startDelegator(LinkedBlockingQueue<Message> messageQueue,
+                                                          ShardedMessageHandler messageHandler, int shardCount) {
+        ShardedMessageDelegator messageDelegator = new ShardedMessageDelegator("test-delegator", messageQueue,
+                messageHandler, shardCount);
+        Thread delegatorThread = new Thread(messageDelegator, "test-delegator");
+        delegatorThread.setDaemon(true);
+        delegatorThread.start();
+        return messageDelegator;
+    }
+
+    private static Message createMessage(String clusterId, int sequence) {
+        return new Message(TOPIC_NAME, String.format("{\"clusterId\":\"%s\",\"sequence\":%d}", clusterId, sequence));
+    }
+
+    /**
+     * Records the order messages are processed in, each message takes the given time to process.
+     */
+    private static class RecordingMessageHandler extends ShardedMessageHandler {
+
+        private final long processingTime;
+        private final Map<String, List<Integer>> sequences = new ConcurrentHashMap<String, List<Integer>>();
+        private final List<Integer> barrierPositions = new ArrayList<Integer>();
+        private final AtomicInteger processedCount = new AtomicInteger();
+        private final AtomicInteger concurrency = new AtomicInteger();
+        private final AtomicInteger maxConcurrency = new AtomicInteger();
+
+        private RecordingMessageHandler(long processingTime) {
+            this.processingTime = processingTime;
+        }
+
+        @Override
+        public String getShardKey(Message message) {
+            return MessagingUtil.readField(message, "clusterId");
+        }
+
+        @Override
+        public void process(Message message) {
+            int current = concurrency.incrementAndGet();
+            if (current > maxConcurrency.get()) {
+                maxConcurrency.set(current);
+            }
+            try {
+                String clusterId = getShardKey(message);
+                if (clusterId == null) {
+                    barrierPositions.add(processedCount.get());
+                } else {
+                    List<Integer> sequence = sequences.get(clusterId);
+                    if (sequence == null) {
+                        sequence = new ArrayList<Integer>();
+                        sequences.put(clusterId, sequence);
+                    }
+                    sequence.add(Integer.valueOf(MessagingUtil.readField(message, "sequence")));
+                    if (processingTime > 0) {
+                        Thread.sleep(processingTime);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrency.decrementAndGet();
+                synchronized (this) {
+                    processedCount.incrementAndGet();
+                    notifyAll();
+                }
+            }
+        }
+
+        private synchronized void awaitProcessed(int count) throws InterruptedException {
+            while (processedCount.get() < count) {
+                wait(TimeUnit.SECONDS.toMillis(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.test;
+
+import org.apache.stratos.messaging.codec.JsonCodec;
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.domain.topology.Cluster;
+import org.apache.stratos.messaging.domain.topology.Member;
+import org.apache.stratos.messaging.domain.topology.MemberStatus;
+import org.apache.stratos.messaging.domain.topology.Service;
+import org.apache.stratos.messaging.domain.topology.ServiceType;
+import org.apache.stratos.messaging.domain.topology.Topology;
+import org.apache.stratos.messaging.event.Event;
+import org.apache.stratos.messaging.event.topology.CompleteTopologyEvent;
+import org.apache.stratos.messaging.event.topology.MemberActivatedEvent;
+import org.apache.stratos.messaging.event.topology.MemberCreatedEvent;
+import org.apache.stratos.messaging.event.topology.TopologyDeltaEvent;
+import org.apache.stratos.messaging.event.topology.TopologyEvent;
+import org.apache.stratos.messaging.listener.topology.ClusterCreatedEventListener;
+import org.apache.stratos.messaging.listener.topology.ClusterRemovedEventListener;
+import org.apache.stratos.messaging.listener.topology.CompleteTopologyEventListener;
+import org.apache.stratos.messaging.listener.topology.MemberActivatedEventListener;
+import org.apache.stratos.messaging.listener.topology.MemberTerminatedEventListener;
+import org.apache.stratos.messaging.listener.topology.TopologyDeltaEventListener;
+import org.apache.stratos.messaging.message.processor.topology.TopologyMessageProcessorChain;
+import org.apache.stratos.messaging.message.receiver.topology.TopologyVersionTracker;
+import org.apache.stratos.messaging.util.MessagingUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Versioned complete topology and topology delta processing tests.
+ */
+public class TopologyDeltaTest {
+
+    private static final long EPOCH = 1000;
+
+    private static Topology createTopology(String... clusterIds) {
+        Topology topology = new Topology();
+        Service service = new Service("php", ServiceType.SingleTenant, "php-uuid");
+        for (String clusterId : clusterIds) {
+            service.addCluster(new Cluster("php", clusterId, "deployment-policy-1", "autoscaling-policy-1", "app-1"));
+        }
+        topology.addService(service);
+        return topology;
+    }
+
+    private static Member createMember(String clusterId, String memberId, MemberStatus... statuses) {
+        Member member = new Member("php", clusterId, memberId, "cluster-instance-1", "network-partition-1",
+                "partition-1", null, 0);
+        for (MemberStatus status : statuses) {
+            member.setStatus(status);
+        }
+        return member;
+    }
+
+    private static void process(TopologyMessageProcessorChain processorChain, TopologyEvent event, long epoch,
+                                long version, Topology topology) {
+        event.setTopologyEpoch(epoch);
+        event.setTopologyVersion(version);
+        Message message = new Message(MessagingUtil.getMessageTopicName(event), JsonCodec.encode(event));
+        processorChain.getVersionTracker().messageReceived(message);
+        if ((event instanceof CompleteTopologyEvent) || (event instanceof TopologyDeltaEvent)) {
+            assertTrue(processorChain.process(event.getClass().getName(), message, topology));
+        }
+    }
+
+    @Test
+    public void testDeltaApplied() {
+        TopologyMessageProcessorChain processorChain = new TopologyMessageProcessorChain();
+        Topology topology = new Topology();
+
+        process(processorChain, new CompleteTopologyEvent(createTopology("cluster-1", "cluster-2")), EPOCH, 3,
+                topology);
+        assertTrue(topology.isInitialized());
+        assertNotNull(topology.getCluster("cluster-1"));
+
+        // Cluster 3 added and cluster 1 removed
+        TopologyDeltaEvent deltaEvent = new TopologyDeltaEvent(createTopology("cluster-3"),
+                new ArrayList<String>(), Arrays.asList("cluster-1"));
+        process(processorChain, deltaEvent, EPOCH, 3, topology);
+
+        assertFalse(processorChain.getVersionTracker().isOutOfSync());
+        assertNull(topology.getCluster("cluster-1"));
+        assertNotNull(topology.getCluster("cluster-2"));
+        assertNotNull(topology.getCluster("cluster-3"));
+        assertEquals(2, topology.getService("php-uuid").getClusters().size());
+
+        // Removing the service removes its clusters
+        TopologyDeltaEvent serviceRemovedDeltaEvent = new TopologyDeltaEvent(new Topology(),
+                Arrays.asList("php-uuid"), Collections.<String>emptyList());
+        process(processorChain, serviceRemovedDeltaEvent, EPOCH, 3, topology);
+
+        assertNull(topology.getService("php-uuid"));
+        assertNull(topology.getCluster("cluster-2"));
+    }
+
+    @Test
+    public void testDeltaNotifiesListeners() {
+        TopologyMessageProcessorChain processorChain = new TopologyMessageProcessorChain();
+        final List<Event> events = new ArrayList<Event>();
+        processorChain.addEventListener(new ClusterCreatedEventListener() {
+            @Override
+            protected void onEvent(Event event) {
+                events.add(event);
+            }
+        });
+        processorChain.addEventListener(new ClusterRemovedEventListener() {
+            @Override
+            protected void onEvent(Event event) {
+                events.add(event);
+            }
+        });
+        processorChain.addEventListener(new MemberActivatedEventListener() {
+            @Override
+            protected void onEvent(Event event) {
+                events.add(event);
+            }
+        });
+        processorChain.addEventListener(new MemberTerminatedEventListener() {
+            @Override
+            protected void onEvent(Event event) {
+                events.add(event);
+            }
+        });
+        processorChain.addEventListener(new TopologyDeltaEventListener() {
+            @Override
+            protected void onEvent(Event event) {
+                events.add(event);
+            }
+        });
+        Topology topology = new Topology();
+
+        Topology completeTopology = createTopology("cluster-1", "cluster-2");
+        completeTopology.getService("php-uuid").getCluster("cluster-1").addMember(
+                createMember("cluster-1", "member-1", MemberStatus.Initialized));
+        completeTopology.getService("php-uuid").getCluster("cluster-1").addMember(
+                createMember("cluster-1", "member-2", MemberStatus.Initialized));
+        process(processorChain, new CompleteTopologyEvent(completeTopology), EPOCH, 1, topology);
+        events.clear();
+
+        // Member 1 activated, member 2 terminated, cluster 2 removed and cluster 3 created
+        Topology changedTopology = createTopology("cluster-1", "cluster-3");
+        changedTopology.getService("php-uuid").getCluster("cluster-1").addMember(createMember("cluster-1",
+                "member-1", MemberStatus.Initialized, MemberStatus.Starting, MemberStatus.Active));
+        process(processorChain, new TopologyDeltaEvent(changedTopology, new ArrayList<String>(),
+                Arrays.asList("cluster-2")), EPOCH, 1, topology);
+
+        assertEquals(5, events.size());
+        List<String> eventTypes = new ArrayList<String>();
+        for (Event event : events) {
+            eventTypes.add(event.getClass().getSimpleName());
+            if (event instanceof MemberActivatedEvent) {
+                assertEquals("member-1", ((MemberActivatedEvent) event).getMemberId());
+            }
+        }
+        // Removals are notified before and additions after the delta is applied
+        assertEquals(Arrays.asList("ClusterRemovedEvent", "MemberTerminatedEvent"), eventTypes.subList(0, 2));
+        assertTrue(eventTypes.subList(2, 4).containsAll(Arrays.asList("ClusterCreatedEvent",
+                "MemberActivatedEvent")));
+        assertEquals("TopologyDeltaEvent", eventTypes.get(4));
+        assertEquals(MemberStatus.Active, topology.getCluster("cluster-1").getMember("member-1").getStatus());
+        assertNull(topology.getCluster("cluster-1").getMember("member-2"));
+    }
+
+    /**
+     * Deltas are published on their own topic, subscribers which do not process them never
+     * mistake a delta for the complete topology.
+     */
+    @Test
+    public void testDeltaPublishedSeparately() {
+        TopologyDeltaEvent deltaEvent = new TopologyDeltaEvent(createTopology("cluster-1"),
+                new ArrayList<String>(), Arrays.asList("cluster-2"));
+        String deltaTopicName = MessagingUtil.getMessageTopicName(deltaEvent);
+        assertTrue(deltaTopicName.endsWith("TopologyDeltaEvent"));
+        assertFalse(deltaTopicName.equals(MessagingUtil.getMessageTopicName(
+                new CompleteTopologyEvent(createTopology("cluster-1")))));
+
+        // Complete topology listeners are not notified of deltas
+        TopologyMessageProcessorChain processorChain = new TopologyMessageProcessorChain();
+        final List<Event> events = new ArrayList<Event>();
+        processorChain.addEventListener(new CompleteTopologyEventListener() {
+            @Override
+            protected void onEvent(Event event) {
+                events.add(event);
+            }
+        });
+        Topology topology = new Topology();
+        process(processorChain, new CompleteTopologyEvent(createTopology("cluster-2")), EPOCH, 1, topology);
+        process(processorChain, deltaEvent, EPOCH, 1, topology);
+        assertEquals(1, events.size());
+        assertTrue(events.get(0) instanceof CompleteTopologyEvent);
+        assertNotNull(topology.getCluster("cluster-1"));
+        assertNull(topology.getCluster("cluster-2"));
+    }
+
+    @Test
+    public void testDeltaIgnoredWhenVersionDiffers() {
+        TopologyMessageProcessorChain processorChain = new TopologyMessageProcessorChain();
+        TopologyVersionTracker versionTracker = processorChain.getVersionTracker();
+        Topology topology = new Topology();
+
+        process(processorChain, new CompleteTopologyEvent(createTopology("cluster-1")), EPOCH, 10, topology);
+
+        // Events between the complete topology and the delta have been lost
+        TopologyDeltaEvent deltaEvent = new TopologyDeltaEvent(createTopology("cluster-2"),
+                new ArrayList<String>(), Arrays.asList("cluster-1"));
+        process(processorChain, deltaEvent, EPOCH, 15, topology);
+
+        assertTrue(versionTracker.isOutOfSync());
+        assertNotNull(topology.getCluster("cluster-1"));
+        assertNull(topology.getCluster("cluster-2"));
+
+        // A newer complete topology re-initializes the topology
+        process(processorChain, new CompleteTopologyEvent(createTopology("cluster-2")), EPOCH, 16, topology);
+
+        assertFalse(versionTracker.isOutOfSync());
+        assertNull(topology.getCluster("cluster-1"));
+        assertNotNull(topology.getCluster("cluster-2"));
+    }
+
+    @Test
+    public void testNewEpochIsBaseline() {
+        TopologyMessageProcessorChain processorChain = new TopologyMessageProcessorChain();
+        TopologyVersionTracker versionTracker = processorChain.getVersionTracker();
+        Topology topology = new Topology();
+
+        process(processorChain, new CompleteTopologyEvent(createTopology("cluster-1")), EPOCH, 5, topology);
+        process(processorChain, new MemberCreatedEvent("php", "cluster-1", "cluster-instance-1", "member-1",
+                "network-partition-1", "partition-1", null, 0), EPOCH, 6, topology);
+        assertFalse(versionTracker.isOutOfSync());
+
+        // Publisher restarted, versions start over
+        process(processorChain, new MemberCreatedEvent("php", "cluster-1", "cluster-instance-1", "member-2",
+                "network-partition-1", "partition-1", null, 0), EPOCH + 1, 1, topology);
+        assertFalse(versionTracker.isOutOfSync());
+        assertEquals(EPOCH + 1, versionTracker.getLastEpoch());
+        assertEquals(1, versionTracker.getLastVersion());
+
+        // Events of the new epoch have been lost before the first one received
+        process(processorChain, new MemberCreatedEvent("php", "cluster-1", "cluster-instance-1", "member-3",
+                "network-partition-1", "partition-1", null, 0), EPOCH + 2, 4, topology);
+        assertTrue(versionTracker.isOutOfSync());
+
+        process(processorChain, new CompleteTopologyEvent(createTopology("cluster-1")), EPOCH + 2, 4, topology);
+        assertFalse(versionTracker.isOutOfSync());
+    }
+
+    @Test
+    public void testTrackersAreIndependent() {
+        TopologyMessageProcessorChain processorChain1 = new TopologyMessageProcessorChain();
+        TopologyMessageProcessorChain processorChain2 = new TopologyMessageProcessorChain();
+
+        process(processorChain1, new CompleteTopologyEvent(createTopology("cluster-1")), EPOCH, 1, new Topology());
+        process(processorChain1, new MemberCreatedEvent("php", "cluster-1", "cluster-instance-1", "member-1",
+                "network-partition-1", "partition-1", null, 0), EPOCH, 5, new Topology());
+
+        assertTrue(processorChain1.getVersionTracker().isOutOfSync());
+        assertFalse(processorChain2.getVersionTracker().isOutOfSync());
+        assertEquals(0, processorChain2.getVersionTracker().getLastVersion());
+    }
+}
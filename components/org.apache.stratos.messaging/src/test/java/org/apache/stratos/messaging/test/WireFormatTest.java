@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.stratos.messaging.test;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.stratos.messaging.codec.BinaryWireFormat;
+import org.apache.stratos.messaging.codec.JsonCodec;
+import org.apache.stratos.messaging.codec.JsonWireFormat;
+import org.apache.stratos.messaging.codec.MessageCodec;
+import org.apache.stratos.messaging.codec.WireFormat;
+import org.apache.stratos.messaging.domain.Message;
+import org.apache.stratos.messaging.domain.exception.MessagingException;
+import org.apache.stratos.messaging.domain.application.Application;
+import org.apache.stratos.messaging.domain.application.Applications;
+import org.apache.stratos.messaging.domain.application.ClusterDataHolder;
+import org.apache.stratos.messaging.domain.application.Group;
+import org.apache.stratos.messaging.domain.application.signup.ApplicationSignUp;
+import org.apache.stratos.messaging.domain.application.signup.ArtifactRepository;
+import org.apache.stratos.messaging.domain.application.signup.DomainMapping;
+import org.apache.stratos.messaging.domain.instance.ApplicationInstance;
+import org.apache.stratos.messaging.domain.instance.GroupInstance;
+import org.apache.stratos.messaging.domain.tenant.Tenant;
+import org.apache.stratos.messaging.event.Event;
+import org.apache.stratos.messaging.event.application.CompleteApplicationsEvent;
+import org.apache.stratos.messaging.event.application.signup.CompleteApplicationSignUpsEvent;
+import org.apache.stratos.messaging.event.tenant.CompleteTenantEvent;
+import org.apache.stratos.messaging.event.topology.CompleteTopologyEvent;
+import org.apache.stratos.messaging.event.topology.MemberActivatedEvent;
+import org.apache.stratos.messaging.util.MessagingConstants;
+import org.apache.stratos.messaging.util.MessagingUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Wire format tests, verifies that every event can be sent in each wire format with and
+ * without compression and compares payload size and CPU time of the wire formats for a
+ * complete topology event of 5,000 members.
+ */
+public class WireFormatTest {
+
+    private static final Log log = LogFactory.getLog(WireFormatTest.class);
+
+    private static final String EVENT_PACKAGE = "org.apache.stratos.messaging.event";
+    private static final int MAX_OBJECT_DEPTH = 3;
+    private static final int ITERATIONS = 20;
+
+    private static final WireFormat[] WIRE_FORMATS = {new JsonWireFormat(), new BinaryWireFormat()};
+
+    @After
+    public void tearDown() {
+        System.clearProperty(MessagingConstants.WIRE_FORMAT);
+        System.clearProperty(MessagingConstants.WIRE_FORMAT + ".topology");
+        System.clearProperty(MessagingConstants.WIRE_FORMAT_COMPRESSION_THRESHOLD);
+        System.clearProperty(MessagingConstants.WIRE_FORMAT_MAX_PAYLOAD_SIZE);
+    }
+
+    @Test
+    public void testAllEventsRoundTrip() throws Exception {
+        List<Class> eventClasses = findEventClasses();
+        assertFalse("Event classes not found", eventClasses.isEmpty());
+        Map<Class, Object> eventFixtures = createEventFixtures();
+
+        for (Class eventClass : eventClasses) {
+            Object event = eventFixtures.containsKey(eventClass) ? eventFixtures.get(eventClass) :
+                    createObject(eventClass, 0);
+            assertNotNull(String.format("Could not create event, add a fixture: [class] %s", eventClass.getName()),
+                    event);
+            byte[] json = JsonCodec.encode(event);
+            for (WireFormat wireFormat : WIRE_FORMATS) {
+                // Compression threshold of 1 byte compresses all payloads which get smaller
+                for (int compressionThreshold : new int[]{0, 1}) {
+                    byte[] payload = MessageCodec.encode(wireFormat, event, compressionThreshold);
+                    Object decodedEvent = MessageCodec.decode(payload, eventClass);
+                    assertEquals(eventClass, decodedEvent.getClass());
+                    assertArrayEquals(String.format("Round trip failed: [event] %s [wire-format] %s " +
+                                    "[compression-threshold] %d", eventClass.getName(), wireFormat.getName(),
+                            compressionThreshold), json, JsonCodec.encode(decodedEvent));
+                }
+            }
+        }
+        log.info(String.format("Events verified: %d", eventClasses.size()));
+    }
+
+    @Test
+    public void testJsonPayloadWithoutHeader() {
+        MemberActivatedEvent event = new MemberActivatedEvent("service-1", "service-1.cluster-1", "instance-1",
+                "member-1", "network-partition-1", "partition-1");
+        byte[] payload = MessageCodec.encode(MessagingUtil.getMessageTopicName(event), event);
+        assertFalse(MessageCodec.hasFormatHeader(payload));
+        assertArrayEquals(JsonCodec.encode(event), payload);
+    }
+
+    @Test
+    public void testWireFormatPerTopic() {
+        System.setProperty(MessagingConstants.WIRE_FORMAT + ".topology", BinaryWireFormat.NAME);
+        assertEquals(BinaryWireFormat.NAME, MessageCodec.getWireFormat("topology/MemberActivatedEvent").getName());
+        assertEquals(BinaryWireFormat.NAME, MessageCodec.getWireFormat("topology.MemberActivatedEvent").getName());
+        assertEquals(JsonWireFormat.NAME, MessageCodec.getWireFormat("tenant/TenantCreatedEvent").getName());
+
+        MemberActivatedEvent event = new MemberActivatedEvent("service-1", "service-1.cluster-1", "instance-1",
+                "member-1", "network-partition-1", "partition-1");
+        String topicName = MessagingUtil.getMessageTopicName(event);
+        byte[] payload = MessageCodec.encode(topicName, event);
+        assertTrue(MessageCodec.hasFormatHeader(payload));
+
+        // Subscribers read the payload and the JSON text regardless of the wire format
+        Message message = new Message(topicName, payload);
+        MemberActivatedEvent decodedEvent = (MemberActivatedEvent) MessagingUtil.jsonToObject(message,
+                MemberActivatedEvent.class);
+        assertEquals(event.getMemberId(), decodedEvent.getMemberId());
+        assertEquals(new String(JsonCodec.encode(event), JsonCodec.UTF_8), message.getText());
+
+        // Events already encoded in JSON are transcoded
+        assertArrayEquals(payload, MessageCodec.encodeJson(topicName, JsonCodec.encode(event)));
+    }
+
+    @Test
+    public void testInvalidCompressedLengthRejected() {
+        byte[] payload = MessageCodec.encode(new BinaryWireFormat(), JsonCodecTest.createCompleteTopologyEvent(), 1);
+        // Uncompressed length is written after the format header
+        byte[][] lengths = {{(byte) 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF},
+                {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF}};
+        for (byte[] length : lengths) {
+            byte[] invalidPayload = payload.clone();
+            System.arraycopy(length, 0, invalidPayload, 4, length.length);
+            try {
+                MessageCodec.decode(invalidPayload, CompleteTopologyEvent.class);
+                fail("Payload with an invalid length was decoded");
+            } catch (MessagingException expected) {
+            }
+        }
+
+        System.setProperty(MessagingConstants.WIRE_FORMAT_MAX_PAYLOAD_SIZE, "1024");
+        try {
+            MessageCodec.decode(payload, CompleteTopologyEvent.class);
+            fail("Payload larger than the maximum payload size was decoded");
+        } catch (MessagingException expected) {
+        }
+    }
+
+    @Test
+    public void testCompleteTopologyWireFormats() {
+        CompleteTopologyEvent event = JsonCodecTest.createCompleteTopologyEvent();
+        byte[] json = JsonCodec.encode(event);
+
+        for (WireFormat wireFormat : WIRE_FORMATS) {
+            for (int compressionThreshold : new int[]{0, 1024}) {
+                // Warm up
+                for (int i = 0; i < ITERATIONS; i++) {
+                    MessageCodec.decode(MessageCodec.encode(wireFormat, event, compressionThreshold),
+                            CompleteTopologyEvent.class);
+                }
+
+                byte[] payload = null;
+                long startTime = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    payload = MessageCodec.encode(wireFormat, event, compressionThreshold);
+                }
+                long encodeDuration = System.nanoTime() - startTime;
+
+                Object decodedEvent = null;
+                startTime = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    decodedEvent = MessageCodec.decode(payload, CompleteTopologyEvent.class);
+                }
+                long decodeDuration = System.nanoTime() - startTime;
+
+                assertArrayEquals(json, JsonCodec.encode(decodedEvent));
+                log.info(String.format("Complete topology event: [wire-format] %s [compressed] %s " +
+                                "[size] %d bytes [encode] %.1f ms [decode] %.1f ms", wireFormat.getName(),
+                        compressionThreshold > 0, payload.length, encodeDuration / 1000000.0 / ITERATIONS,
+                        decodeDuration / 1000000.0 / ITERATIONS));
+            }
+        }
+    }
+
+    /**
+     * Events created explicitly, since creating them through reflection leaves their
+     * collections empty.
+     */
+    private static Map<Class, Object> createEventFixtures() {
+        Map<Class, Object> eventFixtures = new HashMap<Class, Object>();
+        eventFixtures.put(CompleteTopologyEvent.class, JsonCodecTest.createCompleteTopologyEvent());
+        eventFixtures.put(CompleteApplicationsEvent.class, new CompleteApplicationsEvent(createApplications()));
+
+        List<Tenant> tenants = new ArrayList<Tenant>();
+        for (int i = 1; i <= 3; i++) {
+            tenants.add(new Tenant(i, "tenant-" + i + ".com"));
+        }
+        eventFixtures.put(CompleteTenantEvent.class, new CompleteTenantEvent(tenants));
+
+        ArtifactRepository artifactRepository = new ArtifactRepository();
+        artifactRepository.setCartridgeType("php");
+        artifactRepository.setAlias("php-1");
+        artifactRepository.setRepoUrl("https://github.com/example/php-app.git");
+        DomainMapping domainMapping = new DomainMapping();
+        domainMapping.setTenantId(1);
+        domainMapping.setApplicationId("application-1");
+        domainMapping.setServiceName("php");
+        domainMapping.setClusterId("php-1.cluster-1");
+        domainMapping.setDomainName("www.example.com");
+        domainMapping.setContextPath("/app");
+        ApplicationSignUp applicationSignUp = new ApplicationSignUp();
+        applicationSignUp.setTenantId(1);
+        applicationSignUp.setApplicationId("application-1");
+        applicationSignUp.setArtifactRepositories(new ArtifactRepository[]{artifactRepository});
+        applicationSignUp.setDomainMappings(new DomainMapping[]{domainMapping});
+        applicationSignUp.setClusterIds(new String[]{"php-1.cluster-1"});
+        List<ApplicationSignUp> applicationSignUps = new ArrayList<ApplicationSignUp>();
+        applicationSignUps.add(applicationSignUp);
+        eventFixtures.put(CompleteApplicationSignUpsEvent.class,
+                new CompleteApplicationSignUpsEvent(applicationSignUps));
+        return eventFixtures;
+    }
+
+    private static Applications createApplications() {
+        Applications applications = new Applications();
+        for (int i = 1; i <= 2; i++) {
+            Application application = new Application("application-" + i, 1);
+            application.setName("Application " + i);
+            application.addInstance("application-" + i + "-1",
+                    new ApplicationInstance("application-" + i, "application-" + i + "-1"));
+
+            Map<String, ClusterDataHolder> clusterData = new HashMap<String, ClusterDataHolder>();
+            clusterData.put("php-" + i, new ClusterDataHolder("php", "php-" + i + ".cluster-1", "php-uuid"));
+            application.setClusterData(clusterData);
+
+            Group group = new Group("application-" + i, "group-1", "group-1-alias");
+            group.addInstance("group-1-1", new GroupInstance("group-1-alias", "group-1-1"));
+            application.addGroup(group);
+            applications.addApplication(application);
+        }
+        return applications;
+    }
+
+    /**
+     * Find all concrete event classes in the event package of the messaging component.
+     */
+    private static List<Class> findEventClasses() throws Exception {
+        File classesDir = new File(Event.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        File eventDir = new File(classesDir, EVENT_PACKAGE.replace('.', File.separatorChar));
+        List<Class> eventClasses = new ArrayList<Class>();
+        findEventClasses(eventDir, EVENT_PACKAGE, eventClasses);
+        return eventClasses;
+    }
+
+    private static void findEventClasses(File dir, String packageName, List<Class> eventClasses)
+            throws ClassNotFoundException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String fileName = file.getName();
+            if (file.isDirectory()) {
+                findEventClasses(file, packageName + "." + fileName, eventClasses);
+            } else if (fileName.endsWith(".class") && !fileName.contains("$")) {
+                Class type = Class.forName(packageName + "." + fileName.substring(0, fileName.length() - 6));
+                if (Event.class.isAssignableFrom(type) && !Modifier.isAbstract(type.getModifiers())) {
+                    eventClasses.add(type);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create an object using the constructor with the most parameters, filling parameters
+     * with sample values. Returns null if the object could not be created.
+     */
+    private static Object createObject(Class type, int depth) {
+        if (depth > MAX_OBJECT_DEPTH) {
+            return null;
+        }
+        Constructor[] constructors = type.getConstructors();
+        Constructor constructor = null;
+        for (Constructor candidate : constructors) {
+            if ((constructor == null) ||
+                    (candidate.getParameterTypes().length > constructor.getParameterTypes().length)) {
+                constructor = candidate;
+            }
+        }
+        if (constructor == null) {
+            return null;
+        }
+        Class[] parameterTypes = constructor.getParameterTypes();
+        Object[] parameters = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameters[i] = createValue(parameterTypes[i], i, depth);
+        }
+        try {
+            return constructor.newInstance(parameters);
+        } catch (Exception e) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Could not create object: [class] %s", type.getName()), e);
+            }
+            return null;
+        }
+    }
+
+    private static Object createValue(Class type, int index, int depth) {
+        if (type == String.class) {
+            return "value-" + index;
+        } else if ((type == int.class) || (type == Integer.class)) {
+            return index + 1;
+        } else if ((type == long.class) || (type == Long.class)) {
+            return 1000000000000L + index;
+        } else if ((type == float.class) || (type == Float.class)) {
+            return 0.5f + index;
+        } else if ((type == double.class) || (type == Double.class)) {
+            return 0.25 + index;
+        } else if ((type == boolean.class) || (type == Boolean.class)) {
+            return true;
+        } else if (type.isEnum()) {
+            return type.getEnumConstants()[0];
+        } else if (Set.class.isAssignableFrom(type)) {
+            return new HashSet<Object>();
+        } else if (Map.class.isAssignableFrom(type)) {
+            return new HashMap<Object, Object>();
+        } else if (Collection.class.isAssignableFrom(type)) {
+            return new ArrayList<Object>();
+        } else if (type.isArray() || type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        return createObject(type, depth + 1);
+    }
+}
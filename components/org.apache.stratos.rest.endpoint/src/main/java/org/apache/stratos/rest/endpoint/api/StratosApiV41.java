@@ -45,6 +45,7 @@ import org.apache.stratos.common.beans.policy.deployment.ApplicationPolicyBean;
 import org.apache.stratos.common.beans.policy.deployment.DeploymentPolicyBean;
 import org.apache.stratos.common.beans.topology.ApplicationInfoBean;
 import org.apache.stratos.common.beans.topology.ClusterBean;
+import org.apache.stratos.common.beans.topology.ScalingDecisionBean;
 import org.apache.stratos.common.client.AutoscalerServiceClient;
 import org.apache.stratos.common.client.CloudControllerServiceClient;
 import org.apache.stratos.common.exception.InvalidEmailException;
@@ -1556,6 +1557,34 @@ public class StratosApiV41 extends AbstractApi {
         }
     }
 
+    /**
+     * Get the most recent scaling decisions of a cluster with the time of each stage from the
+     * health statistic which triggered the decision to the activation of the spawned members
+     *
+     * @param clusterId id of the cluster
+     * @return 200 with the scaling decisions, most recent first, 404 if the cluster is not found
+     * @throws RestAPIException the rest api exception
+     */
+    @GET
+    @Path("/cluster/{clusterId}/scalingDecisions")
+    @Produces("application/json")
+    @Consumes("application/json")
+    @AuthorizationAction("/permission/admin/stratos/applications/view")
+    public Response getScalingDecisions(
+            @PathParam("clusterId") String clusterId) throws RestAPIException {
+        try {
+            List<ScalingDecisionBean> scalingDecisions = StratosApiV41Utils.getScalingDecisions(clusterId);
+            if (scalingDecisions == null) {
+                return Response.status(Response.Status.NOT_FOUND).entity(new ResponseMessageBean(
+                        ResponseMessageBean.ERROR, "Cluster not found")).build();
+            }
+            return Response.ok().entity(scalingDecisions.toArray(
+                    new ScalingDecisionBean[scalingDecisions.size()])).build();
+        } catch (ClusterIdIsEmptyException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+    }
+
 
     // API methods for tenants
 
@@ -28,6 +28,7 @@ import org.apache.stratos.autoscaler.stub.autoscale.policy.AutoscalePolicy;
 import org.apache.stratos.autoscaler.stub.deployment.policy.ApplicationPolicy;
 import org.apache.stratos.autoscaler.stub.deployment.policy.DeploymentPolicy;
 import org.apache.stratos.autoscaler.stub.pojo.ApplicationContext;
+import org.apache.stratos.autoscaler.stub.pojo.ScalingDecision;
 import org.apache.stratos.autoscaler.stub.pojo.ServiceGroup;
 import org.apache.stratos.cloud.controller.stub.*;
 import org.apache.stratos.cloud.controller.stub.domain.Cartridge;
@@ -58,7 +59,9 @@ import org.apache.stratos.common.beans.policy.deployment.DeploymentPolicyBean;
 import org.apache.stratos.common.beans.topology.ApplicationInfoBean;
 import org.apache.stratos.common.beans.topology.ApplicationInstanceBean;
 import org.apache.stratos.common.beans.topology.ClusterBean;
+import org.apache.stratos.common.beans.topology.ClusterInstanceBean;
 import org.apache.stratos.common.beans.topology.GroupInstanceBean;
+import org.apache.stratos.common.beans.topology.ScalingDecisionBean;
 import org.apache.stratos.common.client.AutoscalerServiceClient;
 import org.apache.stratos.common.client.CloudControllerServiceClient;
 import org.apache.stratos.common.client.StratosManagerServiceClient;
@@ -78,6 +81,7 @@ import org.apache.stratos.messaging.domain.application.Application;
 import org.apache.stratos.messaging.domain.application.ClusterDataHolder;
 import org.apache.stratos.messaging.domain.application.Group;
 import org.apache.stratos.messaging.domain.topology.Cluster;
+import org.apache.stratos.messaging.domain.topology.Service;
 import org.apache.stratos.messaging.message.receiver.application.ApplicationManager;
 import org.apache.stratos.messaging.message.receiver.topology.TopologyManager;
 import org.apache.stratos.rest.endpoint.Constants;
@@ -2151,18 +2155,10 @@ public class StratosApiV41Utils {
         Map<String, ClusterDataHolder> topLevelClusterDataMap = application.getClusterDataMap();
         if (topLevelClusterDataMap != null) {
             for (Map.Entry<String, ClusterDataHolder> entry : topLevelClusterDataMap.entrySet()) {
-                ClusterDataHolder clusterDataHolder = entry.getValue();
-                String clusterId = clusterDataHolder.getClusterId();
-                String serviceType = clusterDataHolder.getServiceUuid();
-                try {
-                    TopologyManager.acquireReadLockForCluster(serviceType, clusterId);
-                    Cluster cluster = TopologyManager.getTopology().getService(serviceType).getCluster(clusterId);
-
-                    applicationInstanceBean.getClusterInstances().add(ObjectConverter.
-                            convertClusterToClusterInstanceBean(applicationInstanceBean.getInstanceId(),
-                                    cluster, entry.getKey()));
-                } finally {
-                    TopologyManager.releaseReadLockForCluster(serviceType, clusterId);
+                ClusterInstanceBean clusterInstanceBean = getClusterInstanceBean(
+                        applicationInstanceBean.getInstanceId(), entry.getValue(), entry.getKey());
+                if (clusterInstanceBean != null) {
+                    applicationInstanceBean.getClusterInstances().add(clusterInstanceBean);
                 }
             }
         }
@@ -2180,23 +2176,47 @@ public class StratosApiV41Utils {
         Map<String, ClusterDataHolder> topLevelClusterDataMap = group.getClusterDataMap();
         if (topLevelClusterDataMap != null && !topLevelClusterDataMap.isEmpty()) {
             for (Map.Entry<String, ClusterDataHolder> entry : topLevelClusterDataMap.entrySet()) {
-                ClusterDataHolder clusterDataHolder = entry.getValue();
-                String clusterId = clusterDataHolder.getClusterId();
-                String serviceTypeUuid = clusterDataHolder.getServiceUuid();
-                try {
-                    TopologyManager.acquireReadLockForCluster(serviceTypeUuid, clusterId);
-                    Cluster topLevelCluster = TopologyManager.getTopology().getService(serviceTypeUuid).getCluster(clusterId);
-                    groupInstanceBean.getClusterInstances().add(ObjectConverter.
-                            convertClusterToClusterInstanceBean(groupInstanceBean.getInstanceId(),
-                                    topLevelCluster, entry.getKey()));
-                } finally {
-                    TopologyManager.releaseReadLockForCluster(serviceTypeUuid, clusterId);
+                ClusterInstanceBean clusterInstanceBean = getClusterInstanceBean(
+                        groupInstanceBean.getInstanceId(), entry.getValue(), entry.getKey());
+                if (clusterInstanceBean != null) {
+                    groupInstanceBean.getClusterInstances().add(clusterInstanceBean);
                 }
             }
         }
 
     }
 
+    /**
+     * Get the cluster instance bean of the given cluster from the cluster snapshot, which needs no
+     * topology locks. Falls back to the topology under the cluster read lock if the snapshot is missing.
+     *
+     * @param instanceId        instance id
+     * @param clusterDataHolder cluster data holder
+     * @param alias             cluster alias
+     * @return cluster instance bean, null if the cluster does not exist
+     */
+    private static ClusterInstanceBean getClusterInstanceBean(String instanceId, ClusterDataHolder clusterDataHolder,
+                                                              String alias) throws RestAPIException {
+        String clusterId = clusterDataHolder.getClusterId();
+        Cluster cluster = TopologyManager.getClusterSnapshot(clusterId);
+        if (cluster != null) {
+            return ObjectConverter.convertClusterToClusterInstanceBean(instanceId, cluster, alias);
+        }
+
+        log.warn(String.format("Cluster snapshot not found, reading cluster from topology: [cluster] %s",
+                clusterId));
+        String serviceUuid = clusterDataHolder.getServiceUuid();
+        try {
+            TopologyManager.acquireReadLockForCluster(serviceUuid, clusterId);
+            Service service = TopologyManager.getTopology().getService(serviceUuid);
+            cluster = (service == null) ? null : service.getCluster(clusterId);
+            return (cluster == null) ? null :
+                    ObjectConverter.convertClusterToClusterInstanceBean(instanceId, cluster, alias);
+        } finally {
+            TopologyManager.releaseReadLockForCluster(serviceUuid, clusterId);
+        }
+    }
+
     /**
      * Set Sub Group Instances
      *
@@ -3268,6 +3288,32 @@ public class StratosApiV41Utils {
         return ObjectConverter.convertClusterToClusterBean(cluster, clusterId);
     }
 
+    /**
+     * Get the most recent scaling decisions of a cluster
+     *
+     * @param clusterId cluster id
+     * @return scaling decisions, most recent first, null if the cluster is not found
+     * @throws RestAPIException
+     */
+    public static List<ScalingDecisionBean> getScalingDecisions(String clusterId) throws RestAPIException {
+        if (StringUtils.isEmpty(clusterId)) {
+            throw new ClusterIdIsEmptyException("Cluster Id can not be empty");
+        }
+
+        if (TopologyManager.getTopology().getCluster(clusterId) == null) {
+            return null;
+        }
+
+        try {
+            ScalingDecision[] scalingDecisions = AutoscalerServiceClient.getInstance().getScalingDecisions(clusterId);
+            return ObjectConverter.convertStubScalingDecisionsToScalingDecisionBeans(scalingDecisions);
+        } catch (RemoteException e) {
+            String message = String.format("Could not get scaling decisions: [cluster-id] %s", clusterId);
+            log.error(message, e);
+            throw new RestAPIException(message, e);
+        }
+    }
+
     //util methods for Tenants
 
     /**
@@ -443,6 +443,8 @@ public class ObjectConverter {
         autoscalePolicy.setDescription(autoscalePolicyBean.getDescription());
         autoscalePolicy.setDisplayName(autoscalePolicyBean.getDisplayName());
         autoscalePolicy.setTenantId(tenantId);
+        autoscalePolicy.setScalingDecisionEngine(autoscalePolicyBean.getScalingDecisionEngine());
+        autoscalePolicy.setPredictor(autoscalePolicyBean.getPredictor());
 
         if (autoscalePolicyBean.getLoadThresholds() != null) {
 
@@ -907,6 +909,8 @@ public class ObjectConverter {
         autoscalePolicyBean.setId(autoscalePolicy.getId());
         autoscalePolicyBean.setDescription(autoscalePolicy.getDescription());
         autoscalePolicyBean.setDisplayName(autoscalePolicy.getDisplayName());
+        autoscalePolicyBean.setScalingDecisionEngine(autoscalePolicy.getScalingDecisionEngine());
+        autoscalePolicyBean.setPredictor(autoscalePolicy.getPredictor());
         if (autoscalePolicy.getLoadThresholds() != null) {
             autoscalePolicyBean.setLoadThresholds(convertStubLoadThresholdsToLoadThresholds(autoscalePolicy.getLoadThresholds()));
         }
@@ -2252,4 +2256,45 @@ public class ObjectConverter {
 
         return iaasProviderInfoBean;
     }
-}
\ No newline at end of file
+
+    public static List<ScalingDecisionBean> convertStubScalingDecisionsToScalingDecisionBeans(
+            ScalingDecision[] scalingDecisions) {
+
+        List<ScalingDecisionBean> scalingDecisionBeans = new ArrayList<ScalingDecisionBean>();
+        if (scalingDecisions == null) {
+            return scalingDecisionBeans;
+        }
+        for (ScalingDecision scalingDecision : scalingDecisions) {
+            if (scalingDecision == null) {
+                continue;
+            }
+            ScalingDecisionBean scalingDecisionBean = new ScalingDecisionBean();
+            scalingDecisionBean.setTraceId(scalingDecision.getTraceId());
+            scalingDecisionBean.setClusterId(scalingDecision.getClusterId());
+            scalingDecisionBean.setClusterInstanceId(scalingDecision.getClusterInstanceId());
+            scalingDecisionBean.setStatisticReceivedTime(scalingDecision.getStatisticReceivedTime());
+            scalingDecisionBean.setEvaluationStartTime(scalingDecision.getEvaluationStartTime());
+            scalingDecisionBean.setEvaluationEndTime(scalingDecision.getEvaluationEndTime());
+
+            List<ScalingDecisionMemberBean> memberBeans = new ArrayList<ScalingDecisionMemberBean>();
+            if (scalingDecision.getMembers() != null) {
+                for (ScalingDecisionMember member : scalingDecision.getMembers()) {
+                    if (member == null) {
+                        continue;
+                    }
+                    ScalingDecisionMemberBean memberBean = new ScalingDecisionMemberBean();
+                    memberBean.setMemberId(member.getMemberId());
+                    memberBean.setPartitionId(member.getPartitionId());
+                    memberBean.setScalingReason(member.getScalingReason());
+                    memberBean.setSpawnRequestTime(member.getSpawnRequestTime());
+                    memberBean.setSpawnResponseTime(member.getSpawnResponseTime());
+                    memberBean.setMemberActivatedTime(member.getMemberActivatedTime());
+                    memberBeans.add(memberBean);
+                }
+            }
+            scalingDecisionBean.setMembers(memberBeans);
+            scalingDecisionBeans.add(scalingDecisionBean);
+        }
+        return scalingDecisionBeans;
+    }
+}